@@ -0,0 +1,201 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.backtesting;
+
+import com.gazbert.bxbot.strategy.api.StrategyConfig;
+import com.gazbert.bxbot.strategy.api.StrategyException;
+import com.gazbert.bxbot.strategy.api.TradingStrategy;
+import com.gazbert.bxbot.trading.api.Market;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * Runs a Trading Strategy against recorded market data.
+ * </p>
+ * <p>
+ * The strategy is given a {@link SimulatedExchange} as its Trading API and executed once per trade cycle, just like
+ * the Trading Engine does. Instead of sleeping between trade cycles, the backtest replays every recorded event up to
+ * the end of the next trade cycle into the simulated exchange and moves the {@link VirtualClock} on - so a backtest
+ * runs as fast as the strategy and the replay allow.
+ * </p>
+ * <p>
+ * The first trade cycle runs at the timestamp of the first recorded event, as soon as the market has a price. The
+ * backtest ends after the trade cycle that replays the last event. A {@link StrategyException} thrown by the strategy
+ * stops the backtest, as it would stop the bot.
+ * </p>
+ *
+ * @author gazbert
+ * @since 1.0
+ */
+public final class Backtest {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private static final int DRAWDOWN_SCALE = 8;
+
+    private final TradingStrategy tradingStrategy;
+    private final Market market;
+    private final StrategyConfig strategyConfig;
+    private final SimulatedExchange exchange;
+    private final long tradeCycleIntervalMillis;
+
+
+    /**
+     * Creates a backtest.
+     *
+     * @param tradingStrategy          the strategy to test. It is initialised when the backtest is run.
+     * @param market                   the market the strategy trades.
+     * @param strategyConfig           the strategy's config.
+     * @param exchange                 the simulated exchange to trade on. It must have been created with the market.
+     * @param tradeCycleIntervalMillis the virtual time between trade cycles.
+     */
+    public Backtest(TradingStrategy tradingStrategy, Market market, StrategyConfig strategyConfig,
+                    SimulatedExchange exchange, long tradeCycleIntervalMillis) {
+
+        if (tradeCycleIntervalMillis < 1) {
+            final String errorMsg = "Trade cycle interval must be at least 1 millisecond: " + tradeCycleIntervalMillis;
+            LOG.error(errorMsg);
+            throw new IllegalArgumentException(errorMsg);
+        }
+
+        this.tradingStrategy = tradingStrategy;
+        this.market = market;
+        this.strategyConfig = strategyConfig;
+        this.exchange = exchange;
+        this.tradeCycleIntervalMillis = tradeCycleIntervalMillis;
+    }
+
+    /**
+     * Replays the market data through the strategy.
+     *
+     * @param marketData the recorded market data. It is not closed by the backtest.
+     * @return the outcome of the backtest.
+     * @throws IOException       if the market data cannot be read, is out of order, or never gives the market a price.
+     * @throws StrategyException if the strategy throws it.
+     */
+    public BacktestResult run(MarketDataSource marketData) throws IOException, StrategyException {
+
+        final VirtualClock clock = exchange.getClock();
+        tradingStrategy.init(exchange, market, strategyConfig);
+
+        MarketDataEvent event = marketData.next();
+        if (event == null) {
+            throw ioException("No market data to replay for market " + market.getId());
+        }
+
+        long tradeCycleTime = event.getTimestamp();
+        long startTime = 0;
+        long tradeCycles = 0;
+        BigDecimal startingValue = null;
+        BigDecimal peakValue = null;
+        BigDecimal maxDrawdown = BigDecimal.ZERO;
+
+        while (event != null) {
+
+            while (event != null && event.getTimestamp() <= tradeCycleTime) {
+                if (event.getTimestamp() < clock.currentTimeMillis()) {
+                    throw ioException("Market data is out of order: " + event + " is before "
+                            + clock.currentTimeMillis());
+                }
+                clock.advanceTo(event.getTimestamp());
+                exchange.onMarketData(event);
+                event = marketData.next();
+            }
+            clock.advanceTo(tradeCycleTime);
+
+            final BigDecimal value = valueBalances();
+            if (value != null) {
+                if (startingValue == null) {
+                    startTime = tradeCycleTime;
+                    startingValue = value;
+                    peakValue = value;
+                } else if (value.compareTo(peakValue) > 0) {
+                    peakValue = value;
+                } else if (peakValue.signum() > 0) {
+                    final BigDecimal drawdown = peakValue.subtract(value)
+                            .divide(peakValue, DRAWDOWN_SCALE, RoundingMode.HALF_UP);
+                    maxDrawdown = maxDrawdown.max(drawdown);
+                }
+
+                tradingStrategy.execute();
+                tradeCycles++;
+            }
+            tradeCycleTime += tradeCycleIntervalMillis;
+        }
+
+        if (startingValue == null) {
+            throw ioException("Market data never gave market " + market.getId() + " a price");
+        }
+
+        final Map<String, BigDecimal> endingBalances = new HashMap<>();
+        endingBalances.put(market.getBaseCurrency(), exchange.getTotalBalance(market.getBaseCurrency()));
+        endingBalances.put(market.getCounterCurrency(), exchange.getTotalBalance(market.getCounterCurrency()));
+
+        final BacktestResult result = new BacktestResult(startTime, clock.currentTimeMillis(), tradeCycles,
+                startingValue, valueBalances(), maxDrawdown, exchange.getOrdersCreated(),
+                exchange.getOrdersCancelled(), exchange.getOrdersFilled(), exchange.getFillCount(),
+                exchange.getFeesPaid().getOrDefault(market.getCounterCurrency(), BigDecimal.ZERO), endingBalances);
+        LOG.info(() -> "Backtest of " + tradingStrategy.getClass().getSimpleName() + " on " + market.getId()
+                + " finished: " + result);
+        return result;
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    /*
+     * Values the base and counter currency balances in the counter currency. Returns null until the market has a
+     * price.
+     */
+    private BigDecimal valueBalances() {
+
+        final BigDecimal markPrice;
+        try {
+            markPrice = exchange.getMarkPrice(market.getId());
+        } catch (TradingApiException e) {
+            final String errorMsg = "Market " + market.getId() + " is not traded on the simulated exchange";
+            LOG.error(errorMsg, e);
+            throw new IllegalStateException(errorMsg, e);
+        }
+        if (markPrice == null) {
+            return null;
+        }
+        return exchange.getTotalBalance(market.getCounterCurrency())
+                .add(exchange.getTotalBalance(market.getBaseCurrency()).multiply(markPrice));
+    }
+
+    private static IOException ioException(String errorMsg) {
+        LOG.error(errorMsg);
+        return new IOException(errorMsg);
+    }
+}
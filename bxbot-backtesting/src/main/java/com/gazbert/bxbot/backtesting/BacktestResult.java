@@ -0,0 +1,198 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.backtesting;
+
+import com.google.common.base.MoreObjects;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The outcome of a backtest. All values are in the counter currency of the market that was traded.
+ *
+ * @author gazbert
+ * @since 1.0
+ */
+public final class BacktestResult {
+
+    private static final int FILL_RATE_SCALE = 8;
+
+    private final long startTime;
+    private final long endTime;
+    private final long tradeCycles;
+    private final BigDecimal startingValue;
+    private final BigDecimal endingValue;
+    private final BigDecimal maxDrawdown;
+    private final long ordersCreated;
+    private final long ordersCancelled;
+    private final long ordersFilled;
+    private final long fillCount;
+    private final BigDecimal feesPaid;
+    private final Map<String, BigDecimal> endingBalances;
+
+
+    BacktestResult(long startTime, long endTime, long tradeCycles, BigDecimal startingValue, BigDecimal endingValue,
+                   BigDecimal maxDrawdown, long ordersCreated, long ordersCancelled, long ordersFilled,
+                   long fillCount, BigDecimal feesPaid, Map<String, BigDecimal> endingBalances) {
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.tradeCycles = tradeCycles;
+        this.startingValue = startingValue;
+        this.endingValue = endingValue;
+        this.maxDrawdown = maxDrawdown;
+        this.ordersCreated = ordersCreated;
+        this.ordersCancelled = ordersCancelled;
+        this.ordersFilled = ordersFilled;
+        this.fillCount = fillCount;
+        this.feesPaid = feesPaid;
+        this.endingBalances = Collections.unmodifiableMap(endingBalances);
+    }
+
+    /**
+     * Returns the virtual time of the first trade cycle.
+     *
+     * @return the start time in millis since the epoch.
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Returns the virtual time of the last trade cycle.
+     *
+     * @return the end time in millis since the epoch.
+     */
+    public long getEndTime() {
+        return endTime;
+    }
+
+    public long getTradeCycles() {
+        return tradeCycles;
+    }
+
+    /**
+     * Returns the value of the starting balances, with the base currency valued at the first trade cycle's price.
+     *
+     * @return the starting value.
+     */
+    public BigDecimal getStartingValue() {
+        return startingValue;
+    }
+
+    /**
+     * Returns the value of the ending balances, with the base currency valued at the last replayed price.
+     *
+     * @return the ending value.
+     */
+    public BigDecimal getEndingValue() {
+        return endingValue;
+    }
+
+    /**
+     * Returns the profit (or loss, if negative) made over the backtest, after fees.
+     *
+     * @return the ending value less the starting value.
+     */
+    public BigDecimal getProfitAndLoss() {
+        return endingValue.subtract(startingValue);
+    }
+
+    /**
+     * Returns the largest fall in value from a previous peak, as a fraction of that peak, e.g. 0.25 for a 25% fall.
+     *
+     * @return the maximum drawdown.
+     */
+    public BigDecimal getMaxDrawdown() {
+        return maxDrawdown;
+    }
+
+    public long getOrdersCreated() {
+        return ordersCreated;
+    }
+
+    public long getOrdersCancelled() {
+        return ordersCancelled;
+    }
+
+    public long getOrdersFilled() {
+        return ordersFilled;
+    }
+
+    /**
+     * Returns the number of fills. An order may be filled in several parts.
+     *
+     * @return the number of fills.
+     */
+    public long getFillCount() {
+        return fillCount;
+    }
+
+    /**
+     * Returns the fraction of orders created that were completely filled.
+     *
+     * @return the fill rate, zero if no orders were created.
+     */
+    public BigDecimal getFillRate() {
+        if (ordersCreated == 0) {
+            return BigDecimal.ZERO;
+        }
+        return new BigDecimal(ordersFilled).divide(new BigDecimal(ordersCreated), FILL_RATE_SCALE,
+                RoundingMode.HALF_UP);
+    }
+
+    public BigDecimal getFeesPaid() {
+        return feesPaid;
+    }
+
+    /**
+     * Returns the total balance of each currency at the end of the backtest, i.e. available plus on hold.
+     *
+     * @return the ending balances.
+     */
+    public Map<String, BigDecimal> getEndingBalances() {
+        return endingBalances;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("startTime", startTime)
+                .add("endTime", endTime)
+                .add("tradeCycles", tradeCycles)
+                .add("startingValue", startingValue)
+                .add("endingValue", endingValue)
+                .add("profitAndLoss", getProfitAndLoss())
+                .add("maxDrawdown", maxDrawdown)
+                .add("ordersCreated", ordersCreated)
+                .add("ordersCancelled", ordersCancelled)
+                .add("ordersFilled", ordersFilled)
+                .add("fillCount", fillCount)
+                .add("fillRate", getFillRate())
+                .add("feesPaid", feesPaid)
+                .add("endingBalances", endingBalances)
+                .toString();
+    }
+}
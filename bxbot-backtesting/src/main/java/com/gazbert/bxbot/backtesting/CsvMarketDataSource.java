@@ -0,0 +1,155 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.backtesting;
+
+import com.gazbert.bxbot.trading.api.MarketOrder;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OrderType;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * Reads recorded market data from a text file, one event per line:
+ * </p>
+ * <pre>
+ * # Order book snapshot: timestamp,B,market id,bids,asks
+ * # Each side is a list of price:quantity levels separated by ';', best price first. A side may be empty.
+ * 1475280000000,B,btc_usd,608.50:1.25;608.40:3.0,608.60:0.5;608.75:2.1
+ *
+ * # Trade: timestamp,T,market id,price,quantity
+ * 1475280000250,T,btc_usd,608.60,0.3
+ * </pre>
+ * <p>
+ * Timestamps are millis since the epoch. Blank lines and lines starting with '#' are ignored.
+ * </p>
+ *
+ * @author gazbert
+ * @since 1.0
+ */
+public final class CsvMarketDataSource implements MarketDataSource {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private static final String ORDER_BOOK_EVENT = "B";
+    private static final String TRADE_EVENT = "T";
+
+    private final Path file;
+    private final BufferedReader reader;
+    private long lineNumber;
+
+
+    /**
+     * Opens a recorded market data file.
+     *
+     * @param file the file to read.
+     * @throws IOException if the file cannot be opened.
+     */
+    public CsvMarketDataSource(Path file) throws IOException {
+        this.file = file;
+        this.reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public MarketDataEvent next() throws IOException {
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (!line.isEmpty() && line.charAt(0) != '#') {
+                return parseEvent(line);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private MarketDataEvent parseEvent(String line) throws IOException {
+
+        // -1 keeps a trailing empty asks field
+        final String[] fields = line.split(",", -1);
+        if (fields.length != 5) {
+            throw invalidLine("expected 5 fields but found " + fields.length);
+        }
+
+        try {
+            final long timestamp = Long.parseLong(fields[0]);
+            final String marketId = fields[2];
+            switch (fields[1]) {
+                case ORDER_BOOK_EVENT:
+                    return MarketDataEvent.orderBook(timestamp, new MarketOrderBook(marketId,
+                            parsePriceLevels(OrderType.SELL, fields[4]), parsePriceLevels(OrderType.BUY, fields[3])));
+                case TRADE_EVENT:
+                    return MarketDataEvent.trade(timestamp, marketId, new BigDecimal(fields[3]),
+                            new BigDecimal(fields[4]));
+                default:
+                    throw invalidLine("unknown event type '" + fields[1] + "'");
+            }
+        } catch (NumberFormatException e) {
+            throw invalidLine("bad number - " + e.getMessage());
+        }
+    }
+
+    private List<MarketOrder> parsePriceLevels(OrderType orderType, String side) throws IOException {
+
+        final List<MarketOrder> priceLevels = new ArrayList<>();
+        if (side.isEmpty()) {
+            return priceLevels;
+        }
+        for (final String priceLevel : side.split(";")) {
+            final int separator = priceLevel.indexOf(':');
+            if (separator < 0) {
+                throw invalidLine("price level '" + priceLevel + "' is not price:quantity");
+            }
+            final BigDecimal price = new BigDecimal(priceLevel.substring(0, separator));
+            final BigDecimal quantity = new BigDecimal(priceLevel.substring(separator + 1));
+            priceLevels.add(new MarketOrder(orderType, price, quantity, price.multiply(quantity)));
+        }
+        return priceLevels;
+    }
+
+    private IOException invalidLine(String reason) {
+        final String errorMsg = "Invalid market data at " + file + " line " + lineNumber + ": " + reason;
+        LOG.error(errorMsg);
+        return new IOException(errorMsg);
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.backtesting;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>
+ * A market's tick store segments, memory-mapped read-only once and shared by any number of {@link TickStoreReader}s.
+ * </p>
+ * <p>
+ * The segments are mapped when the store is opened, so segments written after that are not seen. Each reader has its
+ * own position, and readers on different threads share the mapped pages - the ticks are never copied. This is what
+ * lets an optimiser run many backtests over the same recording at once.
+ * </p>
+ *
+ * @author gazbert
+ * @since 1.0
+ */
+public final class MappedTickStore {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private final String marketId;
+    private final List<MappedByteBuffer> segments;
+
+
+    private MappedTickStore(String marketId, List<MappedByteBuffer> segments) {
+        this.marketId = marketId;
+        this.segments = segments;
+    }
+
+    /**
+     * Maps a market's segments in a tick store.
+     *
+     * @param directory the tick store directory.
+     * @param marketId  the id of the market.
+     * @return the mapped segments. There are none if the market has not been recorded.
+     * @throws IOException if a segment cannot be mapped or is not a tick store segment.
+     */
+    public static MappedTickStore open(Path directory, String marketId) throws IOException {
+
+        final List<Path> files = new ArrayList<>();
+        final Path marketDirectory = directory.resolve(marketId);
+        if (Files.isDirectory(marketDirectory)) {
+            try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(marketDirectory)) {
+                for (final Path file : directoryStream) {
+                    if (TickSegment.FILE_NAME.matcher(file.getFileName().toString()).matches()) {
+                        files.add(file);
+                    }
+                }
+            }
+        }
+        // File names sort in time order
+        Collections.sort(files);
+
+        final List<MappedByteBuffer> segments = new ArrayList<>(files.size());
+        for (final Path file : files) {
+            segments.add(mapSegment(file));
+        }
+        return new MappedTickStore(marketId, Collections.unmodifiableList(segments));
+    }
+
+    /**
+     * Creates a reader positioned before the first tick.
+     *
+     * @return a new reader.
+     */
+    public TickStoreReader newReader() {
+        return new TickStoreReader(marketId, duplicateSegments());
+    }
+
+    public String getMarketId() {
+        return marketId;
+    }
+
+    /**
+     * Returns the number of ticks in the segments, as they were when they were mapped.
+     *
+     * @return the number of ticks.
+     */
+    public long getTickCount() {
+        long tickCount = 0;
+        for (final MappedByteBuffer segment : segments) {
+            tickCount += segment.getInt(TickSegment.COUNT_OFFSET);
+        }
+        return tickCount;
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    /*
+     * Each reader gets its own views of the mapped segments - they share the pages, not the buffer state.
+     */
+    List<ByteBuffer> duplicateSegments() {
+        final List<ByteBuffer> duplicates = new ArrayList<>(segments.size());
+        for (final MappedByteBuffer segment : segments) {
+            duplicates.add(segment.duplicate());
+        }
+        return duplicates;
+    }
+
+    private static MappedByteBuffer mapSegment(Path file) throws IOException {
+
+        final MappedByteBuffer segment;
+        try (FileChannel channel = FileChannel.open(file)) {
+            segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (segment.capacity() < TickSegment.HEADER_SIZE
+                || segment.getInt(TickSegment.MAGIC_OFFSET) != TickSegment.MAGIC
+                || segment.getInt(TickSegment.VERSION_OFFSET) != TickSegment.VERSION) {
+            final String errorMsg = "Not a tick store segment: " + file;
+            LOG.error(errorMsg);
+            throw new IOException(errorMsg);
+        }
+
+        final int levels = segment.getInt(TickSegment.LEVELS_OFFSET);
+        final int capacity = segment.getInt(TickSegment.CAPACITY_OFFSET);
+        final int tickCount = segment.getInt(TickSegment.COUNT_OFFSET);
+        if (levels < 1 || capacity < 1 || tickCount < 0 || tickCount > capacity
+                || segment.capacity() != TickSegment.fileSize(levels, capacity)) {
+            final String errorMsg = "Corrupt tick store segment header: " + file;
+            LOG.error(errorMsg);
+            throw new IOException(errorMsg);
+        }
+        return segment;
+    }
+}
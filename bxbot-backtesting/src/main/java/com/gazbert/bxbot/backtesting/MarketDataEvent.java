@@ -0,0 +1,129 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.backtesting;
+
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.google.common.base.MoreObjects;
+
+import java.math.BigDecimal;
+
+/**
+ * A recorded market data event: either an order book snapshot or a trade on the market.
+ *
+ * @author gazbert
+ * @since 1.0
+ */
+public final class MarketDataEvent {
+
+    private final long timestamp;
+    private final String marketId;
+    private final MarketOrderBook orderBook;
+    private final BigDecimal price;
+    private final BigDecimal quantity;
+
+
+    private MarketDataEvent(long timestamp, String marketId, MarketOrderBook orderBook, BigDecimal price,
+                            BigDecimal quantity) {
+        this.timestamp = timestamp;
+        this.marketId = marketId;
+        this.orderBook = orderBook;
+        this.price = price;
+        this.quantity = quantity;
+    }
+
+    /**
+     * Creates an order book snapshot event.
+     *
+     * @param timestamp the time of the snapshot in millis since the epoch.
+     * @param orderBook the order book.
+     * @return the event.
+     */
+    public static MarketDataEvent orderBook(long timestamp, MarketOrderBook orderBook) {
+        return new MarketDataEvent(timestamp, orderBook.getMarketId(), orderBook, null, null);
+    }
+
+    /**
+     * Creates a trade event.
+     *
+     * @param timestamp the time of the trade in millis since the epoch.
+     * @param marketId  the id of the market.
+     * @param price     the price the trade went through at.
+     * @param quantity  the quantity traded, or null if only the price was recorded. A trade without a quantity updates
+     *                  the latest market price but does not fill any orders.
+     * @return the event.
+     */
+    public static MarketDataEvent trade(long timestamp, String marketId, BigDecimal price, BigDecimal quantity) {
+        return new MarketDataEvent(timestamp, marketId, null, price, quantity);
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getMarketId() {
+        return marketId;
+    }
+
+    public boolean isOrderBook() {
+        return orderBook != null;
+    }
+
+    /**
+     * Returns the order book.
+     *
+     * @return the order book, or null if this is a trade event.
+     */
+    public MarketOrderBook getOrderBook() {
+        return orderBook;
+    }
+
+    /**
+     * Returns the trade price.
+     *
+     * @return the trade price, or null if this is an order book event.
+     */
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    /**
+     * Returns the trade quantity.
+     *
+     * @return the trade quantity, or null if this is an order book event or the quantity was not recorded.
+     */
+    public BigDecimal getQuantity() {
+        return quantity;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("timestamp", timestamp)
+                .add("marketId", marketId)
+                .add("orderBook", orderBook)
+                .add("price", price)
+                .add("quantity", quantity)
+                .toString();
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.backtesting;
+
+import com.google.common.base.MoreObjects;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The outcome of one backtest run by a {@link StrategyOptimiser}: the parameter set tried, and either the backtest
+ * result or why the backtest failed.
+ *
+ * @author gazbert
+ * @since 1.0
+ */
+public final class OptimisationResult {
+
+    private final Map<String, String> parameters;
+    private final BacktestResult backtestResult;
+    private final String failureReason;
+
+
+    private OptimisationResult(Map<String, String> parameters, BacktestResult backtestResult, String failureReason) {
+        this.parameters = Collections.unmodifiableMap(parameters);
+        this.backtestResult = backtestResult;
+        this.failureReason = failureReason;
+    }
+
+    static OptimisationResult completed(Map<String, String> parameters, BacktestResult backtestResult) {
+        return new OptimisationResult(parameters, backtestResult, null);
+    }
+
+    static OptimisationResult failed(Map<String, String> parameters, String failureReason) {
+        return new OptimisationResult(parameters, null, failureReason);
+    }
+
+    public Map<String, String> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Returns true if the backtest ran to the end of the market data.
+     *
+     * @return true if completed, false if it failed.
+     */
+    public boolean isCompleted() {
+        return backtestResult != null;
+    }
+
+    /**
+     * Returns the backtest result.
+     *
+     * @return the result, or null if the backtest failed.
+     */
+    public BacktestResult getBacktestResult() {
+        return backtestResult;
+    }
+
+    /**
+     * Returns why the backtest failed, e.g. the strategy threw a StrategyException or rejected its config.
+     *
+     * @return the reason, or null if the backtest completed.
+     */
+    public String getFailureReason() {
+        return failureReason;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("parameters", parameters)
+                .add("backtestResult", backtestResult)
+                .add("failureReason", failureReason)
+                .toString();
+    }
+}
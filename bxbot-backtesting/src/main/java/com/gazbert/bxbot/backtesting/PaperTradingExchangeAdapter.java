@@ -0,0 +1,272 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.backtesting;
+
+import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
+import com.gazbert.bxbot.exchange.api.ExchangeConfig;
+import com.gazbert.bxbot.exchange.api.OtherConfig;
+import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.Market;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import static com.gazbert.bxbot.backtesting.WrappedExchangeAdapterConfig.createExchangeAdapter;
+import static com.gazbert.bxbot.backtesting.WrappedExchangeAdapterConfig.getOtherConfigItem;
+
+/**
+ * <p>
+ * An Exchange Adapter for paper trading: the bot sees the real exchange's market data, but its orders and balances
+ * are simulated, so a strategy can be soak tested at production trade cycle rates without risking real funds.
+ * </p>
+ * <p>
+ * It wraps the real Exchange Adapter, named in the <code>paper-traded-exchange-adapter</code> other-config item, and
+ * only uses it for public market data. The wrapped adapter is given the same config, so its network and other config
+ * items are set as usual. Every order book and latest price it fetches is fed to a {@link SimulatedExchange}, which
+ * matches the bot's orders in price-time priority - see {@link SimulatedExchange} for exactly how orders are filled.
+ * Open orders, create/cancel order, balances and fees are all answered by the simulator and never reach the real
+ * exchange.
+ * </p>
+ * <p>
+ * The simulator only sees the market data the strategy fetches. A new order is matched against the last order book
+ * fetched for its market, and resting orders are filled when a later order book crosses them. Latest prices are
+ * tracked, but do not fill orders, as they carry no traded quantity.
+ * </p>
+ * <p>
+ * These other-config items are needed as well:
+ * </p>
+ * <ul>
+ * <li><code>paper-trading-markets</code> - the markets that can be traded, as
+ * <code>market-id:base-currency:counter-currency</code> separated by commas, e.g. <code>btc_usd:BTC:USD</code></li>
+ * <li><code>paper-trading-balances</code> - the starting balances, as <code>currency:amount</code> separated by
+ * commas, e.g. <code>USD:10000,BTC:0</code></li>
+ * <li><code>buy-fee</code> and <code>sell-fee</code> - the fees to charge in %, e.g. 0.25 for 0.25%</li>
+ * </ul>
+ * <p>
+ * Balances and open orders are held in memory; every restart begins again from the starting balances.
+ * </p>
+ *
+ * @author gazbert
+ * @since 1.0
+ */
+public final class PaperTradingExchangeAdapter implements ExchangeAdapter {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private static final String PAPER_TRADED_EXCHANGE_ADAPTER_PROPERTY_NAME = "paper-traded-exchange-adapter";
+    private static final String PAPER_TRADING_MARKETS_PROPERTY_NAME = "paper-trading-markets";
+    private static final String PAPER_TRADING_BALANCES_PROPERTY_NAME = "paper-trading-balances";
+    private static final String BUY_FEE_PROPERTY_NAME = "buy-fee";
+    private static final String SELL_FEE_PROPERTY_NAME = "sell-fee";
+
+    private ExchangeAdapter exchangeAdapter;
+    private SimulatedExchange simulatedExchange;
+
+    /*
+     * Timestamps the simulated orders. Moved on to the wall clock time under the simulated exchange's lock.
+     */
+    private VirtualClock clock;
+
+
+    @Override
+    public void init(ExchangeConfig config) {
+
+        LOG.info(() -> "About to initialise paper trading ExchangeConfig: " + config);
+
+        final OtherConfig otherConfig = config.getOtherConfig();
+        final String paperTradedAdapter = getOtherConfigItem(otherConfig, PAPER_TRADED_EXCHANGE_ADAPTER_PROPERTY_NAME);
+        final List<Market> markets = parseMarkets(getOtherConfigItem(otherConfig, PAPER_TRADING_MARKETS_PROPERTY_NAME));
+        final Map<String, BigDecimal> startingBalances = parseBalances(
+                getOtherConfigItem(otherConfig, PAPER_TRADING_BALANCES_PROPERTY_NAME));
+        final BigDecimal buyFeePercentage = parseFee(getOtherConfigItem(otherConfig, BUY_FEE_PROPERTY_NAME));
+        final BigDecimal sellFeePercentage = parseFee(getOtherConfigItem(otherConfig, SELL_FEE_PROPERTY_NAME));
+
+        exchangeAdapter = createExchangeAdapter(paperTradedAdapter, "paper traded");
+        exchangeAdapter.init(config);
+
+        clock = new VirtualClock(System.currentTimeMillis());
+        simulatedExchange = new SimulatedExchange(clock, markets, startingBalances, buyFeePercentage,
+                sellFeePercentage);
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Public market data - fetched from the real exchange and fed to the simulator
+    // ------------------------------------------------------------------------------------------------
+
+    @Override
+    public MarketOrderBook getMarketOrders(String marketId) throws ExchangeNetworkException, TradingApiException {
+        return onOrderBook(exchangeAdapter.getMarketOrders(marketId));
+    }
+
+    @Override
+    public MarketOrderBook getMarketOrders(String marketId, int depth)
+            throws ExchangeNetworkException, TradingApiException {
+        return onOrderBook(exchangeAdapter.getMarketOrders(marketId, depth));
+    }
+
+    @Override
+    public MarketOrderBook getTopOfBook(String marketId) throws ExchangeNetworkException, TradingApiException {
+        return onOrderBook(exchangeAdapter.getTopOfBook(marketId));
+    }
+
+    @Override
+    public BigDecimal getLatestMarketPrice(String marketId) throws ExchangeNetworkException, TradingApiException {
+        final BigDecimal latestPrice = exchangeAdapter.getLatestMarketPrice(marketId);
+        synchronized (simulatedExchange) {
+            simulatedExchange.onMarketData(MarketDataEvent.trade(advanceClock(), marketId, latestPrice, null));
+        }
+        return latestPrice;
+    }
+
+    @Override
+    public String getImplName() {
+        return "Paper trading on " + exchangeAdapter.getImplName();
+    }
+
+    @Override
+    public String getVersion() {
+        return exchangeAdapter.getVersion();
+    }
+
+    @Override
+    public Executor getPublicApiExecutor() {
+        return exchangeAdapter.getPublicApiExecutor();
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Simulated orders, balances and fees
+    // ------------------------------------------------------------------------------------------------
+
+    @Override
+    public List<OpenOrder> getYourOpenOrders(String marketId) throws TradingApiException {
+        return simulatedExchange.getYourOpenOrders(marketId);
+    }
+
+    @Override
+    public String createOrder(String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price)
+            throws TradingApiException {
+        synchronized (simulatedExchange) {
+            advanceClock();
+            return simulatedExchange.createOrder(marketId, orderType, quantity, price);
+        }
+    }
+
+    @Override
+    public boolean cancelOrder(String orderId, String marketId) throws TradingApiException {
+        return simulatedExchange.cancelOrder(orderId, marketId);
+    }
+
+    @Override
+    public BalanceInfo getBalanceInfo() {
+        return simulatedExchange.getBalanceInfo();
+    }
+
+    @Override
+    public BigDecimal getPercentageOfBuyOrderTakenForExchangeFee(String marketId) throws TradingApiException {
+        return simulatedExchange.getPercentageOfBuyOrderTakenForExchangeFee(marketId);
+    }
+
+    @Override
+    public BigDecimal getPercentageOfSellOrderTakenForExchangeFee(String marketId) throws TradingApiException {
+        return simulatedExchange.getPercentageOfSellOrderTakenForExchangeFee(marketId);
+    }
+
+    /**
+     * Returns the simulated exchange holding the paper trading orders and balances, e.g. for reporting the fees paid
+     * and orders filled so far.
+     *
+     * @return the simulated exchange.
+     */
+    public SimulatedExchange getSimulatedExchange() {
+        return simulatedExchange;
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private MarketOrderBook onOrderBook(MarketOrderBook orderBook) {
+        synchronized (simulatedExchange) {
+            simulatedExchange.onMarketData(MarketDataEvent.orderBook(advanceClock(), orderBook));
+        }
+        return orderBook;
+    }
+
+    /*
+     * Caller must hold the simulated exchange's lock. The wall clock can be stepped back, e.g. by NTP, but order
+     * times must not go backwards.
+     */
+    private long advanceClock() {
+        clock.advanceTo(Math.max(clock.currentTimeMillis(), System.currentTimeMillis()));
+        return clock.currentTimeMillis();
+    }
+
+    private static List<Market> parseMarkets(String marketsConfig) {
+
+        final List<Market> markets = new ArrayList<>();
+        for (final String marketConfig : marketsConfig.split(",")) {
+            final String[] marketFields = marketConfig.trim().split(":");
+            if (marketFields.length != 3) {
+                final String errorMsg = PAPER_TRADING_MARKETS_PROPERTY_NAME
+                        + " entries must be market-id:base-currency:counter-currency but found: " + marketConfig;
+                LOG.error(errorMsg);
+                throw new IllegalArgumentException(errorMsg);
+            }
+            markets.add(new Market(marketFields[0], marketFields[0], marketFields[1], marketFields[2]));
+        }
+        return markets;
+    }
+
+    private static Map<String, BigDecimal> parseBalances(String balancesConfig) {
+
+        final Map<String, BigDecimal> balances = new HashMap<>();
+        for (final String balanceConfig : balancesConfig.split(",")) {
+            final String[] balanceFields = balanceConfig.trim().split(":");
+            if (balanceFields.length != 2) {
+                final String errorMsg = PAPER_TRADING_BALANCES_PROPERTY_NAME
+                        + " entries must be currency:amount but found: " + balanceConfig;
+                LOG.error(errorMsg);
+                throw new IllegalArgumentException(errorMsg);
+            }
+            // will fail fast if value is not a number!
+            balances.put(balanceFields[0], new BigDecimal(balanceFields[1]));
+        }
+        return balances;
+    }
+
+    private static BigDecimal parseFee(String feeInConfig) {
+        return new BigDecimal(feeInConfig).divide(new BigDecimal("100"), 8, BigDecimal.ROUND_HALF_UP);
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.backtesting;
+
+import com.google.common.base.MoreObjects;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * The sets of strategy config items a {@link StrategyOptimiser} tries. Each set is a map of config item name to
+ * value, passed to the strategy as its config alongside any fixed config items.
+ *
+ * @author gazbert
+ * @since 1.0
+ */
+public final class ParameterSpace {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private final List<Map<String, String>> parameterSets;
+
+
+    private ParameterSpace(List<Map<String, String>> parameterSets) {
+        this.parameterSets = Collections.unmodifiableList(parameterSets);
+    }
+
+    /**
+     * Creates a grid search: every combination of the given values.
+     *
+     * @param valuesByName the values to try for each config item.
+     * @return the parameter space.
+     */
+    public static ParameterSpace grid(Map<String, List<String>> valuesByName) {
+
+        List<Map<String, String>> parameterSets = Collections.singletonList(Collections.emptyMap());
+        for (final Map.Entry<String, List<String>> values : valuesByName.entrySet()) {
+            if (values.getValue().isEmpty()) {
+                final String errorMsg = "No values given for config item: " + values.getKey();
+                LOG.error(errorMsg);
+                throw new IllegalArgumentException(errorMsg);
+            }
+
+            final List<Map<String, String>> combinations = new ArrayList<>();
+            for (final Map<String, String> parameterSet : parameterSets) {
+                for (final String value : values.getValue()) {
+                    final Map<String, String> combination = new HashMap<>(parameterSet);
+                    combination.put(values.getKey(), value);
+                    combinations.add(combination);
+                }
+            }
+            parameterSets = combinations;
+        }
+        return new ParameterSpace(parameterSets);
+    }
+
+    /**
+     * Creates a random search: the given number of parameter sets, with each config item drawn uniformly from its
+     * range. The same seed always gives the same parameter sets, so a search can be repeated.
+     *
+     * @param rangesByName the range to draw each config item from.
+     * @param sampleCount  the number of parameter sets.
+     * @param seed         the seed for the random number generator.
+     * @return the parameter space.
+     */
+    public static ParameterSpace random(Map<String, Range> rangesByName, int sampleCount, long seed) {
+
+        final Random random = new Random(seed);
+        final List<Map<String, String>> parameterSets = new ArrayList<>(sampleCount);
+        for (int i = 0; i < sampleCount; i++) {
+            final Map<String, String> parameterSet = new HashMap<>();
+            for (final Map.Entry<String, Range> range : rangesByName.entrySet()) {
+                parameterSet.put(range.getKey(), range.getValue().draw(random).toPlainString());
+            }
+            parameterSets.add(parameterSet);
+        }
+        return new ParameterSpace(parameterSets);
+    }
+
+    public List<Map<String, String>> getParameterSets() {
+        return parameterSets;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("parameterSets", parameterSets)
+                .toString();
+    }
+
+    /**
+     * An inclusive range of decimal values. Values drawn from it have the larger of the scales of its bounds, e.g. a
+     * range of 0.5 to 2.25 gives values with 2 decimal places.
+     */
+    public static final class Range {
+
+        private final BigDecimal minimum;
+        private final BigDecimal maximum;
+        private final int scale;
+
+        /**
+         * Creates a range.
+         *
+         * @param minimum the smallest value.
+         * @param maximum the largest value.
+         */
+        public Range(BigDecimal minimum, BigDecimal maximum) {
+
+            if (minimum.compareTo(maximum) > 0) {
+                final String errorMsg = "Range minimum " + minimum + " is greater than maximum " + maximum;
+                LOG.error(errorMsg);
+                throw new IllegalArgumentException(errorMsg);
+            }
+            this.minimum = minimum;
+            this.maximum = maximum;
+            this.scale = Math.max(minimum.scale(), maximum.scale());
+        }
+
+        BigDecimal draw(Random random) {
+            final BigDecimal value = minimum.add(maximum.subtract(minimum).multiply(BigDecimal.valueOf(
+                    random.nextDouble())));
+            return value.setScale(scale, RoundingMode.HALF_UP).min(maximum).max(minimum);
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("minimum", minimum)
+                    .add("maximum", maximum)
+                    .toString();
+        }
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.backtesting;
+
+import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
+import com.gazbert.bxbot.exchange.api.ExchangeConfig;
+import com.gazbert.bxbot.exchange.api.OtherConfig;
+import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.gazbert.bxbot.backtesting.WrappedExchangeAdapterConfig.createExchangeAdapter;
+import static com.gazbert.bxbot.backtesting.WrappedExchangeAdapterConfig.getOtherConfigItem;
+
+/**
+ * <p>
+ * An Exchange Adapter that records the market data the bot sees to a tick store, for backtesting and analysis later.
+ * </p>
+ * <p>
+ * It wraps the real Exchange Adapter, named in the <code>recorded-exchange-adapter</code> other-config item, and passes
+ * every call through to it. The wrapped adapter is given the same config, so its own authentication, network and
+ * other config items are set as usual. Each order book fetched is recorded with the last price seen for the market,
+ * and each latest price fetched is recorded on its own.
+ * </p>
+ * <p>
+ * Recording never slows the trade cycle down: the calling thread only puts the tick on a queue. A single background
+ * thread writes the ticks to the memory-mapped {@link TickStoreWriter} segments in the <code>tick-store-directory</code>.
+ * If the writer ever falls so far behind that the queue is full, ticks are dropped and a warning is logged, rather
+ * than making the strategy wait. The optional <code>tick-store-levels</code> item sets how many order book levels
+ * are recorded for each side of the book; it defaults to {@value TickStoreWriter#DEFAULT_LEVELS}.
+ * </p>
+ *
+ * @author gazbert
+ * @since 1.0
+ */
+public final class RecordingExchangeAdapter implements ExchangeAdapter {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private static final String RECORDED_EXCHANGE_ADAPTER_PROPERTY_NAME = "recorded-exchange-adapter";
+    private static final String TICK_STORE_DIRECTORY_PROPERTY_NAME = "tick-store-directory";
+    private static final String TICK_STORE_LEVELS_PROPERTY_NAME = "tick-store-levels";
+
+    private static final int TICK_QUEUE_CAPACITY = 64 * 1024;
+    private static final int DROPPED_TICK_WARNING_INTERVAL = 1000;
+
+    private final BlockingQueue<Tick> ticks = new ArrayBlockingQueue<>(TICK_QUEUE_CAPACITY);
+    private final Map<String, BigDecimal> latestPrices = new ConcurrentHashMap<>();
+    private final AtomicLong droppedTicks = new AtomicLong();
+
+    private ExchangeAdapter exchangeAdapter;
+    private TickStoreWriter tickStoreWriter;
+
+
+    @Override
+    public void init(ExchangeConfig config) {
+
+        LOG.info(() -> "About to initialise recording ExchangeConfig: " + config);
+
+        final OtherConfig otherConfig = config.getOtherConfig();
+        final String recordedAdapter = getOtherConfigItem(otherConfig, RECORDED_EXCHANGE_ADAPTER_PROPERTY_NAME);
+        final String tickStoreDirectory = getOtherConfigItem(otherConfig, TICK_STORE_DIRECTORY_PROPERTY_NAME);
+        final String tickStoreLevels = otherConfig.getItem(TICK_STORE_LEVELS_PROPERTY_NAME);
+        LOG.info(() -> TICK_STORE_LEVELS_PROPERTY_NAME + ": " + tickStoreLevels);
+
+        exchangeAdapter = createExchangeAdapter(recordedAdapter, "recorded");
+        exchangeAdapter.init(config);
+
+        tickStoreWriter = new TickStoreWriter(Paths.get(tickStoreDirectory),
+                tickStoreLevels == null ? TickStoreWriter.DEFAULT_LEVELS : Integer.parseInt(tickStoreLevels),
+                TickStoreWriter.DEFAULT_SEGMENT_CAPACITY);
+
+        final Thread tickRecorder = new Thread(this::writeTicks, "tick-recorder");
+        tickRecorder.setDaemon(true);
+        tickRecorder.start();
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Recorded calls
+    // ------------------------------------------------------------------------------------------------
+
+    @Override
+    public MarketOrderBook getMarketOrders(String marketId) throws ExchangeNetworkException, TradingApiException {
+        return record(exchangeAdapter.getMarketOrders(marketId));
+    }
+
+    @Override
+    public MarketOrderBook getMarketOrders(String marketId, int depth)
+            throws ExchangeNetworkException, TradingApiException {
+        return record(exchangeAdapter.getMarketOrders(marketId, depth));
+    }
+
+    @Override
+    public MarketOrderBook getTopOfBook(String marketId) throws ExchangeNetworkException, TradingApiException {
+        return record(exchangeAdapter.getTopOfBook(marketId));
+    }
+
+    @Override
+    public BigDecimal getLatestMarketPrice(String marketId) throws ExchangeNetworkException, TradingApiException {
+        final BigDecimal latestPrice = exchangeAdapter.getLatestMarketPrice(marketId);
+        latestPrices.put(marketId, latestPrice);
+        enqueue(new Tick(System.currentTimeMillis(), marketId, null, latestPrice));
+        return latestPrice;
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Pass-through calls
+    // ------------------------------------------------------------------------------------------------
+
+    @Override
+    public String getImplName() {
+        return exchangeAdapter.getImplName();
+    }
+
+    @Override
+    public String getVersion() {
+        return exchangeAdapter.getVersion();
+    }
+
+    @Override
+    public List<OpenOrder> getYourOpenOrders(String marketId) throws ExchangeNetworkException, TradingApiException {
+        return exchangeAdapter.getYourOpenOrders(marketId);
+    }
+
+    @Override
+    public String createOrder(String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price)
+            throws ExchangeNetworkException, TradingApiException {
+        return exchangeAdapter.createOrder(marketId, orderType, quantity, price);
+    }
+
+    @Override
+    public boolean cancelOrder(String orderId, String marketId) throws ExchangeNetworkException, TradingApiException {
+        return exchangeAdapter.cancelOrder(orderId, marketId);
+    }
+
+    @Override
+    public BalanceInfo getBalanceInfo() throws ExchangeNetworkException, TradingApiException {
+        return exchangeAdapter.getBalanceInfo();
+    }
+
+    @Override
+    public BigDecimal getPercentageOfBuyOrderTakenForExchangeFee(String marketId)
+            throws TradingApiException, ExchangeNetworkException {
+        return exchangeAdapter.getPercentageOfBuyOrderTakenForExchangeFee(marketId);
+    }
+
+    @Override
+    public BigDecimal getPercentageOfSellOrderTakenForExchangeFee(String marketId)
+            throws TradingApiException, ExchangeNetworkException {
+        return exchangeAdapter.getPercentageOfSellOrderTakenForExchangeFee(marketId);
+    }
+
+    @Override
+    public Executor getPublicApiExecutor() {
+        return exchangeAdapter.getPublicApiExecutor();
+    }
+
+    @Override
+    public Executor getAuthenticatedApiExecutor() {
+        return exchangeAdapter.getAuthenticatedApiExecutor();
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private MarketOrderBook record(MarketOrderBook orderBook) {
+        final String marketId = orderBook.getMarketId();
+        enqueue(new Tick(System.currentTimeMillis(), marketId, orderBook, latestPrices.get(marketId)));
+        return orderBook;
+    }
+
+    private void enqueue(Tick tick) {
+        if (!ticks.offer(tick) && droppedTicks.incrementAndGet() % DROPPED_TICK_WARNING_INTERVAL == 1) {
+            LOG.warn("Tick recorder cannot keep up - " + droppedTicks.get() + " ticks dropped so far");
+        }
+    }
+
+    /*
+     * Runs on the recorder thread for the life of the bot. A failed write loses that tick only.
+     */
+    private void writeTicks() {
+        while (true) {
+            final Tick tick;
+            try {
+                tick = ticks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                tickStoreWriter.close();
+                return;
+            }
+            try {
+                tickStoreWriter.append(tick.timestamp, tick.marketId, tick.orderBook, tick.lastPrice);
+            } catch (IOException | RuntimeException e) {
+                LOG.error("Failed to record tick for market " + tick.marketId, e);
+            }
+        }
+    }
+
+    private static final class Tick {
+
+        final long timestamp;
+        final String marketId;
+        final MarketOrderBook orderBook;
+        final BigDecimal lastPrice;
+
+        Tick(long timestamp, String marketId, MarketOrderBook orderBook, BigDecimal lastPrice) {
+            this.timestamp = timestamp;
+            this.marketId = marketId;
+            this.orderBook = orderBook;
+            this.lastPrice = lastPrice;
+        }
+    }
+}
@@ -0,0 +1,639 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.backtesting;
+
+import com.gazbert.bxbot.trading.api.AsyncTradingApi;
+import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.Market;
+import com.gazbert.bxbot.trading.api.MarketOrder;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * A Trading API backed by replayed market data instead of a real exchange.
+ * </p>
+ * <p>
+ * The order book and latest price are whatever was last replayed for the market. The bot's own orders are matched
+ * like this:
+ * </p>
+ * <ul>
+ * <li>A new order first takes any replayed liquidity it crosses, best price first, at the book's prices. The
+ * liquidity it takes is removed from the book until the next snapshot replaces it.</li>
+ * <li>What is left rests on the simulated exchange in price-time priority. It is filled at its own price when a later
+ * snapshot crosses it, or when a replayed trade goes through at or beyond its price - up to the quantity shown.</li>
+ * </ul>
+ * <p>
+ * Fees are charged on every fill using the configured BUY and SELL fee percentages, exactly as the strategies expect
+ * from {@link #getPercentageOfBuyOrderTakenForExchangeFee(String)}: both are taken in the counter currency. A BUY order
+ * holds its price * quantity plus fee; a SELL order holds its quantity. Orders that cannot be funded are rejected
+ * with a {@link TradingApiException}, like a real exchange would.
+ * </p>
+ * <p>
+ * The bot's orders are not added to the order book it is shown, and never match each other.
+ * </p>
+ * <p>
+ * All methods are synchronized, so the simulator can be shared by threads that feed it market data and threads that
+ * trade on it.
+ * </p>
+ *
+ * @author gazbert
+ * @since 1.0
+ */
+public final class SimulatedExchange implements AsyncTradingApi {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private static final String IMPL_NAME = "Simulated Exchange";
+
+    private final VirtualClock clock;
+    private final BigDecimal buyFeePercentage;
+    private final BigDecimal sellFeePercentage;
+
+    private final Map<String, MarketState> markets = new HashMap<>();
+    private final Map<String, BigDecimal> balancesAvailable = new HashMap<>();
+    private final Map<String, BigDecimal> balancesOnHold = new HashMap<>();
+    private final Map<String, BigDecimal> feesPaid = new HashMap<>();
+
+    private long nextOrderNumber = 1;
+    private long ordersCreated;
+    private long ordersCancelled;
+    private long ordersFilled;
+    private long fillCount;
+
+
+    /**
+     * Creates a simulated exchange.
+     *
+     * @param clock             the clock used to timestamp orders.
+     * @param markets           the markets that can be traded.
+     * @param startingBalances  the starting balance for each currency.
+     * @param buyFeePercentage  the BUY fee, in the form returned by the Trading API, e.g. 0.0025 for 0.25%.
+     * @param sellFeePercentage the SELL fee, in the form returned by the Trading API, e.g. 0.0025 for 0.25%.
+     */
+    public SimulatedExchange(VirtualClock clock, Collection<Market> markets, Map<String, BigDecimal> startingBalances,
+                             BigDecimal buyFeePercentage, BigDecimal sellFeePercentage) {
+
+        if (buyFeePercentage.signum() < 0 || sellFeePercentage.signum() < 0) {
+            final String errorMsg = "Exchange fees must not be negative: buy=" + buyFeePercentage + " sell="
+                    + sellFeePercentage;
+            LOG.error(errorMsg);
+            throw new IllegalArgumentException(errorMsg);
+        }
+
+        this.clock = clock;
+        this.buyFeePercentage = buyFeePercentage;
+        this.sellFeePercentage = sellFeePercentage;
+        for (final Market market : markets) {
+            this.markets.put(market.getId(), new MarketState(market));
+        }
+        balancesAvailable.putAll(startingBalances);
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Market data replay
+    // ------------------------------------------------------------------------------------------------
+
+    /**
+     * Applies a replayed market data event and fills any resting orders it reaches.
+     * Events for markets this exchange was not created with are ignored.
+     *
+     * @param event the market data event.
+     */
+    public synchronized void onMarketData(MarketDataEvent event) {
+
+        final MarketState marketState = markets.get(event.getMarketId());
+        if (marketState == null) {
+            return;
+        }
+
+        if (event.isOrderBook()) {
+            marketState.replaceOrderBook(event.getOrderBook());
+            fillRestingOrdersCrossedByBook(marketState);
+        } else {
+            marketState.lastPrice = event.getPrice();
+            if (event.getQuantity() != null) {
+                fillRestingOrdersReachedByTrade(marketState, event.getPrice(), event.getQuantity());
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Trading API
+    // ------------------------------------------------------------------------------------------------
+
+    @Override
+    public String getImplName() {
+        return IMPL_NAME;
+    }
+
+    @Override
+    public synchronized MarketOrderBook getMarketOrders(String marketId) throws TradingApiException {
+        return getMarketOrders(marketId, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public synchronized MarketOrderBook getMarketOrders(String marketId, int depth) throws TradingApiException {
+
+        final MarketState marketState = getMarketState(marketId);
+        if (!marketState.hasOrderBook) {
+            throw tradingApiException("No order book has been replayed yet for market " + marketId);
+        }
+        return new MarketOrderBook(marketId, toMarketOrders(OrderType.SELL, marketState.asks, depth),
+                toMarketOrders(OrderType.BUY, marketState.bids, depth));
+    }
+
+    @Override
+    public synchronized List<OpenOrder> getYourOpenOrders(String marketId) throws TradingApiException {
+
+        final MarketState marketState = getMarketState(marketId);
+        final List<OpenOrder> openOrders = new ArrayList<>();
+        for (final SimulatedOrder order : marketState.buyOrders) {
+            openOrders.add(order.toOpenOrder(marketId));
+        }
+        for (final SimulatedOrder order : marketState.sellOrders) {
+            openOrders.add(order.toOpenOrder(marketId));
+        }
+        return openOrders;
+    }
+
+    @Override
+    public synchronized String createOrder(String marketId, OrderType orderType, BigDecimal quantity,
+                                           BigDecimal price) throws TradingApiException {
+
+        final MarketState marketState = getMarketState(marketId);
+        if (quantity == null || quantity.signum() <= 0 || price == null || price.signum() <= 0) {
+            throw tradingApiException("Order quantity and price must be positive: quantity=" + quantity
+                    + " price=" + price);
+        }
+
+        final Market market = marketState.market;
+        final SimulatedOrder order = new SimulatedOrder("SIM-" + nextOrderNumber++, orderType, price, quantity,
+                clock.currentTimeMillis());
+
+        if (orderType == OrderType.BUY) {
+            hold(market.getCounterCurrency(), buyOrderCost(price, quantity));
+        } else if (orderType == OrderType.SELL) {
+            hold(market.getBaseCurrency(), quantity);
+        } else {
+            throw tradingApiException("Unknown order type: " + orderType);
+        }
+        ordersCreated++;
+
+        takeLiquidity(marketState, order);
+        if (order.quantity.signum() > 0) {
+            marketState.rest(order);
+        } else {
+            ordersFilled++;
+        }
+        return order.id;
+    }
+
+    @Override
+    public synchronized boolean cancelOrder(String orderId, String marketId) throws TradingApiException {
+
+        final MarketState marketState = getMarketState(marketId);
+        final SimulatedOrder order = marketState.remove(orderId);
+        if (order == null) {
+            return false;
+        }
+
+        final Market market = marketState.market;
+        if (order.type == OrderType.BUY) {
+            release(market.getCounterCurrency(), buyOrderCost(order.price, order.quantity));
+        } else {
+            release(market.getBaseCurrency(), order.quantity);
+        }
+        ordersCancelled++;
+        return true;
+    }
+
+    @Override
+    public synchronized BigDecimal getLatestMarketPrice(String marketId) throws TradingApiException {
+
+        final MarketState marketState = getMarketState(marketId);
+        if (marketState.lastPrice == null) {
+            throw tradingApiException("No trades have been replayed yet for market " + marketId);
+        }
+        return marketState.lastPrice;
+    }
+
+    @Override
+    public synchronized BalanceInfo getBalanceInfo() {
+        return new BalanceInfo(new HashMap<>(balancesAvailable), new HashMap<>(balancesOnHold));
+    }
+
+    @Override
+    public BigDecimal getPercentageOfBuyOrderTakenForExchangeFee(String marketId) throws TradingApiException {
+        getMarketState(marketId);
+        return buyFeePercentage;
+    }
+
+    @Override
+    public BigDecimal getPercentageOfSellOrderTakenForExchangeFee(String marketId) throws TradingApiException {
+        getMarketState(marketId);
+        return sellFeePercentage;
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Results
+    // ------------------------------------------------------------------------------------------------
+
+    public VirtualClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Returns the total balance of a currency, i.e. available plus on hold.
+     *
+     * @param currency the currency.
+     * @return the total balance, zero if the currency has never been held.
+     */
+    public synchronized BigDecimal getTotalBalance(String currency) {
+        return balancesAvailable.getOrDefault(currency, BigDecimal.ZERO)
+                .add(balancesOnHold.getOrDefault(currency, BigDecimal.ZERO));
+    }
+
+    /**
+     * Returns the price to value a market's base currency at: the latest trade price, or the middle of the order book
+     * if no trades have been replayed yet.
+     *
+     * @param marketId the id of the market.
+     * @return the price, or null if neither a trade nor a two sided order book has been replayed yet.
+     * @throws TradingApiException if the market is unknown.
+     */
+    public synchronized BigDecimal getMarkPrice(String marketId) throws TradingApiException {
+
+        final MarketState marketState = getMarketState(marketId);
+        if (marketState.lastPrice != null) {
+            return marketState.lastPrice;
+        }
+        if (marketState.bids.isEmpty() || marketState.asks.isEmpty()) {
+            return null;
+        }
+        return marketState.bids.get(0).price.add(marketState.asks.get(0).price).divide(new BigDecimal(2));
+    }
+
+    public synchronized long getOrdersCreated() {
+        return ordersCreated;
+    }
+
+    public synchronized long getOrdersCancelled() {
+        return ordersCancelled;
+    }
+
+    /**
+     * Returns the number of orders that have been completely filled.
+     *
+     * @return the number of filled orders.
+     */
+    public synchronized long getOrdersFilled() {
+        return ordersFilled;
+    }
+
+    /**
+     * Returns the number of fills, i.e. separate matches of the bot's orders. An order may be filled in several parts.
+     *
+     * @return the number of fills.
+     */
+    public synchronized long getFillCount() {
+        return fillCount;
+    }
+
+    /**
+     * Returns the fees paid so far, by currency.
+     *
+     * @return the fees paid.
+     */
+    public synchronized Map<String, BigDecimal> getFeesPaid() {
+        return new HashMap<>(feesPaid);
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Matching
+    // ------------------------------------------------------------------------------------------------
+
+    /*
+     * A new order takes the replayed liquidity it crosses, at the book's prices.
+     */
+    private void takeLiquidity(MarketState marketState, SimulatedOrder order) {
+
+        final boolean isBuy = order.type == OrderType.BUY;
+        final Iterator<PriceLevel> priceLevels = (isBuy ? marketState.asks : marketState.bids).iterator();
+        while (order.quantity.signum() > 0 && priceLevels.hasNext()) {
+            final PriceLevel priceLevel = priceLevels.next();
+            final int comparison = priceLevel.price.compareTo(order.price);
+            if (isBuy ? comparison > 0 : comparison < 0) {
+                break;
+            }
+            final BigDecimal fillQuantity = order.quantity.min(priceLevel.quantity);
+            fill(marketState.market, order, fillQuantity, priceLevel.price);
+            priceLevel.quantity = priceLevel.quantity.subtract(fillQuantity);
+            if (priceLevel.quantity.signum() == 0) {
+                priceLevels.remove();
+            }
+        }
+    }
+
+    /*
+     * Resting orders are filled at their own price by the replayed liquidity that has moved through them.
+     */
+    private void fillRestingOrdersCrossedByBook(MarketState marketState) {
+
+        for (final Iterator<SimulatedOrder> orders = marketState.buyOrders.iterator(); orders.hasNext(); ) {
+            final SimulatedOrder order = orders.next();
+            if (!fillFromPriceLevels(marketState, order, marketState.asks)) {
+                break;
+            }
+            if (order.quantity.signum() == 0) {
+                orders.remove();
+                ordersFilled++;
+            }
+        }
+        for (final Iterator<SimulatedOrder> orders = marketState.sellOrders.iterator(); orders.hasNext(); ) {
+            final SimulatedOrder order = orders.next();
+            if (!fillFromPriceLevels(marketState, order, marketState.bids)) {
+                break;
+            }
+            if (order.quantity.signum() == 0) {
+                orders.remove();
+                ordersFilled++;
+            }
+        }
+    }
+
+    /*
+     * Returns true if the order was completely filled. If not, the crossing liquidity has been used up and no order
+     * behind it in the queue can be filled either.
+     */
+    private boolean fillFromPriceLevels(MarketState marketState, SimulatedOrder order, List<PriceLevel> priceLevels) {
+
+        final boolean isBuy = order.type == OrderType.BUY;
+        final Iterator<PriceLevel> levels = priceLevels.iterator();
+        while (order.quantity.signum() > 0 && levels.hasNext()) {
+            final PriceLevel priceLevel = levels.next();
+            final int comparison = priceLevel.price.compareTo(order.price);
+            if (isBuy ? comparison > 0 : comparison < 0) {
+                break;
+            }
+            final BigDecimal fillQuantity = order.quantity.min(priceLevel.quantity);
+            fill(marketState.market, order, fillQuantity, order.price);
+            priceLevel.quantity = priceLevel.quantity.subtract(fillQuantity);
+            if (priceLevel.quantity.signum() == 0) {
+                levels.remove();
+            }
+        }
+        return order.quantity.signum() == 0;
+    }
+
+    /*
+     * A trade at or beyond a resting order's price fills it, in priority order, up to the traded quantity.
+     * The replayed trades don't say which side was the aggressor, so a trade that reaches both resting BUY and SELL
+     * orders shares its quantity between them - BUY orders first - rather than filling the traded quantity twice.
+     */
+    private void fillRestingOrdersReachedByTrade(MarketState marketState, BigDecimal tradePrice,
+                                                 BigDecimal tradeQuantity) {
+        final BigDecimal quantityLeft = fillFromTrade(marketState, marketState.buyOrders, tradePrice, tradeQuantity);
+        fillFromTrade(marketState, marketState.sellOrders, tradePrice, quantityLeft);
+    }
+
+    /*
+     * Returns the traded quantity left once the resting orders have been filled.
+     */
+    private BigDecimal fillFromTrade(MarketState marketState, List<SimulatedOrder> restingOrders,
+                                     BigDecimal tradePrice, BigDecimal tradeQuantity) {
+
+        BigDecimal quantityLeft = tradeQuantity;
+        for (final Iterator<SimulatedOrder> orders = restingOrders.iterator();
+             quantityLeft.signum() > 0 && orders.hasNext(); ) {
+
+            final SimulatedOrder order = orders.next();
+            final int comparison = order.price.compareTo(tradePrice);
+            if (order.type == OrderType.BUY ? comparison < 0 : comparison > 0) {
+                break;
+            }
+            final BigDecimal fillQuantity = order.quantity.min(quantityLeft);
+            fill(marketState.market, order, fillQuantity, order.price);
+            quantityLeft = quantityLeft.subtract(fillQuantity);
+            if (order.quantity.signum() == 0) {
+                orders.remove();
+                ordersFilled++;
+            }
+        }
+        return quantityLeft;
+    }
+
+    /*
+     * Settles a fill: releases what the order held for it and moves the traded amounts, less the fee.
+     */
+    private void fill(Market market, SimulatedOrder order, BigDecimal quantity, BigDecimal price) {
+
+        final BigDecimal tradeValue = price.multiply(quantity);
+        if (order.type == OrderType.BUY) {
+            final BigDecimal fee = tradeValue.multiply(buyFeePercentage);
+            release(market.getCounterCurrency(), buyOrderCost(order.price, quantity));
+            debit(market.getCounterCurrency(), tradeValue.add(fee));
+            credit(market.getBaseCurrency(), quantity);
+            feesPaid.merge(market.getCounterCurrency(), fee, BigDecimal::add);
+        } else {
+            final BigDecimal fee = tradeValue.multiply(sellFeePercentage);
+            balancesOnHold.merge(market.getBaseCurrency(), quantity.negate(), BigDecimal::add);
+            credit(market.getCounterCurrency(), tradeValue.subtract(fee));
+            feesPaid.merge(market.getCounterCurrency(), fee, BigDecimal::add);
+        }
+        order.quantity = order.quantity.subtract(quantity);
+        fillCount++;
+
+        LOG.debug(() -> "Filled " + quantity + " of " + order.type + " order " + order.id + " at " + price);
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private BigDecimal buyOrderCost(BigDecimal price, BigDecimal quantity) {
+        final BigDecimal orderValue = price.multiply(quantity);
+        return orderValue.add(orderValue.multiply(buyFeePercentage));
+    }
+
+    private void hold(String currency, BigDecimal amount) throws TradingApiException {
+
+        final BigDecimal available = balancesAvailable.getOrDefault(currency, BigDecimal.ZERO);
+        if (available.compareTo(amount) < 0) {
+            throw tradingApiException("Insufficient " + currency + " funds: order needs " + amount + " but only "
+                    + available + " is available");
+        }
+        balancesAvailable.put(currency, available.subtract(amount));
+        balancesOnHold.merge(currency, amount, BigDecimal::add);
+    }
+
+    private void release(String currency, BigDecimal amount) {
+        balancesOnHold.merge(currency, amount.negate(), BigDecimal::add);
+        credit(currency, amount);
+    }
+
+    private void credit(String currency, BigDecimal amount) {
+        balancesAvailable.merge(currency, amount, BigDecimal::add);
+    }
+
+    private void debit(String currency, BigDecimal amount) {
+        balancesAvailable.merge(currency, amount.negate(), BigDecimal::add);
+    }
+
+    private MarketState getMarketState(String marketId) throws TradingApiException {
+        final MarketState marketState = markets.get(marketId);
+        if (marketState == null) {
+            throw tradingApiException("Unknown market: " + marketId);
+        }
+        return marketState;
+    }
+
+    private static List<MarketOrder> toMarketOrders(OrderType orderType, List<PriceLevel> priceLevels, int depth) {
+
+        final int levelCount = Math.min(depth, priceLevels.size());
+        final List<MarketOrder> marketOrders = new ArrayList<>(levelCount);
+        for (int i = 0; i < levelCount; i++) {
+            final PriceLevel priceLevel = priceLevels.get(i);
+            marketOrders.add(new MarketOrder(orderType, priceLevel.price, priceLevel.quantity,
+                    priceLevel.price.multiply(priceLevel.quantity)));
+        }
+        return marketOrders;
+    }
+
+    private static TradingApiException tradingApiException(String errorMsg) {
+        LOG.error(errorMsg);
+        return new TradingApiException(errorMsg);
+    }
+
+    /*
+     * The replayed order book and the bot's resting orders for one market.
+     * Resting orders are kept best price first, then oldest first.
+     */
+    private static final class MarketState {
+
+        final Market market;
+        final List<PriceLevel> bids = new ArrayList<>();
+        final List<PriceLevel> asks = new ArrayList<>();
+        final List<SimulatedOrder> buyOrders = new ArrayList<>();
+        final List<SimulatedOrder> sellOrders = new ArrayList<>();
+        boolean hasOrderBook;
+        BigDecimal lastPrice;
+
+        MarketState(Market market) {
+            this.market = market;
+        }
+
+        void replaceOrderBook(MarketOrderBook orderBook) {
+            copyPriceLevels(orderBook.getBuyOrders(), bids);
+            copyPriceLevels(orderBook.getSellOrders(), asks);
+            hasOrderBook = true;
+        }
+
+        void rest(SimulatedOrder order) {
+
+            final boolean isBuy = order.type == OrderType.BUY;
+            final List<SimulatedOrder> orders = isBuy ? buyOrders : sellOrders;
+            int position = 0;
+            while (position < orders.size()) {
+                final int comparison = orders.get(position).price.compareTo(order.price);
+                if (isBuy ? comparison < 0 : comparison > 0) {
+                    break;
+                }
+                position++;
+            }
+            orders.add(position, order);
+        }
+
+        SimulatedOrder remove(String orderId) {
+            final SimulatedOrder order = remove(orderId, buyOrders);
+            return order != null ? order : remove(orderId, sellOrders);
+        }
+
+        private static SimulatedOrder remove(String orderId, List<SimulatedOrder> orders) {
+            for (final Iterator<SimulatedOrder> iterator = orders.iterator(); iterator.hasNext(); ) {
+                final SimulatedOrder order = iterator.next();
+                if (order.id.equals(orderId)) {
+                    iterator.remove();
+                    return order;
+                }
+            }
+            return null;
+        }
+
+        private static void copyPriceLevels(List<MarketOrder> marketOrders, List<PriceLevel> priceLevels) {
+            priceLevels.clear();
+            for (final MarketOrder marketOrder : marketOrders) {
+                priceLevels.add(new PriceLevel(marketOrder.getPrice(), marketOrder.getQuantity()));
+            }
+        }
+    }
+
+    private static final class PriceLevel {
+
+        final BigDecimal price;
+        BigDecimal quantity;
+
+        PriceLevel(BigDecimal price, BigDecimal quantity) {
+            this.price = price;
+            this.quantity = quantity;
+        }
+    }
+
+    private static final class SimulatedOrder {
+
+        final String id;
+        final OrderType type;
+        final BigDecimal price;
+        final BigDecimal originalQuantity;
+        final long creationTime;
+        BigDecimal quantity;
+
+        SimulatedOrder(String id, OrderType type, BigDecimal price, BigDecimal quantity, long creationTime) {
+            this.id = id;
+            this.type = type;
+            this.price = price;
+            this.originalQuantity = quantity;
+            this.quantity = quantity;
+            this.creationTime = creationTime;
+        }
+
+        OpenOrder toOpenOrder(String marketId) {
+            return new OpenOrder(id, new Date(creationTime), marketId, type, price, quantity, originalQuantity,
+                    price.multiply(quantity));
+        }
+    }
+}
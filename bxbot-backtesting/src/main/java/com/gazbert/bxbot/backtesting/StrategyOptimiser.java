@@ -0,0 +1,226 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.backtesting;
+
+import com.gazbert.bxbot.strategy.api.StrategyException;
+import com.gazbert.bxbot.strategy.api.TradingStrategy;
+import com.gazbert.bxbot.strategy.api.impl.StrategyConfigItems;
+import com.gazbert.bxbot.trading.api.Market;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * Tunes a Trading Strategy's config by backtesting every parameter set in a {@link ParameterSpace} against the same
+ * recorded market data, and ranking the results.
+ * </p>
+ * <p>
+ * The backtests are independent, so they are run in parallel on a fork/join pool: the parameter sets are split in
+ * half until each task has a single backtest to run. Every backtest gets a new strategy, a new
+ * {@link SimulatedExchange} with the same starting balances and fees, and its own {@link TickStoreReader} over the
+ * one shared {@link MappedTickStore} - the market data is mapped once and never copied.
+ * </p>
+ * <p>
+ * Results are ranked by profit and loss (highest first), then maximum drawdown (lowest first), then fill rate (highest
+ * first). Backtests that failed, e.g. because the strategy threw a StrategyException, are ranked last.
+ * </p>
+ *
+ * @author gazbert
+ * @since 1.0
+ */
+public final class StrategyOptimiser {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private static final Comparator<OptimisationResult> RANKING = Comparator
+            .comparing(OptimisationResult::isCompleted).reversed()
+            .thenComparing(StrategyOptimiser::compareCompletedResults);
+
+    private final Supplier<TradingStrategy> strategyFactory;
+    private final Market market;
+    private final Map<String, BigDecimal> startingBalances;
+    private final BigDecimal buyFeePercentage;
+    private final BigDecimal sellFeePercentage;
+    private final long tradeCycleIntervalMillis;
+    private final int parallelism;
+
+
+    /**
+     * Creates an optimiser.
+     *
+     * @param strategyFactory          creates a new instance of the strategy for each backtest.
+     * @param market                   the market the strategy trades.
+     * @param startingBalances         the balances each backtest starts with.
+     * @param buyFeePercentage         the simulated BUY fee, e.g. 0.0025 for 0.25%.
+     * @param sellFeePercentage        the simulated SELL fee, e.g. 0.0025 for 0.25%.
+     * @param tradeCycleIntervalMillis the virtual time between trade cycles.
+     * @param parallelism              the number of backtests to run at once - use
+     *                                 <code>Runtime.getRuntime().availableProcessors()</code> for all cores.
+     */
+    public StrategyOptimiser(Supplier<TradingStrategy> strategyFactory, Market market,
+                             Map<String, BigDecimal> startingBalances, BigDecimal buyFeePercentage,
+                             BigDecimal sellFeePercentage, long tradeCycleIntervalMillis, int parallelism) {
+
+        if (parallelism < 1) {
+            final String errorMsg = "Parallelism must be at least 1: " + parallelism;
+            LOG.error(errorMsg);
+            throw new IllegalArgumentException(errorMsg);
+        }
+
+        this.strategyFactory = strategyFactory;
+        this.market = market;
+        this.startingBalances = new HashMap<>(startingBalances);
+        this.buyFeePercentage = buyFeePercentage;
+        this.sellFeePercentage = sellFeePercentage;
+        this.tradeCycleIntervalMillis = tradeCycleIntervalMillis;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Backtests every parameter set and ranks the results.
+     *
+     * @param marketData       the recorded market data for the market.
+     * @param parameterSpace   the parameter sets to try.
+     * @param fixedConfigItems config items passed to the strategy in every backtest. A parameter set's items
+     *                         override these.
+     * @return a result for every parameter set, best first.
+     */
+    public List<OptimisationResult> optimise(MappedTickStore marketData, ParameterSpace parameterSpace,
+                                             Map<String, String> fixedConfigItems) {
+
+        final List<Map<String, String>> parameterSets = parameterSpace.getParameterSets();
+        LOG.info(() -> "Optimising " + market.getId() + " strategy config with " + parameterSets.size()
+                + " backtests over " + marketData.getTickCount() + " ticks, " + parallelism + " at a time");
+
+        if (parameterSets.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            final List<OptimisationResult> results = pool.invoke(
+                    new BacktestTask(marketData, parameterSets, fixedConfigItems));
+            results.sort(RANKING);
+            return results;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private OptimisationResult runBacktest(MappedTickStore marketData, Map<String, String> parameters,
+                                           Map<String, String> fixedConfigItems) {
+
+        final Map<String, String> configItems = new HashMap<>(fixedConfigItems);
+        configItems.putAll(parameters);
+        final StrategyConfigItems strategyConfig = new StrategyConfigItems();
+        strategyConfig.setItems(configItems);
+
+        final SimulatedExchange exchange = new SimulatedExchange(new VirtualClock(0),
+                Collections.singletonList(market), startingBalances, buyFeePercentage, sellFeePercentage);
+        final Backtest backtest = new Backtest(strategyFactory.get(), market, strategyConfig, exchange,
+                tradeCycleIntervalMillis);
+
+        try (TickStoreReader reader = marketData.newReader()) {
+            return OptimisationResult.completed(parameters, backtest.run(reader));
+        } catch (StrategyException | IOException | RuntimeException e) {
+            // A parameter set the strategy cannot trade with is a result too - it should not stop the others
+            LOG.warn("Backtest failed for parameters " + parameters + ": " + e);
+            return OptimisationResult.failed(parameters, e.toString());
+        }
+    }
+
+    private static int compareCompletedResults(OptimisationResult result1, OptimisationResult result2) {
+
+        if (!result1.isCompleted() || !result2.isCompleted()) {
+            return 0;
+        }
+        final BacktestResult backtest1 = result1.getBacktestResult();
+        final BacktestResult backtest2 = result2.getBacktestResult();
+
+        int comparison = backtest2.getProfitAndLoss().compareTo(backtest1.getProfitAndLoss());
+        if (comparison == 0) {
+            comparison = backtest1.getMaxDrawdown().compareTo(backtest2.getMaxDrawdown());
+        }
+        if (comparison == 0) {
+            comparison = backtest2.getFillRate().compareTo(backtest1.getFillRate());
+        }
+        return comparison;
+    }
+
+    /*
+     * Splits the parameter sets in half until there is one backtest to run.
+     */
+    private final class BacktestTask extends RecursiveTask<List<OptimisationResult>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient MappedTickStore marketData;
+        private final transient List<Map<String, String>> parameterSets;
+        private final transient Map<String, String> fixedConfigItems;
+
+        BacktestTask(MappedTickStore marketData, List<Map<String, String>> parameterSets,
+                     Map<String, String> fixedConfigItems) {
+            this.marketData = marketData;
+            this.parameterSets = parameterSets;
+            this.fixedConfigItems = fixedConfigItems;
+        }
+
+        @Override
+        protected List<OptimisationResult> compute() {
+
+            if (parameterSets.size() == 1) {
+                final List<OptimisationResult> results = new ArrayList<>();
+                results.add(runBacktest(marketData, parameterSets.get(0), fixedConfigItems));
+                return results;
+            }
+
+            final int middle = parameterSets.size() / 2;
+            final BacktestTask firstHalf = new BacktestTask(marketData, parameterSets.subList(0, middle),
+                    fixedConfigItems);
+            final BacktestTask secondHalf = new BacktestTask(marketData,
+                    parameterSets.subList(middle, parameterSets.size()), fixedConfigItems);
+
+            firstHalf.fork();
+            final List<OptimisationResult> results = secondHalf.compute();
+            results.addAll(firstHalf.join());
+            return results;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.backtesting;
+
+import java.time.LocalDate;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * Layout of a tick store segment file.
+ * </p>
+ * <p>
+ * Each market has its own directory holding one or more segments per UTC day, named <code>yyyy-MM-dd-NNN.ticks</code>
+ * so they sort in time order. A segment has a fixed capacity and is stored by column: after the header come
+ * <code>capacity</code> longs for each column in turn, so a reader only touches the columns it asks for.
+ * </p>
+ * <pre>
+ * header:  int magic, int version, int levels, int capacity, int tick count, padded to {@value #HEADER_SIZE} bytes
+ * columns: timestamp, last price,
+ *          then bid price, bid quantity, ask price, ask quantity for each of the top levels of the order book
+ * </pre>
+ * <p>
+ * Prices and quantities are {@link com.gazbert.bxbot.trading.api.FixedPointDecimal} unscaled longs. A missing last
+ * price is {@link #NO_VALUE}; missing order book levels have zero quantity. The tick count is written after the
+ * columns, so a tick is only visible to readers once it is complete.
+ * </p>
+ *
+ * @author gazbert
+ */
+final class TickSegment {
+
+    static final int MAGIC = 0x4258544B; // "BXTK"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 4;
+    static final int LEVELS_OFFSET = 8;
+    static final int CAPACITY_OFFSET = 12;
+    static final int COUNT_OFFSET = 16;
+
+    static final int TIMESTAMP_COLUMN = 0;
+    static final int LAST_PRICE_COLUMN = 1;
+    static final int FIRST_LEVEL_COLUMN = 2;
+    static final int COLUMNS_PER_LEVEL = 4;
+
+    static final long NO_VALUE = Long.MIN_VALUE;
+
+    static final String FILE_SUFFIX = ".ticks";
+    static final Pattern FILE_NAME = Pattern.compile("\\d{4}-\\d{2}-\\d{2}-\\d{3}" + Pattern.quote(FILE_SUFFIX));
+
+    private TickSegment() {
+    }
+
+    static int columnCount(int levels) {
+        return FIRST_LEVEL_COLUMN + COLUMNS_PER_LEVEL * levels;
+    }
+
+    static long fileSize(int levels, int capacity) {
+        return HEADER_SIZE + (long) columnCount(levels) * capacity * Long.BYTES;
+    }
+
+    static int columnOffset(int column, int capacity) {
+        return HEADER_SIZE + column * capacity * Long.BYTES;
+    }
+
+    static int bidPriceColumn(int level) {
+        return FIRST_LEVEL_COLUMN + COLUMNS_PER_LEVEL * level;
+    }
+
+    static int bidQuantityColumn(int level) {
+        return bidPriceColumn(level) + 1;
+    }
+
+    static int askPriceColumn(int level) {
+        return bidPriceColumn(level) + 2;
+    }
+
+    static int askQuantityColumn(int level) {
+        return bidPriceColumn(level) + 3;
+    }
+
+    static String fileName(long epochDay, int part) {
+        return LocalDate.ofEpochDay(epochDay) + "-" + String.format("%03d", part) + FILE_SUFFIX;
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.backtesting;
+
+import com.gazbert.bxbot.trading.api.FixedPointDecimal;
+import com.gazbert.bxbot.trading.api.MarketOrder;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OrderType;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * <p>
+ * Reads a market's ticks back from a tick store written by {@link TickStoreWriter}, oldest first.
+ * </p>
+ * <p>
+ * There are two ways to read:
+ * </p>
+ * <ul>
+ * <li>As a cursor: call {@link #advance()} and then the getters for the columns you need. The getters read straight
+ * from the memory-mapped segment and create no objects, so a scan is limited by memory bandwidth - tens of millions of
+ * ticks a second. Prices and quantities are {@link FixedPointDecimal} unscaled longs.</li>
+ * <li>As a {@link MarketDataSource} to replay through a {@link Backtest}: {@link #next()} returns an order book event
+ * for each tick that has one, followed by a trade event without a quantity for its last price.</li>
+ * </ul>
+ * <p>
+ * Ticks appended to a segment after the reader has reached it are not seen, nor are segments written after the reader
+ * was opened. Don't mix the two ways of reading. Readers are not thread safe, but any number of readers created by
+ * the same {@link MappedTickStore} can be used on different threads.
+ * </p>
+ *
+ * @author gazbert
+ * @since 1.0
+ */
+public final class TickStoreReader implements MarketDataSource {
+
+    /**
+     * Returned by {@link #getLastPrice()} when the tick has no last price.
+     */
+    public static final long NO_PRICE = TickSegment.NO_VALUE;
+
+    private final String marketId;
+    private final Iterator<ByteBuffer> segments;
+
+    private ByteBuffer segment;
+    private int levels;
+    private int capacity;
+    private int tickCount;
+    private int tick;
+    private int timestampOffset;
+    private int lastPriceOffset;
+
+    private MarketDataEvent pendingEvent;
+
+
+    /**
+     * Opens a market's ticks in a tick store. Use {@link MappedTickStore#newReader()} instead to share the mapped
+     * segments between readers.
+     *
+     * @param directory the tick store directory.
+     * @param marketId  the id of the market.
+     * @throws IOException if a segment cannot be mapped or is not a tick store segment.
+     */
+    public TickStoreReader(Path directory, String marketId) throws IOException {
+        this(marketId, MappedTickStore.open(directory, marketId).duplicateSegments());
+    }
+
+    TickStoreReader(String marketId, List<ByteBuffer> segments) {
+        this.marketId = marketId;
+        this.segments = segments.iterator();
+    }
+
+    /**
+     * Moves on to the next tick.
+     *
+     * @return true if there is a next tick, false if all ticks have been read.
+     */
+    public boolean advance() {
+
+        while (segment == null || tick + 1 >= tickCount) {
+            if (!segments.hasNext()) {
+                return false;
+            }
+            startSegment(segments.next());
+        }
+        tick++;
+        return true;
+    }
+
+    public long getTimestamp() {
+        return segment.getLong(timestampOffset + tick * Long.BYTES);
+    }
+
+    /**
+     * Returns the last price.
+     *
+     * @return the unscaled last price, or {@link #NO_PRICE} if not known when the tick was recorded.
+     */
+    public long getLastPrice() {
+        return segment.getLong(lastPriceOffset + tick * Long.BYTES);
+    }
+
+    /**
+     * Returns the number of order book levels recorded for each side of the book in the current segment. Levels the
+     * book did not have are recorded with zero quantity.
+     *
+     * @return the number of levels.
+     */
+    public int getLevels() {
+        return levels;
+    }
+
+    public long getBidPrice(int level) {
+        return getColumn(TickSegment.bidPriceColumn(level));
+    }
+
+    public long getBidQuantity(int level) {
+        return getColumn(TickSegment.bidQuantityColumn(level));
+    }
+
+    public long getAskPrice(int level) {
+        return getColumn(TickSegment.askPriceColumn(level));
+    }
+
+    public long getAskQuantity(int level) {
+        return getColumn(TickSegment.askQuantityColumn(level));
+    }
+
+    @Override
+    public MarketDataEvent next() {
+
+        if (pendingEvent != null) {
+            final MarketDataEvent event = pendingEvent;
+            pendingEvent = null;
+            return event;
+        }
+
+        while (advance()) {
+            final long timestamp = getTimestamp();
+            final long lastPrice = getLastPrice();
+            final MarketDataEvent priceEvent = lastPrice == NO_PRICE ? null
+                    : MarketDataEvent.trade(timestamp, marketId, toBigDecimal(lastPrice), null);
+
+            // Ticks recorded when only the price was fetched have no order book
+            if (getBidQuantity(0) == 0 && getAskQuantity(0) == 0) {
+                if (priceEvent != null) {
+                    return priceEvent;
+                }
+            } else {
+                pendingEvent = priceEvent;
+                return MarketDataEvent.orderBook(timestamp, new MarketOrderBook(marketId,
+                        toMarketOrders(OrderType.SELL), toMarketOrders(OrderType.BUY)));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Drops the current segment. The mapped memory is released once the segment is garbage collected.
+     */
+    @Override
+    public void close() {
+        segment = null;
+        pendingEvent = null;
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    /*
+     * The segment header was checked when it was mapped.
+     */
+    private void startSegment(ByteBuffer nextSegment) {
+
+        segment = nextSegment;
+        levels = segment.getInt(TickSegment.LEVELS_OFFSET);
+        capacity = segment.getInt(TickSegment.CAPACITY_OFFSET);
+        tickCount = segment.getInt(TickSegment.COUNT_OFFSET);
+        tick = -1;
+        timestampOffset = TickSegment.columnOffset(TickSegment.TIMESTAMP_COLUMN, capacity);
+        lastPriceOffset = TickSegment.columnOffset(TickSegment.LAST_PRICE_COLUMN, capacity);
+    }
+
+    private long getColumn(int column) {
+        return segment.getLong(TickSegment.columnOffset(column, capacity) + tick * Long.BYTES);
+    }
+
+    private List<MarketOrder> toMarketOrders(OrderType orderType) {
+
+        final List<MarketOrder> marketOrders = new ArrayList<>(levels);
+        for (int level = 0; level < levels; level++) {
+            final long quantity = orderType == OrderType.BUY ? getBidQuantity(level) : getAskQuantity(level);
+            if (quantity == 0) {
+                break;
+            }
+            final BigDecimal price = toBigDecimal(orderType == OrderType.BUY ? getBidPrice(level)
+                    : getAskPrice(level));
+            final BigDecimal quantityDecimal = toBigDecimal(quantity);
+            marketOrders.add(new MarketOrder(orderType, price, quantityDecimal, price.multiply(quantityDecimal)));
+        }
+        return marketOrders;
+    }
+
+    private static BigDecimal toBigDecimal(long unscaledValue) {
+        return FixedPointDecimal.ofUnscaled(unscaledValue).toBigDecimal();
+    }
+}
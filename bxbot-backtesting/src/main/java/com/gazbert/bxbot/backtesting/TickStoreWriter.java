@@ -0,0 +1,260 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.backtesting;
+
+import com.gazbert.bxbot.trading.api.FixedPointDecimal;
+import com.gazbert.bxbot.trading.api.MarketOrder;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * Appends ticks - the top levels of a market's order book and its last price - to memory-mapped tick store segments.
+ * See {@link TickStoreReader} for reading them back.
+ * </p>
+ * <p>
+ * Each market has its own directory with a segment file per UTC day. A segment holds a fixed number of ticks; when it
+ * is full, the next one for the day is started. If the bot is restarted, ticks are appended to the day's existing
+ * segment as long as it was written with the same levels and capacity.
+ * </p>
+ * <p>
+ * Appending a tick is a handful of writes to mapped memory - there is no system call unless a new segment has to be
+ * opened. The operating system writes the pages to disk in the background, so ticks survive the bot being killed, but
+ * not the machine losing power before they have been flushed.
+ * </p>
+ * <p>
+ * This class is not thread safe: it is meant to be used by a single writer thread, see
+ * {@link RecordingExchangeAdapter}.
+ * </p>
+ *
+ * @author gazbert
+ * @since 1.0
+ */
+public final class TickStoreWriter implements Closeable {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * Default number of order book levels recorded for each side of the book.
+     */
+    public static final int DEFAULT_LEVELS = 5;
+
+    /**
+     * Default number of ticks per segment - enough for a day of 1 second trade cycles in a single segment.
+     */
+    public static final int DEFAULT_SEGMENT_CAPACITY = 1 << 17;
+
+    private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+
+    private final Path directory;
+    private final int levels;
+    private final int segmentCapacity;
+    private final long segmentFileSize;
+    private final Map<String, OpenSegment> openSegments = new HashMap<>();
+
+
+    /**
+     * Creates a writer for a tick store.
+     *
+     * @param directory       the tick store directory. It is created if it does not exist.
+     * @param levels          number of order book levels to record for each side of the book.
+     * @param segmentCapacity number of ticks per segment file.
+     * @throws IllegalArgumentException if levels or capacity are less than 1, or a segment would be larger than 2GB.
+     */
+    public TickStoreWriter(Path directory, int levels, int segmentCapacity) {
+
+        if (levels < 1 || segmentCapacity < 1 || TickSegment.fileSize(levels, segmentCapacity) > Integer.MAX_VALUE) {
+            final String errorMsg = "Invalid tick store segment size: levels=" + levels + " capacity="
+                    + segmentCapacity;
+            LOG.error(errorMsg);
+            throw new IllegalArgumentException(errorMsg);
+        }
+
+        this.directory = directory;
+        this.levels = levels;
+        this.segmentCapacity = segmentCapacity;
+        this.segmentFileSize = TickSegment.fileSize(levels, segmentCapacity);
+    }
+
+    /**
+     * Appends a tick for a market.
+     *
+     * @param timestamp the time of the tick in millis since the epoch.
+     * @param marketId  the id of the market.
+     * @param orderBook the order book, or null to record the last price only.
+     * @param lastPrice the last price, or null if not known.
+     * @throws IOException if a segment file cannot be opened.
+     */
+    public void append(long timestamp, String marketId, MarketOrderBook orderBook, BigDecimal lastPrice)
+            throws IOException {
+
+        final long epochDay = Math.floorDiv(timestamp, MILLIS_PER_DAY);
+        OpenSegment segment = openSegments.get(marketId);
+        if (segment == null || segment.epochDay != epochDay) {
+            closeSegment(segment);
+            segment = openSegment(marketId, epochDay, 0);
+            openSegments.put(marketId, segment);
+        } else if (segment.tickCount == segmentCapacity) {
+            closeSegment(segment);
+            segment = openSegment(marketId, epochDay, segment.part + 1);
+            openSegments.put(marketId, segment);
+        }
+
+        final MappedByteBuffer buffer = segment.buffer;
+        final int tick = segment.tickCount;
+        putColumn(buffer, TickSegment.TIMESTAMP_COLUMN, tick, timestamp);
+        putColumn(buffer, TickSegment.LAST_PRICE_COLUMN, tick, lastPrice == null ? TickSegment.NO_VALUE
+                : toUnscaled(lastPrice));
+
+        final List<MarketOrder> bids = orderBook == null ? Collections.emptyList() : orderBook.getBuyOrders();
+        final List<MarketOrder> asks = orderBook == null ? Collections.emptyList() : orderBook.getSellOrders();
+        for (int level = 0; level < levels; level++) {
+            putPriceLevel(buffer, TickSegment.bidPriceColumn(level), tick, bids, level);
+            putPriceLevel(buffer, TickSegment.askPriceColumn(level), tick, asks, level);
+        }
+
+        // Publish the tick only once all of its columns are written
+        segment.tickCount++;
+        buffer.putInt(TickSegment.COUNT_OFFSET, segment.tickCount);
+    }
+
+    /**
+     * Flushes the open segments to disk.
+     */
+    @Override
+    public void close() {
+        for (final OpenSegment segment : openSegments.values()) {
+            closeSegment(segment);
+        }
+        openSegments.clear();
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    /*
+     * Opens the first segment for the day from the given part on that is new, or can be appended to.
+     */
+    private OpenSegment openSegment(String marketId, long epochDay, int firstPart) throws IOException {
+
+        final Path marketDirectory = directory.resolve(marketId);
+        Files.createDirectories(marketDirectory);
+
+        for (int part = firstPart; ; part++) {
+            final Path file = marketDirectory.resolve(TickSegment.fileName(epochDay, part));
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+
+                final boolean isNewSegment = channel.size() == 0;
+                if (!isNewSegment && !canAppendTo(channel)) {
+                    continue;
+                }
+
+                // The mapping stays valid after the channel is closed
+                final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentFileSize);
+                if (isNewSegment) {
+                    buffer.putInt(TickSegment.MAGIC_OFFSET, TickSegment.MAGIC);
+                    buffer.putInt(TickSegment.VERSION_OFFSET, TickSegment.VERSION);
+                    buffer.putInt(TickSegment.LEVELS_OFFSET, levels);
+                    buffer.putInt(TickSegment.CAPACITY_OFFSET, segmentCapacity);
+                    buffer.putInt(TickSegment.COUNT_OFFSET, 0);
+                }
+                LOG.info(() -> "Recording " + marketId + " ticks to " + file);
+                return new OpenSegment(epochDay, part, buffer, buffer.getInt(TickSegment.COUNT_OFFSET));
+            }
+        }
+    }
+
+    private boolean canAppendTo(FileChannel channel) throws IOException {
+
+        if (channel.size() != segmentFileSize) {
+            return false;
+        }
+        final ByteBuffer header = ByteBuffer.allocate(TickSegment.HEADER_SIZE);
+        channel.read(header, 0);
+        return header.getInt(TickSegment.MAGIC_OFFSET) == TickSegment.MAGIC
+                && header.getInt(TickSegment.VERSION_OFFSET) == TickSegment.VERSION
+                && header.getInt(TickSegment.LEVELS_OFFSET) == levels
+                && header.getInt(TickSegment.CAPACITY_OFFSET) == segmentCapacity
+                && header.getInt(TickSegment.COUNT_OFFSET) < segmentCapacity;
+    }
+
+    private static void closeSegment(OpenSegment segment) {
+        if (segment != null) {
+            segment.buffer.force();
+        }
+    }
+
+    private void putPriceLevel(MappedByteBuffer buffer, int priceColumn, int tick, List<MarketOrder> priceLevels,
+                               int level) {
+        if (level < priceLevels.size()) {
+            final MarketOrder priceLevel = priceLevels.get(level);
+            putColumn(buffer, priceColumn, tick, toUnscaled(priceLevel.getPrice()));
+            putColumn(buffer, priceColumn + 1, tick, toUnscaled(priceLevel.getQuantity()));
+        } else {
+            putColumn(buffer, priceColumn, tick, 0);
+            putColumn(buffer, priceColumn + 1, tick, 0);
+        }
+    }
+
+    private void putColumn(MappedByteBuffer buffer, int column, int tick, long value) {
+        buffer.putLong(TickSegment.columnOffset(column, segmentCapacity) + tick * Long.BYTES, value);
+    }
+
+    private static long toUnscaled(BigDecimal value) {
+        return value.setScale(FixedPointDecimal.SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static final class OpenSegment {
+
+        final long epochDay;
+        final int part;
+        final MappedByteBuffer buffer;
+        int tickCount;
+
+        OpenSegment(long epochDay, int part, MappedByteBuffer buffer, int tickCount) {
+            this.epochDay = epochDay;
+            this.part = part;
+            this.buffer = buffer;
+            this.tickCount = tickCount;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.backtesting;
+
+/**
+ * The time as seen by a backtest.
+ * <p>
+ * The backtest moves the clock on to the timestamp of each recorded market data event and to each trade cycle, instead
+ * of sleeping between trade cycles like the live Trading Engine does. This is what lets months of trade cycles run in
+ * minutes.
+ *
+ * @author gazbert
+ * @since 1.0
+ */
+public final class VirtualClock {
+
+    private long currentTimeMillis;
+
+
+    /**
+     * Creates a clock set to the given time.
+     *
+     * @param startTimeMillis the start time in millis since the epoch.
+     */
+    public VirtualClock(long startTimeMillis) {
+        this.currentTimeMillis = startTimeMillis;
+    }
+
+    /**
+     * Returns the current virtual time.
+     *
+     * @return the current time in millis since the epoch.
+     */
+    public long currentTimeMillis() {
+        return currentTimeMillis;
+    }
+
+    /**
+     * Moves the clock forward. Time never goes backwards.
+     *
+     * @param timeMillis the new time in millis since the epoch.
+     * @throws IllegalArgumentException if the new time is before the current time.
+     */
+    public void advanceTo(long timeMillis) {
+        if (timeMillis < currentTimeMillis) {
+            throw new IllegalArgumentException("Cannot move virtual clock back from " + currentTimeMillis + " to "
+                    + timeMillis);
+        }
+        currentTimeMillis = timeMillis;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.backtesting;
+
+import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
+import com.gazbert.bxbot.exchange.api.OtherConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Config helpers shared by the Exchange Adapters that wrap another Exchange Adapter - the
+ * {@link PaperTradingExchangeAdapter} and the {@link RecordingExchangeAdapter}.
+ *
+ * @author gazbert
+ */
+final class WrappedExchangeAdapterConfig {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+
+    private WrappedExchangeAdapterConfig() {
+    }
+
+    /**
+     * Creates the wrapped Exchange Adapter.
+     *
+     * @param adapterClassName the fully qualified class name of the wrapped adapter.
+     * @param wrappedBy        what the adapter is wrapped for, e.g. "paper traded", used in the error message.
+     * @return the wrapped adapter, not yet initialised.
+     * @throws IllegalArgumentException if the adapter cannot be created.
+     */
+    static ExchangeAdapter createExchangeAdapter(String adapterClassName, String wrappedBy) {
+        try {
+            return (ExchangeAdapter) Class.forName(adapterClassName).newInstance();
+        } catch (ClassNotFoundException | InstantiationException | IllegalAccessException | ClassCastException e) {
+            final String errorMsg = "Failed to create " + wrappedBy + " Exchange Adapter: " + adapterClassName;
+            LOG.error(errorMsg, e);
+            throw new IllegalArgumentException(errorMsg, e);
+        }
+    }
+
+    /**
+     * Returns a mandatory item from the other-config section of exchange.xml.
+     *
+     * @param otherConfig the other config, possibly null.
+     * @param itemName    the item name.
+     * @return the item value.
+     * @throws IllegalArgumentException if the item has not been set.
+     */
+    static String getOtherConfigItem(OtherConfig otherConfig, String itemName) {
+
+        final String itemValue = otherConfig == null ? null : otherConfig.getItem(itemName);
+        LOG.info(() -> itemName + ": " + itemValue);
+        if (itemValue == null || itemValue.isEmpty()) {
+            final String errorMsg = itemName + " must be set in the other-config section of exchange.xml";
+            LOG.error(errorMsg);
+            throw new IllegalArgumentException(errorMsg);
+        }
+        return itemValue;
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.backtesting;
+
+import com.gazbert.bxbot.strategy.api.StrategyConfig;
+import com.gazbert.bxbot.strategy.api.StrategyException;
+import com.gazbert.bxbot.strategy.api.TradingStrategy;
+import com.gazbert.bxbot.strategy.api.impl.StrategyConfigItems;
+import com.gazbert.bxbot.trading.api.Market;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.gazbert.bxbot.trading.api.TradingApi;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests a backtest drives the strategy through the recorded market data on the virtual clock.
+ *
+ * @author gazbert
+ */
+public class TestBacktest {
+
+    // Canned test data - expected to reside on filesystem relative to project root
+    private static final String BTC_USD_MARKET_DATA = "./src/test/market-data/btc_usd.csv";
+
+    private static final Market MARKET = new Market("BTC/USD", "btc_usd", "BTC", "USD");
+    private static final StrategyConfig STRATEGY_CONFIG = new StrategyConfigItems();
+
+    private static final BigDecimal FEE = new BigDecimal("0.002");
+    private static final BigDecimal STARTING_USD = new BigDecimal("1000");
+    private static final long FIRST_EVENT_TIME = 1475280000000L;
+    private static final long TRADE_CYCLE_INTERVAL = 1000;
+
+    private SimulatedExchange exchange;
+
+
+    @Before
+    public void setupForEachTest() throws Exception {
+        exchange = new SimulatedExchange(new VirtualClock(0), Collections.singletonList(MARKET),
+                Collections.singletonMap("USD", STARTING_USD), FEE, FEE);
+    }
+
+    @Test
+    public void testStrategyIsExecutedOncePerVirtualTradeCycle() throws Exception {
+
+        final RoundTripStrategy strategy = new RoundTripStrategy();
+        final BacktestResult result = runBacktest(strategy, TRADE_CYCLE_INTERVAL);
+
+        // Cycles at +0s, +1s, +2s and +3s - the last one replays the last snapshot
+        assertEquals(4, result.getTradeCycles());
+        assertEquals(FIRST_EVENT_TIME, result.getStartTime());
+        assertEquals(FIRST_EVENT_TIME + 3000, result.getEndTime());
+        assertEquals(4, strategy.bestBids.size());
+        assertEquals(new BigDecimal("603.00"), strategy.bestBids.get(3));
+
+        // Bought 1 BTC at 601.00 and sold it at 601.00 - only the fees are lost
+        final BigDecimal fees = new BigDecimal("2.404");
+        assertEquals(0, STARTING_USD.compareTo(result.getStartingValue()));
+        assertEquals(0, fees.negate().compareTo(result.getProfitAndLoss()));
+        assertEquals(0, fees.compareTo(result.getFeesPaid()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(result.getEndingBalances().get("BTC")));
+
+        // Lowest point was the last cycle, valued after the round trip
+        assertEquals(0, new BigDecimal("0.002404").compareTo(result.getMaxDrawdown()));
+
+        assertEquals(2, result.getOrdersCreated());
+        assertEquals(2, result.getOrdersFilled());
+        assertEquals(0, BigDecimal.ONE.compareTo(result.getFillRate()));
+    }
+
+    @Test
+    public void testShorterTradeCycleRunsMoreCycles() throws Exception {
+
+        final BacktestResult result = runBacktest(new RoundTripStrategy(), 250);
+        assertEquals(13, result.getTradeCycles());
+        assertEquals(FIRST_EVENT_TIME + 3000, result.getEndTime());
+    }
+
+    @Test(expected = StrategyException.class)
+    public void testStrategyExceptionStopsBacktest() throws Exception {
+
+        runBacktest(new TradingStrategy() {
+            @Override
+            public void init(TradingApi tradingApi, Market market, StrategyConfig config) {
+            }
+
+            @Override
+            public void execute() throws StrategyException {
+                throw new StrategyException("Bad strategy!");
+            }
+        }, TRADE_CYCLE_INTERVAL);
+    }
+
+    @Test(expected = IOException.class)
+    public void testMarketDataWithoutPriceForMarketIsRejected() throws Exception {
+
+        final Market otherMarket = new Market("LTC/USD", "ltc_usd", "LTC", "USD");
+        exchange = new SimulatedExchange(new VirtualClock(0), Collections.singletonList(otherMarket),
+                Collections.singletonMap("USD", STARTING_USD), FEE, FEE);
+        try (final CsvMarketDataSource marketData = new CsvMarketDataSource(Paths.get(BTC_USD_MARKET_DATA))) {
+            new Backtest(new RoundTripStrategy(), otherMarket, STRATEGY_CONFIG, exchange, TRADE_CYCLE_INTERVAL)
+                    .run(marketData);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroTradeCycleIntervalIsRejected() {
+        new Backtest(new RoundTripStrategy(), MARKET, STRATEGY_CONFIG, exchange, 0);
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private BacktestResult runBacktest(TradingStrategy strategy, long tradeCycleInterval) throws Exception {
+        try (final CsvMarketDataSource marketData = new CsvMarketDataSource(Paths.get(BTC_USD_MARKET_DATA))) {
+            return new Backtest(strategy, MARKET, STRATEGY_CONFIG, exchange, tradeCycleInterval).run(marketData);
+        }
+    }
+
+    /*
+     * Buys 1 BTC at the best ask on the first cycle and sells it at the best bid once the bid reaches 601.
+     */
+    private static final class RoundTripStrategy implements TradingStrategy {
+
+        private final List<BigDecimal> bestBids = new ArrayList<>();
+        private TradingApi tradingApi;
+        private Market market;
+        private boolean bought;
+        private boolean sold;
+
+        @Override
+        public void init(TradingApi tradingApi, Market market, StrategyConfig config) {
+            this.tradingApi = tradingApi;
+            this.market = market;
+        }
+
+        @Override
+        public void execute() throws StrategyException {
+            try {
+                final MarketOrderBook orderBook = tradingApi.getMarketOrders(market.getId());
+                final BigDecimal bestBid = orderBook.getBuyOrders().get(0).getPrice();
+                bestBids.add(bestBid);
+
+                if (!bought) {
+                    tradingApi.createOrder(market.getId(), OrderType.BUY, BigDecimal.ONE,
+                            orderBook.getSellOrders().get(0).getPrice());
+                    bought = true;
+                } else if (!sold && bestBid.compareTo(new BigDecimal("601")) >= 0) {
+                    tradingApi.createOrder(market.getId(), OrderType.SELL, BigDecimal.ONE, bestBid);
+                    sold = true;
+                }
+            } catch (Exception e) {
+                throw new StrategyException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.backtesting;
+
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OrderType;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests recorded market data files are read as expected.
+ *
+ * @author gazbert
+ */
+public class TestCsvMarketDataSource {
+
+    // Canned test data - expected to reside on filesystem relative to project root
+    private static final String BTC_USD_MARKET_DATA = "./src/test/market-data/btc_usd.csv";
+
+    private static final String MARKET_ID = "btc_usd";
+
+
+    @Test
+    public void testReadingOrderBooksAndTrades() throws Exception {
+
+        try (final CsvMarketDataSource marketData = new CsvMarketDataSource(Paths.get(BTC_USD_MARKET_DATA))) {
+
+            final MarketDataEvent firstBook = marketData.next();
+            assertTrue(firstBook.isOrderBook());
+            assertEquals(1475280000000L, firstBook.getTimestamp());
+            assertEquals(MARKET_ID, firstBook.getMarketId());
+
+            final MarketOrderBook orderBook = firstBook.getOrderBook();
+            assertEquals(2, orderBook.getBuyOrders().size());
+            assertEquals(2, orderBook.getSellOrders().size());
+            assertEquals(OrderType.BUY, orderBook.getBuyOrders().get(0).getType());
+            assertEquals(new BigDecimal("600.00"), orderBook.getBuyOrders().get(0).getPrice());
+            assertEquals(new BigDecimal("2.0"), orderBook.getBuyOrders().get(0).getQuantity());
+            assertEquals(OrderType.SELL, orderBook.getSellOrders().get(1).getType());
+            assertEquals(new BigDecimal("601.50"), orderBook.getSellOrders().get(1).getPrice());
+            assertEquals(0, orderBook.getSellOrders().get(1).getTotal().compareTo(new BigDecimal("2406")));
+
+            final MarketDataEvent trade = marketData.next();
+            assertFalse(trade.isOrderBook());
+            assertEquals(1475280000400L, trade.getTimestamp());
+            assertEquals(new BigDecimal("600.50"), trade.getPrice());
+            assertEquals(new BigDecimal("0.25"), trade.getQuantity());
+
+            int remainingEvents = 0;
+            while (marketData.next() != null) {
+                remainingEvents++;
+            }
+            assertEquals(5, remainingEvents);
+        }
+    }
+
+    @Test
+    public void testEmptyBookSideIsReadAsNoPriceLevels() throws Exception {
+
+        final Path file = writeMarketData("1475280000000,B,btc_usd,,601.00:1.5");
+        try (final CsvMarketDataSource marketData = new CsvMarketDataSource(file)) {
+            final MarketOrderBook orderBook = marketData.next().getOrderBook();
+            assertTrue(orderBook.getBuyOrders().isEmpty());
+            assertEquals(1, orderBook.getSellOrders().size());
+            assertNull(marketData.next());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnknownEventTypeIsRejected() throws Exception {
+        readFirstEvent("1475280000000,X,btc_usd,600.00,1.0");
+    }
+
+    @Test(expected = IOException.class)
+    public void testBadPriceLevelIsRejected() throws Exception {
+        readFirstEvent("1475280000000,B,btc_usd,600.00,601.00:1.5");
+    }
+
+    @Test(expected = IOException.class)
+    public void testBadNumberIsRejected() throws Exception {
+        readFirstEvent("1475280000000,T,btc_usd,six hundred,1.0");
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private static void readFirstEvent(String line) throws IOException {
+        final Path file = writeMarketData(line);
+        try (final CsvMarketDataSource marketData = new CsvMarketDataSource(file)) {
+            marketData.next();
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static Path writeMarketData(String line) throws IOException {
+        final Path file = Files.createTempFile("bxbot-market-data", ".csv");
+        Files.write(file, (line + "\n").getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.backtesting;
+
+import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
+import com.gazbert.bxbot.exchange.api.ExchangeConfig;
+import com.gazbert.bxbot.exchange.api.impl.ExchangeConfigImpl;
+import com.gazbert.bxbot.exchange.api.impl.OtherConfigImpl;
+import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.MarketOrder;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the paper trading adapter matches simulated orders against the wrapped adapter's market data, and never sends
+ * an order to the real exchange.
+ *
+ * @author gazbert
+ */
+public class TestPaperTradingExchangeAdapter {
+
+    private static final String MARKET_ID = "btc_usd";
+
+    // 0.2% in the form returned by the Trading API
+    private static final BigDecimal FEE = new BigDecimal("0.002");
+
+    private Map<String, String> otherConfigItems;
+    private PaperTradingExchangeAdapter adapter;
+
+
+    @Before
+    public void setupForEachTest() throws Exception {
+
+        otherConfigItems = new HashMap<>();
+        otherConfigItems.put("paper-traded-exchange-adapter", StubExchangeAdapter.class.getName());
+        otherConfigItems.put("paper-trading-markets", "btc_usd:BTC:USD, ltc_usd:LTC:USD");
+        otherConfigItems.put("paper-trading-balances", "USD:10000, BTC:1");
+        otherConfigItems.put("buy-fee", "0.2");
+        otherConfigItems.put("sell-fee", "0.2");
+
+        StubExchangeAdapter.orderBook = orderBook("600", "601");
+        adapter = new PaperTradingExchangeAdapter();
+        adapter.init(exchangeConfig());
+    }
+
+    @Test
+    public void testOrderIsFilledAgainstLatestOrderBook() throws Exception {
+
+        assertEquals("Paper trading on Stub", adapter.getImplName());
+        assertSame(StubExchangeAdapter.orderBook, adapter.getMarketOrders(MARKET_ID));
+
+        adapter.createOrder(MARKET_ID, OrderType.BUY, BigDecimal.ONE, new BigDecimal("601"));
+        assertTrue(adapter.getYourOpenOrders(MARKET_ID).isEmpty());
+
+        // 601 plus 0.2% fee
+        final BalanceInfo balanceInfo = adapter.getBalanceInfo();
+        assertEquals(0, new BigDecimal("9397.798").compareTo(balanceInfo.getBalancesAvailable().get("USD")));
+        assertEquals(0, new BigDecimal("2").compareTo(balanceInfo.getBalancesAvailable().get("BTC")));
+        assertEquals(1, adapter.getSimulatedExchange().getOrdersFilled());
+    }
+
+    @Test
+    public void testRestingOrderIsFilledWhenLaterOrderBookCrossesIt() throws Exception {
+
+        adapter.getMarketOrders(MARKET_ID);
+        final String orderId = adapter.createOrder(MARKET_ID, OrderType.SELL, BigDecimal.ONE, new BigDecimal("605"));
+
+        final List<OpenOrder> openOrders = adapter.getYourOpenOrders(MARKET_ID);
+        assertEquals(1, openOrders.size());
+        assertEquals(orderId, openOrders.get(0).getId());
+        assertEquals(0, new BigDecimal("1").compareTo(adapter.getBalanceInfo().getBalancesOnHold().get("BTC")));
+
+        // Market moves up through the order - filled at the order's price, less 0.2% fee
+        StubExchangeAdapter.orderBook = orderBook("606", "607");
+        adapter.getTopOfBook(MARKET_ID);
+
+        assertTrue(adapter.getYourOpenOrders(MARKET_ID).isEmpty());
+        assertEquals(0, new BigDecimal("10603.79").compareTo(
+                adapter.getBalanceInfo().getBalancesAvailable().get("USD")));
+        assertEquals(0, BigDecimal.ZERO.compareTo(adapter.getBalanceInfo().getBalancesOnHold().get("BTC")));
+    }
+
+    @Test
+    public void testTradingCallsAreSimulated() throws Exception {
+
+        // The stub throws if any of these reach it
+        adapter.getMarketOrders(MARKET_ID);
+        final String orderId = adapter.createOrder(MARKET_ID, OrderType.BUY, BigDecimal.ONE, new BigDecimal("590"));
+        assertTrue(adapter.cancelOrder(orderId, MARKET_ID));
+        assertFalse(adapter.cancelOrder(orderId, MARKET_ID));
+        assertEquals(0, new BigDecimal("10000").compareTo(adapter.getBalanceInfo().getBalancesAvailable().get("USD")));
+        assertEquals(0, FEE.compareTo(adapter.getPercentageOfBuyOrderTakenForExchangeFee(MARKET_ID)));
+        assertEquals(0, FEE.compareTo(adapter.getPercentageOfSellOrderTakenForExchangeFee(MARKET_ID)));
+        assertEquals(0, new BigDecimal("600.50").compareTo(adapter.getLatestMarketPrice(MARKET_ID)));
+        assertEquals(0, new BigDecimal("600.50").compareTo(adapter.getSimulatedExchange().getMarkPrice(MARKET_ID)));
+    }
+
+    @Test(expected = TradingApiException.class)
+    public void testOrderThatCannotBeFundedIsRejected() throws Exception {
+        adapter.createOrder(MARKET_ID, OrderType.BUY, BigDecimal.TEN, new BigDecimal("1001"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingBalancesAreRejected() {
+        otherConfigItems.remove("paper-trading-balances");
+        new PaperTradingExchangeAdapter().init(exchangeConfig());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBadlyFormedMarketIsRejected() {
+        otherConfigItems.put("paper-trading-markets", "btc_usd:BTC");
+        new PaperTradingExchangeAdapter().init(exchangeConfig());
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private ExchangeConfig exchangeConfig() {
+        final OtherConfigImpl otherConfig = new OtherConfigImpl();
+        otherConfig.setItems(otherConfigItems);
+        final ExchangeConfigImpl exchangeConfig = new ExchangeConfigImpl();
+        exchangeConfig.setOtherConfig(otherConfig);
+        return exchangeConfig;
+    }
+
+    private static MarketOrderBook orderBook(String bid, String ask) {
+        final BigDecimal bidPrice = new BigDecimal(bid);
+        final BigDecimal askPrice = new BigDecimal(ask);
+        return new MarketOrderBook(MARKET_ID,
+                Collections.singletonList(new MarketOrder(OrderType.SELL, askPrice, BigDecimal.ONE, askPrice)),
+                Collections.singletonList(new MarketOrder(OrderType.BUY, bidPrice, BigDecimal.ONE, bidPrice)));
+    }
+
+    /**
+     * The paper traded adapter - created by class name, so it must be public with a no-arg constructor.
+     * Only its public market data calls may be used.
+     */
+    public static final class StubExchangeAdapter implements ExchangeAdapter {
+
+        static volatile MarketOrderBook orderBook;
+
+        @Override
+        public void init(ExchangeConfig config) {
+        }
+
+        @Override
+        public String getImplName() {
+            return "Stub";
+        }
+
+        @Override
+        public MarketOrderBook getMarketOrders(String marketId) {
+            return orderBook;
+        }
+
+        @Override
+        public BigDecimal getLatestMarketPrice(String marketId) {
+            return new BigDecimal("600.50");
+        }
+
+        @Override
+        public List<OpenOrder> getYourOpenOrders(String marketId) {
+            throw new UnsupportedOperationException("Paper trading must not fetch real open orders");
+        }
+
+        @Override
+        public String createOrder(String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price) {
+            throw new UnsupportedOperationException("Paper trading must not place real orders");
+        }
+
+        @Override
+        public boolean cancelOrder(String orderId, String marketId) {
+            throw new UnsupportedOperationException("Paper trading must not cancel real orders");
+        }
+
+        @Override
+        public BalanceInfo getBalanceInfo() {
+            throw new UnsupportedOperationException("Paper trading must not fetch real balances");
+        }
+
+        @Override
+        public BigDecimal getPercentageOfBuyOrderTakenForExchangeFee(String marketId) {
+            throw new UnsupportedOperationException("Paper trading must not fetch real fees");
+        }
+
+        @Override
+        public BigDecimal getPercentageOfSellOrderTakenForExchangeFee(String marketId) {
+            throw new UnsupportedOperationException("Paper trading must not fetch real fees");
+        }
+    }
+}
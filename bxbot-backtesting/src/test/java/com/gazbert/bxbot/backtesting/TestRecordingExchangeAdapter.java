@@ -0,0 +1,239 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.backtesting;
+
+import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
+import com.gazbert.bxbot.exchange.api.ExchangeConfig;
+import com.gazbert.bxbot.exchange.api.impl.ExchangeConfigImpl;
+import com.gazbert.bxbot.exchange.api.impl.OtherConfigImpl;
+import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.MarketOrder;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the recording adapter passes calls through to the recorded adapter and records the market data it returns.
+ *
+ * @author gazbert
+ */
+public class TestRecordingExchangeAdapter {
+
+    private static final String MARKET_ID = "btc_usd";
+    private static final long RECORDING_TIMEOUT_MILLIS = 5000;
+
+    private Path tickStoreDirectory;
+    private Map<String, String> otherConfigItems;
+
+
+    @Before
+    public void setupForEachTest() throws Exception {
+
+        tickStoreDirectory = Files.createTempDirectory("bxbot-ticks");
+
+        otherConfigItems = new HashMap<>();
+        otherConfigItems.put("recorded-exchange-adapter", StubExchangeAdapter.class.getName());
+        otherConfigItems.put("tick-store-directory", tickStoreDirectory.toString());
+        otherConfigItems.put("tick-store-levels", "1");
+    }
+
+    @After
+    public void tearDownAfterEachTest() throws Exception {
+        try (Stream<Path> files = Files.walk(tickStoreDirectory)) {
+            for (final Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    public void testMarketDataIsPassedThroughAndRecorded() throws Exception {
+
+        final RecordingExchangeAdapter adapter = new RecordingExchangeAdapter();
+        final ExchangeConfig exchangeConfig = exchangeConfig();
+        adapter.init(exchangeConfig);
+
+        assertSame(exchangeConfig, StubExchangeAdapter.lastConfig);
+        assertEquals("Stub", adapter.getImplName());
+
+        assertSame(StubExchangeAdapter.ORDER_BOOK, adapter.getMarketOrders(MARKET_ID));
+        assertEquals(StubExchangeAdapter.LATEST_PRICE, adapter.getLatestMarketPrice(MARKET_ID));
+        assertEquals(1, adapter.getTopOfBook(MARKET_ID).getBuyOrders().size());
+
+        final TickStoreReader reader = awaitTicks(3);
+
+        // Book with no price yet, price on its own, then book with the price
+        assertEquals(TickStoreReader.NO_PRICE, reader.getLastPrice());
+        assertEquals(1, reader.getLevels());
+        assertEquals(60000000000L, reader.getBidPrice(0));
+        assertEquals(60100000000L, reader.getAskPrice(0));
+        assertTrue(reader.advance());
+        assertEquals(0, reader.getBidQuantity(0));
+        assertEquals(60050000000L, reader.getLastPrice());
+        assertTrue(reader.advance());
+        assertEquals(100000000L, reader.getBidQuantity(0));
+        assertEquals(60050000000L, reader.getLastPrice());
+    }
+
+    @Test
+    public void testTradingCallsArePassedThroughAndNotRecorded() throws Exception {
+
+        final RecordingExchangeAdapter adapter = new RecordingExchangeAdapter();
+        adapter.init(exchangeConfig());
+
+        assertEquals("order-1", adapter.createOrder(MARKET_ID, OrderType.BUY, BigDecimal.ONE, BigDecimal.TEN));
+        assertTrue(adapter.cancelOrder("order-1", MARKET_ID));
+        assertTrue(adapter.getYourOpenOrders(MARKET_ID).isEmpty());
+        assertEquals(new BigDecimal("0.002"), adapter.getPercentageOfBuyOrderTakenForExchangeFee(MARKET_ID));
+        assertFalse(Files.exists(tickStoreDirectory.resolve(MARKET_ID)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingRecordedAdapterIsRejected() {
+        otherConfigItems.remove("recorded-exchange-adapter");
+        new RecordingExchangeAdapter().init(exchangeConfig());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownRecordedAdapterIsRejected() {
+        otherConfigItems.put("recorded-exchange-adapter", "com.gazbert.bxbot.exchanges.NoSuchExchangeAdapter");
+        new RecordingExchangeAdapter().init(exchangeConfig());
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private ExchangeConfig exchangeConfig() {
+        final OtherConfigImpl otherConfig = new OtherConfigImpl();
+        otherConfig.setItems(otherConfigItems);
+        final ExchangeConfigImpl exchangeConfig = new ExchangeConfigImpl();
+        exchangeConfig.setOtherConfig(otherConfig);
+        return exchangeConfig;
+    }
+
+    /*
+     * Ticks are written on the recorder thread - wait for them to be published, and leave the reader on the first.
+     */
+    private TickStoreReader awaitTicks(int tickCount) throws Exception {
+
+        final long deadline = System.currentTimeMillis() + RECORDING_TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            int ticksRecorded = 0;
+            final TickStoreReader reader = new TickStoreReader(tickStoreDirectory, MARKET_ID);
+            while (reader.advance()) {
+                ticksRecorded++;
+            }
+            if (ticksRecorded == tickCount) {
+                final TickStoreReader firstTick = new TickStoreReader(tickStoreDirectory, MARKET_ID);
+                assertTrue(firstTick.advance());
+                return firstTick;
+            }
+            Thread.sleep(10);
+        }
+        fail("Ticks were not recorded within " + RECORDING_TIMEOUT_MILLIS + "ms");
+        return null;
+    }
+
+    /**
+     * The recorded adapter - created by class name, so it must be public with a no-arg constructor.
+     */
+    public static final class StubExchangeAdapter implements ExchangeAdapter {
+
+        static final BigDecimal LATEST_PRICE = new BigDecimal("600.50");
+        static final MarketOrderBook ORDER_BOOK = new MarketOrderBook(MARKET_ID,
+                Collections.singletonList(new MarketOrder(OrderType.SELL, new BigDecimal("601"), BigDecimal.ONE,
+                        new BigDecimal("601"))),
+                Collections.singletonList(new MarketOrder(OrderType.BUY, new BigDecimal("600"), BigDecimal.ONE,
+                        new BigDecimal("600"))));
+
+        static volatile ExchangeConfig lastConfig;
+
+        @Override
+        public void init(ExchangeConfig config) {
+            lastConfig = config;
+        }
+
+        @Override
+        public String getImplName() {
+            return "Stub";
+        }
+
+        @Override
+        public MarketOrderBook getMarketOrders(String marketId) {
+            return ORDER_BOOK;
+        }
+
+        @Override
+        public List<OpenOrder> getYourOpenOrders(String marketId) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public String createOrder(String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price) {
+            return "order-1";
+        }
+
+        @Override
+        public boolean cancelOrder(String orderId, String marketId) {
+            return true;
+        }
+
+        @Override
+        public BigDecimal getLatestMarketPrice(String marketId) {
+            return LATEST_PRICE;
+        }
+
+        @Override
+        public BalanceInfo getBalanceInfo() {
+            return new BalanceInfo(Collections.emptyMap(), Collections.emptyMap());
+        }
+
+        @Override
+        public BigDecimal getPercentageOfBuyOrderTakenForExchangeFee(String marketId) {
+            return new BigDecimal("0.002");
+        }
+
+        @Override
+        public BigDecimal getPercentageOfSellOrderTakenForExchangeFee(String marketId) {
+            return new BigDecimal("0.002");
+        }
+    }
+}
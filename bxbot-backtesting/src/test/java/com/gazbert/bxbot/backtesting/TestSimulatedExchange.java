@@ -0,0 +1,241 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.backtesting;
+
+import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.Market;
+import com.gazbert.bxbot.trading.api.MarketOrder;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the simulated exchange matches the bot's orders against replayed market data and settles fills and fees.
+ *
+ * @author gazbert
+ */
+public class TestSimulatedExchange {
+
+    private static final String MARKET_ID = "btc_usd";
+    private static final Market MARKET = new Market("BTC/USD", MARKET_ID, "BTC", "USD");
+
+    private static final BigDecimal FEE = new BigDecimal("0.002");
+    private static final BigDecimal STARTING_USD = new BigDecimal("10000");
+    private static final BigDecimal STARTING_BTC = new BigDecimal("5");
+    private static final long START_TIME = 1475280000000L;
+
+    private VirtualClock clock;
+    private SimulatedExchange exchange;
+
+
+    @Before
+    public void setupForEachTest() throws Exception {
+
+        final Map<String, BigDecimal> startingBalances = new HashMap<>();
+        startingBalances.put("USD", STARTING_USD);
+        startingBalances.put("BTC", STARTING_BTC);
+
+        clock = new VirtualClock(START_TIME);
+        exchange = new SimulatedExchange(clock, Collections.singletonList(MARKET), startingBalances, FEE, FEE);
+        replayBook("600.00:2.0;599.50:5.0", "601.00:1.5;601.50:4.0");
+    }
+
+    @Test
+    public void testBuyOrderTakesCrossingLiquidityAndPaysFee() throws Exception {
+
+        exchange.createOrder(MARKET_ID, OrderType.BUY, new BigDecimal("2"), new BigDecimal("601.50"));
+
+        // 1.5 at 601.00 and 0.5 at 601.50, plus 0.2% fee
+        final BigDecimal cost = new BigDecimal("1202.25");
+        final BigDecimal fee = cost.multiply(FEE);
+        assertBalance("USD", STARTING_USD.subtract(cost).subtract(fee), BigDecimal.ZERO);
+        assertBalance("BTC", STARTING_BTC.add(new BigDecimal("2")), BigDecimal.ZERO);
+        assertEquals(0, fee.compareTo(exchange.getFeesPaid().get("USD")));
+
+        assertTrue(exchange.getYourOpenOrders(MARKET_ID).isEmpty());
+        assertEquals(1, exchange.getOrdersFilled());
+        assertEquals(2, exchange.getFillCount());
+
+        // The liquidity taken is gone until the next snapshot
+        final List<MarketOrder> asks = exchange.getMarketOrders(MARKET_ID).getSellOrders();
+        assertEquals(1, asks.size());
+        assertEquals(0, asks.get(0).getQuantity().compareTo(new BigDecimal("3.5")));
+    }
+
+    @Test
+    public void testRestingOrdersAreFilledByTradesInPriceTimePriority() throws Exception {
+
+        final String first = exchange.createOrder(MARKET_ID, OrderType.SELL, BigDecimal.ONE, new BigDecimal("602"));
+        clock.advanceTo(START_TIME + 1000);
+        final String second = exchange.createOrder(MARKET_ID, OrderType.SELL, BigDecimal.ONE, new BigDecimal("602"));
+        final String best = exchange.createOrder(MARKET_ID, OrderType.SELL, new BigDecimal("0.5"),
+                new BigDecimal("601.80"));
+        assertBalance("BTC", STARTING_BTC.subtract(new BigDecimal("2.5")), new BigDecimal("2.5"));
+
+        exchange.onMarketData(MarketDataEvent.trade(START_TIME + 2000, MARKET_ID, new BigDecimal("602"),
+                new BigDecimal("1.2")));
+
+        final Map<String, OpenOrder> openOrders = openOrdersById();
+        assertFalse(openOrders.containsKey(best));
+        assertEquals(0, openOrders.get(first).getQuantity().compareTo(new BigDecimal("0.3")));
+        assertEquals(0, openOrders.get(second).getQuantity().compareTo(BigDecimal.ONE));
+        assertEquals(START_TIME, openOrders.get(first).getCreationDate().getTime());
+
+        // Filled at their own prices, less the fee
+        final BigDecimal proceeds = new BigDecimal("300.90").add(new BigDecimal("421.40"));
+        assertBalance("USD", STARTING_USD.add(proceeds).subtract(proceeds.multiply(FEE)), BigDecimal.ZERO);
+        assertBalance("BTC", STARTING_BTC.subtract(new BigDecimal("2.5")), new BigDecimal("1.3"));
+        assertEquals(new BigDecimal("602"), exchange.getLatestMarketPrice(MARKET_ID));
+    }
+
+    @Test
+    public void testTradeQuantityIsSharedBetweenRestingBuyAndSellOrders() throws Exception {
+
+        final String buy = exchange.createOrder(MARKET_ID, OrderType.BUY, BigDecimal.ONE, new BigDecimal("600.50"));
+        final String sell = exchange.createOrder(MARKET_ID, OrderType.SELL, BigDecimal.ONE, new BigDecimal("600.20"));
+
+        // Reaches both orders, but only 1.5 traded
+        exchange.onMarketData(MarketDataEvent.trade(START_TIME, MARKET_ID, new BigDecimal("600.30"),
+                new BigDecimal("1.5")));
+
+        final Map<String, OpenOrder> openOrders = openOrdersById();
+        assertFalse(openOrders.containsKey(buy));
+        assertEquals(0, openOrders.get(sell).getQuantity().compareTo(new BigDecimal("0.5")));
+        assertEquals(2, exchange.getFillCount());
+    }
+
+    @Test
+    public void testRestingOrderIsFilledWhenBookMovesThroughIt() throws Exception {
+
+        exchange.createOrder(MARKET_ID, OrderType.BUY, BigDecimal.ONE, new BigDecimal("600.50"));
+        assertEquals(1, exchange.getYourOpenOrders(MARKET_ID).size());
+
+        replayBook("599.00:2.0", "600.00:0.4;600.50:2.0");
+
+        assertTrue(exchange.getYourOpenOrders(MARKET_ID).isEmpty());
+        final BigDecimal cost = new BigDecimal("600.50");
+        assertBalance("USD", STARTING_USD.subtract(cost).subtract(cost.multiply(FEE)), BigDecimal.ZERO);
+        assertBalance("BTC", STARTING_BTC.add(BigDecimal.ONE), BigDecimal.ZERO);
+        assertEquals(2, exchange.getFillCount());
+    }
+
+    @Test
+    public void testTradeWithoutQuantityOnlyUpdatesPrice() throws Exception {
+
+        exchange.createOrder(MARKET_ID, OrderType.BUY, BigDecimal.ONE, new BigDecimal("600.50"));
+        exchange.onMarketData(MarketDataEvent.trade(START_TIME, MARKET_ID, new BigDecimal("600.10"), null));
+
+        assertEquals(new BigDecimal("600.10"), exchange.getLatestMarketPrice(MARKET_ID));
+        assertEquals(1, exchange.getYourOpenOrders(MARKET_ID).size());
+        assertEquals(0, exchange.getFillCount());
+    }
+
+    @Test
+    public void testCancelReleasesHeldFunds() throws Exception {
+
+        final String orderId = exchange.createOrder(MARKET_ID, OrderType.BUY, BigDecimal.ONE, new BigDecimal("590"));
+        assertBalance("USD", STARTING_USD.subtract(new BigDecimal("591.18")), new BigDecimal("591.18"));
+
+        assertTrue(exchange.cancelOrder(orderId, MARKET_ID));
+        assertBalance("USD", STARTING_USD, BigDecimal.ZERO);
+        assertFalse(exchange.cancelOrder(orderId, MARKET_ID));
+        assertEquals(1, exchange.getOrdersCancelled());
+    }
+
+    @Test
+    public void testOrderBookDepthIsLimited() throws Exception {
+
+        final MarketOrderBook orderBook = exchange.getMarketOrders(MARKET_ID, 1);
+        assertEquals(1, orderBook.getBuyOrders().size());
+        assertEquals(1, orderBook.getSellOrders().size());
+        assertEquals(new BigDecimal("601.00"), orderBook.getSellOrders().get(0).getPrice());
+    }
+
+    @Test
+    public void testFeesAreReported() throws Exception {
+        assertEquals(FEE, exchange.getPercentageOfBuyOrderTakenForExchangeFee(MARKET_ID));
+        assertEquals(FEE, exchange.getPercentageOfSellOrderTakenForExchangeFee(MARKET_ID));
+    }
+
+    @Test(expected = TradingApiException.class)
+    public void testOrderThatCannotBeFundedIsRejected() throws Exception {
+        exchange.createOrder(MARKET_ID, OrderType.SELL, new BigDecimal("5.1"), new BigDecimal("700"));
+    }
+
+    @Test(expected = TradingApiException.class)
+    public void testUnknownMarketIsRejected() throws Exception {
+        exchange.getMarketOrders("ltc_usd");
+    }
+
+    @Test(expected = TradingApiException.class)
+    public void testLatestPriceBeforeAnyTradeIsRejected() throws Exception {
+        exchange.getLatestMarketPrice(MARKET_ID);
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private void replayBook(String bids, String asks) {
+        exchange.onMarketData(MarketDataEvent.orderBook(clock.currentTimeMillis(),
+                new MarketOrderBook(MARKET_ID, priceLevels(OrderType.SELL, asks), priceLevels(OrderType.BUY, bids))));
+    }
+
+    private static List<MarketOrder> priceLevels(OrderType orderType, String side) {
+        final List<MarketOrder> priceLevels = new ArrayList<>();
+        for (final String priceLevel : side.split(";")) {
+            final String[] priceAndQuantity = priceLevel.split(":");
+            final BigDecimal price = new BigDecimal(priceAndQuantity[0]);
+            final BigDecimal quantity = new BigDecimal(priceAndQuantity[1]);
+            priceLevels.add(new MarketOrder(orderType, price, quantity, price.multiply(quantity)));
+        }
+        return priceLevels;
+    }
+
+    private Map<String, OpenOrder> openOrdersById() throws Exception {
+        final Map<String, OpenOrder> openOrders = new HashMap<>();
+        for (final OpenOrder openOrder : exchange.getYourOpenOrders(MARKET_ID)) {
+            openOrders.put(openOrder.getId(), openOrder);
+        }
+        return openOrders;
+    }
+
+    private void assertBalance(String currency, BigDecimal available, BigDecimal onHold) {
+        final BalanceInfo balanceInfo = exchange.getBalanceInfo();
+        assertEquals(0, available.compareTo(balanceInfo.getBalancesAvailable().get(currency)));
+        assertEquals(0, onHold.compareTo(balanceInfo.getBalancesOnHold().getOrDefault(currency, BigDecimal.ZERO)));
+    }
+}
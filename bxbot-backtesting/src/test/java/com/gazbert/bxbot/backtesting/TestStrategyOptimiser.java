@@ -0,0 +1,223 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.backtesting;
+
+import com.gazbert.bxbot.strategy.api.StrategyConfig;
+import com.gazbert.bxbot.strategy.api.StrategyException;
+import com.gazbert.bxbot.strategy.api.TradingStrategy;
+import com.gazbert.bxbot.trading.api.Market;
+import com.gazbert.bxbot.trading.api.MarketOrder;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.gazbert.bxbot.trading.api.TradingApi;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the optimiser backtests every parameter set against the shared tick store and ranks the results.
+ *
+ * @author gazbert
+ */
+public class TestStrategyOptimiser {
+
+    private static final Market MARKET = new Market("BTC/USD", "btc_usd", "BTC", "USD");
+    private static final BigDecimal FEE = new BigDecimal("0.002");
+    private static final long TRADE_CYCLE_INTERVAL = 1000;
+
+    // 2016-10-01T00:00:00Z
+    private static final long DAY_START = 1475280000000L;
+    private static final int TICK_COUNT = 10;
+
+    private Path tickStoreDirectory;
+    private MappedTickStore marketData;
+    private StrategyOptimiser optimiser;
+
+
+    @Before
+    public void setupForEachTest() throws Exception {
+
+        // Bid climbs from 600 to 609 with the ask 1 above it, one tick a second
+        tickStoreDirectory = Files.createTempDirectory("bxbot-optimiser");
+        try (final TickStoreWriter writer = new TickStoreWriter(tickStoreDirectory, 1, 1024)) {
+            for (int i = 0; i < TICK_COUNT; i++) {
+                final BigDecimal bid = new BigDecimal(600 + i);
+                final BigDecimal ask = bid.add(BigDecimal.ONE);
+                final MarketOrderBook orderBook = new MarketOrderBook(MARKET.getId(),
+                        Collections.singletonList(new MarketOrder(OrderType.SELL, ask, BigDecimal.TEN, ask)),
+                        Collections.singletonList(new MarketOrder(OrderType.BUY, bid, BigDecimal.TEN, bid)));
+                writer.append(DAY_START + i * TRADE_CYCLE_INTERVAL, MARKET.getId(), orderBook, null);
+            }
+        }
+        marketData = MappedTickStore.open(tickStoreDirectory, MARKET.getId());
+
+        optimiser = new StrategyOptimiser(SellAtTargetStrategy::new, MARKET,
+                Collections.singletonMap("USD", new BigDecimal("10000")), FEE, FEE, TRADE_CYCLE_INTERVAL, 4);
+    }
+
+    @After
+    public void tearDownAfterEachTest() throws Exception {
+        try (Stream<Path> files = Files.walk(tickStoreDirectory)) {
+            for (final Path file : files.sorted((file1, file2) -> file2.compareTo(file1))
+                    .collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    public void testResultsAreRankedByProfitAndFailuresLast() throws Exception {
+
+        final List<OptimisationResult> results = optimiser.optimise(marketData,
+                ParameterSpace.grid(Collections.singletonMap("sell-at", Arrays.asList("605", "not-a-price", "608"))),
+                Collections.singletonMap("quantity", "1"));
+
+        assertEquals(3, results.size());
+        assertEquals("608", results.get(0).getParameters().get("sell-at"));
+        assertEquals("605", results.get(1).getParameters().get("sell-at"));
+
+        // Bought at 601, sold at 608
+        final BacktestResult best = results.get(0).getBacktestResult();
+        assertEquals(TICK_COUNT, best.getTradeCycles());
+        assertEquals(0, new BigDecimal("7").subtract(best.getFeesPaid())
+                .compareTo(best.getProfitAndLoss()));
+        assertEquals(2, best.getOrdersFilled());
+
+        // A strategy that rejects its config is reported, not fatal
+        final OptimisationResult failed = results.get(2);
+        assertFalse(failed.isCompleted());
+        assertNull(failed.getBacktestResult());
+        assertTrue(failed.getFailureReason().contains("NumberFormatException"));
+    }
+
+    @Test
+    public void testEveryParameterSetIsBacktestedInParallel() throws Exception {
+
+        final Map<String, List<String>> grid = new HashMap<>();
+        grid.put("sell-at", Arrays.asList("602", "603", "604", "605", "606", "607", "608", "609"));
+        grid.put("quantity", Arrays.asList("0.5", "1", "2"));
+        final ParameterSpace parameterSpace = ParameterSpace.grid(grid);
+        assertEquals(24, parameterSpace.getParameterSets().size());
+
+        final List<OptimisationResult> results = optimiser.optimise(marketData, parameterSpace,
+                Collections.emptyMap());
+
+        assertEquals(24, results.size());
+        final Set<Map<String, String>> parametersTried = new HashSet<>();
+        for (final OptimisationResult result : results) {
+            assertTrue(result.isCompleted());
+            assertEquals(TICK_COUNT, result.getBacktestResult().getTradeCycles());
+            parametersTried.add(result.getParameters());
+        }
+        assertEquals(new HashSet<>(parameterSpace.getParameterSets()), parametersTried);
+
+        // Biggest position, held the longest
+        assertEquals("609", results.get(0).getParameters().get("sell-at"));
+        assertEquals("2", results.get(0).getParameters().get("quantity"));
+        for (int i = 1; i < results.size(); i++) {
+            assertTrue(results.get(i - 1).getBacktestResult().getProfitAndLoss()
+                    .compareTo(results.get(i).getBacktestResult().getProfitAndLoss()) >= 0);
+        }
+    }
+
+    @Test
+    public void testRandomSearchIsRepeatableAndWithinRange() {
+
+        final Map<String, ParameterSpace.Range> ranges = Collections.singletonMap("sell-at",
+                new ParameterSpace.Range(new BigDecimal("602.0"), new BigDecimal("609")));
+        final ParameterSpace parameterSpace = ParameterSpace.random(ranges, 20, 42L);
+
+        assertEquals(20, parameterSpace.getParameterSets().size());
+        assertEquals(parameterSpace.getParameterSets(), ParameterSpace.random(ranges, 20, 42L).getParameterSets());
+        for (final Map<String, String> parameterSet : parameterSpace.getParameterSets()) {
+            final BigDecimal sellAt = new BigDecimal(parameterSet.get("sell-at"));
+            assertEquals(1, sellAt.scale());
+            assertTrue(sellAt.compareTo(new BigDecimal("602")) >= 0);
+            assertTrue(sellAt.compareTo(new BigDecimal("609")) <= 0);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGridWithoutValuesIsRejected() {
+        ParameterSpace.grid(Collections.singletonMap("sell-at", Collections.emptyList()));
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    /*
+     * Buys on the first cycle at the best ask and sells at the best bid once the bid reaches the 'sell-at' config item.
+     */
+    private static final class SellAtTargetStrategy implements TradingStrategy {
+
+        private TradingApi tradingApi;
+        private Market market;
+        private BigDecimal sellAt;
+        private BigDecimal quantity;
+        private boolean bought;
+        private boolean sold;
+
+        @Override
+        public void init(TradingApi tradingApi, Market market, StrategyConfig config) {
+            this.tradingApi = tradingApi;
+            this.market = market;
+            sellAt = new BigDecimal(config.getConfigItem("sell-at"));
+            quantity = new BigDecimal(config.getConfigItem("quantity"));
+        }
+
+        @Override
+        public void execute() throws StrategyException {
+            try {
+                final MarketOrderBook orderBook = tradingApi.getMarketOrders(market.getId());
+                final BigDecimal bestBid = orderBook.getBuyOrders().get(0).getPrice();
+                if (!bought) {
+                    tradingApi.createOrder(market.getId(), OrderType.BUY, quantity,
+                            orderBook.getSellOrders().get(0).getPrice());
+                    bought = true;
+                } else if (!sold && bestBid.compareTo(sellAt) >= 0) {
+                    tradingApi.createOrder(market.getId(), OrderType.SELL, quantity, bestBid);
+                    sold = true;
+                }
+            } catch (Exception e) {
+                throw new StrategyException(e);
+            }
+        }
+    }
+}
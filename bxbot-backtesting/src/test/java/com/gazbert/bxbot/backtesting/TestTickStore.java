@@ -0,0 +1,281 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.backtesting;
+
+import com.gazbert.bxbot.trading.api.MarketOrder;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OrderType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests ticks written to the tick store are read back as they were recorded.
+ *
+ * @author gazbert
+ */
+public class TestTickStore {
+
+    private static final String MARKET_ID = "btc_usd";
+
+    // 2016-10-01T00:00:00Z
+    private static final long DAY_START = 1475280000000L;
+    private static final long ONE_DAY = 24 * 60 * 60 * 1000L;
+    private static final long UNSCALED_ONE = 100_000_000L;
+
+    private Path tickStoreDirectory;
+
+
+    @Before
+    public void setupForEachTest() throws Exception {
+        tickStoreDirectory = Files.createTempDirectory("bxbot-ticks");
+    }
+
+    @After
+    public void tearDownAfterEachTest() throws Exception {
+        try (Stream<Path> files = Files.walk(tickStoreDirectory)) {
+            for (final Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    public void testTicksAreReadBackInOrder() throws Exception {
+
+        try (final TickStoreWriter writer = new TickStoreWriter(tickStoreDirectory, 2, 4)) {
+            writer.append(DAY_START, MARKET_ID, orderBook("600.5:1.25;600:2;599.5:3", "601:0.5"), null);
+            writer.append(DAY_START + 1000, MARKET_ID, orderBook("600:2", "601:0.5;601.25:4"),
+                    new BigDecimal("600.75"));
+        }
+
+        final TickStoreReader reader = new TickStoreReader(tickStoreDirectory, MARKET_ID);
+        assertTrue(reader.advance());
+        assertEquals(DAY_START, reader.getTimestamp());
+        assertEquals(TickStoreReader.NO_PRICE, reader.getLastPrice());
+        assertEquals(2, reader.getLevels());
+        assertEquals(60050000000L, reader.getBidPrice(0));
+        assertEquals(125000000L, reader.getBidQuantity(0));
+        assertEquals(600 * UNSCALED_ONE, reader.getBidPrice(1));
+        assertEquals(601 * UNSCALED_ONE, reader.getAskPrice(0));
+        assertEquals(0, reader.getAskQuantity(1));
+
+        assertTrue(reader.advance());
+        assertEquals(DAY_START + 1000, reader.getTimestamp());
+        assertEquals(60075000000L, reader.getLastPrice());
+        assertEquals(0, reader.getBidQuantity(1));
+        assertEquals(4 * UNSCALED_ONE, reader.getAskQuantity(1));
+
+        assertFalse(reader.advance());
+    }
+
+    @Test
+    public void testNewSegmentIsStartedWhenFullAndEachDay() throws Exception {
+
+        try (final TickStoreWriter writer = new TickStoreWriter(tickStoreDirectory, 1, 2)) {
+            for (int i = 0; i < 5; i++) {
+                writer.append(DAY_START + i, MARKET_ID, orderBook("600:1", "601:1"), null);
+            }
+            writer.append(DAY_START + ONE_DAY, MARKET_ID, orderBook("600:1", "601:1"), null);
+        }
+
+        assertEquals(Arrays.asList("2016-10-01-000.ticks", "2016-10-01-001.ticks", "2016-10-01-002.ticks",
+                "2016-10-02-000.ticks"), segmentFileNames());
+        assertEquals(Arrays.asList(DAY_START, DAY_START + 1, DAY_START + 2, DAY_START + 3, DAY_START + 4,
+                DAY_START + ONE_DAY), readTimestamps());
+    }
+
+    @Test
+    public void testRestartedWriterAppendsToExistingSegment() throws Exception {
+
+        try (final TickStoreWriter writer = new TickStoreWriter(tickStoreDirectory, 1, 4)) {
+            writer.append(DAY_START, MARKET_ID, orderBook("600:1", "601:1"), null);
+            writer.append(DAY_START + 1, MARKET_ID, orderBook("600:1", "601:1"), null);
+        }
+        try (final TickStoreWriter writer = new TickStoreWriter(tickStoreDirectory, 1, 4)) {
+            writer.append(DAY_START + 2, MARKET_ID, orderBook("600:1", "601:1"), null);
+        }
+        assertEquals(Arrays.asList("2016-10-01-000.ticks"), segmentFileNames());
+
+        // Recording more levels cannot use the old segment
+        try (final TickStoreWriter writer = new TickStoreWriter(tickStoreDirectory, 2, 4)) {
+            writer.append(DAY_START + 3, MARKET_ID, orderBook("600:1;599:1", "601:1"), null);
+        }
+        assertEquals(Arrays.asList("2016-10-01-000.ticks", "2016-10-01-001.ticks"), segmentFileNames());
+        assertEquals(Arrays.asList(DAY_START, DAY_START + 1, DAY_START + 2, DAY_START + 3), readTimestamps());
+    }
+
+    @Test
+    public void testTicksAreReplayedAsMarketDataEvents() throws Exception {
+
+        try (final TickStoreWriter writer = new TickStoreWriter(tickStoreDirectory, 2, 8)) {
+            writer.append(DAY_START, MARKET_ID, orderBook("600:2", "601:0.5;601.25:4"), new BigDecimal("600.75"));
+            writer.append(DAY_START + 500, MARKET_ID, null, new BigDecimal("600.80"));
+            writer.append(DAY_START + 600, MARKET_ID, null, null);
+        }
+
+        try (final TickStoreReader reader = new TickStoreReader(tickStoreDirectory, MARKET_ID)) {
+
+            final MarketDataEvent bookEvent = reader.next();
+            assertTrue(bookEvent.isOrderBook());
+            assertEquals(DAY_START, bookEvent.getTimestamp());
+            final MarketOrderBook orderBook = bookEvent.getOrderBook();
+            assertEquals(MARKET_ID, orderBook.getMarketId());
+            assertEquals(1, orderBook.getBuyOrders().size());
+            assertEquals(2, orderBook.getSellOrders().size());
+            assertEquals(0, new BigDecimal("601.25").compareTo(orderBook.getSellOrders().get(1).getPrice()));
+            assertEquals(0, new BigDecimal("4").compareTo(orderBook.getSellOrders().get(1).getQuantity()));
+
+            final MarketDataEvent priceEvent = reader.next();
+            assertFalse(priceEvent.isOrderBook());
+            assertEquals(0, new BigDecimal("600.75").compareTo(priceEvent.getPrice()));
+            assertNull(priceEvent.getQuantity());
+
+            final MarketDataEvent priceOnlyEvent = reader.next();
+            assertFalse(priceOnlyEvent.isOrderBook());
+            assertEquals(DAY_START + 500, priceOnlyEvent.getTimestamp());
+
+            // The last tick has neither
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void testScanAcrossManySegments() throws Exception {
+
+        final int tickCount = 100_000;
+        try (final TickStoreWriter writer = new TickStoreWriter(tickStoreDirectory, 1, 1 << 14)) {
+            for (int i = 0; i < tickCount; i++) {
+                writer.append(DAY_START + i, MARKET_ID, orderBook("600:1", "601:1"), new BigDecimal(i));
+            }
+        }
+
+        final TickStoreReader reader = new TickStoreReader(tickStoreDirectory, MARKET_ID);
+        long ticksRead = 0;
+        long lastPriceTotal = 0;
+        while (reader.advance()) {
+            ticksRead++;
+            lastPriceTotal += reader.getLastPrice() / UNSCALED_ONE;
+        }
+        assertEquals(tickCount, ticksRead);
+        assertEquals((long) tickCount * (tickCount - 1) / 2, lastPriceTotal);
+    }
+
+    @Test
+    public void testReadersOfSharedMappedStoreAreIndependent() throws Exception {
+
+        try (final TickStoreWriter writer = new TickStoreWriter(tickStoreDirectory, 1, 2)) {
+            for (int i = 0; i < 5; i++) {
+                writer.append(DAY_START + i, MARKET_ID, orderBook("600:1", "601:1"), null);
+            }
+        }
+
+        final MappedTickStore tickStore = MappedTickStore.open(tickStoreDirectory, MARKET_ID);
+        assertEquals(MARKET_ID, tickStore.getMarketId());
+        assertEquals(5, tickStore.getTickCount());
+
+        final TickStoreReader reader1 = tickStore.newReader();
+        final TickStoreReader reader2 = tickStore.newReader();
+        assertTrue(reader1.advance());
+        assertTrue(reader1.advance());
+        assertTrue(reader1.advance());
+        assertTrue(reader2.advance());
+        assertEquals(DAY_START + 2, reader1.getTimestamp());
+        assertEquals(DAY_START, reader2.getTimestamp());
+
+        int ticksRead = 1;
+        while (reader2.advance()) {
+            ticksRead++;
+        }
+        assertEquals(5, ticksRead);
+        assertEquals(DAY_START + 2, reader1.getTimestamp());
+    }
+
+    @Test
+    public void testUnknownMarketHasNoTicks() throws Exception {
+        assertFalse(new TickStoreReader(tickStoreDirectory, "ltc_usd").advance());
+    }
+
+    @Test(expected = IOException.class)
+    public void testCorruptSegmentIsRejected() throws Exception {
+
+        final Path marketDirectory = Files.createDirectories(tickStoreDirectory.resolve(MARKET_ID));
+        Files.write(marketDirectory.resolve("2016-10-01-000.ticks"),
+                "not a tick store segment, not even close".getBytes(StandardCharsets.UTF_8));
+        new TickStoreReader(tickStoreDirectory, MARKET_ID).advance();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSegmentOver2GbIsRejected() {
+        new TickStoreWriter(tickStoreDirectory, 100, 1 << 20);
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private static MarketOrderBook orderBook(String bids, String asks) {
+        return new MarketOrderBook(MARKET_ID, priceLevels(OrderType.SELL, asks), priceLevels(OrderType.BUY, bids));
+    }
+
+    private static List<MarketOrder> priceLevels(OrderType orderType, String side) {
+        final List<MarketOrder> priceLevels = new ArrayList<>();
+        for (final String priceLevel : side.split(";")) {
+            final String[] priceAndQuantity = priceLevel.split(":");
+            final BigDecimal price = new BigDecimal(priceAndQuantity[0]);
+            final BigDecimal quantity = new BigDecimal(priceAndQuantity[1]);
+            priceLevels.add(new MarketOrder(orderType, price, quantity, price.multiply(quantity)));
+        }
+        return priceLevels;
+    }
+
+    private List<String> segmentFileNames() throws IOException {
+        try (Stream<Path> files = Files.list(tickStoreDirectory.resolve(MARKET_ID))) {
+            return files.map(file -> file.getFileName().toString()).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private List<Long> readTimestamps() throws IOException {
+        final List<Long> timestamps = new ArrayList<>();
+        final TickStoreReader reader = new TickStoreReader(tickStoreDirectory, MARKET_ID);
+        while (reader.advance()) {
+            timestamps.add(reader.getTimestamp());
+        }
+        return timestamps;
+    }
+}
@@ -24,7 +24,9 @@
 package com.gazbert.bxbot;
 
 import com.gazbert.bxbot.core.engine.TradingEngine;
+import com.gazbert.bxbot.datastore.ConfigurationManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -40,6 +42,12 @@ public class BXBot implements CommandLineRunner {
     @Autowired
     private TradingEngine tradingEngine;
 
+    /*
+     * Set bxbot.config.in-memory-store=true in application.properties to serve config from memory.
+     */
+    @Value("${bxbot.config.in-memory-store:false}")
+    private boolean inMemoryConfigStore;
+
     /*
      * Don't seem to be able to use constructor injection within @SpringBootApplication:
      * http://stackoverflow.com/questions/36696803/spring-boot-no-default-constructor-found-on-springbootapplication-class
@@ -59,6 +67,9 @@ public class BXBot implements CommandLineRunner {
 
     @Override
     public void run(String... strings) throws Exception {
+        if (inMemoryConfigStore) {
+            ConfigurationManager.enableInMemoryConfigStore();
+        }
         tradingEngine.start();
     }
 }
\ No newline at end of file
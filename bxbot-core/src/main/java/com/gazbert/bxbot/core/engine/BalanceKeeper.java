@@ -0,0 +1,423 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.engine;
+
+import com.gazbert.bxbot.trading.api.AsyncTradingApi;
+import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.Market;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps the balances available on an exchange in memory, so the Emergency Stop check does not have to fetch them from
+ * the exchange every trade cycle.
+ * <p>
+ * It wraps the Exchange Adapter and follows the orders placed through it on the markets being traded:
+ * <ul>
+ * <li>Creating a BUY order takes its price * quantity out of the counter currency balance. Creating a SELL order takes
+ * its quantity out of the base currency balance.</li>
+ * <li>Fetching your open orders credits whatever has filled since the order was last seen: a BUY fill adds to the base
+ * currency balance, a SELL fill adds price * quantity to the counter currency balance. An order that is no longer open
+ * has filled.</li>
+ * <li>Cancelling an order gives back what was left of it when it was last seen. Some of that may have filled since,
+ * so a cancel also makes a reconciliation due straight away: the next Emergency Stop check fetches the balances from
+ * the exchange rather than relying on the credit.</li>
+ * </ul>
+ * Exchange fees, fills at better prices and anything done outside of the bot are not seen, so the balances drift. They
+ * are replaced with the exchange's own every reconciliation interval, and the last seen quantity of each order being
+ * followed is replaced with what is open on the exchange at the same time. No other account calls go through the keeper
+ * while it reconciles, so an order placed or cancelled at the same time is counted exactly once.
+ *
+ * @author gazbert
+ */
+final class BalanceKeeper implements AsyncTradingApi {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private final AsyncTradingApi tradingApi;
+    private final long reconciliationIntervalNanos;
+    private final Map<String, Market> markets = new ConcurrentHashMap<>();
+
+    // Account calls hold the read lock; reconciling holds the write lock
+    private final ReadWriteLock reconciliationLock = new ReentrantReadWriteLock();
+
+    // Guarded by this
+    private final Map<String, BigDecimal> balancesAvailable = new HashMap<>();
+    private final Map<String, TrackedOrder> openOrders = new HashMap<>();
+    private long lastReconciledNanos;
+    private boolean isReconciled;
+    private boolean isCancelToReconcile;
+
+
+    BalanceKeeper(AsyncTradingApi tradingApi, long reconciliationIntervalMillis) {
+        if (reconciliationIntervalMillis <= 0) {
+            final String errorMsg = "Balance reconciliation interval must be greater than 0 but was: "
+                    + reconciliationIntervalMillis;
+            LOG.error(errorMsg);
+            throw new IllegalArgumentException(errorMsg);
+        }
+        this.tradingApi = tradingApi;
+        this.reconciliationIntervalNanos = TimeUnit.MILLISECONDS.toNanos(reconciliationIntervalMillis);
+    }
+
+    /**
+     * Starts following the orders placed on a market.
+     *
+     * @param market the market.
+     */
+    void addMarket(Market market) {
+        markets.put(market.getId(), market);
+    }
+
+    /**
+     * Returns true if the balances have never been reconciled, an order has been cancelled since they last were, or
+     * the reconciliation interval has passed since they last were.
+     *
+     * @return true if the balances should be fetched from the exchange.
+     */
+    synchronized boolean isReconciliationDue() {
+        return !isReconciled || isCancelToReconcile
+                || System.nanoTime() - lastReconciledNanos >= reconciliationIntervalNanos;
+    }
+
+    /**
+     * Fetches the balances and the open orders on the markets being followed from the exchange, and replaces the ones
+     * kept in memory with them. Nothing is replaced if either fetch fails.
+     * <p>
+     * The balances are fetched first: an order that fills before its open orders are fetched is not credited until
+     * the next reconciliation, but is never credited twice.
+     *
+     * @throws ExchangeNetworkException if a request to the exchange has timed out.
+     * @throws TradingApiException      if an unexpected error occurred contacting the exchange.
+     */
+    void reconcile() throws ExchangeNetworkException, TradingApiException {
+
+        reconciliationLock.writeLock().lock();
+        try {
+            final BalanceInfo balanceInfo = tradingApi.getBalanceInfo();
+            final Map<String, List<OpenOrder>> yourOpenOrdersByMarket = new HashMap<>();
+            for (final String marketId : getTrackedMarketIds()) {
+                yourOpenOrdersByMarket.put(marketId, tradingApi.getYourOpenOrders(marketId));
+            }
+
+            synchronized (this) {
+                replaceBalances(balanceInfo.getBalancesAvailable());
+                replaceQuantitiesRemaining(yourOpenOrdersByMarket);
+                lastReconciledNanos = System.nanoTime();
+                isReconciled = true;
+                isCancelToReconcile = false;
+            }
+        } finally {
+            reconciliationLock.writeLock().unlock();
+        }
+    }
+
+    private void replaceBalances(Map<String, BigDecimal> exchangeBalances) {
+
+        if (isReconciled) {
+            for (final Map.Entry<String, BigDecimal> balance : balancesAvailable.entrySet()) {
+                final BigDecimal exchangeBalance = exchangeBalances.get(balance.getKey());
+                if (exchangeBalance != null && exchangeBalance.compareTo(balance.getValue()) != 0) {
+                    LOG.info(() -> balance.getKey() + " balance kept in memory was " + balance.getValue()
+                            + " - reconciled to " + exchangeBalance + " on " + tradingApi.getImplName());
+                }
+            }
+        }
+
+        balancesAvailable.clear();
+        balancesAvailable.putAll(exchangeBalances);
+    }
+
+    private void replaceQuantitiesRemaining(Map<String, List<OpenOrder>> yourOpenOrdersByMarket) {
+
+        final Map<String, OpenOrder> yourOpenOrdersById = new HashMap<>();
+        for (final List<OpenOrder> yourOpenOrders : yourOpenOrdersByMarket.values()) {
+            for (final OpenOrder openOrder : yourOpenOrders) {
+                yourOpenOrdersById.put(openOrder.getId(), openOrder);
+            }
+        }
+
+        // What has filled is already in the exchange's balances
+        openOrders.entrySet().removeIf(trackedOrder -> {
+            final OpenOrder openOrder = yourOpenOrdersById.get(trackedOrder.getKey());
+            if (openOrder == null) {
+                return true;
+            }
+            trackedOrder.getValue().quantityRemaining = openOrder.getQuantity();
+            return false;
+        });
+    }
+
+    /**
+     * Returns a copy of the balances available, as kept in memory.
+     *
+     * @return the balances available, keyed by currency.
+     */
+    synchronized Map<String, BigDecimal> getBalancesAvailable() {
+        return new HashMap<>(balancesAvailable);
+    }
+
+    /**
+     * Returns true once the balances have been fetched from the exchange.
+     *
+     * @return true if the balances have been reconciled at least once.
+     */
+    synchronized boolean isReconciled() {
+        return isReconciled;
+    }
+
+    @Override
+    public String getVersion() {
+        return tradingApi.getVersion();
+    }
+
+    @Override
+    public String getImplName() {
+        return tradingApi.getImplName();
+    }
+
+    @Override
+    public MarketOrderBook getMarketOrders(String marketId) throws ExchangeNetworkException, TradingApiException {
+        return tradingApi.getMarketOrders(marketId);
+    }
+
+    @Override
+    public MarketOrderBook getMarketOrders(String marketId, int depth)
+            throws ExchangeNetworkException, TradingApiException {
+        return tradingApi.getMarketOrders(marketId, depth);
+    }
+
+    @Override
+    public MarketOrderBook getTopOfBook(String marketId) throws ExchangeNetworkException, TradingApiException {
+        return tradingApi.getTopOfBook(marketId);
+    }
+
+    @Override
+    public BigDecimal getLatestMarketPrice(String marketId) throws ExchangeNetworkException, TradingApiException {
+        return tradingApi.getLatestMarketPrice(marketId);
+    }
+
+    @Override
+    public List<OpenOrder> getYourOpenOrders(String marketId) throws ExchangeNetworkException, TradingApiException {
+
+        reconciliationLock.readLock().lock();
+        try {
+            // Only orders placed before the call can be missing from its result because they have filled
+            final Set<String> orderIdsBeforeCall = getOpenOrderIds(marketId);
+            final List<OpenOrder> yourOpenOrders = tradingApi.getYourOpenOrders(marketId);
+            updateFills(orderIdsBeforeCall, yourOpenOrders);
+            return yourOpenOrders;
+        } finally {
+            reconciliationLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public String createOrder(String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price)
+            throws ExchangeNetworkException, TradingApiException {
+
+        reconciliationLock.readLock().lock();
+        try {
+            final String orderId = tradingApi.createOrder(marketId, orderType, quantity, price);
+            final Market market = markets.get(marketId);
+            if (market != null) {
+                synchronized (this) {
+                    final TrackedOrder order = new TrackedOrder(market, orderType, price, quantity);
+                    openOrders.put(orderId, order);
+                    if (orderType == OrderType.BUY) {
+                        addToBalance(market.getCounterCurrency(), price.multiply(quantity).negate());
+                    } else {
+                        addToBalance(market.getBaseCurrency(), quantity.negate());
+                    }
+                }
+            }
+            return orderId;
+        } finally {
+            reconciliationLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean cancelOrder(String orderId, String marketId) throws ExchangeNetworkException, TradingApiException {
+
+        reconciliationLock.readLock().lock();
+        try {
+            final boolean isCancelled = tradingApi.cancelOrder(orderId, marketId);
+            if (isCancelled) {
+                synchronized (this) {
+                    final TrackedOrder order = openOrders.remove(orderId);
+                    if (order != null) {
+                        // the quantity remaining can predate a fill, so don't rely on it for long
+                        isCancelToReconcile = true;
+                        if (order.type == OrderType.BUY) {
+                            addToBalance(order.market.getCounterCurrency(),
+                                    order.price.multiply(order.quantityRemaining));
+                        } else {
+                            addToBalance(order.market.getBaseCurrency(), order.quantityRemaining);
+                        }
+                    }
+                }
+            }
+            return isCancelled;
+        } finally {
+            reconciliationLock.readLock().unlock();
+        }
+    }
+
+    /*
+     * The other account calls also wait for a reconciliation to finish: the reconciliation calls the adapter directly,
+     * and must not overlap calls signed with the next nonce - see the SharedTradingApi.
+     */
+    @Override
+    public BalanceInfo getBalanceInfo() throws ExchangeNetworkException, TradingApiException {
+        reconciliationLock.readLock().lock();
+        try {
+            return tradingApi.getBalanceInfo();
+        } finally {
+            reconciliationLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public BigDecimal getPercentageOfBuyOrderTakenForExchangeFee(String marketId)
+            throws TradingApiException, ExchangeNetworkException {
+        reconciliationLock.readLock().lock();
+        try {
+            return tradingApi.getPercentageOfBuyOrderTakenForExchangeFee(marketId);
+        } finally {
+            reconciliationLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public BigDecimal getPercentageOfSellOrderTakenForExchangeFee(String marketId)
+            throws TradingApiException, ExchangeNetworkException {
+        reconciliationLock.readLock().lock();
+        try {
+            return tradingApi.getPercentageOfSellOrderTakenForExchangeFee(marketId);
+        } finally {
+            reconciliationLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Executor getPublicApiExecutor() {
+        return tradingApi.getPublicApiExecutor();
+    }
+
+    @Override
+    public Executor getAuthenticatedApiExecutor() {
+        return tradingApi.getAuthenticatedApiExecutor();
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private synchronized Set<String> getTrackedMarketIds() {
+        final Set<String> marketIds = new HashSet<>();
+        openOrders.values().forEach(order -> marketIds.add(order.market.getId()));
+        return marketIds;
+    }
+
+    private synchronized Set<String> getOpenOrderIds(String marketId) {
+        final Set<String> orderIds = new HashSet<>();
+        openOrders.forEach((orderId, order) -> {
+            if (order.market.getId().equals(marketId)) {
+                orderIds.add(orderId);
+            }
+        });
+        return orderIds;
+    }
+
+    private synchronized void updateFills(Set<String> orderIdsBeforeCall, List<OpenOrder> yourOpenOrders) {
+
+        final Map<String, OpenOrder> yourOpenOrdersById = new HashMap<>();
+        for (final OpenOrder openOrder : yourOpenOrders) {
+            yourOpenOrdersById.put(openOrder.getId(), openOrder);
+        }
+
+        for (final String orderId : orderIdsBeforeCall) {
+            final TrackedOrder order = openOrders.get(orderId);
+            if (order == null) {
+                continue; // cancelled while the open orders were being fetched
+            }
+
+            final OpenOrder openOrder = yourOpenOrdersById.get(orderId);
+            final BigDecimal quantityRemaining = openOrder == null ? BigDecimal.ZERO : openOrder.getQuantity();
+            final BigDecimal quantityFilled = order.quantityRemaining.subtract(quantityRemaining);
+            if (quantityFilled.signum() > 0) {
+                if (order.type == OrderType.BUY) {
+                    addToBalance(order.market.getBaseCurrency(), quantityFilled);
+                } else {
+                    addToBalance(order.market.getCounterCurrency(), order.price.multiply(quantityFilled));
+                }
+                order.quantityRemaining = quantityRemaining;
+            }
+
+            if (openOrder == null) {
+                openOrders.remove(orderId);
+            }
+        }
+    }
+
+    private void addToBalance(String currency, BigDecimal amount) {
+        balancesAvailable.merge(currency, amount, BigDecimal::add);
+    }
+
+    /*
+     * An order placed through the keeper that was still open when last seen.
+     */
+    private static final class TrackedOrder {
+
+        private final Market market;
+        private final OrderType type;
+        private final BigDecimal price;
+        private BigDecimal quantityRemaining;
+
+        TrackedOrder(Market market, OrderType type, BigDecimal price, BigDecimal quantity) {
+            this.market = market;
+            this.type = type;
+            this.price = price;
+            this.quantityRemaining = quantity;
+        }
+    }
+}
@@ -0,0 +1,361 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.engine;
+
+import com.gazbert.bxbot.trading.api.AsyncTradingApi;
+import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Trading API handed to Trading Strategies when request coalescing or caching has been configured.
+ * <p>
+ * Each {@link CachedCall} can be given its own freshness window. Identical calls that are made while one is already
+ * in flight wait for it and share its result instead of making their own call to the exchange. The result is then
+ * reused until its freshness window has passed; a window of 0 only shares calls that overlap. Failures are shared
+ * with the callers that were waiting, but are never reused after that. Calls without a window, and open orders,
+ * always go straight through.
+ * <p>
+ * Creating or cancelling an order drops any cached balances and the cached market data for its market, so a strategy
+ * never sees its balance or the order book from before its own order. So does fetching your open orders and finding
+ * that 1 has filled since they were last fetched for the market, i.e. it has gone or its quantity has dropped.
+ * Cached exchange fees are kept.
+ * <p>
+ * The results are shared between callers, so Trading Strategies must not modify them.
+ *
+ * @author gazbert
+ */
+final class CoalescingTradingApi implements AsyncTradingApi {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * The Trading API calls that can be coalesced and cached.
+     */
+    enum CachedCall {
+        MARKET_ORDERS,
+        TOP_OF_BOOK,
+        LATEST_MARKET_PRICE,
+        BALANCE_INFO,
+        BUY_ORDER_FEE,
+        SELL_ORDER_FEE
+    }
+
+    private final AsyncTradingApi tradingApi;
+    private final Map<CachedCall, Long> freshnessWindowsNanos = new EnumMap<>(CachedCall.class);
+    private final ConcurrentMap<RequestKey, Flight<?>> flights = new ConcurrentHashMap<>();
+
+    // The quantity of each of your open orders when last fetched, keyed by market then order id
+    private final ConcurrentMap<String, Map<String, BigDecimal>> lastSeenOpenOrders = new ConcurrentHashMap<>();
+
+
+    CoalescingTradingApi(AsyncTradingApi tradingApi, Map<CachedCall, Long> freshnessWindowsMillis) {
+        this.tradingApi = tradingApi;
+        for (final Map.Entry<CachedCall, Long> freshnessWindow : freshnessWindowsMillis.entrySet()) {
+            if (freshnessWindow.getValue() < 0) {
+                final String errorMsg = "Freshness window for " + freshnessWindow.getKey() + " cannot be negative: "
+                        + freshnessWindow.getValue();
+                LOG.error(errorMsg);
+                throw new IllegalArgumentException(errorMsg);
+            }
+            freshnessWindowsNanos.put(freshnessWindow.getKey(), TimeUnit.MILLISECONDS.toNanos(freshnessWindow.getValue()));
+        }
+    }
+
+    @Override
+    public String getVersion() {
+        return tradingApi.getVersion();
+    }
+
+    @Override
+    public String getImplName() {
+        return tradingApi.getImplName();
+    }
+
+    @Override
+    public MarketOrderBook getMarketOrders(String marketId) throws ExchangeNetworkException, TradingApiException {
+        return coalesce(new RequestKey(CachedCall.MARKET_ORDERS, marketId, 0),
+                () -> tradingApi.getMarketOrders(marketId));
+    }
+
+    @Override
+    public MarketOrderBook getMarketOrders(String marketId, int depth)
+            throws ExchangeNetworkException, TradingApiException {
+        return coalesce(new RequestKey(CachedCall.MARKET_ORDERS, marketId, depth),
+                () -> tradingApi.getMarketOrders(marketId, depth));
+    }
+
+    @Override
+    public MarketOrderBook getTopOfBook(String marketId) throws ExchangeNetworkException, TradingApiException {
+        return coalesce(new RequestKey(CachedCall.TOP_OF_BOOK, marketId, 0), () -> tradingApi.getTopOfBook(marketId));
+    }
+
+    @Override
+    public BigDecimal getLatestMarketPrice(String marketId) throws ExchangeNetworkException, TradingApiException {
+        return coalesce(new RequestKey(CachedCall.LATEST_MARKET_PRICE, marketId, 0),
+                () -> tradingApi.getLatestMarketPrice(marketId));
+    }
+
+    @Override
+    public List<OpenOrder> getYourOpenOrders(String marketId) throws ExchangeNetworkException, TradingApiException {
+
+        final List<OpenOrder> yourOpenOrders = tradingApi.getYourOpenOrders(marketId);
+
+        final Map<String, BigDecimal> quantities = new HashMap<>();
+        for (final OpenOrder openOrder : yourOpenOrders) {
+            quantities.put(openOrder.getId(), openOrder.getQuantity());
+        }
+        final Map<String, BigDecimal> lastSeenQuantities = lastSeenOpenOrders.put(marketId, quantities);
+        if (lastSeenQuantities != null && hasFilled(lastSeenQuantities, quantities)) {
+            LOG.debug(() -> "An open order on " + marketId + " has filled - dropping results it has changed");
+            dropResultsChangedByOrderOn(marketId);
+        }
+        return yourOpenOrders;
+    }
+
+    @Override
+    public String createOrder(String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price)
+            throws ExchangeNetworkException, TradingApiException {
+        try {
+            return tradingApi.createOrder(marketId, orderType, quantity, price);
+        } finally {
+            dropResultsChangedByOrderOn(marketId);
+        }
+    }
+
+    @Override
+    public boolean cancelOrder(String orderId, String marketId) throws ExchangeNetworkException, TradingApiException {
+        try {
+            return tradingApi.cancelOrder(orderId, marketId);
+        } finally {
+            dropResultsChangedByOrderOn(marketId);
+        }
+    }
+
+    @Override
+    public BalanceInfo getBalanceInfo() throws ExchangeNetworkException, TradingApiException {
+        return coalesce(new RequestKey(CachedCall.BALANCE_INFO, null, 0), tradingApi::getBalanceInfo);
+    }
+
+    @Override
+    public BigDecimal getPercentageOfBuyOrderTakenForExchangeFee(String marketId)
+            throws TradingApiException, ExchangeNetworkException {
+        return coalesce(new RequestKey(CachedCall.BUY_ORDER_FEE, marketId, 0),
+                () -> tradingApi.getPercentageOfBuyOrderTakenForExchangeFee(marketId));
+    }
+
+    @Override
+    public BigDecimal getPercentageOfSellOrderTakenForExchangeFee(String marketId)
+            throws TradingApiException, ExchangeNetworkException {
+        return coalesce(new RequestKey(CachedCall.SELL_ORDER_FEE, marketId, 0),
+                () -> tradingApi.getPercentageOfSellOrderTakenForExchangeFee(marketId));
+    }
+
+    @Override
+    public Executor getPublicApiExecutor() {
+        return tradingApi.getPublicApiExecutor();
+    }
+
+    @Override
+    public Executor getAuthenticatedApiExecutor() {
+        return tradingApi.getAuthenticatedApiExecutor();
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    /*
+     * The first caller for a key makes the call on its own thread; everyone else waits on its flight. A flight that
+     * has failed, or completed longer ago than the freshness window, is replaced by the next caller.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T coalesce(RequestKey key, AsyncTradingApi.TradingApiCall<T> call)
+            throws ExchangeNetworkException, TradingApiException {
+
+        final Long freshnessWindowNanos = freshnessWindowsNanos.get(key.call);
+        if (freshnessWindowNanos == null) {
+            return call.call();
+        }
+
+        while (true) {
+            final Flight<T> current = (Flight<T>) flights.get(key);
+            if (current != null && current.isFresh(freshnessWindowNanos)) {
+                LOG.debug(() -> "Sharing in flight or recent result for " + key);
+                return current.await(key);
+            }
+
+            final Flight<T> flight = new Flight<>();
+            final boolean isLeader = current == null
+                    ? flights.putIfAbsent(key, flight) == null
+                    : flights.replace(key, current, flight);
+            if (isLeader) {
+                if (!flight.run(call)) {
+                    flights.remove(key, flight);
+                }
+                return flight.await(key);
+            }
+            // another caller got in first - go round and join its flight
+        }
+    }
+
+    private static boolean hasFilled(Map<String, BigDecimal> lastSeenQuantities, Map<String, BigDecimal> quantities) {
+        for (final Map.Entry<String, BigDecimal> lastSeen : lastSeenQuantities.entrySet()) {
+            if (!quantities.containsKey(lastSeen.getKey())) {
+                return true;
+            }
+            final BigDecimal quantity = quantities.get(lastSeen.getKey());
+            if (quantity != null && lastSeen.getValue() != null && quantity.compareTo(lastSeen.getValue()) < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void dropResultsChangedByOrderOn(String marketId) {
+        flights.keySet().removeIf(key -> key.isChangedByOrderOn(marketId));
+    }
+
+    /*
+     * Identifies a call and its arguments.
+     */
+    private static final class RequestKey {
+
+        private final CachedCall call;
+        private final String marketId;
+        private final int depth;
+
+        RequestKey(CachedCall call, String marketId, int depth) {
+            this.call = call;
+            this.marketId = marketId;
+            this.depth = depth;
+        }
+
+        boolean isChangedByOrderOn(String orderMarketId) {
+            switch (call) {
+                case BALANCE_INFO:
+                    return true;
+                case BUY_ORDER_FEE:
+                case SELL_ORDER_FEE:
+                    return false;
+                default:
+                    return Objects.equals(marketId, orderMarketId);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final RequestKey that = (RequestKey) o;
+            return call == that.call && depth == that.depth && Objects.equals(marketId, that.marketId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(call, marketId, depth);
+        }
+
+        @Override
+        public String toString() {
+            return call + (marketId == null ? "" : " " + marketId) + (depth == 0 ? "" : " depth " + depth);
+        }
+    }
+
+    /*
+     * A call to the exchange and the result everyone who asked for it while it was fresh gets.
+     */
+    private static final class Flight<T> {
+
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private volatile long completedAt;
+
+        boolean run(AsyncTradingApi.TradingApiCall<T> call) {
+            try {
+                final T value = call.call();
+                completedAt = System.nanoTime();
+                return result.complete(value);
+            } catch (Throwable e) {
+                // Catch everything - the callers waiting on this flight must never be left hanging.
+                completedAt = System.nanoTime();
+                result.completeExceptionally(e);
+                return false;
+            }
+        }
+
+        boolean isFresh(long freshnessWindowNanos) {
+            if (!result.isDone()) {
+                return true;
+            }
+            return !result.isCompletedExceptionally() && System.nanoTime() - completedAt <= freshnessWindowNanos;
+        }
+
+        /*
+         * Waits interruptibly so a strategy that has timed out can be stopped while waiting on another strategy's call.
+         * Being interrupted is reported as a network error so the strategy does not treat it as fatal.
+         */
+        T await(RequestKey key) throws ExchangeNetworkException, TradingApiException {
+            try {
+                return result.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                final String errorMsg = "Interrupted while waiting for the result of " + key;
+                LOG.warn(errorMsg);
+                throw new ExchangeNetworkException(errorMsg, e);
+            } catch (ExecutionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof ExchangeNetworkException) {
+                    throw (ExchangeNetworkException) cause;
+                } else if (cause instanceof TradingApiException) {
+                    throw (TradingApiException) cause;
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                final String errorMsg = "Unexpected failure getting the result of " + key;
+                LOG.error(errorMsg, cause);
+                throw new TradingApiException(errorMsg, cause);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.engine;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the latest Emergency Stop check result for the markets that trade off the engine thread.
+ * <p>
+ * The engine opens the gate for a limited time each time the check for the exchange passes, and closes it when the
+ * check fails or cannot be made. If the engine does not open it again before that time is up, e.g. because it has
+ * stalled, the gate closes by itself - a market on its own timeline never trades on a check result that is too old.
+ * <p>
+ * Until it is first opened or closed, the gate is open; the engine opens it before starting any timelines.
+ *
+ * @author gazbert
+ */
+final class EmergencyStopGate {
+
+    private static final long NEVER_SET = Long.MIN_VALUE;
+
+    // System.nanoTime() the gate is open until
+    private volatile long openUntil = NEVER_SET;
+
+
+    /**
+     * Opens the gate for the given time, after the Emergency Stop check has passed.
+     *
+     * @param millis how long the check result can be relied on for.
+     */
+    void openFor(long millis) {
+        openUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    /**
+     * Closes the gate, after the Emergency Stop check has failed or could not be made.
+     */
+    void close() {
+        openUntil = System.nanoTime();
+    }
+
+    /**
+     * @return true if the markets can trade.
+     */
+    boolean isOpen() {
+        final long until = openUntil;
+        return until == NEVER_SET || System.nanoTime() - until < 0;
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.engine;
+
+import com.gazbert.bxbot.trading.api.AsyncTradingApi;
+import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * The Trading API of another exchange handed to a multi-exchange Trading Strategy.
+ * <p>
+ * The strategy is executed when the Emergency Stop check for its own market's exchange passes, but it also trades on
+ * the other exchanges. While the check for this exchange has failed or could not be made, every call is refused with
+ * an {@link ExchangeNetworkException}, so the strategy leaves this exchange out until its next check passes.
+ *
+ * @author gazbert
+ */
+final class GatedTradingApi implements AsyncTradingApi {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private final AsyncTradingApi tradingApi;
+    private final EmergencyStopGate emergencyStopGate;
+
+
+    GatedTradingApi(AsyncTradingApi tradingApi, EmergencyStopGate emergencyStopGate) {
+        this.tradingApi = tradingApi;
+        this.emergencyStopGate = emergencyStopGate;
+    }
+
+    @Override
+    public String getVersion() {
+        return tradingApi.getVersion();
+    }
+
+    @Override
+    public String getImplName() {
+        return tradingApi.getImplName();
+    }
+
+    @Override
+    public MarketOrderBook getMarketOrders(String marketId) throws ExchangeNetworkException, TradingApiException {
+        checkGateIsOpen();
+        return tradingApi.getMarketOrders(marketId);
+    }
+
+    @Override
+    public MarketOrderBook getMarketOrders(String marketId, int depth)
+            throws ExchangeNetworkException, TradingApiException {
+        checkGateIsOpen();
+        return tradingApi.getMarketOrders(marketId, depth);
+    }
+
+    @Override
+    public MarketOrderBook getTopOfBook(String marketId) throws ExchangeNetworkException, TradingApiException {
+        checkGateIsOpen();
+        return tradingApi.getTopOfBook(marketId);
+    }
+
+    @Override
+    public BigDecimal getLatestMarketPrice(String marketId) throws ExchangeNetworkException, TradingApiException {
+        checkGateIsOpen();
+        return tradingApi.getLatestMarketPrice(marketId);
+    }
+
+    @Override
+    public List<OpenOrder> getYourOpenOrders(String marketId) throws ExchangeNetworkException, TradingApiException {
+        checkGateIsOpen();
+        return tradingApi.getYourOpenOrders(marketId);
+    }
+
+    @Override
+    public String createOrder(String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price)
+            throws ExchangeNetworkException, TradingApiException {
+        checkGateIsOpen();
+        return tradingApi.createOrder(marketId, orderType, quantity, price);
+    }
+
+    @Override
+    public boolean cancelOrder(String orderId, String marketId) throws ExchangeNetworkException, TradingApiException {
+        checkGateIsOpen();
+        return tradingApi.cancelOrder(orderId, marketId);
+    }
+
+    @Override
+    public BalanceInfo getBalanceInfo() throws ExchangeNetworkException, TradingApiException {
+        checkGateIsOpen();
+        return tradingApi.getBalanceInfo();
+    }
+
+    @Override
+    public BigDecimal getPercentageOfBuyOrderTakenForExchangeFee(String marketId)
+            throws TradingApiException, ExchangeNetworkException {
+        checkGateIsOpen();
+        return tradingApi.getPercentageOfBuyOrderTakenForExchangeFee(marketId);
+    }
+
+    @Override
+    public BigDecimal getPercentageOfSellOrderTakenForExchangeFee(String marketId)
+            throws TradingApiException, ExchangeNetworkException {
+        checkGateIsOpen();
+        return tradingApi.getPercentageOfSellOrderTakenForExchangeFee(marketId);
+    }
+
+    @Override
+    public Executor getPublicApiExecutor() {
+        return tradingApi.getPublicApiExecutor();
+    }
+
+    @Override
+    public Executor getAuthenticatedApiExecutor() {
+        return tradingApi.getAuthenticatedApiExecutor();
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    /*
+     * Reported as a network error so the strategy waits for the exchange to come back rather than treating it as fatal.
+     */
+    private void checkGateIsOpen() throws ExchangeNetworkException {
+        if (!emergencyStopGate.isOpen()) {
+            final String errorMsg = "The Emergency Stop check for " + tradingApi.getImplName()
+                    + " has not passed - it is not being traded until it does";
+            LOG.warn(errorMsg);
+            throw new ExchangeNetworkException(errorMsg);
+        }
+    }
+}
@@ -0,0 +1,534 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.engine;
+
+import com.gazbert.bxbot.strategy.api.EventDrivenTradingStrategy;
+import com.gazbert.bxbot.strategy.api.StrategyConfig;
+import com.gazbert.bxbot.strategy.api.StrategyException;
+import com.gazbert.bxbot.strategy.api.TradingStrategy;
+import com.gazbert.bxbot.trading.api.AsyncTradingApi;
+import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.Market;
+import com.gazbert.bxbot.trading.api.MarketOrder;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.gazbert.bxbot.trading.api.TradingApi;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Watches the markets of {@link EventDrivenTradingStrategy}s and calls their callbacks when something changes.
+ * <p>
+ * Every poll interval, each market's order book, latest price and the strategy's open orders are fetched through the
+ * Trading API and compared with the last ones seen. The first poll only records what is there. The fetching is done
+ * outside of the strategy's lock, so a slow exchange never holds up the strategy's trade cycle.
+ * <p>
+ * The strategy handed back by {@link #watch(EventDrivenTradingStrategy, Market, AsyncTradingApi)} must be executed
+ * in place of the original: it shares a lock with the callbacks, so a strategy is never called by 2 threads at the same
+ * time. The Trading API handed back must be used to initialise the strategy: it records the orders the strategy has
+ * cancelled, so they can be told apart from fills.
+ * <p>
+ * A network error while polling is logged and the market is polled again next interval. Any other failure stops all
+ * the watches and is held for the Trading Engine to pick up by calling {@link #checkForFailure()}, in the same way as
+ * the {@link MarketScheduler}.
+ * <p>
+ * Like the {@link MarketScheduler}, markets can be watched after the dispatcher has started, and each watch can be
+ * paused or cancelled on its own. Also like the scheduler, the strategies are only called back while their exchange's
+ * latest Emergency Stop check has passed - see {@link #allowTradingFor(long)}. While it has not, every watch behaves
+ * as if it were paused.
+ *
+ * @author gazbert
+ */
+final class MarketEventDispatcher {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final long pollIntervalMillis;
+    private final Runnable failureListener;
+    private final List<MarketWatch> watches = new ArrayList<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final EmergencyStopGate emergencyStopGate = new EmergencyStopGate();
+    private volatile boolean stopped;
+    private boolean started;
+
+
+    MarketEventDispatcher(int threadCount, long pollIntervalMillis, Runnable failureListener) {
+
+        if (threadCount < 1) {
+            final String errorMsg = "Market event thread count must be 1 or more: " + threadCount;
+            LOG.error(errorMsg);
+            throw new IllegalArgumentException(errorMsg);
+        }
+
+        if (pollIntervalMillis < 1) {
+            final String errorMsg = "Market event poll interval must be 1 millis or more: " + pollIntervalMillis;
+            LOG.error(errorMsg);
+            throw new IllegalArgumentException(errorMsg);
+        }
+
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.failureListener = failureListener;
+        scheduler = new ScheduledThreadPoolExecutor(threadCount, new DaemonThreadFactory("market-events"));
+        scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Adds a strategy's market to be watched once the dispatcher is started. If the dispatcher has already started, the
+     * market is polled straight away.
+     *
+     * @param tradingStrategy the event driven strategy.
+     * @param market          the strategy's market.
+     * @param tradingApi      the Trading API to fetch the market events with.
+     * @return the watch, holding the Trading API to initialise the strategy with and the strategy to execute.
+     */
+    MarketWatch watch(EventDrivenTradingStrategy tradingStrategy, Market market, AsyncTradingApi tradingApi) {
+
+        final MarketWatch watch = new MarketWatch(tradingStrategy, market, tradingApi);
+        watches.add(watch);
+        if (started) {
+            watch.start();
+        }
+        return watch;
+    }
+
+    /**
+     * Starts polling every watched market. Does nothing if already started.
+     */
+    void start() {
+
+        if (started) {
+            return;
+        }
+        started = true;
+
+        for (final MarketWatch watch : watches) {
+            watch.start();
+        }
+    }
+
+    /**
+     * Lets the strategies be called back for the given time, after the Emergency Stop check for their exchange has
+     * passed. If it is not called again before the time is up, the watches are held until it is.
+     *
+     * @param millis how long the check result can be relied on for.
+     */
+    void allowTradingFor(long millis) {
+        emergencyStopGate.openFor(millis);
+    }
+
+    /**
+     * Stops the strategies being called back until {@link #allowTradingFor(long)} is next called, after the Emergency
+     * Stop check has failed or could not be made.
+     */
+    void holdTrading() {
+        emergencyStopGate.close();
+    }
+
+    /**
+     * Rethrows the first failure from a watched market, if there has been one.
+     *
+     * @throws StrategyException if a strategy callback threw a StrategyException, or the Trading API failed.
+     * @throws RuntimeException  if a strategy callback threw an unexpected exception; it is rethrown as-is.
+     */
+    void checkForFailure() throws StrategyException {
+        final Throwable firstFailure = failure.get();
+        if (firstFailure != null) {
+            ParallelStrategyExecutor.rethrowStrategyFailure(firstFailure);
+        }
+    }
+
+    /**
+     * Stops watching the markets and interrupts any callbacks still running.
+     */
+    void shutdown() {
+        stopped = true;
+        scheduler.shutdownNow();
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Inner classes
+    // ------------------------------------------------------------------------------------------------
+
+    /**
+     * A watched market and the strategy that is told about its events.
+     */
+    final class MarketWatch implements Runnable {
+
+        private final EventDrivenTradingStrategy tradingStrategy;
+        private final Market market;
+        private final AsyncTradingApi tradingApi;
+        private final Lock strategyLock = new ReentrantLock();
+        private final Set<String> cancelledOrderIds = ConcurrentHashMap.newKeySet();
+        private final CancelTrackingTradingApi strategyTradingApi;
+        private final GuardedTradingStrategy guardedTradingStrategy;
+        private volatile boolean paused;
+        private volatile boolean cancelled;
+
+        // only touched by the thread running the poll; the scheduler's hand-off makes it visible to the next one
+        private MarketOrderBook lastOrderBook;
+        private BigDecimal lastMarketPrice;
+        private Map<String, OpenOrder> lastOpenOrders;
+        private boolean held;
+
+        MarketWatch(EventDrivenTradingStrategy tradingStrategy, Market market, AsyncTradingApi tradingApi) {
+            this.tradingStrategy = tradingStrategy;
+            this.market = market;
+            this.tradingApi = tradingApi;
+            strategyTradingApi = new CancelTrackingTradingApi(tradingApi, cancelledOrderIds);
+            guardedTradingStrategy = new GuardedTradingStrategy(tradingStrategy, strategyLock);
+        }
+
+        /**
+         * @return the Trading API to initialise the strategy with.
+         */
+        AsyncTradingApi getTradingApi() {
+            return strategyTradingApi;
+        }
+
+        /**
+         * @return the strategy to execute in place of the original.
+         */
+        TradingStrategy getTradingStrategy() {
+            return guardedTradingStrategy;
+        }
+
+        /**
+         * Stops or resumes calling back the strategy. The first poll after resuming only records what is there, so
+         * the strategy is not told about everything that changed while it was paused.
+         *
+         * @param paused true to stop calling back the strategy, false to resume.
+         */
+        void setPaused(boolean paused) {
+            this.paused = paused;
+        }
+
+        /**
+         * Stops watching the market. If a callback is running, waits for it to finish, so the strategy is never called
+         * back once this returns.
+         */
+        void cancel() {
+            strategyLock.lock();
+            try {
+                cancelled = true;
+                watches.remove(this);
+            } finally {
+                strategyLock.unlock();
+            }
+        }
+
+        private void start() {
+            LOG.info(() -> "Watching market " + market.getName() + " for events every " + pollIntervalMillis + "ms");
+            scheduleNextPoll(0);
+        }
+
+        @Override
+        public void run() {
+
+            if (stopped || cancelled) {
+                return;
+            }
+
+            if (!paused && !emergencyStopGate.isOpen()) {
+                if (!held) {
+                    LOG.warn(() -> "No recent passing Emergency Stop check - holding market events for "
+                            + market.getName());
+                }
+                held = true;
+            } else {
+                held = false;
+            }
+
+            if (paused || held) {
+                lastOpenOrders = null;
+                scheduleNextPoll(pollIntervalMillis);
+                return;
+            }
+
+            try {
+                poll();
+
+            } catch (ExchangeNetworkException e) {
+                LOG.warn("Failed to fetch market events for " + market.getName() + " - will try again in "
+                        + pollIntervalMillis + "ms", e);
+
+            } catch (InterruptedException e) {
+                // being shutdown
+                Thread.currentThread().interrupt();
+                return;
+
+            } catch (Throwable t) {
+                LOG.error("Market events for " + market.getName() + " failed - stopping all market watches", t);
+                if (failure.compareAndSet(null, t)) {
+                    stopped = true;
+                    failureListener.run();
+                }
+                return;
+            }
+
+            scheduleNextPoll(pollIntervalMillis);
+        }
+
+        private void scheduleNextPoll(long delayMillis) {
+            if (stopped || cancelled) {
+                return;
+            }
+            try {
+                scheduler.schedule(this, delayMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // raced with shutdown - nothing more to do
+                LOG.debug(() -> "Market event dispatcher has been shutdown - not polling " + market.getName());
+            }
+        }
+
+        private void poll() throws ExchangeNetworkException, TradingApiException, StrategyException,
+                InterruptedException {
+
+            final MarketOrderBook orderBook = tradingApi.getMarketOrders(market.getId());
+            final BigDecimal marketPrice = tradingApi.getLatestMarketPrice(market.getId());
+            final Map<String, OpenOrder> openOrders = new LinkedHashMap<>();
+            for (final OpenOrder openOrder : tradingApi.getYourOpenOrders(market.getId())) {
+                openOrders.put(openOrder.getId(), openOrder);
+            }
+
+            strategyLock.lockInterruptibly();
+            try {
+                if (cancelled) {
+                    return;
+                }
+                if (lastOpenOrders != null) {
+                    if (!isSameOrderBook(lastOrderBook, orderBook)) {
+                        tradingStrategy.onOrderBookUpdate(orderBook);
+                    }
+                    if (marketPrice.compareTo(lastMarketPrice) != 0) {
+                        tradingStrategy.onLatestMarketPriceUpdate(marketPrice);
+                    }
+                    dispatchOrderEvents(openOrders);
+                }
+                // only orders that are still open can be cancelled orders we have yet to see go
+                cancelledOrderIds.retainAll(openOrders.keySet());
+                lastOrderBook = orderBook;
+                lastMarketPrice = marketPrice;
+                lastOpenOrders = openOrders;
+            } finally {
+                strategyLock.unlock();
+            }
+        }
+
+        private void dispatchOrderEvents(Map<String, OpenOrder> openOrders) throws StrategyException {
+
+            for (final OpenOrder lastOpenOrder : lastOpenOrders.values()) {
+                final OpenOrder openOrder = openOrders.get(lastOpenOrder.getId());
+                if (openOrder == null) {
+                    if (cancelledOrderIds.remove(lastOpenOrder.getId())) {
+                        tradingStrategy.onOrderCancelled(lastOpenOrder);
+                    } else {
+                        tradingStrategy.onOrderFilled(lastOpenOrder, lastOpenOrder.getQuantity(), true);
+                    }
+                } else if (openOrder.getQuantity().compareTo(lastOpenOrder.getQuantity()) < 0) {
+                    tradingStrategy.onOrderFilled(openOrder,
+                            lastOpenOrder.getQuantity().subtract(openOrder.getQuantity()), false);
+                }
+            }
+        }
+    }
+
+    /*
+     * Compares every price level - the books are cheap to walk compared with fetching them.
+     */
+    private static boolean isSameOrderBook(MarketOrderBook lastOrderBook, MarketOrderBook orderBook) {
+        return isSameOrders(lastOrderBook.getBuyOrders(), orderBook.getBuyOrders())
+                && isSameOrders(lastOrderBook.getSellOrders(), orderBook.getSellOrders());
+    }
+
+    private static boolean isSameOrders(List<MarketOrder> lastOrders, List<MarketOrder> orders) {
+        if (lastOrders.size() != orders.size()) {
+            return false;
+        }
+        for (int i = 0; i < orders.size(); i++) {
+            final MarketOrder lastOrder = lastOrders.get(i);
+            final MarketOrder order = orders.get(i);
+            if (lastOrder.getPrice().compareTo(order.getPrice()) != 0
+                    || lastOrder.getQuantity().compareTo(order.getQuantity()) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Executes the strategy under the same lock as its callbacks. If the strategy is interrupted while waiting for a
+     * callback to finish, e.g. it has timed out, this trade cycle's execution is skipped.
+     */
+    private static final class GuardedTradingStrategy implements TradingStrategy {
+
+        private final TradingStrategy tradingStrategy;
+        private final Lock strategyLock;
+
+        GuardedTradingStrategy(TradingStrategy tradingStrategy, Lock strategyLock) {
+            this.tradingStrategy = tradingStrategy;
+            this.strategyLock = strategyLock;
+        }
+
+        @Override
+        public void init(TradingApi tradingApi, Market market, StrategyConfig config) {
+            tradingStrategy.init(tradingApi, market, config);
+        }
+
+        @Override
+        public void execute() throws StrategyException {
+            try {
+                strategyLock.lockInterruptibly();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                LOG.warn(() -> "Interrupted while waiting for market event callbacks to finish - skipping execution of "
+                        + tradingStrategy.getClass().getSimpleName());
+                return;
+            }
+
+            try {
+                tradingStrategy.execute();
+            } finally {
+                strategyLock.unlock();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return tradingStrategy.toString();
+        }
+    }
+
+    /*
+     * Passes every call through, recording the orders the strategy has cancelled.
+     */
+    private static final class CancelTrackingTradingApi implements AsyncTradingApi {
+
+        private final AsyncTradingApi tradingApi;
+        private final Set<String> cancelledOrderIds;
+
+        CancelTrackingTradingApi(AsyncTradingApi tradingApi, Set<String> cancelledOrderIds) {
+            this.tradingApi = tradingApi;
+            this.cancelledOrderIds = cancelledOrderIds;
+        }
+
+        @Override
+        public String getVersion() {
+            return tradingApi.getVersion();
+        }
+
+        @Override
+        public String getImplName() {
+            return tradingApi.getImplName();
+        }
+
+        @Override
+        public MarketOrderBook getMarketOrders(String marketId) throws ExchangeNetworkException, TradingApiException {
+            return tradingApi.getMarketOrders(marketId);
+        }
+
+        @Override
+        public MarketOrderBook getMarketOrders(String marketId, int depth)
+                throws ExchangeNetworkException, TradingApiException {
+            return tradingApi.getMarketOrders(marketId, depth);
+        }
+
+        @Override
+        public MarketOrderBook getTopOfBook(String marketId) throws ExchangeNetworkException, TradingApiException {
+            return tradingApi.getTopOfBook(marketId);
+        }
+
+        @Override
+        public List<OpenOrder> getYourOpenOrders(String marketId)
+                throws ExchangeNetworkException, TradingApiException {
+            return tradingApi.getYourOpenOrders(marketId);
+        }
+
+        @Override
+        public String createOrder(String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price)
+                throws ExchangeNetworkException, TradingApiException {
+            return tradingApi.createOrder(marketId, orderType, quantity, price);
+        }
+
+        @Override
+        public boolean cancelOrder(String orderId, String marketId)
+                throws ExchangeNetworkException, TradingApiException {
+            final boolean isCancelled = tradingApi.cancelOrder(orderId, marketId);
+            if (isCancelled) {
+                cancelledOrderIds.add(orderId);
+            }
+            return isCancelled;
+        }
+
+        @Override
+        public BigDecimal getLatestMarketPrice(String marketId) throws ExchangeNetworkException, TradingApiException {
+            return tradingApi.getLatestMarketPrice(marketId);
+        }
+
+        @Override
+        public BalanceInfo getBalanceInfo() throws ExchangeNetworkException, TradingApiException {
+            return tradingApi.getBalanceInfo();
+        }
+
+        @Override
+        public BigDecimal getPercentageOfBuyOrderTakenForExchangeFee(String marketId)
+                throws TradingApiException, ExchangeNetworkException {
+            return tradingApi.getPercentageOfBuyOrderTakenForExchangeFee(marketId);
+        }
+
+        @Override
+        public BigDecimal getPercentageOfSellOrderTakenForExchangeFee(String marketId)
+                throws TradingApiException, ExchangeNetworkException {
+            return tradingApi.getPercentageOfSellOrderTakenForExchangeFee(marketId);
+        }
+
+        @Override
+        public Executor getPublicApiExecutor() {
+            return tradingApi.getPublicApiExecutor();
+        }
+
+        @Override
+        public Executor getAuthenticatedApiExecutor() {
+            return tradingApi.getAuthenticatedApiExecutor();
+        }
+    }
+}
@@ -0,0 +1,380 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.engine;
+
+import com.gazbert.bxbot.strategy.api.StrategyException;
+import com.gazbert.bxbot.strategy.api.TradingStrategy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Drives the Trading Strategies of markets that have their own trade cycle interval.
+ * <p>
+ * Each market runs on its own fixed-rate timeline: the next execution is due 1 interval after the previous one was
+ * <em>due</em>, not after it finished, so the time a strategy takes does not push the timeline back. If a strategy
+ * overruns 1 or more intervals, the missed executions are skipped - they are not run back to back to catch up.
+ * A strategy is never executed by 2 threads at the same time.
+ * <p>
+ * The thread pool grows and shrinks with the number of timelines, so every market has a thread of its own and a slow
+ * strategy cannot hold up another market's timeline. Each execution also has a timeout, measured from when it starts:
+ * a strategy that overruns it is interrupted and logged, and its timeline carries on as if it had returned.
+ * <p>
+ * If a strategy throws an exception, all the timelines are stopped and the failure is held for the Trading Engine to
+ * pick up by calling {@link #checkForFailure()}; the engine is poked via the callback passed in on construction.
+ * <p>
+ * Markets can be scheduled after the scheduler has started, and each market's timeline can be paused or cancelled on
+ * its own; this is how the engine applies Market and Strategy config changes without a restart.
+ * <p>
+ * The timelines only execute their strategies while the {@link EmergencyStopGate} is open, i.e. while the latest
+ * Emergency Stop check for the exchange has passed and is recent enough. The check is made by the engine at the start
+ * of each engine trade cycle, not before each execution here, so a market with a shorter interval can still trade
+ * several times between checks. Checking before every execution would mean fetching the balances from the exchange at
+ * the rate of the fastest market; instead, the engine trade cycle interval bounds how long a breach can go unseen.
+ *
+ * @author gazbert
+ */
+final class MarketScheduler {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final ScheduledExecutorService timeoutScheduler;
+    private final Runnable failureListener;
+    private final List<MarketTimeline> timelines = new ArrayList<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final EmergencyStopGate emergencyStopGate = new EmergencyStopGate();
+    private volatile boolean stopped;
+    private boolean started;
+
+
+    MarketScheduler(Runnable failureListener) {
+        this.failureListener = failureListener;
+        scheduler = new ScheduledThreadPoolExecutor(1, new DaemonThreadFactory("market-scheduler"));
+        scheduler.setRemoveOnCancelPolicy(true);
+        timeoutScheduler = Executors.newSingleThreadScheduledExecutor(
+                new DaemonThreadFactory("market-scheduler-timeout"));
+    }
+
+    /**
+     * Adds a market's strategy to be executed every interval once the scheduler is started. If the scheduler has
+     * already started, the first execution is immediate.
+     *
+     * @param tradingStrategy the market's strategy.
+     * @param marketName      the market name, used for logging.
+     * @param intervalMillis  the interval between executions in millis.
+     * @param timeoutMillis   how long each execution can take before the strategy is interrupted.
+     * @return the market's timeline, for pausing or cancelling it.
+     */
+    MarketTimeline schedule(TradingStrategy tradingStrategy, String marketName, long intervalMillis,
+                            long timeoutMillis) {
+
+        if (intervalMillis < 1) {
+            final String errorMsg = "Trade cycle interval for market " + marketName + " must be 1 millis or more: "
+                    + intervalMillis;
+            LOG.error(errorMsg);
+            throw new IllegalArgumentException(errorMsg);
+        }
+
+        if (timeoutMillis < 1) {
+            final String errorMsg = "Strategy execution timeout for market " + marketName + " must be 1 millis or "
+                    + "more: " + timeoutMillis;
+            LOG.error(errorMsg);
+            throw new IllegalArgumentException(errorMsg);
+        }
+
+        final MarketTimeline timeline = new MarketTimeline(tradingStrategy, marketName,
+                TimeUnit.MILLISECONDS.toNanos(intervalMillis), timeoutMillis);
+        timelines.add(timeline);
+        resizeThreadPool();
+        if (started) {
+            timeline.start(System.nanoTime());
+        }
+        return timeline;
+    }
+
+    /**
+     * Starts every market's timeline. The first execution for each market is immediate. Does nothing if already started.
+     */
+    void start() {
+
+        if (started) {
+            return;
+        }
+        started = true;
+
+        final long startTime = System.nanoTime();
+        for (final MarketTimeline timeline : timelines) {
+            timeline.start(startTime);
+        }
+    }
+
+    /**
+     * Lets the strategies execute for the given time, after the Emergency Stop check has passed. If it is not called
+     * again within that time, the timelines keep ticking but their strategies are not executed.
+     *
+     * @param millis how long the check result can be relied on for.
+     */
+    void allowTradingFor(long millis) {
+        emergencyStopGate.openFor(millis);
+    }
+
+    /**
+     * Stops the strategies executing until {@link #allowTradingFor(long)} is next called, after the Emergency Stop
+     * check has failed or could not be made.
+     */
+    void holdTrading() {
+        emergencyStopGate.close();
+    }
+
+    /**
+     * Rethrows the first failure from a scheduled strategy, if there has been one.
+     *
+     * @throws StrategyException if a strategy threw a StrategyException.
+     * @throws RuntimeException  if a strategy threw an unexpected exception; it is rethrown as-is.
+     */
+    void checkForFailure() throws StrategyException {
+        final Throwable firstFailure = failure.get();
+        if (firstFailure != null) {
+            ParallelStrategyExecutor.rethrowStrategyFailure(firstFailure);
+        }
+    }
+
+    /**
+     * Stops all the timelines and interrupts any strategies still running.
+     */
+    void shutdown() {
+        stopped = true;
+        scheduler.shutdownNow();
+        timeoutScheduler.shutdownNow();
+    }
+
+    /*
+     * A timeline only ever has 1 execution scheduled or running, so 1 thread per timeline is all it can use.
+     */
+    private void resizeThreadPool() {
+        scheduler.setCorePoolSize(Math.max(1, timelines.size()));
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Inner classes
+    // ------------------------------------------------------------------------------------------------
+
+    /**
+     * A market's timeline.
+     */
+    final class MarketTimeline implements Runnable {
+
+        private final TradingStrategy tradingStrategy;
+        private final String marketName;
+        private final long intervalNanos;
+        private final long timeoutMillis;
+
+        // held while the strategy executes, so cancel() can wait for an execution in progress to finish
+        private final Lock executionLock = new ReentrantLock();
+        private volatile boolean paused;
+        private volatile boolean cancelled;
+
+        // guarded by this; the execution in progress, so a late timeout cannot interrupt the one after it
+        private Thread executingThread;
+        private long executionCount;
+        private volatile boolean timedOut;
+
+        // only touched by the thread running the timeline; the scheduler's hand-off makes it visible to the next one
+        private long nextRunTime;
+
+        MarketTimeline(TradingStrategy tradingStrategy, String marketName, long intervalNanos, long timeoutMillis) {
+            this.tradingStrategy = tradingStrategy;
+            this.marketName = marketName;
+            this.intervalNanos = intervalNanos;
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        /**
+         * Stops or resumes executing the strategy. The timeline keeps ticking while paused, so a resumed market picks
+         * up its old timeline rather than starting a new one.
+         *
+         * @param paused true to stop executing the strategy, false to resume.
+         */
+        void setPaused(boolean paused) {
+            this.paused = paused;
+        }
+
+        /**
+         * Removes the timeline from the scheduler. If the strategy is executing, waits up to the execution timeout for
+         * it to finish, so the strategy is not executed once this returns. A strategy that is still running after
+         * that has ignored its interrupt; it is logged and left to finish on its own, and is not executed again.
+         */
+        void cancel() {
+            boolean locked = false;
+            try {
+                locked = executionLock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS);
+                if (!locked) {
+                    LOG.warn(() -> "Trading Strategy for market " + marketName + " is still executing after "
+                            + timeoutMillis + "ms - cancelling its timeline without waiting for it to finish");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                LOG.warn(() -> "Interrupted waiting for Trading Strategy for market " + marketName + " to finish "
+                        + "executing - cancelling its timeline without waiting for it");
+            }
+
+            try {
+                cancelled = true;
+                timelines.remove(this);
+                resizeThreadPool();
+            } finally {
+                if (locked) {
+                    executionLock.unlock();
+                }
+            }
+        }
+
+        void start(long startTime) {
+            LOG.info(() -> "Scheduling Trading Strategy for market " + marketName + " every "
+                    + TimeUnit.NANOSECONDS.toMillis(intervalNanos) + "ms");
+            nextRunTime = startTime;
+            scheduleNextRun();
+        }
+
+        @Override
+        public void run() {
+
+            if (stopped || cancelled) {
+                return;
+            }
+
+            if (!paused && !emergencyStopGate.isOpen()) {
+                LOG.warn(() -> "No recent passing Emergency Stop check - not executing Trading Strategy for market "
+                        + marketName);
+            } else if (!paused) {
+                executionLock.lock();
+                try {
+                    if (cancelled) {
+                        return;
+                    }
+                    LOG.info(() -> "Executing Trading Strategy for market " + marketName + " ---> "
+                            + tradingStrategy.getClass().getSimpleName());
+                    executeWithTimeout();
+
+                } catch (Throwable t) {
+                    if (timedOut) {
+                        LOG.warn("Trading Strategy for market " + marketName + " failed after it was interrupted "
+                                + "for timing out - carrying on with its timeline", t);
+                    } else {
+                        LOG.error("Trading Strategy for market " + marketName + " failed - stopping all market "
+                                + "timelines", t);
+                        if (failure.compareAndSet(null, t)) {
+                            stopped = true;
+                            failureListener.run();
+                        }
+                        return;
+                    }
+
+                } finally {
+                    executionLock.unlock();
+                }
+            }
+
+            nextRunTime += intervalNanos;
+            final long lateBy = System.nanoTime() - nextRunTime;
+            if (lateBy > 0) {
+                final long missedRuns = lateBy / intervalNanos + 1;
+                nextRunTime += missedRuns * intervalNanos;
+                LOG.warn(() -> "Trading Strategy for market " + marketName + " overran its trade cycle interval - "
+                        + "skipping " + missedRuns + " execution(s)");
+            }
+            scheduleNextRun();
+        }
+
+        private void executeWithTimeout() throws StrategyException {
+
+            final Thread thread = Thread.currentThread();
+            final long execution;
+            synchronized (this) {
+                executingThread = thread;
+                execution = ++executionCount;
+                timedOut = false;
+            }
+
+            final ScheduledFuture<?> timeout;
+            try {
+                timeout = timeoutScheduler.schedule(
+                        () -> timeout(thread, execution), timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // raced with shutdown - nothing more to do
+                LOG.debug(() -> "Market scheduler has been shutdown - not executing " + marketName);
+                return;
+            }
+
+            try {
+                tradingStrategy.execute();
+            } finally {
+                timeout.cancel(false);
+                synchronized (this) {
+                    executingThread = null;
+                }
+                if (timedOut) {
+                    // don't let the timeout's interrupt leak into the next timeline run on this thread
+                    Thread.interrupted();
+                }
+            }
+        }
+
+        private void timeout(Thread thread, long execution) {
+            synchronized (this) {
+                if (executingThread != thread || executionCount != execution) {
+                    return;
+                }
+                timedOut = true;
+                thread.interrupt();
+            }
+            LOG.warn(() -> "Trading Strategy for market " + marketName + " did not finish within " + timeoutMillis
+                    + "ms - it has been interrupted");
+        }
+
+        private void scheduleNextRun() {
+            if (stopped || cancelled) {
+                return;
+            }
+            try {
+                scheduler.schedule(this, nextRunTime - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                // raced with shutdown - nothing more to do
+                LOG.debug(() -> "Market scheduler has been shutdown - not scheduling " + marketName);
+            }
+        }
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.engine;
+
+import com.gazbert.bxbot.strategy.api.StrategyException;
+import com.gazbert.bxbot.strategy.api.TradingStrategy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executes the Trading Strategies for a trade cycle on a bounded pool of worker threads.
+ * <p>
+ * Each strategy gets its own timeout, measured from when it starts running. A strategy that overruns is interrupted
+ * and logged, and the rest of the cycle carries on without it. If it ignores the interrupt, it is skipped in later
+ * cycles until it has returned - a strategy is never executed by 2 threads at the same time.
+ * <p>
+ * {@link #execute(List)} only returns once every strategy submitted for the cycle has finished or timed out. If any
+ * of them failed, the first failure (in market order) is rethrown so the Trading Engine error policy is the same as
+ * when the strategies are executed one after another. {@link #execute(Map)} does the same for several executors at
+ * once, e.g. 1 per exchange, so their strategies run at the same time on their own threads.
+ * <p>
+ * Only to be used by the Trading Engine thread.
+ *
+ * @author gazbert
+ */
+final class ParallelStrategyExecutor {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private final long strategyTimeoutMillis;
+    private final ExecutorService workerPool;
+    private final ScheduledExecutorService timeoutScheduler;
+
+    /*
+     * The last task submitted for each strategy. Keyed on identity; strategies are not expected to override equals().
+     */
+    private final Map<TradingStrategy, StrategyTask> lastTasks = new IdentityHashMap<>();
+
+
+    ParallelStrategyExecutor(int threadCount, long strategyTimeoutMillis) {
+
+        if (threadCount < 1) {
+            final String errorMsg = "Strategy execution thread count must be 1 or more: " + threadCount;
+            LOG.error(errorMsg);
+            throw new IllegalArgumentException(errorMsg);
+        }
+
+        if (strategyTimeoutMillis < 1) {
+            final String errorMsg = "Strategy execution timeout must be 1 millis or more: " + strategyTimeoutMillis;
+            LOG.error(errorMsg);
+            throw new IllegalArgumentException(errorMsg);
+        }
+
+        this.strategyTimeoutMillis = strategyTimeoutMillis;
+        workerPool = Executors.newFixedThreadPool(threadCount, new DaemonThreadFactory("trading-strategy"));
+        timeoutScheduler = Executors.newSingleThreadScheduledExecutor(
+                new DaemonThreadFactory("trading-strategy-timeout"));
+    }
+
+    /**
+     * Executes the given strategies and waits for them all to finish or time out.
+     *
+     * @param tradingStrategies the strategies to execute this trade cycle.
+     * @throws StrategyException if a strategy threw a StrategyException.
+     * @throws RuntimeException  if a strategy threw an unexpected exception; it is rethrown as-is.
+     */
+    void execute(List<TradingStrategy> tradingStrategies) throws StrategyException {
+        awaitTasks(submit(tradingStrategies));
+    }
+
+    /**
+     * Executes the given strategies on their executors and waits for them all to finish or time out.
+     *
+     * @param tradingStrategiesByExecutor the strategies to execute this trade cycle, keyed by the executor to run
+     *                                    them on.
+     * @throws StrategyException if a strategy threw a StrategyException.
+     * @throws RuntimeException  if a strategy threw an unexpected exception; it is rethrown as-is.
+     */
+    static void execute(Map<ParallelStrategyExecutor, List<TradingStrategy>> tradingStrategiesByExecutor)
+            throws StrategyException {
+
+        final List<StrategyTask> submittedTasks = new ArrayList<>();
+        for (final Map.Entry<ParallelStrategyExecutor, List<TradingStrategy>> executorStrategies
+                : tradingStrategiesByExecutor.entrySet()) {
+            submittedTasks.addAll(executorStrategies.getKey().submit(executorStrategies.getValue()));
+        }
+        awaitTasks(submittedTasks);
+    }
+
+    /**
+     * Interrupts any strategies still running and stops the worker threads.
+     */
+    void shutdown() {
+        workerPool.shutdownNow();
+        timeoutScheduler.shutdownNow();
+    }
+
+    /*
+     * Rethrows a failure from a strategy run on another thread as if the engine thread had called it: StrategyException
+     * and unchecked exceptions are thrown as-is so the Trading Engine error policy treats them the same way.
+     */
+    static void rethrowStrategyFailure(Throwable failure) throws StrategyException {
+        if (failure instanceof StrategyException) {
+            throw (StrategyException) failure;
+        } else if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure instanceof Error) {
+            throw (Error) failure;
+        } else {
+            throw new StrategyException(failure);
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private List<StrategyTask> submit(List<TradingStrategy> tradingStrategies) {
+
+        final List<StrategyTask> submittedTasks = new ArrayList<>(tradingStrategies.size());
+        for (final TradingStrategy tradingStrategy : tradingStrategies) {
+
+            final StrategyTask lastTask = lastTasks.get(tradingStrategy);
+            if (lastTask != null && !lastTask.hasReturned()) {
+                LOG.warn(() -> "Skipping Trading Strategy ---> " + tradingStrategy.getClass().getSimpleName()
+                        + " - it is still running from a previous trade cycle");
+                continue;
+            }
+
+            LOG.info(() -> "Executing Trading Strategy ---> " + tradingStrategy.getClass().getSimpleName());
+            final StrategyTask task = new StrategyTask(tradingStrategy);
+            lastTasks.put(tradingStrategy, task);
+            submittedTasks.add(task);
+            workerPool.execute(task);
+        }
+        return submittedTasks;
+    }
+
+    private static void awaitTasks(List<StrategyTask> submittedTasks) throws StrategyException {
+
+        Throwable firstFailure = null;
+        for (final StrategyTask task : submittedTasks) {
+            try {
+                task.get();
+            } catch (CancellationException e) {
+                // timed out - already logged
+            } catch (ExecutionException e) {
+                if (firstFailure == null) {
+                    firstFailure = e.getCause();
+                }
+            } catch (InterruptedException e) {
+                LOG.warn("Interrupted waiting for Trading Strategies to finish - cancelling them");
+                submittedTasks.forEach(submittedTask -> submittedTask.cancel(true));
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+
+        if (firstFailure != null) {
+            rethrowStrategyFailure(firstFailure);
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Inner classes
+    // ------------------------------------------------------------------------------------------------
+
+    /*
+     * Starts the strategy's timeout clock when it begins running, and records when it has actually returned: a
+     * cancelled task reports isDone() straight away, even if the strategy ignores the interrupt and keeps going.
+     */
+    private final class StrategyTask extends FutureTask<Void> {
+
+        private final TradingStrategy tradingStrategy;
+        private volatile boolean hasReturned;
+
+        StrategyTask(TradingStrategy tradingStrategy) {
+            super(() -> {
+                tradingStrategy.execute();
+                return null;
+            });
+            this.tradingStrategy = tradingStrategy;
+        }
+
+        @Override
+        public void run() {
+            final ScheduledFuture<?> timeout = timeoutScheduler.schedule(
+                    this::timeout, strategyTimeoutMillis, TimeUnit.MILLISECONDS);
+            try {
+                super.run();
+            } finally {
+                timeout.cancel(false);
+                hasReturned = true;
+            }
+        }
+
+        boolean hasReturned() {
+            return hasReturned;
+        }
+
+        private void timeout() {
+            if (cancel(true)) {
+                LOG.warn(() -> "Trading Strategy ---> " + tradingStrategy.getClass().getSimpleName()
+                        + " did not finish within " + strategyTimeoutMillis + "ms - it has been interrupted");
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.engine;
+
+import com.gazbert.bxbot.trading.api.AsyncTradingApi;
+import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The Trading API handed to Trading Strategies when the engine executes them in parallel.
+ * <p>
+ * Public market data calls go straight through to the Exchange Adapter. Calls that use the exchange account -
+ * open orders, create/cancel order, balances and fees - are sent one at a time: the adapters sign these requests
+ * with an increasing nonce and the exchanges expect them to arrive in that order, so they must not overlap.
+ * <p>
+ * The async variants use the adapter's executors and end up calling the methods below, so they are serialised too.
+ *
+ * @author gazbert
+ */
+final class SharedTradingApi implements AsyncTradingApi {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private final AsyncTradingApi tradingApi;
+    private final Lock authenticatedApiLock = new ReentrantLock(true);
+
+
+    SharedTradingApi(AsyncTradingApi tradingApi) {
+        this.tradingApi = tradingApi;
+    }
+
+    @Override
+    public String getVersion() {
+        return tradingApi.getVersion();
+    }
+
+    @Override
+    public String getImplName() {
+        return tradingApi.getImplName();
+    }
+
+    @Override
+    public MarketOrderBook getMarketOrders(String marketId) throws ExchangeNetworkException, TradingApiException {
+        return tradingApi.getMarketOrders(marketId);
+    }
+
+    @Override
+    public MarketOrderBook getMarketOrders(String marketId, int depth)
+            throws ExchangeNetworkException, TradingApiException {
+        return tradingApi.getMarketOrders(marketId, depth);
+    }
+
+    @Override
+    public MarketOrderBook getTopOfBook(String marketId) throws ExchangeNetworkException, TradingApiException {
+        return tradingApi.getTopOfBook(marketId);
+    }
+
+    @Override
+    public BigDecimal getLatestMarketPrice(String marketId) throws ExchangeNetworkException, TradingApiException {
+        return tradingApi.getLatestMarketPrice(marketId);
+    }
+
+    @Override
+    public List<OpenOrder> getYourOpenOrders(String marketId) throws ExchangeNetworkException, TradingApiException {
+        return callAuthenticatedApi(() -> tradingApi.getYourOpenOrders(marketId));
+    }
+
+    @Override
+    public String createOrder(String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price)
+            throws ExchangeNetworkException, TradingApiException {
+        return callAuthenticatedApi(() -> tradingApi.createOrder(marketId, orderType, quantity, price));
+    }
+
+    @Override
+    public boolean cancelOrder(String orderId, String marketId) throws ExchangeNetworkException, TradingApiException {
+        return callAuthenticatedApi(() -> tradingApi.cancelOrder(orderId, marketId));
+    }
+
+    @Override
+    public BalanceInfo getBalanceInfo() throws ExchangeNetworkException, TradingApiException {
+        return callAuthenticatedApi(tradingApi::getBalanceInfo);
+    }
+
+    @Override
+    public BigDecimal getPercentageOfBuyOrderTakenForExchangeFee(String marketId)
+            throws TradingApiException, ExchangeNetworkException {
+        return callAuthenticatedApi(() -> tradingApi.getPercentageOfBuyOrderTakenForExchangeFee(marketId));
+    }
+
+    @Override
+    public BigDecimal getPercentageOfSellOrderTakenForExchangeFee(String marketId)
+            throws TradingApiException, ExchangeNetworkException {
+        return callAuthenticatedApi(() -> tradingApi.getPercentageOfSellOrderTakenForExchangeFee(marketId));
+    }
+
+    @Override
+    public Executor getPublicApiExecutor() {
+        return tradingApi.getPublicApiExecutor();
+    }
+
+    @Override
+    public Executor getAuthenticatedApiExecutor() {
+        return tradingApi.getAuthenticatedApiExecutor();
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    /*
+     * Waits interruptibly for the lock so a strategy that has timed out can be stopped while queued behind another
+     * strategy's call. Being interrupted is reported as a network error so the strategy does not treat it as fatal.
+     */
+    private <T> T callAuthenticatedApi(AsyncTradingApi.TradingApiCall<T> call)
+            throws ExchangeNetworkException, TradingApiException {
+
+        try {
+            authenticatedApiLock.lockInterruptibly();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            final String errorMsg = "Interrupted while waiting to call the authenticated API on "
+                    + tradingApi.getImplName();
+            LOG.warn(errorMsg);
+            throw new ExchangeNetworkException(errorMsg, e);
+        }
+
+        try {
+            return call.call();
+        } finally {
+            authenticatedApiLock.unlock();
+        }
+    }
+}
@@ -23,6 +23,7 @@
 
 package com.gazbert.bxbot.core.engine;
 
+import com.gazbert.bxbot.core.engine.CoalescingTradingApi.CachedCall;
 import com.gazbert.bxbot.core.mail.EmailAlerter;
 import com.gazbert.bxbot.core.util.ConfigurableComponentFactory;
 import com.gazbert.bxbot.domain.engine.EngineConfig;
@@ -37,21 +38,26 @@ import com.gazbert.bxbot.exchange.api.impl.AuthenticationConfigImpl;
 import com.gazbert.bxbot.exchange.api.impl.ExchangeConfigImpl;
 import com.gazbert.bxbot.exchange.api.impl.NetworkConfigImpl;
 import com.gazbert.bxbot.exchange.api.impl.OtherConfigImpl;
+import com.gazbert.bxbot.repository.ConfigChangedEvent;
 import com.gazbert.bxbot.repository.EngineConfigRepository;
 import com.gazbert.bxbot.repository.ExchangeConfigRepository;
 import com.gazbert.bxbot.repository.MarketConfigRepository;
 import com.gazbert.bxbot.repository.StrategyConfigRepository;
+import com.gazbert.bxbot.strategy.api.EventDrivenTradingStrategy;
+import com.gazbert.bxbot.strategy.api.MultiExchangeTradingStrategy;
 import com.gazbert.bxbot.strategy.api.StrategyException;
 import com.gazbert.bxbot.strategy.api.TradingStrategy;
 import com.gazbert.bxbot.strategy.api.impl.StrategyConfigItems;
-import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.AsyncTradingApi;
 import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
 import com.gazbert.bxbot.trading.api.Market;
+import com.gazbert.bxbot.trading.api.TradingApi;
 import com.gazbert.bxbot.trading.api.TradingApiException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
 
@@ -60,6 +66,7 @@ import java.io.StringWriter;
 import java.math.BigDecimal;
 import java.text.DecimalFormat;
 import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * The main Trading Engine.
@@ -70,10 +77,25 @@ import java.util.*;
  * The only time the bot does not fail hard and fast is for network issues connecting to the exchange - it logs the error
  * and retries at next trade cycle.
  * <p>
+ * Markets without their own trade cycle interval are traded every engine trade cycle. Markets that have one are driven
+ * on their own timeline by the {@link MarketScheduler}; a failure there shuts the bot down in the same way.
+ * Event driven Trading Strategies can also be called back between trade cycles by the {@link MarketEventDispatcher}.
+ * <p>
+ * Market and Strategy config changes are applied between trade cycles without restarting the engine: new and re-enabled
+ * markets are started, disabled markets are paused, deleted markets are stopped, and markets whose config or Trading
+ * Strategy config has changed are re-initialised with a new Trading Strategy instance. Markets that have not changed
+ * keep running untouched, along with their Trading Strategy's state.
+ * <p>
+ * The engine can trade on several exchanges, each with its own Exchange Adapter and Emergency Stop limit. Each
+ * exchange's Trading Strategies are executed on its own threads, so the exchanges are traded at the same time and a
+ * slow exchange does not hold up the others. If any exchange breaches its Emergency Stop limit, trading stops on all of
+ * them. An exchange that cannot be reached for the Emergency Stop check is left out of that trade cycle; the others
+ * carry on.
+ * <p>
  * To keep things simple:
- * - The engine is single threaded.
- * - The engine only supports trading on 1 exchange per instance of the bot, i.e. 1 Exchange Adapter per process.
- * - The engine only supports 1 Trading Strategy per Market.
+ * - The engine is single threaded, unless it has been configured to execute the Trading Strategies in parallel, on
+ *   their own timelines or on market events, or it is trading on more than 1 exchange.
+ * - The engine only supports 1 exchange and 1 Trading Strategy per Market.
  *
  * @author gazbert
  */
@@ -121,28 +143,50 @@ public class TradingEngine {
     private final Map<String, StrategyConfig> strategyDescriptions = new HashMap<>();
 
     /*
-     * List of cached Trading Strategy implementations for the Trade Engine to execute.
+     * The exchanges being traded on, keyed by exchange id, in the order they are configured. The first one is the
+     * exchange a Market is traded on if it does not say which one.
+     */
+    private final Map<String, TradingExchange> exchanges = new LinkedHashMap<>();
+
+    /*
+     * The Markets being traded, or paused, keyed by Market id. Only touched by the engine thread.
+     */
+    private final Map<String, RunningMarket> runningMarkets = new LinkedHashMap<>();
+
+    /*
+     * Set when Market or Strategy config has been changed. The changes are applied at the start of the next trade
+     * cycle.
+     */
+    private volatile boolean marketsOrStrategiesChanged;
+
+    /*
+     * Number of threads per exchange used to execute Trading Strategies off the engine thread.
+     */
+    private int strategyExecutionThreads = 1;
+
+    /*
+     * How long in seconds a Trading Strategy can execute for off the engine thread before it is interrupted.
+     * If not set, it is the trade cycle interval it runs on.
+     */
+    private Integer strategyExecutionTimeout;
+
+    /*
+     * How long in millis the result of each coalesced call is reused for. Calls without a window are not coalesced.
      */
-    private final List<TradingStrategy> tradingStrategiesToExecute = new ArrayList<>();
+    private Map<CachedCall, Long> freshnessWindows = new EnumMap<>(CachedCall.class);
 
     /*
-     * The emergency stop currency value is used to prevent a catastrophic loss on the exchange.
-     * It is set to the currency short code, e.g. BTC, USD.
-     * This is normally the currency you intend to hold a long position in.
+     * How often in millis the markets of event driven Trading Strategies are polled for events. If not set, they are not.
      */
-    private String emergencyStopCurrency;
+    private Integer marketEventPollInterval;
 
     /*
-     * The Emergency Stop balance.
-     * It is used to prevent a catastrophic loss on the exchange.
-     * The Trading Engine checks this value at the start of every trade cycle: if the balance on
-     * the exchange drops below this value, the Trading Engine will stop trading on all markets.
-     * Manual intervention is then required to restart the bot.
+     * How often in seconds the balances kept in memory for the Emergency Stop check are reconciled with the exchange.
+     * If not set, the balances are fetched from the exchange every trade cycle.
      */
-    private BigDecimal emergencyStopBalance;
+    private Integer balanceReconciliationInterval;
 
     private EmailAlerter emailAlerter;
-    private ExchangeAdapter exchangeAdapter;
 
     // Repos
     private final ExchangeConfigRepository exchangeConfigRepository;
@@ -220,17 +264,54 @@ public class TradingEngine {
 
                 LOG.info(() -> "*** Starting next trade cycle... ***");
 
+                // Stop if a market on its own timeline has failed since the last trade cycle
+                for (final TradingExchange exchange : exchanges.values()) {
+                    exchange.checkForFailure();
+                }
+
+                // Apply any Market and Strategy config changes made since the last trade cycle
+                if (marketsOrStrategiesChanged) {
+                    applyMarketAndStrategyConfigChanges();
+                }
+
                 // Emergency Stop Check MUST run at start of every trade cycle.
-                if (isEmergencyStopLimitBreached()) {
+                final List<TradingExchange> exchangesToTrade = new ArrayList<>(exchanges.size());
+                boolean isEmergencyStopLimitBreached = false;
+                for (final TradingExchange exchange : exchanges.values()) {
+                    try {
+                        if (isEmergencyStopLimitBreached(exchange)) {
+                            isEmergencyStopLimitBreached = true;
+                            break;
+                        }
+                        exchangesToTrade.add(exchange);
+                    } catch (ExchangeNetworkException e) {
+                        if (exchanges.size() == 1) {
+                            throw e;
+                        }
+                        LOG.error("A network error has occurred in Exchange Adapter for " + exchange.name
+                                + "! Its markets will not be traded this trade cycle...", e);
+                    }
+                }
+                if (isEmergencyStopLimitBreached) {
                     break;
                 }
 
-                // Execute the Trading Strategies
-                for (final TradingStrategy tradingStrategy : tradingStrategiesToExecute) {
-                    LOG.info(() -> "Executing Trading Strategy ---> " + tradingStrategy.getClass().getSimpleName());
-                    tradingStrategy.execute();
+                // Markets with their own trade cycle interval, and watched market events, only start once the 1st
+                // Emergency Stop check has passed, and only trade while their exchange's latest check has passed. An
+                // exchange whose check failed or was skipped is held until its next passing check. If the next check
+                // has not passed within 2 trade cycles, e.g. because the engine has stalled, they stop trading until
+                // it does.
+                for (final TradingExchange exchange : exchanges.values()) {
+                    if (exchangesToTrade.contains(exchange)) {
+                        exchange.allowMarketTimelinesToTrade(tradeExecutionInterval * 2000L);
+                        exchange.startMarketTimelines();
+                    } else {
+                        exchange.holdMarketTimelines();
+                    }
                 }
 
+                executeTradingStrategies(exchangesToTrade);
+
                 LOG.info(() -> "*** Sleeping " + tradeExecutionInterval + "s til next trade cycle... ***");
 
                 try {
@@ -250,6 +331,11 @@ public class TradingEngine {
                         "BX-bot will attempt next trade in " + tradeExecutionInterval + "s...";
                 LOG.error(WARNING_MSG, e);
 
+                // The Emergency Stop check may not have been made - don't trade until it has
+                for (final TradingExchange exchange : exchanges.values()) {
+                    exchange.holdMarketTimelines();
+                }
+
                 try {
                     Thread.sleep(tradeExecutionInterval * 1000);
                 } catch (InterruptedException e1) {
@@ -302,11 +388,35 @@ public class TradingEngine {
         }
 
         LOG.fatal("BX-bot is shutting down NOW!");
+        exchanges.values().forEach(TradingExchange::shutdown);
         synchronized (IS_RUNNING_MONITOR) {
             isRunning = false;
         }
     }
 
+    /*
+     * Executes the Trading Strategies of the given exchanges that are traded every engine trade cycle. Exchanges with
+     * their own threads are executed at the same time, and this only returns once all their strategies have finished.
+     */
+    private void executeTradingStrategies(List<TradingExchange> exchangesToTrade) throws StrategyException {
+
+        final Map<ParallelStrategyExecutor, List<TradingStrategy>> parallelStrategies = new LinkedHashMap<>();
+        for (final TradingExchange exchange : exchangesToTrade) {
+            if (exchange.parallelStrategyExecutor != null) {
+                parallelStrategies.put(exchange.parallelStrategyExecutor, exchange.tradingStrategiesToExecute);
+            } else {
+                for (final TradingStrategy tradingStrategy : exchange.tradingStrategiesToExecute) {
+                    LOG.info(() -> "Executing Trading Strategy ---> " + tradingStrategy.getClass().getSimpleName());
+                    tradingStrategy.execute();
+                }
+            }
+        }
+
+        if (!parallelStrategies.isEmpty()) {
+            ParallelStrategyExecutor.execute(parallelStrategies);
+        }
+    }
+
     /*
      * Shutdown the Trading Engine.
      * Might be called from a different thread.
@@ -321,13 +431,30 @@ public class TradingEngine {
         engineThread.interrupt(); // poke it in case bot is sleeping
     }
 
+    /*
+     * Called when config has been changed, e.g. via the REST API or by hand with the in-memory config store enabled.
+     * Might be called from a different thread.
+     * The engine thread picks up the change at the start of the next trade cycle; we don't poke it here because it
+     * could be in the middle of one.
+     */
+    @EventListener
+    public void onConfigChanged(ConfigChangedEvent event) {
+
+        final Class<?> configType = event.getConfigType();
+        if (MarketConfig.class.isAssignableFrom(configType) || StrategyConfig.class.isAssignableFrom(configType)) {
+            LOG.info(() -> "Config change received - it will be applied at the start of the next trade cycle: "
+                    + event.getChangedConfig());
+            marketsOrStrategiesChanged = true;
+        }
+    }
+
     synchronized boolean isRunning() {
         LOG.info(() -> "isRunning: " + isRunning);
         return isRunning;
     }
 
     /*
-     * Checks if the Emergency Stop Currency (e.g. USD, BTC) wallet balance on exchange has gone *below* configured limit.
+     * Checks if the Emergency Stop Currency (e.g. USD, BTC) wallet balance on an exchange has gone *below* its limit.
      * If the balance cannot be obtained or has dropped below the configured limit, we notify the main control loop to
      * immediately shutdown the bot.
      *
@@ -336,28 +463,20 @@ public class TradingEngine {
      * - Unforeseen bugs in the Trading Engine and Exchange Adapter
      * - the exchange sending corrupt order book data and the Trading Strategy being misled... this has happened.
      */
-    private boolean isEmergencyStopLimitBreached() throws TradingApiException, ExchangeNetworkException {
+    private boolean isEmergencyStopLimitBreached(TradingExchange exchange)
+            throws TradingApiException, ExchangeNetworkException {
 
         boolean isEmergencyStopLimitBreached = true;
 
+        final String emergencyStopCurrency = exchange.emergencyStopCurrency;
+        final BigDecimal emergencyStopBalance = exchange.emergencyStopBalance;
         if(emergencyStopBalance.compareTo(BigDecimal.ZERO) == 0){
             return false;
         }
 
-        LOG.info(() -> "Performing Emergency Stop check...");
+        LOG.info(() -> "Performing Emergency Stop check for " + exchange.name + "...");
 
-        BalanceInfo balanceInfo;
-        try {
-            balanceInfo = exchangeAdapter.getBalanceInfo();
-        } catch (TradingApiException e) {
-            final String errorMsg = "Failed to get Balance info from exchange to perform Emergency Stop check - letting"
-                    + " Trade Engine error policy decide what to do next...";
-            LOG.error(errorMsg, e);
-            // re-throw to main loop - might only be connection issue and it will retry...
-            throw e;
-        }
-
-        final Map<String, BigDecimal> balancesAvailable = balanceInfo.getBalancesAvailable();
+        final Map<String, BigDecimal> balancesAvailable = getBalancesAvailable(exchange);
         final BigDecimal currentBalance = balancesAvailable.get(emergencyStopCurrency);
         if (currentBalance == null) {
             final String errorMsg =
@@ -368,7 +487,7 @@ public class TradingEngine {
             throw new IllegalStateException(errorMsg);
         } else {
 
-            LOG.info(() -> "Emergency Stop Currency balance available on exchange is ["
+            LOG.info(() -> "Emergency Stop Currency balance available on " + exchange.name + " is ["
                     + new DecimalFormat("#.########").format(currentBalance) + "] "
                     + emergencyStopCurrency);
 
@@ -378,7 +497,7 @@ public class TradingEngine {
             if (currentBalance.compareTo(emergencyStopBalance) < 0) {
                 final String balanceBlownErrorMsg =
                         "EMERGENCY STOP triggered! - Current Emergency Stop Currency [" + emergencyStopCurrency + "] wallet balance ["
-                                + new DecimalFormat("#.########").format(currentBalance) + "] on exchange "
+                                + new DecimalFormat("#.########").format(currentBalance) + "] on " + exchange.name + " "
                                 + "is lower than configured Emergency Stop balance ["
                                 + new DecimalFormat("#.########").format(emergencyStopBalance) + "] " + emergencyStopCurrency;
 
@@ -394,6 +513,43 @@ public class TradingEngine {
         return isEmergencyStopLimitBreached;
     }
 
+    /*
+     * Returns the balances kept in memory if they have been reconciled with the exchange recently enough, otherwise
+     * fetches them from the exchange.
+     */
+    private Map<String, BigDecimal> getBalancesAvailable(TradingExchange exchange)
+            throws TradingApiException, ExchangeNetworkException {
+
+        final BalanceKeeper balanceKeeper = exchange.balanceKeeper;
+        if (balanceKeeper != null && !balanceKeeper.isReconciliationDue()) {
+            LOG.info(() -> "Using balances kept in memory for " + exchange.name);
+            return balanceKeeper.getBalancesAvailable();
+        }
+
+        try {
+            if (balanceKeeper == null) {
+                return exchange.tradingApi.getBalanceInfo().getBalancesAvailable();
+            }
+            // Fetches and replaces in 1 step, so orders placed meanwhile are not lost or counted twice
+            balanceKeeper.reconcile();
+            return balanceKeeper.getBalancesAvailable();
+
+        } catch (TradingApiException e) {
+            final String errorMsg = "Failed to get Balance info from exchange to perform Emergency Stop check - letting"
+                    + " Trade Engine error policy decide what to do next...";
+            LOG.error(errorMsg, e);
+            // re-throw to main loop - might only be connection issue and it will retry...
+            throw e;
+        } catch (ExchangeNetworkException e) {
+            if (balanceKeeper == null || !balanceKeeper.isReconciled()) {
+                throw e;
+            }
+            // No need to stop trading - the balances kept in memory are still good. Try again next trade cycle.
+            LOG.warn("Failed to reconcile balances with " + exchange.name + " - using balances kept in memory", e);
+            return balanceKeeper.getBalancesAvailable();
+        }
+    }
+
     private String buildCriticalEmailAlertMsgContent(String errorDetails, Throwable exception) {
 
         final StringBuilder msgContent = new StringBuilder("A CRITICAL error event has occurred on BX-bot.");
@@ -402,7 +558,9 @@ public class TradingEngine {
         msgContent.append(HORIZONTAL_RULE);
         msgContent.append("Exchange Adapter:");
         msgContent.append(NEWLINE).append(NEWLINE);
-        msgContent.append(exchangeAdapter.getClass().getName());
+        msgContent.append(exchanges.values().stream()
+                .map(exchange -> exchange.exchangeAdapter.getClass().getName())
+                .collect(Collectors.joining(NEWLINE)));
         msgContent.append(NEWLINE).append(NEWLINE);
 
         msgContent.append(HORIZONTAL_RULE);
@@ -442,10 +600,26 @@ public class TradingEngine {
 
     private void loadExchangeAdapterConfig() {
 
-        final ExchangeConfig domainExchangeConfig = exchangeConfigRepository.getConfig();
-        LOG.info(() -> "Fetched Exchange config from repository: " + domainExchangeConfig);
+        final List<ExchangeConfig> domainExchangeConfigs = exchangeConfigRepository.findAllExchanges();
+        LOG.info(() -> "Fetched Exchange config from repository: " + domainExchangeConfigs);
+
+        for (final ExchangeConfig domainExchangeConfig : domainExchangeConfigs) {
+
+            if (exchanges.containsKey(domainExchangeConfig.getId())) {
+                final String errorMsg = "Found duplicate Exchange! Exchange details: " + domainExchangeConfig;
+                LOG.fatal(errorMsg);
+                throw new IllegalArgumentException(errorMsg);
+            }
+
+            final ExchangeAdapter exchangeAdapter = loadExchangeAdapter(domainExchangeConfig);
+            exchanges.put(domainExchangeConfig.getId(), new TradingExchange(domainExchangeConfig, exchangeAdapter));
+        }
+    }
+
+    private ExchangeAdapter loadExchangeAdapter(ExchangeConfig domainExchangeConfig) {
 
-        exchangeAdapter = ConfigurableComponentFactory.createComponent(domainExchangeConfig.getExchangeAdapter());
+        final ExchangeAdapter exchangeAdapter =
+                ConfigurableComponentFactory.createComponent(domainExchangeConfig.getExchangeAdapter());
         LOG.info(() -> "Trading Engine will use Exchange Adapter for: " + exchangeAdapter.getImplName());
 
         final ExchangeConfigImpl adapterExchangeConfig = new ExchangeConfigImpl();
@@ -457,6 +631,14 @@ public class TradingEngine {
             final NetworkConfigImpl adapterNetworkConfig = new NetworkConfigImpl();
             adapterNetworkConfig.setConnectionTimeout(networkConfig.getConnectionTimeout());
 
+            // Grab optional connection pool config - if not set, a new connection is used for every API call
+            adapterNetworkConfig.setMaxConnectionsPerHost(networkConfig.getMaxConnectionsPerHost());
+            adapterNetworkConfig.setIdleConnectionTimeout(networkConfig.getIdleConnectionTimeout());
+
+            // Grab optional rate limit config - if not set, API calls are not rate limited
+            adapterNetworkConfig.setRateLimitInterval(networkConfig.getRateLimitInterval());
+            adapterNetworkConfig.setRateLimitBurst(networkConfig.getRateLimitBurst());
+
             // Grab optional non-fatal error codes
             final List<Integer> nonFatalErrorCodes = networkConfig.getNonFatalErrorCodes();
             if (nonFatalErrorCodes != null) {
@@ -514,6 +696,7 @@ public class TradingEngine {
         }
 
         exchangeAdapter.init(adapterExchangeConfig);
+        return exchangeAdapter;
     }
 
     private void loadEngineConfig() {
@@ -522,8 +705,79 @@ public class TradingEngine {
         LOG.info(() -> "Fetched Engine config from repository: " + engineConfig);
 
         tradeExecutionInterval = engineConfig.getTradeCycleInterval();
-        emergencyStopCurrency = engineConfig.getEmergencyStopCurrency();
-        emergencyStopBalance = engineConfig.getEmergencyStopBalance();
+
+        // Exchanges without their own Emergency Stop limit use the engine's
+        for (final TradingExchange exchange : exchanges.values()) {
+            if (exchange.emergencyStopCurrency == null && exchange.emergencyStopBalance == null) {
+                exchange.emergencyStopCurrency = engineConfig.getEmergencyStopCurrency();
+                exchange.emergencyStopBalance = engineConfig.getEmergencyStopBalance();
+            } else if (exchange.emergencyStopCurrency == null || exchange.emergencyStopBalance == null) {
+                final String errorMsg = "Both the Emergency Stop currency and balance must be set for " + exchange.name
+                        + " exchange if either of them is set.";
+                LOG.fatal(errorMsg);
+                throw new IllegalArgumentException(errorMsg);
+            }
+        }
+
+        // Optional in-memory balances - innermost, so the serialising wrapper also covers the balance updates
+        balanceReconciliationInterval = engineConfig.getBalanceReconciliationInterval();
+        if (balanceReconciliationInterval != null) {
+            LOG.info(() -> "Emergency Stop balances will be kept in memory and reconciled with the exchange every "
+                    + balanceReconciliationInterval + "s");
+            for (final TradingExchange exchange : exchanges.values()) {
+                exchange.balanceKeeper = new BalanceKeeper(exchange.exchangeAdapter,
+                        balanceReconciliationInterval * 1000L);
+                exchange.tradingApi = exchange.balanceKeeper;
+            }
+        }
+
+        // Optional parallel strategy execution - if not set, strategies are executed one after another
+        if (engineConfig.getStrategyExecutionThreads() != null) {
+            strategyExecutionThreads = engineConfig.getStrategyExecutionThreads();
+        }
+        strategyExecutionTimeout = engineConfig.getStrategyExecutionTimeout();
+
+        // Each exchange gets its own threads if there is more than 1, so they are traded at the same time
+        if (strategyExecutionThreads > 1 || exchanges.size() > 1) {
+
+            final int timeoutInSecs = strategyExecutionTimeout != null ? strategyExecutionTimeout : tradeExecutionInterval;
+            LOG.info(() -> "Trading Strategies will be executed in parallel using " + strategyExecutionThreads
+                    + " threads per exchange with a " + timeoutInSecs + "s timeout");
+
+            for (final TradingExchange exchange : exchanges.values()) {
+                exchange.parallelStrategyExecutor =
+                        new ParallelStrategyExecutor(strategyExecutionThreads, timeoutInSecs * 1000L);
+                exchange.shareTradingApi();
+            }
+        }
+
+        // Optional request coalescing and caching - each call's own TTL, if set, overrides the shared window
+        final Integer requestCoalescingWindow = engineConfig.getRequestCoalescingWindow();
+        final Long sharedWindow = requestCoalescingWindow != null ? Long.valueOf(requestCoalescingWindow) : null;
+        final Integer exchangeFeeCacheTtl = engineConfig.getExchangeFeeCacheTtl();
+        final Long feeWindow = exchangeFeeCacheTtl != null ? Long.valueOf(exchangeFeeCacheTtl * 1000L) : sharedWindow;
+
+        freshnessWindows = new EnumMap<>(CachedCall.class);
+        putFreshnessWindow(CachedCall.MARKET_ORDERS, engineConfig.getMarketOrdersCacheTtl(), sharedWindow);
+        putFreshnessWindow(CachedCall.TOP_OF_BOOK, engineConfig.getTopOfBookCacheTtl(), sharedWindow);
+        putFreshnessWindow(CachedCall.LATEST_MARKET_PRICE, engineConfig.getLatestPriceCacheTtl(), sharedWindow);
+        putFreshnessWindow(CachedCall.BALANCE_INFO, engineConfig.getBalanceInfoCacheTtl(), sharedWindow);
+        putFreshnessWindow(CachedCall.BUY_ORDER_FEE, engineConfig.getBuyFeeCacheTtl(), feeWindow);
+        putFreshnessWindow(CachedCall.SELL_ORDER_FEE, engineConfig.getSellFeeCacheTtl(), feeWindow);
+
+        // Optional market events for event driven strategies - if not set, strategies only find out in execute()
+        marketEventPollInterval = engineConfig.getMarketEventPollInterval();
+    }
+
+    private void putFreshnessWindow(CachedCall call, Integer cacheTtl, Long fallbackWindow) {
+        final Long freshnessWindow = cacheTtl != null ? Long.valueOf(cacheTtl) : fallbackWindow;
+        if (freshnessWindow != null && freshnessWindow > 0) {
+            LOG.info(() -> "Identical " + call + " calls will be coalesced with a " + freshnessWindow
+                    + "ms freshness window");
+            freshnessWindows.put(call, freshnessWindow);
+        } else if (freshnessWindow != null) {
+            LOG.info(() -> call + " calls have a 0ms freshness window - they will not be coalesced");
+        }
     }
 
     private void loadTradingStrategyConfig() {
@@ -545,6 +799,32 @@ public class TradingEngine {
         // used only as crude mechanism for checking for duplicate Markets
         final Set<Market> loadedMarkets = new HashSet<>();
 
+        for (final TradingExchange exchange : exchanges.values()) {
+
+            // Markets with their own trade cycle interval are executed off the engine thread
+            final boolean hasMarketTradeCycleIntervals = markets.stream()
+                    .anyMatch(market -> market.isEnabled() && market.getTradeCycleInterval() != null
+                            && findExchangeForMarket(market) == exchange);
+            if (hasMarketTradeCycleIntervals) {
+                exchange.marketScheduler = new MarketScheduler(() -> engineThread.interrupt());
+                exchange.shareTradingApi();
+            }
+
+            // Market events are polled off the engine thread
+            if (marketEventPollInterval != null) {
+                exchange.marketEventDispatcher = new MarketEventDispatcher(strategyExecutionThreads,
+                        marketEventPollInterval, () -> engineThread.interrupt());
+                exchange.shareTradingApi();
+            }
+        }
+
+        // Coalesce outside the serialising wrapper so identical calls share 1 turn at the authenticated API
+        if (!freshnessWindows.isEmpty()) {
+            for (final TradingExchange exchange : exchanges.values()) {
+                exchange.tradingApi = new CoalescingTradingApi(exchange.tradingApi, freshnessWindows);
+            }
+        }
+
         // Load em up and create the Strategies
         for (final MarketConfig market : markets) {
 
@@ -562,47 +842,461 @@ public class TradingEngine {
                 throw new IllegalArgumentException(errorMsg);
             }
 
-            // Get the strategy to use for this Market
-            final String strategyToUse = market.getTradingStrategy();
-            LOG.info(() -> "Market Trading Strategy Id: " + strategyToUse);
+            runningMarkets.put(market.getId(), startMarket(market, tradingMarket));
+        }
+        refreshTradingStrategiesToExecute();
 
-            if (strategyDescriptions.containsKey(strategyToUse)) {
-                final StrategyConfig tradingStrategy = strategyDescriptions.get(strategyToUse);
-                final String tradingStrategyClassname = tradingStrategy.getClassName();
+        LOG.info(() -> "Loaded and set Market configuration successfully!");
+    }
 
-                // Grab optional config for the Trading Strategy
-                final StrategyConfigItems tradingStrategyConfig = new StrategyConfigItems();
-                final Map<String, String> configItems = tradingStrategy.getConfigItems();
-                if (configItems != null) {
-                    tradingStrategyConfig.setItems(configItems);
-                } else {
-                    LOG.info(() -> "No (optional) configuration has been set for Trading Strategy: " + strategyToUse);
-                }
+    /*
+     * Creates and initialises the Trading Strategy for a Market, and hands it to whatever is going to execute it.
+     */
+    private RunningMarket startMarket(MarketConfig market, Market tradingMarket) {
 
-                LOG.info(() -> "StrategyConfigImpl (optional): " + tradingStrategyConfig);
+        final String marketName = market.getLabel();
 
-                /*
-                 * Load the Trading Strategy impl, instantiate it, set its config, and store in the cached
-                 * Trading Strategy execution list.
-                 */
-                final TradingStrategy strategyImpl = ConfigurableComponentFactory.createComponent(tradingStrategyClassname);
-                strategyImpl.init(exchangeAdapter, tradingMarket, tradingStrategyConfig);
+        // Get the strategy to use for this Market
+        final String strategyToUse = market.getTradingStrategy();
+        LOG.info(() -> "Market Trading Strategy Id: " + strategyToUse);
 
-                LOG.info(() -> "Initialized trading strategy successfully. Name: [" + tradingStrategy.getLabel()
-                        + "] Class: " + tradingStrategy.getClassName());
+        final StrategyConfig tradingStrategy = strategyDescriptions.get(strategyToUse);
+        if (tradingStrategy == null) {
 
-                tradingStrategiesToExecute.add(strategyImpl);
-            } else {
+            // Game over. Config integrity blown - we can't find strat.
+            final String errorMsg = "Failed to find matching Strategy for Market " + market
+                    + " - The Strategy " + "[" + strategyToUse + "] cannot be found in the "
+                    + " Strategy Descriptions map: " + strategyDescriptions;
+            LOG.error(errorMsg);
+            throw new IllegalArgumentException(errorMsg);
+        }
+
+        // Get the exchange to trade this Market on
+        final TradingExchange exchange = findExchangeForMarket(market);
+        if (exchange == null) {
+
+            // Config integrity blown - we can't find the exchange.
+            final String errorMsg = "Failed to find matching Exchange for Market " + market
+                    + " - The Exchange [" + market.getExchange() + "] cannot be found in the Exchanges: "
+                    + exchanges.keySet();
+            LOG.error(errorMsg);
+            throw new IllegalArgumentException(errorMsg);
+        }
+
+        if (exchange.balanceKeeper != null) {
+            exchange.balanceKeeper.addMarket(tradingMarket);
+        }
 
-                // Game over. Config integrity blown - we can't find strat.
-                final String errorMsg = "Failed to find matching Strategy for Market " + market
-                        + " - The Strategy " + "[" + strategyToUse + "] cannot be found in the "
-                        + " Strategy Descriptions map: " + strategyDescriptions;
+        // Only happens when a market with its own trade cycle interval is added after startup
+        final Integer marketTradeCycleInterval = market.getTradeCycleInterval();
+        if (marketTradeCycleInterval != null && exchange.marketScheduler == null) {
+            if (exchange.parallelStrategyExecutor == null && exchange.marketEventDispatcher == null) {
+                final String errorMsg = "Cannot give " + marketName + " market its own trade cycle interval - the "
+                        + "Trading Strategies were initialised to run on the engine thread only. Restart the bot to "
+                        + "apply this change.";
                 LOG.error(errorMsg);
-                throw new IllegalArgumentException(errorMsg);
+                throw new IllegalStateException(errorMsg);
             }
+            exchange.marketScheduler = new MarketScheduler(() -> engineThread.interrupt());
         }
 
-        LOG.info(() -> "Loaded and set Market configuration successfully!");
+        final String tradingStrategyClassname = tradingStrategy.getClassName();
+
+        // Grab optional config for the Trading Strategy
+        final StrategyConfigItems tradingStrategyConfig = new StrategyConfigItems();
+        final Map<String, String> configItems = tradingStrategy.getConfigItems();
+        if (configItems != null) {
+            tradingStrategyConfig.setItems(configItems);
+        } else {
+            LOG.info(() -> "No (optional) configuration has been set for Trading Strategy: " + strategyToUse);
+        }
+
+        LOG.info(() -> "StrategyConfigImpl (optional): " + tradingStrategyConfig);
+
+        /*
+         * Load the Trading Strategy impl, instantiate it, set its config, and hand it to whatever executes it.
+         */
+        final TradingStrategy strategyImpl = ConfigurableComponentFactory.createComponent(tradingStrategyClassname);
+        final TradingStrategy strategyToExecute;
+        MarketEventDispatcher.MarketWatch marketWatch = null;
+        if (exchange.marketEventDispatcher != null && strategyImpl instanceof EventDrivenTradingStrategy) {
+            marketWatch = exchange.marketEventDispatcher.watch((EventDrivenTradingStrategy) strategyImpl,
+                    tradingMarket, exchange.tradingApi);
+            try {
+                initTradingStrategy(strategyImpl, marketWatch.getTradingApi(), exchange, tradingMarket,
+                        tradingStrategyConfig);
+            } catch (RuntimeException e) {
+                marketWatch.cancel();
+                throw e;
+            }
+            strategyToExecute = marketWatch.getTradingStrategy();
+            LOG.info(() -> "Trading Strategy for market " + marketName + " will be called back on market events");
+        } else {
+            initTradingStrategy(strategyImpl, exchange.tradingApi, exchange, tradingMarket, tradingStrategyConfig);
+            strategyToExecute = strategyImpl;
+        }
+
+        LOG.info(() -> "Initialized trading strategy successfully. Name: [" + tradingStrategy.getLabel()
+                + "] Class: " + tradingStrategy.getClassName() + " Exchange: " + exchange.name);
+
+        MarketScheduler.MarketTimeline marketTimeline = null;
+        if (marketTradeCycleInterval != null) {
+            final int timeoutInSecs = strategyExecutionTimeout != null
+                    ? strategyExecutionTimeout : marketTradeCycleInterval;
+            marketTimeline = exchange.marketScheduler.schedule(strategyToExecute, marketName,
+                    marketTradeCycleInterval * 1000L, timeoutInSecs * 1000L);
+        }
+        return new RunningMarket(exchange, market, tradingStrategy, strategyToExecute, marketTimeline, marketWatch);
+    }
+
+    /*
+     * Returns the exchange a Market is traded on: the one it names, or the first exchange if it does not name one.
+     * Returns null if the exchange it names cannot be found.
+     */
+    private TradingExchange findExchangeForMarket(MarketConfig market) {
+        if (market.getExchange() == null) {
+            return exchanges.values().iterator().next();
+        }
+        return exchanges.get(market.getExchange());
+    }
+
+    /*
+     * Initialises a Trading Strategy with the Trading API of the exchange its Market is traded on. Multi-exchange
+     * strategies get the Trading APIs of the other exchanges too, after that one. These are only usable while the
+     * Emergency Stop check for their exchange is passing, and their balances follow the strategy's orders too.
+     */
+    private void initTradingStrategy(TradingStrategy strategyImpl, TradingApi tradingApi, TradingExchange exchange,
+                                     Market tradingMarket, StrategyConfigItems tradingStrategyConfig) {
+
+        if (strategyImpl instanceof MultiExchangeTradingStrategy) {
+            final Map<String, TradingApi> tradingApis = new LinkedHashMap<>();
+            exchanges.forEach((exchangeId, otherExchange) -> {
+                if (otherExchange == exchange) {
+                    tradingApis.put(exchangeId, tradingApi);
+                }
+            });
+            exchanges.forEach((exchangeId, otherExchange) -> {
+                if (otherExchange != exchange) {
+                    if (otherExchange.balanceKeeper != null) {
+                        otherExchange.balanceKeeper.addMarket(tradingMarket);
+                    }
+                    tradingApis.put(exchangeId,
+                            new GatedTradingApi(otherExchange.tradingApi, otherExchange.emergencyStopGate));
+                }
+            });
+            ((MultiExchangeTradingStrategy) strategyImpl).init(tradingApis, tradingMarket, tradingStrategyConfig);
+        } else {
+            strategyImpl.init(tradingApi, tradingMarket, tradingStrategyConfig);
+        }
+    }
+
+    /*
+     * Rebuilds the list of Trading Strategies executed every engine trade cycle from the running Markets.
+     */
+    private void refreshTradingStrategiesToExecute() {
+
+        exchanges.values().forEach(exchange -> exchange.tradingStrategiesToExecute.clear());
+        for (final RunningMarket runningMarket : runningMarkets.values()) {
+            if (runningMarket.marketTimeline == null && !runningMarket.paused) {
+                runningMarket.exchange.tradingStrategiesToExecute.add(runningMarket.strategyToExecute);
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Live config change methods
+    // ------------------------------------------------------------------------
+
+    /*
+     * Re-reads the Market and Strategy config and brings the running Markets into line with it.
+     *
+     * Unlike at startup, a Market with bad config does not shut the bot down: it is logged and left out, so a bad edit
+     * cannot stop the other Markets trading. It is picked up again when its config is next changed.
+     */
+    private void applyMarketAndStrategyConfigChanges() {
+
+        // Clear the flag first - a change made while we are reading the config is then applied next trade cycle
+        marketsOrStrategiesChanged = false;
+        LOG.info(() -> "Applying Market and Strategy config changes...");
+
+        strategyDescriptions.clear();
+        loadTradingStrategyConfig();
+
+        final List<MarketConfig> markets = marketConfigRepository.findAllMarkets();
+        LOG.info(() -> "Fetched Markets config from repository: " + markets);
+
+        final Map<String, RunningMarket> marketsToStop = new LinkedHashMap<>(runningMarkets);
+        final Set<String> marketIds = new HashSet<>();
+        runningMarkets.clear();
+
+        for (final MarketConfig market : markets) {
+
+            final String marketName = market.getLabel();
+            if (!marketIds.add(market.getId())) {
+                LOG.error("Found duplicate Market - it will not be traded! Market details: " + market);
+                continue;
+            }
+
+            final RunningMarket runningMarket = marketsToStop.remove(market.getId());
+            if (runningMarket != null && isStartedWithSameConfig(runningMarket, market)) {
+                if (runningMarket.paused == market.isEnabled()) {
+                    runningMarket.setPaused(!market.isEnabled());
+                    LOG.info(() -> marketName + " market has been " + (market.isEnabled() ? "resumed" : "paused"));
+                }
+                runningMarkets.put(market.getId(), runningMarket);
+                continue;
+            }
+
+            if (runningMarket != null) {
+                LOG.info(() -> marketName + " market or its Trading Strategy config has changed - stopping it...");
+                runningMarket.stop();
+            }
+
+            if (!market.isEnabled()) {
+                LOG.info(() -> marketName + " market is NOT enabled for trading - skipping to next market...");
+                continue;
+            }
+
+            try {
+                final Market tradingMarket = new Market(marketName, market.getId(), market.getBaseCurrency(),
+                        market.getCounterCurrency());
+                runningMarkets.put(market.getId(), startMarket(market, tradingMarket));
+                LOG.info(() -> marketName + " market has been started");
+            } catch (RuntimeException e) {
+                LOG.error("Failed to start " + marketName + " market - it will not be traded until its config is "
+                        + "changed. Market details: " + market, e);
+            }
+        }
+
+        for (final RunningMarket removedMarket : marketsToStop.values()) {
+            LOG.info(() -> removedMarket.marketConfig.getLabel() + " market has been removed - stopping it...");
+            removedMarket.stop();
+        }
+
+        refreshTradingStrategiesToExecute();
+        LOG.info(() -> "Market and Strategy config changes applied successfully!");
+    }
+
+    /*
+     * Checks if a running Market would be started the same way with its latest config. The enabled flag and the
+     * Strategy's label and description are not compared - they do not need a new Trading Strategy instance.
+     */
+    private boolean isStartedWithSameConfig(RunningMarket runningMarket, MarketConfig market) {
+
+        final MarketConfig startedWith = runningMarket.marketConfig;
+        final StrategyConfig strategy = strategyDescriptions.get(market.getTradingStrategy());
+
+        return strategy != null
+                && Objects.equals(startedWith.getLabel(), market.getLabel())
+                && Objects.equals(startedWith.getBaseCurrency(), market.getBaseCurrency())
+                && Objects.equals(startedWith.getCounterCurrency(), market.getCounterCurrency())
+                && Objects.equals(startedWith.getTradingStrategy(), market.getTradingStrategy())
+                && Objects.equals(startedWith.getTradeCycleInterval(), market.getTradeCycleInterval())
+                && Objects.equals(startedWith.getExchange(), market.getExchange())
+                && Objects.equals(runningMarket.strategyConfig.getClassName(), strategy.getClassName())
+                && Objects.equals(runningMarket.strategyConfig.getConfigItems(), strategy.getConfigItems());
+    }
+
+    // ------------------------------------------------------------------------
+    // Inner classes
+    // ------------------------------------------------------------------------
+
+    /*
+     * An exchange being traded on: its Exchange Adapter, its Emergency Stop limit, and the threads its Trading
+     * Strategies are executed on off the engine thread. Each exchange has its own threads, so the Trading Strategies of
+     * a slow exchange cannot hold up the others.
+     */
+    private static final class TradingExchange {
+
+        private final String name;
+        private final ExchangeAdapter exchangeAdapter;
+
+        /*
+         * The Trading API passed to the Trading Strategies and used for the Emergency Stop check.
+         * This is the Exchange Adapter, or a wrapper around it that keeps the balances in memory if a balance
+         * reconciliation interval has been set, serialises authenticated calls if the strategies are executed off the
+         * engine thread and/or coalesces and caches identical read calls if request coalescing or fee caching has been
+         * configured.
+         */
+        private AsyncTradingApi tradingApi;
+
+        /*
+         * Keeps the balances on the exchange in memory for the Emergency Stop check. Null if no balance reconciliation
+         * interval has been set.
+         */
+        private BalanceKeeper balanceKeeper;
+
+        /*
+         * The emergency stop currency value is used to prevent a catastrophic loss on the exchange.
+         * It is set to the currency short code, e.g. BTC, USD.
+         * This is normally the currency you intend to hold a long position in.
+         */
+        private String emergencyStopCurrency;
+
+        /*
+         * The Emergency Stop balance.
+         * It is used to prevent a catastrophic loss on the exchange.
+         * The Trading Engine checks this value at the start of every trade cycle: if the balance on
+         * the exchange drops below this value, the Trading Engine will stop trading on all markets.
+         * Manual intervention is then required to restart the bot.
+         */
+        private BigDecimal emergencyStopBalance;
+
+        /*
+         * Executes the Trading Strategies in parallel. Null if they are executed one after another on the engine
+         * thread.
+         */
+        private ParallelStrategyExecutor parallelStrategyExecutor;
+
+        /*
+         * Drives the markets that have their own trade cycle interval. Null if no market has one.
+         */
+        private MarketScheduler marketScheduler;
+
+        /*
+         * Calls back the event driven Trading Strategies when something changes on their market. Null if no market
+         * event poll interval has been set.
+         */
+        private MarketEventDispatcher marketEventDispatcher;
+
+        /*
+         * Holds the latest Emergency Stop check result for the multi-exchange Trading Strategies of the other
+         * exchanges that trade on this one.
+         */
+        private final EmergencyStopGate emergencyStopGate = new EmergencyStopGate();
+
+        /*
+         * The Trading Strategies executed every engine trade cycle.
+         */
+        private final List<TradingStrategy> tradingStrategiesToExecute = new ArrayList<>();
+
+        TradingExchange(ExchangeConfig exchangeConfig, ExchangeAdapter exchangeAdapter) {
+            this.name = exchangeConfig.getExchangeName();
+            this.exchangeAdapter = exchangeAdapter;
+            this.tradingApi = exchangeAdapter;
+            this.emergencyStopCurrency = exchangeConfig.getEmergencyStopCurrency();
+            this.emergencyStopBalance = exchangeConfig.getEmergencyStopBalance();
+        }
+
+        /*
+         * Wraps the Exchange Adapter so its authenticated calls are serialised, for when the Trading Strategies are
+         * executed off the engine thread.
+         */
+        void shareTradingApi() {
+            if (tradingApi == exchangeAdapter || tradingApi == balanceKeeper) {
+                tradingApi = new SharedTradingApi(tradingApi);
+            }
+        }
+
+        void checkForFailure() throws StrategyException {
+            if (marketScheduler != null) {
+                marketScheduler.checkForFailure();
+            }
+            if (marketEventDispatcher != null) {
+                marketEventDispatcher.checkForFailure();
+            }
+        }
+
+        /*
+         * Lets the markets on their own timelines, and other exchanges' multi-exchange Trading Strategies, trade for
+         * the given time after the Emergency Stop check has passed.
+         */
+        void allowMarketTimelinesToTrade(long millis) {
+            emergencyStopGate.openFor(millis);
+            if (marketScheduler != null) {
+                marketScheduler.allowTradingFor(millis);
+            }
+            if (marketEventDispatcher != null) {
+                marketEventDispatcher.allowTradingFor(millis);
+            }
+        }
+
+        /*
+         * Stops the markets on their own timelines, and other exchanges' multi-exchange Trading Strategies, trading
+         * after the Emergency Stop check has failed or could not be made.
+         */
+        void holdMarketTimelines() {
+            emergencyStopGate.close();
+            if (marketScheduler != null) {
+                marketScheduler.holdTrading();
+            }
+            if (marketEventDispatcher != null) {
+                marketEventDispatcher.holdTrading();
+            }
+        }
+
+        void startMarketTimelines() {
+            if (marketScheduler != null) {
+                marketScheduler.start();
+            }
+            if (marketEventDispatcher != null) {
+                marketEventDispatcher.start();
+            }
+        }
+
+        void shutdown() {
+            if (marketScheduler != null) {
+                marketScheduler.shutdown();
+            }
+            if (marketEventDispatcher != null) {
+                marketEventDispatcher.shutdown();
+            }
+            if (parallelStrategyExecutor != null) {
+                parallelStrategyExecutor.shutdown();
+            }
+        }
+    }
+
+    /*
+     * A Market being traded: the config it was started with, and how its Trading Strategy is being executed.
+     */
+    private static final class RunningMarket {
+
+        private final TradingExchange exchange;
+        private final MarketConfig marketConfig;
+        private final StrategyConfig strategyConfig;
+        private final TradingStrategy strategyToExecute;
+
+        // null if the Market is traded every engine trade cycle
+        private final MarketScheduler.MarketTimeline marketTimeline;
+
+        // null if the Market's Trading Strategy is not called back on market events
+        private final MarketEventDispatcher.MarketWatch marketWatch;
+
+        private boolean paused;
+
+        RunningMarket(TradingExchange exchange, MarketConfig marketConfig, StrategyConfig strategyConfig,
+                      TradingStrategy strategyToExecute, MarketScheduler.MarketTimeline marketTimeline,
+                      MarketEventDispatcher.MarketWatch marketWatch) {
+            this.exchange = exchange;
+            this.marketConfig = marketConfig;
+            this.strategyConfig = strategyConfig;
+            this.strategyToExecute = strategyToExecute;
+            this.marketTimeline = marketTimeline;
+            this.marketWatch = marketWatch;
+        }
+
+        void setPaused(boolean paused) {
+            this.paused = paused;
+            if (marketTimeline != null) {
+                marketTimeline.setPaused(paused);
+            }
+            if (marketWatch != null) {
+                marketWatch.setPaused(paused);
+            }
+        }
+
+        /*
+         * Waits for the Trading Strategy to finish if it is being executed off the engine thread, so it is never
+         * executed again once this returns.
+         */
+        void stop() {
+            if (marketTimeline != null) {
+                marketTimeline.cancel();
+            }
+            if (marketWatch != null) {
+                marketWatch.cancel();
+            }
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,389 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.engine;
+
+import com.gazbert.bxbot.trading.api.AsyncTradingApi;
+import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.Market;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the Balance Keeper follows the orders placed through it and reconciles with the exchange as expected.
+ *
+ * @author gazbert
+ */
+public class TestBalanceKeeper {
+
+    private static final Market MARKET = new Market("BTC/USD", "btc_usd", "BTC", "USD");
+    private static final String OTHER_MARKET_ID = "ltc_usd";
+    private static final long RECONCILIATION_INTERVAL_MILLIS = 100;
+
+    private FakeTradingApi exchange;
+    private BalanceKeeper balanceKeeper;
+
+
+    @Before
+    public void setupForEachTest() {
+        exchange = new FakeTradingApi();
+        exchange.balancesAvailable.put("BTC", new BigDecimal("2"));
+        exchange.balancesAvailable.put("USD", new BigDecimal("1000"));
+
+        balanceKeeper = new BalanceKeeper(exchange, RECONCILIATION_INTERVAL_MILLIS);
+        balanceKeeper.addMarket(MARKET);
+    }
+
+    @Test
+    public void testReconcileReplacesBalances() throws Exception {
+
+        assertFalse(balanceKeeper.isReconciled());
+        assertTrue(balanceKeeper.isReconciliationDue());
+
+        balanceKeeper.reconcile();
+        assertTrue(balanceKeeper.isReconciled());
+        assertFalse(balanceKeeper.isReconciliationDue());
+        assertBalance("2", "BTC");
+        assertBalance("1000", "USD");
+
+        Thread.sleep(RECONCILIATION_INTERVAL_MILLIS + 10);
+        assertTrue(balanceKeeper.isReconciliationDue());
+    }
+
+    @Test
+    public void testBuyOrderReservesCounterCurrencyAndFillAddsBaseCurrency() throws Exception {
+
+        balanceKeeper.reconcile();
+        balanceKeeper.createOrder(MARKET.getId(), OrderType.BUY, new BigDecimal("1"), new BigDecimal("300"));
+        assertBalance("700", "USD");
+        assertBalance("2", "BTC");
+
+        // Partly filled
+        exchange.setQuantityRemaining("order-1", new BigDecimal("0.25"));
+        balanceKeeper.getYourOpenOrders(MARKET.getId());
+        assertBalance("700", "USD");
+        assertBalance("2.75", "BTC");
+
+        // No longer open, so the rest has filled
+        exchange.openOrders.clear();
+        balanceKeeper.getYourOpenOrders(MARKET.getId());
+        assertBalance("700", "USD");
+        assertBalance("3", "BTC");
+
+        // Already counted
+        balanceKeeper.getYourOpenOrders(MARKET.getId());
+        assertBalance("3", "BTC");
+    }
+
+    @Test
+    public void testSellOrderReservesBaseCurrencyAndFillAddsCounterCurrency() throws Exception {
+
+        balanceKeeper.reconcile();
+        balanceKeeper.createOrder(MARKET.getId(), OrderType.SELL, new BigDecimal("1.5"), new BigDecimal("400"));
+        assertBalance("0.5", "BTC");
+
+        exchange.openOrders.clear();
+        balanceKeeper.getYourOpenOrders(MARKET.getId());
+        assertBalance("0.5", "BTC");
+        assertBalance("1600", "USD");
+    }
+
+    @Test
+    public void testCancelledOrderReleasesWhatIsLeft() throws Exception {
+
+        balanceKeeper.reconcile();
+        balanceKeeper.createOrder(MARKET.getId(), OrderType.BUY, new BigDecimal("2"), new BigDecimal("100"));
+        exchange.setQuantityRemaining("order-1", new BigDecimal("1.5"));
+        balanceKeeper.getYourOpenOrders(MARKET.getId());
+        assertBalance("800", "USD");
+        assertBalance("2.5", "BTC");
+
+        assertTrue(balanceKeeper.cancelOrder("order-1", MARKET.getId()));
+        assertBalance("950", "USD");
+        assertBalance("2.5", "BTC");
+
+        // Cancelled orders are not mistaken for fills
+        exchange.openOrders.clear();
+        balanceKeeper.getYourOpenOrders(MARKET.getId());
+        assertBalance("950", "USD");
+        assertBalance("2.5", "BTC");
+    }
+
+    @Test
+    public void testFailedCancelLeavesBalancesAlone() throws Exception {
+
+        balanceKeeper.reconcile();
+        balanceKeeper.createOrder(MARKET.getId(), OrderType.SELL, new BigDecimal("1"), new BigDecimal("100"));
+        exchange.cancelSucceeds = false;
+
+        assertFalse(balanceKeeper.cancelOrder("order-1", MARKET.getId()));
+        assertBalance("1", "BTC");
+        assertFalse(balanceKeeper.isReconciliationDue());
+    }
+
+    /*
+     * The order part fills after it was last seen, so the cancel gives back more than was left. The next
+     * reconciliation is due straight away, and picks up the fill from the exchange.
+     */
+    @Test
+    public void testCancelAfterUnseenPartFillIsReconciledStraightAway() throws Exception {
+
+        balanceKeeper.reconcile();
+        balanceKeeper.createOrder(MARKET.getId(), OrderType.BUY, new BigDecimal("2"), new BigDecimal("100"));
+        exchange.setQuantityRemaining("order-1", new BigDecimal("0.5"));
+        exchange.balancesAvailable.put("BTC", new BigDecimal("3.5"));
+        exchange.balancesAvailable.put("USD", new BigDecimal("800"));
+        assertFalse(balanceKeeper.isReconciliationDue());
+
+        assertTrue(balanceKeeper.cancelOrder("order-1", MARKET.getId()));
+        exchange.balancesAvailable.put("USD", new BigDecimal("850"));
+        assertBalance("1000", "USD");
+        assertBalance("2", "BTC");
+        assertTrue(balanceKeeper.isReconciliationDue());
+
+        balanceKeeper.reconcile();
+        assertFalse(balanceKeeper.isReconciliationDue());
+        assertBalance("850", "USD");
+        assertBalance("3.5", "BTC");
+    }
+
+    @Test
+    public void testOrdersOnOtherMarketsAreIgnored() throws Exception {
+
+        balanceKeeper.reconcile();
+        balanceKeeper.createOrder(OTHER_MARKET_ID, OrderType.BUY, new BigDecimal("1"), new BigDecimal("300"));
+        exchange.openOrders.clear();
+        balanceKeeper.getYourOpenOrders(OTHER_MARKET_ID);
+
+        assertBalance("2", "BTC");
+        assertBalance("1000", "USD");
+    }
+
+    @Test
+    public void testReconcileCorrectsDrift() throws Exception {
+
+        balanceKeeper.reconcile();
+        balanceKeeper.createOrder(MARKET.getId(), OrderType.BUY, new BigDecimal("1"), new BigDecimal("300"));
+        assertBalance("700", "USD");
+
+        // The exchange took a fee
+        exchange.balancesAvailable.put("USD", new BigDecimal("699.25"));
+        balanceKeeper.reconcile();
+        assertBalance("699.25", "USD");
+    }
+
+    @Test
+    public void testFillBeforeReconcileIsNotCountedTwice() throws Exception {
+
+        balanceKeeper.reconcile();
+        balanceKeeper.createOrder(MARKET.getId(), OrderType.BUY, new BigDecimal("1"), new BigDecimal("300"));
+        exchange.balancesAvailable.put("USD", new BigDecimal("700"));
+        balanceKeeper.getYourOpenOrders(MARKET.getId());
+        assertBalance("2", "BTC");
+
+        // Fills after the open orders were last fetched, and is in the exchange's balances when reconciling
+        exchange.openOrders.clear();
+        exchange.balancesAvailable.put("BTC", new BigDecimal("3"));
+        balanceKeeper.reconcile();
+        assertBalance("3", "BTC");
+
+        balanceKeeper.getYourOpenOrders(MARKET.getId());
+        assertBalance("3", "BTC");
+        assertBalance("700", "USD");
+    }
+
+    @Test
+    public void testPartFillBeforeReconcileIsNotCountedTwice() throws Exception {
+
+        balanceKeeper.reconcile();
+        balanceKeeper.createOrder(MARKET.getId(), OrderType.SELL, new BigDecimal("1"), new BigDecimal("400"));
+        exchange.balancesAvailable.put("BTC", new BigDecimal("1"));
+        balanceKeeper.getYourOpenOrders(MARKET.getId());
+
+        exchange.setQuantityRemaining("order-1", new BigDecimal("0.75"));
+        exchange.balancesAvailable.put("USD", new BigDecimal("1100"));
+        balanceKeeper.reconcile();
+
+        // Only the quarter that fills after reconciling is credited
+        exchange.setQuantityRemaining("order-1", new BigDecimal("0.5"));
+        balanceKeeper.getYourOpenOrders(MARKET.getId());
+        assertBalance("1200", "USD");
+    }
+
+    @Test
+    public void testOrderPlacedWhileReconcilingIsCountedOnce() throws Exception {
+
+        balanceKeeper.reconcile();
+        exchange.balanceFetchStarted = new CountDownLatch(1);
+        exchange.balanceFetchReleased = new CountDownLatch(1);
+
+        final List<Exception> failures = Collections.synchronizedList(new ArrayList<>());
+        final Thread reconciling = new Thread(() -> {
+            try {
+                balanceKeeper.reconcile();
+            } catch (Exception e) {
+                failures.add(e);
+            }
+        });
+        final Thread placingOrder = new Thread(() -> {
+            try {
+                balanceKeeper.createOrder(MARKET.getId(), OrderType.BUY, new BigDecimal("1"), new BigDecimal("300"));
+            } catch (Exception e) {
+                failures.add(e);
+            }
+        });
+
+        reconciling.start();
+        assertTrue(exchange.balanceFetchStarted.await(1, TimeUnit.SECONDS));
+        placingOrder.start();
+
+        // The order waits for the reconciliation
+        Thread.sleep(50);
+        assertNull(exchange.openOrders.get("order-1"));
+
+        exchange.balanceFetchReleased.countDown();
+        reconciling.join(1000);
+        placingOrder.join(1000);
+        assertTrue(failures.isEmpty());
+        assertBalance("700", "USD");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReconciliationIntervalMustBePositive() {
+        new BalanceKeeper(exchange, 0);
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private void assertBalance(String expectedBalance, String currency) {
+        assertEquals(0, new BigDecimal(expectedBalance).compareTo(balanceKeeper.getBalancesAvailable().get(currency)));
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util classes
+    // ------------------------------------------------------------------------------------------------
+
+    /*
+     * An 'exchange' the tests set the balances and open orders of.
+     */
+    private static class FakeTradingApi implements AsyncTradingApi {
+
+        final Map<String, BigDecimal> balancesAvailable = new HashMap<>();
+        final Map<String, OpenOrder> openOrders = new HashMap<>();
+        boolean cancelSucceeds = true;
+        volatile CountDownLatch balanceFetchStarted;
+        volatile CountDownLatch balanceFetchReleased;
+        private int orderCount;
+
+        void setQuantityRemaining(String orderId, BigDecimal quantity) {
+            openOrders.get(orderId).setQuantity(quantity);
+        }
+
+        @Override
+        public String getImplName() {
+            return "Fake Test Exchange";
+        }
+
+        @Override
+        public MarketOrderBook getMarketOrders(String marketId) {
+            return new MarketOrderBook(marketId, Collections.emptyList(), Collections.emptyList());
+        }
+
+        @Override
+        public List<OpenOrder> getYourOpenOrders(String marketId) {
+            final List<OpenOrder> yourOpenOrders = new ArrayList<>();
+            for (final OpenOrder openOrder : openOrders.values()) {
+                if (openOrder.getMarketId().equals(marketId)) {
+                    yourOpenOrders.add(openOrder);
+                }
+            }
+            return yourOpenOrders;
+        }
+
+        @Override
+        public String createOrder(String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price) {
+            final String orderId = "order-" + ++orderCount;
+            openOrders.put(orderId, new OpenOrder(orderId, new Date(), marketId, orderType, price, quantity, quantity,
+                    price.multiply(quantity)));
+            return orderId;
+        }
+
+        @Override
+        public boolean cancelOrder(String orderId, String marketId) {
+            if (cancelSucceeds) {
+                openOrders.remove(orderId);
+            }
+            return cancelSucceeds;
+        }
+
+        @Override
+        public BigDecimal getLatestMarketPrice(String marketId) {
+            return BigDecimal.ONE;
+        }
+
+        @Override
+        public BalanceInfo getBalanceInfo() throws ExchangeNetworkException {
+            if (balanceFetchStarted != null) {
+                balanceFetchStarted.countDown();
+                try {
+                    balanceFetchReleased.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ExchangeNetworkException("Interrupted fetching balances", e);
+                }
+            }
+            return new BalanceInfo(new HashMap<>(balancesAvailable), Collections.emptyMap());
+        }
+
+        @Override
+        public BigDecimal getPercentageOfBuyOrderTakenForExchangeFee(String marketId) {
+            return new BigDecimal("0.0025");
+        }
+
+        @Override
+        public BigDecimal getPercentageOfSellOrderTakenForExchangeFee(String marketId) {
+            return new BigDecimal("0.0025");
+        }
+    }
+}
@@ -0,0 +1,382 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.engine;
+
+import com.gazbert.bxbot.core.engine.CoalescingTradingApi.CachedCall;
+import com.gazbert.bxbot.trading.api.AsyncTradingApi;
+import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderType;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the Coalescing Trading API shares identical read calls as expected.
+ *
+ * @author gazbert
+ */
+public class TestCoalescingTradingApi {
+
+    private static final String MARKET_ID = "btc_usd";
+    private static final String OTHER_MARKET_ID = "ltc_usd";
+    private static final long FRESHNESS_WINDOW_MILLIS = 100;
+    private static final int CALLER_COUNT = 5;
+
+
+    @Test
+    public void testConcurrentIdenticalCallsShareOneExchangeCall() throws Exception {
+
+        final CountDownLatch releaseCall = new CountDownLatch(1);
+        final CountingTradingApi exchange = new CountingTradingApi(releaseCall);
+        final CoalescingTradingApi tradingApi = new CoalescingTradingApi(exchange, windows(0, CachedCall.MARKET_ORDERS));
+
+        final ExecutorService callers = Executors.newFixedThreadPool(CALLER_COUNT);
+        try {
+            final List<Future<MarketOrderBook>> results = new ArrayList<>();
+            for (int i = 0; i < CALLER_COUNT; i++) {
+                results.add(callers.submit(() -> tradingApi.getMarketOrders(MARKET_ID)));
+            }
+            Thread.sleep(FRESHNESS_WINDOW_MILLIS); // let all the callers join the first one's call
+            releaseCall.countDown();
+
+            final MarketOrderBook orderBook = results.get(0).get(5, TimeUnit.SECONDS);
+            for (final Future<MarketOrderBook> result : results) {
+                assertSame(orderBook, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertEquals(1, exchange.marketOrderCalls.get());
+    }
+
+    @Test
+    public void testResultIsReusedUntilFreshnessWindowHasPassed() throws Exception {
+
+        final CountingTradingApi exchange = new CountingTradingApi(null);
+        final CoalescingTradingApi tradingApi = new CoalescingTradingApi(exchange,
+                windows(FRESHNESS_WINDOW_MILLIS, CachedCall.LATEST_MARKET_PRICE));
+
+        final BigDecimal price = tradingApi.getLatestMarketPrice(MARKET_ID);
+        assertSame(price, tradingApi.getLatestMarketPrice(MARKET_ID));
+        assertEquals(1, exchange.latestPriceCalls.get());
+
+        Thread.sleep(FRESHNESS_WINDOW_MILLIS * 2);
+        assertNotSame(price, tradingApi.getLatestMarketPrice(MARKET_ID));
+        assertEquals(2, exchange.latestPriceCalls.get());
+    }
+
+    @Test
+    public void testCallsForDifferentMarketsAreNotShared() throws Exception {
+
+        final CountingTradingApi exchange = new CountingTradingApi(null);
+        final CoalescingTradingApi tradingApi = new CoalescingTradingApi(exchange,
+                windows(FRESHNESS_WINDOW_MILLIS, CachedCall.MARKET_ORDERS));
+
+        assertEquals(MARKET_ID, tradingApi.getMarketOrders(MARKET_ID).getMarketId());
+        assertEquals(OTHER_MARKET_ID, tradingApi.getMarketOrders(OTHER_MARKET_ID).getMarketId());
+        assertEquals(2, exchange.marketOrderCalls.get());
+    }
+
+    @Test
+    public void testFailuresAreNotReused() throws Exception {
+
+        final CountingTradingApi exchange = new CountingTradingApi(null);
+        exchange.failNextCall = true;
+        final CoalescingTradingApi tradingApi = new CoalescingTradingApi(exchange,
+                windows(FRESHNESS_WINDOW_MILLIS, CachedCall.BALANCE_INFO));
+
+        try {
+            tradingApi.getBalanceInfo();
+            fail("Expected the exchange failure to be thrown");
+        } catch (ExchangeNetworkException e) {
+            assertEquals(CountingTradingApi.FAILURE_MSG, e.getMessage());
+        }
+
+        tradingApi.getBalanceInfo();
+        assertEquals(2, exchange.balanceInfoCalls.get());
+    }
+
+    @Test
+    public void testCachedBalancesAreDroppedWhenOrderIsCreatedOrCancelled() throws Exception {
+
+        final CountingTradingApi exchange = new CountingTradingApi(null);
+        final CoalescingTradingApi tradingApi = new CoalescingTradingApi(exchange,
+                windows(TimeUnit.MINUTES.toMillis(1), CachedCall.BALANCE_INFO));
+
+        tradingApi.getBalanceInfo();
+        tradingApi.getBalanceInfo();
+        assertEquals(1, exchange.balanceInfoCalls.get());
+
+        tradingApi.createOrder(MARKET_ID, OrderType.BUY, BigDecimal.ONE, BigDecimal.TEN);
+        tradingApi.getBalanceInfo();
+        assertEquals(2, exchange.balanceInfoCalls.get());
+
+        tradingApi.cancelOrder("order-1", MARKET_ID);
+        tradingApi.getBalanceInfo();
+        assertEquals(3, exchange.balanceInfoCalls.get());
+    }
+
+    @Test
+    public void testCachedBalancesAreDroppedWhenAnOpenOrderFills() throws Exception {
+
+        final CountingTradingApi exchange = new CountingTradingApi(null);
+        final CoalescingTradingApi tradingApi = new CoalescingTradingApi(exchange,
+                windows(TimeUnit.MINUTES.toMillis(1), CachedCall.BALANCE_INFO));
+
+        exchange.openOrders.add(openOrder("order-1", "2"));
+        tradingApi.getYourOpenOrders(MARKET_ID);
+        tradingApi.getBalanceInfo();
+
+        // Nothing has filled, and a new order is not a fill
+        exchange.openOrders.add(openOrder("order-2", "1"));
+        tradingApi.getYourOpenOrders(MARKET_ID);
+        tradingApi.getBalanceInfo();
+        assertEquals(1, exchange.balanceInfoCalls.get());
+
+        // Part filled
+        exchange.openOrders.set(0, openOrder("order-1", "1.5"));
+        tradingApi.getYourOpenOrders(MARKET_ID);
+        tradingApi.getBalanceInfo();
+        assertEquals(2, exchange.balanceInfoCalls.get());
+
+        // Filled, so no longer open
+        exchange.openOrders.remove(0);
+        tradingApi.getYourOpenOrders(MARKET_ID);
+        tradingApi.getBalanceInfo();
+        assertEquals(3, exchange.balanceInfoCalls.get());
+
+        // Open orders on another market are compared with their own last fetch
+        tradingApi.getYourOpenOrders(OTHER_MARKET_ID);
+        tradingApi.getBalanceInfo();
+        assertEquals(3, exchange.balanceInfoCalls.get());
+    }
+
+    @Test
+    public void testEachCallHasItsOwnFreshnessWindow() throws Exception {
+
+        final CountingTradingApi exchange = new CountingTradingApi(null);
+        final Map<CachedCall, Long> freshnessWindows = windows(TimeUnit.MINUTES.toMillis(1), CachedCall.BALANCE_INFO);
+        freshnessWindows.put(CachedCall.LATEST_MARKET_PRICE, FRESHNESS_WINDOW_MILLIS);
+        final CoalescingTradingApi tradingApi = new CoalescingTradingApi(exchange, freshnessWindows);
+
+        tradingApi.getBalanceInfo();
+        tradingApi.getLatestMarketPrice(MARKET_ID);
+        Thread.sleep(FRESHNESS_WINDOW_MILLIS + 50);
+
+        tradingApi.getBalanceInfo();
+        tradingApi.getLatestMarketPrice(MARKET_ID);
+        assertEquals(1, exchange.balanceInfoCalls.get());
+        assertEquals(2, exchange.latestPriceCalls.get());
+    }
+
+    @Test
+    public void testCachedMarketDataIsOnlyDroppedForTheOrderedMarket() throws Exception {
+
+        final CountingTradingApi exchange = new CountingTradingApi(null);
+        final CoalescingTradingApi tradingApi = new CoalescingTradingApi(exchange,
+                windows(TimeUnit.MINUTES.toMillis(1), CachedCall.MARKET_ORDERS));
+
+        tradingApi.getMarketOrders(MARKET_ID);
+        tradingApi.getMarketOrders(OTHER_MARKET_ID);
+        tradingApi.createOrder(MARKET_ID, OrderType.SELL, BigDecimal.ONE, BigDecimal.TEN);
+
+        tradingApi.getMarketOrders(MARKET_ID);
+        tradingApi.getMarketOrders(OTHER_MARKET_ID);
+        assertEquals(3, exchange.marketOrderCalls.get());
+    }
+
+    @Test
+    public void testExchangeFeesAreCachedPerMarketAndKeptWhenOrdersChange() throws Exception {
+
+        final CountingTradingApi exchange = new CountingTradingApi(null);
+        final CoalescingTradingApi tradingApi = new CoalescingTradingApi(exchange,
+                windows(TimeUnit.MINUTES.toMillis(1), CachedCall.BUY_ORDER_FEE, CachedCall.SELL_ORDER_FEE));
+
+        tradingApi.getPercentageOfBuyOrderTakenForExchangeFee(MARKET_ID);
+        tradingApi.getPercentageOfSellOrderTakenForExchangeFee(MARKET_ID);
+        tradingApi.createOrder(MARKET_ID, OrderType.BUY, BigDecimal.ONE, BigDecimal.TEN);
+        tradingApi.getPercentageOfBuyOrderTakenForExchangeFee(MARKET_ID);
+        tradingApi.getPercentageOfSellOrderTakenForExchangeFee(MARKET_ID);
+        assertEquals(2, exchange.feeCalls.get());
+
+        tradingApi.getPercentageOfBuyOrderTakenForExchangeFee(OTHER_MARKET_ID);
+        assertEquals(3, exchange.feeCalls.get());
+    }
+
+    @Test
+    public void testCallsWithoutFreshnessWindowAndOpenOrdersAreNeverShared() throws Exception {
+
+        final CountingTradingApi exchange = new CountingTradingApi(null);
+        final CoalescingTradingApi tradingApi = new CoalescingTradingApi(exchange,
+                windows(TimeUnit.MINUTES.toMillis(1), CachedCall.MARKET_ORDERS));
+
+        tradingApi.getYourOpenOrders(MARKET_ID);
+        tradingApi.getYourOpenOrders(MARKET_ID);
+        assertEquals(2, exchange.openOrderCalls.get());
+
+        tradingApi.getBalanceInfo();
+        tradingApi.getBalanceInfo();
+        assertEquals(2, exchange.balanceInfoCalls.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeFreshnessWindowIsRejected() {
+        new CoalescingTradingApi(new CountingTradingApi(null), windows(-1, CachedCall.BALANCE_INFO));
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private static OpenOrder openOrder(String orderId, String quantity) {
+        return new OpenOrder(orderId, new Date(), MARKET_ID, OrderType.BUY, BigDecimal.TEN, new BigDecimal(quantity),
+                new BigDecimal("2"), BigDecimal.TEN.multiply(new BigDecimal(quantity)));
+    }
+
+    private static Map<CachedCall, Long> windows(long freshnessWindowMillis, CachedCall... calls) {
+        final Map<CachedCall, Long> windows = new EnumMap<>(CachedCall.class);
+        for (final CachedCall call : calls) {
+            windows.put(call, freshnessWindowMillis);
+        }
+        return windows;
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util classes
+    // ------------------------------------------------------------------------------------------------
+
+    /*
+     * Counts the calls that reach the 'exchange' and returns a new result each time.
+     */
+    private static class CountingTradingApi implements AsyncTradingApi {
+
+        static final String FAILURE_MSG = "Exchange is down";
+
+        final AtomicInteger marketOrderCalls = new AtomicInteger();
+        final AtomicInteger latestPriceCalls = new AtomicInteger();
+        final AtomicInteger balanceInfoCalls = new AtomicInteger();
+        final AtomicInteger openOrderCalls = new AtomicInteger();
+        final AtomicInteger feeCalls = new AtomicInteger();
+        final List<OpenOrder> openOrders = new ArrayList<>();
+        final CountDownLatch releaseCall;
+        volatile boolean failNextCall;
+
+        CountingTradingApi(CountDownLatch releaseCall) {
+            this.releaseCall = releaseCall;
+        }
+
+        @Override
+        public String getImplName() {
+            return "Counting Test Exchange";
+        }
+
+        @Override
+        public MarketOrderBook getMarketOrders(String marketId) throws ExchangeNetworkException {
+            marketOrderCalls.incrementAndGet();
+            waitForRelease();
+            return new MarketOrderBook(marketId, Collections.emptyList(), Collections.emptyList());
+        }
+
+        @Override
+        public List<OpenOrder> getYourOpenOrders(String marketId) {
+            openOrderCalls.incrementAndGet();
+            final List<OpenOrder> yourOpenOrders = new ArrayList<>();
+            for (final OpenOrder openOrder : openOrders) {
+                if (openOrder.getMarketId().equals(marketId)) {
+                    yourOpenOrders.add(openOrder);
+                }
+            }
+            return yourOpenOrders;
+        }
+
+        @Override
+        public String createOrder(String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price) {
+            return "order-1";
+        }
+
+        @Override
+        public boolean cancelOrder(String orderId, String marketId) {
+            return true;
+        }
+
+        @Override
+        public BigDecimal getLatestMarketPrice(String marketId) {
+            return new BigDecimal(latestPriceCalls.incrementAndGet());
+        }
+
+        @Override
+        public BalanceInfo getBalanceInfo() throws ExchangeNetworkException {
+            balanceInfoCalls.incrementAndGet();
+            if (failNextCall) {
+                failNextCall = false;
+                throw new ExchangeNetworkException(FAILURE_MSG);
+            }
+            return new BalanceInfo(Collections.emptyMap(), Collections.emptyMap());
+        }
+
+        @Override
+        public BigDecimal getPercentageOfBuyOrderTakenForExchangeFee(String marketId) {
+            feeCalls.incrementAndGet();
+            return new BigDecimal("0.0025");
+        }
+
+        @Override
+        public BigDecimal getPercentageOfSellOrderTakenForExchangeFee(String marketId) {
+            feeCalls.incrementAndGet();
+            return new BigDecimal("0.0025");
+        }
+
+        private void waitForRelease() throws ExchangeNetworkException {
+            if (releaseCall == null) {
+                return;
+            }
+            try {
+                releaseCall.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ExchangeNetworkException("Interrupted", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,443 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.engine;
+
+import com.gazbert.bxbot.strategy.api.EventDrivenTradingStrategy;
+import com.gazbert.bxbot.strategy.api.StrategyConfig;
+import com.gazbert.bxbot.strategy.api.StrategyException;
+import com.gazbert.bxbot.trading.api.AsyncTradingApi;
+import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.Market;
+import com.gazbert.bxbot.trading.api.MarketOrder;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.gazbert.bxbot.trading.api.TradingApi;
+import org.junit.After;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the Market Event Dispatcher calls back event driven strategies as expected.
+ *
+ * @author gazbert
+ */
+public class TestMarketEventDispatcher {
+
+    private static final long POLL_INTERVAL_MILLIS = 20;
+    private static final long EVENT_TIMEOUT_MILLIS = 2000;
+    private static final Market MARKET = new Market("BTC/USD", "btc_usd", "BTC", "USD");
+    private static final String ORDER_ID = "order-1";
+
+    private MarketEventDispatcher dispatcher;
+
+
+    @After
+    public void tearDownAfterEachTest() {
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test
+    public void testOrderBookAndPriceChangesAreDispatched() throws Exception {
+
+        final ScriptedTradingApi exchange = new ScriptedTradingApi();
+        final RecordingStrategy strategy = new RecordingStrategy();
+        dispatcher = new MarketEventDispatcher(1, POLL_INTERVAL_MILLIS, () -> {});
+        dispatcher.watch(strategy, MARKET, exchange);
+        dispatcher.start();
+
+        // the first poll only records what is there
+        exchange.awaitPolls(2);
+        assertNull(strategy.events.poll());
+
+        exchange.latestPrice = new BigDecimal("101");
+        assertEquals("price 101", nextEvent(strategy));
+
+        exchange.orderBook = orderBook("99.5", "101.5");
+        assertEquals("book 99.5/101.5", nextEvent(strategy));
+
+        // the same book again is not an update
+        exchange.orderBook = orderBook("99.5", "101.5");
+        exchange.awaitPolls(2);
+        assertNull(strategy.events.poll());
+    }
+
+    @Test
+    public void testFillsAndCancelsAreDispatched() throws Exception {
+
+        final ScriptedTradingApi exchange = new ScriptedTradingApi();
+        exchange.openOrders = Collections.singletonList(openOrder(ORDER_ID, "2"));
+        final RecordingStrategy strategy = new RecordingStrategy();
+        dispatcher = new MarketEventDispatcher(1, POLL_INTERVAL_MILLIS, () -> {});
+        final MarketEventDispatcher.MarketWatch watch = dispatcher.watch(strategy, MARKET, exchange);
+        dispatcher.start();
+        exchange.awaitPolls(2);
+
+        exchange.openOrders = Collections.singletonList(openOrder(ORDER_ID, "1.5"));
+        assertEquals("partly filled " + ORDER_ID + " 0.5", nextEvent(strategy));
+
+        exchange.openOrders = Collections.emptyList();
+        assertEquals("filled " + ORDER_ID + " 1.5", nextEvent(strategy));
+
+        // an order the strategy cancels is reported as cancelled once it has gone
+        final String orderToCancel = "order-2";
+        exchange.openOrders = Collections.singletonList(openOrder(orderToCancel, "1"));
+        exchange.awaitPolls(2);
+        assertTrue(watch.getTradingApi().cancelOrder(orderToCancel, MARKET.getId()));
+        exchange.openOrders = Collections.emptyList();
+        assertEquals("cancelled " + orderToCancel, nextEvent(strategy));
+    }
+
+    @Test
+    public void testNetworkErrorsAreRetried() throws Exception {
+
+        final ScriptedTradingApi exchange = new ScriptedTradingApi();
+        final RecordingStrategy strategy = new RecordingStrategy();
+        dispatcher = new MarketEventDispatcher(1, POLL_INTERVAL_MILLIS, () -> {});
+        dispatcher.watch(strategy, MARKET, exchange);
+        dispatcher.start();
+        exchange.awaitPolls(2);
+
+        exchange.isDown = true;
+        exchange.awaitPolls(2);
+        exchange.isDown = false;
+
+        exchange.latestPrice = new BigDecimal("102");
+        assertEquals("price 102", nextEvent(strategy));
+        dispatcher.checkForFailure();
+    }
+
+    @Test
+    public void testCallbackFailureStopsDispatcherAndIsRethrown() throws Exception {
+
+        final ScriptedTradingApi exchange = new ScriptedTradingApi();
+        final RecordingStrategy strategy = new RecordingStrategy();
+        strategy.failOnEvent = true;
+        final CountDownLatch failureNotified = new CountDownLatch(1);
+        dispatcher = new MarketEventDispatcher(1, POLL_INTERVAL_MILLIS, failureNotified::countDown);
+        dispatcher.watch(strategy, MARKET, exchange);
+        dispatcher.start();
+        exchange.awaitPolls(2);
+
+        exchange.latestPrice = new BigDecimal("103");
+        assertTrue(failureNotified.await(EVENT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        try {
+            dispatcher.checkForFailure();
+            fail("Expected the callback failure to be rethrown");
+        } catch (StrategyException e) {
+            assertEquals(RecordingStrategy.FAILURE_MSG, e.getMessage());
+        }
+    }
+
+    @Test
+    public void testStrategyIsExecutedThroughTheWatch() throws Exception {
+
+        final RecordingStrategy strategy = new RecordingStrategy();
+        dispatcher = new MarketEventDispatcher(1, POLL_INTERVAL_MILLIS, () -> {});
+        final MarketEventDispatcher.MarketWatch watch = dispatcher.watch(strategy, MARKET, new ScriptedTradingApi());
+
+        watch.getTradingStrategy().execute();
+        watch.getTradingStrategy().execute();
+        assertEquals(2, strategy.executions.get());
+    }
+
+    @Test
+    public void testMarketWatchedOnceStartedIsPolled() throws Exception {
+
+        final ScriptedTradingApi exchange = new ScriptedTradingApi();
+        final RecordingStrategy strategy = new RecordingStrategy();
+        dispatcher = new MarketEventDispatcher(1, POLL_INTERVAL_MILLIS, () -> {});
+        dispatcher.start();
+
+        dispatcher.watch(strategy, MARKET, exchange);
+        exchange.awaitPolls(2);
+        exchange.latestPrice = new BigDecimal("104");
+        assertEquals("price 104", nextEvent(strategy));
+    }
+
+    @Test
+    public void testChangesWhilePausedAreNotDispatched() throws Exception {
+
+        final ScriptedTradingApi exchange = new ScriptedTradingApi();
+        final RecordingStrategy strategy = new RecordingStrategy();
+        dispatcher = new MarketEventDispatcher(1, POLL_INTERVAL_MILLIS, () -> {});
+        final MarketEventDispatcher.MarketWatch watch = dispatcher.watch(strategy, MARKET, exchange);
+        dispatcher.start();
+        exchange.awaitPolls(2);
+
+        watch.setPaused(true);
+        Thread.sleep(POLL_INTERVAL_MILLIS * 3);
+        final int polls = exchange.polls.get();
+        exchange.latestPrice = new BigDecimal("105");
+        Thread.sleep(POLL_INTERVAL_MILLIS * 3);
+        assertEquals(polls, exchange.polls.get());
+
+        // the first poll after resuming only records what is there
+        watch.setPaused(false);
+        exchange.awaitPolls(2);
+        assertNull(strategy.events.poll());
+
+        exchange.latestPrice = new BigDecimal("106");
+        assertEquals("price 106", nextEvent(strategy));
+    }
+
+    @Test
+    public void testChangesWhileTradingIsHeldAreNotDispatched() throws Exception {
+
+        final ScriptedTradingApi exchange = new ScriptedTradingApi();
+        final RecordingStrategy strategy = new RecordingStrategy();
+        dispatcher = new MarketEventDispatcher(1, POLL_INTERVAL_MILLIS, () -> {});
+        dispatcher.watch(strategy, MARKET, exchange);
+        dispatcher.start();
+        exchange.awaitPolls(2);
+
+        // the Emergency Stop check for the exchange has failed or could not be made
+        dispatcher.holdTrading();
+        Thread.sleep(POLL_INTERVAL_MILLIS * 3);
+        final int polls = exchange.polls.get();
+        exchange.latestPrice = new BigDecimal("105");
+        Thread.sleep(POLL_INTERVAL_MILLIS * 3);
+        assertEquals(polls, exchange.polls.get());
+        assertNull(strategy.events.poll());
+
+        // the first poll after the next passing check only records what is there
+        dispatcher.allowTradingFor(EVENT_TIMEOUT_MILLIS * 10);
+        exchange.awaitPolls(2);
+        assertNull(strategy.events.poll());
+
+        exchange.latestPrice = new BigDecimal("106");
+        assertEquals("price 106", nextEvent(strategy));
+    }
+
+    @Test
+    public void testChangesAreNotDispatchedOnceEmergencyStopCheckIsTooOld() throws Exception {
+
+        final ScriptedTradingApi exchange = new ScriptedTradingApi();
+        final RecordingStrategy strategy = new RecordingStrategy();
+        dispatcher = new MarketEventDispatcher(1, POLL_INTERVAL_MILLIS, () -> {});
+        dispatcher.watch(strategy, MARKET, exchange);
+        dispatcher.allowTradingFor(1);
+        Thread.sleep(POLL_INTERVAL_MILLIS);
+        dispatcher.start();
+
+        Thread.sleep(POLL_INTERVAL_MILLIS * 3);
+        exchange.latestPrice = new BigDecimal("105");
+        Thread.sleep(POLL_INTERVAL_MILLIS * 3);
+        assertEquals(0, exchange.polls.get());
+        assertNull(strategy.events.poll());
+    }
+
+    @Test
+    public void testCancelledWatchIsNoLongerPolled() throws Exception {
+
+        final ScriptedTradingApi exchange = new ScriptedTradingApi();
+        final RecordingStrategy strategy = new RecordingStrategy();
+        dispatcher = new MarketEventDispatcher(1, POLL_INTERVAL_MILLIS, () -> {});
+        final MarketEventDispatcher.MarketWatch watch = dispatcher.watch(strategy, MARKET, exchange);
+        dispatcher.start();
+        exchange.awaitPolls(2);
+
+        watch.cancel();
+        Thread.sleep(POLL_INTERVAL_MILLIS * 2);
+        final int polls = exchange.polls.get();
+        exchange.latestPrice = new BigDecimal("107");
+        Thread.sleep(POLL_INTERVAL_MILLIS * 3);
+        assertEquals(polls, exchange.polls.get());
+        assertNull(strategy.events.poll());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPollIntervalMustBePositive() {
+        new MarketEventDispatcher(1, 0, () -> {});
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private static String nextEvent(RecordingStrategy strategy) throws InterruptedException {
+        final String event = strategy.events.poll(EVENT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        if (event == null) {
+            fail("Timed out waiting for market event");
+        }
+        return event;
+    }
+
+    private static MarketOrderBook orderBook(String bidPrice, String askPrice) {
+        final List<MarketOrder> buyOrders = new ArrayList<>();
+        buyOrders.add(new MarketOrder(OrderType.BUY, new BigDecimal(bidPrice), BigDecimal.ONE, new BigDecimal(bidPrice)));
+        final List<MarketOrder> sellOrders = new ArrayList<>();
+        sellOrders.add(new MarketOrder(OrderType.SELL, new BigDecimal(askPrice), BigDecimal.ONE, new BigDecimal(askPrice)));
+        return new MarketOrderBook(MARKET.getId(), sellOrders, buyOrders);
+    }
+
+    private static OpenOrder openOrder(String id, String quantity) {
+        return new OpenOrder(id, new Date(), MARKET.getId(), OrderType.BUY, new BigDecimal("100"),
+                new BigDecimal(quantity), new BigDecimal("2"), new BigDecimal("200"));
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util classes
+    // ------------------------------------------------------------------------------------------------
+
+    /*
+     * Returns whatever the test has set up, and counts the polls.
+     */
+    private static class ScriptedTradingApi implements AsyncTradingApi {
+
+        volatile MarketOrderBook orderBook = orderBook("99", "101");
+        volatile BigDecimal latestPrice = new BigDecimal("100");
+        volatile List<OpenOrder> openOrders = Collections.emptyList();
+        volatile boolean isDown;
+        final AtomicInteger polls = new AtomicInteger();
+
+        void awaitPolls(int count) throws InterruptedException {
+            final int target = polls.get() + count;
+            final long deadline = System.currentTimeMillis() + EVENT_TIMEOUT_MILLIS;
+            while (polls.get() < target) {
+                if (System.currentTimeMillis() > deadline) {
+                    fail("Timed out waiting for polls");
+                }
+                Thread.sleep(POLL_INTERVAL_MILLIS / 2);
+            }
+        }
+
+        @Override
+        public String getImplName() {
+            return "Scripted Test Exchange";
+        }
+
+        @Override
+        public MarketOrderBook getMarketOrders(String marketId) throws ExchangeNetworkException {
+            if (isDown) {
+                polls.incrementAndGet();
+                throw new ExchangeNetworkException("Exchange is down");
+            }
+            return orderBook;
+        }
+
+        @Override
+        public List<OpenOrder> getYourOpenOrders(String marketId) {
+            polls.incrementAndGet();
+            return openOrders;
+        }
+
+        @Override
+        public String createOrder(String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price) {
+            return ORDER_ID;
+        }
+
+        @Override
+        public boolean cancelOrder(String orderId, String marketId) {
+            return true;
+        }
+
+        @Override
+        public BigDecimal getLatestMarketPrice(String marketId) {
+            return latestPrice;
+        }
+
+        @Override
+        public BalanceInfo getBalanceInfo() {
+            return new BalanceInfo(Collections.emptyMap(), Collections.emptyMap());
+        }
+
+        @Override
+        public BigDecimal getPercentageOfBuyOrderTakenForExchangeFee(String marketId) {
+            return BigDecimal.ZERO;
+        }
+
+        @Override
+        public BigDecimal getPercentageOfSellOrderTakenForExchangeFee(String marketId) {
+            return BigDecimal.ZERO;
+        }
+    }
+
+    /*
+     * Records the events it is called back with.
+     */
+    private static class RecordingStrategy implements EventDrivenTradingStrategy {
+
+        static final String FAILURE_MSG = "Strategy has had enough";
+
+        final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+        final AtomicInteger executions = new AtomicInteger();
+        volatile boolean failOnEvent;
+
+        @Override
+        public void init(TradingApi tradingApi, Market market, StrategyConfig config) {
+        }
+
+        @Override
+        public void execute() {
+            executions.incrementAndGet();
+        }
+
+        @Override
+        public void onOrderBookUpdate(MarketOrderBook orderBook) throws StrategyException {
+            record("book " + orderBook.getBuyOrders().get(0).getPrice() + "/" + orderBook.getSellOrders().get(0).getPrice());
+        }
+
+        @Override
+        public void onLatestMarketPriceUpdate(BigDecimal latestMarketPrice) throws StrategyException {
+            record("price " + latestMarketPrice);
+        }
+
+        @Override
+        public void onOrderFilled(OpenOrder order, BigDecimal quantityFilled, boolean isFullyFilled)
+                throws StrategyException {
+            record((isFullyFilled ? "filled " : "partly filled ") + order.getId() + " " + quantityFilled);
+        }
+
+        @Override
+        public void onOrderCancelled(OpenOrder order) throws StrategyException {
+            record("cancelled " + order.getId());
+        }
+
+        private void record(String event) throws StrategyException {
+            if (failOnEvent) {
+                throw new StrategyException(FAILURE_MSG);
+            }
+            events.add(event);
+        }
+    }
+}
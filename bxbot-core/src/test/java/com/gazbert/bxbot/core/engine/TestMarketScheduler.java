@@ -0,0 +1,405 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.engine;
+
+import com.gazbert.bxbot.strategy.api.StrategyConfig;
+import com.gazbert.bxbot.strategy.api.StrategyException;
+import com.gazbert.bxbot.strategy.api.TradingStrategy;
+import com.gazbert.bxbot.trading.api.Market;
+import com.gazbert.bxbot.trading.api.TradingApi;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the Market Scheduler behaves as expected.
+ * <p>
+ * Timing based, so the assertions are deliberately loose.
+ *
+ * @author gazbert
+ */
+public class TestMarketScheduler {
+
+    private static final long TIMEOUT = 5000;
+
+    private MarketScheduler marketScheduler;
+
+
+    @After
+    public void tearDownAfterEachTest() {
+        if (marketScheduler != null) {
+            marketScheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void testStrategiesAreNotExecutedUntilSchedulerIsStarted() throws Exception {
+
+        marketScheduler = new MarketScheduler(() -> {
+        });
+        final CountingStrategy strategy = new CountingStrategy(() -> {
+        });
+        marketScheduler.schedule(strategy, "BTC/USD", 10, TIMEOUT);
+
+        Thread.sleep(100);
+        assertEquals(0, strategy.executions.get());
+
+        marketScheduler.start();
+        Thread.sleep(100);
+        assertTrue(strategy.executions.get() > 0);
+    }
+
+    /*
+     * The strategy takes 60ms of every 100ms interval. Sleeping for the interval after the work would give about
+     * 6 executions in 1s; a fixed-rate timeline gives about 10.
+     */
+    @Test
+    public void testStrategyExecutionTimeDoesNotPushTimelineBack() throws Exception {
+
+        marketScheduler = new MarketScheduler(() -> {
+        });
+        final CountingStrategy strategy = new CountingStrategy(() -> sleep(60));
+        marketScheduler.schedule(strategy, "BTC/USD", 100, TIMEOUT);
+
+        marketScheduler.start();
+        Thread.sleep(1000);
+
+        final int executions = strategy.executions.get();
+        assertTrue("Executions: " + executions, executions >= 8 && executions <= 11);
+    }
+
+    /*
+     * The 1st execution overruns 5 intervals. Running the missed executions back to back would give about 20 in 1s;
+     * skipping them gives about 15.
+     */
+    @Test
+    public void testMissedExecutionsAreSkippedAfterOverrun() throws Exception {
+
+        marketScheduler = new MarketScheduler(() -> {
+        });
+        final AtomicInteger runs = new AtomicInteger();
+        final CountingStrategy strategy = new CountingStrategy(() -> {
+            if (runs.incrementAndGet() == 1) {
+                sleep(260);
+            }
+        });
+        marketScheduler.schedule(strategy, "BTC/USD", 50, TIMEOUT);
+
+        marketScheduler.start();
+        Thread.sleep(1000);
+
+        final int executions = strategy.executions.get();
+        assertTrue("Executions: " + executions, executions >= 12 && executions <= 17);
+    }
+
+    @Test
+    public void testMarketsAreDrivenIndependently() throws Exception {
+
+        marketScheduler = new MarketScheduler(() -> {
+        });
+        final CountingStrategy hotMarketStrategy = new CountingStrategy(() -> {
+        });
+        final CountingStrategy quietMarketStrategy = new CountingStrategy(() -> {
+        });
+        marketScheduler.schedule(hotMarketStrategy, "BTC/USD", 50, TIMEOUT);
+        marketScheduler.schedule(quietMarketStrategy, "LTC/BTC", 10000, TIMEOUT);
+
+        marketScheduler.start();
+        Thread.sleep(500);
+
+        assertTrue(hotMarketStrategy.executions.get() >= 8);
+        assertEquals(1, quietMarketStrategy.executions.get());
+    }
+
+    @Test
+    public void testFailureStopsAllTimelinesAndIsRethrown() throws Exception {
+
+        final CountDownLatch failureNotified = new CountDownLatch(1);
+        marketScheduler = new MarketScheduler(failureNotified::countDown);
+
+        final StrategyException strategyException = new StrategyException("Eeek! My strat just broke.");
+        final CountingStrategy failingStrategy = new CountingStrategy(() -> {
+            throw strategyException;
+        });
+        final CountingStrategy otherStrategy = new CountingStrategy(() -> {
+        });
+        marketScheduler.schedule(failingStrategy, "BTC/USD", 20, TIMEOUT);
+        marketScheduler.schedule(otherStrategy, "LTC/BTC", 20, TIMEOUT);
+
+        marketScheduler.start();
+        assertTrue(failureNotified.await(5, TimeUnit.SECONDS));
+
+        try {
+            marketScheduler.checkForFailure();
+            fail("Expected StrategyException");
+        } catch (StrategyException e) {
+            assertSame(strategyException, e);
+        }
+
+        Thread.sleep(50);
+        final int otherExecutions = otherStrategy.executions.get();
+        Thread.sleep(200);
+        assertEquals(1, failingStrategy.executions.get());
+        assertEquals(otherExecutions, otherStrategy.executions.get());
+    }
+
+    @Test
+    public void testCheckForFailureDoesNothingWhenStrategiesAreHealthy() throws Exception {
+
+        marketScheduler = new MarketScheduler(() -> {
+        });
+        marketScheduler.schedule(new CountingStrategy(() -> {
+        }), "BTC/USD", 10, TIMEOUT);
+
+        marketScheduler.start();
+        Thread.sleep(50);
+        marketScheduler.checkForFailure();
+    }
+
+    @Test
+    public void testMarketScheduledOnceStartedIsExecutedStraightAway() throws Exception {
+
+        marketScheduler = new MarketScheduler(() -> {
+        });
+        marketScheduler.start();
+
+        final CountingStrategy strategy = new CountingStrategy(() -> {
+        });
+        marketScheduler.schedule(strategy, "BTC/USD", 10000, TIMEOUT);
+        Thread.sleep(100);
+        assertEquals(1, strategy.executions.get());
+    }
+
+    @Test
+    public void testPausedTimelineIsNotExecutedUntilResumed() throws Exception {
+
+        marketScheduler = new MarketScheduler(() -> {
+        });
+        final CountingStrategy strategy = new CountingStrategy(() -> {
+        });
+        final MarketScheduler.MarketTimeline timeline = marketScheduler.schedule(strategy, "BTC/USD", 10, TIMEOUT);
+        marketScheduler.start();
+        Thread.sleep(50);
+
+        timeline.setPaused(true);
+        Thread.sleep(20);
+        final int executions = strategy.executions.get();
+        Thread.sleep(100);
+        assertEquals(executions, strategy.executions.get());
+
+        timeline.setPaused(false);
+        Thread.sleep(100);
+        assertTrue(strategy.executions.get() > executions);
+    }
+
+    @Test
+    public void testStrategiesAreNotExecutedWhileTradingIsHeld() throws Exception {
+
+        marketScheduler = new MarketScheduler(() -> {
+        });
+        final CountingStrategy strategy = new CountingStrategy(() -> {
+        });
+        marketScheduler.schedule(strategy, "BTC/USD", 10, TIMEOUT);
+        marketScheduler.holdTrading();
+        marketScheduler.start();
+        Thread.sleep(100);
+        assertEquals(0, strategy.executions.get());
+
+        marketScheduler.allowTradingFor(10000);
+        Thread.sleep(100);
+        assertTrue(strategy.executions.get() > 0);
+    }
+
+    @Test
+    public void testStrategiesStopExecutingWhenEmergencyStopCheckIsTooOld() throws Exception {
+
+        marketScheduler = new MarketScheduler(() -> {
+        });
+        final CountingStrategy strategy = new CountingStrategy(() -> {
+        });
+        marketScheduler.schedule(strategy, "BTC/USD", 10, TIMEOUT);
+        marketScheduler.allowTradingFor(100);
+        marketScheduler.start();
+        Thread.sleep(200);
+
+        final int executions = strategy.executions.get();
+        assertTrue(executions > 0);
+        Thread.sleep(100);
+        assertEquals(executions, strategy.executions.get());
+    }
+
+    @Test
+    public void testCancelWaitsForExecutionInProgressAndLeavesOtherMarketsRunning() throws Exception {
+
+        marketScheduler = new MarketScheduler(() -> {
+        });
+        final CountDownLatch executing = new CountDownLatch(1);
+        final AtomicInteger finished = new AtomicInteger();
+        final CountingStrategy slowStrategy = new CountingStrategy(() -> {
+            executing.countDown();
+            sleep(100);
+            finished.incrementAndGet();
+        });
+        final CountingStrategy otherStrategy = new CountingStrategy(() -> {
+        });
+        final MarketScheduler.MarketTimeline timeline = marketScheduler.schedule(slowStrategy, "BTC/USD", 10, TIMEOUT);
+        marketScheduler.schedule(otherStrategy, "LTC/BTC", 10, TIMEOUT);
+        marketScheduler.start();
+
+        assertTrue(executing.await(5, TimeUnit.SECONDS));
+        timeline.cancel();
+        assertEquals(slowStrategy.executions.get(), finished.get());
+
+        final int otherExecutions = otherStrategy.executions.get();
+        Thread.sleep(200);
+        assertEquals(finished.get(), slowStrategy.executions.get());
+        assertTrue(otherStrategy.executions.get() > otherExecutions);
+    }
+
+    @Test
+    public void testEachMarketGetsItsOwnThread() throws Exception {
+
+        marketScheduler = new MarketScheduler(() -> {
+        });
+        final CountDownLatch allExecuting = new CountDownLatch(3);
+        final StrategyBody slowBody = () -> {
+            allExecuting.countDown();
+            sleep(500);
+        };
+        marketScheduler.schedule(new CountingStrategy(slowBody), "BTC/USD", 10000, TIMEOUT);
+        marketScheduler.schedule(new CountingStrategy(slowBody), "LTC/BTC", 10000, TIMEOUT);
+        marketScheduler.schedule(new CountingStrategy(slowBody), "ETH/USD", 10000, TIMEOUT);
+
+        marketScheduler.start();
+        assertTrue(allExecuting.await(250, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testStrategyThatOverrunsItsTimeoutIsInterruptedAndItsTimelineCarriesOn() throws Exception {
+
+        marketScheduler = new MarketScheduler(() -> {
+        });
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        final AtomicInteger runs = new AtomicInteger();
+        final CountingStrategy strategy = new CountingStrategy(() -> {
+            if (runs.incrementAndGet() == 1) {
+                try {
+                    Thread.sleep(10000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    throw new StrategyException(e);
+                }
+            }
+        });
+        final CountingStrategy otherStrategy = new CountingStrategy(() -> {
+        });
+        marketScheduler.schedule(strategy, "BTC/USD", 20, 100);
+        marketScheduler.schedule(otherStrategy, "LTC/BTC", 20, 100);
+
+        marketScheduler.start();
+        assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+        Thread.sleep(200);
+
+        marketScheduler.checkForFailure();
+        assertTrue(strategy.executions.get() > 1);
+        assertTrue(otherStrategy.executions.get() > 5);
+    }
+
+    @Test
+    public void testCancelStopsWaitingForStrategyThatIgnoresItsTimeout() throws Exception {
+
+        marketScheduler = new MarketScheduler(() -> {
+        });
+        final CountDownLatch executing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountingStrategy stuckStrategy = new CountingStrategy(() -> {
+            executing.countDown();
+            while (true) {
+                try {
+                    release.await();
+                    return;
+                } catch (InterruptedException e) {
+                    // ignores the interrupt and carries on waiting
+                }
+            }
+        });
+        final MarketScheduler.MarketTimeline timeline = marketScheduler.schedule(stuckStrategy, "BTC/USD", 10, 100);
+        marketScheduler.start();
+        assertTrue(executing.await(5, TimeUnit.SECONDS));
+
+        final long cancelStarted = System.nanoTime();
+        timeline.cancel();
+        final long cancelMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - cancelStarted);
+        assertTrue("Cancel took: " + cancelMillis + "ms", cancelMillis >= 90 && cancelMillis < 1000);
+
+        release.countDown();
+        Thread.sleep(100);
+        assertEquals(1, stuckStrategy.executions.get());
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Private utils
+    // ------------------------------------------------------------------------------------------------
+
+    private static void sleep(long millis) throws StrategyException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new StrategyException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface StrategyBody {
+        void run() throws StrategyException;
+    }
+
+    private static final class CountingStrategy implements TradingStrategy {
+
+        private final StrategyBody body;
+        private final AtomicInteger executions = new AtomicInteger();
+
+        CountingStrategy(StrategyBody body) {
+            this.body = body;
+        }
+
+        @Override
+        public void init(TradingApi tradingApi, Market market, StrategyConfig config) {
+        }
+
+        @Override
+        public void execute() throws StrategyException {
+            executions.incrementAndGet();
+            body.run();
+        }
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.engine;
+
+import com.gazbert.bxbot.strategy.api.StrategyConfig;
+import com.gazbert.bxbot.strategy.api.StrategyException;
+import com.gazbert.bxbot.strategy.api.TradingStrategy;
+import com.gazbert.bxbot.trading.api.Market;
+import com.gazbert.bxbot.trading.api.TradingApi;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the Parallel Strategy Executor behaves as expected.
+ *
+ * @author gazbert
+ */
+public class TestParallelStrategyExecutor {
+
+    private static final long STRATEGY_TIMEOUT_MILLIS = 200;
+
+    private ParallelStrategyExecutor executor;
+
+
+    @After
+    public void tearDownAfterEachTest() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testStrategiesAreExecutedInParallel() throws Exception {
+
+        executor = new ParallelStrategyExecutor(3, 5000);
+
+        // each strategy only finishes once all 3 are running at the same time
+        final CountDownLatch allRunning = new CountDownLatch(3);
+        final CountingStrategy strategy1 = new CountingStrategy(() -> awaitAll(allRunning));
+        final CountingStrategy strategy2 = new CountingStrategy(() -> awaitAll(allRunning));
+        final CountingStrategy strategy3 = new CountingStrategy(() -> awaitAll(allRunning));
+
+        executor.execute(Arrays.asList(strategy1, strategy2, strategy3));
+
+        assertEquals(1, strategy1.executions.get());
+        assertEquals(1, strategy2.executions.get());
+        assertEquals(1, strategy3.executions.get());
+    }
+
+    @Test
+    public void testStrategiesOnDifferentExecutorsAreExecutedInParallel() throws Exception {
+
+        // 1 thread each, e.g. 1 executor per exchange - the strategies can only meet if the executors run together
+        executor = new ParallelStrategyExecutor(1, 5000);
+        final ParallelStrategyExecutor otherExecutor = new ParallelStrategyExecutor(1, 5000);
+        try {
+            final CountDownLatch allRunning = new CountDownLatch(2);
+            final CountingStrategy strategy1 = new CountingStrategy(() -> awaitAll(allRunning));
+            final CountingStrategy strategy2 = new CountingStrategy(() -> awaitAll(allRunning));
+
+            final Map<ParallelStrategyExecutor, List<TradingStrategy>> strategiesByExecutor = new LinkedHashMap<>();
+            strategiesByExecutor.put(executor, Collections.singletonList(strategy1));
+            strategiesByExecutor.put(otherExecutor, Collections.singletonList(strategy2));
+            ParallelStrategyExecutor.execute(strategiesByExecutor);
+
+            assertEquals(1, strategy1.completions.get());
+            assertEquals(1, strategy2.completions.get());
+        } finally {
+            otherExecutor.shutdown();
+        }
+    }
+
+    @Test
+    public void testStrategyExceptionIsRethrownAfterOtherStrategiesHaveFinished() throws Exception {
+
+        executor = new ParallelStrategyExecutor(2, 5000);
+
+        final StrategyException strategyException = new StrategyException("Eeek! My strat just broke.");
+        final CountingStrategy failingStrategy = new CountingStrategy(() -> {
+            throw strategyException;
+        });
+        final CountingStrategy slowStrategy = new CountingStrategy(() -> sleep(100));
+
+        try {
+            executor.execute(Arrays.asList(failingStrategy, slowStrategy));
+            fail("Expected StrategyException");
+        } catch (StrategyException e) {
+            assertSame(strategyException, e);
+        }
+        assertEquals(1, slowStrategy.completions.get());
+    }
+
+    @Test
+    public void testUnexpectedExceptionIsRethrownAsIs() throws Exception {
+
+        executor = new ParallelStrategyExecutor(2, 5000);
+
+        final IllegalStateException unexpectedException = new IllegalStateException("Curse your sudden betrayal!");
+        final CountingStrategy failingStrategy = new CountingStrategy(() -> {
+            throw unexpectedException;
+        });
+
+        try {
+            executor.execute(Collections.singletonList(failingStrategy));
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertSame(unexpectedException, e);
+        }
+    }
+
+    @Test
+    public void testSlowStrategyIsInterruptedWithoutHoldingUpOtherStrategies() throws Exception {
+
+        executor = new ParallelStrategyExecutor(2, STRATEGY_TIMEOUT_MILLIS);
+
+        final CountingStrategy hungStrategy = new CountingStrategy(() -> sleep(10000));
+        final CountingStrategy fastStrategy = new CountingStrategy(() -> {
+        });
+
+        final long startTime = System.nanoTime();
+        executor.execute(Arrays.asList(hungStrategy, fastStrategy));
+        final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+        assertTrue("Took " + elapsedMillis + "ms", elapsedMillis < 5000);
+        assertEquals(1, fastStrategy.completions.get());
+        assertEquals(0, hungStrategy.completions.get());
+    }
+
+    @Test
+    public void testStrategyStillRunningFromPreviousCycleIsSkipped() throws Exception {
+
+        executor = new ParallelStrategyExecutor(2, STRATEGY_TIMEOUT_MILLIS);
+
+        // ignores the interrupt when it times out
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountingStrategy stubbornStrategy = new CountingStrategy(() -> awaitUninterruptibly(release));
+
+        executor.execute(Collections.singletonList(stubbornStrategy));
+        executor.execute(Collections.singletonList(stubbornStrategy));
+        assertEquals(1, stubbornStrategy.executions.get());
+
+        release.countDown();
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (stubbornStrategy.completions.get() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(50); // let the worker mark the task as returned
+
+        executor.execute(Collections.singletonList(stubbornStrategy));
+        assertEquals(2, stubbornStrategy.executions.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroThreadsIsRejected() throws Exception {
+        executor = new ParallelStrategyExecutor(0, STRATEGY_TIMEOUT_MILLIS);
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Private utils
+    // ------------------------------------------------------------------------------------------------
+
+    private static void awaitAll(CountDownLatch latch) throws StrategyException {
+        latch.countDown();
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new StrategyException("Strategies were not executed in parallel");
+            }
+        } catch (InterruptedException e) {
+            throw new StrategyException(e);
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (latch.getCount() > 0) {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) throws StrategyException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new StrategyException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface StrategyBody {
+        void run() throws StrategyException;
+    }
+
+    private static final class CountingStrategy implements TradingStrategy {
+
+        private final StrategyBody body;
+        private final AtomicInteger executions = new AtomicInteger();
+        private final AtomicInteger completions = new AtomicInteger();
+
+        CountingStrategy(StrategyBody body) {
+            this.body = body;
+        }
+
+        @Override
+        public void init(TradingApi tradingApi, Market market, StrategyConfig config) {
+        }
+
+        @Override
+        public void execute() throws StrategyException {
+            executions.incrementAndGet();
+            body.run();
+            completions.incrementAndGet();
+        }
+    }
+}
@@ -33,15 +33,20 @@ import com.gazbert.bxbot.domain.market.MarketConfig;
 import com.gazbert.bxbot.domain.strategy.StrategyConfig;
 import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
 import com.gazbert.bxbot.exchange.api.ExchangeConfig;
+import com.gazbert.bxbot.repository.ConfigChangedEvent;
 import com.gazbert.bxbot.repository.EngineConfigRepository;
 import com.gazbert.bxbot.repository.ExchangeConfigRepository;
 import com.gazbert.bxbot.repository.MarketConfigRepository;
 import com.gazbert.bxbot.repository.StrategyConfigRepository;
+import com.gazbert.bxbot.strategy.api.EventDrivenTradingStrategy;
+import com.gazbert.bxbot.strategy.api.MultiExchangeTradingStrategy;
 import com.gazbert.bxbot.strategy.api.StrategyException;
 import com.gazbert.bxbot.strategy.api.TradingStrategy;
 import com.gazbert.bxbot.trading.api.BalanceInfo;
 import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
 import com.gazbert.bxbot.trading.api.Market;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.gazbert.bxbot.trading.api.TradingApi;
 import com.gazbert.bxbot.trading.api.TradingApiException;
 import org.junit.Before;
 import org.junit.Test;
@@ -49,15 +54,23 @@ import org.junit.runner.RunWith;
 import org.powermock.api.easymock.PowerMock;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
+import org.powermock.reflect.Whitebox;
 
 import java.math.BigDecimal;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static junit.framework.TestCase.assertTrue;
 import static org.easymock.EasyMock.*;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 /**
  * Tests the behaviour of the Trading Engine is as expected.
@@ -78,6 +91,7 @@ public class TestTradingEngine {
     private static final String CRITICAL_EMAIL_ALERT_SUBJECT = "CRITICAL Alert message from BX-bot";
 
     // Exchange Adapter config
+    private static final String EXCHANGE_ID = "btce";
     private static final String EXCHANGE_ADAPTER_IMPL_CLASS = "com.my.adapters.DummyBtceExchangeAdapter";
     private static final String EXCHANGE_ADAPTER_NAME = "My BTC-e Adapter";
     private static final Integer EXCHANGE_ADAPTER_NETWORK_TIMEOUT = new Integer("30");
@@ -91,10 +105,19 @@ public class TestTradingEngine {
     private static final String EXCHANGE_ADAPTER_OTHER_CONFIG_ITEM_NAME = "sell-fee";
     private static final String EXCHANGE_ADAPTER_OTHER_CONFIG_ITEM_VALUE = "0.25";
 
+    // 2nd Exchange Adapter config, for the multi-exchange tests
+    private static final String SECOND_EXCHANGE_ID = "gdax";
+    private static final String SECOND_EXCHANGE_ADAPTER_IMPL_CLASS = "com.my.adapters.DummyGdaxExchangeAdapter";
+    private static final String SECOND_EXCHANGE_ADAPTER_NAME = "My GDAX Adapter";
+
     // Engine config
     private static final String ENGINE_EMERGENCY_STOP_CURRENCY = "BTC";
     private static final BigDecimal ENGINE_EMERGENCY_STOP_BALANCE = new BigDecimal("0.5");
     private static final int ENGINE_TRADE_CYCLE_INTERVAL = 1; // unrealistic, but 1 second speeds up tests ;-)
+    private static final Integer ENGINE_STRATEGY_EXECUTION_THREADS = 4;
+    private static final Integer ENGINE_BALANCE_RECONCILIATION_INTERVAL = 60;
+    private static final Integer ENGINE_MARKET_EVENT_POLL_INTERVAL = 100;
+    private static final Integer ENGINE_REQUEST_COALESCING_WINDOW = 500;
 
     // Strategies config
     private static final String STRATEGY_ID = "MyMacdStrategy_v3";
@@ -103,6 +126,11 @@ public class TestTradingEngine {
     private static final String STRATEGY_IMPL_CLASS = "com.my.strats.MyMacdStrategy";
     private static final String STRATEGY_CONFIG_ITEM_NAME = "btc-sell-order-amount";
     private static final String STRATEGY_CONFIG_ITEM_VALUE = "0.2";
+    private static final String MULTI_EXCHANGE_STRATEGY_IMPL_CLASS = "com.my.strats.MyArbitrageStrategy";
+    private static final String SECOND_STRATEGY_ID = "MyEmaStrategy_v1";
+    private static final String SECOND_STRATEGY_IMPL_CLASS = "com.my.strats.MyEmaStrategy";
+    private static final String EVENT_DRIVEN_STRATEGY_ID = "MyOrderBookStrategy_v1";
+    private static final String EVENT_DRIVEN_STRATEGY_IMPL_CLASS = "com.my.strats.MyOrderBookStrategy";
 
     // Markets config
     private static final String MARKET_LABEL = "BTC/USD";
@@ -110,9 +138,14 @@ public class TestTradingEngine {
     private static final String MARKET_BASE_CURRENCY = "BTC";
     private static final String MARKET_COUNTER_CURRENCY = "USD";
     private static final boolean MARKET_IS_ENABLED = true;
+    private static final String SECOND_MARKET_LABEL = "LTC/USD";
+    private static final String SECOND_MARKET_ID = "ltc_usd";
+    private static final String EVENT_DRIVEN_MARKET_LABEL = "ETH/USD";
+    private static final String EVENT_DRIVEN_MARKET_ID = "eth_usd";
 
     // Mocks used by all tests
     private ExchangeAdapter exchangeAdapter;
+    private ExchangeAdapter secondExchangeAdapter;
     private TradingStrategy tradingStrategy;
     private EmailAlerter emailAlerter;
     private ExchangeConfigRepository exchangeConfigRepository;
@@ -130,6 +163,7 @@ public class TestTradingEngine {
     public void setupForEachTest() throws Exception {
 
         exchangeAdapter = PowerMock.createMock(ExchangeAdapter.class);
+        secondExchangeAdapter = PowerMock.createMock(ExchangeAdapter.class);
         tradingStrategy = PowerMock.createMock(TradingStrategy.class);
         emailAlerter = PowerMock.createMock(EmailAlerter.class);
 
@@ -267,6 +301,86 @@ public class TestTradingEngine {
         PowerMock.verifyAll();
     }
 
+    /*
+     * Tests the engine executes trade cycles successfully when configured to execute the strategies in parallel.
+     * Scenario is 2 successful trade cycles and then we shut it down.
+     */
+    @Test
+    public void testEngineExecutesTradeCyclesInParallelModeAndCanBeShutdownSuccessfully() throws Exception {
+
+        setupExchangeAdapterConfigExpectations();
+        expect(engineConfigRepository.getConfig()).andReturn(someEngineConfigForParallelStrategyExecution());
+        setupStrategyAndMarketConfigExpectationsForParallelStrategyExecution();
+
+        final int numberOfTradeCycles = 2;
+        final Map<String, BigDecimal> balancesAvailable = new HashMap<>();
+        // balance limit NOT breached for BTC
+        balancesAvailable.put(ENGINE_EMERGENCY_STOP_CURRENCY, new BigDecimal("0.5"));
+
+        // expect BalanceInfo to be fetched from the Exchange Adapter via the shared Trading API
+        final BalanceInfo balanceInfo = PowerMock.createMock(BalanceInfo.class);
+        expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo).times(numberOfTradeCycles);
+        expect(balanceInfo.getBalancesAvailable()).andReturn(balancesAvailable).times(numberOfTradeCycles);
+
+        // expect Trading Strategy to be invoked 2 times, once every 1s, on a strategy execution thread
+        final CountDownLatch tradeCyclesExecuted = new CountDownLatch(numberOfTradeCycles);
+        tradingStrategy.execute();
+        expectLastCall().andAnswer(() -> {
+            tradeCyclesExecuted.countDown();
+            return null;
+        }).times(numberOfTradeCycles);
+
+        PowerMock.replayAll();
+
+        final TradingEngine tradingEngine = new TradingEngine(exchangeConfigRepository, engineConfigRepository,
+                strategyConfigRepository, marketConfigRepository, emailAlerter);
+
+        final Executor executor = Executors.newSingleThreadExecutor();
+        executor.execute(tradingEngine::start);
+
+        // wait for the 2 trade cycles, then shut down before the 3rd is due 1s later
+        assertTrue(tradeCyclesExecuted.await(numberOfTradeCycles * 5, TimeUnit.SECONDS));
+        assertTrue(tradingEngine.isRunning());
+
+        tradingEngine.shutdown();
+
+        waitForEngineToStop(tradingEngine);
+        assertFalse(tradingEngine.isRunning());
+
+        PowerMock.verifyAll();
+    }
+
+    /*
+     * Tests the Exchange Adapter is wrapped in the right order for the strategies: the Balance Keeper is next to the
+     * adapter so it sees every order that reaches the exchange, the Shared Trading API serialises the authenticated
+     * calls, and the Coalescing Trading API is outside it so identical calls share 1 turn.
+     */
+    @Test
+    public void testEngineWrapsExchangeAdapterInOrderForTradingStrategies() throws Exception {
+
+        final TradingApi tradingApi = startEngineAndGetStrategyTradingApi(
+                someEngineConfigForRequestCoalescing(ENGINE_REQUEST_COALESCING_WINDOW));
+
+        assertTrue(tradingApi instanceof CoalescingTradingApi);
+        final Object sharedTradingApi = Whitebox.getInternalState(tradingApi, "tradingApi");
+        assertTrue(sharedTradingApi instanceof SharedTradingApi);
+        final Object balanceKeeper = Whitebox.getInternalState(sharedTradingApi, "tradingApi");
+        assertTrue(balanceKeeper instanceof BalanceKeeper);
+        assertSame(exchangeAdapter, Whitebox.getInternalState(balanceKeeper, "tradingApi"));
+    }
+
+    /*
+     * Tests a request coalescing window of 0 turns coalescing off rather than wrapping the Trading API for nothing.
+     */
+    @Test
+    public void testEngineDoesNotCoalesceCallsWhenRequestCoalescingWindowIsZero() throws Exception {
+
+        final TradingApi tradingApi = startEngineAndGetStrategyTradingApi(someEngineConfigForRequestCoalescing(0));
+
+        assertTrue(tradingApi instanceof SharedTradingApi);
+        assertTrue(Whitebox.getInternalState(tradingApi, "tradingApi") instanceof BalanceKeeper);
+    }
+
     /*
      * Tests the engine starts up, executes 1 trade cycle successfully, but then receives StrategyException from
      * Trading Strategy on the 2nd cycle. We expect the engine to shutdown.
@@ -487,6 +601,366 @@ public class TestTradingEngine {
         PowerMock.verifyAll();
     }
 
+    /*
+     * Tests the Emergency Stop check uses the balances kept in memory between reconciliations, rather than fetching
+     * them from the exchange. Scenario is the strategy selling in the 1st trade cycle, taking the balance kept in memory
+     * below the Emergency Stop limit; the exchange still reports the old balance, but it is not asked again within the
+     * reconciliation interval, so the Emergency Stop check in the 2nd trade cycle shuts the engine down.
+     */
+    @Test
+    public void testEngineEmergencyStopCheckUsesBalancesKeptInMemory() throws Exception {
+
+        setupExchangeAdapterConfigExpectations();
+        expect(engineConfigRepository.getConfig()).andReturn(someEngineConfigForBalanceReconciliation());
+        expect(strategyConfigRepository.findAllStrategies()).andReturn(allTheStrategiesConfig());
+        expect(marketConfigRepository.findAllMarkets()).andReturn(allTheMarketsConfig());
+        expect(ConfigurableComponentFactory.createComponent(STRATEGY_IMPL_CLASS)).andReturn(tradingStrategy);
+        final List<TradingApi> tradingApi = new ArrayList<>();
+        tradingStrategy.init(anyObject(TradingApi.class), anyObject(Market.class),
+                anyObject(com.gazbert.bxbot.strategy.api.StrategyConfig.class));
+        expectLastCall().andAnswer(() -> {
+            tradingApi.add((TradingApi) getCurrentArguments()[0]);
+            return null;
+        });
+
+        // the exchange reports the same balance however many times it is asked
+        final Map<String, BigDecimal> balancesAvailable = new HashMap<>();
+        balancesAvailable.put(ENGINE_EMERGENCY_STOP_CURRENCY, new BigDecimal("1.0"));
+        final AtomicInteger balanceFetches = new AtomicInteger();
+        expect(exchangeAdapter.getBalanceInfo()).andAnswer(() -> {
+            balanceFetches.incrementAndGet();
+            return new BalanceInfo(balancesAvailable, new HashMap<>());
+        }).anyTimes();
+
+        // expect the strategy to sell 0.6 BTC in the 1st trade cycle
+        final BigDecimal sellQuantity = new BigDecimal("0.6");
+        final BigDecimal sellPrice = new BigDecimal("700");
+        tradingStrategy.execute();
+        expectLastCall().andAnswer(() -> {
+            tradingApi.get(0).createOrder(MARKET_ID, OrderType.SELL, sellQuantity, sellPrice);
+            return null;
+        });
+        expect(exchangeAdapter.createOrder(MARKET_ID, OrderType.SELL, sellQuantity, sellPrice)).andReturn("order-1");
+
+        // expect Email Alert to be sent for the balance kept in memory in the 2nd trade cycle
+        emailAlerter.sendMessage(eq(CRITICAL_EMAIL_ALERT_SUBJECT),
+                contains("wallet balance [0.4] on " + EXCHANGE_ADAPTER_NAME));
+
+        PowerMock.replayAll();
+
+        final TradingEngine tradingEngine = new TradingEngine(exchangeConfigRepository, engineConfigRepository,
+                strategyConfigRepository, marketConfigRepository, emailAlerter);
+        final Executor executor = Executors.newSingleThreadExecutor();
+        executor.execute(tradingEngine::start);
+
+        waitForEngineToStop(tradingEngine);
+        assertFalse(tradingEngine.isRunning());
+        assertEquals(1, balanceFetches.get());
+
+        PowerMock.verifyAll();
+    }
+
+    /*
+     * Tests a multi-exchange strategy is given the Trading APIs of all the exchanges, and the orders it places on the
+     * other exchanges are taken off their balances kept in memory. Scenario is the strategy selling on the 2nd exchange
+     * in the 1st trade cycle, taking its balance below the Emergency Stop limit; the Emergency Stop check in the 2nd
+     * trade cycle uses the balance kept in memory and shuts the engine down.
+     */
+    @Test
+    public void testEngineFollowsMultiExchangeStrategyOrdersOnTheOtherExchanges() throws Exception {
+
+        setupTwoExchangeAdapterConfigExpectations();
+        expect(engineConfigRepository.getConfig()).andReturn(someEngineConfigForBalanceReconciliation());
+        final Map<String, TradingApi> tradingApis = new LinkedHashMap<>();
+        final MultiExchangeTradingStrategy multiExchangeTradingStrategy =
+                setupMultiExchangeStrategyAndMarketConfigExpectations(tradingApis);
+
+        // expect the balances to be fetched from both exchanges in the 1st trade cycle only
+        final Map<String, BigDecimal> balancesAvailable = new HashMap<>();
+        balancesAvailable.put(ENGINE_EMERGENCY_STOP_CURRENCY, new BigDecimal("1.0"));
+        expect(exchangeAdapter.getBalanceInfo()).andReturn(new BalanceInfo(balancesAvailable, new HashMap<>()));
+        expect(secondExchangeAdapter.getBalanceInfo()).andReturn(new BalanceInfo(balancesAvailable, new HashMap<>()));
+
+        // expect the strategy to sell 0.6 BTC on the 2nd exchange in the 1st trade cycle
+        final BigDecimal sellQuantity = new BigDecimal("0.6");
+        final BigDecimal sellPrice = new BigDecimal("700");
+        final CountDownLatch strategyExecuted = new CountDownLatch(1);
+        multiExchangeTradingStrategy.execute();
+        expectLastCall().andAnswer(() -> {
+            tradingApis.get(SECOND_EXCHANGE_ID).createOrder(MARKET_ID, OrderType.SELL, sellQuantity, sellPrice);
+            strategyExecuted.countDown();
+            return null;
+        });
+        expect(secondExchangeAdapter.createOrder(MARKET_ID, OrderType.SELL, sellQuantity, sellPrice))
+                .andReturn("order-1");
+
+        // expect Email Alert to be sent for the 2nd exchange in the 2nd trade cycle
+        emailAlerter.sendMessage(eq(CRITICAL_EMAIL_ALERT_SUBJECT),
+                contains("wallet balance [0.4] on " + SECOND_EXCHANGE_ADAPTER_NAME));
+
+        PowerMock.replayAll();
+
+        final TradingEngine tradingEngine = new TradingEngine(exchangeConfigRepository, engineConfigRepository,
+                strategyConfigRepository, marketConfigRepository, emailAlerter);
+        final Executor executor = Executors.newSingleThreadExecutor();
+        executor.execute(tradingEngine::start);
+
+        assertTrue(strategyExecuted.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(EXCHANGE_ID, SECOND_EXCHANGE_ID), new ArrayList<>(tradingApis.keySet()));
+        assertNotSame(secondExchangeAdapter, tradingApis.get(SECOND_EXCHANGE_ID));
+
+        waitForEngineToStop(tradingEngine);
+        assertFalse(tradingEngine.isRunning());
+
+        PowerMock.verifyAll();
+    }
+
+    /*
+     * Tests a multi-exchange strategy cannot trade on another exchange whose Emergency Stop check could not be made.
+     * Scenario is the balance fetch failing on the 2nd exchange; the strategy is still executed for its market on the
+     * 1st exchange, but its order on the 2nd exchange is refused without reaching the Exchange Adapter.
+     */
+    @Test
+    public void testEngineRefusesMultiExchangeStrategyOrdersOnAnExchangeThatFailedItsEmergencyStopCheck()
+            throws Exception {
+
+        setupTwoExchangeAdapterConfigExpectations();
+        setupEngineConfigExpectations();
+        final Map<String, TradingApi> tradingApis = new LinkedHashMap<>();
+        final MultiExchangeTradingStrategy multiExchangeTradingStrategy =
+                setupMultiExchangeStrategyAndMarketConfigExpectations(tradingApis);
+
+        // expect the balance fetch to pass on the 1st exchange and fail on the 2nd every trade cycle
+        final Map<String, BigDecimal> balancesAvailable = new HashMap<>();
+        balancesAvailable.put(ENGINE_EMERGENCY_STOP_CURRENCY, new BigDecimal("1.0"));
+        expect(exchangeAdapter.getBalanceInfo()).andReturn(new BalanceInfo(balancesAvailable, new HashMap<>()))
+                .atLeastOnce();
+        expect(secondExchangeAdapter.getBalanceInfo()).andThrow(new ExchangeNetworkException("Connection reset"))
+                .atLeastOnce();
+
+        // expect the strategy's order on the 2nd exchange to be refused
+        final CountDownLatch orderRefused = new CountDownLatch(1);
+        multiExchangeTradingStrategy.execute();
+        expectLastCall().andAnswer(() -> {
+            try {
+                tradingApis.get(SECOND_EXCHANGE_ID).createOrder(MARKET_ID, OrderType.SELL, new BigDecimal("0.6"),
+                        new BigDecimal("700"));
+            } catch (ExchangeNetworkException e) {
+                orderRefused.countDown();
+            }
+            return null;
+        }).atLeastOnce();
+
+        PowerMock.replayAll();
+
+        final TradingEngine tradingEngine = new TradingEngine(exchangeConfigRepository, engineConfigRepository,
+                strategyConfigRepository, marketConfigRepository, emailAlerter);
+        final Executor executor = Executors.newSingleThreadExecutor();
+        executor.execute(tradingEngine::start);
+
+        assertTrue(orderRefused.await(5, TimeUnit.SECONDS));
+        assertTrue(tradingEngine.isRunning());
+
+        tradingEngine.shutdown();
+        waitForEngineToStop(tradingEngine);
+        assertFalse(tradingEngine.isRunning());
+
+        PowerMock.verifyAll();
+    }
+
+    /*
+     * Tests each market is traded on the exchange it names, or the 1st exchange if it does not name one. Scenario is a
+     * market on the 2nd exchange and a market that does not name an exchange; each strategy fetches the latest price
+     * through the Trading API it was initialised with.
+     */
+    @Test
+    public void testEngineTradesEachMarketOnItsOwnExchange() throws Exception {
+
+        setupTwoExchangeAdapterConfigExpectations();
+        setupEngineConfigForNoEmergencyStopCheckExpectations();
+
+        final MarketConfig marketOnSecondExchange = someMarketConfig(MARKET_ID, MARKET_LABEL, STRATEGY_ID);
+        marketOnSecondExchange.setExchange(SECOND_EXCHANGE_ID);
+        final MarketConfig marketOnDefaultExchange = someMarketConfig(SECOND_MARKET_ID, SECOND_MARKET_LABEL,
+                SECOND_STRATEGY_ID);
+        expect(strategyConfigRepository.findAllStrategies()).andReturn(Arrays.asList(
+                someStrategyConfig(STRATEGY_ID, STRATEGY_IMPL_CLASS),
+                someStrategyConfig(SECOND_STRATEGY_ID, SECOND_STRATEGY_IMPL_CLASS)));
+        expect(marketConfigRepository.findAllMarkets()).andReturn(
+                Arrays.asList(marketOnSecondExchange, marketOnDefaultExchange));
+
+        // expect each strategy to fetch the latest price from its own exchange every trade cycle
+        final int numberOfTradeCycles = 2;
+        final CountDownLatch strategiesExecuted = new CountDownLatch(numberOfTradeCycles * 2);
+        final TradingStrategy secondTradingStrategy = PowerMock.createMock(TradingStrategy.class);
+        setupStrategyFetchingLatestPriceExpectations(STRATEGY_IMPL_CLASS, tradingStrategy, MARKET_ID,
+                strategiesExecuted);
+        setupStrategyFetchingLatestPriceExpectations(SECOND_STRATEGY_IMPL_CLASS, secondTradingStrategy,
+                SECOND_MARKET_ID, strategiesExecuted);
+        expect(secondExchangeAdapter.getLatestMarketPrice(MARKET_ID)).andReturn(new BigDecimal("700"))
+                .atLeastOnce();
+        expect(exchangeAdapter.getLatestMarketPrice(SECOND_MARKET_ID)).andReturn(new BigDecimal("50"))
+                .atLeastOnce();
+
+        PowerMock.replayAll();
+
+        final TradingEngine tradingEngine = new TradingEngine(exchangeConfigRepository, engineConfigRepository,
+                strategyConfigRepository, marketConfigRepository, emailAlerter);
+        final Executor executor = Executors.newSingleThreadExecutor();
+        executor.execute(tradingEngine::start);
+
+        assertTrue(strategiesExecuted.await(5, TimeUnit.SECONDS));
+        assertTrue(tradingEngine.isRunning());
+
+        tradingEngine.shutdown();
+        waitForEngineToStop(tradingEngine);
+        assertFalse(tradingEngine.isRunning());
+
+        PowerMock.verifyAll();
+    }
+
+    /*
+     * Tests an exchange that cannot be reached for its Emergency Stop check only holds its own markets. Scenario is the
+     * balance fetch failing on the 2nd exchange every trade cycle: the market on the 1st exchange keeps trading, while
+     * the 2nd exchange's market is not executed and its event driven market is neither executed nor polled.
+     */
+    @Test
+    public void testEngineHoldsOnlyTheMarketsAndEventsOfAnExchangeItCannotReach() throws Exception {
+
+        setupTwoExchangeAdapterConfigExpectations();
+        final EngineConfig engineConfig = someEngineConfig();
+        engineConfig.setMarketEventPollInterval(ENGINE_MARKET_EVENT_POLL_INTERVAL);
+        expect(engineConfigRepository.getConfig()).andReturn(engineConfig);
+
+        final MarketConfig marketOnSecondExchange = someMarketConfig(SECOND_MARKET_ID, SECOND_MARKET_LABEL,
+                SECOND_STRATEGY_ID);
+        marketOnSecondExchange.setExchange(SECOND_EXCHANGE_ID);
+        final MarketConfig eventDrivenMarketOnSecondExchange = someMarketConfig(EVENT_DRIVEN_MARKET_ID,
+                EVENT_DRIVEN_MARKET_LABEL, EVENT_DRIVEN_STRATEGY_ID);
+        eventDrivenMarketOnSecondExchange.setExchange(SECOND_EXCHANGE_ID);
+        expect(strategyConfigRepository.findAllStrategies()).andReturn(Arrays.asList(
+                someStrategyConfig(STRATEGY_ID, STRATEGY_IMPL_CLASS),
+                someStrategyConfig(SECOND_STRATEGY_ID, SECOND_STRATEGY_IMPL_CLASS),
+                someStrategyConfig(EVENT_DRIVEN_STRATEGY_ID, EVENT_DRIVEN_STRATEGY_IMPL_CLASS)));
+        expect(marketConfigRepository.findAllMarkets()).andReturn(Arrays.asList(
+                someMarketConfig(MARKET_ID, MARKET_LABEL, STRATEGY_ID), marketOnSecondExchange,
+                eventDrivenMarketOnSecondExchange));
+
+        final TradingStrategy secondTradingStrategy = PowerMock.createMock(TradingStrategy.class);
+        final EventDrivenTradingStrategy eventDrivenTradingStrategy =
+                PowerMock.createMock(EventDrivenTradingStrategy.class);
+        expect(ConfigurableComponentFactory.createComponent(STRATEGY_IMPL_CLASS)).andReturn(tradingStrategy);
+        expect(ConfigurableComponentFactory.createComponent(SECOND_STRATEGY_IMPL_CLASS))
+                .andReturn(secondTradingStrategy);
+        expect(ConfigurableComponentFactory.createComponent(EVENT_DRIVEN_STRATEGY_IMPL_CLASS))
+                .andReturn(eventDrivenTradingStrategy);
+        tradingStrategy.init(anyObject(TradingApi.class), anyObject(Market.class),
+                anyObject(com.gazbert.bxbot.strategy.api.StrategyConfig.class));
+        secondTradingStrategy.init(anyObject(TradingApi.class), anyObject(Market.class),
+                anyObject(com.gazbert.bxbot.strategy.api.StrategyConfig.class));
+        eventDrivenTradingStrategy.init(anyObject(TradingApi.class), anyObject(Market.class),
+                anyObject(com.gazbert.bxbot.strategy.api.StrategyConfig.class));
+
+        // expect the balance fetch to pass on the 1st exchange and fail on the 2nd every trade cycle
+        final Map<String, BigDecimal> balancesAvailable = new HashMap<>();
+        balancesAvailable.put(ENGINE_EMERGENCY_STOP_CURRENCY, new BigDecimal("1.0"));
+        expect(exchangeAdapter.getBalanceInfo()).andReturn(new BalanceInfo(balancesAvailable, new HashMap<>()))
+                .atLeastOnce();
+        expect(secondExchangeAdapter.getBalanceInfo()).andThrow(new ExchangeNetworkException("Connection reset"))
+                .atLeastOnce();
+
+        // expect only the 1st exchange's market to be traded
+        final int numberOfTradeCycles = 2;
+        final CountDownLatch tradeCyclesExecuted = new CountDownLatch(numberOfTradeCycles);
+        tradingStrategy.execute();
+        expectLastCall().andAnswer(() -> {
+            tradeCyclesExecuted.countDown();
+            return null;
+        }).atLeastOnce();
+
+        final AtomicBoolean isSecondExchangeTraded = new AtomicBoolean();
+        secondTradingStrategy.execute();
+        expectLastCall().andAnswer(() -> {
+            isSecondExchangeTraded.set(true);
+            return null;
+        }).anyTimes();
+        eventDrivenTradingStrategy.execute();
+        expectLastCall().andAnswer(() -> {
+            isSecondExchangeTraded.set(true);
+            return null;
+        }).anyTimes();
+        expect(secondExchangeAdapter.getMarketOrders(EVENT_DRIVEN_MARKET_ID)).andAnswer(() -> {
+            isSecondExchangeTraded.set(true);
+            return null;
+        }).anyTimes();
+
+        PowerMock.replayAll();
+
+        final TradingEngine tradingEngine = new TradingEngine(exchangeConfigRepository, engineConfigRepository,
+                strategyConfigRepository, marketConfigRepository, emailAlerter);
+        final Executor executor = Executors.newSingleThreadExecutor();
+        executor.execute(tradingEngine::start);
+
+        assertTrue(tradeCyclesExecuted.await(5, TimeUnit.SECONDS));
+        assertTrue(tradingEngine.isRunning());
+        assertFalse(isSecondExchangeTraded.get());
+
+        tradingEngine.shutdown();
+        waitForEngineToStop(tradingEngine);
+        assertFalse(tradingEngine.isRunning());
+
+        PowerMock.verifyAll();
+    }
+
+    /*
+     * Tests a Strategy config change is applied between trade cycles without restarting the engine.
+     * Scenario is 1 trade cycle with the original strategy, a config change, and then 1 trade cycle with a new strategy
+     * instance initialised with the new config.
+     */
+    @Test
+    public void testEngineReinitialisesTradingStrategyWhenItsConfigIsChanged() throws Exception {
+
+        setupConfigLoadingExpectationsForNoEmergencyStopCheck();
+        tradingStrategy.execute();
+
+        // the change is applied at the start of the 2nd trade cycle
+        final List<StrategyConfig> changedStrategiesConfig = allTheStrategiesConfig();
+        changedStrategiesConfig.get(0).getConfigItems().put(STRATEGY_CONFIG_ITEM_NAME, "0.3");
+        expect(strategyConfigRepository.findAllStrategies()).andReturn(changedStrategiesConfig);
+        expect(marketConfigRepository.findAllMarkets()).andReturn(allTheMarketsConfig());
+
+        final TradingStrategy reconfiguredTradingStrategy = PowerMock.createMock(TradingStrategy.class);
+        expect(ConfigurableComponentFactory.createComponent(STRATEGY_IMPL_CLASS))
+                .andReturn(reconfiguredTradingStrategy);
+        reconfiguredTradingStrategy.init(eq(exchangeAdapter), anyObject(Market.class),
+                anyObject(com.gazbert.bxbot.strategy.api.StrategyConfig.class));
+        reconfiguredTradingStrategy.execute();
+
+        PowerMock.replayAll();
+
+        final TradingEngine tradingEngine = new TradingEngine(exchangeConfigRepository, engineConfigRepository,
+                strategyConfigRepository, marketConfigRepository, emailAlerter);
+
+        final Executor executor = Executors.newSingleThreadExecutor();
+        executor.execute(tradingEngine::start);
+
+        // change the config half way through the 1st trade cycle's sleep
+        Thread.sleep(500);
+        tradingEngine.onConfigChanged(new ConfigChangedEvent(changedStrategiesConfig.get(0)));
+
+        // sleep for 1s to let the 2nd trade cycle occur
+        Thread.sleep(1000);
+        assertTrue(tradingEngine.isRunning());
+
+        tradingEngine.shutdown();
+
+        // sleep for 1s and check if shutdown ok
+        Thread.sleep(1 * 1000);
+        assertFalse(tradingEngine.isRunning());
+
+        PowerMock.verifyAll();
+    }
+
     /*
      * Tests the engine cannot be started more than once.
      */
@@ -530,13 +1004,133 @@ public class TestTradingEngine {
     //  private utils
     // ------------------------------------------------------------------------------------------------
 
+    /*
+     * Waits up to 5s for the engine to shut down.
+     */
+    private static void waitForEngineToStop(TradingEngine tradingEngine) throws InterruptedException {
+        final long giveUpTime = System.currentTimeMillis() + 5000;
+        while (tradingEngine.isRunning() && System.currentTimeMillis() < giveUpTime) {
+            Thread.sleep(100);
+        }
+    }
+
+    /*
+     * Starts the engine with the given config and 1 market, lets it execute the strategy, then shuts it down.
+     */
+    private TradingApi startEngineAndGetStrategyTradingApi(EngineConfig engineConfig) throws Exception {
+
+        setupExchangeAdapterConfigExpectations();
+        expect(engineConfigRepository.getConfig()).andReturn(engineConfig);
+        expect(strategyConfigRepository.findAllStrategies()).andReturn(allTheStrategiesConfig());
+        expect(marketConfigRepository.findAllMarkets()).andReturn(allTheMarketsConfig());
+        expect(ConfigurableComponentFactory.createComponent(STRATEGY_IMPL_CLASS)).andReturn(tradingStrategy);
+        final List<TradingApi> tradingApi = new ArrayList<>();
+        tradingStrategy.init(anyObject(TradingApi.class), anyObject(Market.class),
+                anyObject(com.gazbert.bxbot.strategy.api.StrategyConfig.class));
+        expectLastCall().andAnswer(() -> {
+            tradingApi.add((TradingApi) getCurrentArguments()[0]);
+            return null;
+        });
+
+        final Map<String, BigDecimal> balancesAvailable = new HashMap<>();
+        balancesAvailable.put(ENGINE_EMERGENCY_STOP_CURRENCY, new BigDecimal("1.0"));
+        expect(exchangeAdapter.getBalanceInfo()).andReturn(new BalanceInfo(balancesAvailable, new HashMap<>()))
+                .atLeastOnce();
+
+        final CountDownLatch strategyExecuted = new CountDownLatch(1);
+        tradingStrategy.execute();
+        expectLastCall().andAnswer(() -> {
+            strategyExecuted.countDown();
+            return null;
+        }).atLeastOnce();
+
+        PowerMock.replayAll();
+
+        final TradingEngine tradingEngine = new TradingEngine(exchangeConfigRepository, engineConfigRepository,
+                strategyConfigRepository, marketConfigRepository, emailAlerter);
+        final Executor executor = Executors.newSingleThreadExecutor();
+        executor.execute(tradingEngine::start);
+
+        assertTrue(strategyExecuted.await(5, TimeUnit.SECONDS));
+        tradingEngine.shutdown();
+        waitForEngineToStop(tradingEngine);
+        assertFalse(tradingEngine.isRunning());
+
+        PowerMock.verifyAll();
+        return tradingApi.get(0);
+    }
+
     private void setupExchangeAdapterConfigExpectations() throws Exception {
-        expect(exchangeConfigRepository.getConfig()).andReturn(someExchangeConfig());
+        expect(exchangeConfigRepository.findAllExchanges()).andReturn(Collections.singletonList(someExchangeConfig()));
         expect(ConfigurableComponentFactory.createComponent(EXCHANGE_ADAPTER_IMPL_CLASS)).andReturn(exchangeAdapter);
         expect(exchangeAdapter.getImplName()).andReturn(EXCHANGE_ADAPTER_NAME);
         exchangeAdapter.init(anyObject(ExchangeConfig.class));
     }
 
+    /*
+     * The adapter names are only fetched for logging, so how many times depends on what gets logged.
+     */
+    private void setupTwoExchangeAdapterConfigExpectations() throws Exception {
+        expect(exchangeConfigRepository.findAllExchanges()).andReturn(
+                Arrays.asList(someExchangeConfig(), someSecondExchangeConfig()));
+        expect(ConfigurableComponentFactory.createComponent(EXCHANGE_ADAPTER_IMPL_CLASS)).andReturn(exchangeAdapter);
+        expect(exchangeAdapter.getImplName()).andReturn(EXCHANGE_ADAPTER_NAME).anyTimes();
+        exchangeAdapter.init(anyObject(ExchangeConfig.class));
+        expect(ConfigurableComponentFactory.createComponent(SECOND_EXCHANGE_ADAPTER_IMPL_CLASS))
+                .andReturn(secondExchangeAdapter);
+        expect(secondExchangeAdapter.getImplName()).andReturn(SECOND_EXCHANGE_ADAPTER_NAME).anyTimes();
+        secondExchangeAdapter.init(anyObject(ExchangeConfig.class));
+    }
+
+    /*
+     * Puts the Trading APIs the multi-exchange strategy is initialised with into the given map.
+     */
+    @SuppressWarnings("unchecked")
+    private MultiExchangeTradingStrategy setupMultiExchangeStrategyAndMarketConfigExpectations(
+            Map<String, TradingApi> tradingApis) throws Exception {
+
+        final MultiExchangeTradingStrategy multiExchangeTradingStrategy =
+                PowerMock.createMock(MultiExchangeTradingStrategy.class);
+
+        final List<StrategyConfig> strategies = allTheStrategiesConfig();
+        strategies.get(0).setClassName(MULTI_EXCHANGE_STRATEGY_IMPL_CLASS);
+        expect(strategyConfigRepository.findAllStrategies()).andReturn(strategies);
+        expect(marketConfigRepository.findAllMarkets()).andReturn(allTheMarketsConfig());
+        expect(ConfigurableComponentFactory.createComponent(MULTI_EXCHANGE_STRATEGY_IMPL_CLASS))
+                .andReturn(multiExchangeTradingStrategy);
+        multiExchangeTradingStrategy.init(anyObject(Map.class), anyObject(Market.class),
+                anyObject(com.gazbert.bxbot.strategy.api.StrategyConfig.class));
+        expectLastCall().andAnswer(() -> {
+            tradingApis.putAll((Map<String, TradingApi>) getCurrentArguments()[0]);
+            return null;
+        });
+        return multiExchangeTradingStrategy;
+    }
+
+    /*
+     * Each time the strategy is executed, it fetches its market's latest price through the Trading API it was
+     * initialised with.
+     */
+    private void setupStrategyFetchingLatestPriceExpectations(String strategyImplClass, TradingStrategy strategy,
+                                                              String marketId, CountDownLatch strategiesExecuted)
+            throws Exception {
+
+        final List<TradingApi> tradingApi = new ArrayList<>();
+        expect(ConfigurableComponentFactory.createComponent(strategyImplClass)).andReturn(strategy);
+        strategy.init(anyObject(TradingApi.class), anyObject(Market.class),
+                anyObject(com.gazbert.bxbot.strategy.api.StrategyConfig.class));
+        expectLastCall().andAnswer(() -> {
+            tradingApi.add((TradingApi) getCurrentArguments()[0]);
+            return null;
+        });
+        strategy.execute();
+        expectLastCall().andAnswer(() -> {
+            tradingApi.get(0).getLatestMarketPrice(marketId);
+            strategiesExecuted.countDown();
+            return null;
+        }).atLeastOnce();
+    }
+
     private void setupEngineConfigExpectations() throws Exception {
         expect(engineConfigRepository.getConfig()).andReturn(someEngineConfig());
     }
@@ -552,6 +1146,15 @@ public class TestTradingEngine {
         tradingStrategy.init(eq(exchangeAdapter), anyObject(Market.class), anyObject(com.gazbert.bxbot.strategy.api.StrategyConfig.class));
     }
 
+    private void setupStrategyAndMarketConfigExpectationsForParallelStrategyExecution() throws Exception {
+        expect(strategyConfigRepository.findAllStrategies()).andReturn(allTheStrategiesConfig());
+        expect(marketConfigRepository.findAllMarkets()).andReturn(allTheMarketsConfig());
+        expect(ConfigurableComponentFactory.createComponent(STRATEGY_IMPL_CLASS)).andReturn(tradingStrategy);
+        // strategies are given a wrapper around the Exchange Adapter that serialises authenticated calls
+        tradingStrategy.init(and(anyObject(TradingApi.class), not(same(exchangeAdapter))), anyObject(Market.class),
+                anyObject(com.gazbert.bxbot.strategy.api.StrategyConfig.class));
+    }
+
     private void setupConfigLoadingExpectations() throws Exception {
         setupExchangeAdapterConfigExpectations();
         setupEngineConfigExpectations();
@@ -579,6 +1182,7 @@ public class TestTradingEngine {
         otherConfig.getItems().put(EXCHANGE_ADAPTER_OTHER_CONFIG_ITEM_NAME, EXCHANGE_ADAPTER_OTHER_CONFIG_ITEM_VALUE);
 
         final com.gazbert.bxbot.domain.exchange.ExchangeConfig exchangeConfig = new com.gazbert.bxbot.domain.exchange.ExchangeConfig();
+        exchangeConfig.setId(EXCHANGE_ID);
         exchangeConfig.setAuthenticationConfig(authenticationConfig);
         exchangeConfig.setExchangeName(EXCHANGE_ADAPTER_NAME);
         exchangeConfig.setExchangeAdapter(EXCHANGE_ADAPTER_IMPL_CLASS);
@@ -588,6 +1192,14 @@ public class TestTradingEngine {
         return exchangeConfig;
     }
 
+    private static com.gazbert.bxbot.domain.exchange.ExchangeConfig someSecondExchangeConfig() {
+        final com.gazbert.bxbot.domain.exchange.ExchangeConfig exchangeConfig = someExchangeConfig();
+        exchangeConfig.setId(SECOND_EXCHANGE_ID);
+        exchangeConfig.setExchangeName(SECOND_EXCHANGE_ADAPTER_NAME);
+        exchangeConfig.setExchangeAdapter(SECOND_EXCHANGE_ADAPTER_IMPL_CLASS);
+        return exchangeConfig;
+    }
+
     private static EngineConfig someEngineConfig() {
         final EngineConfig engineConfig = new EngineConfig();
         engineConfig.setEmergencyStopCurrency(ENGINE_EMERGENCY_STOP_CURRENCY);
@@ -604,6 +1216,35 @@ public class TestTradingEngine {
         return engineConfig;
     }
 
+    private static EngineConfig someEngineConfigForParallelStrategyExecution() {
+        final EngineConfig engineConfig = someEngineConfig();
+        engineConfig.setStrategyExecutionThreads(ENGINE_STRATEGY_EXECUTION_THREADS);
+        return engineConfig;
+    }
+
+    private static EngineConfig someEngineConfigForBalanceReconciliation() {
+        final EngineConfig engineConfig = someEngineConfig();
+        engineConfig.setBalanceReconciliationInterval(ENGINE_BALANCE_RECONCILIATION_INTERVAL);
+        return engineConfig;
+    }
+
+    private static EngineConfig someEngineConfigForRequestCoalescing(int requestCoalescingWindow) {
+        final EngineConfig engineConfig = someEngineConfigForParallelStrategyExecution();
+        engineConfig.setBalanceReconciliationInterval(ENGINE_BALANCE_RECONCILIATION_INTERVAL);
+        engineConfig.setRequestCoalescingWindow(requestCoalescingWindow);
+        return engineConfig;
+    }
+
+    private static StrategyConfig someStrategyConfig(String strategyId, String strategyImplClass) {
+        return new StrategyConfig(strategyId, STRATEGY_LABEL, STRATEGY_DESCRIPTION, strategyImplClass,
+                new HashMap<>());
+    }
+
+    private static MarketConfig someMarketConfig(String marketId, String marketLabel, String strategyId) {
+        return new MarketConfig(marketLabel, marketId, MARKET_BASE_CURRENCY, MARKET_COUNTER_CURRENCY,
+                MARKET_IS_ENABLED, strategyId);
+    }
+
     private static List<StrategyConfig> allTheStrategiesConfig() {
 
         final Map<String, String> configItems = new HashMap<>();
@@ -618,10 +1259,8 @@ public class TestTradingEngine {
     }
 
     private static List<MarketConfig> allTheMarketsConfig() {
-        final MarketConfig marketConfig1 = new MarketConfig(MARKET_ID, MARKET_LABEL, MARKET_BASE_CURRENCY,
-                MARKET_COUNTER_CURRENCY, MARKET_IS_ENABLED, STRATEGY_ID);
         final List<MarketConfig> allMarkets = new ArrayList<>();
-        allMarkets.add(marketConfig1);
+        allMarkets.add(someMarketConfig(MARKET_ID, MARKET_LABEL, STRATEGY_ID));
         return allMarkets;
     }
 }
@@ -37,6 +37,18 @@ public class EngineConfig {
     private String emergencyStopCurrency;
     private BigDecimal emergencyStopBalance;
     private int tradeCycleInterval;
+    private Integer strategyExecutionThreads;
+    private Integer strategyExecutionTimeout;
+    private Integer requestCoalescingWindow;
+    private Integer exchangeFeeCacheTtl;
+    private Integer marketOrdersCacheTtl;
+    private Integer topOfBookCacheTtl;
+    private Integer latestPriceCacheTtl;
+    private Integer balanceInfoCacheTtl;
+    private Integer buyFeeCacheTtl;
+    private Integer sellFeeCacheTtl;
+    private Integer marketEventPollInterval;
+    private Integer balanceReconciliationInterval;
 
     // required for jackson
     public EngineConfig() {
@@ -72,6 +84,102 @@ public class EngineConfig {
         this.tradeCycleInterval = tradeCycleInterval;
     }
 
+    public Integer getStrategyExecutionThreads() {
+        return strategyExecutionThreads;
+    }
+
+    public void setStrategyExecutionThreads(Integer strategyExecutionThreads) {
+        this.strategyExecutionThreads = strategyExecutionThreads;
+    }
+
+    public Integer getStrategyExecutionTimeout() {
+        return strategyExecutionTimeout;
+    }
+
+    public void setStrategyExecutionTimeout(Integer strategyExecutionTimeout) {
+        this.strategyExecutionTimeout = strategyExecutionTimeout;
+    }
+
+    public Integer getRequestCoalescingWindow() {
+        return requestCoalescingWindow;
+    }
+
+    public void setRequestCoalescingWindow(Integer requestCoalescingWindow) {
+        this.requestCoalescingWindow = requestCoalescingWindow;
+    }
+
+    public Integer getExchangeFeeCacheTtl() {
+        return exchangeFeeCacheTtl;
+    }
+
+    public void setExchangeFeeCacheTtl(Integer exchangeFeeCacheTtl) {
+        this.exchangeFeeCacheTtl = exchangeFeeCacheTtl;
+    }
+
+    public Integer getMarketOrdersCacheTtl() {
+        return marketOrdersCacheTtl;
+    }
+
+    public void setMarketOrdersCacheTtl(Integer marketOrdersCacheTtl) {
+        this.marketOrdersCacheTtl = marketOrdersCacheTtl;
+    }
+
+    public Integer getTopOfBookCacheTtl() {
+        return topOfBookCacheTtl;
+    }
+
+    public void setTopOfBookCacheTtl(Integer topOfBookCacheTtl) {
+        this.topOfBookCacheTtl = topOfBookCacheTtl;
+    }
+
+    public Integer getLatestPriceCacheTtl() {
+        return latestPriceCacheTtl;
+    }
+
+    public void setLatestPriceCacheTtl(Integer latestPriceCacheTtl) {
+        this.latestPriceCacheTtl = latestPriceCacheTtl;
+    }
+
+    public Integer getBalanceInfoCacheTtl() {
+        return balanceInfoCacheTtl;
+    }
+
+    public void setBalanceInfoCacheTtl(Integer balanceInfoCacheTtl) {
+        this.balanceInfoCacheTtl = balanceInfoCacheTtl;
+    }
+
+    public Integer getBuyFeeCacheTtl() {
+        return buyFeeCacheTtl;
+    }
+
+    public void setBuyFeeCacheTtl(Integer buyFeeCacheTtl) {
+        this.buyFeeCacheTtl = buyFeeCacheTtl;
+    }
+
+    public Integer getSellFeeCacheTtl() {
+        return sellFeeCacheTtl;
+    }
+
+    public void setSellFeeCacheTtl(Integer sellFeeCacheTtl) {
+        this.sellFeeCacheTtl = sellFeeCacheTtl;
+    }
+
+    public Integer getMarketEventPollInterval() {
+        return marketEventPollInterval;
+    }
+
+    public void setMarketEventPollInterval(Integer marketEventPollInterval) {
+        this.marketEventPollInterval = marketEventPollInterval;
+    }
+
+    public Integer getBalanceReconciliationInterval() {
+        return balanceReconciliationInterval;
+    }
+
+    public void setBalanceReconciliationInterval(Integer balanceReconciliationInterval) {
+        this.balanceReconciliationInterval = balanceReconciliationInterval;
+    }
+
 
     @Override
     public String toString() {
@@ -79,6 +187,18 @@ public class EngineConfig {
                 .add("emergencyStopCurrency", emergencyStopCurrency)
                 .add("emergencyStopBalance", emergencyStopBalance)
                 .add("tradeCycleInterval", tradeCycleInterval)
+                .add("strategyExecutionThreads", strategyExecutionThreads)
+                .add("strategyExecutionTimeout", strategyExecutionTimeout)
+                .add("requestCoalescingWindow", requestCoalescingWindow)
+                .add("exchangeFeeCacheTtl", exchangeFeeCacheTtl)
+                .add("marketOrdersCacheTtl", marketOrdersCacheTtl)
+                .add("topOfBookCacheTtl", topOfBookCacheTtl)
+                .add("latestPriceCacheTtl", latestPriceCacheTtl)
+                .add("balanceInfoCacheTtl", balanceInfoCacheTtl)
+                .add("buyFeeCacheTtl", buyFeeCacheTtl)
+                .add("sellFeeCacheTtl", sellFeeCacheTtl)
+                .add("marketEventPollInterval", marketEventPollInterval)
+                .add("balanceReconciliationInterval", balanceReconciliationInterval)
                 .toString();
     }
 }
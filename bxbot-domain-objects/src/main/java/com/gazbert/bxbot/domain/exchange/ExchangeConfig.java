@@ -25,13 +25,18 @@ package com.gazbert.bxbot.domain.exchange;
 
 import com.google.common.base.MoreObjects;
 
+import java.math.BigDecimal;
+
 /**
- * Domain object representing the overall Exchange config.
+ * Domain object representing the config for an Exchange.
+ * <p>
+ * The Emergency Stop currency and balance are optional; if they are not set, the Engine config values are used.
  *
  * @author gazbert
  */
 public class ExchangeConfig {
 
+    private String id;
     private String exchangeName;
     private String exchangeAdapter;
     private AuthenticationConfig authenticationConfig;
@@ -39,6 +44,17 @@ public class ExchangeConfig {
     private NetworkConfig networkConfig;
     private OtherConfig otherConfig;
 
+    private String emergencyStopCurrency;
+    private BigDecimal emergencyStopBalance;
+
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
 
     public String getExchangeName() {
         return exchangeName;
@@ -80,15 +96,34 @@ public class ExchangeConfig {
         this.otherConfig = otherConfig;
     }
 
+    public String getEmergencyStopCurrency() {
+        return emergencyStopCurrency;
+    }
+
+    public void setEmergencyStopCurrency(String emergencyStopCurrency) {
+        this.emergencyStopCurrency = emergencyStopCurrency;
+    }
+
+    public BigDecimal getEmergencyStopBalance() {
+        return emergencyStopBalance;
+    }
+
+    public void setEmergencyStopBalance(BigDecimal emergencyStopBalance) {
+        this.emergencyStopBalance = emergencyStopBalance;
+    }
+
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(this)
+                .add("id", id)
                 .add("exchangeName", exchangeName)
                 .add("exchangeAdapter", exchangeAdapter)
                 // WARNING - careful showing this!
                 //.add("authenticationConfig", authenticationConfig)
                 .add("networkConfig", networkConfig)
                 .add("otherConfig", otherConfig)
+                .add("emergencyStopCurrency", emergencyStopCurrency)
+                .add("emergencyStopBalance", emergencyStopBalance)
                 .toString();
     }
 }
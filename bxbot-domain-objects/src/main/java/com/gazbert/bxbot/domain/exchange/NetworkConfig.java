@@ -38,6 +38,10 @@ public class NetworkConfig {
     private Integer connectionTimeout;
     private List<Integer> nonFatalErrorCodes;
     private List<String> nonFatalErrorMessages;
+    private Integer maxConnectionsPerHost;
+    private Integer idleConnectionTimeout;
+    private Integer rateLimitInterval;
+    private Integer rateLimitBurst;
 
 
     public NetworkConfig() {
@@ -69,12 +73,48 @@ public class NetworkConfig {
         this.nonFatalErrorMessages = nonFatalErrorMessages;
     }
 
+    public Integer getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    public void setMaxConnectionsPerHost(Integer maxConnectionsPerHost) {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    public Integer getIdleConnectionTimeout() {
+        return idleConnectionTimeout;
+    }
+
+    public void setIdleConnectionTimeout(Integer idleConnectionTimeout) {
+        this.idleConnectionTimeout = idleConnectionTimeout;
+    }
+
+    public Integer getRateLimitInterval() {
+        return rateLimitInterval;
+    }
+
+    public void setRateLimitInterval(Integer rateLimitInterval) {
+        this.rateLimitInterval = rateLimitInterval;
+    }
+
+    public Integer getRateLimitBurst() {
+        return rateLimitBurst;
+    }
+
+    public void setRateLimitBurst(Integer rateLimitBurst) {
+        this.rateLimitBurst = rateLimitBurst;
+    }
+
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(this)
                 .add("connectionTimeout", connectionTimeout)
                 .add("nonFatalErrorCodes", nonFatalErrorCodes)
                 .add("nonFatalErrorMessages", nonFatalErrorMessages)
+                .add("maxConnectionsPerHost", maxConnectionsPerHost)
+                .add("idleConnectionTimeout", idleConnectionTimeout)
+                .add("rateLimitInterval", rateLimitInterval)
+                .add("rateLimitBurst", rateLimitBurst)
                 .toString();
     }
 }
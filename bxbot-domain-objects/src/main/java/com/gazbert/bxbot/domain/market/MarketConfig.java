@@ -39,6 +39,8 @@ public class MarketConfig {
     private String counterCurrency;
     private boolean enabled;
     private String tradingStrategy; // TODO might change this to ref to StrategyConfig ...
+    private Integer tradeCycleInterval;
+    private String exchange;
 
 
     // required for Jackson
@@ -102,6 +104,22 @@ public class MarketConfig {
         this.tradingStrategy = tradingStrategy;
     }
 
+    public Integer getTradeCycleInterval() {
+        return tradeCycleInterval;
+    }
+
+    public void setTradeCycleInterval(Integer tradeCycleInterval) {
+        this.tradeCycleInterval = tradeCycleInterval;
+    }
+
+    public String getExchange() {
+        return exchange;
+    }
+
+    public void setExchange(String exchange) {
+        this.exchange = exchange;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -124,6 +142,8 @@ public class MarketConfig {
                 .add("counterCurrency", counterCurrency)
                 .add("enabled", enabled)
                 .add("tradingStrategy", tradingStrategy)
+                .add("tradeCycleInterval", tradeCycleInterval)
+                .add("exchange", exchange)
                 .toString();
     }
 }
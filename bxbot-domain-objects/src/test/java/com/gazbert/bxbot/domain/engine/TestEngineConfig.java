@@ -39,6 +39,18 @@ public class TestEngineConfig {
     private static final String EMERGENCY_STOP_CURRENCY = "BTC";
     private static final BigDecimal EMERGENCY_STOP_BALANCE = new BigDecimal("1.5");
     private static final int TRADE_CYCLE_INTERVAL = 30;
+    private static final Integer STRATEGY_EXECUTION_THREADS = 4;
+    private static final Integer STRATEGY_EXECUTION_TIMEOUT = 20;
+    private static final Integer REQUEST_COALESCING_WINDOW = 1000;
+    private static final Integer EXCHANGE_FEE_CACHE_TTL = 3600;
+    private static final Integer MARKET_ORDERS_CACHE_TTL = 250;
+    private static final Integer TOP_OF_BOOK_CACHE_TTL = 100;
+    private static final Integer LATEST_PRICE_CACHE_TTL = 1000;
+    private static final Integer BALANCE_INFO_CACHE_TTL = 2000;
+    private static final Integer BUY_FEE_CACHE_TTL = 60000;
+    private static final Integer SELL_FEE_CACHE_TTL = 120000;
+    private static final Integer MARKET_EVENT_POLL_INTERVAL = 500;
+    private static final Integer BALANCE_RECONCILIATION_INTERVAL = 300;
 
     @Test
     public void testInitialisationWorksAsExpected() {
@@ -47,6 +59,18 @@ public class TestEngineConfig {
         assertEquals(EMERGENCY_STOP_CURRENCY, engineConfig.getEmergencyStopCurrency());
         assertEquals(EMERGENCY_STOP_BALANCE, engineConfig.getEmergencyStopBalance());
         assertEquals(TRADE_CYCLE_INTERVAL, engineConfig.getTradeCycleInterval());
+        assertEquals(null, engineConfig.getStrategyExecutionThreads());
+        assertEquals(null, engineConfig.getStrategyExecutionTimeout());
+        assertEquals(null, engineConfig.getRequestCoalescingWindow());
+        assertEquals(null, engineConfig.getExchangeFeeCacheTtl());
+        assertEquals(null, engineConfig.getMarketOrdersCacheTtl());
+        assertEquals(null, engineConfig.getTopOfBookCacheTtl());
+        assertEquals(null, engineConfig.getLatestPriceCacheTtl());
+        assertEquals(null, engineConfig.getBalanceInfoCacheTtl());
+        assertEquals(null, engineConfig.getBuyFeeCacheTtl());
+        assertEquals(null, engineConfig.getSellFeeCacheTtl());
+        assertEquals(null, engineConfig.getMarketEventPollInterval());
+        assertEquals(null, engineConfig.getBalanceReconciliationInterval());
     }
 
     @Test
@@ -65,5 +89,40 @@ public class TestEngineConfig {
 
         engineConfig.setTradeCycleInterval(TRADE_CYCLE_INTERVAL);
         assertEquals(TRADE_CYCLE_INTERVAL, engineConfig.getTradeCycleInterval());
+
+        engineConfig.setStrategyExecutionThreads(STRATEGY_EXECUTION_THREADS);
+        assertEquals(STRATEGY_EXECUTION_THREADS, engineConfig.getStrategyExecutionThreads());
+
+        engineConfig.setStrategyExecutionTimeout(STRATEGY_EXECUTION_TIMEOUT);
+        assertEquals(STRATEGY_EXECUTION_TIMEOUT, engineConfig.getStrategyExecutionTimeout());
+
+        engineConfig.setRequestCoalescingWindow(REQUEST_COALESCING_WINDOW);
+        assertEquals(REQUEST_COALESCING_WINDOW, engineConfig.getRequestCoalescingWindow());
+
+        engineConfig.setExchangeFeeCacheTtl(EXCHANGE_FEE_CACHE_TTL);
+        assertEquals(EXCHANGE_FEE_CACHE_TTL, engineConfig.getExchangeFeeCacheTtl());
+
+        engineConfig.setMarketOrdersCacheTtl(MARKET_ORDERS_CACHE_TTL);
+        assertEquals(MARKET_ORDERS_CACHE_TTL, engineConfig.getMarketOrdersCacheTtl());
+
+        engineConfig.setTopOfBookCacheTtl(TOP_OF_BOOK_CACHE_TTL);
+        assertEquals(TOP_OF_BOOK_CACHE_TTL, engineConfig.getTopOfBookCacheTtl());
+
+        engineConfig.setLatestPriceCacheTtl(LATEST_PRICE_CACHE_TTL);
+        assertEquals(LATEST_PRICE_CACHE_TTL, engineConfig.getLatestPriceCacheTtl());
+
+        engineConfig.setBalanceInfoCacheTtl(BALANCE_INFO_CACHE_TTL);
+        assertEquals(BALANCE_INFO_CACHE_TTL, engineConfig.getBalanceInfoCacheTtl());
+
+        engineConfig.setBuyFeeCacheTtl(BUY_FEE_CACHE_TTL);
+        assertEquals(BUY_FEE_CACHE_TTL, engineConfig.getBuyFeeCacheTtl());
+
+        engineConfig.setSellFeeCacheTtl(SELL_FEE_CACHE_TTL);
+        assertEquals(SELL_FEE_CACHE_TTL, engineConfig.getSellFeeCacheTtl());
+
+        engineConfig.setMarketEventPollInterval(MARKET_EVENT_POLL_INTERVAL);
+        engineConfig.setBalanceReconciliationInterval(BALANCE_RECONCILIATION_INTERVAL);
+        assertEquals(MARKET_EVENT_POLL_INTERVAL, engineConfig.getMarketEventPollInterval());
+        assertEquals(BALANCE_RECONCILIATION_INTERVAL, engineConfig.getBalanceReconciliationInterval());
     }
 }
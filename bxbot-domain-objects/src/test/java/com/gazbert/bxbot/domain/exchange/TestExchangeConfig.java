@@ -25,6 +25,8 @@ package com.gazbert.bxbot.domain.exchange;
 
 import org.junit.Test;
 
+import java.math.BigDecimal;
+
 import static org.junit.Assert.assertEquals;
 
 /**
@@ -34,22 +36,28 @@ import static org.junit.Assert.assertEquals;
  */
 public class TestExchangeConfig {
 
+    private static final String EXCHANGE_ID = "btce";
     private static final String EXCHANGE_NAME = "BTC-e";
     private static final String EXCHANGE_ADAPTER = "com.gazbert.bxbot.exchanges.TestExchangeAdapter";
     private static final AuthenticationConfig AUTHENTICATION_CONFIG = new AuthenticationConfig();
     private static final NetworkConfig NETWORK_CONFIG = new NetworkConfig();
     private static final OtherConfig OTHER_CONFIG = new OtherConfig();
+    private static final String EMERGENCY_STOP_CURRENCY = "BTC";
+    private static final BigDecimal EMERGENCY_STOP_BALANCE = new BigDecimal("0.5");
 
 
     @Test
     public void testInitialisationWorksAsExpected() {
 
         final ExchangeConfig exchangeConfig = new ExchangeConfig();
+        assertEquals(null, exchangeConfig.getId());
         assertEquals(null, exchangeConfig.getExchangeName());
         assertEquals(null, exchangeConfig.getExchangeAdapter());
         assertEquals(null, exchangeConfig.getAuthenticationConfig());
         assertEquals(null, exchangeConfig.getNetworkConfig());
         assertEquals(null, exchangeConfig.getOtherConfig());
+        assertEquals(null, exchangeConfig.getEmergencyStopCurrency());
+        assertEquals(null, exchangeConfig.getEmergencyStopBalance());
     }
 
     @Test
@@ -57,6 +65,9 @@ public class TestExchangeConfig {
 
         final ExchangeConfig exchangeConfig = new ExchangeConfig();
 
+        exchangeConfig.setId(EXCHANGE_ID);
+        assertEquals(EXCHANGE_ID, exchangeConfig.getId());
+
         exchangeConfig.setExchangeName(EXCHANGE_NAME);
         assertEquals(EXCHANGE_NAME, exchangeConfig.getExchangeName());
 
@@ -71,5 +82,11 @@ public class TestExchangeConfig {
 
         exchangeConfig.setOtherConfig(OTHER_CONFIG);
         assertEquals(OTHER_CONFIG, exchangeConfig.getOtherConfig());
+
+        exchangeConfig.setEmergencyStopCurrency(EMERGENCY_STOP_CURRENCY);
+        assertEquals(EMERGENCY_STOP_CURRENCY, exchangeConfig.getEmergencyStopCurrency());
+
+        exchangeConfig.setEmergencyStopBalance(EMERGENCY_STOP_BALANCE);
+        assertEquals(EMERGENCY_STOP_BALANCE, exchangeConfig.getEmergencyStopBalance());
     }
 }
@@ -42,6 +42,10 @@ public class TestNetworkConfig {
     private static final List<Integer> NON_FATAL_ERROR_CODES = Arrays.asList(502, 503, 504);
     private static final List<String> NON_FATAL_ERROR_MESSAGES = Arrays.asList(
             "Connection refused", "Connection reset", "Remote host closed connection during handshake");
+    private static final Integer MAX_CONNECTIONS_PER_HOST = 4;
+    private static final Integer IDLE_CONNECTION_TIMEOUT = 60;
+    private static final Integer RATE_LIMIT_INTERVAL = 3000;
+    private static final Integer RATE_LIMIT_BURST = 15;
 
     @Test
     public void testInitialisationWorksAsExpected() {
@@ -50,6 +54,10 @@ public class TestNetworkConfig {
         assertEquals(null, networkConfig.getConnectionTimeout());
         assertTrue(networkConfig.getNonFatalErrorCodes().isEmpty());
         assertTrue(networkConfig.getNonFatalErrorMessages().isEmpty());
+        assertEquals(null, networkConfig.getMaxConnectionsPerHost());
+        assertEquals(null, networkConfig.getIdleConnectionTimeout());
+        assertEquals(null, networkConfig.getRateLimitInterval());
+        assertEquals(null, networkConfig.getRateLimitBurst());
     }
 
     @Test
@@ -65,5 +73,17 @@ public class TestNetworkConfig {
 
         networkConfig.setNonFatalErrorMessages(NON_FATAL_ERROR_MESSAGES);
         assertEquals(NON_FATAL_ERROR_MESSAGES, networkConfig.getNonFatalErrorMessages());
+
+        networkConfig.setMaxConnectionsPerHost(MAX_CONNECTIONS_PER_HOST);
+        assertEquals(MAX_CONNECTIONS_PER_HOST, networkConfig.getMaxConnectionsPerHost());
+
+        networkConfig.setIdleConnectionTimeout(IDLE_CONNECTION_TIMEOUT);
+        assertEquals(IDLE_CONNECTION_TIMEOUT, networkConfig.getIdleConnectionTimeout());
+
+        networkConfig.setRateLimitInterval(RATE_LIMIT_INTERVAL);
+        assertEquals(RATE_LIMIT_INTERVAL, networkConfig.getRateLimitInterval());
+
+        networkConfig.setRateLimitBurst(RATE_LIMIT_BURST);
+        assertEquals(RATE_LIMIT_BURST, networkConfig.getRateLimitBurst());
     }
 }
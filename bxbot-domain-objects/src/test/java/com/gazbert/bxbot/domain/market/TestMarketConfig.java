@@ -40,6 +40,8 @@ public class TestMarketConfig {
     private static final String COUNTER_CURRENCY = "USD";
     private static final boolean IS_ENABLED = true;
     private static final String TRADING_STRATEGY = "macd_trend_follower";
+    private static final Integer TRADE_CYCLE_INTERVAL = 5;
+    private static final String EXCHANGE = "btce";
 
 
     @Test
@@ -64,7 +66,8 @@ public class TestMarketConfig {
         assertEquals(null, marketConfig.getCounterCurrency());
         assertEquals(false, marketConfig.isEnabled());
         assertEquals(null, marketConfig.getTradingStrategy());
-
+        assertEquals(null, marketConfig.getTradeCycleInterval());
+        assertEquals(null, marketConfig.getExchange());
 
         marketConfig.setLabel(LABEL);
         assertEquals(LABEL, marketConfig.getLabel());
@@ -83,5 +86,11 @@ public class TestMarketConfig {
 
         marketConfig.setTradingStrategy(TRADING_STRATEGY);
         assertEquals(TRADING_STRATEGY, marketConfig.getTradingStrategy());
+
+        marketConfig.setTradeCycleInterval(TRADE_CYCLE_INTERVAL);
+        assertEquals(TRADE_CYCLE_INTERVAL, marketConfig.getTradeCycleInterval());
+
+        marketConfig.setExchange(EXCHANGE);
+        assertEquals(EXCHANGE, marketConfig.getExchange());
     }
 }
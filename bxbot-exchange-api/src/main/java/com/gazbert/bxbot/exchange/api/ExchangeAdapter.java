@@ -23,7 +23,7 @@
 
 package com.gazbert.bxbot.exchange.api;
 
-import com.gazbert.bxbot.trading.api.TradingApi;
+import com.gazbert.bxbot.trading.api.AsyncTradingApi;
 
 /**
  * <p>
@@ -33,11 +33,16 @@ import com.gazbert.bxbot.trading.api.TradingApi;
  * <p>
  * The Trading Engine will send only 1 thread through the Exchange Adapter code at a time - you do not have to code for concurrency.
  * </p>
+ * <p>
+ * The {@link AsyncTradingApi} calls are bridged to the blocking calls and, by default, run on the calling thread.
+ * If you override {@link AsyncTradingApi#getPublicApiExecutor()} or {@link AsyncTradingApi#getAuthenticatedApiExecutor()}
+ * to run calls in parallel, your adapter will need to be thread safe for those calls.
+ * </p>
  *
  * @author gazbert
  * @since 1.0
  */
-public interface ExchangeAdapter extends TradingApi {
+public interface ExchangeAdapter extends AsyncTradingApi {
 
     /**
      * Called once by the Trading Engine when it starts up.
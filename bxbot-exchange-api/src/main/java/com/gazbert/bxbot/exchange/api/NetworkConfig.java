@@ -53,4 +53,34 @@ public interface NetworkConfig {
      * @return the connection timeout value if present, null otherwise.
      */
     Integer getConnectionTimeout();
+
+    /**
+     * Fetches (optional) max number of pooled keep-alive connections to hold open per exchange host.
+     *
+     * @return the max connections per host if present, null otherwise. If null, a new connection is opened for
+     * every API call.
+     */
+    Integer getMaxConnectionsPerHost();
+
+    /**
+     * Fetches (optional) idle connection timeout in seconds for pooled keep-alive connections.
+     *
+     * @return the idle connection timeout value if present, null otherwise.
+     */
+    Integer getIdleConnectionTimeout();
+
+    /**
+     * Fetches (optional) rate limit interval in millis, i.e. how often the adapter earns the right to make another API
+     * call once its burst allowance is used up.
+     *
+     * @return the rate limit interval if present, null otherwise. If null, API calls are not rate limited.
+     */
+    Integer getRateLimitInterval();
+
+    /**
+     * Fetches (optional) max number of API calls the adapter can make in a burst before it is rate limited.
+     *
+     * @return the rate limit burst if present, null otherwise.
+     */
+    Integer getRateLimitBurst();
 }
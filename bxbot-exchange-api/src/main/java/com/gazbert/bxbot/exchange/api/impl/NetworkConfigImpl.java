@@ -39,6 +39,10 @@ public class NetworkConfigImpl implements NetworkConfig {
     private Integer connectionTimeout;
     private List<Integer> nonFatalErrorCodes;
     private List<String> nonFatalErrorMessages;
+    private Integer maxConnectionsPerHost;
+    private Integer idleConnectionTimeout;
+    private Integer rateLimitInterval;
+    private Integer rateLimitBurst;
 
     public NetworkConfigImpl() {
         nonFatalErrorCodes = new ArrayList<>();
@@ -72,12 +76,52 @@ public class NetworkConfigImpl implements NetworkConfig {
         this.nonFatalErrorMessages = nonFatalErrorMessages;
     }
 
+    @Override
+    public Integer getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    public void setMaxConnectionsPerHost(Integer maxConnectionsPerHost) {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    @Override
+    public Integer getIdleConnectionTimeout() {
+        return idleConnectionTimeout;
+    }
+
+    public void setIdleConnectionTimeout(Integer idleConnectionTimeout) {
+        this.idleConnectionTimeout = idleConnectionTimeout;
+    }
+
+    @Override
+    public Integer getRateLimitInterval() {
+        return rateLimitInterval;
+    }
+
+    public void setRateLimitInterval(Integer rateLimitInterval) {
+        this.rateLimitInterval = rateLimitInterval;
+    }
+
+    @Override
+    public Integer getRateLimitBurst() {
+        return rateLimitBurst;
+    }
+
+    public void setRateLimitBurst(Integer rateLimitBurst) {
+        this.rateLimitBurst = rateLimitBurst;
+    }
+
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(this)
                 .add("connectionTimeout", connectionTimeout)
                 .add("nonFatalErrorCodes", nonFatalErrorCodes)
                 .add("nonFatalErrorMessages", nonFatalErrorMessages)
+                .add("maxConnectionsPerHost", maxConnectionsPerHost)
+                .add("idleConnectionTimeout", idleConnectionTimeout)
+                .add("rateLimitInterval", rateLimitInterval)
+                .add("rateLimitBurst", rateLimitBurst)
                 .toString();
     }
 }
@@ -90,10 +90,13 @@ public class GdaxIT {
         expect(networkConfig.getConnectionTimeout()).andReturn(30);
         expect(networkConfig.getNonFatalErrorCodes()).andReturn(nonFatalNetworkErrorCodes);
         expect(networkConfig.getNonFatalErrorMessages()).andReturn(nonFatalNetworkErrorMessages);
+        expect(networkConfig.getMaxConnectionsPerHost()).andReturn(null);
+        expect(networkConfig.getRateLimitInterval()).andReturn(null);
 
         otherConfig = PowerMock.createMock(OtherConfig.class);
         expect(otherConfig.getItem("buy-fee")).andReturn("0.25");
         expect(otherConfig.getItem("sell-fee")).andReturn("0.25");
+        expect(otherConfig.getItem("websocket-feed-url")).andReturn(null);
 
         exchangeConfig = PowerMock.createMock(ExchangeConfig.class);
         expect(exchangeConfig.getAuthenticationConfig()).andReturn(authenticationConfig);
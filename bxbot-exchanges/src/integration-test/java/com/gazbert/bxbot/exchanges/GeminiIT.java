@@ -87,6 +87,8 @@ public class GeminiIT {
         expect(networkConfig.getConnectionTimeout()).andReturn(30);
         expect(networkConfig.getNonFatalErrorCodes()).andReturn(nonFatalNetworkErrorCodes);
         expect(networkConfig.getNonFatalErrorMessages()).andReturn(nonFatalNetworkErrorMessages);
+        expect(networkConfig.getMaxConnectionsPerHost()).andReturn(null);
+        expect(networkConfig.getRateLimitInterval()).andReturn(null);
 
         otherConfig = PowerMock.createMock(OtherConfig.class);
         expect(otherConfig.getItem("buy-fee")).andReturn("0.25");
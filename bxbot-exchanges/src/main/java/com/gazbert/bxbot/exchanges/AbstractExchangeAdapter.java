@@ -26,6 +26,7 @@ import com.gazbert.bxbot.exchange.api.AuthenticationConfig;
 import com.gazbert.bxbot.exchange.api.ExchangeConfig;
 import com.gazbert.bxbot.exchange.api.NetworkConfig;
 import com.gazbert.bxbot.exchange.api.OtherConfig;
+import com.gazbert.bxbot.trading.api.AsyncTradingApi;
 import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
 import com.gazbert.bxbot.trading.api.TradingApiException;
 import com.google.common.base.MoreObjects;
@@ -35,14 +36,23 @@ import org.apache.logging.log4j.Logger;
 import java.io.*;
 import java.net.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Base class for shared Exchange Adapter functionality.
+ * <p>
+ * {@link AsyncTradingApi} calls are run on a worker pool shared by all adapters. Public market data calls run in
+ * parallel; authenticated calls are queued on a per-adapter lane and run one at a time, in the order they were made,
+ * so they reach the exchange in nonce order.
+ * <p>
+ * If a rate limit is set in the network config, every API call first takes a permit from the adapter's
+ * {@link RateLimiter}. Order calls are given permits ahead of account calls, and account calls ahead of market data.
  *
  * @author gazbert
  * @since 1.0
  */
-public abstract class AbstractExchangeAdapter {
+public abstract class AbstractExchangeAdapter implements AsyncTradingApi {
 
     private static final Logger LOG = LogManager.getLogger();
 
@@ -76,6 +86,16 @@ public abstract class AbstractExchangeAdapter {
      */
     private static final String OTHER_CONFIG_MISSING = "OtherConfig is missing for adapter in exchange.xml file.";
 
+    /**
+     * Error message for when the exchange cannot be found.
+     */
+    private static final String EXCHANGE_IS_DEAD_ERROR_MSG = "Failed to connect to Exchange. It's dead Jim!";
+
+    /**
+     * Error message for when a Trading Strategy asks for an order book with no price levels.
+     */
+    private static final String INVALID_ORDER_BOOK_DEPTH = "Order book depth must be greater than 0 but was: ";
+
     /**
      * Used for building error messages for missing config.
      */
@@ -96,6 +116,57 @@ public abstract class AbstractExchangeAdapter {
      */
     private static final String NON_FATAL_ERROR_MESSAGES_PROPERTY_NAME = "non-fatal-error-messages";
 
+    /**
+     * Name of max-connections-per-host property in config file.
+     */
+    private static final String MAX_CONNECTIONS_PER_HOST_PROPERTY_NAME = "max-connections-per-host";
+
+    /**
+     * Name of idle-connection-timeout property in config file.
+     */
+    private static final String IDLE_CONNECTION_TIMEOUT_PROPERTY_NAME = "idle-connection-timeout";
+
+    /**
+     * Name of rate-limit-interval property in config file.
+     */
+    private static final String RATE_LIMIT_INTERVAL_PROPERTY_NAME = "rate-limit-interval";
+
+    /**
+     * Name of rate-limit-burst property in config file.
+     */
+    private static final String RATE_LIMIT_BURST_PROPERTY_NAME = "rate-limit-burst";
+
+    /**
+     * Name of optional nonce-file property in config file.
+     */
+    private static final String NONCE_FILE_PROPERTY_NAME = "nonce-file";
+
+    /**
+     * Default idle connection timeout in SECONDS if pooling is enabled and no value is set in the config file.
+     */
+    private static final int DEFAULT_IDLE_CONNECTION_TIMEOUT = 30;
+
+    /**
+     * Default number of API calls that can be made in a burst if rate limiting is enabled and no value is set in the
+     * config file.
+     */
+    private static final int DEFAULT_RATE_LIMIT_BURST = 1;
+
+    /**
+     * Number of worker threads shared by all adapters for running async API calls.
+     */
+    private static final int ASYNC_API_THREAD_COUNT = 8;
+
+    /**
+     * Idle time in SECONDS after which an async API worker thread is released.
+     */
+    private static final int ASYNC_API_THREAD_KEEP_ALIVE = 60;
+
+    /**
+     * Worker pool shared by all adapters for running async API calls.
+     */
+    private static final ExecutorService ASYNC_API_EXECUTOR = createAsyncApiExecutor();
+
     /**
      * Exchange Adapter config file location.
      */
@@ -118,6 +189,21 @@ public abstract class AbstractExchangeAdapter {
      */
     private Set<String> nonFatalNetworkErrorMessages;
 
+    /**
+     * The transport used to send requests to the exchange. A new connection is opened for every request unless
+     * connection pooling has been enabled in the network config.
+     */
+    private ExchangeHttpTransport httpTransport;
+
+    /**
+     * Rate limits the API calls made to the exchange. Null if rate limiting has not been enabled in the network config.
+     */
+    private RateLimiter rateLimiter;
+
+    /**
+     * Lane for running this adapter's authenticated async API calls one at a time.
+     */
+    private final Executor authenticatedApiExecutor;
 
     /**
      * Constructor set some sensible defaults for the network config.
@@ -126,6 +212,30 @@ public abstract class AbstractExchangeAdapter {
         connectionTimeout = 30;
         nonFatalNetworkErrorCodes = new HashSet<>();
         nonFatalNetworkErrorMessages = new HashSet<>();
+        httpTransport = new UrlConnectionHttpTransport(connectionTimeout);
+        authenticatedApiExecutor = new SerialExecutor(ASYNC_API_EXECUTOR);
+    }
+
+    /**
+     * Public market data calls are run in parallel on the worker pool shared by all adapters.
+     *
+     * @return the executor for public calls.
+     */
+    @Override
+    public Executor getPublicApiExecutor() {
+        return ASYNC_API_EXECUTOR;
+    }
+
+    /**
+     * Authenticated calls are run one at a time, in the order they were made, on the shared worker pool.
+     * Blocking authenticated calls are not queued on this lane: don't make one while async authenticated calls
+     * are still outstanding.
+     *
+     * @return the executor for authenticated calls.
+     */
+    @Override
+    public Executor getAuthenticatedApiExecutor() {
+        return authenticatedApiExecutor;
     }
 
     /**
@@ -134,64 +244,54 @@ public abstract class AbstractExchangeAdapter {
      * @param url            the URL to invoke.
      * @param postData       optional post data to send. This can be null.
      * @param httpMethod     the HTTP method to use, e.g. GET, POST, DELETE
-     * @param requestHeaders optional request headers to set on the {@link URLConnection} used to invoke the Exchange.
+     * @param requestHeaders optional request headers to set on the request used to invoke the Exchange.
+     * @param priority       the priority of the request if the adapter is rate limited.
      * @return the response from the Exchange.
      * @throws ExchangeNetworkException if a network error occurred trying to connect to the exchange.
      *                                  This exception allows for recovery from temporary network issues.
      * @throws TradingApiException      if the API call failed for any reason other than a network error. This means something
      *                                  really bad as happened.
      */
-    ExchangeHttpResponse sendNetworkRequest(URL url, String httpMethod, String postData, Map<String, String> requestHeaders)
+    ExchangeHttpResponse sendNetworkRequest(URL url, String httpMethod, String postData, Map<String, String> requestHeaders,
+                                            RequestPriority priority)
             throws TradingApiException, ExchangeNetworkException {
+        return sendNetworkRequest(url, httpMethod, postData, requestHeaders, priority, null);
+    }
 
-        HttpURLConnection exchangeConnection = null;
-        final StringBuilder exchangeResponse = new StringBuilder();
+    /**
+     * Makes a request to the Exchange and parses a successful (2xx) response body straight off the wire with the given
+     * reader, without building an intermediate String. Use {@link ExchangeHttpResponse#readPayload(ResponseBodyReader)}
+     * to get the result. Error responses are read into the String payload as usual.
+     *
+     * @param url               the URL to invoke.
+     * @param postData          optional post data to send. This can be null.
+     * @param httpMethod        the HTTP method to use, e.g. GET, POST, DELETE
+     * @param requestHeaders    optional request headers to set on the request used to invoke the Exchange.
+     * @param priority          the priority of the request if the adapter is rate limited.
+     * @param successBodyReader optional reader for a successful response body. If null, the body is read into the
+     *                          String payload.
+     * @return the response from the Exchange.
+     * @throws ExchangeNetworkException if a network error occurred trying to connect to the exchange.
+     *                                  This exception allows for recovery from temporary network issues.
+     * @throws TradingApiException      if the API call failed for any reason other than a network error. This means something
+     *                                  really bad as happened.
+     */
+    ExchangeHttpResponse sendNetworkRequest(URL url, String httpMethod, String postData, Map<String, String> requestHeaders,
+                                            RequestPriority priority, ResponseBodyReader<?> successBodyReader)
+            throws TradingApiException, ExchangeNetworkException {
+
+        waitForRateLimit(priority);
 
         try {
 
             LOG.debug(() -> "Using following URL for API call: " + url);
 
-            exchangeConnection = (HttpURLConnection) url.openConnection();
-            exchangeConnection.setUseCaches(false);
-            exchangeConnection.setDoOutput(true);
-            exchangeConnection.setRequestMethod(httpMethod); // GET|POST|DELETE
-
-            // Er, perhaps, I need to be a bit more stealth here...
-            exchangeConnection.setRequestProperty("User-Agent",
-                    "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/51.0.2704.106 Safari/537.36");
-
-            if (requestHeaders != null) {
-                for (final Map.Entry<String, String> requestHeader : requestHeaders.entrySet()) {
-                    exchangeConnection.setRequestProperty(requestHeader.getKey(), requestHeader.getValue());
-                    LOG.debug(() -> "Setting following request header: " + requestHeader);
-                }
+            final ExchangeHttpResponse exchangeResponse = httpTransport.sendRequest(url, httpMethod, postData, requestHeaders,
+                    successBodyReader);
+            if (exchangeResponse.getStatusCode() >= HttpURLConnection.HTTP_BAD_REQUEST) {
+                handleHttpErrorResponse(exchangeResponse);
             }
-
-            // Add a timeout so we don't get blocked indefinitely; timeout on URLConnection is in millis.
-            final int timeoutInMillis = connectionTimeout * 1000;
-            exchangeConnection.setConnectTimeout(timeoutInMillis);
-            exchangeConnection.setReadTimeout(timeoutInMillis);
-
-            if (httpMethod.equalsIgnoreCase("POST") && postData != null) {
-                LOG.debug(() -> "Doing POST with request body: " + postData);
-                final OutputStreamWriter outputPostStream = new OutputStreamWriter(exchangeConnection.getOutputStream());
-                outputPostStream.write(postData);
-                outputPostStream.close();
-            }
-
-            // Grab the response - we just block here as per Connection API
-            final BufferedReader responseInputStream = new BufferedReader(new InputStreamReader(
-                    exchangeConnection.getInputStream()));
-
-            // Read the JSON response lines into our response buffer
-            String responseLine;
-            while ((responseLine = responseInputStream.readLine()) != null) {
-                exchangeResponse.append(responseLine);
-            }
-            responseInputStream.close();
-
-            return new ExchangeHttpResponse(exchangeConnection.getResponseCode(), exchangeConnection.getResponseMessage(),
-                    exchangeResponse.toString());
+            return exchangeResponse;
 
         } catch (MalformedURLException e) {
             final String errorMsg = UNEXPECTED_IO_ERROR_MSG;
@@ -203,63 +303,94 @@ public abstract class AbstractExchangeAdapter {
             LOG.error(errorMsg, e);
             throw new ExchangeNetworkException(errorMsg, e);
 
-        } catch (FileNotFoundException | UnknownHostException e) {
-            // Huobi started throwing FileNotFoundException as of 8 Nov 2015 :-/
+        } catch (UnknownHostException e) {
             // EC2 started throwing UnknownHostException for BTC-e, GDAX, as of 14 July 2016 :-/
-            final String errorMsg = "Failed to connect to Exchange. It's dead Jim!";
+            final String errorMsg = EXCHANGE_IS_DEAD_ERROR_MSG;
             LOG.error(errorMsg, e);
             throw new ExchangeNetworkException(errorMsg, e);
 
         } catch (IOException e) {
 
             // Check if this is a non-fatal network error
-            try {
-
-                if (nonFatalNetworkErrorMessages != null && e.getMessage() != null &&
-                        nonFatalNetworkErrorMessages.contains(e.getMessage())) {
-
-                    final String errorMsg = "Failed to connect to Exchange. SSL Connection was refused or reset by the server.";
-                    LOG.error(errorMsg, e);
-                    throw new ExchangeNetworkException(errorMsg, e);
-
-                } else if (nonFatalNetworkErrorCodes != null && exchangeConnection != null &&
-                        nonFatalNetworkErrorCodes.contains(exchangeConnection.getResponseCode())) {
-
-                    final String errorMsg = IO_5XX_TIMEOUT_ERROR_MSG;
-                    LOG.error(errorMsg, e);
-                    throw new ExchangeNetworkException(errorMsg, e);
-
-                } else {
-                    String errorMsg = UNEXPECTED_IO_ERROR_MSG;
-
-                    // Check for any clue in the response...
-                    if (exchangeConnection != null) {
-                        final InputStream rawErrorStream = exchangeConnection.getErrorStream();
-                        if (rawErrorStream != null) {
-                            final BufferedReader errorInputStream = new BufferedReader(new InputStreamReader(rawErrorStream));
-                            final StringBuilder errorResponse = new StringBuilder();
-                            String errorLine;
-                            while ((errorLine = errorInputStream.readLine()) != null) {
-                                errorResponse.append(errorLine);
-                            }
-                            errorInputStream.close();
-                            errorMsg += " ErrorStream Response: " + errorResponse;
-                        }
-                    }
-                    LOG.error(errorMsg, e);
-                    throw new TradingApiException(errorMsg, e);
-                }
-            } catch (IOException e1) {
+            if (isNonFatalNetworkErrorMessage(e)) {
+                final String errorMsg = "Failed to connect to Exchange. SSL Connection was refused or reset by the server.";
+                LOG.error(errorMsg, e);
+                throw new ExchangeNetworkException(errorMsg, e);
 
+            } else {
                 final String errorMsg = UNEXPECTED_IO_ERROR_MSG;
-                LOG.error(errorMsg, e1);
-                throw new TradingApiException(errorMsg, e1);
+                LOG.error(errorMsg, e);
+                throw new TradingApiException(errorMsg, e);
+            }
+        }
+    }
+
+    /*
+     * Waits interruptibly so a strategy that has timed out can be stopped while its call is held back by the rate limit.
+     * Being interrupted is reported as a network error so the strategy does not treat it as fatal.
+     */
+    private void waitForRateLimit(RequestPriority priority) throws ExchangeNetworkException {
+
+        final RateLimiter limiter = rateLimiter;
+        if (limiter == null) {
+            return;
+        }
+
+        try {
+            limiter.acquire(priority);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            final String errorMsg = "Interrupted while waiting for the rate limit to send " + priority + " request.";
+            LOG.warn(errorMsg);
+            throw new ExchangeNetworkException(errorMsg, e);
+        }
+    }
+
+    /*
+     * Maps an HTTP error response from the exchange to the appropriate exception.
+     */
+    private void handleHttpErrorResponse(ExchangeHttpResponse exchangeResponse)
+            throws TradingApiException, ExchangeNetworkException {
+
+        final int statusCode = exchangeResponse.getStatusCode();
+        if (statusCode == HttpURLConnection.HTTP_NOT_FOUND || statusCode == HttpURLConnection.HTTP_GONE) {
+            // Huobi started returning 404s as of 8 Nov 2015 :-/
+            final String errorMsg = EXCHANGE_IS_DEAD_ERROR_MSG + " " + exchangeResponse;
+            LOG.error(errorMsg);
+            throw new ExchangeNetworkException(errorMsg);
+
+        } else if (nonFatalNetworkErrorCodes != null && nonFatalNetworkErrorCodes.contains(statusCode)) {
+            final String errorMsg = IO_5XX_TIMEOUT_ERROR_MSG + " " + exchangeResponse;
+            LOG.error(errorMsg);
+            throw new ExchangeNetworkException(errorMsg);
+
+        } else {
+            String errorMsg = UNEXPECTED_IO_ERROR_MSG + " HTTP status code: " + statusCode;
+
+            // Check for any clue in the response...
+            if (exchangeResponse.getPayload() != null && !exchangeResponse.getPayload().isEmpty()) {
+                errorMsg += " ErrorStream Response: " + exchangeResponse.getPayload();
             }
-        } finally {
-            if (exchangeConnection != null) {
-                exchangeConnection.disconnect();
+            LOG.error(errorMsg);
+            throw new TradingApiException(errorMsg);
+        }
+    }
+
+    /*
+     * Checks the exception, and what caused it, against the non-fatal network error messages.
+     * The pooled transport wraps some socket errors, e.g. 'Connection refused', so the cause chain is checked too.
+     */
+    private boolean isNonFatalNetworkErrorMessage(IOException e) {
+
+        if (nonFatalNetworkErrorMessages == null) {
+            return false;
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && nonFatalNetworkErrorMessages.contains(cause.getMessage())) {
+                return true;
             }
         }
+        return false;
     }
 
     /**
@@ -296,6 +427,61 @@ public abstract class AbstractExchangeAdapter {
             nonFatalNetworkErrorMessages.addAll(nonFatalErrorMessagesFromConfig);
         }
         LOG.info(() -> NON_FATAL_ERROR_MESSAGES_PROPERTY_NAME + ": " + nonFatalNetworkErrorMessages);
+
+        final ExchangeHttpTransport previousHttpTransport = httpTransport;
+        final Integer maxConnectionsPerHost = networkConfig.getMaxConnectionsPerHost();
+        if (maxConnectionsPerHost != null) {
+
+            if (maxConnectionsPerHost < 1) {
+                final String errorMsg = MAX_CONNECTIONS_PER_HOST_PROPERTY_NAME + " must be greater than 0." + exchangeConfig;
+                LOG.error(errorMsg);
+                throw new IllegalArgumentException(errorMsg);
+            }
+
+            final Integer idleConnectionTimeoutFromConfig = networkConfig.getIdleConnectionTimeout();
+            final int idleConnectionTimeout = idleConnectionTimeoutFromConfig != null && idleConnectionTimeoutFromConfig > 0
+                    ? idleConnectionTimeoutFromConfig : DEFAULT_IDLE_CONNECTION_TIMEOUT;
+
+            httpTransport = new PooledHttpTransport(connectionTimeout, maxConnectionsPerHost, idleConnectionTimeout);
+            LOG.info(() -> MAX_CONNECTIONS_PER_HOST_PROPERTY_NAME + ": " + maxConnectionsPerHost);
+            LOG.info(() -> IDLE_CONNECTION_TIMEOUT_PROPERTY_NAME + ": " + idleConnectionTimeout);
+
+        } else {
+            httpTransport = new UrlConnectionHttpTransport(connectionTimeout);
+            LOG.info(() -> MAX_CONNECTIONS_PER_HOST_PROPERTY_NAME + " not set - a new connection will be used for every API call.");
+        }
+        closeQuietly(previousHttpTransport);
+
+        final Integer rateLimitInterval = networkConfig.getRateLimitInterval();
+        if (rateLimitInterval != null) {
+
+            if (rateLimitInterval < 1) {
+                final String errorMsg = RATE_LIMIT_INTERVAL_PROPERTY_NAME + " must be greater than 0." + exchangeConfig;
+                LOG.error(errorMsg);
+                throw new IllegalArgumentException(errorMsg);
+            }
+
+            final Integer rateLimitBurstFromConfig = networkConfig.getRateLimitBurst();
+            final int rateLimitBurst = rateLimitBurstFromConfig != null && rateLimitBurstFromConfig > 0
+                    ? rateLimitBurstFromConfig : DEFAULT_RATE_LIMIT_BURST;
+
+            rateLimiter = new RateLimiter(rateLimitBurst, rateLimitInterval);
+            LOG.info(() -> RATE_LIMIT_INTERVAL_PROPERTY_NAME + ": " + rateLimitInterval);
+            LOG.info(() -> RATE_LIMIT_BURST_PROPERTY_NAME + ": " + rateLimitBurst);
+
+        } else {
+            rateLimiter = null;
+            LOG.info(() -> RATE_LIMIT_INTERVAL_PROPERTY_NAME + " not set - API calls will not be rate limited.");
+        }
+    }
+
+    /**
+     * Returns the connection timeout loaded from the network config.
+     *
+     * @return the connection timeout in secs.
+     */
+    int getConnectionTimeout() {
+        return connectionTimeout;
     }
 
     /**
@@ -365,6 +551,24 @@ public abstract class AbstractExchangeAdapter {
         return assertItemExists(itemName, itemValue);
     }
 
+    /**
+     * Returns the nonce service for the adapter's API key.
+     * <p>
+     * If the optional nonce-file item is set in the 'other' misc config, the highest nonce handed out is persisted
+     * to that file so that a restart never reuses a nonce.
+     *
+     * @param otherConfig the 'other' misc config for the adapter; can be null if the adapter has none.
+     * @param apiKey      the API key the nonces are used with.
+     * @return the nonce service.
+     * @throws IllegalStateException if the nonce file exists but cannot be read.
+     */
+    NonceService getNonceService(OtherConfig otherConfig, String apiKey) {
+
+        final String nonceFile = otherConfig == null ? null : otherConfig.getItem(NONCE_FILE_PROPERTY_NAME);
+        LOG.info(() -> NONCE_FILE_PROPERTY_NAME + ": " + nonceFile);
+        return NonceService.forApiKey(apiKey, nonceFile == null ? null : new File(nonceFile).toPath());
+    }
+
     /**
      * Sorts the request params alphabetically (uses natural ordering) and returns them as a query string.
      *
@@ -387,6 +591,40 @@ public abstract class AbstractExchangeAdapter {
         return sortedQueryString.toString();
     }
 
+    /**
+     * Checks the depth a Trading Strategy asked for when fetching a depth-limited order book.
+     *
+     * @param depth the maximum number of price levels to return for each side of the book.
+     * @return the depth.
+     * @throws IllegalArgumentException if depth is less than 1.
+     */
+    int assertValidOrderBookDepth(int depth) {
+        if (depth < 1) {
+            final String errorMsg = INVALID_ORDER_BOOK_DEPTH + depth;
+            LOG.error(errorMsg);
+            throw new IllegalArgumentException(errorMsg);
+        }
+        return depth;
+    }
+
+    /**
+     * Parses a response body as it is read off the wire, e.g. with a streaming JSON parser.
+     *
+     * @param <T> the type the body is parsed into.
+     */
+    @FunctionalInterface
+    interface ResponseBodyReader<T> {
+
+        /**
+         * Parses the response body. The reader is closed by the caller.
+         *
+         * @param responseBody the response body.
+         * @return the parsed body.
+         * @throws IOException if the body could not be read or parsed.
+         */
+        T read(Reader responseBody) throws IOException;
+    }
+
     /**
      * Wrapper for holding Exchange HTTP response.
      */
@@ -395,6 +633,9 @@ public abstract class AbstractExchangeAdapter {
         private int statusCode;
         private String reasonPhrase;
         private String payload;
+        private Object parsedPayload;
+        private boolean isPayloadParsed;
+        private long payloadBytes;
 
         ExchangeHttpResponse(int statusCode, String reasonPhrase, String payload) {
             this.statusCode = statusCode;
@@ -402,6 +643,37 @@ public abstract class AbstractExchangeAdapter {
             this.payload = payload;
         }
 
+        /**
+         * Creates a response whose body has already been parsed as it was read off the wire. Only the number of bytes
+         * read is kept for logging - the body itself is never held as a String.
+         */
+        ExchangeHttpResponse(int statusCode, String reasonPhrase, Object parsedPayload, long payloadBytes) {
+            this.statusCode = statusCode;
+            this.reasonPhrase = reasonPhrase;
+            this.parsedPayload = parsedPayload;
+            this.isPayloadParsed = true;
+            this.payloadBytes = payloadBytes;
+        }
+
+        /**
+         * Returns the parsed body. If the body was streamed, this is the result of the reader passed with the request;
+         * otherwise the reader is run over the String payload.
+         *
+         * @param bodyReader the reader passed with the request.
+         * @param <T>        the type the body is parsed into.
+         * @return the parsed body.
+         * @throws IOException if the String payload could not be parsed.
+         */
+        @SuppressWarnings("unchecked")
+        <T> T readPayload(ResponseBodyReader<T> bodyReader) throws IOException {
+            if (isPayloadParsed) {
+                return (T) parsedPayload;
+            }
+            try (Reader payloadReader = new StringReader(payload == null ? "" : payload)) {
+                return bodyReader.read(payloadReader);
+            }
+        }
+
         String getReasonPhrase() {
             return reasonPhrase;
         }
@@ -416,11 +688,15 @@ public abstract class AbstractExchangeAdapter {
 
         @Override
         public String toString() {
-            return MoreObjects.toStringHelper(this)
+            final MoreObjects.ToStringHelper toStringHelper = MoreObjects.toStringHelper(this)
                     .add("statusCode", statusCode)
-                    .add("reasonPhrase", reasonPhrase)
-                    .add("payload", payload)
-                    .toString();
+                    .add("reasonPhrase", reasonPhrase);
+            if (isPayloadParsed) {
+                toStringHelper.add("payloadBytes", payloadBytes);
+            } else {
+                toStringHelper.add("payload", payload);
+            }
+            return toStringHelper.toString();
         }
     }
 
@@ -428,6 +704,27 @@ public abstract class AbstractExchangeAdapter {
     //  Util methods
     // ------------------------------------------------------------------------------------------------
 
+    private static ExecutorService createAsyncApiExecutor() {
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(ASYNC_API_THREAD_COUNT, ASYNC_API_THREAD_COUNT,
+                ASYNC_API_THREAD_KEEP_ALIVE, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            final Thread thread = new Thread(runnable, "exchange-adapter-async-" + threadCount.incrementAndGet());
+            thread.setDaemon(true); // don't hold up shutdown of the bot
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static void closeQuietly(ExchangeHttpTransport httpTransport) {
+        try {
+            httpTransport.close();
+        } catch (IOException e) {
+            LOG.warn("Failed to close previous HTTP transport.", e);
+        }
+    }
+
     private static String assertItemExists(String itemName, String itemValue) {
         if (itemValue == null || itemValue.length() == 0) {
             final String errorMsg = itemName + CONFIG_IS_NULL_OR_ZERO_LENGTH + EXCHANGE_CONFIG_FILE + " ?";
@@ -33,9 +33,6 @@ import com.google.gson.GsonBuilder;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-import javax.xml.bind.DatatypeConverter;
 import java.io.UnsupportedEncodingException;
 import java.math.BigDecimal;
 import java.net.MalformedURLException;
@@ -87,6 +84,12 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter imple
 
     private static final Logger LOG = LogManager.getLogger();
 
+    /**
+     * The authenticated API methods that create and cancel orders. They jump the queue if the adapter is rate
+     * limited.
+     */
+    private static final Set<String> ORDER_API_METHODS = new HashSet<>(Arrays.asList("order/new", "order/cancel"));
+
     /**
      * The version of the Bitfinex API being used.
      */
@@ -123,9 +126,9 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter imple
     private static final String SECRET_PROPERTY_NAME = "secret";
 
     /**
-     * Nonce used for sending authenticated messages to the exchange.
+     * Hands out the nonces used for sending authenticated messages to the exchange.
      */
-    private static long nonce = 0;
+    private NonceService nonceService;
 
     /**
      * Used to indicate if we have initialised the MAC authentication protocol.
@@ -143,10 +146,10 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter imple
     private String secret = "";
 
     /**
-     * Provides the "Message Authentication Code" (MAC) algorithm used for the secure messaging layer.
+     * Signs the secure messages using the "Message Authentication Code" (MAC) algorithm.
      * Used to encrypt the hash of the entire message with the private key to ensure message integrity.
      */
-    private Mac mac;
+    private RequestSigner requestSigner;
 
     /**
      * GSON engine used for parsing JSON in Bitfinex API call responses.
@@ -161,7 +164,7 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter imple
         setAuthenticationConfig(config);
         setNetworkConfig(config);
 
-        nonce = System.currentTimeMillis() / 1000; // set the initial nonce used in the secure messaging.
+        nonceService = getNonceService(config.getOtherConfig(), key); // other config is optional for this adapter
         initSecureMessageLayer();
         initGson();
     }
@@ -173,34 +176,28 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter imple
 
     @Override
     public MarketOrderBook getMarketOrders(String marketId) throws TradingApiException, ExchangeNetworkException {
+        return getMarketOrders(marketId, OrderBookJsonReader.ALL_PRICE_LEVELS);
+    }
 
-        try {
-            final ExchangeHttpResponse response = sendPublicRequestToExchange("book/" + marketId);
-            LOG.debug(() -> "Market Orders response: " + response);
+    @Override
+    public MarketOrderBook getMarketOrders(String marketId, int depth)
+            throws TradingApiException, ExchangeNetworkException {
 
-            final BitfinexOrderBook orderBook = gson.fromJson(response.getPayload(), BitfinexOrderBook.class);
+        assertValidOrderBookDepth(depth);
 
-            final List<MarketOrder> buyOrders = new ArrayList<>();
-            for (BitfinexMarketOrder bitfinexBuyOrder : orderBook.bids) {
-                final MarketOrder buyOrder = new MarketOrder(
-                        OrderType.BUY,
-                        bitfinexBuyOrder.price,
-                        bitfinexBuyOrder.amount,
-                        bitfinexBuyOrder.price.multiply(bitfinexBuyOrder.amount));
-                buyOrders.add(buyOrder);
-            }
+        try {
+            final ResponseBodyReader<MarketOrderBook> orderBookReader = responseBody ->
+                    OrderBookJsonReader.readOrderBook(responseBody, marketId, "bids", "asks", depth);
 
-            final List<MarketOrder> sellOrders = new ArrayList<>();
-            for (BitfinexMarketOrder bitfinexSellOrder : orderBook.asks) {
-                final MarketOrder sellOrder = new MarketOrder(
-                        OrderType.SELL,
-                        bitfinexSellOrder.price,
-                        bitfinexSellOrder.amount,
-                        bitfinexSellOrder.price.multiply(bitfinexSellOrder.amount));
-                sellOrders.add(sellOrder);
+            String apiMethod = "book/" + marketId;
+            if (depth != OrderBookJsonReader.ALL_PRICE_LEVELS) {
+                apiMethod += "?limit_bids=" + depth + "&limit_asks=" + depth;
             }
 
-            return new MarketOrderBook(marketId, sellOrders, buyOrders);
+            final ExchangeHttpResponse response = sendPublicRequestToExchange(apiMethod, orderBookReader);
+            LOG.debug(() -> "Market Orders response: " + response);
+
+            return response.readPayload(orderBookReader);
 
         } catch (ExchangeNetworkException | TradingApiException e) {
             throw e;
@@ -460,44 +457,6 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter imple
     //  See https://www.bitfinex.com/pages/api
     // ------------------------------------------------------------------------------------------------
 
-    /**
-     * GSON class for a market Order Book.
-     */
-    private static class BitfinexOrderBook {
-
-        // field names map to the JSON arg names
-        public BitfinexMarketOrder[] bids;
-        public BitfinexMarketOrder[] asks;
-
-        @Override
-        public String toString() {
-            return MoreObjects.toStringHelper(this)
-                    .add("bids", bids)
-                    .add("asks", asks)
-                    .toString();
-        }
-    }
-
-    /**
-     * GSON class for a Market Order.
-     */
-    private static class BitfinexMarketOrder {
-
-        // field names map to the JSON arg names
-        public BigDecimal price;
-        public BigDecimal amount;
-        public String timestamp;
-
-        @Override
-        public String toString() {
-            return MoreObjects.toStringHelper(this)
-                    .add("price", price)
-                    .add("amount", amount)
-                    .add("timestamp", timestamp)
-                    .toString();
-        }
-    }
-
     /**
      * GSON class for receiving your open orders in 'orders' API call response.
      */
@@ -815,6 +774,22 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter imple
      * @throws TradingApiException      if anything unexpected happens.
      */
     private ExchangeHttpResponse sendPublicRequestToExchange(String apiMethod) throws ExchangeNetworkException, TradingApiException {
+        return sendPublicRequestToExchange(apiMethod, null);
+    }
+
+    /**
+     * Makes a public API call to the Bitfinex exchange and parses a successful
+     * response body as it is read off the wire.
+     *
+     * @param apiMethod         the API method to call.
+     * @param successBodyReader reader for a successful response body.
+     * @return the response from the exchange. Use {@link ExchangeHttpResponse#readPayload(ResponseBodyReader)}
+     * to get the parsed body.
+     * @throws ExchangeNetworkException if there is a network issue connecting to exchange.
+     * @throws TradingApiException      if anything unexpected happens.
+     */
+    private ExchangeHttpResponse sendPublicRequestToExchange(String apiMethod, ResponseBodyReader<?> successBodyReader)
+            throws ExchangeNetworkException, TradingApiException {
 
         // Request headers required by Exchange
         final Map<String, String> requestHeaders = new HashMap<>();
@@ -823,7 +798,7 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter imple
         try {
 
             final URL url = new URL(PUBLIC_API_BASE_URL + apiMethod);
-            return sendNetworkRequest(url, "GET", null, requestHeaders);
+            return sendNetworkRequest(url, "GET", null, requestHeaders, RequestPriority.MARKET_DATA, successBodyReader);
 
         } catch (MalformedURLException e) {
             final String errorMsg = UNEXPECTED_IO_ERROR_MSG;
@@ -886,8 +861,7 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter imple
             }
 
             // nonce is required by Bitfinex in every request
-            params.put("nonce", Long.toString(nonce));
-            nonce++; // increment ready for next call.
+            params.put("nonce", Long.toString(nonceService.nextNonce()));
 
             // must include the method in request param too
             params.put("request", "/" + BITFINEX_API_VERSION + "/" + apiMethod);
@@ -896,7 +870,7 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter imple
             final String paramsInJson = gson.toJson(params);
 
             // Need to base64 encode payload as per API
-            final String base64payload = DatatypeConverter.printBase64Binary(paramsInJson.getBytes());
+            final String base64payload = requestSigner.begin().append(paramsInJson).toBase64String();
 
             // Request headers required by Exchange
             final Map<String, String> requestHeaders = new HashMap<>();
@@ -907,23 +881,22 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter imple
             requestHeaders.put("X-BFX-PAYLOAD", base64payload);
 
             // Add the signature
-            mac.reset(); // force reset
-            mac.update(base64payload.getBytes());
-
             /*
              * signature = HMAC-SHA384(payload, api-secret) as hexadecimal - MUST be in LOWERCASE else signature fails.
              * See: http://bitcoin.stackexchange.com/questions/25835/bitfinex-api-call-returns-400-bad-request
              */
-            final String signature = toHex(mac.doFinal()).toLowerCase();
+            final String signature = requestSigner.begin().append(base64payload).mac().toHexString();
             requestHeaders.put("X-BFX-SIGNATURE", signature);
 
             // payload is JSON for this exchange
             requestHeaders.put("Content-Type", "application/json");
 
             final URL url = new URL(AUTHENTICATED_API_URL + apiMethod);
-            return sendNetworkRequest(url, "POST", paramsInJson, requestHeaders);
+            final RequestPriority priority = ORDER_API_METHODS.contains(apiMethod)
+                    ? RequestPriority.ORDER : RequestPriority.ACCOUNT;
+            return sendNetworkRequest(url, "POST", paramsInJson, requestHeaders, priority);
 
-        } catch (MalformedURLException | UnsupportedEncodingException e) {
+        } catch (MalformedURLException e) {
 
             final String errorMsg = UNEXPECTED_IO_ERROR_MSG;
             LOG.error(errorMsg, e);
@@ -931,23 +904,6 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter imple
         }
     }
 
-    /**
-     * Converts a given byte array to a hex String.
-     *
-     * @param byteArrayToConvert byte array to convert.
-     * @return the string representation of the given byte array.
-     * @throws UnsupportedEncodingException if the byte array encoding is not recognised.
-     */
-    private String toHex(byte[] byteArrayToConvert) throws UnsupportedEncodingException {
-
-        final StringBuilder hexString = new StringBuilder();
-
-        for (final byte aByte : byteArrayToConvert) {
-            hexString.append(String.format("%02x", aByte & 0xff));
-        }
-        return hexString.toString();
-    }
-
     /**
      * Initialises the secure messaging layer
      * Sets up the MAC to safeguard the data we send to the exchange.
@@ -957,9 +913,7 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter imple
 
         // Setup the MAC
         try {
-            final SecretKeySpec keyspec = new SecretKeySpec(secret.getBytes("UTF-8"), "HmacSHA384");
-            mac = Mac.getInstance("HmacSHA384");
-            mac.init(keyspec);
+            requestSigner = RequestSigner.forMac("HmacSHA384", secret.getBytes("UTF-8"));
             initializedMACAuthentication = true;
         } catch (UnsupportedEncodingException | NoSuchAlgorithmException e) {
             final String errorMsg = "Failed to setup MAC security. HINT: Is HMAC-SHA384 installed?";
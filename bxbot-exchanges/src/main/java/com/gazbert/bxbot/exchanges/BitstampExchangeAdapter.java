@@ -32,8 +32,6 @@ import com.google.gson.*;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Type;
 import java.math.BigDecimal;
@@ -84,6 +82,12 @@ public final class BitstampExchangeAdapter extends AbstractExchangeAdapter imple
 
     private static final Logger LOG = LogManager.getLogger();
 
+    /**
+     * The authenticated API methods that create and cancel orders. They jump the queue if the adapter is rate
+     * limited.
+     */
+    private static final Set<String> ORDER_API_METHODS = new HashSet<>(Arrays.asList("buy", "sell", "cancel_order"));
+
     /**
      * The Authenticated API URI.
      */
@@ -115,9 +119,9 @@ public final class BitstampExchangeAdapter extends AbstractExchangeAdapter imple
     private static final String SECRET_PROPERTY_NAME = "secret";
 
     /**
-     * Nonce used for sending authenticated messages to the exchange.
+     * Hands out the nonces used for sending authenticated messages to the exchange.
      */
-    private static long nonce = 0;
+    private NonceService nonceService;
 
     /**
      * Used to indicate if we have initialised the MAC authentication protocol.
@@ -140,10 +144,10 @@ public final class BitstampExchangeAdapter extends AbstractExchangeAdapter imple
     private String secret = "";
 
     /**
-     * Provides the "Message Authentication Code" (MAC) algorithm used for the secure messaging layer.
+     * Signs the secure messages using the "Message Authentication Code" (MAC) algorithm.
      * Used to encrypt the hash of the entire message with the private key to ensure message integrity.
      */
-    private Mac mac;
+    private RequestSigner requestSigner;
 
     /**
      * GSON engine used for parsing JSON in Bitstamp API call responses.
@@ -158,7 +162,7 @@ public final class BitstampExchangeAdapter extends AbstractExchangeAdapter imple
         setAuthenticationConfig(config);
         setNetworkConfig(config);
 
-        nonce = System.currentTimeMillis() / 1000; // set the initial nonce used in the secure messaging.
+        nonceService = getNonceService(config.getOtherConfig(), key); // other config is optional for this adapter
         initSecureMessageLayer();
         initGson();
     }
@@ -170,36 +174,23 @@ public final class BitstampExchangeAdapter extends AbstractExchangeAdapter imple
 
     @Override
     public MarketOrderBook getMarketOrders(String marketId) throws TradingApiException, ExchangeNetworkException {
+        return getMarketOrders(marketId, OrderBookJsonReader.ALL_PRICE_LEVELS);
+    }
 
-        try {
-            final ExchangeHttpResponse response = sendPublicRequestToExchange("order_book");
-            LOG.debug(() -> "Market Orders response: " + response);
+    @Override
+    public MarketOrderBook getMarketOrders(String marketId, int depth)
+            throws TradingApiException, ExchangeNetworkException {
 
-            final BitstampOrderBook bitstampOrderBook = gson.fromJson(response.getPayload(), BitstampOrderBook.class);
-
-            final List<MarketOrder> buyOrders = new ArrayList<>();
-            final List<List<BigDecimal>> bitstampBuyOrders = bitstampOrderBook.bids;
-            for (final List<BigDecimal> order : bitstampBuyOrders) {
-                final MarketOrder buyOrder = new MarketOrder(
-                        OrderType.BUY,
-                        order.get(0), // price
-                        order.get(1), // quantity
-                        order.get(0).multiply(order.get(1)));
-                buyOrders.add(buyOrder);
-            }
+        assertValidOrderBookDepth(depth);
 
-            final List<MarketOrder> sellOrders = new ArrayList<>();
-            final List<List<BigDecimal>> bitstampSellOrders = bitstampOrderBook.asks;
-            for (final List<BigDecimal> order : bitstampSellOrders) {
-                final MarketOrder sellOrder = new MarketOrder(
-                        OrderType.SELL,
-                        order.get(0), // price
-                        order.get(1), // quantity
-                        order.get(0).multiply(order.get(1)));
-                sellOrders.add(sellOrder);
-            }
+        try {
+            final ResponseBodyReader<MarketOrderBook> orderBookReader = responseBody ->
+                    OrderBookJsonReader.readOrderBook(responseBody, marketId, "bids", "asks", depth);
 
-            return new MarketOrderBook(marketId, sellOrders, buyOrders);
+            final ExchangeHttpResponse response = sendPublicRequestToExchange("order_book", orderBookReader);
+            LOG.debug(() -> "Market Orders response: " + response);
+
+            return response.readPayload(orderBookReader);
 
         } catch (ExchangeNetworkException | TradingApiException e) {
             throw e;
@@ -457,39 +448,6 @@ public final class BitstampExchangeAdapter extends AbstractExchangeAdapter imple
         }
     }
 
-    /**
-     * <p>
-     * GSON class for holding Bitstamp Order Book response from order_book API call.
-     * </p>
-     * <p>
-     * <p>
-     * JSON looks like:
-     * <pre>
-     * {
-     *   "timestamp": "1400943488",
-     *   "bids": [["521.86", "0.00017398"], ["519.58", "0.25100000"], ["0.01", "38820.00000000"]],
-     *   "asks": [["521.88", "10.00000000"], ["522.00", "310.24504478"], ["522.13", "0.02852084"]]
-     * }
-     * </pre>
-     * </p>
-     * Each is a list of open orders and each order is represented as a list of price and amount.
-     */
-    private static class BitstampOrderBook {
-
-        public long timestamp; //unix timestamp date and time
-        public List<List<BigDecimal>> bids;
-        public List<List<BigDecimal>> asks;
-
-        @Override
-        public String toString() {
-            return MoreObjects.toStringHelper(this)
-                    .add("timestamp", timestamp)
-                    .add("bids", bids)
-                    .add("asks", asks)
-                    .toString();
-        }
-    }
-
     /**
      * GSON class for a Bitstamp ticker response.
      */
@@ -585,6 +543,22 @@ public final class BitstampExchangeAdapter extends AbstractExchangeAdapter imple
      * @throws TradingApiException      if anything unexpected happens.
      */
     private ExchangeHttpResponse sendPublicRequestToExchange(String apiMethod) throws ExchangeNetworkException, TradingApiException {
+        return sendPublicRequestToExchange(apiMethod, null);
+    }
+
+    /**
+     * Makes a public API call to Bitstamp exchange and parses a successful
+     * response body as it is read off the wire.
+     *
+     * @param apiMethod         the API method to call.
+     * @param successBodyReader reader for a successful response body.
+     * @return the response from the exchange. Use {@link ExchangeHttpResponse#readPayload(ResponseBodyReader)}
+     * to get the parsed body.
+     * @throws ExchangeNetworkException if there is a network issue connecting to exchange.
+     * @throws TradingApiException      if anything unexpected happens.
+     */
+    private ExchangeHttpResponse sendPublicRequestToExchange(String apiMethod, ResponseBodyReader<?> successBodyReader)
+            throws ExchangeNetworkException, TradingApiException {
 
         // Request headers required by Exchange
         final Map<String, String> requestHeaders = new HashMap<>();
@@ -594,7 +568,7 @@ public final class BitstampExchangeAdapter extends AbstractExchangeAdapter imple
 
             // MUST have the trailing slash even if no params... else exchange barfs!
             final URL url = new URL(API_BASE_URL + apiMethod + "/");
-            return sendNetworkRequest(url, "GET", null, requestHeaders);
+            return sendNetworkRequest(url, "GET", null, requestHeaders, RequestPriority.MARKET_DATA, successBodyReader);
 
         } catch (MalformedURLException e) {
             final String errorMsg = UNEXPECTED_IO_ERROR_MSG;
@@ -628,15 +602,13 @@ public final class BitstampExchangeAdapter extends AbstractExchangeAdapter imple
                 params = new HashMap<>();
             }
 
+            final long nonce = nonceService.nextNonce();
             params.put("key", key);
             params.put("nonce", Long.toString(nonce));
 
             // Create MAC message for signature
             // message = nonce + client_id + api_key
-            mac.reset(); // force reset
-            mac.update(String.valueOf(nonce).getBytes());
-            mac.update(clientId.getBytes());
-            mac.update(key.getBytes());
+            final RequestSigner.Payload message = requestSigner.begin().append(nonce).append(clientId).append(key);
 
             /*
              * Signature is a HMAC-SHA256 encoded message containing: nonce, client ID and API key.
@@ -645,12 +617,9 @@ public final class BitstampExchangeAdapter extends AbstractExchangeAdapter imple
              *
              * signature = hmac.new(API_SECRET, msg=message, digestmod=hashlib.sha256).hexdigest().upper()
              */
-            final String signature = toHex(mac.doFinal()).toUpperCase();
+            final String signature = message.mac().toUpperCaseHexString();
             params.put("signature", signature);
 
-            // increment ready for next call...
-            nonce++;
-
             // Build the URL with query param args in it
             String postData = "";
             for (final String param : params.keySet()) {
@@ -666,31 +635,17 @@ public final class BitstampExchangeAdapter extends AbstractExchangeAdapter imple
             requestHeaders.put("Content-Type", "application/x-www-form-urlencoded");
 
             final URL url = new URL(API_BASE_URL + apiMethod + "/"); // MUST have the trailing slash else exchange barfs...
-            return sendNetworkRequest(url, "POST", postData, requestHeaders);
+            final RequestPriority priority = ORDER_API_METHODS.contains(apiMethod)
+                    ? RequestPriority.ORDER : RequestPriority.ACCOUNT;
+            return sendNetworkRequest(url, "POST", postData, requestHeaders, priority);
 
-        } catch (MalformedURLException | UnsupportedEncodingException e) {
+        } catch (MalformedURLException e) {
             final String errorMsg = UNEXPECTED_IO_ERROR_MSG;
             LOG.error(errorMsg, e);
             throw new TradingApiException(errorMsg, e);
         }
     }
 
-    /**
-     * Converts a given byte array to a hex String.
-     *
-     * @param byteArrayToConvert byte array to convert.
-     * @return the string representation of the given byte array.
-     * @throws UnsupportedEncodingException if the byte array encoding is not recognised.
-     */
-    private String toHex(byte[] byteArrayToConvert) throws UnsupportedEncodingException {
-        final StringBuilder hexString = new StringBuilder();
-
-        for (final byte aByte : byteArrayToConvert) {
-            hexString.append(String.format("%02x", aByte & 0xff));
-        }
-        return hexString.toString();
-    }
-
     /**
      * Initialises the secure messaging layer
      * Sets up the MAC to safeguard the data we send to the exchange.
@@ -700,9 +655,7 @@ public final class BitstampExchangeAdapter extends AbstractExchangeAdapter imple
 
         // Setup the MAC
         try {
-            final SecretKeySpec keyspec = new SecretKeySpec(secret.getBytes("UTF-8"), "HmacSHA256");
-            mac = Mac.getInstance("HmacSHA256");
-            mac.init(keyspec);
+            requestSigner = RequestSigner.forMac("HmacSHA256", secret.getBytes("UTF-8"));
             initializedMACAuthentication = true;
         } catch (UnsupportedEncodingException | NoSuchAlgorithmException e) {
             final String errorMsg = "Failed to setup MAC security. HINT: Is HMAC-SHA256 installed?";
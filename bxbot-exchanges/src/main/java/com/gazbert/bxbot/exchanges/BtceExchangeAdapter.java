@@ -30,11 +30,10 @@ import com.gazbert.bxbot.trading.api.*;
 import com.google.common.base.MoreObjects;
 import com.google.gson.*;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Type;
 import java.math.BigDecimal;
@@ -83,6 +82,12 @@ public final class BtceExchangeAdapter extends AbstractExchangeAdapter implement
 
     private static final Logger LOG = LogManager.getLogger();
 
+    /**
+     * The authenticated API methods that create and cancel orders. They jump the queue if the adapter is rate
+     * limited.
+     */
+    private static final Set<String> ORDER_API_METHODS = new HashSet<>(Arrays.asList("Trade", "CancelOrder"));
+
     /**
      * The Authenticated API URI.
      */
@@ -114,9 +119,9 @@ public final class BtceExchangeAdapter extends AbstractExchangeAdapter implement
     private static final String SECRET_PROPERTY_NAME = "secret";
 
     /**
-     * Nonce used for sending authenticated messages to the exchange.
+     * Hands out the nonces used for sending authenticated messages to the exchange.
      */
-    private static long nonce = 0;
+    private NonceService nonceService;
 
     /**
      * Used to indicate if we have initialised the MAC authentication protocol
@@ -134,10 +139,10 @@ public final class BtceExchangeAdapter extends AbstractExchangeAdapter implement
     private String secret = "";
 
     /**
-     * Provides the "Message Authentication Code" (MAC) algorithm used for the secure messaging layer.
+     * Signs the secure messages using the "Message Authentication Code" (MAC) algorithm.
      * Used to encrypt the hash of the entire message with the private key to ensure message integrity.
      */
-    private Mac mac;
+    private RequestSigner requestSigner;
 
     /**
      * GSON engine used for parsing JSON in BTC-e API call responses.
@@ -152,7 +157,7 @@ public final class BtceExchangeAdapter extends AbstractExchangeAdapter implement
         setAuthenticationConfig(config);
         setNetworkConfig(config);
 
-        nonce = System.currentTimeMillis() / 1000; // set the initial nonce used in the secure messaging.
+        nonceService = getNonceService(config.getOtherConfig(), key); // other config is optional for this adapter
         initSecureMessageLayer();
         initGson();
     }
@@ -164,37 +169,36 @@ public final class BtceExchangeAdapter extends AbstractExchangeAdapter implement
 
     @Override
     public MarketOrderBook getMarketOrders(String marketId) throws TradingApiException, ExchangeNetworkException {
+        return getMarketOrders(marketId, OrderBookJsonReader.ALL_PRICE_LEVELS);
+    }
 
-        try {
-            final ExchangeHttpResponse response = sendPublicRequestToExchange("depth", marketId);
-            LOG.debug(() -> "Market Orders response: " + response);
+    @Override
+    public MarketOrderBook getMarketOrders(String marketId, int depth)
+            throws TradingApiException, ExchangeNetworkException {
 
-            final BtceMarketOrderBookWrapper marketOrderWrapper = gson.fromJson(response.getPayload(),
-                    BtceMarketOrderBookWrapper.class);
-
-            final List<MarketOrder> buyOrders = new ArrayList<>();
-            final List<List<BigDecimal>> btceBuyOrders = marketOrderWrapper.orderBook.bids;
-            for (final List<BigDecimal> order : btceBuyOrders) {
-                final MarketOrder buyOrder = new MarketOrder(
-                        OrderType.BUY,
-                        order.get(0), // price
-                        order.get(1), // quantity
-                        order.get(0).multiply(order.get(1)));
-                buyOrders.add(buyOrder);
-            }
+        assertValidOrderBookDepth(depth);
 
-            final List<MarketOrder> sellOrders = new ArrayList<>();
-            final List<List<BigDecimal>> btceSellOrders = marketOrderWrapper.orderBook.asks;
-            for (final List<BigDecimal> order : btceSellOrders) {
-                final MarketOrder sellOrder = new MarketOrder(
-                        OrderType.SELL,
-                        order.get(0), // price
-                        order.get(1), // quantity
-                        order.get(0).multiply(order.get(1)));
-                sellOrders.add(sellOrder);
+        try {
+            // BTC-e returns the book keyed by market, e.g. {"btc_usd": {"asks": [...], "bids": [...]}}
+            final ResponseBodyReader<MarketOrderBook> orderBookReader = responseBody ->
+                    OrderBookJsonReader.readOrderBookField(new JsonReader(responseBody), marketId, marketId, "bids",
+                            "asks", depth);
+
+            String resource = marketId;
+            if (depth != OrderBookJsonReader.ALL_PRICE_LEVELS) {
+                resource += "?limit=" + depth;
             }
 
-            return new MarketOrderBook(marketId, sellOrders, buyOrders);
+            final ExchangeHttpResponse response = sendPublicRequestToExchange("depth", resource, orderBookReader);
+            LOG.debug(() -> "Market Orders response: " + response);
+
+            final MarketOrderBook orderBook = response.readPayload(orderBookReader);
+            if (orderBook == null) {
+                final String errorMsg = "Failed to get market order book from exchange. Details: " + response;
+                LOG.error(errorMsg);
+                throw new TradingApiException(errorMsg);
+            }
+            return orderBook;
 
         } catch (ExchangeNetworkException | TradingApiException e) {
             throw e;
@@ -547,48 +551,6 @@ public final class BtceExchangeAdapter extends AbstractExchangeAdapter implement
         private static final long serialVersionUID = 5353335214767688903L;
     }
 
-    /**
-     * GSON class for the Order Book wrapper.
-     */
-    private static class BtceMarketOrderBookWrapper extends BtceMessageBase {
-        // field names map to the JSON arg names)
-        @SerializedName("btc_usd")
-        BtceOrderBook orderBook;
-
-        @Override
-        public String toString() {
-            return MoreObjects.toStringHelper(this)
-                    .add("orderBook", orderBook)
-                    .toString();
-        }
-    }
-
-    /**
-     * GSON class for holding BTC-e Order Book response from depth API call.
-     * <p>
-     * JSON looks like:
-     * <pre>
-     *   {
-     *     "asks":[[567.711,1.97874609],[568.226,0.018],[569,1.192759],[569.234,0.04312865],[576.418,28.68]],
-     *     "bids":[[567.37,0.03607374],[566.678,0.04321508],[566.615,0.5],[566.502,0.02489897],[557.8,0.363]]
-     *   }
-     * </pre>
-     * Each is a list of open orders and each order is represented as a list of price and amount.
-     */
-    private static class BtceOrderBook {
-        // field names map to the JSON arg names
-        public List<List<BigDecimal>> bids;
-        public List<List<BigDecimal>> asks;
-
-        @Override
-        public String toString() {
-            return MoreObjects.toStringHelper(this)
-                    .add("bids", bids)
-                    .add("asks", asks)
-                    .toString();
-        }
-    }
-
     /**
      * GSON class for holding BTC-e create order response wrapper from Trade API call.
      */
@@ -844,6 +806,24 @@ public final class BtceExchangeAdapter extends AbstractExchangeAdapter implement
      */
     private ExchangeHttpResponse sendPublicRequestToExchange(String apiMethod, String resource) throws TradingApiException,
             ExchangeNetworkException {
+        return sendPublicRequestToExchange(apiMethod, resource, null);
+    }
+
+    /**
+     * Makes a public API call to the BTC-e exchange and parses a successful
+     * response body as it is read off the wire.
+     *
+     * @param apiMethod         the API method to call.
+     * @param resource          to use in the API call.
+     * @param successBodyReader reader for a successful response body.
+     * @return the response from the exchange. Use {@link ExchangeHttpResponse#readPayload(ResponseBodyReader)}
+     * to get the parsed body.
+     * @throws ExchangeNetworkException if there is a network issue connecting to exchange.
+     * @throws TradingApiException      if anything unexpected happens.
+     */
+    private ExchangeHttpResponse sendPublicRequestToExchange(String apiMethod, String resource,
+            ResponseBodyReader<?> successBodyReader)
+            throws TradingApiException, ExchangeNetworkException {
 
         // Request headers required by Exchange
         final Map<String, String> requestHeaders = new HashMap<>();
@@ -852,7 +832,7 @@ public final class BtceExchangeAdapter extends AbstractExchangeAdapter implement
         try {
 
             final URL url = new URL(PUBLIC_API_BASE_URL + apiMethod + "/" + resource);
-            return sendNetworkRequest(url, "GET", null, requestHeaders);
+            return sendNetworkRequest(url, "GET", null, requestHeaders, RequestPriority.MARKET_DATA, successBodyReader);
 
         } catch (MalformedURLException e) {
             final String errorMsg = UNEXPECTED_IO_ERROR_MSG;
@@ -888,7 +868,7 @@ public final class BtceExchangeAdapter extends AbstractExchangeAdapter implement
             params.put("method", apiMethod);
 
             // must be higher for next call, even if a failure occurred on previous call
-            params.put("nonce", Long.toString(++nonce));
+            params.put("nonce", Long.toString(nonceService.nextNonce()));
 
             // Build the URL with query param args in it - yuk!
             String postData = "";
@@ -908,12 +888,14 @@ public final class BtceExchangeAdapter extends AbstractExchangeAdapter implement
             requestHeaders.put("Key", key);
 
             // Sign the payload with private key
-            requestHeaders.put("Sign", toHex(mac.doFinal(postData.getBytes("UTF-8"))));
+            requestHeaders.put("Sign", requestSigner.begin().append(postData).mac().toHexString());
 
             final URL url = new URL(AUTHENTICATED_API_URL);
-            return sendNetworkRequest(url, "POST", postData, requestHeaders);
+            final RequestPriority priority = ORDER_API_METHODS.contains(apiMethod)
+                    ? RequestPriority.ORDER : RequestPriority.ACCOUNT;
+            return sendNetworkRequest(url, "POST", postData, requestHeaders, priority);
 
-        } catch (MalformedURLException | UnsupportedEncodingException e) {
+        } catch (MalformedURLException e) {
 
             final String errorMsg = UNEXPECTED_IO_ERROR_MSG;
             LOG.error(errorMsg, e);
@@ -921,22 +903,6 @@ public final class BtceExchangeAdapter extends AbstractExchangeAdapter implement
         }
     }
 
-    /**
-     * Converts a given byte array to a hex String.
-     *
-     * @param byteArrayToConvert byte array to convert.
-     * @return the string representation of the given byte array.
-     * @throws UnsupportedEncodingException if the byte array encoding is not recognised.
-     */
-    private String toHex(byte[] byteArrayToConvert) throws UnsupportedEncodingException {
-        final StringBuilder hexString = new StringBuilder();
-
-        for (final byte aByte : byteArrayToConvert) {
-            hexString.append(String.format("%02x", aByte & 0xff));
-        }
-        return hexString.toString();
-    }
-
     /**
      * Initialises the secure messaging layer
      * Sets up the MAC to safeguard the data we send to the exchange.
@@ -946,9 +912,7 @@ public final class BtceExchangeAdapter extends AbstractExchangeAdapter implement
 
         // Setup the MAC
         try {
-            final SecretKeySpec keyspec = new SecretKeySpec(secret.getBytes("UTF-8"), "HmacSHA512");
-            mac = Mac.getInstance("HmacSHA512");
-            mac.init(keyspec);
+            requestSigner = RequestSigner.forMac("HmacSHA512", secret.getBytes("UTF-8"));
             initializedMACAuthentication = true;
         } catch (UnsupportedEncodingException | NoSuchAlgorithmException e) {
             final String errorMsg = "Failed to setup MAC security. HINT: Is HMAC-SHA512 installed?";
@@ -0,0 +1,84 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.exchanges.AbstractExchangeAdapter.ExchangeHttpResponse;
+import com.gazbert.bxbot.exchanges.AbstractExchangeAdapter.ResponseBodyReader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Map;
+
+/**
+ * The transport used by the {@link AbstractExchangeAdapter} for sending HTTP requests to the exchange.
+ * <p>
+ * Implementations only deal with moving bytes over the wire: mapping failures to
+ * {@link com.gazbert.bxbot.trading.api.ExchangeNetworkException} or
+ * {@link com.gazbert.bxbot.trading.api.TradingApiException} is done by the adapter.
+ *
+ * @author gazbert
+ * @since 1.0
+ */
+interface ExchangeHttpTransport extends Closeable {
+
+    /**
+     * The User-Agent sent with every request to the exchange.
+     * Er, perhaps, I need to be a bit more stealth here...
+     */
+    String USER_AGENT =
+            "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/51.0.2704.106 Safari/537.36";
+
+    /**
+     * Sends a request to the exchange and blocks until the response has been read.
+     *
+     * @param url            the URL to invoke.
+     * @param httpMethod     the HTTP method to use, e.g. GET, POST, DELETE
+     * @param postData       optional post data to send. This can be null.
+     * @param requestHeaders optional request headers to send. This can be null.
+     * @return the response from the exchange. HTTP error responses (4xx/5xx) are returned, not thrown; the payload
+     * then holds whatever error body the exchange sent back.
+     * @throws IOException if the request could not be sent or the response could not be read.
+     */
+    default ExchangeHttpResponse sendRequest(URL url, String httpMethod, String postData, Map<String, String> requestHeaders)
+            throws IOException {
+        return sendRequest(url, httpMethod, postData, requestHeaders, null);
+    }
+
+    /**
+     * Sends a request to the exchange and blocks until the response has been read. A successful (2xx) response body is
+     * handed straight to the reader as it comes off the wire.
+     *
+     * @param url               the URL to invoke.
+     * @param httpMethod        the HTTP method to use, e.g. GET, POST, DELETE
+     * @param postData          optional post data to send. This can be null.
+     * @param requestHeaders    optional request headers to send. This can be null.
+     * @param successBodyReader optional reader for a successful response body. If null, the body is read into the
+     *                          String payload.
+     * @return the response from the exchange. HTTP error responses (4xx/5xx) are returned, not thrown; the payload
+     * then holds whatever error body the exchange sent back.
+     * @throws IOException if the request could not be sent or the response could not be read or parsed.
+     */
+    ExchangeHttpResponse sendRequest(URL url, String httpMethod, String postData, Map<String, String> requestHeaders,
+                                     ResponseBodyReader<?> successBodyReader) throws IOException;
+}
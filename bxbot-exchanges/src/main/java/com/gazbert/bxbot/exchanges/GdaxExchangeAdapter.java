@@ -34,8 +34,6 @@ import com.google.gson.GsonBuilder;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import javax.xml.bind.DatatypeConverter;
 import java.math.BigDecimal;
 import java.net.*;
@@ -60,10 +58,17 @@ import java.util.*;
  * </strong>
  * </p>
  * <p>
- * This adapter only supports the GDAX <a href="https://docs.gdax.com/#api">REST API</a>. The design
+ * This adapter uses the GDAX <a href="https://docs.gdax.com/#api">REST API</a>. The design
  * of the API and documentation is excellent.
  * </p>
  * <p>
+ * If the optional <code>websocket-feed-url</code> item is set in the exchange.xml other config, e.g.
+ * wss://ws-feed.gdax.com, the adapter subscribes to the <a href="https://docs.gdax.com/#the-level2-channel">level2
+ * WebSocket channel</a> for each market it is asked about and keeps a local order book up to date.
+ * {@link #getMarketOrders(String)} then returns the local book without calling the exchange. The REST API is used
+ * whenever the local book is not in sync, e.g. on startup, after a sequence gap, or while reconnecting.
+ * </p>
+ * <p>
  * The adapter currently only supports <a href="https://docs.gdax.com/#place-a-new-order">Limit Orders</a>.
  * It was originally developed and tested for BTC-GBP market, but it should work for BTC-USD.
  * </p>
@@ -139,6 +144,26 @@ public final class GdaxExchangeAdapter extends AbstractExchangeAdapter implement
      */
     private static final String SELL_FEE_PROPERTY_NAME = "sell-fee";
 
+    /**
+     * Name of the optional WebSocket feed URL property in config file.
+     */
+    private static final String WEBSOCKET_FEED_URL_PROPERTY_NAME = "websocket-feed-url";
+
+    /**
+     * Number of price levels returned for each side of the book - the same as the REST API level 2 call.
+     */
+    private static final int MARKET_ORDER_BOOK_DEPTH = 50;
+
+    /**
+     * A local order book is resynced if nothing has been received for it in this time. GDAX sends heartbeats every 1s.
+     */
+    private static final long WEBSOCKET_STALE_BOOK_MILLIS = 10 * 1000;
+
+    /**
+     * Minimum time between attempts to connect to the WebSocket feed.
+     */
+    private static final long WEBSOCKET_RECONNECT_INTERVAL_MILLIS = 5 * 1000;
+
     /**
      * Exchange buy fees in % in {@link BigDecimal} format.
      */
@@ -170,16 +195,26 @@ public final class GdaxExchangeAdapter extends AbstractExchangeAdapter implement
     private String secret = "";
 
     /**
-     * Provides the "Message Authentication Code" (MAC) algorithm used for the secure messaging layer.
+     * Signs the secure messages using the "Message Authentication Code" (MAC) algorithm.
      * Used to encrypt the hash of the entire message with the private key to ensure message integrity.
      */
-    private Mac mac;
+    private RequestSigner requestSigner;
 
     /**
      * GSON engine used for parsing JSON in GDAX API call responses.
      */
     private Gson gson;
 
+    /**
+     * The optional WebSocket feed URL. If null, market data is fetched using the REST API.
+     */
+    private String websocketFeedUrl;
+
+    /**
+     * Keeps local order books up to date from the WebSocket feed. Null if the feed is not configured.
+     */
+    private GdaxMarketDataFeed marketDataFeed;
+
 
     @Override
     public void init(ExchangeConfig config) {
@@ -191,6 +226,7 @@ public final class GdaxExchangeAdapter extends AbstractExchangeAdapter implement
 
         initSecureMessageLayer();
         initGson();
+        initMarketDataFeed();
     }
 
     // ------------------------------------------------------------------------------------------------
@@ -357,40 +393,42 @@ public final class GdaxExchangeAdapter extends AbstractExchangeAdapter implement
 
     @Override
     public MarketOrderBook getMarketOrders(String marketId) throws TradingApiException, ExchangeNetworkException {
+        return getMarketOrders(marketId, OrderBookJsonReader.ALL_PRICE_LEVELS);
+    }
 
-        try {
+    @Override
+    public MarketOrderBook getMarketOrders(String marketId, int depth)
+            throws TradingApiException, ExchangeNetworkException {
 
-            final Map<String, String> params = getRequestParamMap();
-            params.put("level", "2"); //  "2" = Top 50 bids and asks (aggregated)
+        assertValidOrderBookDepth(depth);
 
-            final ExchangeHttpResponse response = sendPublicRequestToExchange("products/" + marketId + "/book", params);
-            LOG.debug(() -> "Market Orders response: " + response);
+        try {
 
-            if (response.getStatusCode() == HttpURLConnection.HTTP_OK) {
+            if (marketDataFeed != null) {
+                final MarketOrderBook localOrderBook = marketDataFeed.getMarketOrders(marketId,
+                        Math.min(depth, MARKET_ORDER_BOOK_DEPTH));
+                if (localOrderBook != null) {
+                    return localOrderBook;
+                }
+                LOG.debug(() -> "Local order book for " + marketId + " not in sync yet - using REST API");
+            }
 
-                final GdaxBookWrapper orderBook = gson.fromJson(response.getPayload(), GdaxBookWrapper.class);
+            final Map<String, String> params = getRequestParamMap();
+            if (depth == 1) {
+                params.put("level", "1"); //  "1" = Only the best bid and ask
+            } else {
+                params.put("level", "2"); //  "2" = Top 50 bids and asks (aggregated)
+            }
 
-                final List<MarketOrder> buyOrders = new ArrayList<>();
-                for (GdaxMarketOrder gdaxBuyOrder : orderBook.bids) {
-                    final MarketOrder buyOrder = new MarketOrder(
-                            OrderType.BUY,
-                            gdaxBuyOrder.get(0),
-                            gdaxBuyOrder.get(1),
-                            gdaxBuyOrder.get(0).multiply(gdaxBuyOrder.get(1)));
-                    buyOrders.add(buyOrder);
-                }
+            final ResponseBodyReader<MarketOrderBook> orderBookReader = responseBody ->
+                    OrderBookJsonReader.readOrderBook(responseBody, marketId, "bids", "asks", depth);
 
-                final List<MarketOrder> sellOrders = new ArrayList<>();
-                for (GdaxMarketOrder gdaxSellOrder : orderBook.asks) {
-                    final MarketOrder sellOrder = new MarketOrder(
-                            OrderType.SELL,
-                            gdaxSellOrder.get(0),
-                            gdaxSellOrder.get(1),
-                            gdaxSellOrder.get(0).multiply(gdaxSellOrder.get(1)));
-                    sellOrders.add(sellOrder);
-                }
+            final ExchangeHttpResponse response = sendPublicRequestToExchange("products/" + marketId + "/book", params,
+                    orderBookReader);
+            LOG.debug(() -> "Market Orders response: " + response);
 
-                return new MarketOrderBook(marketId, sellOrders, buyOrders);
+            if (response.getStatusCode() == HttpURLConnection.HTTP_OK) {
+                return response.readPayload(orderBookReader);
 
             } else {
                 final String errorMsg = "Failed to get market order book from exchange. Details: " + response;
@@ -536,33 +574,6 @@ public final class GdaxExchangeAdapter extends AbstractExchangeAdapter implement
         }
     }
 
-    /**
-     * GSON class for GDAX '/products/{marketId}/book' API call response.
-     */
-    private static class GdaxBookWrapper {
-
-        public long sequence;
-        public List<GdaxMarketOrder> bids;
-        public List<GdaxMarketOrder> asks;
-
-        @Override
-        public String toString() {
-            return MoreObjects.toStringHelper(this)
-                    .add("sequence", sequence)
-                    .add("bids", bids)
-                    .add("asks", asks)
-                    .toString();
-        }
-    }
-
-    /**
-     * GSON class for holding Market Orders. First element in array is price, second element is amount, third is number
-     * of orders.
-     */
-    private static class GdaxMarketOrder extends ArrayList<BigDecimal> {
-        private static final long serialVersionUID = -4919711220797077759L;
-    }
-
     /**
      * GSON class for GDAX '/products/{marketId}/ticker' API call response.
      */
@@ -624,6 +635,24 @@ public final class GdaxExchangeAdapter extends AbstractExchangeAdapter implement
      */
     private ExchangeHttpResponse sendPublicRequestToExchange(String apiMethod, Map<String, String> params)
             throws ExchangeNetworkException, TradingApiException {
+        return sendPublicRequestToExchange(apiMethod, params, null);
+    }
+
+    /**
+     * Makes a public API call to the GDAX exchange and parses a successful
+     * response body as it is read off the wire.
+     *
+     * @param apiMethod         the API method to call.
+     * @param params            any (optional) query param args to use in the API call.
+     * @param successBodyReader reader for a successful response body.
+     * @return the response from the exchange. Use {@link ExchangeHttpResponse#readPayload(ResponseBodyReader)}
+     * to get the parsed body.
+     * @throws ExchangeNetworkException if there is a network issue connecting to exchange.
+     * @throws TradingApiException      if anything unexpected happens.
+     */
+    private ExchangeHttpResponse sendPublicRequestToExchange(String apiMethod, Map<String, String> params,
+            ResponseBodyReader<?> successBodyReader)
+            throws ExchangeNetworkException, TradingApiException {
 
         if (params == null) {
             params = new HashMap<>(); // no params, so empty query string
@@ -646,7 +675,7 @@ public final class GdaxExchangeAdapter extends AbstractExchangeAdapter implement
         try {
 
             final URL url = new URL(PUBLIC_API_BASE_URL + apiMethod + queryString);
-            return sendNetworkRequest(url, "GET", null, requestHeaders);
+            return sendNetworkRequest(url, "GET", null, requestHeaders, RequestPriority.MARKET_DATA, successBodyReader);
 
         } catch (MalformedURLException e) {
             final String errorMsg = UNEXPECTED_IO_ERROR_MSG;
@@ -762,14 +791,11 @@ public final class GdaxExchangeAdapter extends AbstractExchangeAdapter implement
                     throw new IllegalArgumentException("Don't know how to build secure [" + httpMethod + "] request!");
             }
 
-            // Build the signature string
-            final StringBuilder signatureBuilder = new StringBuilder(timestamp);
-            signatureBuilder.append(httpMethod.toUpperCase()).append("/").append(apiMethod).append(requestBody);
-
-            // Sign the signature string and Base64 encode it
-            mac.reset();
-            mac.update(signatureBuilder.toString().getBytes());
-            final String signature = DatatypeConverter.printBase64Binary(mac.doFinal());
+            // Build the signature string, sign it, and Base64 encode it
+            final String signature = requestSigner.begin()
+                    .append(timestamp).append(httpMethod.toUpperCase()).append("/").append(apiMethod)
+                    .append(requestBody)
+                    .mac().toBase64String();
 
             // Request headers required by Exchange
             final Map<String, String> requestHeaders = new HashMap<>();
@@ -780,7 +806,9 @@ public final class GdaxExchangeAdapter extends AbstractExchangeAdapter implement
             requestHeaders.put("CB-ACCESS-PASSPHRASE", passphrase);
 
             final URL url = new URL(invocationUrl);
-            return sendNetworkRequest(url, httpMethod, requestBody, requestHeaders);
+            // Orders are the only things we create (POST) or cancel (DELETE)
+            final RequestPriority priority = "GET".equals(httpMethod) ? RequestPriority.ACCOUNT : RequestPriority.ORDER;
+            return sendNetworkRequest(url, httpMethod, requestBody, requestHeaders, priority);
 
         } catch (MalformedURLException e) {
             final String errorMsg = UNEXPECTED_IO_ERROR_MSG;
@@ -802,9 +830,7 @@ public final class GdaxExchangeAdapter extends AbstractExchangeAdapter implement
             // GDAX secret is in Base64 so we must decode it first.
             final byte[] decodedBase64Secret = DatatypeConverter.parseBase64Binary(secret);
 
-            final SecretKeySpec keyspec = new SecretKeySpec(decodedBase64Secret, "HmacSHA256");
-            mac = Mac.getInstance("HmacSHA256");
-            mac.init(keyspec);
+            requestSigner = RequestSigner.forMac("HmacSHA256", decodedBase64Secret);
             initializedMACAuthentication = true;
         } catch (NoSuchAlgorithmException e) {
             final String errorMsg = "Failed to setup MAC security. HINT: Is HMAC-SHA256 installed?";
@@ -840,6 +866,10 @@ public final class GdaxExchangeAdapter extends AbstractExchangeAdapter implement
         final String sellFeeInConfig = getOtherConfigItem(otherConfig, SELL_FEE_PROPERTY_NAME);
         sellFeePercentage = new BigDecimal(sellFeeInConfig).divide(new BigDecimal("100"), 8, BigDecimal.ROUND_HALF_UP);
         LOG.info(() -> "Sell fee % in BigDecimal format: " + sellFeePercentage);
+
+        // optional - not an error if it is missing
+        websocketFeedUrl = otherConfig.getItem(WEBSOCKET_FEED_URL_PROPERTY_NAME);
+        LOG.info(() -> WEBSOCKET_FEED_URL_PROPERTY_NAME + ": " + websocketFeedUrl);
     }
 
     // ------------------------------------------------------------------------------------------------
@@ -854,6 +884,28 @@ public final class GdaxExchangeAdapter extends AbstractExchangeAdapter implement
         gson = gsonBuilder.create();
     }
 
+    /**
+     * Initialises the WebSocket market data feed if it has been configured. It connects on first use.
+     */
+    private void initMarketDataFeed() {
+
+        if (marketDataFeed != null) {
+            marketDataFeed.close();
+            marketDataFeed = null;
+        }
+
+        if (websocketFeedUrl != null && !websocketFeedUrl.trim().isEmpty()) {
+            try {
+                marketDataFeed = new GdaxMarketDataFeed(new URI(websocketFeedUrl.trim()),
+                        getConnectionTimeout() * 1000, WEBSOCKET_STALE_BOOK_MILLIS, WEBSOCKET_RECONNECT_INTERVAL_MILLIS);
+            } catch (URISyntaxException e) {
+                final String errorMsg = "Invalid " + WEBSOCKET_FEED_URL_PROPERTY_NAME + ": " + websocketFeedUrl;
+                LOG.error(errorMsg, e);
+                throw new IllegalArgumentException(errorMsg, e);
+            }
+        }
+    }
+
     /*
      * Hack for unit-testing map params passed to transport layer.
      */
@@ -0,0 +1,529 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.trading.api.FixedPointDecimal;
+import com.gazbert.bxbot.trading.api.IncrementalOrderBook;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.google.common.base.MoreObjects;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Maintains local copies of GDAX order books from the
+ * <a href="https://docs.gdax.com/#the-level2-channel">WebSocket level2 channel</a>.
+ * <p>
+ * Each product's book is loaded from the snapshot message sent on subscribing, then kept up to date by applying the
+ * l2update messages. {@link #getMarketOrders(String, int)} only reads the local book: connecting, subscribing and
+ * resubscribing are all done on the feed's own connection thread, so no network I/O is done - or waited for - when the
+ * Trading Strategy asks for the order book.
+ * <p>
+ * A book is resynced - discarded and re-subscribed to get a fresh snapshot - if:
+ * <ul>
+ * <li>an update arrives with a sequence number that is not 1 more than the previous one (a gap).</li>
+ * <li>the best bid crosses the best ask after an update, i.e. we have missed something.</li>
+ * <li>nothing, not even a heartbeat, has been received for the product for longer than the stale book timeout.</li>
+ * </ul>
+ * If the connection drops, every book is discarded and the connection thread reconnects, no more often than the
+ * reconnect interval.
+ * <p>
+ * While a book is not in sync, {@link #getMarketOrders(String, int)} returns null and the adapter falls back to the
+ * REST API.
+ *
+ * @author gazbert
+ * @since 1.0
+ */
+final class GdaxMarketDataFeed implements Closeable, WebSocketConnection.Listener {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private static final String LEVEL2_CHANNEL = "level2";
+    private static final String HEARTBEAT_CHANNEL = "heartbeat";
+
+    // GDAX sends prices and sizes with up to 8 decimal places - parsed straight into fixed-point longs
+    private static final int PRICE_SCALE = FixedPointDecimal.SCALE;
+    private static final int QUANTITY_SCALE = FixedPointDecimal.SCALE;
+
+    private final URI feedUri;
+    private final int connectTimeoutMillis;
+    private final long staleBookNanos;
+    private final long reconnectIntervalNanos;
+    private final Gson gson = new GsonBuilder().create();
+
+    private final Map<String, LocalOrderBook> orderBooks = new ConcurrentHashMap<>();
+    private final Set<String> subscribedProducts = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final AtomicLong resyncCount = new AtomicLong();
+
+    // Work for the connection thread: products to subscribe to, and books to resubscribe to for a fresh snapshot
+    private final ScheduledThreadPoolExecutor connectionThread;
+    private final AtomicBoolean isConnectionWorkScheduled = new AtomicBoolean();
+    private final Set<String> productsToSubscribe = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final Set<String> productsToResync = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    private volatile WebSocketConnection connection;
+    private volatile boolean closed;
+
+    // only touched by the connection thread
+    private long lastConnectAttemptTime;
+    private boolean hasAttemptedConnect;
+
+
+    /**
+     * Creates the feed. It does not connect until the first book is asked for.
+     *
+     * @param feedUri                 the WebSocket feed URI, e.g. wss://ws-feed.gdax.com
+     * @param connectTimeoutMillis    timeout for connecting to the feed.
+     * @param staleBookMillis         a book is resynced if nothing has been received for it for this long.
+     * @param reconnectIntervalMillis minimum time between attempts to connect to the feed.
+     */
+    GdaxMarketDataFeed(URI feedUri, int connectTimeoutMillis, long staleBookMillis, long reconnectIntervalMillis) {
+        this.feedUri = feedUri;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.staleBookNanos = TimeUnit.MILLISECONDS.toNanos(staleBookMillis);
+        this.reconnectIntervalNanos = TimeUnit.MILLISECONDS.toNanos(reconnectIntervalMillis);
+
+        connectionThread = new ScheduledThreadPoolExecutor(1, runnable -> {
+            final Thread thread = new Thread(runnable, "gdax-feed-connection");
+            thread.setDaemon(true); // don't hold up shutdown of the bot
+            return thread;
+        });
+    }
+
+    /**
+     * Returns the top of the local order book for a product. The first call for a product asks the connection thread
+     * to subscribe to it, and returns null; it never waits for the connection.
+     *
+     * @param productId the GDAX product id, e.g. BTC-GBP.
+     * @param depth     maximum number of price levels to return for each side of the book.
+     * @return the order book, or null if the local book is not in sync yet.
+     */
+    MarketOrderBook getMarketOrders(String productId, int depth) {
+
+        final LocalOrderBook orderBook = orderBooks.computeIfAbsent(productId, LocalOrderBook::new);
+        if (subscribedProducts.add(productId)) {
+            productsToSubscribe.add(productId);
+            scheduleConnectionWork(0);
+        }
+
+        synchronized (orderBook) {
+            if (!orderBook.isSynced) {
+                return null;
+            }
+            if (System.nanoTime() - orderBook.lastMessageTime > staleBookNanos) {
+                LOG.warn(() -> "GDAX feed book for " + productId + " is stale - resyncing");
+                resync(orderBook);
+                return null;
+            }
+            return orderBook.book.toMarketOrderBook(depth);
+        }
+    }
+
+    /**
+     * @return number of times a book has been resynced since the feed was created.
+     */
+    long getResyncCount() {
+        return resyncCount.get();
+    }
+
+    @Override
+    public void close() {
+        final WebSocketConnection connectionToClose;
+        synchronized (this) {
+            closed = true;
+            connectionToClose = connection;
+            connection = null;
+        }
+        connectionThread.shutdownNow();
+        if (connectionToClose != null) {
+            connectionToClose.close();
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  WebSocket callbacks - called on the reader thread
+    // ------------------------------------------------------------------------------------------------
+
+    @Override
+    public void onMessage(String message) {
+
+        final GdaxFeedMessage feedMessage;
+        try {
+            feedMessage = gson.fromJson(message, GdaxFeedMessage.class);
+        } catch (JsonParseException e) {
+            LOG.error("Failed to parse GDAX feed message: " + message, e);
+            return;
+        }
+        if (feedMessage == null || feedMessage.type == null) {
+            return;
+        }
+
+        switch (feedMessage.type) {
+            case "snapshot":
+                applySnapshot(feedMessage);
+                break;
+            case "l2update":
+                applyUpdate(feedMessage);
+                break;
+            case "heartbeat":
+                final LocalOrderBook orderBook = feedMessage.product_id == null
+                        ? null : orderBooks.get(feedMessage.product_id);
+                if (orderBook != null) {
+                    synchronized (orderBook) {
+                        orderBook.lastMessageTime = System.nanoTime();
+                    }
+                }
+                break;
+            case "subscriptions":
+                LOG.info(() -> "GDAX feed subscriptions: " + message);
+                break;
+            case "error":
+                LOG.error(() -> "GDAX feed error: " + feedMessage.message + " - " + feedMessage.reason);
+                break;
+            default:
+                LOG.debug(() -> "Ignoring GDAX feed message: " + message);
+        }
+    }
+
+    /*
+     * Must not take the feed lock: the connection can be closed by a thread holding it. The dead connection is
+     * replaced by the connection thread.
+     */
+    @Override
+    public void onClose(String reason) {
+        LOG.warn(() -> "GDAX feed connection closed - all local books discarded. Reason: " + reason);
+        for (final LocalOrderBook orderBook : orderBooks.values()) {
+            synchronized (orderBook) {
+                orderBook.invalidate();
+            }
+        }
+        scheduleConnectionWork(0);
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Book maintenance
+    // ------------------------------------------------------------------------------------------------
+
+    private void applySnapshot(GdaxFeedMessage snapshot) {
+
+        final LocalOrderBook orderBook = orderBooks.get(snapshot.product_id);
+        if (orderBook == null) {
+            return;
+        }
+
+        synchronized (orderBook) {
+            orderBook.invalidate();
+            try {
+                loadLevels(orderBook.book, OrderType.BUY, snapshot.bids);
+                loadLevels(orderBook.book, OrderType.SELL, snapshot.asks);
+            } catch (IllegalArgumentException e) {
+                LOG.error("Failed to load GDAX feed snapshot for " + orderBook.productId + ". Resyncing...", e);
+                resync(orderBook);
+                return;
+            }
+            orderBook.lastSequence = snapshot.sequence;
+            orderBook.lastMessageTime = System.nanoTime();
+            orderBook.isSynced = true;
+            LOG.info(() -> "GDAX feed book for " + orderBook.productId + " loaded from snapshot - "
+                    + orderBook.book.getLevelCount(OrderType.BUY) + " bids, "
+                    + orderBook.book.getLevelCount(OrderType.SELL) + " asks");
+        }
+    }
+
+    private void applyUpdate(GdaxFeedMessage update) {
+
+        final LocalOrderBook orderBook = orderBooks.get(update.product_id);
+        if (orderBook == null) {
+            return;
+        }
+
+        synchronized (orderBook) {
+
+            if (!orderBook.isSynced) {
+                return; // waiting for snapshot
+            }
+
+            if (update.sequence != null && orderBook.lastSequence != null) {
+                final long expectedSequence = orderBook.lastSequence + 1;
+                if (update.sequence < expectedSequence) {
+                    return; // already applied
+                }
+                if (update.sequence > expectedSequence) {
+                    LOG.warn(() -> "GDAX feed sequence gap for " + orderBook.productId + " - expected "
+                            + expectedSequence + " but got " + update.sequence + ". Resyncing...");
+                    resync(orderBook);
+                    return;
+                }
+            }
+
+            if (update.changes != null) {
+                try {
+                    for (final List<String> change : update.changes) {
+                        if (change.size() < 3) {
+                            continue;
+                        }
+                        final OrderType orderType = "buy".equals(change.get(0)) ? OrderType.BUY : OrderType.SELL;
+                        orderBook.book.updateLevel(orderType, FixedPointDecimal.parseUnscaled(change.get(1)),
+                                FixedPointDecimal.parseUnscaled(change.get(2)));
+                    }
+                } catch (IllegalArgumentException e) {
+                    LOG.error("Failed to apply GDAX feed update for " + orderBook.productId + ". Resyncing...", e);
+                    resync(orderBook);
+                    return;
+                }
+            }
+            orderBook.lastSequence = update.sequence;
+            orderBook.lastMessageTime = System.nanoTime();
+
+            if (orderBook.book.isCrossed()) {
+                LOG.warn(() -> "GDAX feed book for " + orderBook.productId + " is crossed - best bid "
+                        + orderBook.book.getBestBidPrice() + " best ask " + orderBook.book.getBestAskPrice()
+                        + ". Resyncing...");
+                resync(orderBook);
+            }
+        }
+    }
+
+    /*
+     * Caller must hold the book's lock. The book is discarded straight away; the connection thread resubscribes to it,
+     * which makes GDAX send a fresh snapshot.
+     */
+    private void resync(LocalOrderBook orderBook) {
+
+        orderBook.invalidate();
+        resyncCount.incrementAndGet();
+
+        productsToResync.add(orderBook.productId);
+        scheduleConnectionWork(0);
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Connection management - done on the connection thread
+    // ------------------------------------------------------------------------------------------------
+
+    /*
+     * Safe to call from any thread, holding any lock - it only hands the work to the connection thread.
+     */
+    private void scheduleConnectionWork(long delayNanos) {
+
+        if (closed || !isConnectionWorkScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            connectionThread.schedule(this::doConnectionWork, delayNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // raced with close - nothing more to do
+            LOG.debug(() -> "GDAX feed has been closed - not scheduling connection work");
+        }
+    }
+
+    private void doConnectionWork() {
+
+        isConnectionWorkScheduled.set(false);
+        if (closed) {
+            return;
+        }
+
+        final WebSocketConnection currentConnection = connection;
+        if (currentConnection != null && currentConnection.isOpen()) {
+
+            final List<String> newProducts = drain(productsToSubscribe);
+            if (!newProducts.isEmpty()) {
+                sendOrClose(currentConnection, buildSubscriptionMessage("subscribe", newProducts));
+            }
+            for (final String productId : drain(productsToResync)) {
+                sendOrClose(currentConnection, buildSubscriptionMessage("unsubscribe",
+                        Collections.singleton(productId)));
+                sendOrClose(currentConnection, buildSubscriptionMessage("subscribe",
+                        Collections.singleton(productId)));
+            }
+            return;
+        }
+
+        final long now = System.nanoTime();
+        final long sinceLastConnectAttempt = now - lastConnectAttemptTime;
+        if (hasAttemptedConnect && sinceLastConnectAttempt < reconnectIntervalNanos) {
+            scheduleConnectionWork(reconnectIntervalNanos - sinceLastConnectAttempt);
+            return;
+        }
+        hasAttemptedConnect = true;
+        lastConnectAttemptTime = now;
+
+        final WebSocketConnection newConnection;
+        try {
+            LOG.info(() -> "Connecting to GDAX feed: " + feedUri);
+            // read timeout lets us spot a dead connection - GDAX sends heartbeats every second
+            newConnection = WebSocketConnection.connect(feedUri, connectTimeoutMillis,
+                    (int) TimeUnit.NANOSECONDS.toMillis(staleBookNanos), this);
+        } catch (IOException | IllegalArgumentException e) {
+            LOG.warn("Failed to connect to GDAX feed " + feedUri + " - will retry", e);
+            scheduleConnectionWork(reconnectIntervalNanos);
+            return;
+        }
+
+        synchronized (this) {
+            if (closed) {
+                newConnection.close();
+                return;
+            }
+            connection = newConnection;
+        }
+
+        // Subscribing to every product gets a fresh snapshot of every book
+        productsToSubscribe.clear();
+        productsToResync.clear();
+        sendOrClose(newConnection, buildSubscriptionMessage("subscribe", subscribedProducts));
+    }
+
+    private static void sendOrClose(WebSocketConnection currentConnection, String message) {
+        try {
+            currentConnection.sendText(message);
+        } catch (IOException e) {
+            LOG.warn("Failed to send message to GDAX feed - closing connection", e);
+            currentConnection.close(); // onClose() schedules the reconnect
+        }
+    }
+
+    private String buildSubscriptionMessage(String type, Collection<String> productIds) {
+        final GdaxSubscription subscription = new GdaxSubscription();
+        subscription.type = type;
+        subscription.product_ids = new ArrayList<>(productIds);
+        subscription.channels = new ArrayList<>();
+        subscription.channels.add(LEVEL2_CHANNEL);
+        if ("subscribe".equals(type)) {
+            subscription.channels.add(HEARTBEAT_CHANNEL);
+        }
+        return gson.toJson(subscription);
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private static List<String> drain(Set<String> productIds) {
+        final List<String> drained = new ArrayList<>();
+        for (final String productId : productIds) {
+            if (productIds.remove(productId)) {
+                drained.add(productId);
+            }
+        }
+        return drained;
+    }
+
+    private static void loadLevels(IncrementalOrderBook book, OrderType orderType, List<List<String>> levels) {
+        if (levels != null) {
+            for (final List<String> level : levels) {
+                book.updateLevel(orderType, FixedPointDecimal.parseUnscaled(level.get(0)),
+                        FixedPointDecimal.parseUnscaled(level.get(1)));
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Local order book + GSON classes for feed messages.
+    //  See https://docs.gdax.com/#websocket-feed
+    // ------------------------------------------------------------------------------------------------
+
+    /**
+     * A product's local order book. Guarded by its own monitor.
+     */
+    private static final class LocalOrderBook {
+
+        private final String productId;
+        private final IncrementalOrderBook book;
+        private boolean isSynced;
+        private Long lastSequence;
+        private long lastMessageTime;
+
+        LocalOrderBook(String productId) {
+            this.productId = productId;
+            this.book = new IncrementalOrderBook(productId, PRICE_SCALE, QUANTITY_SCALE);
+        }
+
+        void invalidate() {
+            isSynced = false;
+            lastSequence = null;
+            book.clear();
+        }
+    }
+
+    /**
+     * GSON class for the subscribe/unsubscribe request.
+     */
+    private static class GdaxSubscription {
+
+        public String type;
+        public List<String> product_ids;
+        public List<String> channels;
+    }
+
+    /**
+     * GSON class for the feed messages we use: snapshot, l2update, heartbeat, subscriptions and error.
+     * Prices and sizes are sent as strings.
+     */
+    private static class GdaxFeedMessage {
+
+        public String type;
+        public String product_id;
+        public Long sequence;
+        public List<List<String>> bids;
+        public List<List<String>> asks;
+        public List<List<String>> changes; // [side, price, size]
+        public String message;
+        public String reason;
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("type", type)
+                    .add("product_id", product_id)
+                    .add("sequence", sequence)
+                    .add("bids", bids)
+                    .add("asks", asks)
+                    .add("changes", changes)
+                    .add("message", message)
+                    .add("reason", reason)
+                    .toString();
+        }
+    }
+}
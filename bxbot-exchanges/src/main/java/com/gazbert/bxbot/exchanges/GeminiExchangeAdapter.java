@@ -34,9 +34,6 @@ import com.google.gson.GsonBuilder;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-import javax.xml.bind.DatatypeConverter;
 import java.io.UnsupportedEncodingException;
 import java.math.BigDecimal;
 import java.net.MalformedURLException;
@@ -93,6 +90,12 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter impleme
 
     private static final Logger LOG = LogManager.getLogger();
 
+    /**
+     * The authenticated API methods that create and cancel orders. They jump the queue if the adapter is rate
+     * limited.
+     */
+    private static final Set<String> ORDER_API_METHODS = new HashSet<>(Arrays.asList("order/new", "order/cancel"));
+
     /**
      * The version of the Gemini API being used.
      */
@@ -139,9 +142,9 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter impleme
     private static final String SELL_FEE_PROPERTY_NAME = "sell-fee";
 
     /**
-     * Nonce used for sending authenticated messages to the exchange.
+     * Hands out the nonces used for sending authenticated messages to the exchange.
      */
-    private static long nonce = 0;
+    private NonceService nonceService;
 
     /**
      * Exchange buy fees in % in {@link BigDecimal} format.
@@ -169,10 +172,10 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter impleme
     private String secret = "";
 
     /**
-     * Provides the "Message Authentication Code" (MAC) algorithm used for the secure messaging layer.
+     * Signs the secure messages using the "Message Authentication Code" (MAC) algorithm.
      * Used to encrypt the hash of the entire message with the private key to ensure message integrity.
      */
-    private Mac mac;
+    private RequestSigner requestSigner;
 
     /**
      * GSON engine used for parsing JSON in Gemini API call responses.
@@ -188,7 +191,6 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter impleme
         setNetworkConfig(config);
         setOtherConfig(config);
 
-        nonce = System.currentTimeMillis() / 1000; // set the initial nonce used in the secure messaging.
         initSecureMessageLayer();
         initGson();
     }
@@ -331,35 +333,29 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter impleme
 
     @Override
     public MarketOrderBook getMarketOrders(String marketId) throws TradingApiException, ExchangeNetworkException {
+        return getMarketOrders(marketId, OrderBookJsonReader.ALL_PRICE_LEVELS);
+    }
 
-        try {
+    @Override
+    public MarketOrderBook getMarketOrders(String marketId, int depth)
+            throws TradingApiException, ExchangeNetworkException {
 
-            final ExchangeHttpResponse response = sendPublicRequestToExchange("book/" + marketId);
-            LOG.debug(() -> "Market Orders response: " + response);
+        assertValidOrderBookDepth(depth);
 
-            final GeminiOrderBook orderBook = gson.fromJson(response.getPayload(), GeminiOrderBook.class);
+        try {
 
-            final List<MarketOrder> buyOrders = new ArrayList<>();
-            for (GeminiMarketOrder geminiBuyOrder : orderBook.bids) {
-                final MarketOrder buyOrder = new MarketOrder(
-                        OrderType.BUY,
-                        geminiBuyOrder.price,
-                        geminiBuyOrder.amount,
-                        geminiBuyOrder.price.multiply(geminiBuyOrder.amount));
-                buyOrders.add(buyOrder);
-            }
+            final ResponseBodyReader<MarketOrderBook> orderBookReader = responseBody ->
+                    OrderBookJsonReader.readOrderBook(responseBody, marketId, "bids", "asks", depth);
 
-            final List<MarketOrder> sellOrders = new ArrayList<>();
-            for (GeminiMarketOrder geminiSellOrder : orderBook.asks) {
-                final MarketOrder sellOrder = new MarketOrder(
-                        OrderType.SELL,
-                        geminiSellOrder.price,
-                        geminiSellOrder.amount,
-                        geminiSellOrder.price.multiply(geminiSellOrder.amount));
-                sellOrders.add(sellOrder);
+            String apiMethod = "book/" + marketId;
+            if (depth != OrderBookJsonReader.ALL_PRICE_LEVELS) {
+                apiMethod += "?limit_bids=" + depth + "&limit_asks=" + depth;
             }
 
-            return new MarketOrderBook(marketId, sellOrders, buyOrders);
+            final ExchangeHttpResponse response = sendPublicRequestToExchange(apiMethod, orderBookReader);
+            LOG.debug(() -> "Market Orders response: " + response);
+
+            return response.readPayload(orderBookReader);
 
         } catch (ExchangeNetworkException | TradingApiException e) {
             throw e;
@@ -444,42 +440,6 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter impleme
     //  See https://docs.gemini.com/rest-api/
     // ------------------------------------------------------------------------------------------------
 
-    /**
-     * GSON class for a market Order Book.
-     */
-    private static class GeminiOrderBook {
-
-        // field names map to the JSON arg names
-        public List<GeminiMarketOrder> bids;
-        public List<GeminiMarketOrder> asks;
-
-        @Override
-        public String toString() {
-            return MoreObjects.toStringHelper(this)
-                    .add("bids", bids)
-                    .add("asks", asks)
-                    .toString();
-        }
-    }
-
-    /**
-     * GSON class for a Market Order.
-     */
-    private static class GeminiMarketOrder {
-
-        public BigDecimal price;
-        public BigDecimal amount;
-        // ignore the timestamp attribute as per the API spec
-
-        @Override
-        public String toString() {
-            return MoreObjects.toStringHelper(this)
-                    .add("price", price)
-                    .add("amount", amount)
-                    .toString();
-        }
-    }
-
     /**
      * GSON class for Balances API call response.
      */
@@ -620,6 +580,22 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter impleme
      * @throws TradingApiException      if anything unexpected happens.
      */
     private ExchangeHttpResponse sendPublicRequestToExchange(String apiMethod) throws ExchangeNetworkException, TradingApiException {
+        return sendPublicRequestToExchange(apiMethod, null);
+    }
+
+    /**
+     * Makes a public API call to the Gemini exchange and parses a successful
+     * response body as it is read off the wire.
+     *
+     * @param apiMethod         the API method to call.
+     * @param successBodyReader reader for a successful response body.
+     * @return the response from the exchange. Use {@link ExchangeHttpResponse#readPayload(ResponseBodyReader)}
+     * to get the parsed body.
+     * @throws ExchangeNetworkException if there is a network issue connecting to exchange.
+     * @throws TradingApiException      if anything unexpected happens.
+     */
+    private ExchangeHttpResponse sendPublicRequestToExchange(String apiMethod, ResponseBodyReader<?> successBodyReader)
+            throws ExchangeNetworkException, TradingApiException {
 
         // Request headers required by Exchange
         final Map<String, String> requestHeaders = new HashMap<>();
@@ -628,7 +604,7 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter impleme
         try {
 
             final URL url = new URL(PUBLIC_API_BASE_URL + apiMethod);
-            return sendNetworkRequest(url, "GET", null, requestHeaders);
+            return sendNetworkRequest(url, "GET", null, requestHeaders, RequestPriority.MARKET_DATA, successBodyReader);
 
         } catch (MalformedURLException e) {
             final String errorMsg = UNEXPECTED_IO_ERROR_MSG;
@@ -711,19 +687,16 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter impleme
             params.put("request", "/" + GEMINI_API_VERSION + "/" + apiMethod);
 
             // nonce is required by Gemini in every request
-            params.put("nonce", Long.toString(nonce));
-            nonce++;
+            params.put("nonce", Long.toString(nonceService.nextNonce()));
 
             // JSON-ify the param dictionary
             final String paramsInJson = gson.toJson(params);
 
             // Need to base64 encode payload as per API
-            final String base64payload = DatatypeConverter.printBase64Binary(paramsInJson.getBytes());
+            final String base64payload = requestSigner.begin().append(paramsInJson).toBase64String();
 
             // Create the signature
-            mac.reset(); // force reset
-            mac.update(base64payload.getBytes());
-            final String signature = toHex(mac.doFinal()).toLowerCase();
+            final String signature = requestSigner.begin().append(base64payload).mac().toHexString();
 
             // Request headers required by Exchange
             final Map<String, String> requestHeaders = new HashMap<>();
@@ -735,9 +708,11 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter impleme
             requestHeaders.put("Content-Type", "application/json");
 
             final URL url = new URL(AUTHENTICATED_API_URL + apiMethod);
-            return sendNetworkRequest(url, "POST", paramsInJson, requestHeaders);
+            final RequestPriority priority = ORDER_API_METHODS.contains(apiMethod)
+                    ? RequestPriority.ORDER : RequestPriority.ACCOUNT;
+            return sendNetworkRequest(url, "POST", paramsInJson, requestHeaders, priority);
 
-        } catch (MalformedURLException | UnsupportedEncodingException e) {
+        } catch (MalformedURLException e) {
 
             final String errorMsg = UNEXPECTED_IO_ERROR_MSG;
             LOG.error(errorMsg, e);
@@ -745,23 +720,6 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter impleme
         }
     }
 
-    /**
-     * Converts a given byte array to a hex String.
-     *
-     * @param byteArrayToConvert byte array to convert.
-     * @return the string representation of the given byte array.
-     * @throws UnsupportedEncodingException if the byte array encoding is not recognised.
-     */
-    private String toHex(byte[] byteArrayToConvert) throws UnsupportedEncodingException {
-
-        final StringBuilder hexString = new StringBuilder();
-
-        for (final byte aByte : byteArrayToConvert) {
-            hexString.append(String.format("%02x", aByte & 0xff));
-        }
-        return hexString.toString();
-    }
-
     /**
      * Initialises the secure messaging layer
      * Sets up the MAC to safeguard the data we send to the exchange.
@@ -770,9 +728,7 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter impleme
     private void initSecureMessageLayer() {
 
         try {
-            final SecretKeySpec keyspec = new SecretKeySpec(secret.getBytes("UTF-8"), "HmacSHA384");
-            mac = Mac.getInstance("HmacSHA384");
-            mac.init(keyspec);
+            requestSigner = RequestSigner.forMac("HmacSHA384", secret.getBytes("UTF-8"));
             initializedMACAuthentication = true;
         } catch (UnsupportedEncodingException | NoSuchAlgorithmException e) {
             final String errorMsg = "Failed to setup MAC security. HINT: Is HMAC-SHA384 installed?";
@@ -807,6 +763,9 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter impleme
         final String sellFeeInConfig = getOtherConfigItem(otherConfig, SELL_FEE_PROPERTY_NAME);
         sellFeePercentage = new BigDecimal(sellFeeInConfig).divide(new BigDecimal("100"), 8, BigDecimal.ROUND_HALF_UP);
         LOG.info(() -> "Sell fee % in BigDecimal format: " + sellFeePercentage);
+
+        // optional - nonces are only persisted if a nonce-file is set
+        nonceService = getNonceService(otherConfig, key);
     }
 
     // ------------------------------------------------------------------------------------------------
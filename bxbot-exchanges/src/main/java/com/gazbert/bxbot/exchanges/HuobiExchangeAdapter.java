@@ -39,7 +39,6 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLEncoder;
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.text.DecimalFormat;
 import java.util.*;
@@ -116,6 +115,12 @@ public final class HuobiExchangeAdapter extends AbstractExchangeAdapter implemen
 
     private static final Logger LOG = LogManager.getLogger();
 
+    /**
+     * The authenticated API methods that create and cancel orders. They jump the queue if the adapter is rate
+     * limited.
+     */
+    private static final Set<String> ORDER_API_METHODS = new HashSet<>(Arrays.asList("buy", "sell", "cancel_order"));
+
     /**
      * The version of the Huobi API being used.
      */
@@ -198,10 +203,10 @@ public final class HuobiExchangeAdapter extends AbstractExchangeAdapter implemen
     private String secret = "";
 
     /**
-     * The Message Digest generator used by the secure messaging layer.
+     * Creates the Message Digest used by the secure messaging layer.
      * Used to create the hash of the entire message with the private key to ensure message integrity.
      */
-    private MessageDigest messageDigest;
+    private RequestSigner requestSigner;
 
     /**
      * GSON engine used for parsing JSON in Huobi API call responses.
@@ -411,6 +416,14 @@ public final class HuobiExchangeAdapter extends AbstractExchangeAdapter implemen
 
     @Override
     public MarketOrderBook getMarketOrders(String marketId) throws TradingApiException, ExchangeNetworkException {
+        return getMarketOrders(marketId, OrderBookJsonReader.ALL_PRICE_LEVELS);
+    }
+
+    @Override
+    public MarketOrderBook getMarketOrders(String marketId, int depth)
+            throws TradingApiException, ExchangeNetworkException {
+
+        assertValidOrderBookDepth(depth);
 
         try {
 
@@ -427,34 +440,13 @@ public final class HuobiExchangeAdapter extends AbstractExchangeAdapter implemen
                 throw new IllegalArgumentException(errorMsg);
             }
 
-            final ExchangeHttpResponse response = sendPublicRequestToExchange(apiCall);
-            LOG.debug(() -> "Market Orders response: " + response);
-
-            final HuobiOrderBookWrapper orderBook = gson.fromJson(response.getPayload(), HuobiOrderBookWrapper.class);
-
-            // adapt BUYs
-            final List<MarketOrder> buyOrders = new ArrayList<>();
-            for (HuobiMarketOrder okCoinBuyOrder : orderBook.buys) {
-                final MarketOrder buyOrder = new MarketOrder(
-                        OrderType.BUY,
-                        okCoinBuyOrder.price,
-                        okCoinBuyOrder.amount,
-                        okCoinBuyOrder.price.multiply(okCoinBuyOrder.amount));
-                buyOrders.add(buyOrder);
-            }
+            final ResponseBodyReader<MarketOrderBook> orderBookReader = responseBody ->
+                    OrderBookJsonReader.readOrderBook(responseBody, marketId, "buys", "sells", depth);
 
-            // adapt SELLs
-            final List<MarketOrder> sellOrders = new ArrayList<>();
-            for (HuobiMarketOrder okCoinSellOrder : orderBook.sells) {
-                final MarketOrder sellOrder = new MarketOrder(
-                        OrderType.SELL,
-                        okCoinSellOrder.price,
-                        okCoinSellOrder.amount,
-                        okCoinSellOrder.price.multiply(okCoinSellOrder.amount));
-                sellOrders.add(sellOrder);
-            }
+            final ExchangeHttpResponse response = sendPublicRequestToExchange(apiCall, orderBookReader);
+            LOG.debug(() -> "Market Orders response: " + response);
 
-            return new MarketOrderBook(marketId, sellOrders, buyOrders);
+            return response.readPayload(orderBookReader);
 
         } catch (ExchangeNetworkException | TradingApiException e) {
             throw e;
@@ -640,106 +632,6 @@ public final class HuobiExchangeAdapter extends AbstractExchangeAdapter implemen
         }
     }
 
-    /**
-     * GSON class for REST Order Book (detail_btc_json.js) API call response.
-     * <p>
-     * This one is a bit crazy...
-     */
-    private static class HuobiOrderBookWrapper {
-
-        public BigDecimal total;
-        public BigDecimal p_high;
-        public BigDecimal p_open;
-        public BigDecimal p_new;
-        public BigDecimal p_low;
-        public List<HuobiTopMarketOrder> top_buy;
-        public List<HuobiMarketOrder> buys;
-        public List<HuobiTopMarketOrder> top_sell;
-        public BigDecimal amount;
-        public BigDecimal level;
-        public List<HuobiMarketOrder> sells;
-        public List<HuobiTrade> trades;
-        public BigDecimal amp;
-        public BigDecimal p_last;
-
-        @Override
-        public String toString() {
-            return MoreObjects.toStringHelper(this)
-                    .add("total", total)
-                    .add("p_high", p_high)
-                    .add("p_open", p_open)
-                    .add("p_new", p_new)
-                    .add("p_low", p_low)
-                    .add("top_buy", top_buy)
-                    .add("buys", buys)
-                    .add("top_sell", top_sell)
-                    .add("amount", amount)
-                    .add("level", level)
-                    .add("sells", sells)
-                    .add("trades", trades)
-                    .add("amp", amp)
-                    .add("p_last", p_last)
-                    .toString();
-        }
-    }
-
-    /**
-     * GSON class for holding Huobi Market Order.
-     */
-    private static class HuobiMarketOrder {
-
-        public BigDecimal amount;
-        public BigDecimal level;
-        public BigDecimal price;
-
-        @Override
-        public String toString() {
-            return MoreObjects.toStringHelper(this)
-                    .add("amount", amount)
-                    .add("level", level)
-                    .add("price", price)
-                    .toString();
-        }
-    }
-
-    /**
-     * GSON class for holding Huobi top Market Order.
-     */
-    private static class HuobiTopMarketOrder extends HuobiMarketOrder {
-
-        public BigDecimal accu;
-
-        @Override
-        public String toString() {
-            return MoreObjects.toStringHelper(this)
-                    .add("accu", accu)
-                    .toString();
-        }
-    }
-
-    /**
-     * GSON class for holding Huobi Trade.
-     */
-    private static class HuobiTrade {
-
-        public BigDecimal amount;
-        public String time;
-        public BigDecimal price;
-        public String en_type; // e.g 'bid'
-        public String type; // e.g. "买入"
-
-        @Override
-        public String toString() {
-            return MoreObjects.toStringHelper(this)
-                    .add("amount", amount)
-                    .add("time", time)
-                    .add("price", price)
-                    .add("en_type", en_type)
-                    .add("type", type)
-                    .toString();
-        }
-    }
-
     /**
      * GSON class for REST candlestick (ticker_btc_json.js) API call response.
      */
@@ -929,6 +821,25 @@ public final class HuobiExchangeAdapter extends AbstractExchangeAdapter implemen
      */
     private AbstractExchangeAdapter.ExchangeHttpResponse sendPublicRequestToExchange(String apiMethod)
             throws ExchangeNetworkException, TradingApiException {
+        return sendPublicRequestToExchange(apiMethod, null);
+    }
+
+    /**
+     * <p>
+     * Makes a public API call to the Huobi exchange and parses a successful
+     * response body as it is read off the wire.
+     * </p>
+     *
+     * @param apiMethod         the API method to call.
+     * @param successBodyReader reader for a successful response body.
+     * @return the response from the exchange. Use {@link ExchangeHttpResponse#readPayload(ResponseBodyReader)}
+     * to get the parsed body.
+     * @throws ExchangeNetworkException if there is a network issue connecting to exchange.
+     * @throws TradingApiException      if anything unexpected happens.
+     */
+    private AbstractExchangeAdapter.ExchangeHttpResponse sendPublicRequestToExchange(String apiMethod,
+            ResponseBodyReader<?> successBodyReader)
+            throws ExchangeNetworkException, TradingApiException {
 
         // Request headers required by Exchange
         final Map<String, String> requestHeaders = new HashMap<>();
@@ -937,7 +848,7 @@ public final class HuobiExchangeAdapter extends AbstractExchangeAdapter implemen
         try {
 
             final URL url = new URL(PUBLIC_API_BASE_URL + apiMethod);
-            return sendNetworkRequest(url, "GET", null, requestHeaders);
+            return sendNetworkRequest(url, "GET", null, requestHeaders, RequestPriority.MARKET_DATA, successBodyReader);
 
         } catch (MalformedURLException e) {
             final String errorMsg = UNEXPECTED_IO_ERROR_MSG;
@@ -1003,7 +914,7 @@ public final class HuobiExchangeAdapter extends AbstractExchangeAdapter implemen
 
             final String sortedQueryString = createAlphabeticallySortedQueryString(signatureParams);
 
-            final String signature = createMd5HashAndReturnAsLowerCaseString(sortedQueryString);
+            final String signature = requestSigner.begin().append(sortedQueryString).digest("MD5").toHexString();
             signatureParams.put("sign", signature);
 
             // IMPORTANT - remove secret key from params after creating signature.
@@ -1041,7 +952,9 @@ public final class HuobiExchangeAdapter extends AbstractExchangeAdapter implemen
             requestHeaders.put("Content-Type", "application/x-www-form-urlencoded");
 
             final URL url = new URL(AUTHENTICATED_API_URL);
-            return sendNetworkRequest(url, "POST", payloadBuilder.toString(), requestHeaders);
+            final RequestPriority priority = ORDER_API_METHODS.contains(apiMethod)
+                    ? RequestPriority.ORDER : RequestPriority.ACCOUNT;
+            return sendNetworkRequest(url, "POST", payloadBuilder.toString(), requestHeaders, priority);
 
         } catch (MalformedURLException e) {
 
@@ -1051,30 +964,6 @@ public final class HuobiExchangeAdapter extends AbstractExchangeAdapter implemen
         }
     }
 
-    /**
-     * Creates an MD5 hash for a given string and returns the hash as an lowercase string.
-     *
-     * @param stringToHash the string to create the MD5 hash for.
-     * @return the MD5 hash as an lowercase string.
-     */
-    private String createMd5HashAndReturnAsLowerCaseString(String stringToHash) {
-
-        final char[] HEX_DIGITS = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
-
-        if (stringToHash == null || stringToHash.isEmpty()) {
-            return "";
-        }
-
-        messageDigest.update(stringToHash.getBytes());
-        final byte[] md5HashInBytes = messageDigest.digest();
-
-        final StringBuilder md5HashAsLowerCaseString = new StringBuilder();
-        for (final byte md5HashByte : md5HashInBytes) {
-            md5HashAsLowerCaseString.append(HEX_DIGITS[(md5HashByte & 0xf0) >> 4]).append("").append(HEX_DIGITS[md5HashByte & 0xf]);
-        }
-        return md5HashAsLowerCaseString.toString();
-    }
-
     /**
      * Initialises the secure messaging layer
      * Sets up the Message Digest to safeguard the data we send to the exchange.
@@ -1083,7 +972,7 @@ public final class HuobiExchangeAdapter extends AbstractExchangeAdapter implemen
     private void initSecureMessageLayer() {
 
         try {
-            messageDigest = MessageDigest.getInstance("MD5");
+            requestSigner = RequestSigner.forDigest("MD5");
             initializedSecureMessagingLayer = true;
         } catch (NoSuchAlgorithmException e) {
             final String errorMsg = "Failed to setup MessageDigest for secure message layer. Details: " + e.getMessage();
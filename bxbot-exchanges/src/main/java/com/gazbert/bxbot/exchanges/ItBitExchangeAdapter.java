@@ -34,9 +34,6 @@ import com.google.gson.GsonBuilder;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-import javax.xml.bind.DatatypeConverter;
 import java.io.UnsupportedEncodingException;
 import java.math.BigDecimal;
 import java.net.HttpURLConnection;
@@ -44,7 +41,6 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.security.InvalidKeyException;
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.text.DecimalFormat;
 import java.time.Instant;
@@ -156,9 +152,9 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
     private static final String SELL_FEE_PROPERTY_NAME = "sell-fee";
 
     /**
-     * Nonce used for sending authenticated messages to the exchange.
+     * Hands out the nonces used for sending authenticated messages to the exchange.
      */
-    private static long nonce = 0;
+    private NonceService nonceService;
 
     /**
      * The UUID of the wallet in use on the exchange.
@@ -196,10 +192,10 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
     private String secret = "";
 
     /**
-     * Provides the "Message Authentication Code" (MAC) algorithm used for the secure messaging layer.
+     * Signs the secure messages using the "Message Authentication Code" (MAC) algorithm.
      * Used to encrypt the hash of the entire message with the private key to ensure message integrity.
      */
-    private Mac mac;
+    private RequestSigner requestSigner;
 
     /**
      * GSON engine used for parsing JSON in itBit API call responses.
@@ -215,7 +211,6 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
         setNetworkConfig(config);
         setOtherConfig(config);
 
-        nonce = System.currentTimeMillis() / 1000; // set the initial nonce used in the secure messaging.
         initSecureMessageLayer();
         initGson();
     }
@@ -409,40 +404,29 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
 
     @Override
     public MarketOrderBook getMarketOrders(String marketId) throws TradingApiException, ExchangeNetworkException {
+        return getMarketOrders(marketId, OrderBookJsonReader.ALL_PRICE_LEVELS);
+    }
+
+    @Override
+    public MarketOrderBook getMarketOrders(String marketId, int depth)
+            throws TradingApiException, ExchangeNetworkException {
+
+        assertValidOrderBookDepth(depth);
 
         ExchangeHttpResponse response = null;
 
         try {
-            response = sendPublicRequestToExchange("/markets/" + marketId + "/order_book");
+            final ResponseBodyReader<MarketOrderBook> orderBookReader = responseBody ->
+                    OrderBookJsonReader.readOrderBook(responseBody, marketId, "bids", "asks", depth);
+
+            response = sendPublicRequestToExchange("/markets/" + marketId + "/order_book", orderBookReader);
             if (LOG.isDebugEnabled()) {
                 LOG.debug("Market Orders response: " + response);
             }
 
             if (response.getStatusCode() == HttpURLConnection.HTTP_OK) {
 
-                final ItBitOrderBookWrapper orderBook = gson.fromJson(response.getPayload(), ItBitOrderBookWrapper.class);
-
-                final List<MarketOrder> buyOrders = new ArrayList<>();
-                for (ItBitMarketOrder itBitBuyOrder : orderBook.bids) {
-                    final MarketOrder buyOrder = new MarketOrder(
-                            OrderType.BUY,
-                            itBitBuyOrder.get(0),
-                            itBitBuyOrder.get(1),
-                            itBitBuyOrder.get(0).multiply(itBitBuyOrder.get(1)));
-                    buyOrders.add(buyOrder);
-                }
-
-                final List<MarketOrder> sellOrders = new ArrayList<>();
-                for (ItBitMarketOrder itBitSellOrder : orderBook.asks) {
-                    final MarketOrder sellOrder = new MarketOrder(
-                            OrderType.SELL,
-                            itBitSellOrder.get(0),
-                            itBitSellOrder.get(1),
-                            itBitSellOrder.get(0).multiply(itBitSellOrder.get(1)));
-                    sellOrders.add(sellOrder);
-                }
-
-                return new MarketOrderBook(marketId, sellOrders, buyOrders);
+                return response.readPayload(orderBookReader);
             } else {
                 final String errorMsg = "Failed to get market order book from exchange. Details: " + response;
                 LOG.error(errorMsg);
@@ -646,31 +630,6 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
     private static class ItBitOrderMetadata {
     }
 
-    /**
-     * GSON class for holding itBit ticker returned from:
-     * "Get Order Book" /markets/{tickerSymbol}/order_book API call.
-     */
-    private static class ItBitOrderBookWrapper {
-
-        public List<ItBitMarketOrder> bids;
-        public List<ItBitMarketOrder> asks;
-
-        @Override
-        public String toString() {
-            return MoreObjects.toStringHelper(this)
-                    .add("bids", bids)
-                    .add("asks", asks)
-                    .toString();
-        }
-    }
-
-    /**
-     * GSON class for holding Market Orders. First element in array is price, second element is amount.
-     */
-    private static class ItBitMarketOrder extends ArrayList<BigDecimal> {
-        private static final long serialVersionUID = -4959711260747077759L;
-    }
-
     /**
      * GSON class for holding itBit ticker returned from:
      * "Get Ticker" /markets/{tickerSymbol}/ticker API call.
@@ -774,6 +733,22 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
      * @throws TradingApiException      if anything unexpected happens.
      */
     private ExchangeHttpResponse sendPublicRequestToExchange(String apiMethod) throws ExchangeNetworkException, TradingApiException {
+        return sendPublicRequestToExchange(apiMethod, null);
+    }
+
+    /**
+     * Makes a public API call to the itBit exchange and parses a successful
+     * response body as it is read off the wire.
+     *
+     * @param apiMethod         the API method to call.
+     * @param successBodyReader reader for a successful response body.
+     * @return the response from the exchange. Use {@link ExchangeHttpResponse#readPayload(ResponseBodyReader)}
+     * to get the parsed body.
+     * @throws ExchangeNetworkException if there is a network issue connecting to exchange.
+     * @throws TradingApiException      if anything unexpected happens.
+     */
+    private ExchangeHttpResponse sendPublicRequestToExchange(String apiMethod, ResponseBodyReader<?> successBodyReader)
+            throws ExchangeNetworkException, TradingApiException {
 
         // Request headers required by Exchange
         final Map<String, String> requestHeaders = new HashMap<>();
@@ -782,7 +757,7 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
         try {
 
             final URL url = new URL(PUBLIC_API_BASE_URL + apiMethod);
-            return sendNetworkRequest(url, "GET", null, requestHeaders);
+            return sendNetworkRequest(url, "GET", null, requestHeaders, RequestPriority.MARKET_DATA, successBodyReader);
 
         } catch (MalformedURLException e) {
             final String errorMsg = UNEXPECTED_IO_ERROR_MSG;
@@ -822,8 +797,8 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
             // Generate new UNIX time in secs
             final String unixTime = Long.toString(System.currentTimeMillis());
 
-            // increment nonce for use in this call
-            nonce++;
+            // get the nonce for use in this call
+            final long nonce = nonceService.nextNonce();
 
             if (params == null) {
                 // create empty map for non-param API calls
@@ -909,21 +884,14 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
             final String signatureParamsInJson = gson.toJson(signatureParamList);
             LOG.debug(() -> "Signature params in JSON: " + signatureParamsInJson);
 
-            // Prepend the string version of the nonce to the JSON-encoded array string
-            final String noncePrependedToJson = Long.toString(nonce) + signatureParamsInJson;
-
+            // Prepend the string version of the nonce to the JSON-encoded array string.
             // Construct the SHA-256 hash of the noncePrependedToJson. Call this the message hash.
-            final MessageDigest md = MessageDigest.getInstance("SHA-256");
-            md.update(noncePrependedToJson.getBytes());
-            final byte[] messageHash = md.digest();
+            final RequestSigner.Payload message =
+                    requestSigner.begin().append(nonce).append(signatureParamsInJson).digest("SHA-256");
 
             // Prepend the UTF-8 encoded request URL to the message hash.
             // Generate the SHA-512 HMAC of the prependRequestUrlToMsgHash using your API secret as the key.
-            mac.reset(); // force reset
-            mac.update(invocationUrl.getBytes());
-            mac.update(messageHash);
-
-            final String signature = DatatypeConverter.printBase64Binary(mac.doFinal());
+            final String signature = message.prepend(invocationUrl).mac().toBase64String();
 
             // Request headers required by Exchange
             final Map<String, String> requestHeaders = new HashMap<>();
@@ -938,17 +906,14 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
             requestHeaders.put("X-Auth-Nonce", Long.toString(nonce));
 
             final URL url = new URL(invocationUrl);
-            return sendNetworkRequest(url, httpMethod, requestBody, requestHeaders);
+            // Orders are the only things we create (POST) or cancel (DELETE)
+            final RequestPriority priority = "GET".equals(httpMethod) ? RequestPriority.ACCOUNT : RequestPriority.ORDER;
+            return sendNetworkRequest(url, httpMethod, requestBody, requestHeaders, priority);
 
         } catch (MalformedURLException e) {
             final String errorMsg = UNEXPECTED_IO_ERROR_MSG;
             LOG.error(errorMsg, e);
             throw new TradingApiException(errorMsg, e);
-
-        } catch (NoSuchAlgorithmException e) {
-            final String errorMsg = "Failed to create SHA-256 digest when building message signature.";
-            LOG.error(errorMsg, e);
-            throw new TradingApiException(errorMsg, e);
         }
     }
 
@@ -960,9 +925,7 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
     private void initSecureMessageLayer() {
 
         try {
-            final SecretKeySpec keyspec = new SecretKeySpec(secret.getBytes("UTF-8"), "HmacSHA512");
-            mac = Mac.getInstance("HmacSHA512");
-            mac.init(keyspec);
+            requestSigner = RequestSigner.forMac("HmacSHA512", secret.getBytes("UTF-8"));
             initializedMACAuthentication = true;
         } catch (UnsupportedEncodingException | NoSuchAlgorithmException e) {
             final String errorMsg = "Failed to setup MAC security. HINT: Is HMAC-SHA512 installed?";
@@ -998,6 +961,9 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
         final String sellFeeInConfig = getOtherConfigItem(otherConfig, SELL_FEE_PROPERTY_NAME);
         sellFeePercentage = new BigDecimal(sellFeeInConfig).divide(new BigDecimal("100"), 8, BigDecimal.ROUND_HALF_UP);
         LOG.info(() -> "Sell fee % in BigDecimal format: " + sellFeePercentage);
+
+        // optional - nonces are only persisted if a nonce-file is set
+        nonceService = getNonceService(otherConfig, key);
     }
 
     // ------------------------------------------------------------------------------------------------
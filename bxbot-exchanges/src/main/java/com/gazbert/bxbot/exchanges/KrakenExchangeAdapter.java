@@ -31,17 +31,16 @@ import com.gazbert.bxbot.trading.api.*;
 import com.google.common.base.MoreObjects;
 import com.google.gson.*;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-import java.io.UnsupportedEncodingException;
+import java.io.IOException;
+import java.io.Reader;
 import java.lang.reflect.Type;
 import java.math.BigDecimal;
 import java.net.*;
 import java.security.InvalidKeyException;
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.text.DecimalFormat;
 import java.util.*;
@@ -97,6 +96,12 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter impleme
 
     private static final Logger LOG = LogManager.getLogger();
 
+    /**
+     * The authenticated API methods that create and cancel orders. They jump the queue if the adapter is rate
+     * limited.
+     */
+    private static final Set<String> ORDER_API_METHODS = new HashSet<>(Arrays.asList("AddOrder", "CancelOrder"));
+
     /**
      * The base URI for all Kraken API calls.
      */
@@ -188,9 +193,9 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter impleme
     private static final String SELL_FEE_PROPERTY_NAME = "sell-fee";
 
     /**
-     * Nonce used for sending authenticated messages to the exchange.
+     * Hands out the nonces used for sending authenticated messages to the exchange.
      */
-    private static long nonce = 0;
+    private NonceService nonceService;
 
     /**
      * Exchange buy fees in % in {@link BigDecimal} format.
@@ -218,10 +223,10 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter impleme
     private String secret = "";
 
     /**
-     * Provides the "Message Authentication Code" (MAC) algorithm used for the secure messaging layer.
+     * Signs the secure messages using the "Message Authentication Code" (MAC) algorithm.
      * Used to encrypt the hash of the entire message with the private key to ensure message integrity.
      */
-    private Mac mac;
+    private RequestSigner requestSigner;
 
     /**
      * GSON engine used for parsing JSON in Kraken API call responses.
@@ -237,7 +242,6 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter impleme
         setNetworkConfig(config);
         setOtherConfig(config);
 
-        nonce = System.currentTimeMillis() / 1000; // set the initial nonce used in the secure messaging.
         initSecureMessageLayer();
         initGson();
     }
@@ -249,50 +253,39 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter impleme
 
     @Override
     public MarketOrderBook getMarketOrders(String marketId) throws TradingApiException, ExchangeNetworkException {
+        return getMarketOrders(marketId, OrderBookJsonReader.ALL_PRICE_LEVELS);
+    }
+
+    @Override
+    public MarketOrderBook getMarketOrders(String marketId, int depth)
+            throws TradingApiException, ExchangeNetworkException {
+
+        assertValidOrderBookDepth(depth);
 
         try {
 
             final Map<String, String> params = getRequestParamMap();
             params.put("pair", marketId);
+            if (depth != OrderBookJsonReader.ALL_PRICE_LEVELS) {
+                params.put("count", String.valueOf(depth));
+            }
+
+            final ResponseBodyReader<KrakenResponse<MarketOrderBook>> orderBookReader = responseBody ->
+                    readMarketOrderBookResponse(responseBody, marketId, depth);
 
-            final ExchangeHttpResponse response = sendPublicRequestToExchange("Depth", params);
+            final ExchangeHttpResponse response = sendPublicRequestToExchange("Depth", params, orderBookReader);
             LOG.debug(() -> "Market Orders response: " + response);
 
             if (response.getStatusCode() == HttpURLConnection.HTTP_OK) {
 
-                final Type resultType = new TypeToken<KrakenResponse<KrakenMarketOrderBookResult>>() {}.getType();
-                final KrakenResponse krakenResponse = gson.fromJson(response.getPayload(), resultType);
+                final KrakenResponse<MarketOrderBook> krakenResponse = response.readPayload(orderBookReader);
 
                 final List<String> errors = krakenResponse.error;
                 if (errors == null || errors.isEmpty()) {
 
-                    // Assume we'll always get something here if errors array is empty; else blow fast wih NPE
-                    final KrakenMarketOrderBookResult krakenOrderBookResult = (KrakenMarketOrderBookResult) krakenResponse.result;
-
-                    final KrakenOrderBook krakenOrderBook = krakenOrderBookResult.get(marketId);
-                    if (krakenOrderBook != null) {
-
-                        final List<MarketOrder> buyOrders = new ArrayList<>();
-                        for (KrakenMarketOrder krakenBuyOrder : krakenOrderBook.bids) {
-                            final MarketOrder buyOrder = new MarketOrder(
-                                    OrderType.BUY,
-                                    krakenBuyOrder.get(0),
-                                    krakenBuyOrder.get(1),
-                                    krakenBuyOrder.get(0).multiply(krakenBuyOrder.get(1)));
-                            buyOrders.add(buyOrder);
-                        }
-
-                        final List<MarketOrder> sellOrders = new ArrayList<>();
-                        for (KrakenMarketOrder krakenSellOrder : krakenOrderBook.asks) {
-                            final MarketOrder sellOrder = new MarketOrder(
-                                    OrderType.SELL,
-                                    krakenSellOrder.get(0),
-                                    krakenSellOrder.get(1),
-                                    krakenSellOrder.get(0).multiply(krakenSellOrder.get(1)));
-                            sellOrders.add(sellOrder);
-                        }
-
-                        return new MarketOrderBook(marketId, sellOrders, buyOrders);
+                    final MarketOrderBook orderBook = krakenResponse.result;
+                    if (orderBook != null) {
+                        return orderBook;
 
                     } else {
                         final String errorMsg = FAILED_TO_GET_MARKET_ORDERS + response;
@@ -664,12 +657,6 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter impleme
         }
     }
 
-    /**
-     * GSON class that wraps Depth API call result - the Market Order Book.
-     */
-    private static class KrakenMarketOrderBookResult extends HashMap<String, KrakenOrderBook> {
-    }
-
     /**
      * GSON class that wraps a Balance API call result.
      */
@@ -813,31 +800,6 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter impleme
         }
     }
 
-    /**
-     * GSON class for a Market Order Book.
-     */
-    private static class KrakenOrderBook {
-
-        public List<KrakenMarketOrder> bids;
-        public List<KrakenMarketOrder> asks;
-
-        @Override
-        public String toString() {
-            return MoreObjects.toStringHelper(this)
-                    .add("bids", bids)
-                    .add("asks", asks)
-                    .toString();
-        }
-    }
-
-    /**
-     * GSON class for holding Market Orders.
-     * First element in array is price, second element is amount, 3rd is UNIX time.
-     */
-    private static class KrakenMarketOrder extends ArrayList<BigDecimal> {
-        private static final long serialVersionUID = -4959711260742077759L;
-    }
-
     /**
      * Custom GSON Deserializer for Ticker API call result.
      * <p>
@@ -894,6 +856,24 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter impleme
      */
     private ExchangeHttpResponse sendPublicRequestToExchange(String apiMethod, Map<String, String> params)
             throws ExchangeNetworkException, TradingApiException {
+        return sendPublicRequestToExchange(apiMethod, params, null);
+    }
+
+    /**
+     * Makes a public API call to the Kraken exchange and parses a successful
+     * response body as it is read off the wire.
+     *
+     * @param apiMethod         the API method to call.
+     * @param params            any (optional) query param args to use in the API call.
+     * @param successBodyReader reader for a successful response body.
+     * @return the response from the exchange. Use {@link ExchangeHttpResponse#readPayload(ResponseBodyReader)}
+     * to get the parsed body.
+     * @throws ExchangeNetworkException if there is a network issue connecting to exchange.
+     * @throws TradingApiException      if anything unexpected happens.
+     */
+    private ExchangeHttpResponse sendPublicRequestToExchange(String apiMethod, Map<String, String> params,
+            ResponseBodyReader<?> successBodyReader)
+            throws ExchangeNetworkException, TradingApiException {
 
         if (params == null) {
             params = new HashMap<>(); // no params, so empty query string
@@ -916,7 +896,7 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter impleme
         try {
 
             final URL url = new URL(PUBLIC_API_BASE_URL + apiMethod + queryString);
-            return sendNetworkRequest(url, "GET", null, requestHeaders);
+            return sendNetworkRequest(url, "GET", null, requestHeaders, RequestPriority.MARKET_DATA, successBodyReader);
 
         } catch (MalformedURLException e) {
             final String errorMsg = UNEXPECTED_IO_ERROR_MSG;
@@ -969,7 +949,7 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter impleme
 
             // The nonce is required by Kraken in every request.
             // It MUST be incremented each time and the nonce param MUST match the value used in signature.
-            nonce++;
+            final long nonce = nonceService.nextNonce();
             params.put("nonce", Long.toString(nonce));
 
             // Current adapter does not support optional 2FA
@@ -987,21 +967,15 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter impleme
 
             // And now the tricky part... ;-o
 
-            final byte[] pathInBytes = ("/" + KRAKEN_API_VERSION + KRAKEN_PRIVATE_PATH + apiMethod).getBytes("UTF-8");
-            final String noncePrependedToPostData = Long.toString(nonce) + postData;
-
             // Create sha256 hash of nonce and post data:
-            final MessageDigest md = MessageDigest.getInstance("SHA-256");
-            md.update(noncePrependedToPostData.getBytes("UTF-8"));
-            final byte[] messageHash = md.digest();
+            final RequestSigner.Payload message =
+                    requestSigner.begin().append(nonce).append(postData).digest("SHA-256");
 
             // Create hmac_sha512 digest of path and previous sha256 hash
-            mac.reset(); // force reset
-            mac.update(pathInBytes);
-            mac.update(messageHash);
+            message.prepend("/" + KRAKEN_API_VERSION + KRAKEN_PRIVATE_PATH + apiMethod).mac();
 
             // Signature in Base64
-            final String signature = Base64.getEncoder().encodeToString(mac.doFinal());
+            final String signature = message.toBase64String();
 
             // Request headers required by Exchange
             final Map<String, String> requestHeaders = new HashMap<>();
@@ -1010,9 +984,11 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter impleme
             requestHeaders.put("API-Sign", signature);
 
             final URL url = new URL(AUTHENTICATED_API_URL + apiMethod);
-            return sendNetworkRequest(url, "POST", postData, requestHeaders);
+            final RequestPriority priority = ORDER_API_METHODS.contains(apiMethod)
+                    ? RequestPriority.ORDER : RequestPriority.ACCOUNT;
+            return sendNetworkRequest(url, "POST", postData, requestHeaders, priority);
 
-        } catch (MalformedURLException | NoSuchAlgorithmException | UnsupportedEncodingException e) {
+        } catch (MalformedURLException e) {
 
             final String errorMsg = UNEXPECTED_IO_ERROR_MSG;
             LOG.error(errorMsg, e);
@@ -1031,9 +1007,7 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter impleme
             // Kraken secret key is in Base64, so we need to decode it first
             final byte[] base64DecodedSecret = Base64.getDecoder().decode(secret);
 
-            final SecretKeySpec keyspec = new SecretKeySpec(base64DecodedSecret, "HmacSHA512");
-            mac = Mac.getInstance("HmacSHA512");
-            mac.init(keyspec);
+            requestSigner = RequestSigner.forMac("HmacSHA512", base64DecodedSecret);
             initializedMACAuthentication = true;
         } catch (NoSuchAlgorithmException e) {
             final String errorMsg = "Failed to setup MAC security. HINT: Is HmacSHA512 installed?";
@@ -1067,6 +1041,9 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter impleme
         final String sellFeeInConfig = getOtherConfigItem(otherConfig, SELL_FEE_PROPERTY_NAME);
         sellFeePercentage = new BigDecimal(sellFeeInConfig).divide(new BigDecimal("100"), 8, BigDecimal.ROUND_HALF_UP);
         LOG.info(() -> "Sell fee % in BigDecimal format: " + sellFeePercentage);
+
+        // optional - nonces are only persisted if a nonce-file is set
+        nonceService = getNonceService(otherConfig, key);
     }
 
     // ------------------------------------------------------------------------------------------------
@@ -1082,6 +1059,37 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter impleme
         gson = gsonBuilder.create();
     }
 
+    /*
+     * Streams the Depth response: {"error": [...], "result": {"XXBTZUSD": {"asks": [...], "bids": [...]}}}
+     * The result is null if the market is missing from the response.
+     */
+    private static KrakenResponse<MarketOrderBook> readMarketOrderBookResponse(Reader responseBody, String marketId,
+                                                                               int maxLevels) throws IOException {
+
+        final KrakenResponse<MarketOrderBook> krakenResponse = new KrakenResponse<>();
+        final JsonReader jsonReader = new JsonReader(responseBody);
+
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            final String fieldName = jsonReader.nextName();
+            if (fieldName.equals("error")) {
+                krakenResponse.error = new ArrayList<>();
+                jsonReader.beginArray();
+                while (jsonReader.hasNext()) {
+                    krakenResponse.error.add(jsonReader.nextString());
+                }
+                jsonReader.endArray();
+            } else if (fieldName.equals("result")) {
+                krakenResponse.result = OrderBookJsonReader.readOrderBookField(jsonReader, marketId, marketId, "bids",
+                        "asks", maxLevels);
+            } else {
+                jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+        return krakenResponse;
+    }
+
     /*
      * Hack for unit-testing map params passed to transport layer.
      */
@@ -0,0 +1,173 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out the nonces used to sign authenticated API calls.
+ * <p>
+ * There is one service per API key, shared by every adapter instance in the JVM that uses that key, so two adapters
+ * (or two threads in one adapter) can never send the same nonce. Nonces are taken from an {@link AtomicLong}: no
+ * locks are held on the normal path and every call gets a higher value than the one before it.
+ * <p>
+ * The first nonce is seeded from the clock in seconds, as the adapters have always done. If a high-water mark file is
+ * configured, the service also starts above the highest nonce reserved by the previous run, so a restart never reuses
+ * a nonce even when the bot has been issuing them faster than one a second. Nonces are reserved in blocks of
+ * {@value #RESERVED_BLOCK_SIZE} so the file is only written once per block.
+ * <p>
+ * Note the exchanges also expect nonces to <em>arrive</em> in increasing order; calls sent concurrently can still
+ * overtake each other on the wire. Exchanges like Kraken let you set a nonce window on the API key to allow for this.
+ *
+ * @author gazbert
+ * @since 1.0
+ */
+final class NonceService {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * Number of nonces reserved each time the high-water mark is written.
+     */
+    static final int RESERVED_BLOCK_SIZE = 1000;
+
+    private static final String HIGH_WATER_MARK_WRITE_FAILED = "Failed to write nonce high-water mark to: ";
+    private static final String HIGH_WATER_MARK_READ_FAILED = "Failed to read nonce high-water mark from: ";
+
+    private static final ConcurrentMap<String, NonceService> NONCE_SERVICES_BY_API_KEY = new ConcurrentHashMap<>();
+
+    private final AtomicLong lastNonce;
+    private final Path highWaterMarkFile;
+    private volatile long reservedUpTo;
+
+
+    private NonceService(long initialNonce, Path highWaterMarkFile) {
+        this.lastNonce = new AtomicLong(initialNonce - 1);
+        this.highWaterMarkFile = highWaterMarkFile;
+        this.reservedUpTo = highWaterMarkFile == null ? Long.MAX_VALUE : initialNonce - 1;
+    }
+
+    /**
+     * Returns the nonce service for an API key, creating it on first use.
+     *
+     * @param apiKey            the API key the nonces are used with.
+     * @param highWaterMarkFile file to persist the highest reserved nonce to; null to not persist it. Only used when
+     *                          the service is created - the first adapter to ask for a key decides where it is kept.
+     * @return the nonce service for the key.
+     * @throws IllegalStateException if the high-water mark file exists but cannot be read.
+     */
+    static NonceService forApiKey(String apiKey, Path highWaterMarkFile) {
+
+        Objects.requireNonNull(apiKey, "apiKey");
+        final NonceService nonceService = NONCE_SERVICES_BY_API_KEY.computeIfAbsent(apiKey,
+                key -> new NonceService(initialNonce(highWaterMarkFile), highWaterMarkFile));
+
+        if (highWaterMarkFile != null && !highWaterMarkFile.equals(nonceService.highWaterMarkFile)) {
+            LOG.warn("Nonce service for this API key is already in use with high-water mark file: "
+                    + nonceService.highWaterMarkFile + " - ignoring: " + highWaterMarkFile);
+        }
+        return nonceService;
+    }
+
+    /**
+     * Returns the next nonce. It is higher than any nonce returned before, by this service or a previous run using the
+     * same high-water mark file.
+     *
+     * @return the next nonce.
+     * @throws IllegalStateException if a new block of nonces had to be reserved and the high-water mark could not be
+     *                               written. No nonce is handed out that has not been reserved.
+     */
+    long nextNonce() {
+        final long nonce = lastNonce.incrementAndGet();
+        if (nonce > reservedUpTo) {
+            reserveUpTo(nonce);
+        }
+        return nonce;
+    }
+
+    /**
+     * Returns the last nonce handed out.
+     *
+     * @return the last nonce.
+     */
+    long getLastNonce() {
+        return lastNonce.get();
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private synchronized void reserveUpTo(long nonce) {
+
+        if (nonce <= reservedUpTo) {
+            return; // another thread reserved a block that covers it while we waited
+        }
+
+        final long newHighWaterMark = nonce + RESERVED_BLOCK_SIZE - 1;
+        try {
+            final Path tempFile = highWaterMarkFile.resolveSibling(highWaterMarkFile.getFileName() + ".tmp");
+            Files.write(tempFile, Long.toString(newHighWaterMark).getBytes(StandardCharsets.UTF_8));
+            Files.move(tempFile, highWaterMarkFile, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            reservedUpTo = newHighWaterMark;
+
+        } catch (IOException e) {
+            final String errorMsg = HIGH_WATER_MARK_WRITE_FAILED + highWaterMarkFile;
+            LOG.error(errorMsg, e);
+            throw new IllegalStateException(errorMsg, e);
+        }
+    }
+
+    private static long initialNonce(Path highWaterMarkFile) {
+
+        final long clockNonce = System.currentTimeMillis() / 1000;
+        if (highWaterMarkFile == null || !Files.exists(highWaterMarkFile)) {
+            return clockNonce;
+        }
+
+        try {
+            final String highWaterMark = new String(Files.readAllBytes(highWaterMarkFile), StandardCharsets.UTF_8);
+            final long lastReservedNonce = Long.parseLong(highWaterMark.trim());
+            LOG.info(() -> "Nonce high-water mark from previous run: " + lastReservedNonce);
+            return Math.max(clockNonce, lastReservedNonce + 1);
+
+        } catch (IOException | NumberFormatException e) {
+            final String errorMsg = HIGH_WATER_MARK_READ_FAILED + highWaterMarkFile;
+            LOG.error(errorMsg, e);
+            throw new IllegalStateException(errorMsg, e);
+        }
+    }
+}
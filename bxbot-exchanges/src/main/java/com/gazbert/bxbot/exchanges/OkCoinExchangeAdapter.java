@@ -39,7 +39,6 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLEncoder;
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.text.DecimalFormat;
 import java.util.*;
@@ -85,6 +84,12 @@ public final class OkCoinExchangeAdapter extends AbstractExchangeAdapter impleme
 
     private static final Logger LOG = LogManager.getLogger();
 
+    /**
+     * The authenticated API methods that create and cancel orders. They jump the queue if the adapter is rate
+     * limited.
+     */
+    private static final Set<String> ORDER_API_METHODS = new HashSet<>(Arrays.asList("trade.do", "cancel_order.do"));
+
     /**
      * The version of the OKCoin API being used.
      */
@@ -130,6 +135,11 @@ public final class OkCoinExchangeAdapter extends AbstractExchangeAdapter impleme
      */
     private static final String SELL_FEE_PROPERTY_NAME = "sell-fee";
 
+    /**
+     * Largest number of price levels the depth.do API call will return for each side of the book.
+     */
+    private static final int MAX_ORDER_BOOK_DEPTH = 200;
+
     /**
      * Exchange buy fees in % in {@link BigDecimal} format.
      */
@@ -156,10 +166,10 @@ public final class OkCoinExchangeAdapter extends AbstractExchangeAdapter impleme
     private String secret = "";
 
     /**
-     * The Message Digest generator used by the secure messaging layer.
+     * Creates the Message Digest used by the secure messaging layer.
      * Used to create the hash of the entire message with the private key to ensure message integrity.
      */
-    private MessageDigest messageDigest;
+    private RequestSigner requestSigner;
 
     /**
      * GSON engine used for parsing JSON in OKCoin API call responses.
@@ -320,36 +330,35 @@ public final class OkCoinExchangeAdapter extends AbstractExchangeAdapter impleme
 
     @Override
     public MarketOrderBook getMarketOrders(String marketId) throws TradingApiException, ExchangeNetworkException {
+        return getMarketOrders(marketId, OrderBookJsonReader.ALL_PRICE_LEVELS);
+    }
+
+    @Override
+    public MarketOrderBook getMarketOrders(String marketId, int depth)
+            throws TradingApiException, ExchangeNetworkException {
+
+        assertValidOrderBookDepth(depth);
 
         try {
 
             final Map<String, String> params = getRequestParamMap();
             params.put("symbol", marketId);
+            if (depth <= MAX_ORDER_BOOK_DEPTH) {
+                params.put("size", String.valueOf(depth));
+            }
+
+            // Asks are sent price descending, so all of them have to be read to find the best ones
+            final ResponseBodyReader<MarketOrderBook> orderBookReader = responseBody ->
+                    OrderBookJsonReader.readOrderBook(responseBody, marketId, "bids", "asks",
+                            OrderBookJsonReader.ALL_PRICE_LEVELS);
 
-            final ExchangeHttpResponse response = sendPublicRequestToExchange("depth.do", params);
+            final ExchangeHttpResponse response = sendPublicRequestToExchange("depth.do", params, orderBookReader);
             LOG.debug(() -> "Market Orders response: " + response);
 
-            final OKCoinDepthWrapper orderBook = gson.fromJson(response.getPayload(), OKCoinDepthWrapper.class);
+            final MarketOrderBook orderBook = response.readPayload(orderBookReader);
 
-            final List<MarketOrder> buyOrders = new ArrayList<>();
-            for (OKCoinMarketOrder okCoinBuyOrder : orderBook.bids) {
-                final MarketOrder buyOrder = new MarketOrder(
-                        OrderType.BUY,
-                        okCoinBuyOrder.get(0),
-                        okCoinBuyOrder.get(1),
-                        okCoinBuyOrder.get(0).multiply(okCoinBuyOrder.get(1)));
-                buyOrders.add(buyOrder);
-            }
-
-            final List<MarketOrder> sellOrders = new ArrayList<>();
-            for (OKCoinMarketOrder okCoinSellOrder : orderBook.asks) {
-                final MarketOrder sellOrder = new MarketOrder(
-                        OrderType.SELL,
-                        okCoinSellOrder.get(0),
-                        okCoinSellOrder.get(1),
-                        okCoinSellOrder.get(0).multiply(okCoinSellOrder.get(1)));
-                sellOrders.add(sellOrder);
-            }
+            final List<MarketOrder> sellOrders = orderBook.getSellOrders();
+            final List<MarketOrder> buyOrders = orderBook.getBuyOrders();
 
             // For some reason, OKCoin sorts ask orders in descending order instead of ascending.
             // We need to re-order price ascending - lowest ASK price will be first in list.
@@ -363,7 +372,8 @@ public final class OkCoinExchangeAdapter extends AbstractExchangeAdapter impleme
                 }
             });
 
-            return new MarketOrderBook(marketId, sellOrders, buyOrders);
+            return new MarketOrderBook(marketId, sellOrders.subList(0, Math.min(depth, sellOrders.size())),
+                    buyOrders.subList(0, Math.min(depth, buyOrders.size())));
 
         } catch (ExchangeNetworkException | TradingApiException e) {
             throw e;
@@ -538,30 +548,6 @@ public final class OkCoinExchangeAdapter extends AbstractExchangeAdapter impleme
         }
     }
 
-    /**
-     * GSON class for wrapping depth.do response.
-     */
-    private static class OKCoinDepthWrapper {
-
-        public List<OKCoinMarketOrder> asks;
-        public List<OKCoinMarketOrder> bids;
-
-        @Override
-        public String toString() {
-            return MoreObjects.toStringHelper(this)
-                    .add("asks", asks)
-                    .add("bids", bids)
-                    .toString();
-        }
-    }
-
-    /**
-     * GSON class for holding Market Orders. First element in array is price, second element is amount.
-     */
-    private static class OKCoinMarketOrder extends ArrayList<BigDecimal> {
-        private static final long serialVersionUID = -4919711260747077759L;
-    }
-
     /**
      * GSON class for wrapping userinfo.do response.
      */
@@ -710,6 +696,24 @@ public final class OkCoinExchangeAdapter extends AbstractExchangeAdapter impleme
      */
     private ExchangeHttpResponse sendPublicRequestToExchange(String apiMethod, Map<String, String> params) throws
             ExchangeNetworkException, TradingApiException {
+        return sendPublicRequestToExchange(apiMethod, params, null);
+    }
+
+    /**
+     * Makes a public API call to the OKCoin exchange and parses a successful
+     * response body as it is read off the wire.
+     *
+     * @param apiMethod         the API method to call.
+     * @param params            the query param args to use in the API call
+     * @param successBodyReader reader for a successful response body.
+     * @return the response from the exchange. Use {@link ExchangeHttpResponse#readPayload(ResponseBodyReader)}
+     * to get the parsed body.
+     * @throws ExchangeNetworkException if there is a network issue connecting to exchange.
+     * @throws TradingApiException      if anything unexpected happens.
+     */
+    private ExchangeHttpResponse sendPublicRequestToExchange(String apiMethod, Map<String, String> params,
+            ResponseBodyReader<?> successBodyReader)
+            throws ExchangeNetworkException, TradingApiException {
 
         if (params == null) {
             params = new HashMap<>(); // no params, so empty query string
@@ -732,7 +736,7 @@ public final class OkCoinExchangeAdapter extends AbstractExchangeAdapter impleme
         try {
 
             final URL url = new URL(PUBLIC_API_BASE_URL + apiMethod + queryString);
-            return sendNetworkRequest(url, "GET", null, requestHeaders);
+            return sendNetworkRequest(url, "GET", null, requestHeaders, RequestPriority.MARKET_DATA, successBodyReader);
 
         } catch (MalformedURLException e) {
             final String errorMsg = UNEXPECTED_IO_ERROR_MSG;
@@ -808,7 +812,8 @@ public final class OkCoinExchangeAdapter extends AbstractExchangeAdapter impleme
             // Add secret key to Query String
             sortedQueryString += "&secret_key=" + secret;
 
-            final String signature = createMd5HashAndReturnAsUpperCaseString(sortedQueryString);
+            final String signature =
+                    requestSigner.begin().append(sortedQueryString).digest("MD5").toUpperCaseHexString();
             params.put("sign", signature);
 
             // Build the payload with all the param args in it
@@ -827,7 +832,9 @@ public final class OkCoinExchangeAdapter extends AbstractExchangeAdapter impleme
             requestHeaders.put("Content-Type", "application/x-www-form-urlencoded");
 
             final URL url = new URL(AUTHENTICATED_API_URL + apiMethod);
-            return sendNetworkRequest(url, "POST", payload.toString(), requestHeaders);
+            final RequestPriority priority = ORDER_API_METHODS.contains(apiMethod)
+                    ? RequestPriority.ORDER : RequestPriority.ACCOUNT;
+            return sendNetworkRequest(url, "POST", payload.toString(), requestHeaders, priority);
 
         } catch (MalformedURLException e) {
             final String errorMsg = UNEXPECTED_IO_ERROR_MSG;
@@ -836,30 +843,6 @@ public final class OkCoinExchangeAdapter extends AbstractExchangeAdapter impleme
         }
     }
 
-    /**
-     * Creates an MD5 hash for a given string and returns the hash as an uppercase string.
-     *
-     * @param stringToHash the string to create the MD5 hash for.
-     * @return the MD5 hash as an uppercase string.
-     */
-    private String createMd5HashAndReturnAsUpperCaseString(String stringToHash) {
-
-        final char HEX_DIGITS[] = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'};
-
-        if (stringToHash == null || stringToHash.isEmpty()) {
-            return "";
-        }
-
-        messageDigest.update(stringToHash.getBytes());
-        final byte[] md5HashInBytes = messageDigest.digest();
-
-        final StringBuilder md5HashAsUpperCaseString = new StringBuilder();
-        for (final byte md5HashByte : md5HashInBytes) {
-            md5HashAsUpperCaseString.append(HEX_DIGITS[(md5HashByte & 0xf0) >> 4]).append("").append(HEX_DIGITS[md5HashByte & 0xf]);
-        }
-        return md5HashAsUpperCaseString.toString();
-    }
-
     /**
      * Initialises the secure messaging layer
      * Sets up the Message Digest to safeguard the data we send to the exchange.
@@ -868,7 +851,7 @@ public final class OkCoinExchangeAdapter extends AbstractExchangeAdapter impleme
     private void initSecureMessageLayer() {
 
         try {
-            messageDigest = MessageDigest.getInstance("MD5");
+            requestSigner = RequestSigner.forDigest("MD5");
             initializedSecureMessagingLayer = true;
         } catch (NoSuchAlgorithmException e) {
             final String errorMsg = "Failed to setup MessageDigest for secure message layer. Details: " + e.getMessage();
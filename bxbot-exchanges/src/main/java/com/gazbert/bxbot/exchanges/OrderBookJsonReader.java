@@ -0,0 +1,212 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.trading.api.MarketOrder;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Streaming parser for exchange order book responses.
+ * <p>
+ * The book is pulled token by token straight off the response body with a GSON {@link JsonReader}, so no
+ * intermediate String or GSON object tree is built. Once the requested number of price levels has been read for a
+ * side, the rest of that side is skipped without creating any objects.
+ * <p>
+ * Price levels can be arrays - [price, quantity, ...] as sent by Kraken, GDAX, Bitstamp, BTC-e, itBit and OKCoin - or
+ * objects with 'price' and 'amount' fields as sent by Bitfinex, Gemini and Huobi. Any other elements or fields, e.g.
+ * timestamps or order counts, are skipped. Prices and quantities can be JSON numbers or strings.
+ *
+ * @author gazbert
+ * @since 1.0
+ */
+final class OrderBookJsonReader {
+
+    /**
+     * Pass as maxLevels to read every price level sent by the exchange.
+     */
+    static final int ALL_PRICE_LEVELS = Integer.MAX_VALUE;
+
+    private static final String PRICE_FIELD = "price";
+    private static final String QUANTITY_FIELD = "amount";
+
+    private OrderBookJsonReader() {
+    }
+
+    /**
+     * Reads an order book that is the top level JSON object of the response body.
+     *
+     * @param responseBody the response body.
+     * @param marketId     the market id for the order book.
+     * @param bidsField    name of the field holding the bids (BUY orders).
+     * @param asksField    name of the field holding the asks (SELL orders).
+     * @param maxLevels    maximum number of price levels to read for each side of the book.
+     * @return the order book. A side missing from the response is returned empty.
+     * @throws IOException if the body could not be read or is not valid JSON.
+     */
+    static MarketOrderBook readOrderBook(Reader responseBody, String marketId, String bidsField, String asksField,
+                                         int maxLevels) throws IOException {
+        return readOrderBook(new JsonReader(responseBody), marketId, bidsField, asksField, maxLevels);
+    }
+
+    /**
+     * Reads an order book object at the reader's current position, e.g. after navigating into a wrapper object.
+     *
+     * @param jsonReader the reader, positioned at the start of the order book object.
+     * @param marketId   the market id for the order book.
+     * @param bidsField  name of the field holding the bids (BUY orders).
+     * @param asksField  name of the field holding the asks (SELL orders).
+     * @param maxLevels  maximum number of price levels to read for each side of the book.
+     * @return the order book. A side missing from the response is returned empty.
+     * @throws IOException if the body could not be read or is not valid JSON.
+     */
+    static MarketOrderBook readOrderBook(JsonReader jsonReader, String marketId, String bidsField, String asksField,
+                                         int maxLevels) throws IOException {
+
+        List<MarketOrder> buyOrders = Collections.emptyList();
+        List<MarketOrder> sellOrders = Collections.emptyList();
+
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            final String fieldName = jsonReader.nextName();
+            if (fieldName.equals(bidsField)) {
+                buyOrders = readPriceLevels(jsonReader, OrderType.BUY, maxLevels);
+            } else if (fieldName.equals(asksField)) {
+                sellOrders = readPriceLevels(jsonReader, OrderType.SELL, maxLevels);
+            } else {
+                jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+
+        return new MarketOrderBook(marketId, sellOrders, buyOrders);
+    }
+
+    /**
+     * Reads an order book held in a named field of the object at the reader's current position, e.g. the
+     * {"btc_usd": {"bids": [...], "asks": [...]}} responses keyed by market. Other fields are skipped.
+     *
+     * @param jsonReader the reader, positioned at the start of the object holding the order book.
+     * @param bookField  name of the field holding the order book.
+     * @param marketId   the market id for the order book.
+     * @param bidsField  name of the field holding the bids (BUY orders).
+     * @param asksField  name of the field holding the asks (SELL orders).
+     * @param maxLevels  maximum number of price levels to read for each side of the book.
+     * @return the order book, or null if the object has no such field.
+     * @throws IOException if the body could not be read or is not valid JSON.
+     */
+    static MarketOrderBook readOrderBookField(JsonReader jsonReader, String bookField, String marketId,
+                                              String bidsField, String asksField, int maxLevels) throws IOException {
+
+        MarketOrderBook orderBook = null;
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            if (jsonReader.nextName().equals(bookField)) {
+                orderBook = readOrderBook(jsonReader, marketId, bidsField, asksField, maxLevels);
+            } else {
+                jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+        return orderBook;
+    }
+
+    /**
+     * Reads one side of the book.
+     *
+     * @param jsonReader the reader, positioned at the start of the price level array.
+     * @param orderType  the type of the orders on this side.
+     * @param maxLevels  maximum number of price levels to read; the rest are skipped.
+     * @return the orders, in the order sent by the exchange.
+     * @throws IOException if the body could not be read or is not valid JSON.
+     */
+    static List<MarketOrder> readPriceLevels(JsonReader jsonReader, OrderType orderType, int maxLevels)
+            throws IOException {
+
+        if (jsonReader.peek() == JsonToken.NULL) {
+            jsonReader.nextNull();
+            return Collections.emptyList();
+        }
+
+        final List<MarketOrder> orders = new ArrayList<>(Math.min(maxLevels, 64));
+        jsonReader.beginArray();
+        while (jsonReader.hasNext()) {
+            if (orders.size() >= maxLevels) {
+                jsonReader.skipValue();
+            } else if (jsonReader.peek() == JsonToken.BEGIN_OBJECT) {
+                orders.add(readPriceLevelObject(jsonReader, orderType));
+            } else {
+                orders.add(readPriceLevelArray(jsonReader, orderType));
+            }
+        }
+        jsonReader.endArray();
+        return orders;
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private static MarketOrder readPriceLevelArray(JsonReader jsonReader, OrderType orderType) throws IOException {
+        jsonReader.beginArray();
+        final BigDecimal price = new BigDecimal(jsonReader.nextString());
+        final BigDecimal quantity = new BigDecimal(jsonReader.nextString());
+        while (jsonReader.hasNext()) {
+            jsonReader.skipValue();
+        }
+        jsonReader.endArray();
+        return new MarketOrder(orderType, price, quantity, price.multiply(quantity));
+    }
+
+    private static MarketOrder readPriceLevelObject(JsonReader jsonReader, OrderType orderType) throws IOException {
+        BigDecimal price = null;
+        BigDecimal quantity = null;
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            final String fieldName = jsonReader.nextName();
+            if (fieldName.equals(PRICE_FIELD)) {
+                price = new BigDecimal(jsonReader.nextString());
+            } else if (fieldName.equals(QUANTITY_FIELD)) {
+                quantity = new BigDecimal(jsonReader.nextString());
+            } else {
+                jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+        if (price == null || quantity == null) {
+            throw new IOException("Price level missing '" + PRICE_FIELD + "' or '" + QUANTITY_FIELD + "' at "
+                    + jsonReader.getPath());
+        }
+        return new MarketOrder(orderType, price, quantity, price.multiply(quantity));
+    }
+}
@@ -0,0 +1,360 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.exchanges.AbstractExchangeAdapter.ExchangeHttpResponse;
+import com.gazbert.bxbot.exchanges.AbstractExchangeAdapter.ResponseBodyReader;
+import com.google.common.base.MoreObjects;
+import com.google.common.io.CountingInputStream;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpRequest;
+import org.apache.http.StatusLine;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.ManagedHttpClientConnectionFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.util.EntityUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.MalformedURLException;
+import java.net.SocketTimeoutException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transport that holds a bounded pool of keep-alive connections per exchange host.
+ * <p>
+ * Connections are returned to the pool once the response has been read and reused by the next request to the same
+ * host, so the TCP and TLS handshakes are only paid when a new connection has to be created. New connections resume
+ * TLS sessions from the JVM's default SSL session cache where the exchange allows it.
+ * <p>
+ * Eviction policy: connections idle for longer than the idle connection timeout are closed by a background daemon
+ * thread, as are connections whose server-advertised keep-alive has expired. A connection that has been idle for
+ * more than {@link #VALIDATE_AFTER_INACTIVITY_MILLIS} is checked for staleness before it is leased again.
+ * <p>
+ * A warning is logged when a request finds every connection to the exchange in use and has to wait for one, and again
+ * at info level once connections are free. If it keeps happening, raise the max connections per host.
+ *
+ * @author gazbert
+ * @since 1.0
+ */
+final class PooledHttpTransport implements ExchangeHttpTransport {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * Max number of distinct exchange hosts an adapter is expected to talk to. Used to bound the total pool size.
+     */
+    private static final int MAX_HOSTS_PER_ADAPTER = 4;
+
+    /**
+     * Pooled connections idle for longer than this are checked for staleness before being leased.
+     */
+    private static final int VALIDATE_AFTER_INACTIVITY_MILLIS = 2000;
+
+    /**
+     * Content type used for POST data if the adapter does not set one. Matches what HttpURLConnection sends.
+     */
+    private static final String DEFAULT_POST_CONTENT_TYPE = "application/x-www-form-urlencoded";
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    private final int maxConnectionsPerHost;
+
+    /**
+     * Number of connections opened to the exchange since the transport was created.
+     */
+    private final AtomicLong connectionsCreated = new AtomicLong();
+
+    /**
+     * Number of requests that found every connection in use and had to wait for one.
+     */
+    private final AtomicLong timesExhausted = new AtomicLong();
+    private final AtomicBoolean isExhausted = new AtomicBoolean();
+
+
+    /**
+     * Creates the transport.
+     *
+     * @param connectionTimeout     the connection timeout in SECONDS for terminating hung connections to the exchange.
+     *                              Also used as the max time to wait for a pooled connection to become free.
+     * @param maxConnectionsPerHost the max number of connections to hold open to each exchange host.
+     * @param idleConnectionTimeout the time in SECONDS after which idle connections are evicted from the pool.
+     */
+    PooledHttpTransport(int connectionTimeout, int maxConnectionsPerHost, int idleConnectionTimeout) {
+
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+
+        final Registry<ConnectionSocketFactory> socketFactoryRegistry = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", SSLConnectionSocketFactory.getSystemSocketFactory())
+                .build();
+
+        connectionManager = new PoolingHttpClientConnectionManager(socketFactoryRegistry, (route, config) -> {
+            connectionsCreated.incrementAndGet();
+            LOG.debug(() -> "Creating new pooled connection for route: " + route);
+            return ManagedHttpClientConnectionFactory.INSTANCE.create(route, config);
+        });
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerHost);
+        connectionManager.setMaxTotal(maxConnectionsPerHost * MAX_HOSTS_PER_ADAPTER);
+        connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_MILLIS);
+
+        final int timeoutInMillis = connectionTimeout * 1000;
+        final RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(timeoutInMillis)
+                .setSocketTimeout(timeoutInMillis)
+                .setConnectionRequestTimeout(timeoutInMillis)
+                .build();
+
+        // Honour the exchange's Keep-Alive header, but never hold a connection longer than our idle timeout.
+        final long idleTimeoutInMillis = TimeUnit.SECONDS.toMillis(idleConnectionTimeout);
+        final ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+            final long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return keepAlive > 0 ? Math.min(keepAlive, idleTimeoutInMillis) : idleTimeoutInMillis;
+        };
+
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(keepAliveStrategy)
+                .setUserAgent(USER_AGENT)
+                // One retry to get past a connection that failed before the request was sent. Requests that made it
+                // onto the wire are never retried, whatever their method - some adapters cancel orders with DELETE and
+                // we don't want to send an order twice. Stale keep-alive connections are caught by the pool's
+                // validate-after-inactivity check instead.
+                .setRetryHandler(new DefaultHttpRequestRetryHandler(1, false) {
+                    @Override
+                    protected boolean handleAsIdempotent(HttpRequest request) {
+                        return false;
+                    }
+                })
+                .disableCookieManagement()
+                .evictExpiredConnections()
+                .evictIdleConnections(idleConnectionTimeout, TimeUnit.SECONDS)
+                .build();
+    }
+
+    @Override
+    public ExchangeHttpResponse sendRequest(URL url, String httpMethod, String postData, Map<String, String> requestHeaders,
+                                            ResponseBodyReader<?> successBodyReader) throws IOException {
+
+        final RequestBuilder requestBuilder;
+        try {
+            requestBuilder = RequestBuilder.create(httpMethod.toUpperCase()).setUri(url.toURI());
+        } catch (URISyntaxException e) {
+            final MalformedURLException malformedURLException = new MalformedURLException(e.getMessage());
+            malformedURLException.initCause(e);
+            throw malformedURLException;
+        }
+
+        if (requestHeaders != null) {
+            for (final Map.Entry<String, String> requestHeader : requestHeaders.entrySet()) {
+                requestBuilder.setHeader(requestHeader.getKey(), requestHeader.getValue());
+                LOG.debug(() -> "Setting following request header: " + requestHeader);
+            }
+        }
+
+        if (httpMethod.equalsIgnoreCase("POST") && postData != null) {
+            LOG.debug(() -> "Doing POST with request body: " + postData);
+            final ByteArrayEntity postEntity = new ByteArrayEntity(postData.getBytes(StandardCharsets.UTF_8));
+            if (requestBuilder.getFirstHeader(HttpHeaders.CONTENT_TYPE) == null) {
+                postEntity.setContentType(DEFAULT_POST_CONTENT_TYPE);
+            }
+            requestBuilder.setEntity(postEntity);
+        }
+
+        checkForPoolExhaustion();
+
+        try (final CloseableHttpResponse response = httpClient.execute(requestBuilder.build())) {
+
+            // Reading the entity to the end releases the connection back to the pool for the next request.
+            final HttpEntity responseEntity = response.getEntity();
+            final StatusLine statusLine = response.getStatusLine();
+
+            if (successBodyReader != null && responseEntity != null
+                    && statusLine.getStatusCode() >= 200 && statusLine.getStatusCode() < 300) {
+                final CountingInputStream responseBody = new CountingInputStream(responseEntity.getContent());
+                final Object parsedPayload;
+                try {
+                    parsedPayload = successBodyReader.read(new BufferedReader(
+                            new InputStreamReader(responseBody, StandardCharsets.UTF_8)));
+                } finally {
+                    // Drain anything the reader did not need, e.g. price levels beyond the requested depth, so the
+                    // connection can go back to the pool.
+                    EntityUtils.consume(responseEntity);
+                }
+                return new ExchangeHttpResponse(statusLine.getStatusCode(), statusLine.getReasonPhrase(), parsedPayload,
+                        responseBody.getCount());
+            }
+
+            final String payload = responseEntity == null ? "" : EntityUtils.toString(responseEntity, StandardCharsets.UTF_8);
+            return new ExchangeHttpResponse(statusLine.getStatusCode(), statusLine.getReasonPhrase(), payload);
+
+        } catch (ConnectTimeoutException e) {
+            // Covers connect timeouts and waiting too long for a pooled connection; treat them as socket timeouts
+            // so the adapter maps them the same way as the default transport does.
+            final SocketTimeoutException socketTimeoutException = new SocketTimeoutException(e.getMessage());
+            socketTimeoutException.initCause(e);
+            throw socketTimeoutException;
+
+        } finally {
+            LOG.debug(() -> "Connection pool stats: " + getPoolStats());
+        }
+    }
+
+    /**
+     * Closes all pooled connections and stops the eviction thread.
+     *
+     * @throws IOException if the underlying client failed to shut down cleanly.
+     */
+    @Override
+    public void close() throws IOException {
+        LOG.info(() -> "Closing connection pool. Final stats: " + getPoolStats());
+        httpClient.close();
+    }
+
+    /**
+     * Returns a snapshot of the connection pool stats.
+     *
+     * @return the current pool stats.
+     */
+    ConnectionPoolStats getPoolStats() {
+        final PoolStats totalStats = connectionManager.getTotalStats();
+        return new ConnectionPoolStats(totalStats.getAvailable(), totalStats.getLeased(), totalStats.getPending(),
+                connectionsCreated.get(), maxConnectionsPerHost, timesExhausted.get());
+    }
+
+    /*
+     * Adapters talk to 1 host for nearly all their calls, so all the leased connections are counted against it.
+     */
+    private void checkForPoolExhaustion() {
+        final PoolStats totalStats = connectionManager.getTotalStats();
+        if (totalStats.getLeased() >= maxConnectionsPerHost) {
+            timesExhausted.incrementAndGet();
+            if (isExhausted.compareAndSet(false, true)) {
+                LOG.warn("All " + maxConnectionsPerHost + " connections to the exchange are in use - requests will "
+                        + "wait for a free connection. Connection pool stats: " + getPoolStats());
+            }
+        } else if (isExhausted.compareAndSet(true, false)) {
+            LOG.info(() -> "Connections to the exchange are free again. Connection pool stats: " + getPoolStats());
+        }
+    }
+
+    /**
+     * Snapshot of the connection pool stats.
+     */
+    static final class ConnectionPoolStats {
+
+        private final int idle;
+        private final int leased;
+        private final int pending;
+        private final long created;
+        private final int maxPerHost;
+        private final long timesExhausted;
+
+        ConnectionPoolStats(int idle, int leased, int pending, long created, int maxPerHost, long timesExhausted) {
+            this.idle = idle;
+            this.leased = leased;
+            this.pending = pending;
+            this.created = created;
+            this.maxPerHost = maxPerHost;
+            this.timesExhausted = timesExhausted;
+        }
+
+        /**
+         * @return number of open connections sitting in the pool waiting to be reused.
+         */
+        int getIdle() {
+            return idle;
+        }
+
+        /**
+         * @return number of connections currently in use by a request.
+         */
+        int getLeased() {
+            return leased;
+        }
+
+        /**
+         * @return number of requests waiting for a connection to become free.
+         */
+        int getPending() {
+            return pending;
+        }
+
+        /**
+         * @return total number of connections opened since the pool was created.
+         */
+        long getCreated() {
+            return created;
+        }
+
+        int getMaxPerHost() {
+            return maxPerHost;
+        }
+
+        /**
+         * @return number of requests that found every connection in use and had to wait for one.
+         */
+        long getTimesExhausted() {
+            return timesExhausted;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("idle", idle)
+                    .add("leased", leased)
+                    .add("pending", pending)
+                    .add("created", created)
+                    .add("maxPerHost", maxPerHost)
+                    .add("timesExhausted", timesExhausted)
+                    .toString();
+        }
+    }
+}
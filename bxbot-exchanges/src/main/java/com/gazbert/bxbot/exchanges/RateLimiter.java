@@ -0,0 +1,143 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Client side token bucket rate limiter for an adapter's API calls.
+ * <p>
+ * The bucket holds up to <code>burst</code> permits and earns a new one every <code>interval</code>. Each API call
+ * takes a permit, waiting for one if the bucket is empty. Waiting calls are let through by {@link RequestPriority}:
+ * a call only gets a permit once no call in a higher lane is waiting. Calls within a lane are not queued in order.
+ *
+ * @author gazbert
+ * @since 1.0
+ */
+final class RateLimiter {
+
+    private final int burst;
+    private final long intervalNanos;
+
+    private final Lock lock = new ReentrantLock();
+    private final Condition permitsChanged = lock.newCondition();
+    private final int[] waitingCallsByPriority = new int[RequestPriority.values().length];
+
+    private int permits;
+    private long lastRefillNanos;
+
+
+    /**
+     * Creates a rate limiter with a full bucket.
+     *
+     * @param burst          the max number of permits the bucket holds.
+     * @param intervalMillis how often a permit is added to the bucket.
+     */
+    RateLimiter(int burst, long intervalMillis) {
+        this.burst = burst;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        this.permits = burst;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Takes a permit for an API call, waiting until one is available and no higher priority call is waiting.
+     *
+     * @param priority the priority of the API call.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     */
+    void acquire(RequestPriority priority) throws InterruptedException {
+
+        lock.lockInterruptibly();
+        try {
+            waitingCallsByPriority[priority.ordinal()]++;
+            try {
+                while (true) {
+                    refill();
+                    if (permits > 0) {
+                        if (!isHigherPriorityCallWaiting(priority)) {
+                            permits--;
+                            return;
+                        }
+                        // The higher priority call takes this permit; check again when it has, or when we earn another
+                        permitsChanged.awaitNanos(intervalNanos);
+                    } else {
+                        permitsChanged.awaitNanos(lastRefillNanos + intervalNanos - System.nanoTime());
+                    }
+                }
+            } finally {
+                waitingCallsByPriority[priority.ordinal()]--;
+                permitsChanged.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of permits currently in the bucket.
+     *
+     * @return the available permits.
+     */
+    int getAvailablePermits() {
+        lock.lock();
+        try {
+            refill();
+            return permits;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private void refill() {
+
+        final long now = System.nanoTime();
+        if (permits >= burst) {
+            lastRefillNanos = now;
+            return;
+        }
+
+        final long earnedPermits = (now - lastRefillNanos) / intervalNanos;
+        if (earnedPermits > 0) {
+            permits = (int) Math.min(burst, permits + earnedPermits);
+            lastRefillNanos = permits == burst ? now : lastRefillNanos + earnedPermits * intervalNanos;
+        }
+    }
+
+    private boolean isHigherPriorityCallWaiting(RequestPriority priority) {
+        for (int i = 0; i < priority.ordinal(); i++) {
+            if (waitingCallsByPriority[i] > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+/**
+ * The lanes used to share out an adapter's rate limit between its API calls.
+ * When calls are waiting for the {@link RateLimiter}, a call is only let through once no call in a higher lane is
+ * waiting, so under load the adapter spends its rate limit on orders rather than market data.
+ *
+ * @author gazbert
+ * @since 1.0
+ */
+enum RequestPriority {
+
+    /**
+     * Create and cancel order calls - highest priority.
+     */
+    ORDER,
+
+    /**
+     * Other authenticated calls, e.g. open orders, balances.
+     */
+    ACCOUNT,
+
+    /**
+     * Public market data calls, e.g. order book, ticker - lowest priority.
+     */
+    MARKET_DATA
+}
@@ -0,0 +1,380 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Signs the payload of authenticated API calls.
+ * <p>
+ * {@link Mac} and {@link MessageDigest} instances are not thread safe, so each thread that signs a request gets its
+ * own, created the first time that thread signs and then reused. The adapters can therefore make authenticated calls
+ * from several threads at once without sharing (or locking) a single MAC.
+ * <p>
+ * Each thread also reuses one {@link Payload} buffer: the adapter appends the parts of the message to be signed to
+ * it, hashes/MACs it in place, and encodes the result as hex or Base64. The only object allocated per call is the
+ * final signature String.
+ *
+ * @author gazbert
+ * @since 1.0
+ */
+final class RequestSigner {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private static final char[] LOWER_CASE_HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final char[] UPPER_CASE_HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+    private static final char[] BASE64_DIGITS =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+
+    private static final int INITIAL_PAYLOAD_CAPACITY = 512;
+
+    private final SecretKeySpec macKey;
+    private final ThreadLocal<Payload> payloads = ThreadLocal.withInitial(() -> new Payload(this));
+
+
+    private RequestSigner(SecretKeySpec macKey) {
+        this.macKey = macKey;
+    }
+
+    /**
+     * Creates a signer that MACs payloads with the given secret.
+     *
+     * @param macAlgorithm the MAC algorithm, e.g. HmacSHA512.
+     * @param secret       the secret key bytes.
+     * @return the signer.
+     * @throws NoSuchAlgorithmException if the MAC algorithm is not installed.
+     * @throws InvalidKeyException      if the secret is not a valid key for the algorithm.
+     */
+    static RequestSigner forMac(String macAlgorithm, byte[] secret) throws NoSuchAlgorithmException,
+            InvalidKeyException {
+
+        final SecretKeySpec macKey = new SecretKeySpec(secret, macAlgorithm);
+
+        // Fail fast on a bad algorithm or key rather than on the first authenticated call
+        Mac.getInstance(macAlgorithm).init(macKey);
+        return new RequestSigner(macKey);
+    }
+
+    /**
+     * Creates a signer for exchanges that only hash the payload, e.g. MD5 of the params plus the secret.
+     *
+     * @param digestAlgorithm the digest algorithm the adapter will use, e.g. MD5.
+     * @return the signer.
+     * @throws NoSuchAlgorithmException if the digest algorithm is not installed.
+     */
+    static RequestSigner forDigest(String digestAlgorithm) throws NoSuchAlgorithmException {
+
+        MessageDigest.getInstance(digestAlgorithm);
+        return new RequestSigner(null);
+    }
+
+    /**
+     * Returns the calling thread's payload buffer, emptied and ready for the message to be signed.
+     * The buffer must not be handed to another thread.
+     *
+     * @return the empty payload.
+     */
+    Payload begin() {
+        final Payload payload = payloads.get();
+        payload.length = 0;
+        return payload;
+    }
+
+    /**
+     * A growable byte buffer holding the message to be signed.
+     * The transform methods replace the contents of the buffer with their result so calls can be chained.
+     */
+    static final class Payload {
+
+        private final RequestSigner signer;
+        private final Map<String, MessageDigest> messageDigests = new HashMap<>();
+        private Mac mac;
+        private byte[] bytes = new byte[INITIAL_PAYLOAD_CAPACITY];
+        private char[] chars = new char[INITIAL_PAYLOAD_CAPACITY];
+        private int length;
+
+
+        private Payload(RequestSigner signer) {
+            this.signer = signer;
+        }
+
+        /**
+         * Appends the UTF-8 bytes of the given text.
+         *
+         * @param text the text to append.
+         * @return this payload.
+         */
+        Payload append(CharSequence text) {
+
+            final int textLength = text.length();
+            ensureCapacity(length + textLength);
+            for (int i = 0; i < textLength; i++) {
+                final char c = text.charAt(i);
+                if (c >= 0x80) {
+                    // Rare enough that we don't hand roll the UTF-8 encoding
+                    return append(text.subSequence(i, textLength).toString().getBytes(StandardCharsets.UTF_8));
+                }
+                bytes[length++] = (byte) c;
+            }
+            return this;
+        }
+
+        /**
+         * Appends the decimal digits of the given number, e.g. a nonce.
+         *
+         * @param number the number to append.
+         * @return this payload.
+         */
+        Payload append(long number) {
+
+            if (number == Long.MIN_VALUE) {
+                return append(Long.toString(number));
+            }
+
+            ensureCapacity(length + 20);
+            if (number < 0) {
+                bytes[length++] = '-';
+                number = -number;
+            }
+
+            final int start = length;
+            do {
+                bytes[length++] = (byte) ('0' + number % 10);
+                number /= 10;
+            } while (number != 0);
+
+            // digits were written least significant first
+            for (int i = start, j = length - 1; i < j; i++, j--) {
+                final byte digit = bytes[i];
+                bytes[i] = bytes[j];
+                bytes[j] = digit;
+            }
+            return this;
+        }
+
+        /**
+         * Appends the given bytes.
+         *
+         * @param data the bytes to append.
+         * @return this payload.
+         */
+        Payload append(byte[] data) {
+
+            ensureCapacity(length + data.length);
+            System.arraycopy(data, 0, bytes, length, data.length);
+            length += data.length;
+            return this;
+        }
+
+        /**
+         * Inserts the UTF-8 bytes of the given text in front of the current contents.
+         * Used by exchanges that sign the request path followed by a hash of the request.
+         *
+         * @param text the text to insert.
+         * @return this payload.
+         */
+        Payload prepend(CharSequence text) {
+
+            final int oldLength = length;
+            append(text);
+            final int textLength = length - oldLength;
+
+            // Rotate the text we just appended round to the front of the buffer
+            ensureCapacity(length + textLength);
+            System.arraycopy(bytes, oldLength, bytes, length, textLength);
+            System.arraycopy(bytes, 0, bytes, textLength, oldLength);
+            System.arraycopy(bytes, length, bytes, 0, textLength);
+            return this;
+        }
+
+        /**
+         * Replaces the contents with their hash.
+         *
+         * @param digestAlgorithm the digest algorithm, e.g. SHA-256.
+         * @return this payload.
+         */
+        Payload digest(String digestAlgorithm) {
+
+            final MessageDigest messageDigest = getMessageDigest(digestAlgorithm);
+            ensureCapacity(messageDigest.getDigestLength());
+            messageDigest.update(bytes, 0, length);
+            try {
+                length = messageDigest.digest(bytes, 0, bytes.length);
+            } catch (DigestException e) {
+                throw signingFailed(digestAlgorithm, e);
+            }
+            return this;
+        }
+
+        /**
+         * Replaces the contents with their MAC, using the signer's secret key.
+         *
+         * @return this payload.
+         */
+        Payload mac() {
+
+            final Mac threadMac = getMac();
+            ensureCapacity(threadMac.getMacLength());
+            threadMac.update(bytes, 0, length);
+            try {
+                length = threadMac.getMacLength();
+                threadMac.doFinal(bytes, 0);
+            } catch (ShortBufferException e) {
+                throw signingFailed(threadMac.getAlgorithm(), e);
+            }
+            return this;
+        }
+
+        /**
+         * Returns the contents as lowercase hex.
+         *
+         * @return the hex string.
+         */
+        String toHexString() {
+            return toHexString(LOWER_CASE_HEX_DIGITS);
+        }
+
+        /**
+         * Returns the contents as uppercase hex.
+         *
+         * @return the hex string.
+         */
+        String toUpperCaseHexString() {
+            return toHexString(UPPER_CASE_HEX_DIGITS);
+        }
+
+        /**
+         * Returns the contents as standard, padded Base64.
+         *
+         * @return the Base64 string.
+         */
+        String toBase64String() {
+
+            final int encodedLength = (length + 2) / 3 * 4;
+            ensureCharCapacity(encodedLength);
+
+            int charIndex = 0;
+            int byteIndex = 0;
+            while (byteIndex + 2 < length) {
+                final int triple = (bytes[byteIndex++] & 0xff) << 16 | (bytes[byteIndex++] & 0xff) << 8
+                        | (bytes[byteIndex++] & 0xff);
+                chars[charIndex++] = BASE64_DIGITS[triple >>> 18 & 0x3f];
+                chars[charIndex++] = BASE64_DIGITS[triple >>> 12 & 0x3f];
+                chars[charIndex++] = BASE64_DIGITS[triple >>> 6 & 0x3f];
+                chars[charIndex++] = BASE64_DIGITS[triple & 0x3f];
+            }
+
+            final int remaining = length - byteIndex;
+            if (remaining > 0) {
+                final int triple = (bytes[byteIndex] & 0xff) << 16
+                        | (remaining == 2 ? (bytes[byteIndex + 1] & 0xff) << 8 : 0);
+                chars[charIndex++] = BASE64_DIGITS[triple >>> 18 & 0x3f];
+                chars[charIndex++] = BASE64_DIGITS[triple >>> 12 & 0x3f];
+                chars[charIndex++] = remaining == 2 ? BASE64_DIGITS[triple >>> 6 & 0x3f] : '=';
+                chars[charIndex++] = '=';
+            }
+            return new String(chars, 0, charIndex);
+        }
+
+        // --------------------------------------------------------------------------------------------
+        //  Util methods
+        // --------------------------------------------------------------------------------------------
+
+        private String toHexString(char[] hexDigits) {
+
+            ensureCharCapacity(length * 2);
+            for (int i = 0; i < length; i++) {
+                chars[2 * i] = hexDigits[(bytes[i] & 0xf0) >> 4];
+                chars[2 * i + 1] = hexDigits[bytes[i] & 0xf];
+            }
+            return new String(chars, 0, length * 2);
+        }
+
+        private Mac getMac() {
+
+            if (mac == null) {
+                if (signer.macKey == null) {
+                    final String errorMsg = "Request signer has no MAC key - it was created for hashing only.";
+                    LOG.error(errorMsg);
+                    throw new IllegalStateException(errorMsg);
+                }
+                try {
+                    mac = Mac.getInstance(signer.macKey.getAlgorithm());
+                    mac.init(signer.macKey);
+                } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+                    // Checked when the signer was created, so we should never get here
+                    throw signingFailed(signer.macKey.getAlgorithm(), e);
+                }
+            }
+            return mac;
+        }
+
+        private MessageDigest getMessageDigest(String digestAlgorithm) {
+
+            MessageDigest messageDigest = messageDigests.get(digestAlgorithm);
+            if (messageDigest == null) {
+                try {
+                    messageDigest = MessageDigest.getInstance(digestAlgorithm);
+                } catch (NoSuchAlgorithmException e) {
+                    throw signingFailed(digestAlgorithm, e);
+                }
+                messageDigests.put(digestAlgorithm, messageDigest);
+            }
+            return messageDigest;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+            }
+        }
+
+        private void ensureCharCapacity(int capacity) {
+            if (capacity > chars.length) {
+                chars = new char[Math.max(capacity, chars.length * 2)];
+            }
+        }
+
+        private static IllegalStateException signingFailed(String algorithm, GeneralSecurityException e) {
+            final String errorMsg = "Failed to sign request using " + algorithm;
+            LOG.error(errorMsg, e);
+            return new IllegalStateException(errorMsg, e);
+        }
+    }
+}
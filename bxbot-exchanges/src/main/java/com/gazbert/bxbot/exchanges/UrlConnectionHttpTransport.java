@@ -0,0 +1,155 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.exchanges.AbstractExchangeAdapter.ExchangeHttpResponse;
+import com.gazbert.bxbot.exchanges.AbstractExchangeAdapter.ResponseBodyReader;
+import com.google.common.io.CountingInputStream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * The default transport: opens a new {@link HttpURLConnection} for every request and disconnects it once the
+ * response has been read.
+ * <p>
+ * Every API call pays for a new TCP connection and TLS handshake. Use the {@link PooledHttpTransport} by setting
+ * max-connections-per-host in the exchange.xml network-config if this matters.
+ *
+ * @author gazbert
+ * @since 1.0
+ */
+final class UrlConnectionHttpTransport implements ExchangeHttpTransport {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * The connect/read timeout in MILLIS.
+     */
+    private final int timeoutInMillis;
+
+
+    /**
+     * Creates the transport.
+     *
+     * @param connectionTimeout the connection timeout in SECONDS for terminating hung connections to the exchange.
+     */
+    UrlConnectionHttpTransport(int connectionTimeout) {
+        timeoutInMillis = connectionTimeout * 1000;
+    }
+
+    @Override
+    public ExchangeHttpResponse sendRequest(URL url, String httpMethod, String postData, Map<String, String> requestHeaders,
+                                            ResponseBodyReader<?> successBodyReader) throws IOException {
+
+        HttpURLConnection exchangeConnection = null;
+        try {
+
+            exchangeConnection = (HttpURLConnection) url.openConnection();
+            exchangeConnection.setUseCaches(false);
+            exchangeConnection.setDoOutput(true);
+            exchangeConnection.setRequestMethod(httpMethod); // GET|POST|DELETE
+            exchangeConnection.setRequestProperty("User-Agent", USER_AGENT);
+
+            if (requestHeaders != null) {
+                for (final Map.Entry<String, String> requestHeader : requestHeaders.entrySet()) {
+                    exchangeConnection.setRequestProperty(requestHeader.getKey(), requestHeader.getValue());
+                    LOG.debug(() -> "Setting following request header: " + requestHeader);
+                }
+            }
+
+            // Add a timeout so we don't get blocked indefinitely; timeout on URLConnection is in millis.
+            exchangeConnection.setConnectTimeout(timeoutInMillis);
+            exchangeConnection.setReadTimeout(timeoutInMillis);
+
+            if (httpMethod.equalsIgnoreCase("POST") && postData != null) {
+                LOG.debug(() -> "Doing POST with request body: " + postData);
+                final OutputStreamWriter outputPostStream = new OutputStreamWriter(exchangeConnection.getOutputStream());
+                outputPostStream.write(postData);
+                outputPostStream.close();
+            }
+
+            // Grab the response - we just block here as per Connection API
+            final int statusCode = exchangeConnection.getResponseCode();
+
+            if (successBodyReader != null && isSuccess(statusCode)) {
+                final CountingInputStream responseBytes = new CountingInputStream(exchangeConnection.getInputStream());
+                try (final Reader responseBody = new BufferedReader(new InputStreamReader(
+                        responseBytes, StandardCharsets.UTF_8))) {
+                    return new ExchangeHttpResponse(statusCode, exchangeConnection.getResponseMessage(),
+                            successBodyReader.read(responseBody), responseBytes.getCount());
+                }
+            }
+
+            final InputStream rawResponseStream = statusCode >= HttpURLConnection.HTTP_BAD_REQUEST
+                    ? exchangeConnection.getErrorStream()
+                    : exchangeConnection.getInputStream();
+
+            return new ExchangeHttpResponse(statusCode, exchangeConnection.getResponseMessage(),
+                    readResponse(rawResponseStream));
+
+        } finally {
+            if (exchangeConnection != null) {
+                exchangeConnection.disconnect();
+            }
+        }
+    }
+
+    /**
+     * Nothing to release: connections are not held between requests.
+     */
+    @Override
+    public void close() {
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private static boolean isSuccess(int statusCode) {
+        return statusCode >= HttpURLConnection.HTTP_OK && statusCode < HttpURLConnection.HTTP_MULT_CHOICE;
+    }
+
+    private static String readResponse(InputStream rawResponseStream) throws IOException {
+
+        if (rawResponseStream == null) {
+            return "";
+        }
+
+        // Read the JSON response lines into our response buffer
+        final StringBuilder exchangeResponse = new StringBuilder();
+        try (final BufferedReader responseInputStream = new BufferedReader(
+                new InputStreamReader(rawResponseStream, StandardCharsets.UTF_8))) {
+            String responseLine;
+            while ((responseLine = responseInputStream.readLine()) != null) {
+                exchangeResponse.append(responseLine);
+            }
+        }
+        return exchangeResponse.toString();
+    }
+}
@@ -0,0 +1,429 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import javax.xml.bind.DatatypeConverter;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A minimal <a href="https://tools.ietf.org/html/rfc6455">RFC 6455</a> WebSocket client for exchange market data feeds.
+ * <p>
+ * Java 8 has no WebSocket client, and the feeds only need a small part of the protocol: text messages in,
+ * text messages out, ping/pong and close. Extensions and sub-protocols are not supported.
+ * <p>
+ * Incoming messages are delivered to the {@link Listener} on a dedicated daemon reader thread, in the order they were
+ * received. {@link #sendText(String)} can be called from any thread.
+ *
+ * @author gazbert
+ * @since 1.0
+ */
+final class WebSocketConnection implements Closeable {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * GUID the server appends to our key when accepting the handshake - see RFC 6455 section 1.3.
+     */
+    private static final String HANDSHAKE_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+    /**
+     * Largest message we will accept. Full order book snapshots are big, but not this big.
+     */
+    private static final int MAX_MESSAGE_SIZE = 64 * 1024 * 1024;
+
+    private static final int OPCODE_CONTINUATION = 0x0;
+    private static final int OPCODE_TEXT = 0x1;
+    private static final int OPCODE_BINARY = 0x2;
+    private static final int OPCODE_CLOSE = 0x8;
+    private static final int OPCODE_PING = 0x9;
+    private static final int OPCODE_PONG = 0xA;
+
+    private static final int CLOSE_NORMAL = 1000;
+
+    /**
+     * Receives the messages and close notification for a connection.
+     */
+    interface Listener {
+
+        /**
+         * Called on the reader thread for every text message received.
+         *
+         * @param message the message.
+         */
+        void onMessage(String message);
+
+        /**
+         * Called once when the connection has been closed, by either side, or has failed.
+         *
+         * @param reason why the connection was closed.
+         */
+        void onClose(String reason);
+    }
+
+    private final URI uri;
+    private final Socket socket;
+    private final DataInputStream in;
+    private final OutputStream out;
+    private final Listener listener;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+
+    private WebSocketConnection(URI uri, Socket socket, InputStream in, OutputStream out, Listener listener) {
+        this.uri = uri;
+        this.socket = socket;
+        this.in = new DataInputStream(in);
+        this.out = out;
+        this.listener = listener;
+    }
+
+    /**
+     * Opens a connection and starts reading messages from it.
+     *
+     * @param uri                   the ws:// or wss:// URI of the feed.
+     * @param connectTimeoutMillis  timeout for connecting and completing the handshake.
+     * @param readTimeoutMillis     the connection is closed if nothing is received for this long; 0 waits forever.
+     * @param listener              receives the messages.
+     * @return the open connection.
+     * @throws IOException if the connection or handshake fails.
+     */
+    static WebSocketConnection connect(URI uri, int connectTimeoutMillis, int readTimeoutMillis, Listener listener)
+            throws IOException {
+
+        final String scheme = uri.getScheme() == null ? "" : uri.getScheme().toLowerCase(Locale.ENGLISH);
+        final boolean secure;
+        if ("wss".equals(scheme)) {
+            secure = true;
+        } else if ("ws".equals(scheme)) {
+            secure = false;
+        } else {
+            final String errorMsg = "WebSocket URI must use ws:// or wss:// scheme: " + uri;
+            LOG.error(errorMsg);
+            throw new IllegalArgumentException(errorMsg);
+        }
+
+        final String host = uri.getHost();
+        final int port = uri.getPort() != -1 ? uri.getPort() : (secure ? 443 : 80);
+
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(host, port), connectTimeoutMillis);
+            socket.setSoTimeout(connectTimeoutMillis);
+            socket.setTcpNoDelay(true);
+            if (secure) {
+                final SSLSocket sslSocket = (SSLSocket) ((SSLSocketFactory) SSLSocketFactory.getDefault())
+                        .createSocket(socket, host, port, true);
+                sslSocket.startHandshake();
+                socket = sslSocket;
+            }
+
+            final InputStream in = new BufferedInputStream(socket.getInputStream());
+            final OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            performHandshake(uri, host, port, secure, in, out);
+            socket.setSoTimeout(readTimeoutMillis);
+
+            final WebSocketConnection connection = new WebSocketConnection(uri, socket, in, out, listener);
+            final Thread readerThread = new Thread(connection::readMessages, "websocket-reader-" + host);
+            readerThread.setDaemon(true);
+            readerThread.start();
+            return connection;
+
+        } catch (IOException | RuntimeException e) {
+            closeQuietly(socket);
+            throw e;
+        }
+    }
+
+    /**
+     * Sends a text message.
+     *
+     * @param message the message.
+     * @throws IOException if the connection has been closed or the write fails.
+     */
+    void sendText(String message) throws IOException {
+        sendFrame(OPCODE_TEXT, message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    boolean isOpen() {
+        return !closed.get();
+    }
+
+    /**
+     * Sends a close frame (best effort) and closes the socket. The listener is told the connection has closed.
+     */
+    @Override
+    public void close() {
+        if (!closed.get()) {
+            try {
+                sendFrame(OPCODE_CLOSE, ByteBuffer.allocate(2).putShort((short) CLOSE_NORMAL).array());
+            } catch (IOException e) {
+                LOG.debug(() -> "Failed to send close frame to " + uri + " - " + e.getMessage());
+            }
+        }
+        closeConnection("Closed by client");
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Framing
+    // ------------------------------------------------------------------------------------------------
+
+    private void readMessages() {
+
+        final ByteArrayOutputStream message = new ByteArrayOutputStream();
+        int messageOpcode = -1;
+        String closeReason = "Connection lost";
+
+        try {
+            while (!closed.get()) {
+
+                final int byte0 = in.readUnsignedByte();
+                final int byte1 = in.readUnsignedByte();
+                final boolean isFinalFragment = (byte0 & 0x80) != 0;
+                final int opcode = byte0 & 0x0F;
+                final boolean isMasked = (byte1 & 0x80) != 0;
+
+                long payloadLength = byte1 & 0x7F;
+                if (payloadLength == 126) {
+                    payloadLength = in.readUnsignedShort();
+                } else if (payloadLength == 127) {
+                    payloadLength = in.readLong();
+                }
+                if (payloadLength < 0 || payloadLength + message.size() > MAX_MESSAGE_SIZE) {
+                    throw new IOException("WebSocket message too big: " + payloadLength + " bytes");
+                }
+
+                final byte[] mask = new byte[4];
+                if (isMasked) {
+                    in.readFully(mask);
+                }
+                final byte[] payload = new byte[(int) payloadLength];
+                in.readFully(payload);
+                if (isMasked) {
+                    applyMask(payload, mask);
+                }
+
+                switch (opcode) {
+                    case OPCODE_TEXT:
+                    case OPCODE_BINARY:
+                        messageOpcode = opcode;
+                        message.reset();
+                        message.write(payload);
+                        break;
+                    case OPCODE_CONTINUATION:
+                        message.write(payload);
+                        break;
+                    case OPCODE_PING:
+                        sendFrame(OPCODE_PONG, payload);
+                        continue;
+                    case OPCODE_PONG:
+                        continue;
+                    case OPCODE_CLOSE:
+                        closeReason = "Closed by server" + describeCloseFrame(payload);
+                        if (!closed.get()) {
+                            sendFrame(OPCODE_CLOSE, payload.length >= 2 ? new byte[]{payload[0], payload[1]} : new byte[0]);
+                        }
+                        return;
+                    default:
+                        throw new IOException("Unknown WebSocket opcode: " + opcode);
+                }
+
+                if (isFinalFragment) {
+                    if (messageOpcode == OPCODE_TEXT) {
+                        listener.onMessage(new String(message.toByteArray(), StandardCharsets.UTF_8));
+                    } else {
+                        LOG.debug(() -> "Ignoring binary WebSocket message from " + uri);
+                    }
+                    message.reset();
+                }
+            }
+
+        } catch (EOFException e) {
+            closeReason = "Connection closed by server without close frame";
+        } catch (IOException e) {
+            if (!closed.get()) {
+                closeReason = "Connection failed: " + e;
+                LOG.warn("WebSocket connection to " + uri + " failed", e);
+            }
+        } catch (RuntimeException e) {
+            closeReason = "Listener failed: " + e;
+            LOG.error("WebSocket listener for " + uri + " failed - closing connection", e);
+        } finally {
+            closeConnection(closeReason);
+        }
+    }
+
+    private synchronized void sendFrame(int opcode, byte[] payload) throws IOException {
+
+        if (closed.get()) {
+            throw new IOException("WebSocket connection to " + uri + " is closed");
+        }
+
+        // RFC 6455 section 5.3 - every frame from the client must be masked
+        final byte[] mask = new byte[4];
+        ThreadLocalRandom.current().nextBytes(mask);
+
+        out.write(0x80 | opcode);
+        if (payload.length < 126) {
+            out.write(0x80 | payload.length);
+        } else if (payload.length <= 0xFFFF) {
+            out.write(0x80 | 126);
+            out.write(payload.length >>> 8);
+            out.write(payload.length);
+        } else {
+            out.write(0x80 | 127);
+            out.write(ByteBuffer.allocate(8).putLong(payload.length).array());
+        }
+        out.write(mask);
+
+        final byte[] maskedPayload = payload.clone();
+        applyMask(maskedPayload, mask);
+        out.write(maskedPayload);
+        out.flush();
+    }
+
+    private void closeConnection(String reason) {
+        if (closed.compareAndSet(false, true)) {
+            closeQuietly(socket);
+            LOG.info(() -> "WebSocket connection to " + uri + " closed: " + reason);
+            listener.onClose(reason);
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private static void performHandshake(URI uri, String host, int port, boolean secure, InputStream in,
+                                         OutputStream out) throws IOException {
+
+        final byte[] keyBytes = new byte[16];
+        ThreadLocalRandom.current().nextBytes(keyBytes);
+        final String key = DatatypeConverter.printBase64Binary(keyBytes);
+
+        final String path = (uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath())
+                + (uri.getRawQuery() != null ? "?" + uri.getRawQuery() : "");
+        final boolean isDefaultPort = (secure && port == 443) || (!secure && port == 80);
+
+        final String request = "GET " + path + " HTTP/1.1\r\n"
+                + "Host: " + host + (isDefaultPort ? "" : ":" + port) + "\r\n"
+                + "Upgrade: websocket\r\n"
+                + "Connection: Upgrade\r\n"
+                + "Sec-WebSocket-Key: " + key + "\r\n"
+                + "Sec-WebSocket-Version: 13\r\n"
+                + "User-Agent: " + ExchangeHttpTransport.USER_AGENT + "\r\n"
+                + "\r\n";
+        out.write(request.getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+
+        final String statusLine = readHeaderLine(in);
+        if (!statusLine.startsWith("HTTP/1.1 101")) {
+            throw new IOException("WebSocket handshake with " + uri + " failed: " + statusLine);
+        }
+
+        String acceptKey = null;
+        String headerLine;
+        while (!(headerLine = readHeaderLine(in)).isEmpty()) {
+            final int colon = headerLine.indexOf(':');
+            if (colon > 0 && "sec-websocket-accept".equals(
+                    headerLine.substring(0, colon).trim().toLowerCase(Locale.ENGLISH))) {
+                acceptKey = headerLine.substring(colon + 1).trim();
+            }
+        }
+
+        if (!expectedAcceptKey(key).equals(acceptKey)) {
+            throw new IOException("WebSocket handshake with " + uri + " failed: bad Sec-WebSocket-Accept " + acceptKey);
+        }
+    }
+
+    static String expectedAcceptKey(String key) {
+        try {
+            final MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+            return DatatypeConverter.printBase64Binary(
+                    sha1.digest((key + HANDSHAKE_GUID).getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available", e);
+        }
+    }
+
+    private static String readHeaderLine(InputStream in) throws IOException {
+        final StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                final int length = line.length();
+                return length > 0 && line.charAt(length - 1) == '\r' ? line.substring(0, length - 1) : line.toString();
+            }
+            if (line.length() > 8192) {
+                throw new IOException("WebSocket handshake response header too long");
+            }
+            line.append((char) b);
+        }
+        throw new EOFException("Connection closed during WebSocket handshake");
+    }
+
+    private static void applyMask(byte[] payload, byte[] mask) {
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] ^= mask[i & 3];
+        }
+    }
+
+    private static String describeCloseFrame(byte[] payload) {
+        if (payload.length < 2) {
+            return "";
+        }
+        final int code = ((payload[0] & 0xFF) << 8) | (payload[1] & 0xFF);
+        final String reason = new String(payload, 2, payload.length - 2, StandardCharsets.UTF_8);
+        return " - code: " + code + (reason.isEmpty() ? "" : " reason: " + reason);
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            LOG.debug(() -> "Failed to close WebSocket socket - " + e.getMessage());
+        }
+    }
+}
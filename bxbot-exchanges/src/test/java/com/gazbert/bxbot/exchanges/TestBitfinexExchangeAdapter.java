@@ -126,10 +126,13 @@ public class TestBitfinexExchangeAdapter {
         expect(networkConfig.getConnectionTimeout()).andReturn(30);
         expect(networkConfig.getNonFatalErrorCodes()).andReturn(nonFatalNetworkErrorCodes);
         expect(networkConfig.getNonFatalErrorMessages()).andReturn(nonFatalNetworkErrorMessages);
+        expect(networkConfig.getMaxConnectionsPerHost()).andReturn(null);
+        expect(networkConfig.getRateLimitInterval()).andReturn(null);
 
         exchangeConfig = PowerMock.createMock(ExchangeConfig.class);
         expect(exchangeConfig.getAuthenticationConfig()).andReturn(authenticationConfig);
         expect(exchangeConfig.getNetworkConfig()).andReturn(networkConfig);
+        expect(exchangeConfig.getOtherConfig()).andReturn(null);
         // other config not needed for this adapter
     }
 
@@ -335,7 +338,8 @@ public class TestBitfinexExchangeAdapter {
         // Partial mock so we do not send stuff down the wire
         final BitfinexExchangeAdapter exchangeAdapter = PowerMock.createPartialMockAndInvokeDefaultConstructor(
                 BitfinexExchangeAdapter.class, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD);
-        PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD, BOOK + "/" + MARKET_ID).
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD,
+                eq(BOOK + "/" + MARKET_ID), anyObject()).
                 andReturn(exchangeResponse);
 
         PowerMock.replayAll();
@@ -369,13 +373,43 @@ public class TestBitfinexExchangeAdapter {
         PowerMock.verifyAll();
     }
 
+    @Test
+    public void testGettingTopOfBookAsksExchangeForOnePriceLevel() throws Exception {
+
+        // Load the canned response from the exchange
+        final byte[] encoded = Files.readAllBytes(Paths.get(BOOK_JSON_RESPONSE));
+        final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+                new AbstractExchangeAdapter.ExchangeHttpResponse(200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+        // Partial mock so we do not send stuff down the wire
+        final BitfinexExchangeAdapter exchangeAdapter = PowerMock.createPartialMockAndInvokeDefaultConstructor(
+                BitfinexExchangeAdapter.class, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD);
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD,
+                eq(BOOK + "/" + MARKET_ID + "?limit_bids=1&limit_asks=1"), anyObject()).
+                andReturn(exchangeResponse);
+
+        PowerMock.replayAll();
+        exchangeAdapter.init(exchangeConfig);
+
+        final MarketOrderBook marketOrderBook = exchangeAdapter.getTopOfBook(MARKET_ID);
+
+        // canned response holds the full book, so this also checks the rest is skipped when parsing
+        assertTrue(marketOrderBook.getBuyOrders().size() == 1);
+        assertTrue(marketOrderBook.getBuyOrders().get(0).getPrice().compareTo(new BigDecimal("239.43")) == 0);
+        assertTrue(marketOrderBook.getSellOrders().size() == 1);
+        assertTrue(marketOrderBook.getSellOrders().get(0).getPrice().compareTo(new BigDecimal("239.53")) == 0);
+
+        PowerMock.verifyAll();
+    }
+
     @Test(expected = ExchangeNetworkException.class)
     public void testGettingMarketOrdersHandlesExchangeNetworkException() throws Exception {
 
         // Partial mock so we do not send stuff down the wire
         final BitfinexExchangeAdapter exchangeAdapter = PowerMock.createPartialMockAndInvokeDefaultConstructor(
                 BitfinexExchangeAdapter.class, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD);
-        PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD, BOOK + "/" + MARKET_ID).
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD,
+                eq(BOOK + "/" + MARKET_ID), anyObject()).
                 andThrow(new ExchangeNetworkException("There are three basic types, Mr. Pizer: the Wills, the Won'ts," +
                         " and the Can'ts. The Wills accomplish everything, the Won'ts oppose everything, and the " +
                         "Can'ts won't try anything."));
@@ -393,7 +427,8 @@ public class TestBitfinexExchangeAdapter {
         // Partial mock so we do not send stuff down the wire
         final BitfinexExchangeAdapter exchangeAdapter = PowerMock.createPartialMockAndInvokeDefaultConstructor(
                 BitfinexExchangeAdapter.class, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD);
-        PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD, BOOK + "/" + MARKET_ID).
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD,
+                eq(BOOK + "/" + MARKET_ID), anyObject()).
                 andThrow(new IllegalArgumentException("Deckard. B26354"));
 
         PowerMock.replayAll();
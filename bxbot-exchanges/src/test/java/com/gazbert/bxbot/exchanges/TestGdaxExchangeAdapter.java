@@ -130,10 +130,13 @@ public class TestGdaxExchangeAdapter {
         expect(networkConfig.getConnectionTimeout()).andReturn(30);
         expect(networkConfig.getNonFatalErrorCodes()).andReturn(nonFatalNetworkErrorCodes);
         expect(networkConfig.getNonFatalErrorMessages()).andReturn(nonFatalNetworkErrorMessages);
+        expect(networkConfig.getMaxConnectionsPerHost()).andReturn(null);
+        expect(networkConfig.getRateLimitInterval()).andReturn(null);
 
         otherConfig = PowerMock.createMock(OtherConfig.class);
         expect(otherConfig.getItem("buy-fee")).andReturn("0.25");
         expect(otherConfig.getItem("sell-fee")).andReturn("0.25");
+        expect(otherConfig.getItem("websocket-feed-url")).andReturn(null);
 
         exchangeConfig = PowerMock.createMock(ExchangeConfig.class);
         expect(exchangeConfig.getAuthenticationConfig()).andReturn(authenticationConfig);
@@ -408,7 +411,7 @@ public class TestGdaxExchangeAdapter {
 
         PowerMock.expectPrivate(exchangeAdapter, MOCKED_GET_REQUEST_PARAM_MAP_METHOD).andReturn(requestParamMap);
         PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD, eq(BOOK),
-                eq(requestParamMap)).andReturn(exchangeResponse);
+                eq(requestParamMap), anyObject()).andReturn(exchangeResponse);
 
         PowerMock.replayAll();
         exchangeAdapter.init(exchangeConfig);
@@ -441,6 +444,41 @@ public class TestGdaxExchangeAdapter {
         PowerMock.verifyAll();
     }
 
+    @Test
+    public void testGettingTopOfBookAsksExchangeForLevelOne() throws Exception {
+
+        // Load the canned response from the exchange
+        final byte[] encoded = Files.readAllBytes(Paths.get(BOOK_JSON_RESPONSE));
+        final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+                new AbstractExchangeAdapter.ExchangeHttpResponse(200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+        // Mock out param map so we can assert the contents passed to the transport layer are what we expect.
+        final Map<String, String> requestParamMap = PowerMock.createMock(Map.class);
+        expect(requestParamMap.put("level", "1")).andReturn(null);
+
+        // Partial mock so we do not send stuff down the wire
+        final GdaxExchangeAdapter exchangeAdapter = PowerMock.createPartialMockAndInvokeDefaultConstructor(
+                GdaxExchangeAdapter.class, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD,
+                MOCKED_GET_REQUEST_PARAM_MAP_METHOD);
+
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_GET_REQUEST_PARAM_MAP_METHOD).andReturn(requestParamMap);
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD, eq(BOOK),
+                eq(requestParamMap), anyObject()).andReturn(exchangeResponse);
+
+        PowerMock.replayAll();
+        exchangeAdapter.init(exchangeConfig);
+
+        final MarketOrderBook marketOrderBook = exchangeAdapter.getTopOfBook(MARKET_ID);
+
+        // canned response is a level 2 book, so this also checks the rest is skipped when parsing
+        assertTrue(marketOrderBook.getBuyOrders().size() == 1);
+        assertTrue(marketOrderBook.getBuyOrders().get(0).getPrice().compareTo(new BigDecimal("165.87")) == 0);
+        assertTrue(marketOrderBook.getSellOrders().size() == 1);
+        assertTrue(marketOrderBook.getSellOrders().get(0).getPrice().compareTo(new BigDecimal("165.96")) == 0);
+
+        PowerMock.verifyAll();
+    }
+
     @Test(expected = ExchangeNetworkException.class)
     public void testGettingMarketOrdersHandlesExchangeNetworkException() throws Exception {
 
@@ -449,7 +487,7 @@ public class TestGdaxExchangeAdapter {
                 GdaxExchangeAdapter.class, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD);
 
         PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD, eq(BOOK),
-                anyObject(Map.class)).
+                anyObject(Map.class), anyObject()).
                 andThrow(new ExchangeNetworkException("Re-verify our range to target... one ping only."));
 
         PowerMock.replayAll();
@@ -467,7 +505,7 @@ public class TestGdaxExchangeAdapter {
                 GdaxExchangeAdapter.class, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD);
 
         PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD, eq(BOOK),
-                anyObject(Map.class)).
+                anyObject(Map.class), anyObject()).
                 andThrow(new IllegalArgumentException("Mr. Ambassador, you have nearly a hundred naval vessels" +
                         " operating in the North Atlantic right now. Your aircraft has dropped enough sonar buoys" +
                         " so that a man could walk from Greenland to Iceland to Scotland without getting his feet " +
@@ -0,0 +1,228 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import org.junit.After;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.util.function.Predicate;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the GDAX WebSocket order book feed against a stand-in server replaying recorded level2 feeds.
+ *
+ * @author gazbert
+ */
+public class TestGdaxMarketDataFeed {
+
+    // Recorded feeds - expected to reside on filesystem relative to project root
+    private static final String SNAPSHOT_AND_UPDATES_FEED = "./src/test/exchange-data/gdax/feed/level2-snapshot-and-updates.txt";
+    private static final String SEQUENCE_GAP_FEED = "./src/test/exchange-data/gdax/feed/level2-sequence-gap.txt";
+    private static final String CROSSED_BOOK_FEED = "./src/test/exchange-data/gdax/feed/level2-crossed-book.txt";
+    private static final String RESYNC_SNAPSHOT_FEED = "./src/test/exchange-data/gdax/feed/level2-resync-snapshot.txt";
+
+    private static final String MARKET_ID = "BTC-GBP";
+    private static final int CONNECT_TIMEOUT_MILLIS = 5000;
+    private static final long STALE_BOOK_MILLIS = 10000;
+    private static final long RECONNECT_INTERVAL_MILLIS = 100;
+    private static final long AWAIT_TIMEOUT_MILLIS = 5000;
+
+    private WebSocketFeedStandInServer feedServer;
+    private GdaxMarketDataFeed feed;
+
+
+    @After
+    public void tearDownAfterEachTest() throws Exception {
+        if (feed != null) {
+            feed.close();
+        }
+        if (feedServer != null) {
+            feedServer.close();
+        }
+    }
+
+    @Test
+    public void testOrderBookIsBuiltFromSnapshotAndUpdates() throws Exception {
+
+        startFeed(SNAPSHOT_AND_UPDATES_FEED);
+
+        final MarketOrderBook orderBook = awaitOrderBook(10,
+                book -> book.getSellOrders().size() == 3
+                        && book.getSellOrders().get(2).getPrice().compareTo(new BigDecimal("2903.00")) == 0);
+
+        assertEquals(MARKET_ID, orderBook.getMarketId());
+
+        assertEquals(4, orderBook.getBuyOrders().size());
+        assertPriceAndQuantity("2900.50", "0.75", orderBook.getBuyOrders().get(0).getPrice(),
+                orderBook.getBuyOrders().get(0).getQuantity());
+        assertPriceAndQuantity("2900.00", "1.5", orderBook.getBuyOrders().get(1).getPrice(),
+                orderBook.getBuyOrders().get(1).getQuantity());
+        assertPriceAndQuantity("2899.50", "1.25", orderBook.getBuyOrders().get(2).getPrice(),
+                orderBook.getBuyOrders().get(2).getQuantity());
+        assertPriceAndQuantity("2899.00", "0.5", orderBook.getBuyOrders().get(3).getPrice(),
+                orderBook.getBuyOrders().get(3).getQuantity());
+        assertEquals(0, new BigDecimal("2175.375").compareTo(orderBook.getBuyOrders().get(0).getTotal()));
+
+        // 2901.00 level removed by the zero size update
+        assertPriceAndQuantity("2901.50", "3.0", orderBook.getSellOrders().get(0).getPrice(),
+                orderBook.getSellOrders().get(0).getQuantity());
+        assertPriceAndQuantity("2902.00", "0.25", orderBook.getSellOrders().get(1).getPrice(),
+                orderBook.getSellOrders().get(1).getQuantity());
+        assertPriceAndQuantity("2903.00", "4.0", orderBook.getSellOrders().get(2).getPrice(),
+                orderBook.getSellOrders().get(2).getQuantity());
+
+        assertEquals(0, feed.getResyncCount());
+        assertEquals(1, feedServer.getConnectionCount());
+        assertTrue(feedServer.getReceivedMessages().get(0).contains("\"level2\""));
+        assertTrue(feedServer.getReceivedMessages().get(0).contains(MARKET_ID));
+    }
+
+    @Test
+    public void testOrderBookDepthIsLimited() throws Exception {
+
+        startFeed(SNAPSHOT_AND_UPDATES_FEED);
+        awaitOrderBook(10, book -> book.getSellOrders().size() == 3);
+
+        final MarketOrderBook orderBook = feed.getMarketOrders(MARKET_ID, 2);
+        assertEquals(2, orderBook.getBuyOrders().size());
+        assertEquals(2, orderBook.getSellOrders().size());
+        assertEquals(0, new BigDecimal("2900.50").compareTo(orderBook.getBuyOrders().get(0).getPrice()));
+        assertEquals(0, new BigDecimal("2901.50").compareTo(orderBook.getSellOrders().get(0).getPrice()));
+    }
+
+    @Test
+    public void testSequenceGapTriggersResync() throws Exception {
+
+        startFeed(SEQUENCE_GAP_FEED, RESYNC_SNAPSHOT_FEED);
+
+        final MarketOrderBook orderBook = awaitOrderBook(10,
+                book -> book.getBuyOrders().get(0).getPrice().compareTo(new BigDecimal("2950.00")) == 0);
+
+        assertEquals(1, orderBook.getBuyOrders().size());
+        assertEquals(1, orderBook.getSellOrders().size());
+        assertEquals(0, new BigDecimal("2951.00").compareTo(orderBook.getSellOrders().get(0).getPrice()));
+        assertEquals(1, feed.getResyncCount());
+        assertEquals(1, feedServer.getConnectionCount());
+        assertTrue(feedServer.getReceivedMessages().get(1).contains("\"unsubscribe\""));
+    }
+
+    @Test
+    public void testCrossedBookTriggersResync() throws Exception {
+
+        startFeed(CROSSED_BOOK_FEED, RESYNC_SNAPSHOT_FEED);
+
+        final MarketOrderBook orderBook = awaitOrderBook(10,
+                book -> book.getBuyOrders().get(0).getPrice().compareTo(new BigDecimal("2950.00")) == 0);
+
+        assertEquals(1, orderBook.getBuyOrders().size());
+        assertEquals(1, feed.getResyncCount());
+    }
+
+    @Test
+    public void testBookIsDiscardedWhenConnectionDropsAndRebuiltOnReconnect() throws Exception {
+
+        startFeed(SNAPSHOT_AND_UPDATES_FEED, RESYNC_SNAPSHOT_FEED);
+        awaitOrderBook(10, book -> book.getSellOrders().size() == 3);
+
+        feedServer.dropConnections();
+        final long deadline = System.currentTimeMillis() + AWAIT_TIMEOUT_MILLIS;
+        while (feedServer.getConnectionCount() < 2 && System.currentTimeMillis() < deadline) {
+            // a null book while disconnected makes the adapter fall back to the REST API
+            feed.getMarketOrders(MARKET_ID, 10);
+            Thread.sleep(10);
+        }
+        assertEquals(2, feedServer.getConnectionCount());
+
+        final MarketOrderBook orderBook = awaitOrderBook(10,
+                book -> book.getBuyOrders().get(0).getPrice().compareTo(new BigDecimal("2950.00")) == 0);
+        assertEquals(1, orderBook.getBuyOrders().size());
+    }
+
+    @Test
+    public void testNoOrderBookReturnedBeforeSnapshot() throws Exception {
+
+        // no feed files, so no snapshot ever arrives
+        startFeed();
+        assertNull(feed.getMarketOrders(MARKET_ID, 10));
+
+        final long deadline = System.currentTimeMillis() + AWAIT_TIMEOUT_MILLIS;
+        while (feedServer.getReceivedMessages().isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, feedServer.getReceivedMessages().size());
+        assertNull(feed.getMarketOrders(MARKET_ID, 10));
+    }
+
+    @Test
+    public void testReadsNeverWaitForTheConnection() throws Exception {
+
+        // Accepts the TCP connection (via the backlog) but never completes the WebSocket handshake
+        try (ServerSocket unresponsiveServer = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            feed = new GdaxMarketDataFeed(new URI("ws://127.0.0.1:" + unresponsiveServer.getLocalPort()),
+                    CONNECT_TIMEOUT_MILLIS, STALE_BOOK_MILLIS, RECONNECT_INTERVAL_MILLIS);
+
+            final long startTime = System.currentTimeMillis();
+            for (int i = 0; i < 10; i++) {
+                assertNull(feed.getMarketOrders(MARKET_ID, 10));
+                Thread.sleep(10);
+            }
+            assertTrue(System.currentTimeMillis() - startTime < CONNECT_TIMEOUT_MILLIS / 2);
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Private utils
+    // ------------------------------------------------------------------------------------------------
+
+    private void startFeed(String... feedFiles) throws Exception {
+        feedServer = new WebSocketFeedStandInServer(feedFiles);
+        feed = new GdaxMarketDataFeed(feedServer.getUri(), CONNECT_TIMEOUT_MILLIS, STALE_BOOK_MILLIS,
+                RECONNECT_INTERVAL_MILLIS);
+    }
+
+    private MarketOrderBook awaitOrderBook(int depth, Predicate<MarketOrderBook> condition) throws Exception {
+        final long deadline = System.currentTimeMillis() + AWAIT_TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            final MarketOrderBook orderBook = feed.getMarketOrders(MARKET_ID, depth);
+            if (orderBook != null && condition.test(orderBook)) {
+                return orderBook;
+            }
+            Thread.sleep(10);
+        }
+        fail("Order book not received from feed in time");
+        return null;
+    }
+
+    private static void assertPriceAndQuantity(String expectedPrice, String expectedQuantity, BigDecimal price,
+                                               BigDecimal quantity) {
+        assertEquals(0, new BigDecimal(expectedPrice).compareTo(price));
+        assertEquals(0, new BigDecimal(expectedQuantity).compareTo(quantity));
+    }
+}
@@ -129,10 +129,13 @@ public class TestKrakenExchangeAdapter {
         expect(networkConfig.getConnectionTimeout()).andReturn(30);
         expect(networkConfig.getNonFatalErrorCodes()).andReturn(nonFatalNetworkErrorCodes);
         expect(networkConfig.getNonFatalErrorMessages()).andReturn(nonFatalNetworkErrorMessages);
+        expect(networkConfig.getMaxConnectionsPerHost()).andReturn(null);
+        expect(networkConfig.getRateLimitInterval()).andReturn(null);
 
         otherConfig = PowerMock.createMock(OtherConfig.class);
         expect(otherConfig.getItem("buy-fee")).andReturn("0.1");
         expect(otherConfig.getItem("sell-fee")).andReturn("0.2");
+        expect(otherConfig.getItem("nonce-file")).andReturn(null);
 
         exchangeConfig = PowerMock.createMock(ExchangeConfig.class);
         expect(exchangeConfig.getAuthenticationConfig()).andReturn(authenticationConfig);
@@ -164,7 +167,7 @@ public class TestKrakenExchangeAdapter {
 
         PowerMock.expectPrivate(exchangeAdapter, MOCKED_GET_REQUEST_PARAM_MAP_METHOD).andReturn(requestParamMap);
         PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD, eq(DEPTH),
-                eq(requestParamMap)).andReturn(exchangeResponse);
+                eq(requestParamMap), anyObject()).andReturn(exchangeResponse);
 
         PowerMock.replayAll();
         exchangeAdapter.init(exchangeConfig);
@@ -197,6 +200,51 @@ public class TestKrakenExchangeAdapter {
         PowerMock.verifyAll();
     }
 
+    @Test
+    public void testGettingMarketOrdersWithDepthPassesCountToExchange() throws Exception {
+
+        // Load the canned response from the exchange
+        final byte[] encoded = Files.readAllBytes(Paths.get(DEPTH_JSON_RESPONSE));
+        final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+                new AbstractExchangeAdapter.ExchangeHttpResponse(200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+        // Mock out param map so we can assert the contents passed to the transport layer are what we expect.
+        final Map<String, String> requestParamMap = PowerMock.createMock(Map.class);
+        expect(requestParamMap.put("pair", MARKET_ID)).andStubReturn(null);
+        expect(requestParamMap.put("count", "5")).andReturn(null);
+
+        // Partial mock so we do not send stuff down the wire
+        final KrakenExchangeAdapter exchangeAdapter = PowerMock.createPartialMockAndInvokeDefaultConstructor(
+                KrakenExchangeAdapter.class, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD,
+                MOCKED_GET_REQUEST_PARAM_MAP_METHOD);
+
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_GET_REQUEST_PARAM_MAP_METHOD).andReturn(requestParamMap);
+        PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD, eq(DEPTH),
+                eq(requestParamMap), anyObject()).andReturn(exchangeResponse);
+
+        PowerMock.replayAll();
+        exchangeAdapter.init(exchangeConfig);
+
+        final MarketOrderBook marketOrderBook = exchangeAdapter.getMarketOrders(MARKET_ID, 5);
+
+        // canned response holds 100 levels, so this also checks the rest is skipped when parsing
+        assertTrue(marketOrderBook.getBuyOrders().size() == 5);
+        assertTrue(marketOrderBook.getBuyOrders().get(0).getPrice().compareTo(new BigDecimal("662.55000")) == 0);
+        assertTrue(marketOrderBook.getSellOrders().size() == 5);
+        assertTrue(marketOrderBook.getSellOrders().get(0).getPrice().compareTo(new BigDecimal("664.53600")) == 0);
+
+        PowerMock.verifyAll();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGettingMarketOrdersRejectsDepthLessThanOne() throws Exception {
+
+        PowerMock.replayAll();
+        final KrakenExchangeAdapter exchangeAdapter = new KrakenExchangeAdapter();
+        exchangeAdapter.init(exchangeConfig);
+        exchangeAdapter.getMarketOrders(MARKET_ID, 0);
+    }
+
     @Test(expected = TradingApiException.class)
     public void testGettingMarketOrdersHandlesErrorResponse() throws Exception {
 
@@ -216,7 +264,7 @@ public class TestKrakenExchangeAdapter {
 
         PowerMock.expectPrivate(exchangeAdapter, MOCKED_GET_REQUEST_PARAM_MAP_METHOD).andReturn(requestParamMap);
         PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD, eq(DEPTH),
-                eq(requestParamMap)).andReturn(exchangeResponse);
+                eq(requestParamMap), anyObject()).andReturn(exchangeResponse);
 
         PowerMock.replayAll();
         exchangeAdapter.init(exchangeConfig);
@@ -233,7 +281,7 @@ public class TestKrakenExchangeAdapter {
                 KrakenExchangeAdapter.class, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD);
 
         PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD, eq(DEPTH),
-                anyObject(Map.class)).
+                anyObject(Map.class), anyObject()).
                 andThrow(new ExchangeNetworkException("You're not giving orders. You're in my world now."));
 
         PowerMock.replayAll();
@@ -251,7 +299,7 @@ public class TestKrakenExchangeAdapter {
                 KrakenExchangeAdapter.class, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD);
 
         PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD, eq(DEPTH),
-                anyObject(Map.class)).
+                anyObject(Map.class), anyObject()).
                 andThrow(new IllegalArgumentException("Down time is the worst, isn’t it? " +
                         "Adrenaline leaves and the mind starts to wander..."));
 
@@ -0,0 +1,173 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the nonce service hands out unique, increasing nonces and persists its high-water mark.
+ *
+ * @author gazbert
+ */
+public class TestNonceService {
+
+    private static final int THREAD_COUNT = 8;
+    private static final int NONCES_PER_THREAD = 5000;
+
+    private Path highWaterMarkDir;
+
+
+    @Before
+    public void setupForEachTest() throws Exception {
+        highWaterMarkDir = Files.createTempDirectory("bxbot-nonce");
+    }
+
+    @After
+    public void tearDownAfterEachTest() throws Exception {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(highWaterMarkDir)) {
+            for (final Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(highWaterMarkDir);
+    }
+
+    @Test
+    public void testServiceIsSharedPerApiKey() {
+
+        final String apiKey = uniqueApiKey();
+        final NonceService nonceService = NonceService.forApiKey(apiKey, null);
+        assertSame(nonceService, NonceService.forApiKey(apiKey, null));
+        assertNotSame(nonceService, NonceService.forApiKey(uniqueApiKey(), null));
+    }
+
+    @Test
+    public void testFirstNonceIsSeededFromClockInSeconds() {
+
+        final long clockSeconds = System.currentTimeMillis() / 1000;
+        final NonceService nonceService = NonceService.forApiKey(uniqueApiKey(), null);
+
+        final long nonce = nonceService.nextNonce();
+        assertTrue(nonce >= clockSeconds);
+        assertEquals(nonce + 1, nonceService.nextNonce());
+        assertEquals(nonce + 1, nonceService.getLastNonce());
+    }
+
+    @Test
+    public void testConcurrentCallersNeverGetTheSameNonce() throws Exception {
+
+        final NonceService nonceService = NonceService.forApiKey(uniqueApiKey(), highWaterMarkDir.resolve("nonce"));
+        final Set<Long> nonces = ConcurrentHashMap.newKeySet();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        try {
+            final List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < THREAD_COUNT; i++) {
+                results.add(executor.submit(() -> {
+                    long previousNonce = 0;
+                    for (int j = 0; j < NONCES_PER_THREAD; j++) {
+                        final long nonce = nonceService.nextNonce();
+                        if (nonce <= previousNonce || !nonces.add(nonce)) {
+                            return false;
+                        }
+                        previousNonce = nonce;
+                    }
+                    return true;
+                }));
+            }
+            for (final Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(THREAD_COUNT * NONCES_PER_THREAD, nonces.size());
+        assertTrue(readHighWaterMark(highWaterMarkDir.resolve("nonce")) >= nonceService.getLastNonce());
+    }
+
+    @Test
+    public void testRestartStartsAboveHighWaterMark() throws Exception {
+
+        final Path highWaterMarkFile = highWaterMarkDir.resolve("nonce");
+
+        // Far ahead of the clock, as if the last run issued nonces faster than one a second
+        final long previousHighWaterMark = System.currentTimeMillis() / 1000 + 1000000;
+        Files.write(highWaterMarkFile, Long.toString(previousHighWaterMark).getBytes(StandardCharsets.UTF_8));
+
+        final NonceService nonceService = NonceService.forApiKey(uniqueApiKey(), highWaterMarkFile);
+        final long nonce = nonceService.nextNonce();
+        assertEquals(previousHighWaterMark + 1, nonce);
+        assertEquals(nonce + NonceService.RESERVED_BLOCK_SIZE - 1, readHighWaterMark(highWaterMarkFile));
+
+        // The next block is only reserved once this one is used up
+        for (int i = 1; i < NonceService.RESERVED_BLOCK_SIZE; i++) {
+            nonceService.nextNonce();
+        }
+        assertEquals(nonce + NonceService.RESERVED_BLOCK_SIZE - 1, readHighWaterMark(highWaterMarkFile));
+        nonceService.nextNonce();
+        assertEquals(nonce + 2 * NonceService.RESERVED_BLOCK_SIZE - 1, readHighWaterMark(highWaterMarkFile));
+
+        // 'Restart' - a new service using the same file must not reuse any nonce
+        final NonceService restartedNonceService = NonceService.forApiKey(uniqueApiKey(), highWaterMarkFile);
+        assertTrue(restartedNonceService.nextNonce() > nonceService.getLastNonce());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCorruptHighWaterMarkFileIsRejected() throws Exception {
+
+        final Path highWaterMarkFile = highWaterMarkDir.resolve("nonce");
+        Files.write(highWaterMarkFile, "not-a-nonce".getBytes(StandardCharsets.UTF_8));
+        NonceService.forApiKey(uniqueApiKey(), highWaterMarkFile);
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private static String uniqueApiKey() {
+        return UUID.randomUUID().toString();
+    }
+
+    private static long readHighWaterMark(Path highWaterMarkFile) throws Exception {
+        return Long.parseLong(new String(Files.readAllBytes(highWaterMarkFile), StandardCharsets.UTF_8).trim());
+    }
+}
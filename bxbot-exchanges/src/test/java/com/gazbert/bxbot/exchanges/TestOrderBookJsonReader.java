@@ -0,0 +1,168 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.trading.api.MarketOrder;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.google.gson.stream.JsonReader;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the streaming order book parser against the canned exchange responses.
+ *
+ * @author gazbert
+ */
+public class TestOrderBookJsonReader {
+
+    // Canned test data - expected to reside on filesystem relative to project root
+    private static final String BITFINEX_BOOK_JSON_RESPONSE = "./src/test/exchange-data/bitfinex/book.json";
+    private static final String BITSTAMP_ORDER_BOOK_JSON_RESPONSE = "./src/test/exchange-data/bitstamp/order_book.json";
+    private static final String BTCE_DEPTH_JSON_RESPONSE = "./src/test/exchange-data/btce/depth.json";
+    private static final String HUOBI_ORDER_BOOK_JSON_RESPONSE = "./src/test/exchange-data/huobi/detail_btc.json";
+
+    private static final String MARKET_ID = "btc_usd";
+
+
+    @Test
+    public void testReadingOrderBookWithArrayPriceLevels() throws Exception {
+
+        final MarketOrderBook orderBook = OrderBookJsonReader.readOrderBook(readResponse(BITSTAMP_ORDER_BOOK_JSON_RESPONSE),
+                MARKET_ID, "bids", "asks", OrderBookJsonReader.ALL_PRICE_LEVELS);
+
+        assertEquals(MARKET_ID, orderBook.getMarketId());
+        assertEquals(1268, orderBook.getBuyOrders().size());
+        assertEquals(1957, orderBook.getSellOrders().size());
+
+        final MarketOrder buyOrder = orderBook.getBuyOrders().get(0);
+        assertEquals(OrderType.BUY, buyOrder.getType());
+        assertEquals(0, buyOrder.getPrice().compareTo(new BigDecimal("230.34")));
+        assertEquals(0, buyOrder.getQuantity().compareTo(new BigDecimal("7.22860000")));
+        assertEquals(0, buyOrder.getTotal().compareTo(buyOrder.getPrice().multiply(buyOrder.getQuantity())));
+        assertEquals(OrderType.SELL, orderBook.getSellOrders().get(0).getType());
+    }
+
+    @Test
+    public void testReadingOrderBookWithObjectPriceLevels() throws Exception {
+
+        final MarketOrderBook orderBook = OrderBookJsonReader.readOrderBook(readResponse(BITFINEX_BOOK_JSON_RESPONSE),
+                MARKET_ID, "bids", "asks", OrderBookJsonReader.ALL_PRICE_LEVELS);
+
+        assertEquals(906, orderBook.getBuyOrders().size());
+        assertEquals(984, orderBook.getSellOrders().size());
+
+        final MarketOrder buyOrder = orderBook.getBuyOrders().get(0);
+        assertEquals(0, buyOrder.getPrice().compareTo(new BigDecimal("239.43")));
+        assertEquals(0, buyOrder.getQuantity().compareTo(new BigDecimal("5.0")));
+
+        final MarketOrder sellOrder = orderBook.getSellOrders().get(0);
+        assertEquals(OrderType.SELL, sellOrder.getType());
+        assertEquals(0, sellOrder.getPrice().compareTo(new BigDecimal("239.53")));
+        assertEquals(0, sellOrder.getQuantity().compareTo(new BigDecimal("6.35595596")));
+    }
+
+    @Test
+    public void testReadingOrderBookWithNumericValuesAndCustomSideNames() throws Exception {
+
+        final MarketOrderBook orderBook = OrderBookJsonReader.readOrderBook(readResponse(HUOBI_ORDER_BOOK_JSON_RESPONSE),
+                MARKET_ID, "buys", "sells", OrderBookJsonReader.ALL_PRICE_LEVELS);
+
+        assertEquals(10, orderBook.getBuyOrders().size());
+        assertEquals(10, orderBook.getSellOrders().size());
+
+        // Numbers are read as their literal text so no precision is lost via double
+        final MarketOrder buyOrder = orderBook.getBuyOrders().get(0);
+        assertEquals(new BigDecimal("246.79"), buyOrder.getPrice());
+        assertEquals(new BigDecimal("0.0251"), buyOrder.getQuantity());
+        assertEquals(new BigDecimal("6.194429"), buyOrder.getTotal());
+    }
+
+    @Test
+    public void testReadingOrderBookHeldInMarketField() throws Exception {
+
+        final MarketOrderBook orderBook = OrderBookJsonReader.readOrderBookField(
+                new JsonReader(readResponse(BTCE_DEPTH_JSON_RESPONSE)), MARKET_ID, MARKET_ID, "bids", "asks",
+                OrderBookJsonReader.ALL_PRICE_LEVELS);
+
+        assertEquals(150, orderBook.getBuyOrders().size());
+        assertEquals(150, orderBook.getSellOrders().size());
+        assertEquals(new BigDecimal("224.89"), orderBook.getBuyOrders().get(0).getPrice());
+        assertEquals(new BigDecimal("224.933"), orderBook.getSellOrders().get(0).getPrice());
+    }
+
+    @Test
+    public void testReadingOrderBookFieldReturnsNullWhenMarketIsMissing() throws Exception {
+
+        assertNull(OrderBookJsonReader.readOrderBookField(new JsonReader(readResponse(BTCE_DEPTH_JSON_RESPONSE)),
+                "ltc_usd", "ltc_usd", "bids", "asks", OrderBookJsonReader.ALL_PRICE_LEVELS));
+    }
+
+    @Test
+    public void testPriceLevelsBeyondMaxLevelsAreSkipped() throws Exception {
+
+        final MarketOrderBook orderBook = OrderBookJsonReader.readOrderBook(readResponse(BITSTAMP_ORDER_BOOK_JSON_RESPONSE),
+                MARKET_ID, "bids", "asks", 5);
+
+        assertEquals(5, orderBook.getBuyOrders().size());
+        assertEquals(5, orderBook.getSellOrders().size());
+        assertEquals(0, orderBook.getBuyOrders().get(0).getPrice().compareTo(new BigDecimal("230.34")));
+        assertEquals(0, orderBook.getBuyOrders().get(4).getPrice().compareTo(new BigDecimal("229.98")));
+    }
+
+    @Test
+    public void testMissingOrNullSideIsReturnedEmpty() throws Exception {
+
+        final MarketOrderBook orderBook = OrderBookJsonReader.readOrderBook(
+                new StringReader("{\"bids\": null, \"sequence\": 42}"), MARKET_ID, "bids", "asks",
+                OrderBookJsonReader.ALL_PRICE_LEVELS);
+
+        assertTrue(orderBook.getBuyOrders().isEmpty());
+        assertTrue(orderBook.getSellOrders().isEmpty());
+    }
+
+    @Test(expected = IOException.class)
+    public void testPriceLevelObjectWithoutAmountIsRejected() throws Exception {
+
+        OrderBookJsonReader.readOrderBook(new StringReader("{\"bids\": [{\"price\": \"239.43\"}]}"), MARKET_ID,
+                "bids", "asks", OrderBookJsonReader.ALL_PRICE_LEVELS);
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private static Reader readResponse(String cannedResponse) throws IOException {
+        return new StringReader(new String(Files.readAllBytes(Paths.get(cannedResponse)), StandardCharsets.UTF_8));
+    }
+}
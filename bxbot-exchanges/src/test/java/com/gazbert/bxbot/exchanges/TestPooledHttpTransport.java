@@ -0,0 +1,296 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gazbert.bxbot.exchanges;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the behaviour of the pooled keep-alive HTTP transport against a local HTTP server.
+ *
+ * @author gazbert
+ */
+public class TestPooledHttpTransport {
+
+    private static final int CONNECTION_TIMEOUT = 5;
+    private static final int MAX_CONNECTIONS_PER_HOST = 2;
+    private static final int IDLE_CONNECTION_TIMEOUT = 30;
+
+    private static final String TICKER_JSON_RESPONSE = "{\"last\":\"584.37\"}";
+    private static final String ERROR_JSON_RESPONSE = "{\"error\":\"EService:Unavailable\"}";
+
+    private HttpServer exchangeServer;
+    private PooledHttpTransport httpTransport;
+    private final AtomicReference<String> lastRequestBody = new AtomicReference<>();
+    private final AtomicReference<String> lastContentType = new AtomicReference<>();
+    private final AtomicInteger droppedRequestCount = new AtomicInteger();
+    private final CountDownLatch slowRequestsReleased = new CountDownLatch(1);
+    private final ExecutorService serverExecutor = Executors.newCachedThreadPool();
+
+
+    @Before
+    public void setupForEachTest() throws Exception {
+
+        exchangeServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        exchangeServer.createContext("/ticker", exchange -> {
+            final byte[] body = TICKER_JSON_RESPONSE.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream responseBody = exchange.getResponseBody()) {
+                responseBody.write(body);
+            }
+        });
+        exchangeServer.createContext("/order", exchange -> {
+            final byte[] requestBody = new byte[1024];
+            int bytesRead = 0;
+            int read;
+            while ((read = exchange.getRequestBody().read(requestBody, bytesRead, requestBody.length - bytesRead)) > 0) {
+                bytesRead += read;
+            }
+            lastRequestBody.set(new String(requestBody, 0, bytesRead, StandardCharsets.UTF_8));
+            lastContentType.set(exchange.getRequestHeaders().getFirst("Content-Type"));
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        exchangeServer.createContext("/unavailable", exchange -> {
+            final byte[] body = ERROR_JSON_RESPONSE.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(503, body.length);
+            try (OutputStream responseBody = exchange.getResponseBody()) {
+                responseBody.write(body);
+            }
+        });
+        exchangeServer.createContext("/dropped", exchange -> {
+            droppedRequestCount.incrementAndGet();
+            throw new IOException("Connection dropped before responding"); // server closes the connection
+        });
+        exchangeServer.createContext("/slow", exchange -> {
+            try {
+                slowRequestsReleased.await(CONNECTION_TIMEOUT, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            final byte[] body = TICKER_JSON_RESPONSE.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream responseBody = exchange.getResponseBody()) {
+                responseBody.write(body);
+            }
+        });
+        exchangeServer.setExecutor(serverExecutor);
+        exchangeServer.start();
+
+        httpTransport = new PooledHttpTransport(CONNECTION_TIMEOUT, MAX_CONNECTIONS_PER_HOST, IDLE_CONNECTION_TIMEOUT);
+    }
+
+    @After
+    public void tearDownAfterEachTest() throws Exception {
+        slowRequestsReleased.countDown();
+        httpTransport.close();
+        exchangeServer.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testConnectionIsReusedAcrossRequests() throws Exception {
+
+        for (int i = 0; i < 5; i++) {
+            final AbstractExchangeAdapter.ExchangeHttpResponse response =
+                    httpTransport.sendRequest(exchangeUrl("/ticker"), "GET", null, null);
+            assertEquals(200, response.getStatusCode());
+            assertEquals(TICKER_JSON_RESPONSE, response.getPayload());
+        }
+
+        final PooledHttpTransport.ConnectionPoolStats poolStats = httpTransport.getPoolStats();
+        assertEquals(1, poolStats.getCreated());
+        assertEquals(1, poolStats.getIdle());
+        assertEquals(0, poolStats.getLeased());
+        assertEquals(0, poolStats.getPending());
+        assertEquals(MAX_CONNECTIONS_PER_HOST, poolStats.getMaxPerHost());
+    }
+
+    @Test
+    public void testPostDataIsSentWithFormContentTypeByDefault() throws Exception {
+
+        httpTransport.sendRequest(exchangeUrl("/order"), "POST", "pair=XBTUSD&type=buy", null);
+        assertEquals("pair=XBTUSD&type=buy", lastRequestBody.get());
+        assertEquals("application/x-www-form-urlencoded", lastContentType.get());
+
+        final Map<String, String> requestHeaders = new HashMap<>();
+        requestHeaders.put("Content-Type", "application/json");
+        httpTransport.sendRequest(exchangeUrl("/order"), "POST", "{\"pair\":\"XBTUSD\"}", requestHeaders);
+        assertEquals("{\"pair\":\"XBTUSD\"}", lastRequestBody.get());
+        assertEquals("application/json", lastContentType.get());
+
+        assertEquals(1, httpTransport.getPoolStats().getCreated());
+    }
+
+    @Test
+    public void testErrorResponseIsReturnedAndConnectionIsReused() throws Exception {
+
+        final AbstractExchangeAdapter.ExchangeHttpResponse response =
+                httpTransport.sendRequest(exchangeUrl("/unavailable"), "GET", null, null);
+        assertEquals(503, response.getStatusCode());
+        assertEquals(ERROR_JSON_RESPONSE, response.getPayload());
+
+        httpTransport.sendRequest(exchangeUrl("/ticker"), "GET", null, null);
+        assertEquals(1, httpTransport.getPoolStats().getCreated());
+    }
+
+    @Test
+    public void testSuccessBodyIsStreamedToReaderAndConnectionIsReused() throws Exception {
+
+        for (int i = 0; i < 3; i++) {
+            // Only reads the first char - the transport must drain the rest before returning the connection
+            final AbstractExchangeAdapter.ExchangeHttpResponse response = httpTransport.sendRequest(
+                    exchangeUrl("/ticker"), "GET", null, null, responseBody -> (char) responseBody.read());
+            assertEquals(200, response.getStatusCode());
+            assertEquals(Character.valueOf('{'), response.readPayload(responseBody -> {
+                throw new AssertionError("Body should already have been read");
+            }));
+        }
+
+        assertEquals(1, httpTransport.getPoolStats().getCreated());
+        assertEquals(0, httpTransport.getPoolStats().getLeased());
+    }
+
+    @Test
+    public void testStreamedResponseShowsByteCountInsteadOfPayload() throws Exception {
+
+        final AbstractExchangeAdapter.ExchangeHttpResponse response = httpTransport.sendRequest(
+                exchangeUrl("/ticker"), "GET", null, null, responseBody -> {
+                    while (responseBody.read() != -1) {
+                        // read it all
+                    }
+                    return null;
+                });
+
+        final String loggedResponse = response.toString();
+        assertTrue(loggedResponse.contains("statusCode=200"));
+        assertTrue(loggedResponse.contains("payloadBytes="
+                + TICKER_JSON_RESPONSE.getBytes(StandardCharsets.UTF_8).length));
+        assertFalse(loggedResponse.contains(TICKER_JSON_RESPONSE));
+    }
+
+    @Test
+    public void testErrorBodyIsNotStreamedToReader() throws Exception {
+
+        final AbstractExchangeAdapter.ExchangeHttpResponse response = httpTransport.sendRequest(
+                exchangeUrl("/unavailable"), "GET", null, null, responseBody -> {
+                    throw new AssertionError("Error body should not be streamed");
+                });
+        assertEquals(503, response.getStatusCode());
+        assertEquals(ERROR_JSON_RESPONSE, response.getPayload());
+    }
+
+    @Test
+    public void testSentRequestIsNeverRetried() throws Exception {
+
+        for (final String httpMethod : new String[]{"GET", "DELETE", "POST"}) {
+            droppedRequestCount.set(0);
+            try {
+                httpTransport.sendRequest(exchangeUrl("/dropped"), httpMethod, null, null);
+                fail("Expected the dropped " + httpMethod + " request to fail");
+            } catch (IOException e) {
+                assertEquals(httpMethod + " request was retried", 1, droppedRequestCount.get());
+            }
+        }
+    }
+
+    @Test
+    public void testRequestFindingAllConnectionsInUseIsCounted() throws Exception {
+
+        final ExecutorService requestExecutor = Executors.newFixedThreadPool(MAX_CONNECTIONS_PER_HOST + 1);
+        try {
+            for (int i = 0; i < MAX_CONNECTIONS_PER_HOST; i++) {
+                requestExecutor.execute(() -> sendRequest("/slow"));
+            }
+
+            // wait for the slow requests to lease every connection
+            final long deadline = System.currentTimeMillis() + CONNECTION_TIMEOUT * 1000L;
+            while (httpTransport.getPoolStats().getLeased() < MAX_CONNECTIONS_PER_HOST) {
+                assertTrue(System.currentTimeMillis() < deadline);
+                Thread.sleep(10);
+            }
+            assertEquals(0, httpTransport.getPoolStats().getTimesExhausted());
+
+            // the next request has to wait for one of them to finish
+            final Future<AbstractExchangeAdapter.ExchangeHttpResponse> waitingResponse =
+                    requestExecutor.submit(() -> sendRequest("/ticker"));
+            while (httpTransport.getPoolStats().getTimesExhausted() == 0) {
+                assertTrue(System.currentTimeMillis() < deadline);
+                Thread.sleep(10);
+            }
+
+            slowRequestsReleased.countDown();
+            assertEquals(200, waitingResponse.get(CONNECTION_TIMEOUT, TimeUnit.SECONDS).getStatusCode());
+            assertEquals(1, httpTransport.getPoolStats().getTimesExhausted());
+
+        } finally {
+            requestExecutor.shutdown();
+            assertTrue(requestExecutor.awaitTermination(CONNECTION_TIMEOUT, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testClosingTransportClosesPooledConnections() throws Exception {
+
+        httpTransport.sendRequest(exchangeUrl("/ticker"), "GET", null, null);
+        assertEquals(1, httpTransport.getPoolStats().getIdle());
+
+        httpTransport.close();
+        assertEquals(0, httpTransport.getPoolStats().getIdle());
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private AbstractExchangeAdapter.ExchangeHttpResponse sendRequest(String path) {
+        try {
+            return httpTransport.sendRequest(exchangeUrl(path), "GET", null, null);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private URL exchangeUrl(String path) throws Exception {
+        return new URL("http", "127.0.0.1", exchangeServer.getAddress().getPort(), path);
+    }
+}
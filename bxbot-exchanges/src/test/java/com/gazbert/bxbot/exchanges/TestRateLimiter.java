@@ -0,0 +1,146 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the rate limiter hands out permits at the configured rate and lets higher priority calls go first.
+ *
+ * @author gazbert
+ */
+public class TestRateLimiter {
+
+    private static final long INTERVAL_MILLIS = 200;
+
+
+    @Test
+    public void testBurstIsAvailableStraightAway() throws Exception {
+
+        final RateLimiter rateLimiter = new RateLimiter(3, INTERVAL_MILLIS);
+        assertEquals(3, rateLimiter.getAvailablePermits());
+
+        final long start = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.acquire(RequestPriority.MARKET_DATA);
+        }
+        assertTrue(elapsedMillis(start) < INTERVAL_MILLIS);
+        assertEquals(0, rateLimiter.getAvailablePermits());
+    }
+
+    @Test
+    public void testCallWaitsForNextPermitOnceBurstIsUsed() throws Exception {
+
+        final RateLimiter rateLimiter = new RateLimiter(1, INTERVAL_MILLIS);
+        rateLimiter.acquire(RequestPriority.ACCOUNT);
+
+        final long start = System.nanoTime();
+        rateLimiter.acquire(RequestPriority.ACCOUNT);
+        assertTrue(elapsedMillis(start) >= INTERVAL_MILLIS / 2);
+    }
+
+    @Test
+    public void testPermitsDoNotBuildUpBeyondBurst() throws Exception {
+
+        final RateLimiter rateLimiter = new RateLimiter(2, 10);
+        Thread.sleep(100);
+        assertEquals(2, rateLimiter.getAvailablePermits());
+    }
+
+    @Test
+    public void testOrderCallsGoAheadOfWaitingMarketDataCalls() throws Exception {
+
+        final RateLimiter rateLimiter = new RateLimiter(1, INTERVAL_MILLIS);
+        rateLimiter.acquire(RequestPriority.MARKET_DATA);
+
+        final List<RequestPriority> permitOrder = new CopyOnWriteArrayList<>();
+        final Thread marketDataCall = startCall(rateLimiter, RequestPriority.MARKET_DATA, permitOrder);
+        Thread.sleep(INTERVAL_MILLIS / 4); // make sure the market data call is queued first
+        final Thread orderCall = startCall(rateLimiter, RequestPriority.ORDER, permitOrder);
+
+        orderCall.join(TimeUnit.SECONDS.toMillis(5));
+        marketDataCall.join(TimeUnit.SECONDS.toMillis(5));
+        assertEquals(2, permitOrder.size());
+        assertEquals(RequestPriority.ORDER, permitOrder.get(0));
+        assertEquals(RequestPriority.MARKET_DATA, permitOrder.get(1));
+    }
+
+    @Test
+    public void testInterruptedCallGivesUpWaitingAndDoesNotBlockOtherLanes() throws Exception {
+
+        final RateLimiter rateLimiter = new RateLimiter(1, INTERVAL_MILLIS);
+        rateLimiter.acquire(RequestPriority.ORDER);
+
+        final CountDownLatch waiting = new CountDownLatch(1);
+        final AtomicReference<Throwable> thrown = new AtomicReference<>();
+        final Thread orderCall = new Thread(() -> {
+            try {
+                waiting.countDown();
+                rateLimiter.acquire(RequestPriority.ORDER);
+            } catch (Throwable e) {
+                thrown.set(e);
+            }
+        });
+        orderCall.start();
+        waiting.await();
+        Thread.sleep(INTERVAL_MILLIS / 4);
+        orderCall.interrupt();
+        orderCall.join(TimeUnit.SECONDS.toMillis(5));
+        assertTrue(thrown.get() instanceof InterruptedException);
+
+        // The abandoned order call must not hold back the lower lanes
+        final long start = System.nanoTime();
+        rateLimiter.acquire(RequestPriority.MARKET_DATA);
+        assertTrue(elapsedMillis(start) < 2 * INTERVAL_MILLIS);
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private static Thread startCall(RateLimiter rateLimiter, RequestPriority priority, List<RequestPriority> permitOrder) {
+        final Thread call = new Thread(() -> {
+            try {
+                rateLimiter.acquire(priority);
+                permitOrder.add(priority);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        call.start();
+        return call;
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import org.junit.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the request signer produces the same signatures as the JDK Mac, MessageDigest and Base64 classes.
+ *
+ * @author gazbert
+ */
+public class TestRequestSigner {
+
+    private static final byte[] SECRET = "my-api-secret".getBytes(StandardCharsets.UTF_8);
+    private static final String MESSAGE = "{\"request\":\"/v1/balances\",\"nonce\":\"1461426186\"}";
+    private static final long NONCE = 1461426186L;
+
+    private static final int THREAD_COUNT = 8;
+    private static final int SIGNATURES_PER_THREAD = 500;
+
+
+    @Test
+    public void testMacAsHexMatchesJdk() throws Exception {
+
+        final RequestSigner requestSigner = RequestSigner.forMac("HmacSHA384", SECRET);
+        final byte[] expected = jdkMac("HmacSHA384", MESSAGE.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(toHex(expected), requestSigner.begin().append(MESSAGE).mac().toHexString());
+        assertEquals(toHex(expected).toUpperCase(), requestSigner.begin().append(MESSAGE).mac().toUpperCaseHexString());
+    }
+
+    @Test
+    public void testHashOfNoncePlusPayloadWithPathPrependedMatchesJdk() throws Exception {
+
+        final String path = "/0/private/Balance";
+        final byte[] messageHash = MessageDigest.getInstance("SHA-256").digest(
+                (Long.toString(NONCE) + MESSAGE).getBytes(StandardCharsets.UTF_8));
+        final byte[] pathAndHash = concat(path.getBytes(StandardCharsets.UTF_8), messageHash);
+        final String expected = Base64.getEncoder().encodeToString(jdkMac("HmacSHA512", pathAndHash));
+
+        final RequestSigner requestSigner = RequestSigner.forMac("HmacSHA512", SECRET);
+        final String signature = requestSigner.begin().append(NONCE).append(MESSAGE).digest("SHA-256")
+                .prepend(path).mac().toBase64String();
+        assertEquals(expected, signature);
+    }
+
+    @Test
+    public void testDigestOnlySigner() throws Exception {
+
+        final RequestSigner requestSigner = RequestSigner.forDigest("MD5");
+        assertEquals(toHex(MessageDigest.getInstance("MD5").digest(MESSAGE.getBytes(StandardCharsets.UTF_8))),
+                requestSigner.begin().append(MESSAGE).digest("MD5").toHexString());
+        assertEquals("85716F0702D2D464803E1366A7678D0B",
+                requestSigner.begin().append("ABC123abc").digest("MD5").toUpperCaseHexString());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDigestOnlySignerCannotMac() throws Exception {
+        RequestSigner.forDigest("MD5").begin().append(MESSAGE).mac();
+    }
+
+    @Test(expected = NoSuchAlgorithmException.class)
+    public void testUnknownMacAlgorithmIsRejectedUpFront() throws Exception {
+        RequestSigner.forMac("HmacNotAnAlgorithm", SECRET);
+    }
+
+    @Test
+    public void testBase64MatchesJdkForEveryPaddingLength() throws Exception {
+
+        final RequestSigner requestSigner = RequestSigner.forDigest("MD5");
+        for (int length = 0; length < 10; length++) {
+            final String text = MESSAGE.substring(0, length);
+            assertEquals(Base64.getEncoder().encodeToString(text.getBytes(StandardCharsets.UTF_8)),
+                    requestSigner.begin().append(text).toBase64String());
+        }
+    }
+
+    @Test
+    public void testNumbersAndNonAsciiTextAreEncodedLikeStrings() throws Exception {
+
+        final RequestSigner requestSigner = RequestSigner.forDigest("MD5");
+        for (final long number : new long[]{0, 7, -42, NONCE, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            assertEquals(Base64.getEncoder().encodeToString(Long.toString(number).getBytes(StandardCharsets.UTF_8)),
+                    requestSigner.begin().append(number).toBase64String());
+        }
+
+        final String nonAscii = "price=\u00a3230.34&note=\u20ac\ud83d\ude00";
+        assertEquals(Base64.getEncoder().encodeToString(nonAscii.getBytes(StandardCharsets.UTF_8)),
+                requestSigner.begin().append(nonAscii).toBase64String());
+    }
+
+    @Test
+    public void testPayloadGrowsBeyondInitialCapacity() throws Exception {
+
+        final StringBuilder largeMessage = new StringBuilder();
+        while (largeMessage.length() < 10000) {
+            largeMessage.append(MESSAGE);
+        }
+
+        final RequestSigner requestSigner = RequestSigner.forMac("HmacSHA256", SECRET);
+        assertEquals(toHex(jdkMac("HmacSHA256", largeMessage.toString().getBytes(StandardCharsets.UTF_8))),
+                requestSigner.begin().append(largeMessage).mac().toHexString());
+        assertEquals(Base64.getEncoder().encodeToString(largeMessage.toString().getBytes(StandardCharsets.UTF_8)),
+                requestSigner.begin().append(largeMessage).toBase64String());
+    }
+
+    @Test
+    public void testConcurrentSigningGivesEachThreadTheRightSignature() throws Exception {
+
+        final RequestSigner requestSigner = RequestSigner.forMac("HmacSHA512", SECRET);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        try {
+            final List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < THREAD_COUNT; i++) {
+                final int thread = i;
+                results.add(executor.submit(() -> {
+                    for (int j = 0; j < SIGNATURES_PER_THREAD; j++) {
+                        final String message = MESSAGE + thread + "-" + j;
+                        final String expected = toHex(jdkMac("HmacSHA512", message.getBytes(StandardCharsets.UTF_8)));
+                        if (!expected.equals(requestSigner.begin().append(message).mac().toHexString())) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (final Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private static byte[] jdkMac(String algorithm, byte[] message) throws Exception {
+        final Mac mac = Mac.getInstance(algorithm);
+        mac.init(new SecretKeySpec(SECRET, algorithm));
+        return mac.doFinal(message);
+    }
+
+    private static String toHex(byte[] bytes) {
+        final StringBuilder hex = new StringBuilder();
+        for (final byte b : bytes) {
+            hex.append(String.format("%02x", b & 0xff));
+        }
+        return hex.toString();
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        final byte[] result = new byte[first.length + second.length];
+        System.arraycopy(first, 0, result, 0, first.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gazbert.bxbot.exchanges;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the Serial Executor used for queuing authenticated async API calls behaves as expected.
+ *
+ * @author gazbert
+ */
+public class TestSerialExecutor {
+
+    private static final int TASK_COUNT = 100;
+
+    private ExecutorService sharedExecutor;
+
+
+    @Before
+    public void setupForEachTest() {
+        sharedExecutor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDownAfterEachTest() {
+        sharedExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testTasksRunOneAtATimeInSubmissionOrder() throws Exception {
+
+        final SerialExecutor serialExecutor = new SerialExecutor(sharedExecutor);
+        final List<Integer> executionOrder = new CopyOnWriteArrayList<>();
+        final AtomicInteger tasksInFlight = new AtomicInteger();
+        final AtomicInteger maxTasksInFlight = new AtomicInteger();
+        final CountDownLatch allTasksDone = new CountDownLatch(TASK_COUNT);
+
+        for (int i = 0; i < TASK_COUNT; i++) {
+            final int taskNumber = i;
+            serialExecutor.execute(() -> {
+                maxTasksInFlight.accumulateAndGet(tasksInFlight.incrementAndGet(), Math::max);
+                executionOrder.add(taskNumber);
+                tasksInFlight.decrementAndGet();
+                allTasksDone.countDown();
+            });
+        }
+
+        assertTrue(allTasksDone.await(5, TimeUnit.SECONDS));
+        assertEquals(1, maxTasksInFlight.get());
+        for (int i = 0; i < TASK_COUNT; i++) {
+            assertEquals(Integer.valueOf(i), executionOrder.get(i));
+        }
+    }
+
+    @Test
+    public void testFailingTaskDoesNotBlockTheLane() throws Exception {
+
+        final SerialExecutor serialExecutor = new SerialExecutor(sharedExecutor);
+        final CountDownLatch nextTaskRun = new CountDownLatch(1);
+
+        serialExecutor.execute(() -> {
+            throw new IllegalStateException("Exchange said no");
+        });
+        serialExecutor.execute(nextTaskRun::countDown);
+
+        assertTrue(nextTaskRun.await(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stand-in for an exchange WebSocket feed, for unit testing the adapters' feed handling.
+ * <p>
+ * Every time a client sends a subscribe message, the server replays the next recorded feed file to it. A feed file
+ * has 1 message per line; blank lines and lines starting with # are skipped. Once all the files have been replayed,
+ * further subscriptions get nothing back.
+ *
+ * @author gazbert
+ */
+final class WebSocketFeedStandInServer implements Closeable {
+
+    private final ServerSocket serverSocket;
+    private final List<String> feedFiles;
+    private final AtomicInteger nextFeedFile = new AtomicInteger();
+    private final List<String> receivedMessages = new CopyOnWriteArrayList<>();
+    private final List<Socket> clientSockets = new CopyOnWriteArrayList<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+
+
+    WebSocketFeedStandInServer(String... feedFiles) throws IOException {
+        this.feedFiles = new ArrayList<>();
+        Collections.addAll(this.feedFiles, feedFiles);
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+
+        final Thread acceptThread = new Thread(this::acceptConnections, "websocket-stand-in-server");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+    }
+
+    URI getUri() {
+        return URI.create("ws://127.0.0.1:" + serverSocket.getLocalPort() + "/");
+    }
+
+    List<String> getReceivedMessages() {
+        return receivedMessages;
+    }
+
+    int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    /**
+     * Drops every client connection without sending a close frame.
+     */
+    void dropConnections() throws IOException {
+        for (final Socket clientSocket : clientSockets) {
+            clientSocket.close();
+        }
+        clientSockets.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        dropConnections();
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Private utils
+    // ------------------------------------------------------------------------------------------------
+
+    private void acceptConnections() {
+        try {
+            while (!serverSocket.isClosed()) {
+                final Socket clientSocket = serverSocket.accept();
+                clientSockets.add(clientSocket);
+                connectionCount.incrementAndGet();
+                final Thread clientThread = new Thread(() -> handleClient(clientSocket), "websocket-stand-in-client");
+                clientThread.setDaemon(true);
+                clientThread.start();
+            }
+        } catch (IOException e) {
+            // server closed
+        }
+    }
+
+    private void handleClient(Socket clientSocket) {
+        try {
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(clientSocket.getInputStream()));
+            final OutputStream out = clientSocket.getOutputStream();
+            acceptHandshake(in, out);
+
+            while (true) {
+                final int byte0 = in.readUnsignedByte();
+                final int opcode = byte0 & 0x0F;
+                final byte[] payload = readMaskedPayload(in);
+
+                if (opcode == 0x8) {
+                    sendFrame(out, 0x8, payload);
+                    clientSocket.close();
+                    return;
+                } else if (opcode == 0x1) {
+                    final String message = new String(payload, StandardCharsets.UTF_8);
+                    receivedMessages.add(message);
+                    if (message.contains("\"subscribe\"")) {
+                        replayNextFeedFile(out);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // client gone or connection dropped by test
+        }
+    }
+
+    private void replayNextFeedFile(OutputStream out) throws IOException {
+        final int feedFileIndex = nextFeedFile.getAndIncrement();
+        if (feedFileIndex >= feedFiles.size()) {
+            return;
+        }
+        for (final String line : Files.readAllLines(Paths.get(feedFiles.get(feedFileIndex)), StandardCharsets.UTF_8)) {
+            final String message = line.trim();
+            if (!message.isEmpty() && !message.startsWith("#")) {
+                sendFrame(out, 0x1, message.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    private static void acceptHandshake(InputStream in, OutputStream out) throws IOException {
+        String key = null;
+        String line;
+        while (!(line = readLine(in)).isEmpty()) {
+            final int colon = line.indexOf(':');
+            if (colon > 0 && "sec-websocket-key".equals(line.substring(0, colon).trim().toLowerCase(Locale.ENGLISH))) {
+                key = line.substring(colon + 1).trim();
+            }
+        }
+        final String response = "HTTP/1.1 101 Switching Protocols\r\n"
+                + "Upgrade: websocket\r\n"
+                + "Connection: Upgrade\r\n"
+                + "Sec-WebSocket-Accept: " + WebSocketConnection.expectedAcceptKey(key) + "\r\n"
+                + "\r\n";
+        out.write(response.getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    private static byte[] readMaskedPayload(DataInputStream in) throws IOException {
+        final int byte1 = in.readUnsignedByte();
+        long length = byte1 & 0x7F;
+        if (length == 126) {
+            length = in.readUnsignedShort();
+        } else if (length == 127) {
+            length = in.readLong();
+        }
+        final byte[] mask = new byte[4];
+        in.readFully(mask);
+        final byte[] payload = new byte[(int) length];
+        in.readFully(payload);
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] ^= mask[i & 3];
+        }
+        return payload;
+    }
+
+    private static synchronized void sendFrame(OutputStream out, int opcode, byte[] payload) throws IOException {
+        final ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        frame.write(0x80 | opcode);
+        if (payload.length < 126) {
+            frame.write(payload.length);
+        } else if (payload.length <= 0xFFFF) {
+            frame.write(126);
+            frame.write(payload.length >>> 8);
+            frame.write(payload.length);
+        } else {
+            frame.write(127);
+            frame.write(ByteBuffer.allocate(8).putLong(payload.length).array());
+        }
+        frame.write(payload);
+        out.write(frame.toByteArray());
+        out.flush();
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        final StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            if (b != '\r') {
+                line.append((char) b);
+            }
+        }
+        return line.toString();
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gazbert.bxbot.repository;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Published when config has been created, updated or deleted in one of the repositories.
+ * <p>
+ * Listeners, e.g. the Trading Engine, re-read the repository to find out what has changed; the event only carries the
+ * type of config that changed, and the config that was saved for logging. When a config file edited by hand has been
+ * reloaded, the changed config is the name of the file.
+ *
+ * @author gazbert
+ */
+public final class ConfigChangedEvent {
+
+    private final Class<?> configType;
+    private final Object changedConfig;
+
+    public ConfigChangedEvent(Object changedConfig) {
+        this(changedConfig.getClass(), changedConfig);
+    }
+
+    public ConfigChangedEvent(Class<?> configType, Object changedConfig) {
+        this.configType = configType;
+        this.changedConfig = changedConfig;
+    }
+
+    public Class<?> getConfigType() {
+        return configType;
+    }
+
+    public Object getChangedConfig() {
+        return changedConfig;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("configType", configType)
+                .add("changedConfig", changedConfig)
+                .toString();
+    }
+}
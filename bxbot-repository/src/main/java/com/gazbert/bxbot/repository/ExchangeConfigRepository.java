@@ -24,13 +24,21 @@ package com.gazbert.bxbot.repository;
 
 import com.gazbert.bxbot.domain.exchange.ExchangeConfig;
 
+import java.util.List;
+
 /**
  * The Exchange configuration repository.
+ * <p>
+ * The bot can trade on several exchanges. {@link #getConfig()} returns the first one configured - the exchange that
+ * Markets trade on unless they say otherwise - and {@link #updateConfig(ExchangeConfig)} updates the exchange with the
+ * same id.
  *
  * @author gazbert
  */
 public interface ExchangeConfigRepository {
 
+    List<ExchangeConfig> findAllExchanges();
+
     ExchangeConfig getConfig();
 
     void updateConfig(ExchangeConfig config);
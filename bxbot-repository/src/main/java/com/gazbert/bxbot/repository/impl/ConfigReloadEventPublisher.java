@@ -0,0 +1,95 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.repository.impl;
+
+import com.gazbert.bxbot.datastore.ConfigurationManager;
+import com.gazbert.bxbot.domain.emailalerts.EmailAlertsConfig;
+import com.gazbert.bxbot.domain.engine.EngineConfig;
+import com.gazbert.bxbot.domain.exchange.ExchangeConfig;
+import com.gazbert.bxbot.domain.market.MarketConfig;
+import com.gazbert.bxbot.domain.strategy.StrategyConfig;
+import com.gazbert.bxbot.repository.ConfigChangedEvent;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.gazbert.bxbot.datastore.FileLocations.EMAIL_ALERTS_CONFIG_XML_FILENAME;
+import static com.gazbert.bxbot.datastore.FileLocations.ENGINE_CONFIG_XML_FILENAME;
+import static com.gazbert.bxbot.datastore.FileLocations.EXCHANGE_CONFIG_XML_FILENAME;
+import static com.gazbert.bxbot.datastore.FileLocations.MARKETS_CONFIG_XML_FILENAME;
+import static com.gazbert.bxbot.datastore.FileLocations.STRATEGIES_CONFIG_XML_FILENAME;
+
+/**
+ * Publishes a {@link ConfigChangedEvent} when the in-memory config store reloads a config file that was edited by
+ * hand, the same as the config services do for changes made via the REST API.
+ * <p>
+ * The listener is registered when the bean is created, so it is in place before the bot enables the in-memory config
+ * store.
+ *
+ * @author gazbert
+ */
+@Component
+public class ConfigReloadEventPublisher {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private static final Map<String, Class<?>> CONFIG_TYPES_BY_FILE = new HashMap<>();
+
+    static {
+        CONFIG_TYPES_BY_FILE.put(EMAIL_ALERTS_CONFIG_XML_FILENAME, EmailAlertsConfig.class);
+        CONFIG_TYPES_BY_FILE.put(ENGINE_CONFIG_XML_FILENAME, EngineConfig.class);
+        CONFIG_TYPES_BY_FILE.put(EXCHANGE_CONFIG_XML_FILENAME, ExchangeConfig.class);
+        CONFIG_TYPES_BY_FILE.put(MARKETS_CONFIG_XML_FILENAME, MarketConfig.class);
+        CONFIG_TYPES_BY_FILE.put(STRATEGIES_CONFIG_XML_FILENAME, StrategyConfig.class);
+    }
+
+    private final ApplicationEventPublisher eventPublisher;
+
+
+    @Autowired
+    public ConfigReloadEventPublisher(ApplicationEventPublisher eventPublisher) {
+        Assert.notNull(eventPublisher, "eventPublisher dependency cannot be null!");
+        this.eventPublisher = eventPublisher;
+
+        ConfigurationManager.addConfigReloadListener(this::publishReload);
+    }
+
+    private void publishReload(String xmlConfigFile) {
+
+        final Class<?> configType = CONFIG_TYPES_BY_FILE.get(xmlConfigFile);
+        if (configType == null) {
+            LOG.warn("Reloaded config file is not one we know about - not publishing a change: " + xmlConfigFile);
+            return;
+        }
+
+        LOG.info(() -> "Publishing config change for reloaded file: " + xmlConfigFile);
+        eventPublisher.publishEvent(new ConfigChangedEvent(configType, xmlConfigFile));
+    }
+}
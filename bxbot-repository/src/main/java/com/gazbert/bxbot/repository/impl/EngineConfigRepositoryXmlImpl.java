@@ -74,6 +74,18 @@ public class EngineConfigRepositoryXmlImpl implements EngineConfigRepository {
         externalEngineConfig.setEmergencyStopCurrency(internalEngineConfig.getEmergencyStopCurrency());
         externalEngineConfig.setEmergencyStopBalance(internalEngineConfig.getEmergencyStopBalance());
         externalEngineConfig.setTradeCycleInterval(internalEngineConfig.getTradeCycleInterval());
+        externalEngineConfig.setStrategyExecutionThreads(internalEngineConfig.getStrategyExecutionThreads());
+        externalEngineConfig.setStrategyExecutionTimeout(internalEngineConfig.getStrategyExecutionTimeout());
+        externalEngineConfig.setRequestCoalescingWindow(internalEngineConfig.getRequestCoalescingWindow());
+        externalEngineConfig.setExchangeFeeCacheTtl(internalEngineConfig.getExchangeFeeCacheTtl());
+        externalEngineConfig.setMarketOrdersCacheTtl(internalEngineConfig.getMarketOrdersCacheTtl());
+        externalEngineConfig.setTopOfBookCacheTtl(internalEngineConfig.getTopOfBookCacheTtl());
+        externalEngineConfig.setLatestPriceCacheTtl(internalEngineConfig.getLatestPriceCacheTtl());
+        externalEngineConfig.setBalanceInfoCacheTtl(internalEngineConfig.getBalanceInfoCacheTtl());
+        externalEngineConfig.setBuyFeeCacheTtl(internalEngineConfig.getBuyFeeCacheTtl());
+        externalEngineConfig.setSellFeeCacheTtl(internalEngineConfig.getSellFeeCacheTtl());
+        externalEngineConfig.setMarketEventPollInterval(internalEngineConfig.getMarketEventPollInterval());
+        externalEngineConfig.setBalanceReconciliationInterval(internalEngineConfig.getBalanceReconciliationInterval());
         return externalEngineConfig;
     }
 
@@ -83,6 +95,18 @@ public class EngineConfigRepositoryXmlImpl implements EngineConfigRepository {
         internalEngineConfig.setEmergencyStopCurrency(externalEngineConfig.getEmergencyStopCurrency());
         internalEngineConfig.setEmergencyStopBalance(externalEngineConfig.getEmergencyStopBalance());
         internalEngineConfig.setTradeCycleInterval(externalEngineConfig.getTradeCycleInterval());
+        internalEngineConfig.setStrategyExecutionThreads(externalEngineConfig.getStrategyExecutionThreads());
+        internalEngineConfig.setStrategyExecutionTimeout(externalEngineConfig.getStrategyExecutionTimeout());
+        internalEngineConfig.setRequestCoalescingWindow(externalEngineConfig.getRequestCoalescingWindow());
+        internalEngineConfig.setExchangeFeeCacheTtl(externalEngineConfig.getExchangeFeeCacheTtl());
+        internalEngineConfig.setMarketOrdersCacheTtl(externalEngineConfig.getMarketOrdersCacheTtl());
+        internalEngineConfig.setTopOfBookCacheTtl(externalEngineConfig.getTopOfBookCacheTtl());
+        internalEngineConfig.setLatestPriceCacheTtl(externalEngineConfig.getLatestPriceCacheTtl());
+        internalEngineConfig.setBalanceInfoCacheTtl(externalEngineConfig.getBalanceInfoCacheTtl());
+        internalEngineConfig.setBuyFeeCacheTtl(externalEngineConfig.getBuyFeeCacheTtl());
+        internalEngineConfig.setSellFeeCacheTtl(externalEngineConfig.getSellFeeCacheTtl());
+        internalEngineConfig.setMarketEventPollInterval(externalEngineConfig.getMarketEventPollInterval());
+        internalEngineConfig.setBalanceReconciliationInterval(externalEngineConfig.getBalanceReconciliationInterval());
         return internalEngineConfig;
     }
 }
@@ -35,6 +35,9 @@ import org.apache.logging.log4j.Logger;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 import static com.gazbert.bxbot.datastore.FileLocations.EXCHANGE_CONFIG_XML_FILENAME;
 import static com.gazbert.bxbot.datastore.FileLocations.EXCHANGE_CONFIG_XSD_FILENAME;
 
@@ -49,11 +52,21 @@ public class ExchangeConfigRepositoryXmlImpl implements ExchangeConfigRepository
 
     private static final Logger LOG = LogManager.getLogger();
 
+    @Override
+    public List<ExchangeConfig> findAllExchanges() {
+        final ExchangesType internalExchangesConfig = ConfigurationManager.loadConfig(ExchangesType.class,
+                EXCHANGE_CONFIG_XML_FILENAME, EXCHANGE_CONFIG_XSD_FILENAME);
+        return internalExchangesConfig.getExchanges()
+                .stream()
+                .map(ExchangeConfigRepositoryXmlImpl::adaptInternalToExternalConfig)
+                .collect(Collectors.toList());
+    }
+
     @Override
     public ExchangeConfig getConfig() {
-        final ExchangeType internalEngineConfig = ConfigurationManager.loadConfig(ExchangeType.class,
+        final ExchangesType internalExchangesConfig = ConfigurationManager.loadConfig(ExchangesType.class,
                 EXCHANGE_CONFIG_XML_FILENAME, EXCHANGE_CONFIG_XSD_FILENAME);
-        return adaptInternalToExternalConfig(internalEngineConfig);
+        return adaptInternalToExternalConfig(internalExchangesConfig.getExchanges().get(0));
     }
 
     @Override
@@ -61,8 +74,27 @@ public class ExchangeConfigRepositoryXmlImpl implements ExchangeConfigRepository
 
         LOG.info(() -> "About to update: " + config);
 
-        final ExchangeType internalExchangeConfig = adaptExternalToInternalConfig(config);
-        ConfigurationManager.saveConfig(ExchangeType.class, internalExchangeConfig, EXCHANGE_CONFIG_XML_FILENAME);
+        final ExchangesType internalExchangesConfig = ConfigurationManager.loadConfigForUpdate(ExchangesType.class,
+                EXCHANGE_CONFIG_XML_FILENAME, EXCHANGE_CONFIG_XSD_FILENAME);
+
+        // No id means the first exchange - clients written before the bot could trade on more than 1 exchange
+        final List<ExchangeType> exchangeTypes = internalExchangesConfig.getExchanges();
+        final ExchangeType existingExchangeConfig = config.getId() == null
+                ? exchangeTypes.get(0)
+                : exchangeTypes.stream()
+                        .filter((item) -> item.getId().equals(config.getId()))
+                        .findFirst()
+                        .orElse(null);
+
+        if (existingExchangeConfig == null) {
+            final String errorMsg = "Failed to find Exchange to update with id: " + config.getId();
+            LOG.error(errorMsg);
+            throw new IllegalArgumentException(errorMsg);
+        }
+
+        exchangeTypes.set(exchangeTypes.indexOf(existingExchangeConfig),
+                adaptExternalToInternalConfig(config, existingExchangeConfig));
+        ConfigurationManager.saveConfig(ExchangesType.class, internalExchangesConfig, EXCHANGE_CONFIG_XML_FILENAME);
     }
 
     // ------------------------------------------------------------------------------------------------
@@ -72,13 +104,28 @@ public class ExchangeConfigRepositoryXmlImpl implements ExchangeConfigRepository
     private static ExchangeConfig adaptInternalToExternalConfig(ExchangeType internalExchangeConfig) {
 
         final AuthenticationConfig authenticationConfig = new AuthenticationConfig();
-        internalExchangeConfig.getAuthenticationConfig().getConfigItems()
-                .forEach(item -> authenticationConfig.getItems().put(item.getName(), item.getValue()));
+        final AuthenticationConfigType internalAuthenticationConfig = internalExchangeConfig.getAuthenticationConfig();
+        if (internalAuthenticationConfig != null) { // it's optional
+            internalAuthenticationConfig.getConfigItems()
+                    .forEach(item -> authenticationConfig.getItems().put(item.getName(), item.getValue()));
+        }
 
-        final NetworkConfig networkConfig = new NetworkConfig();
-        networkConfig.setConnectionTimeout(internalExchangeConfig.getNetworkConfig().getConnectionTimeout());
-        networkConfig.setNonFatalErrorCodes(internalExchangeConfig.getNetworkConfig().getNonFatalErrorCodes().getCodes());
-        networkConfig.setNonFatalErrorMessages(internalExchangeConfig.getNetworkConfig().getNonFatalErrorMessages().getMessages());
+        NetworkConfig networkConfig = null;
+        final NetworkConfigType internalNetworkConfig = internalExchangeConfig.getNetworkConfig();
+        if (internalNetworkConfig != null) { // it's optional
+            networkConfig = new NetworkConfig();
+            networkConfig.setConnectionTimeout(internalNetworkConfig.getConnectionTimeout());
+            if (internalNetworkConfig.getNonFatalErrorCodes() != null) {
+                networkConfig.setNonFatalErrorCodes(internalNetworkConfig.getNonFatalErrorCodes().getCodes());
+            }
+            if (internalNetworkConfig.getNonFatalErrorMessages() != null) {
+                networkConfig.setNonFatalErrorMessages(internalNetworkConfig.getNonFatalErrorMessages().getMessages());
+            }
+            networkConfig.setMaxConnectionsPerHost(internalNetworkConfig.getMaxConnectionsPerHost());
+            networkConfig.setIdleConnectionTimeout(internalNetworkConfig.getIdleConnectionTimeout());
+            networkConfig.setRateLimitInterval(internalNetworkConfig.getRateLimitInterval());
+            networkConfig.setRateLimitBurst(internalNetworkConfig.getRateLimitBurst());
+        }
 
         final OtherConfig otherConfig = new OtherConfig();
         final OtherConfigType internalOtherConfig = internalExchangeConfig.getOtherConfig();
@@ -88,15 +135,19 @@ public class ExchangeConfigRepositoryXmlImpl implements ExchangeConfigRepository
         }
 
         final ExchangeConfig exchangeConfig = new ExchangeConfig();
+        exchangeConfig.setId(internalExchangeConfig.getId());
         exchangeConfig.setAuthenticationConfig(authenticationConfig);
         exchangeConfig.setExchangeName(internalExchangeConfig.getName());
         exchangeConfig.setExchangeAdapter(internalExchangeConfig.getAdapter());
         exchangeConfig.setNetworkConfig(networkConfig);
         exchangeConfig.setOtherConfig(otherConfig);
+        exchangeConfig.setEmergencyStopCurrency(internalExchangeConfig.getEmergencyStopCurrency());
+        exchangeConfig.setEmergencyStopBalance(internalExchangeConfig.getEmergencyStopBalance());
         return exchangeConfig;
     }
 
-    private static ExchangeType adaptExternalToInternalConfig(ExchangeConfig externalExchangeConfig) {
+    private static ExchangeType adaptExternalToInternalConfig(ExchangeConfig externalExchangeConfig,
+                                                              ExchangeType existingExchangeConfig) {
 
         final NonFatalErrorCodesType nonFatalErrorCodes = new NonFatalErrorCodesType();
         nonFatalErrorCodes.getCodes().addAll(externalExchangeConfig.getNetworkConfig().getNonFatalErrorCodes());
@@ -106,6 +157,10 @@ public class ExchangeConfigRepositoryXmlImpl implements ExchangeConfigRepository
         networkConfig.setConnectionTimeout(externalExchangeConfig.getNetworkConfig().getConnectionTimeout());
         networkConfig.setNonFatalErrorCodes(nonFatalErrorCodes);
         networkConfig.setNonFatalErrorMessages(nonFatalErrorMessages);
+        networkConfig.setMaxConnectionsPerHost(externalExchangeConfig.getNetworkConfig().getMaxConnectionsPerHost());
+        networkConfig.setIdleConnectionTimeout(externalExchangeConfig.getNetworkConfig().getIdleConnectionTimeout());
+        networkConfig.setRateLimitInterval(externalExchangeConfig.getNetworkConfig().getRateLimitInterval());
+        networkConfig.setRateLimitBurst(externalExchangeConfig.getNetworkConfig().getRateLimitBurst());
 
         final OtherConfigType otherConfig = new OtherConfigType();
         externalExchangeConfig.getOtherConfig().getItems().entrySet()
@@ -117,15 +172,16 @@ public class ExchangeConfigRepositoryXmlImpl implements ExchangeConfigRepository
                 });
 
         final ExchangeType exchangeConfig = new ExchangeType();
+        exchangeConfig.setId(existingExchangeConfig.getId());
         exchangeConfig.setName(externalExchangeConfig.getExchangeName());
         exchangeConfig.setAdapter(externalExchangeConfig.getExchangeAdapter());
         exchangeConfig.setNetworkConfig(networkConfig);
         exchangeConfig.setOtherConfig(otherConfig);
+        exchangeConfig.setEmergencyStopCurrency(externalExchangeConfig.getEmergencyStopCurrency());
+        exchangeConfig.setEmergencyStopBalance(externalExchangeConfig.getEmergencyStopBalance());
 
         // We don't accept AuthenticationConfig in the service - security risk
-        // We load the existing auth config and merge it in with the updated stuff...
-        final ExchangeType existingExchangeConfig = ConfigurationManager.loadConfig(ExchangeType.class,
-                EXCHANGE_CONFIG_XML_FILENAME, EXCHANGE_CONFIG_XSD_FILENAME);
+        // We merge the existing auth config in with the updated stuff...
         exchangeConfig.setAuthenticationConfig(existingExchangeConfig.getAuthenticationConfig());
 
         return exchangeConfig;
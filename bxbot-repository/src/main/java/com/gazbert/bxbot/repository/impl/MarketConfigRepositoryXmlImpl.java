@@ -80,7 +80,7 @@ public class MarketConfigRepositoryXmlImpl implements MarketConfigRepository {
     @Override
     public MarketConfig createMarket(MarketConfig config) {
 
-        final MarketsType internalMarketsConfig = ConfigurationManager.loadConfig(MarketsType.class,
+        final MarketsType internalMarketsConfig = ConfigurationManager.loadConfigForUpdate(MarketsType.class,
                 MARKETS_CONFIG_XML_FILENAME, MARKETS_CONFIG_XSD_FILENAME);
 
         final List<MarketType> marketTypes = internalMarketsConfig.getMarkets()
@@ -113,7 +113,7 @@ public class MarketConfigRepositoryXmlImpl implements MarketConfigRepository {
     @Override
     public MarketConfig updateMarket(MarketConfig config) {
 
-        final MarketsType internalMarketsConfig = ConfigurationManager.loadConfig(MarketsType.class,
+        final MarketsType internalMarketsConfig = ConfigurationManager.loadConfigForUpdate(MarketsType.class,
                 MARKETS_CONFIG_XML_FILENAME, MARKETS_CONFIG_XSD_FILENAME);
 
         final List<MarketType> marketTypes = internalMarketsConfig.getMarkets()
@@ -149,7 +149,7 @@ public class MarketConfigRepositoryXmlImpl implements MarketConfigRepository {
 
         LOG.info(() -> "Deleting config for Market id: " + id);
 
-        final MarketsType internalMarketsConfig = ConfigurationManager.loadConfig(MarketsType.class,
+        final MarketsType internalMarketsConfig = ConfigurationManager.loadConfigForUpdate(MarketsType.class,
                 MARKETS_CONFIG_XML_FILENAME, MARKETS_CONFIG_XSD_FILENAME);
 
         final List<MarketType> marketTypes = internalMarketsConfig.getMarkets()
@@ -191,6 +191,8 @@ public class MarketConfigRepositoryXmlImpl implements MarketConfigRepository {
             marketConfig.setBaseCurrency(item.getBaseCurrency());
             marketConfig.setCounterCurrency(item.getCounterCurrency());
             marketConfig.setTradingStrategy(item.getTradingStrategy());
+            marketConfig.setTradeCycleInterval(item.getTradeCycleInterval());
+            marketConfig.setExchange(item.getExchange());
 
             marketConfigItems.add(marketConfig);
         });
@@ -212,6 +214,8 @@ public class MarketConfigRepositoryXmlImpl implements MarketConfigRepository {
             marketConfig.setBaseCurrency(internalMarketConfig.getBaseCurrency());
             marketConfig.setCounterCurrency(internalMarketConfig.getCounterCurrency());
             marketConfig.setTradingStrategy(internalMarketConfig.getTradingStrategy());
+            marketConfig.setTradeCycleInterval(internalMarketConfig.getTradeCycleInterval());
+            marketConfig.setExchange(internalMarketConfig.getExchange());
         }
         return marketConfig;
     }
@@ -225,6 +229,8 @@ public class MarketConfigRepositoryXmlImpl implements MarketConfigRepository {
         marketType.setBaseCurrency(externalMarketConfig.getBaseCurrency());
         marketType.setCounterCurrency(externalMarketConfig.getCounterCurrency());
         marketType.setTradingStrategy(externalMarketConfig.getTradingStrategy());
+        marketType.setTradeCycleInterval(externalMarketConfig.getTradeCycleInterval());
+        marketType.setExchange(externalMarketConfig.getExchange());
         return marketType;
     }
 }
@@ -84,7 +84,7 @@ public class StrategyConfigRepositoryXmlImpl implements StrategyConfigRepository
 
         LOG.info(() -> "About to update: " + config);
 
-        final TradingStrategiesType internalStrategiesConfig = ConfigurationManager.loadConfig(TradingStrategiesType.class,
+        final TradingStrategiesType internalStrategiesConfig = ConfigurationManager.loadConfigForUpdate(TradingStrategiesType.class,
                 STRATEGIES_CONFIG_XML_FILENAME, STRATEGIES_CONFIG_XSD_FILENAME);
 
         final List<StrategyType> strategyTypes = internalStrategiesConfig.getStrategies()
@@ -118,7 +118,7 @@ public class StrategyConfigRepositoryXmlImpl implements StrategyConfigRepository
     @Override
     public StrategyConfig createStrategy(StrategyConfig config) {
 
-        final TradingStrategiesType internalStrategiesConfig = ConfigurationManager.loadConfig(TradingStrategiesType.class,
+        final TradingStrategiesType internalStrategiesConfig = ConfigurationManager.loadConfigForUpdate(TradingStrategiesType.class,
                 STRATEGIES_CONFIG_XML_FILENAME, STRATEGIES_CONFIG_XSD_FILENAME);
 
         final List<StrategyType> strategyTypes = internalStrategiesConfig.getStrategies()
@@ -153,7 +153,7 @@ public class StrategyConfigRepositoryXmlImpl implements StrategyConfigRepository
 
         LOG.info(() -> "Deleting config for Strategy id: " + id);
 
-        final TradingStrategiesType internalStrategiesConfig = ConfigurationManager.loadConfig(TradingStrategiesType.class,
+        final TradingStrategiesType internalStrategiesConfig = ConfigurationManager.loadConfigForUpdate(TradingStrategiesType.class,
                 STRATEGIES_CONFIG_XML_FILENAME, STRATEGIES_CONFIG_XSD_FILENAME);
 
         final List<StrategyType> strategyTypes = internalStrategiesConfig.getStrategies()
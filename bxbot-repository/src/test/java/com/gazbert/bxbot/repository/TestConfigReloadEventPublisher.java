@@ -0,0 +1,95 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.repository;
+
+import com.gazbert.bxbot.datastore.ConfigReloadListener;
+import com.gazbert.bxbot.datastore.ConfigurationManager;
+import com.gazbert.bxbot.domain.market.MarketConfig;
+import com.gazbert.bxbot.repository.impl.ConfigReloadEventPublisher;
+import org.easymock.Capture;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.easymock.PowerMock;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.springframework.context.ApplicationEventPublisher;
+
+import static com.gazbert.bxbot.datastore.FileLocations.MARKETS_CONFIG_XML_FILENAME;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.easymock.EasyMock.*;
+
+/**
+ * Tests a config file reloaded from disk is published as a config change.
+ *
+ * @author gazbert
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({ConfigurationManager.class})
+public class TestConfigReloadEventPublisher {
+
+    private ApplicationEventPublisher eventPublisher;
+    private Capture<ConfigReloadListener> reloadListener;
+
+
+    @Before
+    public void setup() throws Exception {
+        PowerMock.mockStatic(ConfigurationManager.class);
+        eventPublisher = PowerMock.createMock(ApplicationEventPublisher.class);
+        reloadListener = newCapture();
+
+        ConfigurationManager.addConfigReloadListener(capture(reloadListener));
+        expectLastCall();
+    }
+
+    @Test
+    public void whenMarketsFileReloadedThenExpectMarketConfigChangePublished() throws Exception {
+
+        final Capture<Object> event = newCapture();
+        eventPublisher.publishEvent(capture(event));
+        expectLastCall();
+
+        PowerMock.replayAll();
+
+        new ConfigReloadEventPublisher(eventPublisher);
+        reloadListener.getValue().configReloaded(MARKETS_CONFIG_XML_FILENAME);
+
+        final ConfigChangedEvent configChangedEvent = (ConfigChangedEvent) event.getValue();
+        assertThat(configChangedEvent.getConfigType()).isEqualTo(MarketConfig.class);
+        assertThat(configChangedEvent.getChangedConfig()).isEqualTo(MARKETS_CONFIG_XML_FILENAME);
+
+        PowerMock.verifyAll();
+    }
+
+    @Test
+    public void whenUnknownFileReloadedThenExpectNothingPublished() throws Exception {
+
+        PowerMock.replayAll();
+
+        new ConfigReloadEventPublisher(eventPublisher);
+        reloadListener.getValue().configReloaded("config/not-a-bxbot-config.xml");
+
+        PowerMock.verifyAll();
+    }
+}
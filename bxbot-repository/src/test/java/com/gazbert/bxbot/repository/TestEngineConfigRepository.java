@@ -53,6 +53,18 @@ public class TestEngineConfigRepository {
     private static final String ENGINE_EMERGENCY_STOP_CURRENCY = "BTC";
     private static final BigDecimal ENGINE_EMERGENCY_STOP_BALANCE = new BigDecimal("0.5");
     private static final int ENGINE_TRADE_CYCLE_INTERVAL = 60;
+    private static final Integer ENGINE_STRATEGY_EXECUTION_THREADS = 4;
+    private static final Integer ENGINE_STRATEGY_EXECUTION_TIMEOUT = 45;
+    private static final Integer ENGINE_REQUEST_COALESCING_WINDOW = 500;
+    private static final Integer ENGINE_EXCHANGE_FEE_CACHE_TTL = 3600;
+    private static final Integer ENGINE_MARKET_ORDERS_CACHE_TTL = 250;
+    private static final Integer ENGINE_TOP_OF_BOOK_CACHE_TTL = 100;
+    private static final Integer ENGINE_LATEST_PRICE_CACHE_TTL = 1000;
+    private static final Integer ENGINE_BALANCE_INFO_CACHE_TTL = 2000;
+    private static final Integer ENGINE_BUY_FEE_CACHE_TTL = 60000;
+    private static final Integer ENGINE_SELL_FEE_CACHE_TTL = 120000;
+    private static final Integer ENGINE_MARKET_EVENT_POLL_INTERVAL = 250;
+    private static final Integer ENGINE_BALANCE_RECONCILIATION_INTERVAL = 300;
 
 
     @Before
@@ -76,6 +88,18 @@ public class TestEngineConfigRepository {
         assertThat(engineConfig.getEmergencyStopCurrency()).isEqualTo(ENGINE_EMERGENCY_STOP_CURRENCY);
         assertThat(engineConfig.getEmergencyStopBalance()).isEqualTo(ENGINE_EMERGENCY_STOP_BALANCE);
         assertThat(engineConfig.getTradeCycleInterval()).isEqualTo(ENGINE_TRADE_CYCLE_INTERVAL);
+        assertThat(engineConfig.getStrategyExecutionThreads()).isEqualTo(ENGINE_STRATEGY_EXECUTION_THREADS);
+        assertThat(engineConfig.getStrategyExecutionTimeout()).isEqualTo(ENGINE_STRATEGY_EXECUTION_TIMEOUT);
+        assertThat(engineConfig.getRequestCoalescingWindow()).isEqualTo(ENGINE_REQUEST_COALESCING_WINDOW);
+        assertThat(engineConfig.getExchangeFeeCacheTtl()).isEqualTo(ENGINE_EXCHANGE_FEE_CACHE_TTL);
+        assertThat(engineConfig.getMarketOrdersCacheTtl()).isEqualTo(ENGINE_MARKET_ORDERS_CACHE_TTL);
+        assertThat(engineConfig.getTopOfBookCacheTtl()).isEqualTo(ENGINE_TOP_OF_BOOK_CACHE_TTL);
+        assertThat(engineConfig.getLatestPriceCacheTtl()).isEqualTo(ENGINE_LATEST_PRICE_CACHE_TTL);
+        assertThat(engineConfig.getBalanceInfoCacheTtl()).isEqualTo(ENGINE_BALANCE_INFO_CACHE_TTL);
+        assertThat(engineConfig.getBuyFeeCacheTtl()).isEqualTo(ENGINE_BUY_FEE_CACHE_TTL);
+        assertThat(engineConfig.getSellFeeCacheTtl()).isEqualTo(ENGINE_SELL_FEE_CACHE_TTL);
+        assertThat(engineConfig.getMarketEventPollInterval()).isEqualTo(ENGINE_MARKET_EVENT_POLL_INTERVAL);
+        assertThat(engineConfig.getBalanceReconciliationInterval()).isEqualTo(ENGINE_BALANCE_RECONCILIATION_INTERVAL);
 
         PowerMock.verifyAll();
     }
@@ -101,6 +125,18 @@ public class TestEngineConfigRepository {
         internalConfig.setEmergencyStopBalance(ENGINE_EMERGENCY_STOP_BALANCE);
         internalConfig.setEmergencyStopCurrency(ENGINE_EMERGENCY_STOP_CURRENCY);
         internalConfig.setTradeCycleInterval(ENGINE_TRADE_CYCLE_INTERVAL);
+        internalConfig.setStrategyExecutionThreads(ENGINE_STRATEGY_EXECUTION_THREADS);
+        internalConfig.setStrategyExecutionTimeout(ENGINE_STRATEGY_EXECUTION_TIMEOUT);
+        internalConfig.setRequestCoalescingWindow(ENGINE_REQUEST_COALESCING_WINDOW);
+        internalConfig.setExchangeFeeCacheTtl(ENGINE_EXCHANGE_FEE_CACHE_TTL);
+        internalConfig.setMarketOrdersCacheTtl(ENGINE_MARKET_ORDERS_CACHE_TTL);
+        internalConfig.setTopOfBookCacheTtl(ENGINE_TOP_OF_BOOK_CACHE_TTL);
+        internalConfig.setLatestPriceCacheTtl(ENGINE_LATEST_PRICE_CACHE_TTL);
+        internalConfig.setBalanceInfoCacheTtl(ENGINE_BALANCE_INFO_CACHE_TTL);
+        internalConfig.setBuyFeeCacheTtl(ENGINE_BUY_FEE_CACHE_TTL);
+        internalConfig.setSellFeeCacheTtl(ENGINE_SELL_FEE_CACHE_TTL);
+        internalConfig.setMarketEventPollInterval(ENGINE_MARKET_EVENT_POLL_INTERVAL);
+        internalConfig.setBalanceReconciliationInterval(ENGINE_BALANCE_RECONCILIATION_INTERVAL);
         return internalConfig;
     }
 
@@ -109,6 +145,18 @@ public class TestEngineConfigRepository {
         externalConfig.setEmergencyStopBalance(ENGINE_EMERGENCY_STOP_BALANCE);
         externalConfig.setEmergencyStopCurrency(ENGINE_EMERGENCY_STOP_CURRENCY);
         externalConfig.setTradeCycleInterval(ENGINE_TRADE_CYCLE_INTERVAL);
+        externalConfig.setStrategyExecutionThreads(ENGINE_STRATEGY_EXECUTION_THREADS);
+        externalConfig.setStrategyExecutionTimeout(ENGINE_STRATEGY_EXECUTION_TIMEOUT);
+        externalConfig.setRequestCoalescingWindow(ENGINE_REQUEST_COALESCING_WINDOW);
+        externalConfig.setExchangeFeeCacheTtl(ENGINE_EXCHANGE_FEE_CACHE_TTL);
+        externalConfig.setMarketOrdersCacheTtl(ENGINE_MARKET_ORDERS_CACHE_TTL);
+        externalConfig.setTopOfBookCacheTtl(ENGINE_TOP_OF_BOOK_CACHE_TTL);
+        externalConfig.setLatestPriceCacheTtl(ENGINE_LATEST_PRICE_CACHE_TTL);
+        externalConfig.setBalanceInfoCacheTtl(ENGINE_BALANCE_INFO_CACHE_TTL);
+        externalConfig.setBuyFeeCacheTtl(ENGINE_BUY_FEE_CACHE_TTL);
+        externalConfig.setSellFeeCacheTtl(ENGINE_SELL_FEE_CACHE_TTL);
+        externalConfig.setMarketEventPollInterval(ENGINE_MARKET_EVENT_POLL_INTERVAL);
+        externalConfig.setBalanceReconciliationInterval(ENGINE_BALANCE_RECONCILIATION_INTERVAL);
         return externalConfig;
     }
 }
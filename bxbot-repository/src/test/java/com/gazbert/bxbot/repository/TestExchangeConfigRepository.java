@@ -37,6 +37,7 @@ import org.powermock.api.easymock.PowerMock;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
+import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.List;
 
@@ -54,6 +55,7 @@ import static org.easymock.EasyMock.*;
 @PrepareForTest({ConfigurationManager.class})
 public class TestExchangeConfigRepository {
 
+    private static final String EXCHANGE_ID = "btce";
     private static final String EXCHANGE_NAME = "BTC-e";
     private static final String EXCHANGE_ADAPTER = "com.gazbert.bxbot.exchanges.TestExchangeAdapter";
 
@@ -64,6 +66,10 @@ public class TestExchangeConfigRepository {
     private static final String SECRET_CONFIG_ITEM_VALUE = "secret-key";
 
     private static final Integer CONNECTION_TIMEOUT = 30;
+    private static final Integer MAX_CONNECTIONS_PER_HOST = 2;
+    private static final Integer IDLE_CONNECTION_TIMEOUT = 60;
+    private static final Integer RATE_LIMIT_INTERVAL = 1000;
+    private static final Integer RATE_LIMIT_BURST = 5;
     private static final List<Integer> NON_FATAL_ERROR_CODES = Arrays.asList(502, 503, 504);
     private static final List<String> NON_FATAL_ERROR_MESSAGES = Arrays.asList(
             "Connection refused", "Connection reset", "Remote host closed connection during handshake");
@@ -73,25 +79,63 @@ public class TestExchangeConfigRepository {
     private static final String SELL_FEE_CONFIG_ITEM_KEY = "sell-fee";
     private static final String SELL_FEE_CONFIG_ITEM_VALUE = "0.25";
 
+    private static final String EXCHANGE_2_ID = "bitstamp";
+    private static final String EXCHANGE_2_NAME = "Bitstamp";
+    private static final String EXCHANGE_2_ADAPTER = "com.gazbert.bxbot.exchanges.BitstampExchangeAdapter";
+    private static final String EXCHANGE_2_EMERGENCY_STOP_CURRENCY = "USD";
+    private static final BigDecimal EXCHANGE_2_EMERGENCY_STOP_BALANCE = new BigDecimal("500.5");
+
 
     @Before
     public void setup() throws Exception {
         PowerMock.mockStatic(ConfigurationManager.class);
     }
 
+    @Test
+    public void whenFindAllExchangesCalledThenExpectServiceToReturnThemAll() throws Exception {
+
+        expect(ConfigurationManager.loadConfig(
+                eq(ExchangesType.class),
+                eq(EXCHANGE_CONFIG_XML_FILENAME),
+                eq(EXCHANGE_CONFIG_XSD_FILENAME))).
+                andReturn(someInternalExchangesConfig());
+
+        PowerMock.replayAll();
+
+        final ExchangeConfigRepository exchangeConfigRepository = new ExchangeConfigRepositoryXmlImpl();
+        final List<ExchangeConfig> exchangeConfigs = exchangeConfigRepository.findAllExchanges();
+        assertThat(exchangeConfigs.size()).isEqualTo(2);
+
+        assertThat(exchangeConfigs.get(0).getId()).isEqualTo(EXCHANGE_ID);
+        assertThat(exchangeConfigs.get(0).getExchangeName()).isEqualTo(EXCHANGE_NAME);
+        assertThat(exchangeConfigs.get(0).getEmergencyStopCurrency()).isNull();
+        assertThat(exchangeConfigs.get(0).getEmergencyStopBalance()).isNull();
+
+        assertThat(exchangeConfigs.get(1).getId()).isEqualTo(EXCHANGE_2_ID);
+        assertThat(exchangeConfigs.get(1).getExchangeName()).isEqualTo(EXCHANGE_2_NAME);
+        assertThat(exchangeConfigs.get(1).getExchangeAdapter()).isEqualTo(EXCHANGE_2_ADAPTER);
+        assertThat(exchangeConfigs.get(1).getAuthenticationConfig().getItems().isEmpty()).isTrue();
+        assertThat(exchangeConfigs.get(1).getNetworkConfig()).isNull();
+        assertThat(exchangeConfigs.get(1).getEmergencyStopCurrency()).isEqualTo(EXCHANGE_2_EMERGENCY_STOP_CURRENCY);
+        assertThat(exchangeConfigs.get(1).getEmergencyStopBalance()).isEqualTo(EXCHANGE_2_EMERGENCY_STOP_BALANCE);
+
+        PowerMock.verifyAll();
+    }
+
     @Test
     public void whenGetConfigCalledThenExpectServiceToLoadIt() throws Exception {
 
         expect(ConfigurationManager.loadConfig(
-                eq(ExchangeType.class),
+                eq(ExchangesType.class),
                 eq(EXCHANGE_CONFIG_XML_FILENAME),
                 eq(EXCHANGE_CONFIG_XSD_FILENAME))).
-                andReturn(someInternalExchangeConfig());
+                andReturn(someInternalExchangesConfig());
 
         PowerMock.replayAll();
 
         final ExchangeConfigRepository exchangeConfigRepository = new ExchangeConfigRepositoryXmlImpl();
         final ExchangeConfig exchangeConfig = exchangeConfigRepository.getConfig();
+        assertThat(exchangeConfig.getId()).isEqualTo(EXCHANGE_ID);
         assertThat(exchangeConfig.getExchangeName()).isEqualTo(EXCHANGE_NAME);
         assertThat(exchangeConfig.getExchangeAdapter()).isEqualTo(EXCHANGE_ADAPTER);
 
@@ -101,6 +145,10 @@ public class TestExchangeConfigRepository {
         assertThat(exchangeConfig.getNetworkConfig().getConnectionTimeout()).isEqualTo(CONNECTION_TIMEOUT);
         assertThat(exchangeConfig.getNetworkConfig().getNonFatalErrorCodes()).isEqualTo(NON_FATAL_ERROR_CODES);
         assertThat(exchangeConfig.getNetworkConfig().getNonFatalErrorMessages()).isEqualTo(NON_FATAL_ERROR_MESSAGES);
+        assertThat(exchangeConfig.getNetworkConfig().getMaxConnectionsPerHost()).isEqualTo(MAX_CONNECTIONS_PER_HOST);
+        assertThat(exchangeConfig.getNetworkConfig().getIdleConnectionTimeout()).isEqualTo(IDLE_CONNECTION_TIMEOUT);
+        assertThat(exchangeConfig.getNetworkConfig().getRateLimitInterval()).isEqualTo(RATE_LIMIT_INTERVAL);
+        assertThat(exchangeConfig.getNetworkConfig().getRateLimitBurst()).isEqualTo(RATE_LIMIT_BURST);
         assertThat(exchangeConfig.getOtherConfig().getItems().get(BUY_FEE_CONFIG_ITEM_KEY)).isEqualTo(BUY_FEE_CONFIG_ITEM_VALUE);
         assertThat(exchangeConfig.getOtherConfig().getItems().get(SELL_FEE_CONFIG_ITEM_KEY)).isEqualTo(SELL_FEE_CONFIG_ITEM_VALUE);
 
@@ -111,13 +159,14 @@ public class TestExchangeConfigRepository {
     public void whenUpdateConfigCalledThenExpectServiceToSaveIt() throws Exception {
 
         // for loading the existing auth config to merge with updated stuff
-        expect(ConfigurationManager.loadConfig(
-                eq(ExchangeType.class),
+        expect(ConfigurationManager.loadConfigForUpdate(
+                eq(ExchangesType.class),
                 eq(EXCHANGE_CONFIG_XML_FILENAME),
                 eq(EXCHANGE_CONFIG_XSD_FILENAME))).
-                andReturn(someInternalExchangeConfig());
+                andReturn(someInternalExchangesConfig());
 
-        ConfigurationManager.saveConfig(eq(ExchangeType.class), anyObject(ExchangeType.class), eq(EXCHANGE_CONFIG_XML_FILENAME));
+        ConfigurationManager.saveConfig(eq(ExchangesType.class), anyObject(ExchangesType.class),
+                eq(EXCHANGE_CONFIG_XML_FILENAME));
         PowerMock.replayAll();
 
         final ExchangeConfigRepository exchangeConfigRepository = new ExchangeConfigRepositoryXmlImpl();
@@ -130,6 +179,21 @@ public class TestExchangeConfigRepository {
     // Private utils
     // ------------------------------------------------------------------------------------------------
 
+    private static ExchangesType someInternalExchangesConfig() {
+
+        final ExchangeType exchangeConfig2 = new ExchangeType();
+        exchangeConfig2.setId(EXCHANGE_2_ID);
+        exchangeConfig2.setName(EXCHANGE_2_NAME);
+        exchangeConfig2.setAdapter(EXCHANGE_2_ADAPTER);
+        exchangeConfig2.setEmergencyStopCurrency(EXCHANGE_2_EMERGENCY_STOP_CURRENCY);
+        exchangeConfig2.setEmergencyStopBalance(EXCHANGE_2_EMERGENCY_STOP_BALANCE);
+
+        final ExchangesType exchangesConfig = new ExchangesType();
+        exchangesConfig.getExchanges().add(someInternalExchangeConfig());
+        exchangesConfig.getExchanges().add(exchangeConfig2);
+        return exchangesConfig;
+    }
+
     private static ExchangeType someInternalExchangeConfig() {
 
         final AuthenticationConfigType authenticationConfig = new AuthenticationConfigType();
@@ -150,6 +214,10 @@ public class TestExchangeConfigRepository {
         networkConfig.setConnectionTimeout(CONNECTION_TIMEOUT);
         networkConfig.setNonFatalErrorCodes(nonFatalErrorCodes);
         networkConfig.setNonFatalErrorMessages(nonFatalErrorMessages);
+        networkConfig.setMaxConnectionsPerHost(MAX_CONNECTIONS_PER_HOST);
+        networkConfig.setIdleConnectionTimeout(IDLE_CONNECTION_TIMEOUT);
+        networkConfig.setRateLimitInterval(RATE_LIMIT_INTERVAL);
+        networkConfig.setRateLimitBurst(RATE_LIMIT_BURST);
 
         final ConfigItemType buyFee = new ConfigItemType();
         buyFee.setName(BUY_FEE_CONFIG_ITEM_KEY);
@@ -162,6 +230,7 @@ public class TestExchangeConfigRepository {
         otherConfig.getConfigItems().add(sellFee);
 
         final ExchangeType exchangeConfig = new ExchangeType();
+        exchangeConfig.setId(EXCHANGE_ID);
         exchangeConfig.setName(EXCHANGE_NAME);
         exchangeConfig.setAdapter(EXCHANGE_ADAPTER);
         exchangeConfig.setAuthenticationConfig(authenticationConfig);
@@ -182,12 +251,17 @@ public class TestExchangeConfigRepository {
         networkConfig.setConnectionTimeout(CONNECTION_TIMEOUT);
         networkConfig.setNonFatalErrorCodes(NON_FATAL_ERROR_CODES);
         networkConfig.setNonFatalErrorMessages(NON_FATAL_ERROR_MESSAGES);
+        networkConfig.setMaxConnectionsPerHost(MAX_CONNECTIONS_PER_HOST);
+        networkConfig.setIdleConnectionTimeout(IDLE_CONNECTION_TIMEOUT);
+        networkConfig.setRateLimitInterval(RATE_LIMIT_INTERVAL);
+        networkConfig.setRateLimitBurst(RATE_LIMIT_BURST);
 
         final OtherConfig otherConfig = new OtherConfig();
         otherConfig.getItems().put(BUY_FEE_CONFIG_ITEM_KEY, BUY_FEE_CONFIG_ITEM_VALUE);
         otherConfig.getItems().put(SELL_FEE_CONFIG_ITEM_KEY, SELL_FEE_CONFIG_ITEM_VALUE);
 
         final ExchangeConfig exchangeConfig = new ExchangeConfig();
+        exchangeConfig.setId(EXCHANGE_ID);
         exchangeConfig.setExchangeName(EXCHANGE_NAME);
         exchangeConfig.setExchangeAdapter(EXCHANGE_ADAPTER);
         exchangeConfig.setAuthenticationConfig(authenticationConfig);
@@ -59,6 +59,7 @@ public class TestMarketConfigRepository {
     private static final String MARKET_1_COUNTER_CURRENCY = "USD";
     private static final boolean MARKET_1_IS_ENABLED = true;
     private static final String MARKET_1_TRADING_STRATEGY = "macd_trend_follower";
+    private static final Integer MARKET_1_TRADE_CYCLE_INTERVAL = 5;
 
     private static final String MARKET_2_LABEL = "BTC/GBP";
     private static final String MARKET_2_ID = "gdax_gbp/btc";
@@ -95,6 +96,7 @@ public class TestMarketConfigRepository {
         assertThat(marketConfigItems.get(0).getBaseCurrency()).isEqualTo(MARKET_1_BASE_CURRENCY);
         assertThat(marketConfigItems.get(0).getCounterCurrency()).isEqualTo(MARKET_1_COUNTER_CURRENCY);
         assertThat(marketConfigItems.get(0).getTradingStrategy()).isEqualTo(MARKET_1_TRADING_STRATEGY);
+        assertThat(marketConfigItems.get(0).getTradeCycleInterval()).isEqualTo(MARKET_1_TRADE_CYCLE_INTERVAL);
 
         assertThat(marketConfigItems.get(1).getId()).isEqualTo(MARKET_2_ID);
         assertThat(marketConfigItems.get(1).getLabel()).isEqualTo(MARKET_2_LABEL);
@@ -102,6 +104,7 @@ public class TestMarketConfigRepository {
         assertThat(marketConfigItems.get(1).getBaseCurrency()).isEqualTo(MARKET_2_BASE_CURRENCY);
         assertThat(marketConfigItems.get(1).getCounterCurrency()).isEqualTo(MARKET_2_COUNTER_CURRENCY);
         assertThat(marketConfigItems.get(1).getTradingStrategy()).isEqualTo(MARKET_2_TRADING_STRATEGY);
+        assertThat(marketConfigItems.get(1).getTradeCycleInterval()).isNull();
 
         PowerMock.verifyAll();
     }
@@ -126,6 +129,7 @@ public class TestMarketConfigRepository {
         assertThat(marketConfig.getBaseCurrency()).isEqualTo(MARKET_1_BASE_CURRENCY);
         assertThat(marketConfig.getCounterCurrency()).isEqualTo(MARKET_1_COUNTER_CURRENCY);
         assertThat(marketConfig.getTradingStrategy()).isEqualTo(MARKET_1_TRADING_STRATEGY);
+        assertThat(marketConfig.getTradeCycleInterval()).isEqualTo(MARKET_1_TRADE_CYCLE_INTERVAL);
 
         PowerMock.verifyAll();
     }
@@ -157,7 +161,7 @@ public class TestMarketConfigRepository {
     @Test
     public void whenUpdateMarketCalledWithKnownIdThenExpectServiceToReturnUpdatedMarket() throws Exception {
 
-        expect(ConfigurationManager.loadConfig(
+        expect(ConfigurationManager.loadConfigForUpdate(
                 eq(MarketsType.class),
                 eq(MARKETS_CONFIG_XML_FILENAME),
                 eq(MARKETS_CONFIG_XSD_FILENAME))).
@@ -192,7 +196,7 @@ public class TestMarketConfigRepository {
     @Test
     public void whenUpdateMarketConfigCalledWithUnrecognizedIdThenReturnEmptyMarket() throws Exception {
 
-        expect(ConfigurationManager.loadConfig(
+        expect(ConfigurationManager.loadConfigForUpdate(
                 eq(MarketsType.class),
                 eq(MARKETS_CONFIG_XML_FILENAME),
                 eq(MARKETS_CONFIG_XSD_FILENAME))).
@@ -216,7 +220,7 @@ public class TestMarketConfigRepository {
     @Test
     public void whenDeleteByIdCalledWithRecognizedIdThenReturnMatchingMarket() throws Exception {
 
-        expect(ConfigurationManager.loadConfig(
+        expect(ConfigurationManager.loadConfigForUpdate(
                 eq(MarketsType.class),
                 eq(MARKETS_CONFIG_XML_FILENAME),
                 eq(MARKETS_CONFIG_XSD_FILENAME))).
@@ -245,7 +249,7 @@ public class TestMarketConfigRepository {
     @Test
     public void whenDeleteByIdCalledWithUnrecognizedIdThenReturnEmptyMarket() throws Exception {
 
-        expect(ConfigurationManager.loadConfig(
+        expect(ConfigurationManager.loadConfigForUpdate(
                 eq(MarketsType.class),
                 eq(MARKETS_CONFIG_XML_FILENAME),
                 eq(MARKETS_CONFIG_XSD_FILENAME))).
@@ -269,7 +273,7 @@ public class TestMarketConfigRepository {
     @Test
     public void whenCreateMarketCalledWithUnknownThenExpectServiceToReturnCreatedMarket() throws Exception {
 
-        expect(ConfigurationManager.loadConfig(
+        expect(ConfigurationManager.loadConfigForUpdate(
                 eq(MarketsType.class),
                 eq(MARKETS_CONFIG_XML_FILENAME),
                 eq(MARKETS_CONFIG_XSD_FILENAME))).
@@ -304,7 +308,7 @@ public class TestMarketConfigRepository {
     @Test
     public void whenCreateMarketConfigCalledWithExistingIdThenReturnEmptyMarket() throws Exception {
 
-        expect(ConfigurationManager.loadConfig(
+        expect(ConfigurationManager.loadConfigForUpdate(
                 eq(MarketsType.class),
                 eq(MARKETS_CONFIG_XML_FILENAME),
                 eq(MARKETS_CONFIG_XSD_FILENAME))).
@@ -338,6 +342,7 @@ public class TestMarketConfigRepository {
         marketType1.setBaseCurrency(MARKET_1_BASE_CURRENCY);
         marketType1.setCounterCurrency(MARKET_1_COUNTER_CURRENCY);
         marketType1.setTradingStrategy(MARKET_1_TRADING_STRATEGY);
+        marketType1.setTradeCycleInterval(MARKET_1_TRADE_CYCLE_INTERVAL);
 
         final MarketType marketType2 = new MarketType();
         marketType2.setId(MARKET_2_ID);
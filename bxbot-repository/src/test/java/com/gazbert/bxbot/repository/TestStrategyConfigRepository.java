@@ -167,7 +167,7 @@ public class TestStrategyConfigRepository {
     @Test
     public void whenUpdateStrategyCalledWithKnownIdThenExpectServiceToReturnUpdatedStrategy() throws Exception {
 
-        expect(ConfigurationManager.loadConfig(
+        expect(ConfigurationManager.loadConfigForUpdate(
                 eq(TradingStrategiesType.class),
                 eq(STRATEGIES_CONFIG_XML_FILENAME),
                 eq(STRATEGIES_CONFIG_XSD_FILENAME))).
@@ -204,7 +204,7 @@ public class TestStrategyConfigRepository {
     @Test
     public void whenUpdateStrategyConfigCalledWithUnrecognizedIdThenReturnEmptyStrategy() throws Exception {
 
-        expect(ConfigurationManager.loadConfig(
+        expect(ConfigurationManager.loadConfigForUpdate(
                 eq(TradingStrategiesType.class),
                 eq(STRATEGIES_CONFIG_XML_FILENAME),
                 eq(STRATEGIES_CONFIG_XSD_FILENAME))).
@@ -227,7 +227,7 @@ public class TestStrategyConfigRepository {
     @Test
     public void whenDeleteByIdCalledWithRecognizedIdThenReturnMatchingStrategy() throws Exception {
 
-        expect(ConfigurationManager.loadConfig(
+        expect(ConfigurationManager.loadConfigForUpdate(
                 eq(TradingStrategiesType.class),
                 eq(STRATEGIES_CONFIG_XML_FILENAME),
                 eq(STRATEGIES_CONFIG_XSD_FILENAME))).
@@ -258,7 +258,7 @@ public class TestStrategyConfigRepository {
     @Test
     public void whenDeleteByIdCalledWithUnrecognizedIdThenReturnEmptyStrategy() throws Exception {
 
-        expect(ConfigurationManager.loadConfig(
+        expect(ConfigurationManager.loadConfigForUpdate(
                 eq(TradingStrategiesType.class),
                 eq(STRATEGIES_CONFIG_XML_FILENAME),
                 eq(STRATEGIES_CONFIG_XSD_FILENAME))).
@@ -281,7 +281,7 @@ public class TestStrategyConfigRepository {
     @Test
     public void whenCreateStrategyCalledWithUnknownThenExpectServiceToReturnCreatedStrategy() throws Exception {
 
-        expect(ConfigurationManager.loadConfig(
+        expect(ConfigurationManager.loadConfigForUpdate(
                 eq(TradingStrategiesType.class),
                 eq(STRATEGIES_CONFIG_XML_FILENAME),
                 eq(STRATEGIES_CONFIG_XSD_FILENAME))).
@@ -318,7 +318,7 @@ public class TestStrategyConfigRepository {
     @Test
     public void whenCreateStrategyConfigCalledWithExistingIdThenReturnEmptyStrategy() throws Exception {
 
-        expect(ConfigurationManager.loadConfig(
+        expect(ConfigurationManager.loadConfigForUpdate(
                 eq(TradingStrategiesType.class),
                 eq(STRATEGIES_CONFIG_XML_FILENAME),
                 eq(STRATEGIES_CONFIG_XSD_FILENAME))).
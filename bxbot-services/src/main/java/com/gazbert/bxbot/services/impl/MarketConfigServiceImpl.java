@@ -25,11 +25,13 @@ package com.gazbert.bxbot.services.impl;
 
 
 import com.gazbert.bxbot.domain.market.MarketConfig;
+import com.gazbert.bxbot.repository.ConfigChangedEvent;
 import com.gazbert.bxbot.repository.MarketConfigRepository;
 import com.gazbert.bxbot.services.MarketConfigService;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -39,6 +41,9 @@ import java.util.List;
 
 /**
  * Implementation of the Market config service.
+ * <p>
+ * Publishes a {@link ConfigChangedEvent} whenever Market config is created, updated or deleted, so the Trading
+ * Engine can apply the change without a restart.
  *
  * @author gazbert
  */
@@ -50,11 +55,16 @@ public class MarketConfigServiceImpl implements MarketConfigService {
     private static final Logger LOG = LogManager.getLogger();
 
     private final MarketConfigRepository marketConfigRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public MarketConfigServiceImpl(MarketConfigRepository marketConfigRepository) {
+    public MarketConfigServiceImpl(MarketConfigRepository marketConfigRepository,
+                                   ApplicationEventPublisher eventPublisher) {
         Assert.notNull(marketConfigRepository, "marketConfigRepository dependency cannot be null!");
         this.marketConfigRepository = marketConfigRepository;
+
+        Assert.notNull(eventPublisher, "eventPublisher dependency cannot be null!");
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -71,18 +81,23 @@ public class MarketConfigServiceImpl implements MarketConfigService {
     @Override
     public MarketConfig updateMarket(MarketConfig config) {
         LOG.info(() -> "About to update: " + config);
-        return marketConfigRepository.updateMarket(config);
+        return publishChange(marketConfigRepository.updateMarket(config));
     }
 
     @Override
     public MarketConfig createMarket(MarketConfig config) {
         LOG.info(() -> "About to create: " + config);
-        return marketConfigRepository.createMarket(config);
+        return publishChange(marketConfigRepository.createMarket(config));
     }
 
     @Override
     public MarketConfig deleteMarketById(String id) {
         LOG.info(() -> "About to delete Market config for id: " + id);
-        return marketConfigRepository.deleteMarketById(id);
+        return publishChange(marketConfigRepository.deleteMarketById(id));
+    }
+
+    private MarketConfig publishChange(MarketConfig changedConfig) {
+        eventPublisher.publishEvent(new ConfigChangedEvent(changedConfig));
+        return changedConfig;
     }
 }
@@ -24,11 +24,13 @@
 package com.gazbert.bxbot.services.impl;
 
 import com.gazbert.bxbot.domain.strategy.StrategyConfig;
+import com.gazbert.bxbot.repository.ConfigChangedEvent;
 import com.gazbert.bxbot.repository.StrategyConfigRepository;
 import com.gazbert.bxbot.services.StrategyConfigService;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -38,6 +40,9 @@ import java.util.List;
 
 /**
  * Implementation of the Strategy config service.
+ * <p>
+ * Publishes a {@link ConfigChangedEvent} whenever Strategy config is created, updated or deleted, so the Trading
+ * Engine can apply the change without a restart.
  *
  * @author gazbert
  */
@@ -49,11 +54,16 @@ public class StrategyConfigServiceImpl implements StrategyConfigService {
     private static final Logger LOG = LogManager.getLogger();
 
     private final StrategyConfigRepository strategyConfigRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public StrategyConfigServiceImpl(StrategyConfigRepository strategyConfigRepository) {
+    public StrategyConfigServiceImpl(StrategyConfigRepository strategyConfigRepository,
+                                     ApplicationEventPublisher eventPublisher) {
         Assert.notNull(strategyConfigRepository, "strategyConfigRepository dependency cannot be null!");
         this.strategyConfigRepository = strategyConfigRepository;
+
+        Assert.notNull(eventPublisher, "eventPublisher dependency cannot be null!");
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -70,18 +80,23 @@ public class StrategyConfigServiceImpl implements StrategyConfigService {
     @Override
     public StrategyConfig updateStrategy(StrategyConfig config) {
         LOG.info(() -> "About to update: " + config);
-        return strategyConfigRepository.updateStrategy(config);
+        return publishChange(strategyConfigRepository.updateStrategy(config));
     }
 
     @Override
     public StrategyConfig createStrategy(StrategyConfig config) {
         LOG.info(() -> "About to create: " + config);
-        return strategyConfigRepository.createStrategy(config);
+        return publishChange(strategyConfigRepository.createStrategy(config));
     }
 
     @Override
     public StrategyConfig deleteStrategyById(String id) {
         LOG.info(() -> "About to delete Strategy config for id: " + id);
-        return strategyConfigRepository.deleteStrategyById(id);
+        return publishChange(strategyConfigRepository.deleteStrategyById(id));
+    }
+
+    private StrategyConfig publishChange(StrategyConfig changedConfig) {
+        eventPublisher.publishEvent(new ConfigChangedEvent(changedConfig));
+        return changedConfig;
     }
-}
\ No newline at end of file
+}
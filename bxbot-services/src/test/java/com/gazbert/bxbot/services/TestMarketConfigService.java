@@ -0,0 +1,152 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.services;
+
+import com.gazbert.bxbot.domain.market.MarketConfig;
+import com.gazbert.bxbot.repository.ConfigChangedEvent;
+import com.gazbert.bxbot.repository.MarketConfigRepository;
+import com.gazbert.bxbot.services.impl.MarketConfigServiceImpl;
+import org.easymock.Capture;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.easymock.PowerMock;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.easymock.EasyMock.*;
+
+/**
+ * Tests Market config created, updated or deleted through the service is published as a config change.
+ *
+ * @author gazbert
+ */
+@RunWith(PowerMockRunner.class)
+public class TestMarketConfigService {
+
+    private static final String MARKET_ID = "btc_usd";
+    private static final String MARKET_LABEL = "BTC/USD";
+    private static final String MARKET_BASE_CURRENCY = "BTC";
+    private static final String MARKET_COUNTER_CURRENCY = "USD";
+    private static final boolean MARKET_IS_ENABLED = true;
+    private static final String MARKET_TRADING_STRATEGY = "scalping-strategy";
+
+    private MarketConfigRepository marketConfigRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private Capture<Object> event;
+
+
+    @Before
+    public void setup() throws Exception {
+        marketConfigRepository = PowerMock.createMock(MarketConfigRepository.class);
+        eventPublisher = PowerMock.createMock(ApplicationEventPublisher.class);
+        event = newCapture();
+    }
+
+    @Test
+    public void whenCreateMarketCalledThenExpectConfigChangePublished() throws Exception {
+
+        final MarketConfig marketConfig = someMarketConfig();
+        expect(marketConfigRepository.createMarket(marketConfig)).andReturn(marketConfig);
+        eventPublisher.publishEvent(capture(event));
+        expectLastCall();
+
+        PowerMock.replayAll();
+
+        final MarketConfigService marketConfigService =
+                new MarketConfigServiceImpl(marketConfigRepository, eventPublisher);
+        assertThat(marketConfigService.createMarket(marketConfig)).isEqualTo(marketConfig);
+
+        assertConfigChangePublishedFor(marketConfig);
+        PowerMock.verifyAll();
+    }
+
+    @Test
+    public void whenUpdateMarketCalledThenExpectConfigChangePublished() throws Exception {
+
+        final MarketConfig marketConfig = someMarketConfig();
+        expect(marketConfigRepository.updateMarket(marketConfig)).andReturn(marketConfig);
+        eventPublisher.publishEvent(capture(event));
+        expectLastCall();
+
+        PowerMock.replayAll();
+
+        final MarketConfigService marketConfigService =
+                new MarketConfigServiceImpl(marketConfigRepository, eventPublisher);
+        assertThat(marketConfigService.updateMarket(marketConfig)).isEqualTo(marketConfig);
+
+        assertConfigChangePublishedFor(marketConfig);
+        PowerMock.verifyAll();
+    }
+
+    @Test
+    public void whenDeleteMarketByIdCalledThenExpectConfigChangePublished() throws Exception {
+
+        final MarketConfig marketConfig = someMarketConfig();
+        expect(marketConfigRepository.deleteMarketById(MARKET_ID)).andReturn(marketConfig);
+        eventPublisher.publishEvent(capture(event));
+        expectLastCall();
+
+        PowerMock.replayAll();
+
+        final MarketConfigService marketConfigService =
+                new MarketConfigServiceImpl(marketConfigRepository, eventPublisher);
+        assertThat(marketConfigService.deleteMarketById(MARKET_ID)).isEqualTo(marketConfig);
+
+        assertConfigChangePublishedFor(marketConfig);
+        PowerMock.verifyAll();
+    }
+
+    @Test
+    public void whenFindAllMarketsCalledThenExpectNothingPublished() throws Exception {
+
+        expect(marketConfigRepository.findAllMarkets()).andReturn(Collections.singletonList(someMarketConfig()));
+
+        PowerMock.replayAll();
+
+        final MarketConfigService marketConfigService =
+                new MarketConfigServiceImpl(marketConfigRepository, eventPublisher);
+        assertThat(marketConfigService.findAllMarkets().size()).isEqualTo(1);
+
+        PowerMock.verifyAll();
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // Private utils
+    // ------------------------------------------------------------------------------------------------
+
+    private void assertConfigChangePublishedFor(MarketConfig marketConfig) {
+        final ConfigChangedEvent configChangedEvent = (ConfigChangedEvent) event.getValue();
+        assertThat(configChangedEvent.getConfigType()).isEqualTo(MarketConfig.class);
+        assertThat(configChangedEvent.getChangedConfig()).isEqualTo(marketConfig);
+    }
+
+    private static MarketConfig someMarketConfig() {
+        return new MarketConfig(MARKET_LABEL, MARKET_ID, MARKET_BASE_CURRENCY, MARKET_COUNTER_CURRENCY,
+                MARKET_IS_ENABLED, MARKET_TRADING_STRATEGY);
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.services;
+
+import com.gazbert.bxbot.domain.strategy.StrategyConfig;
+import com.gazbert.bxbot.repository.ConfigChangedEvent;
+import com.gazbert.bxbot.repository.StrategyConfigRepository;
+import com.gazbert.bxbot.services.impl.StrategyConfigServiceImpl;
+import org.easymock.Capture;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.easymock.PowerMock;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.easymock.EasyMock.*;
+
+/**
+ * Tests Strategy config created, updated or deleted through the service is published as a config change.
+ *
+ * @author gazbert
+ */
+@RunWith(PowerMockRunner.class)
+public class TestStrategyConfigService {
+
+    private static final String STRAT_ID = "macd-long-position";
+    private static final String STRAT_LABEL = "MACD Long Position Algo";
+    private static final String STRAT_DESCRIPTION = "Uses MACD as indicator and takes long position in base currency.";
+    private static final String STRAT_CLASSNAME = "com.gazbert.nova.algos.MacdLongBase";
+    private static final String BUY_PRICE_CONFIG_ITEM_KEY = "buy-price";
+    private static final String BUY_PRICE_CONFIG_ITEM_VALUE = "671.15";
+
+    private StrategyConfigRepository strategyConfigRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private Capture<Object> event;
+
+
+    @Before
+    public void setup() throws Exception {
+        strategyConfigRepository = PowerMock.createMock(StrategyConfigRepository.class);
+        eventPublisher = PowerMock.createMock(ApplicationEventPublisher.class);
+        event = newCapture();
+    }
+
+    @Test
+    public void whenCreateStrategyCalledThenExpectConfigChangePublished() throws Exception {
+
+        final StrategyConfig strategyConfig = someStrategyConfig();
+        expect(strategyConfigRepository.createStrategy(strategyConfig)).andReturn(strategyConfig);
+        eventPublisher.publishEvent(capture(event));
+        expectLastCall();
+
+        PowerMock.replayAll();
+
+        final StrategyConfigService strategyConfigService =
+                new StrategyConfigServiceImpl(strategyConfigRepository, eventPublisher);
+        assertThat(strategyConfigService.createStrategy(strategyConfig)).isEqualTo(strategyConfig);
+
+        assertConfigChangePublishedFor(strategyConfig);
+        PowerMock.verifyAll();
+    }
+
+    @Test
+    public void whenUpdateStrategyCalledThenExpectConfigChangePublished() throws Exception {
+
+        final StrategyConfig strategyConfig = someStrategyConfig();
+        expect(strategyConfigRepository.updateStrategy(strategyConfig)).andReturn(strategyConfig);
+        eventPublisher.publishEvent(capture(event));
+        expectLastCall();
+
+        PowerMock.replayAll();
+
+        final StrategyConfigService strategyConfigService =
+                new StrategyConfigServiceImpl(strategyConfigRepository, eventPublisher);
+        assertThat(strategyConfigService.updateStrategy(strategyConfig)).isEqualTo(strategyConfig);
+
+        assertConfigChangePublishedFor(strategyConfig);
+        PowerMock.verifyAll();
+    }
+
+    @Test
+    public void whenDeleteStrategyByIdCalledThenExpectConfigChangePublished() throws Exception {
+
+        final StrategyConfig strategyConfig = someStrategyConfig();
+        expect(strategyConfigRepository.deleteStrategyById(STRAT_ID)).andReturn(strategyConfig);
+        eventPublisher.publishEvent(capture(event));
+        expectLastCall();
+
+        PowerMock.replayAll();
+
+        final StrategyConfigService strategyConfigService =
+                new StrategyConfigServiceImpl(strategyConfigRepository, eventPublisher);
+        assertThat(strategyConfigService.deleteStrategyById(STRAT_ID)).isEqualTo(strategyConfig);
+
+        assertConfigChangePublishedFor(strategyConfig);
+        PowerMock.verifyAll();
+    }
+
+    @Test
+    public void whenFindAllStrategiesCalledThenExpectNothingPublished() throws Exception {
+
+        expect(strategyConfigRepository.findAllStrategies()).andReturn(Collections.singletonList(someStrategyConfig()));
+
+        PowerMock.replayAll();
+
+        final StrategyConfigService strategyConfigService =
+                new StrategyConfigServiceImpl(strategyConfigRepository, eventPublisher);
+        assertThat(strategyConfigService.findAllStrategies().size()).isEqualTo(1);
+
+        PowerMock.verifyAll();
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // Private utils
+    // ------------------------------------------------------------------------------------------------
+
+    private void assertConfigChangePublishedFor(StrategyConfig strategyConfig) {
+        final ConfigChangedEvent configChangedEvent = (ConfigChangedEvent) event.getValue();
+        assertThat(configChangedEvent.getConfigType()).isEqualTo(StrategyConfig.class);
+        assertThat(configChangedEvent.getChangedConfig()).isEqualTo(strategyConfig);
+    }
+
+    private static StrategyConfig someStrategyConfig() {
+        final Map<String, String> configItems = new HashMap<>();
+        configItems.put(BUY_PRICE_CONFIG_ITEM_KEY, BUY_PRICE_CONFIG_ITEM_VALUE);
+        return new StrategyConfig(STRAT_ID, STRAT_LABEL, STRAT_DESCRIPTION, STRAT_CLASSNAME, configItems);
+    }
+}
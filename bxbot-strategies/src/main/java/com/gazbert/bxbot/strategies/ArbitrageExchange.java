@@ -0,0 +1,125 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.strategies;
+
+import com.gazbert.bxbot.trading.api.AsyncTradingApi;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.TradingApi;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+/**
+ * An exchange being arbitraged on by the {@link CrossExchangeArbitrageStrategy}: its Trading API, its fees, and how
+ * long its orders take to be acknowledged.
+ *
+ * @author gazbert
+ */
+class ArbitrageExchange {
+
+    final String id;
+    final TradingApi tradingApi;
+    final Latency quoteToOrderLatency = new Latency();
+
+    /**
+     * Exchange fees as fractions, e.g. 0.0025 for 0.25%. Zero until they have been fetched.
+     */
+    BigDecimal buyFee = BigDecimal.ZERO;
+    BigDecimal sellFee = BigDecimal.ZERO;
+
+    ArbitrageExchange(String id, TradingApi tradingApi) {
+        this.id = id;
+        this.tradingApi = tradingApi;
+    }
+
+    /*
+     * Blocking Trading APIs are called on the strategy thread, i.e. 1 call at a time.
+     */
+    <T> CompletableFuture<T> callPublicApi(AsyncTradingApi.TradingApiCall<T> call) {
+        final Executor executor = tradingApi instanceof AsyncTradingApi
+                ? ((AsyncTradingApi) tradingApi).getPublicApiExecutor() : Runnable::run;
+        return AsyncTradingApi.callAsync(call, executor);
+    }
+
+    <T> CompletableFuture<T> callAuthenticatedApi(AsyncTradingApi.TradingApiCall<T> call) {
+        final Executor executor = tradingApi instanceof AsyncTradingApi
+                ? ((AsyncTradingApi) tradingApi).getAuthenticatedApiExecutor() : Runnable::run;
+        return AsyncTradingApi.callAsync(call, executor);
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    /**
+     * Waits for an exchange call to complete, passing on the exception it threw.
+     */
+    static <T> T await(CompletableFuture<T> future) throws ExchangeNetworkException, TradingApiException {
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExchangeNetworkException("Interrupted while waiting for exchange", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof ExchangeNetworkException) {
+                throw (ExchangeNetworkException) cause;
+            } else if (cause instanceof TradingApiException) {
+                throw (TradingApiException) cause;
+            }
+            throw new TradingApiException("Unexpected error calling exchange", cause);
+        }
+    }
+
+    static String formatMillis(long nanos) {
+        return new DecimalFormat("#.###").format(nanos / 1000000.0);
+    }
+
+    /**
+     * Running quote-to-order times for an exchange.
+     */
+    static class Latency {
+
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+
+        void add(long nanos) {
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+        }
+
+        @Override
+        public String toString() {
+            return "(average " + formatMillis(totalNanos / count) + " ms, worst " + formatMillis(maxNanos)
+                    + " ms over " + count + " orders)";
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.strategies;
+
+import com.gazbert.bxbot.trading.api.MarketOrder;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.google.common.base.MoreObjects;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+/**
+ * Buying on 1 exchange and selling on another, as found by the {@link CrossExchangeArbitrageStrategy}.
+ *
+ * @author gazbert
+ */
+class ArbitrageOpportunity {
+
+    final Quote buyQuote;
+    final Quote sellQuote;
+    final BigDecimal quantity;
+    final BigDecimal percentageEdge;
+
+    private ArbitrageOpportunity(Quote buyQuote, Quote sellQuote, BigDecimal quantity, BigDecimal percentageEdge) {
+        this.buyQuote = buyQuote;
+        this.sellQuote = sellQuote;
+        this.quantity = quantity;
+        this.percentageEdge = percentageEdge;
+    }
+
+    /**
+     * Finds the most profitable pair of exchanges to buy on and sell on after fees.
+     *
+     * @param quotes                the latest quotes.
+     * @param orderAmount           the most to buy and sell.
+     * @param minimumPercentageEdge the least profit to make after fees, as a percentage of the BUY cost.
+     * @return the best opportunity, or null if none of them make the minimum edge.
+     */
+    static ArbitrageOpportunity findBest(List<Quote> quotes, BigDecimal orderAmount,
+                                         BigDecimal minimumPercentageEdge) {
+
+        ArbitrageOpportunity bestOpportunity = null;
+        for (final Quote buyQuote : quotes) {
+            if (buyQuote.bestAsk == null) {
+                continue;
+            }
+
+            for (final Quote sellQuote : quotes) {
+                if (sellQuote == buyQuote || sellQuote.bestBid == null) {
+                    continue;
+                }
+
+                // What 1 unit costs to buy and brings in when sold, after the exchange fees
+                final BigDecimal buyCost = buyQuote.bestAsk.getPrice()
+                        .multiply(BigDecimal.ONE.add(buyQuote.exchange.buyFee));
+                final BigDecimal sellProceeds = sellQuote.bestBid.getPrice()
+                        .multiply(BigDecimal.ONE.subtract(sellQuote.exchange.sellFee));
+                if (buyCost.signum() <= 0) {
+                    continue;
+                }
+
+                final BigDecimal percentageEdge = sellProceeds.subtract(buyCost)
+                        .multiply(new BigDecimal("100"))
+                        .divide(buyCost, 8, RoundingMode.HALF_DOWN);
+                if (percentageEdge.compareTo(minimumPercentageEdge) < 0
+                        || (bestOpportunity != null && percentageEdge.compareTo(bestOpportunity.percentageEdge) <= 0)) {
+                    continue;
+                }
+
+                // Only trade what is on offer at the quoted prices on both sides
+                final BigDecimal quantity = orderAmount
+                        .min(buyQuote.bestAsk.getQuantity())
+                        .min(sellQuote.bestBid.getQuantity());
+                if (quantity.signum() > 0) {
+                    bestOpportunity = new ArbitrageOpportunity(buyQuote, sellQuote, quantity, percentageEdge);
+                }
+            }
+        }
+        return bestOpportunity;
+    }
+
+    /**
+     * @return how long ago the older of the 2 quotes arrived.
+     */
+    long getQuoteAgeNanos() {
+        return System.nanoTime() - Math.min(buyQuote.receivedNanos, sellQuote.receivedNanos);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("buyOn", buyQuote.exchange.id)
+                .add("buyPrice", buyQuote.bestAsk.getPrice())
+                .add("sellOn", sellQuote.exchange.id)
+                .add("sellPrice", sellQuote.bestBid.getPrice())
+                .add("quantity", quantity)
+                .add("percentageEdge", percentageEdge)
+                .toString();
+    }
+
+    /**
+     * The top of the order book on an exchange and when it arrived.
+     */
+    static class Quote {
+
+        final ArbitrageExchange exchange;
+        final MarketOrder bestBid;
+        final MarketOrder bestAsk;
+        final long receivedNanos;
+
+        Quote(ArbitrageExchange exchange, MarketOrderBook orderBook, long receivedNanos) {
+            this.exchange = exchange;
+            this.bestBid = orderBook.getBuyOrders().isEmpty() ? null : orderBook.getBuyOrders().get(0);
+            this.bestAsk = orderBook.getSellOrders().isEmpty() ? null : orderBook.getSellOrders().get(0);
+            this.receivedNanos = receivedNanos;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.strategies;
+
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.Market;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.util.concurrent.CompletableFuture;
+
+import static com.gazbert.bxbot.strategies.ArbitrageExchange.await;
+import static com.gazbert.bxbot.strategies.ArbitrageExchange.formatMillis;
+
+/**
+ * Trades an {@link ArbitrageOpportunity} for the {@link CrossExchangeArbitrageStrategy}: sends the BUY and SELL orders
+ * at the same time, then cancels whatever is left of them once both exchanges have acknowledged them, so they behave
+ * like Immediate-Or-Cancel orders.
+ *
+ * @author gazbert
+ */
+class ArbitrageTrade {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private final Market market;
+    private final OrderLeg buyLeg;
+    private final OrderLeg sellLeg;
+
+
+    ArbitrageTrade(Market market, ArbitrageOpportunity opportunity) {
+        this.market = market;
+        this.buyLeg = new OrderLeg(opportunity.buyQuote, OrderType.BUY, opportunity.buyQuote.bestAsk.getPrice(),
+                opportunity.quantity);
+        this.sellLeg = new OrderLeg(opportunity.sellQuote, OrderType.SELL, opportunity.sellQuote.bestBid.getPrice(),
+                opportunity.quantity);
+    }
+
+    /**
+     * Sends the BUY and SELL orders and cancels whatever is left of them.
+     *
+     * @throws TradingApiException      if an unexpected error occurred contacting an exchange.
+     * @throws ExchangeNetworkException if a request to an exchange has timed out.
+     */
+    void execute() throws TradingApiException, ExchangeNetworkException {
+
+        final CompletableFuture<String> buyOrderId = sendOrder(buyLeg);
+        final CompletableFuture<String> sellOrderId = sendOrder(sellLeg);
+
+        // Wait for both sides before giving up on either, so a failed order never leaves the other one unchecked
+        final Exception buyError = awaitOrder(buyLeg, buyOrderId);
+        final Exception sellError = awaitOrder(sellLeg, sellOrderId);
+
+        final CompletableFuture<BigDecimal> buyQuantityFilled = cancelUnfilledQuantity(buyLeg);
+        final CompletableFuture<BigDecimal> sellQuantityFilled = cancelUnfilledQuantity(sellLeg);
+        buyLeg.quantityFilled = awaitQuantityFilled(buyLeg, buyQuantityFilled);
+        sellLeg.quantityFilled = awaitQuantityFilled(sellLeg, sellQuantityFilled);
+
+        if (buyLeg.quantityFilled.compareTo(sellLeg.quantityFilled) == 0) {
+            LOG.info(() -> market.getName() + " Arbitrage complete - bought and sold " + buyLeg.quantityFilled);
+        } else {
+            LOG.warn(market.getName() + " Arbitrage only partly filled - bought " + buyLeg.quantityFilled + " on "
+                    + buyLeg.exchange.id + " but sold " + sellLeg.quantityFilled + " on " + sellLeg.exchange.id
+                    + ". The difference is left as an open position.");
+        }
+
+        rethrow(buyError);
+        rethrow(sellError);
+    }
+
+    /**
+     * Sends an order and stamps the time the exchange acknowledges it.
+     *
+     * @param leg the order to send.
+     * @return the order id.
+     */
+    private CompletableFuture<String> sendOrder(OrderLeg leg) {
+
+        LOG.info(() -> market.getName() + " Sending " + leg.type + " order for " + leg.quantity + " at ["
+                + new DecimalFormat("#.########").format(leg.price) + "] to " + leg.exchange.id + " --->");
+
+        leg.sentNanos = System.nanoTime();
+        final CompletableFuture<String> orderId = leg.exchange.callAuthenticatedApi(() ->
+                leg.exchange.tradingApi.createOrder(market.getId(), leg.type, leg.quantity, leg.price));
+        return orderId.thenApply(id -> {
+            leg.acknowledgedNanos = System.nanoTime();
+            return id;
+        });
+    }
+
+    /**
+     * Waits for an order to be acknowledged and reports its quote-to-order time.
+     *
+     * @param leg     the order sent.
+     * @param orderId the order id.
+     * @return the error the exchange returned, or null if the order was placed.
+     */
+    private Exception awaitOrder(OrderLeg leg, CompletableFuture<String> orderId) {
+
+        try {
+            leg.orderId = await(orderId);
+        } catch (ExchangeNetworkException | TradingApiException e) {
+            LOG.error(market.getName() + " " + leg.type + " order on " + leg.exchange.id + " failed.", e);
+            return e;
+        }
+
+        final long quoteToOrderNanos = leg.acknowledgedNanos - leg.quote.receivedNanos;
+        leg.exchange.quoteToOrderLatency.add(quoteToOrderNanos);
+        LOG.info(() -> market.getName() + " " + leg.type + " order sent successfully to " + leg.exchange.id
+                + ". ID: " + leg.orderId
+                + " Quote-to-send: " + formatMillis(leg.sentNanos - leg.quote.receivedNanos) + " ms"
+                + " Quote-to-order: " + formatMillis(quoteToOrderNanos) + " ms"
+                + " " + leg.exchange.quoteToOrderLatency);
+        return null;
+    }
+
+    /**
+     * Cancels whatever is left of an order, so it behaves like an Immediate-Or-Cancel order.
+     *
+     * @param leg the order sent.
+     * @return the quantity that filled before it was cancelled.
+     */
+    private CompletableFuture<BigDecimal> cancelUnfilledQuantity(OrderLeg leg) {
+
+        if (leg.orderId == null) {
+            return CompletableFuture.completedFuture(BigDecimal.ZERO);
+        }
+
+        final ArbitrageExchange exchange = leg.exchange;
+        return exchange.callAuthenticatedApi(() -> exchange.tradingApi.getYourOpenOrders(market.getId()))
+                .thenCompose(openOrders -> {
+                    final OpenOrder openOrder = openOrders.stream()
+                            .filter(order -> leg.orderId.equals(order.getId()))
+                            .findFirst()
+                            .orElse(null);
+                    if (openOrder == null) {
+                        // Not open any more - it must have all filled
+                        return CompletableFuture.completedFuture(leg.quantity);
+                    }
+                    // If it could not be cancelled, it filled in the meantime
+                    return exchange.callAuthenticatedApi(() -> exchange.tradingApi.cancelOrder(leg.orderId,
+                            market.getId()))
+                            .thenApply(cancelled -> cancelled
+                                    ? leg.quantity.subtract(openOrder.getQuantity()) : leg.quantity);
+                });
+    }
+
+    /**
+     * Waits for the unfilled part of an order to be cancelled.
+     *
+     * @param leg            the order sent.
+     * @param quantityFilled the quantity filled before it was cancelled.
+     * @return the quantity filled. If it cannot be found out, the whole order is assumed to have filled.
+     * @throws TradingApiException if an unexpected error occurred contacting the exchange.
+     */
+    private BigDecimal awaitQuantityFilled(OrderLeg leg, CompletableFuture<BigDecimal> quantityFilled)
+            throws TradingApiException {
+
+        try {
+            final BigDecimal filled = await(quantityFilled);
+            LOG.info(() -> market.getName() + " " + leg.type + " order on " + leg.exchange.id + " filled " + filled
+                    + " of " + leg.quantity);
+            return filled;
+        } catch (ExchangeNetworkException e) {
+            LOG.error(market.getName() + " Failed to cancel what is left of " + leg.type + " order " + leg.orderId
+                    + " on " + leg.exchange.id + " because Exchange threw network exception. It may still fill.", e);
+            return leg.quantity;
+        }
+    }
+
+    private static void rethrow(Exception e) throws TradingApiException, ExchangeNetworkException {
+        if (e instanceof TradingApiException) {
+            throw (TradingApiException) e;
+        } else if (e instanceof ExchangeNetworkException) {
+            throw (ExchangeNetworkException) e;
+        }
+    }
+
+    /**
+     * 1 side of an arbitrage.
+     */
+    private static class OrderLeg {
+
+        private final ArbitrageExchange exchange;
+        private final ArbitrageOpportunity.Quote quote;
+        private final OrderType type;
+        private final BigDecimal price;
+        private final BigDecimal quantity;
+
+        private String orderId;
+        private long sentNanos;
+        private volatile long acknowledgedNanos;
+        private BigDecimal quantityFilled = BigDecimal.ZERO;
+
+        OrderLeg(ArbitrageOpportunity.Quote quote, OrderType type, BigDecimal price, BigDecimal quantity) {
+            this.exchange = quote.exchange;
+            this.quote = quote;
+            this.type = type;
+            this.price = price;
+            this.quantity = quantity;
+        }
+    }
+}
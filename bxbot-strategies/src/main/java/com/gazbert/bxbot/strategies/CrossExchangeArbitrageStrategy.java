@@ -0,0 +1,327 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.strategies;
+
+import com.gazbert.bxbot.strategy.api.MultiExchangeTradingStrategy;
+import com.gazbert.bxbot.strategy.api.StrategyConfig;
+import com.gazbert.bxbot.strategy.api.StrategyException;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.Market;
+import com.gazbert.bxbot.trading.api.TradingApi;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.gazbert.bxbot.strategies.ArbitrageExchange.await;
+import static com.gazbert.bxbot.strategies.ArbitrageExchange.formatMillis;
+
+/**
+ * <p>
+ * A simple cross-exchange <a href="http://www.investopedia.com/terms/a/arbitrage.asp">arbitrage</a> strategy. It
+ * watches the same market on 2 or more exchanges. When the best BID price on 1 exchange is higher than the best ASK
+ * price on another, by more than the fees on both exchanges, it buys on the cheaper exchange and sells on the dearer
+ * one at the same time.
+ * </p>
+ * <p>
+ * <strong>
+ * DISCLAIMER:
+ * This algorithm is provided as-is; it might have bugs in it and you could lose money. Use it at our own risk!
+ * </strong>
+ * </p>
+ * <p>
+ * The price gap rarely lasts long, so the time between seeing a quote and getting an order onto the exchange is what
+ * matters most. Every trade cycle, the strategy:
+ * </p>
+ * <ol>
+ * <li>fetches the top of the order book from all the exchanges at the same time;</li>
+ * <li>works out the net edge of buying on each exchange and selling on each of the others, after the exchange fees;</li>
+ * <li>drops the best opportunity if its quotes are older than the max quote age by the time it is found;</li>
+ * <li>sends the BUY and SELL orders at the same time, priced at the ASK and BID that were quoted;</li>
+ * <li>checks both orders and cancels whatever is left of them straight away. The Trading API has no
+ * Immediate-Or-Cancel order type, so this is how the orders are made to behave like one.</li>
+ * </ol>
+ * <p>
+ * For each order it sends, it measures the time from receiving the quote to the exchange acknowledging the order, and
+ * logs it with the average and worst time seen on that exchange.
+ * </p>
+ * <p>
+ * The exchange fees are fetched the first time the strategy is executed and kept for the life of the bot.
+ * </p>
+ * <p>
+ * It does not move funds between the exchanges - you need enough of the counter currency on each exchange to buy with,
+ * and enough of the base currency to sell. If only 1 side of an arbitrage fills, the bot is left holding the position;
+ * this is logged, and it is up to you to deal with it.
+ * </p>
+ * <p>
+ * You configure it in the strategies.xml file:
+ * </p>
+ * <ul>
+ * <li>order-amount - mandatory. The amount of the base currency to buy and sell on each arbitrage.</li>
+ * <li>minimum-percentage-edge - optional. The profit to make after fees, as a percentage of the BUY cost, e.g. 0.1 for
+ * 0.1%. Defaults to 0.1.</li>
+ * <li>max-quote-age - optional. The oldest quote in MILLIS the strategy will trade on. Defaults to 1000.</li>
+ * <li>exchanges - optional. Comma separated list of the exchange ids to arbitrage between. Defaults to all the
+ * exchanges in the exchange.xml config.</li>
+ * </ul>
+ * <p>
+ * The market must have the same id on all the exchanges.
+ * </p>
+ * <p>
+ * The Trading Engine will only send 1 thread through your strategy code at a time - you do not have to code for
+ * concurrency.
+ * </p>
+ *
+ * @author gazbert
+ */
+public class CrossExchangeArbitrageStrategy implements MultiExchangeTradingStrategy {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * Used if the minimum-percentage-edge config item is not set.
+     */
+    private static final BigDecimal DEFAULT_MINIMUM_PERCENTAGE_EDGE = new BigDecimal("0.1");
+
+    /**
+     * Used if the max-quote-age config item is not set.
+     */
+    private static final long DEFAULT_MAX_QUOTE_AGE_MILLIS = 1000;
+
+    /**
+     * The exchanges being arbitraged between.
+     */
+    private final List<ArbitrageExchange> exchanges = new ArrayList<>();
+
+    /**
+     * The market this strategy is trading on.
+     */
+    private Market market;
+
+    /**
+     * Base currency amount to buy and sell on each arbitrage. Loaded from the order-amount config item.
+     */
+    private BigDecimal orderAmount;
+
+    /**
+     * Minimum profit after fees as a percentage of the BUY cost. Loaded from the minimum-percentage-edge config item.
+     */
+    private BigDecimal minimumPercentageEdge;
+
+    /**
+     * Oldest quote the strategy will trade on. Loaded from the max-quote-age config item.
+     */
+    private long maxQuoteAgeNanos;
+
+    /**
+     * Set once the exchange fees have been fetched.
+     */
+    private boolean exchangeFeesLoaded;
+
+
+    /**
+     * Initialises the Trading Strategy.
+     * Called once by the Trading Engine when the bot starts up.
+     *
+     * @param tradingApis the Trading API of each exchange, keyed by exchange id.
+     * @param market      the market for this strategy. It must have the same id on all the exchanges.
+     * @param config      the configuration for the strategy from the strategies.xml file.
+     */
+    @Override
+    public void init(Map<String, TradingApi> tradingApis, Market market, StrategyConfig config) {
+
+        LOG.info(() -> "Initialising Trading Strategy...");
+
+        this.market = market;
+        getConfigForStrategy(tradingApis, config);
+
+        LOG.info(() -> "Trading Strategy initialised successfully!");
+    }
+
+    /**
+     * Looks for an arbitrage between the exchanges and trades it if there is one.
+     *
+     * @throws StrategyException if an exchange returns an unexpected error. This tells the Trading Engine to shutdown
+     *                           the bot immediately to help prevent unexpected losses.
+     */
+    @Override
+    public void execute() throws StrategyException {
+
+        try {
+            if (!exchangeFeesLoaded) {
+                loadExchangeFees();
+            }
+
+            final List<ArbitrageOpportunity.Quote> quotes = fetchQuotes();
+            final ArbitrageOpportunity opportunity =
+                    ArbitrageOpportunity.findBest(quotes, orderAmount, minimumPercentageEdge);
+            if (opportunity == null) {
+                LOG.info(() -> market.getName() + " No arbitrage above the minimum edge of "
+                        + minimumPercentageEdge + "% - holding...");
+                return;
+            }
+
+            final long quoteAgeNanos = opportunity.getQuoteAgeNanos();
+            if (quoteAgeNanos > maxQuoteAgeNanos) {
+                LOG.warn(market.getName() + " Skipping " + opportunity + " - quotes are "
+                        + formatMillis(quoteAgeNanos) + " ms old");
+                return;
+            }
+
+            LOG.info(() -> market.getName() + " Trading " + opportunity);
+            new ArbitrageTrade(market, opportunity).execute();
+
+        } catch (ExchangeNetworkException e) {
+
+            // We are just going to log it and swallow it, and wait for next trade cycle.
+            LOG.error(market.getName() + " Arbitrage failed because Exchange threw network exception. " +
+                    "Waiting until next trade cycle.", e);
+
+        } catch (TradingApiException e) {
+
+            // We are just going to re-throw as StrategyException for engine to deal with - it will shutdown the bot.
+            LOG.error(market.getName() + " Arbitrage failed because Exchange threw TradingApi exception. " +
+                    " Telling Trading Engine to shutdown bot!", e);
+            throw new StrategyException(e);
+        }
+    }
+
+    /**
+     * Fetches the BUY and SELL fees from all the exchanges at the same time.
+     *
+     * @throws TradingApiException      if an unexpected error occurred contacting an exchange.
+     * @throws ExchangeNetworkException if a request to an exchange has timed out.
+     */
+    private void loadExchangeFees() throws TradingApiException, ExchangeNetworkException {
+
+        final List<CompletableFuture<BigDecimal>> buyFees = new ArrayList<>();
+        final List<CompletableFuture<BigDecimal>> sellFees = new ArrayList<>();
+        for (final ArbitrageExchange exchange : exchanges) {
+            buyFees.add(exchange.callAuthenticatedApi(() ->
+                    exchange.tradingApi.getPercentageOfBuyOrderTakenForExchangeFee(market.getId())));
+            sellFees.add(exchange.callAuthenticatedApi(() ->
+                    exchange.tradingApi.getPercentageOfSellOrderTakenForExchangeFee(market.getId())));
+        }
+
+        for (int i = 0; i < exchanges.size(); i++) {
+            final ArbitrageExchange exchange = exchanges.get(i);
+            exchange.buyFee = await(buyFees.get(i));
+            exchange.sellFee = await(sellFees.get(i));
+            LOG.info(() -> market.getName() + " Exchange fees in percent on " + exchange.id + " are: buy "
+                    + exchange.buyFee + " sell " + exchange.sellFee);
+        }
+        exchangeFeesLoaded = true;
+    }
+
+    /**
+     * Fetches the top of the order book from all the exchanges at the same time. Each quote is stamped with the time
+     * it arrived. An exchange that cannot be reached is left out.
+     *
+     * @return the quotes.
+     * @throws TradingApiException if an unexpected error occurred contacting an exchange.
+     */
+    private List<ArbitrageOpportunity.Quote> fetchQuotes() throws TradingApiException {
+
+        final List<CompletableFuture<ArbitrageOpportunity.Quote>> pendingQuotes = new ArrayList<>();
+        for (final ArbitrageExchange exchange : exchanges) {
+            pendingQuotes.add(exchange.callPublicApi(() -> exchange.tradingApi.getTopOfBook(market.getId()))
+                    .thenApply(orderBook -> new ArbitrageOpportunity.Quote(exchange, orderBook, System.nanoTime())));
+        }
+
+        final List<ArbitrageOpportunity.Quote> quotes = new ArrayList<>();
+        for (int i = 0; i < exchanges.size(); i++) {
+            try {
+                quotes.add(await(pendingQuotes.get(i)));
+            } catch (ExchangeNetworkException e) {
+                LOG.warn(market.getName() + " Failed to get order book from " + exchanges.get(i).id
+                        + " because Exchange threw network exception. Leaving it out of this trade cycle.", e);
+            }
+        }
+        return quotes;
+    }
+
+    /**
+     * Loads the config for the strategy. We expect the 'order-amount' config item to be present in the
+     * strategies.xml config file.
+     *
+     * @param tradingApis the Trading API of each exchange.
+     * @param config      the config for the Trading Strategy.
+     */
+    private void getConfigForStrategy(Map<String, TradingApi> tradingApis, StrategyConfig config) {
+
+        final String orderAmountFromConfigAsString = config.getConfigItem("order-amount");
+        if (orderAmountFromConfigAsString == null) {
+            // game over - kill it off now.
+            throw new IllegalArgumentException("Mandatory order-amount value missing in strategy.xml config.");
+        }
+        LOG.info(() -> "<order-amount> from config is: " + orderAmountFromConfigAsString);
+
+        // will fail fast if value is not a number!
+        orderAmount = new BigDecimal(orderAmountFromConfigAsString);
+        LOG.info(() -> "orderAmount: " + orderAmount);
+
+        final String minimumPercentageEdgeFromConfigAsString = config.getConfigItem("minimum-percentage-edge");
+        LOG.info(() -> "<minimum-percentage-edge> from config is: " + minimumPercentageEdgeFromConfigAsString);
+        minimumPercentageEdge = minimumPercentageEdgeFromConfigAsString == null
+                ? DEFAULT_MINIMUM_PERCENTAGE_EDGE : new BigDecimal(minimumPercentageEdgeFromConfigAsString);
+        LOG.info(() -> "minimumPercentageEdge: " + minimumPercentageEdge);
+
+        final String maxQuoteAgeFromConfigAsString = config.getConfigItem("max-quote-age");
+        LOG.info(() -> "<max-quote-age> from config is: " + maxQuoteAgeFromConfigAsString);
+        maxQuoteAgeNanos = TimeUnit.MILLISECONDS.toNanos(maxQuoteAgeFromConfigAsString == null
+                ? DEFAULT_MAX_QUOTE_AGE_MILLIS : Long.parseLong(maxQuoteAgeFromConfigAsString));
+
+        // Default to all the exchanges
+        final Map<String, TradingApi> tradingApisToUse = new LinkedHashMap<>();
+        final String exchangesFromConfigAsString = config.getConfigItem("exchanges");
+        LOG.info(() -> "<exchanges> from config is: " + exchangesFromConfigAsString);
+        if (exchangesFromConfigAsString == null) {
+            tradingApisToUse.putAll(tradingApis);
+        } else {
+            for (final String exchangeId : exchangesFromConfigAsString.split(",")) {
+                final TradingApi tradingApi = tradingApis.get(exchangeId.trim());
+                if (tradingApi == null) {
+                    throw new IllegalArgumentException("Exchange " + exchangeId.trim() + " in exchanges value in "
+                            + "strategy.xml config is not in the exchange.xml config.");
+                }
+                tradingApisToUse.put(exchangeId.trim(), tradingApi);
+            }
+        }
+
+        if (tradingApisToUse.size() < 2) {
+            throw new IllegalArgumentException("At least 2 exchanges are needed for arbitrage but only found: "
+                    + tradingApisToUse.keySet());
+        }
+        tradingApisToUse.forEach((exchangeId, tradingApi) ->
+                exchanges.add(new ArbitrageExchange(exchangeId, tradingApi)));
+        LOG.info(() -> "Arbitraging between exchanges: " + tradingApisToUse.keySet());
+    }
+}
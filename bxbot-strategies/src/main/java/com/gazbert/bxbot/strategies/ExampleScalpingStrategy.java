@@ -102,6 +102,11 @@ public class ExampleScalpingStrategy implements TradingStrategy {
 
     private static final Logger LOG = LogManager.getLogger();
 
+    /**
+     * Used if the minimumPercentageGain config item is not set.
+     */
+    private static final BigDecimal DEFAULT_MINIMUM_PERCENTAGE_GAIN = BigDecimal.ONE;
+
     /**
      * Reference to the main Trading API.
      */
@@ -122,6 +127,12 @@ public class ExampleScalpingStrategy implements TradingStrategy {
      */
     private BigDecimal btcBuyOrderAmount;
 
+    /**
+     * The profit to add on top of the last BUY price (plus fees) when placing the SELL order, e.g. 0.01 for 1%.
+     * Loaded from the optional 'minimumPercentageGain' config item in the strategies.xml config file.
+     */
+    private BigDecimal percentProfitToMake;
+
 
     /**
      * Initialises the Trading Strategy.
@@ -163,8 +174,8 @@ public class ExampleScalpingStrategy implements TradingStrategy {
         LOG.info(() -> market.getName() + " Checking order status...");
 
         try {
-            // Grab the latest order book for the market.
-            final MarketOrderBook orderBook = tradingApi.getMarketOrders(market.getId());
+            // Grab the top of the latest order book for the market - we only need the best BID and ASK price.
+            final MarketOrderBook orderBook = tradingApi.getTopOfBook(market.getId());
 
             final List<MarketOrder> buyOrders = orderBook.getBuyOrders();
             if (buyOrders.size() == 0) {
@@ -318,10 +329,10 @@ public class ExampleScalpingStrategy implements TradingStrategy {
                  *    enough units to cover the transaction fee.
                  * 2. we could end up selling at a loss.
                  *
-                 * For this example strategy, we're just going to add 1% on top of original bid price (last order)
-                 * and combine the exchange buy and sell fees. Your algo will have other ideas on how much profit to make ;-)
+                 * For this example strategy, we're just going to add minimumPercentageGain (1% by default) on top of
+                 * original bid price (last order) and combine the exchange buy and sell fees. Your algo will have other
+                 * ideas on how much profit to make ;-)
                  */
-                final BigDecimal percentProfitToMake = new BigDecimal("0.01");
                 LOG.info(() -> market.getName() +
                         " Percentage profit to make on sell order is: " + percentProfitToMake);
 
@@ -512,7 +523,7 @@ public class ExampleScalpingStrategy implements TradingStrategy {
 
     /**
      * Loads the config for the strategy. We expect the 'btc-buy-order-amount' config item to be present in the
-     * strategies.xml config file.
+     * strategies.xml config file. The 'minimumPercentageGain' config item is optional and defaults to 1%.
      *
      * @param config the config for the Trading Strategy.
      */
@@ -528,6 +539,15 @@ public class ExampleScalpingStrategy implements TradingStrategy {
         // will fail fast if value is not a number!
         btcBuyOrderAmount = new BigDecimal(btcBuyOrderAmountFromConfigAsString);
         LOG.info(() -> "btcBuyOrderAmount: " + btcBuyOrderAmount);
+
+        final String minimumPercentageGainFromConfigAsString = config.getConfigItem("minimumPercentageGain");
+        LOG.info(() -> "<minimumPercentageGain> from config is: " + minimumPercentageGainFromConfigAsString);
+
+        // config value is a percentage, e.g. 1 for 1%
+        final BigDecimal minimumPercentageGain = minimumPercentageGainFromConfigAsString == null
+                ? DEFAULT_MINIMUM_PERCENTAGE_GAIN : new BigDecimal(minimumPercentageGainFromConfigAsString);
+        percentProfitToMake = minimumPercentageGain.divide(new BigDecimal("100"), 8, RoundingMode.HALF_UP);
+        LOG.info(() -> "percentProfitToMake: " + percentProfitToMake);
     }
 
     /**
@@ -0,0 +1,336 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.strategies;
+
+import com.gazbert.bxbot.strategy.api.StrategyException;
+import com.gazbert.bxbot.strategy.api.impl.StrategyConfigItems;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.Market;
+import com.gazbert.bxbot.trading.api.MarketOrder;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.gazbert.bxbot.trading.api.TradingApi;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import org.junit.Before;
+import org.junit.Test;
+import org.powermock.api.easymock.PowerMock;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.easymock.EasyMock.expect;
+
+/**
+ * Tests the behaviour of the Cross Exchange Arbitrage Strategy.
+ *
+ * @author gazbert
+ */
+public class TestCrossExchangeArbitrageStrategy {
+
+    // canned data
+    private static final String MARKET_ID = "btc_usd";
+    private static final String EXCHANGE_1_ID = "btce";
+    private static final String EXCHANGE_2_ID = "bitstamp";
+    private static final String EXCHANGE_3_ID = "gdax";
+    private static final BigDecimal EXCHANGE_FEE_PERCENTAGE = new BigDecimal("0.001");
+    private static final BigDecimal ORDER_AMOUNT = new BigDecimal("0.5");
+    private static final BigDecimal EXCHANGE_1_ASK_PRICE = new BigDecimal("100");
+    private static final BigDecimal EXCHANGE_2_BID_PRICE = new BigDecimal("102");
+    private static final String BUY_ORDER_ID = "4239407233";
+    private static final String SELL_ORDER_ID = "4239407234";
+
+    // Strategy init() arguments
+    private TradingApi exchange1TradingApi;
+    private TradingApi exchange2TradingApi;
+    private Map<String, TradingApi> tradingApis;
+    private Market market;
+    private StrategyConfigItems config;
+
+
+    /*
+     * Each test will be the same up to the point of fetching the exchange fees.
+     */
+    @Before
+    public void setUpBeforeEachTest() throws Exception {
+
+        exchange1TradingApi = PowerMock.createMock(TradingApi.class);
+        exchange2TradingApi = PowerMock.createMock(TradingApi.class);
+        tradingApis = new LinkedHashMap<>();
+        tradingApis.put(EXCHANGE_1_ID, exchange1TradingApi);
+        tradingApis.put(EXCHANGE_2_ID, exchange2TradingApi);
+
+        market = new Market("BTC/USD", MARKET_ID, "BTC", "USD");
+
+        final Map<String, String> configItems = new HashMap<>();
+        configItems.put("order-amount", ORDER_AMOUNT.toString());
+        config = new StrategyConfigItems();
+        config.setItems(configItems);
+
+        // expect exchange fees to be fetched on first execution
+        for (final TradingApi tradingApi : tradingApis.values()) {
+            expect(tradingApi.getPercentageOfBuyOrderTakenForExchangeFee(MARKET_ID)).andReturn(EXCHANGE_FEE_PERCENTAGE);
+            expect(tradingApi.getPercentageOfSellOrderTakenForExchangeFee(MARKET_ID)).andReturn(EXCHANGE_FEE_PERCENTAGE);
+        }
+    }
+
+    /*
+     * - Given BTC is cheaper on exchange 1 than exchange 2, after fees
+     * - When the strategy is invoked
+     * - Then it buys on exchange 1 and sells on exchange 2 at the quoted prices
+     */
+    @Test
+    public void testStrategyBuysOnCheapExchangeAndSellsOnDearExchange() throws Exception {
+
+        expect(exchange1TradingApi.getTopOfBook(MARKET_ID)).andReturn(someOrderBook(new BigDecimal("99"),
+                EXCHANGE_1_ASK_PRICE));
+        expect(exchange2TradingApi.getTopOfBook(MARKET_ID)).andReturn(someOrderBook(EXCHANGE_2_BID_PRICE,
+                new BigDecimal("103")));
+
+        expect(exchange1TradingApi.createOrder(MARKET_ID, OrderType.BUY, ORDER_AMOUNT, EXCHANGE_1_ASK_PRICE))
+                .andReturn(BUY_ORDER_ID);
+        expect(exchange2TradingApi.createOrder(MARKET_ID, OrderType.SELL, ORDER_AMOUNT, EXCHANGE_2_BID_PRICE))
+                .andReturn(SELL_ORDER_ID);
+
+        // both orders filled straight away
+        expect(exchange1TradingApi.getYourOpenOrders(MARKET_ID)).andReturn(Collections.emptyList());
+        expect(exchange2TradingApi.getYourOpenOrders(MARKET_ID)).andReturn(Collections.emptyList());
+
+        PowerMock.replayAll();
+
+        final CrossExchangeArbitrageStrategy strategy = new CrossExchangeArbitrageStrategy();
+        strategy.init(tradingApis, market, config);
+        strategy.execute();
+
+        PowerMock.verifyAll();
+    }
+
+    /*
+     * - Given the sell order has only partly filled once it is acknowledged
+     * - When the strategy checks its orders
+     * - Then it cancels what is left of the sell order
+     */
+    @Test
+    public void testStrategyCancelsWhatIsLeftOfAnOrderOnceItIsAcknowledged() throws Exception {
+
+        expect(exchange1TradingApi.getTopOfBook(MARKET_ID)).andReturn(someOrderBook(new BigDecimal("99"),
+                EXCHANGE_1_ASK_PRICE));
+        expect(exchange2TradingApi.getTopOfBook(MARKET_ID)).andReturn(someOrderBook(EXCHANGE_2_BID_PRICE,
+                new BigDecimal("103")));
+
+        expect(exchange1TradingApi.createOrder(MARKET_ID, OrderType.BUY, ORDER_AMOUNT, EXCHANGE_1_ASK_PRICE))
+                .andReturn(BUY_ORDER_ID);
+        expect(exchange2TradingApi.createOrder(MARKET_ID, OrderType.SELL, ORDER_AMOUNT, EXCHANGE_2_BID_PRICE))
+                .andReturn(SELL_ORDER_ID);
+
+        expect(exchange1TradingApi.getYourOpenOrders(MARKET_ID)).andReturn(Collections.emptyList());
+        final OpenOrder partlyFilledSellOrder = new OpenOrder(SELL_ORDER_ID, new Date(), MARKET_ID, OrderType.SELL,
+                EXCHANGE_2_BID_PRICE, new BigDecimal("0.2"), ORDER_AMOUNT, null);
+        expect(exchange2TradingApi.getYourOpenOrders(MARKET_ID))
+                .andReturn(Collections.singletonList(partlyFilledSellOrder));
+        expect(exchange2TradingApi.cancelOrder(SELL_ORDER_ID, MARKET_ID)).andReturn(true);
+
+        PowerMock.replayAll();
+
+        final CrossExchangeArbitrageStrategy strategy = new CrossExchangeArbitrageStrategy();
+        strategy.init(tradingApis, market, config);
+        strategy.execute();
+
+        PowerMock.verifyAll();
+    }
+
+    /*
+     * - Given the price gap between the exchanges is smaller than the fees
+     * - When the strategy is invoked
+     * - Then no orders are sent
+     */
+    @Test
+    public void testStrategyDoesNotTradeWhenEdgeIsBelowMinimumAfterFees() throws Exception {
+
+        expect(exchange1TradingApi.getTopOfBook(MARKET_ID)).andReturn(someOrderBook(new BigDecimal("99"),
+                EXCHANGE_1_ASK_PRICE));
+        expect(exchange2TradingApi.getTopOfBook(MARKET_ID)).andReturn(someOrderBook(new BigDecimal("100.15"),
+                new BigDecimal("101")));
+
+        PowerMock.replayAll();
+
+        final CrossExchangeArbitrageStrategy strategy = new CrossExchangeArbitrageStrategy();
+        strategy.init(tradingApis, market, config);
+        strategy.execute();
+
+        PowerMock.verifyAll();
+    }
+
+    /*
+     * - Given an exchange throws a TradingApiException when fetching the order book
+     * - When the strategy is invoked
+     * - Then it tells the Trading Engine to shutdown the bot
+     */
+    @Test(expected = StrategyException.class)
+    public void testStrategyThrowsStrategyExceptionWhenExchangeThrowsTradingApiException() throws Exception {
+
+        expect(exchange1TradingApi.getTopOfBook(MARKET_ID)).andThrow(new TradingApiException("Invalid nonce"));
+        expect(exchange2TradingApi.getTopOfBook(MARKET_ID)).andReturn(someOrderBook(EXCHANGE_2_BID_PRICE,
+                new BigDecimal("103")));
+
+        PowerMock.replayAll();
+
+        final CrossExchangeArbitrageStrategy strategy = new CrossExchangeArbitrageStrategy();
+        strategy.init(tradingApis, market, config);
+        strategy.execute();
+
+        PowerMock.verifyAll();
+    }
+
+    /*
+     * - Given the quote from exchange 1 is older than the max quote age by the time the opportunity is found
+     * - When the strategy is invoked
+     * - Then no orders are sent
+     */
+    @Test
+    public void testStrategyDoesNotTradeOnQuotesOlderThanMaxQuoteAge() throws Exception {
+
+        config.getItems().put("max-quote-age", "10");
+
+        expect(exchange1TradingApi.getTopOfBook(MARKET_ID)).andReturn(someOrderBook(new BigDecimal("99"),
+                EXCHANGE_1_ASK_PRICE));
+        expect(exchange2TradingApi.getTopOfBook(MARKET_ID)).andAnswer(() -> {
+            Thread.sleep(50); // exchange 1's quote goes stale while waiting for exchange 2
+            return someOrderBook(EXCHANGE_2_BID_PRICE, new BigDecimal("103"));
+        });
+
+        PowerMock.replayAll();
+
+        final CrossExchangeArbitrageStrategy strategy = new CrossExchangeArbitrageStrategy();
+        strategy.init(tradingApis, market, config);
+        strategy.execute();
+
+        PowerMock.verifyAll();
+    }
+
+    /*
+     * - Given exchange 3 throws a network exception when fetching the order book
+     * - When the strategy is invoked
+     * - Then it leaves exchange 3 out and trades between exchange 1 and exchange 2
+     */
+    @Test
+    public void testStrategyLeavesOutExchangeThatThrowsNetworkExceptionFetchingQuote() throws Exception {
+
+        final TradingApi exchange3TradingApi = PowerMock.createMock(TradingApi.class);
+        tradingApis.put(EXCHANGE_3_ID, exchange3TradingApi);
+        expect(exchange3TradingApi.getPercentageOfBuyOrderTakenForExchangeFee(MARKET_ID))
+                .andReturn(EXCHANGE_FEE_PERCENTAGE);
+        expect(exchange3TradingApi.getPercentageOfSellOrderTakenForExchangeFee(MARKET_ID))
+                .andReturn(EXCHANGE_FEE_PERCENTAGE);
+
+        expect(exchange1TradingApi.getTopOfBook(MARKET_ID)).andReturn(someOrderBook(new BigDecimal("99"),
+                EXCHANGE_1_ASK_PRICE));
+        expect(exchange2TradingApi.getTopOfBook(MARKET_ID)).andReturn(someOrderBook(EXCHANGE_2_BID_PRICE,
+                new BigDecimal("103")));
+        expect(exchange3TradingApi.getTopOfBook(MARKET_ID)).andThrow(new ExchangeNetworkException("Timeout"));
+
+        expect(exchange1TradingApi.createOrder(MARKET_ID, OrderType.BUY, ORDER_AMOUNT, EXCHANGE_1_ASK_PRICE))
+                .andReturn(BUY_ORDER_ID);
+        expect(exchange2TradingApi.createOrder(MARKET_ID, OrderType.SELL, ORDER_AMOUNT, EXCHANGE_2_BID_PRICE))
+                .andReturn(SELL_ORDER_ID);
+
+        expect(exchange1TradingApi.getYourOpenOrders(MARKET_ID)).andReturn(Collections.emptyList());
+        expect(exchange2TradingApi.getYourOpenOrders(MARKET_ID)).andReturn(Collections.emptyList());
+
+        PowerMock.replayAll();
+
+        final CrossExchangeArbitrageStrategy strategy = new CrossExchangeArbitrageStrategy();
+        strategy.init(tradingApis, market, config);
+        strategy.execute();
+
+        PowerMock.verifyAll();
+    }
+
+    /*
+     * - Given the buy order fails with a network exception
+     * - When the strategy checks its orders
+     * - Then it still checks the sell order and cancels what is left of it
+     */
+    @Test
+    public void testStrategyCancelsOtherOrderWhenOneOrderFails() throws Exception {
+
+        expect(exchange1TradingApi.getTopOfBook(MARKET_ID)).andReturn(someOrderBook(new BigDecimal("99"),
+                EXCHANGE_1_ASK_PRICE));
+        expect(exchange2TradingApi.getTopOfBook(MARKET_ID)).andReturn(someOrderBook(EXCHANGE_2_BID_PRICE,
+                new BigDecimal("103")));
+
+        expect(exchange1TradingApi.createOrder(MARKET_ID, OrderType.BUY, ORDER_AMOUNT, EXCHANGE_1_ASK_PRICE))
+                .andThrow(new ExchangeNetworkException("Timeout"));
+        expect(exchange2TradingApi.createOrder(MARKET_ID, OrderType.SELL, ORDER_AMOUNT, EXCHANGE_2_BID_PRICE))
+                .andReturn(SELL_ORDER_ID);
+
+        // the failed buy order is never checked; the sell order is still all open
+        final OpenOrder unfilledSellOrder = new OpenOrder(SELL_ORDER_ID, new Date(), MARKET_ID, OrderType.SELL,
+                EXCHANGE_2_BID_PRICE, ORDER_AMOUNT, ORDER_AMOUNT, null);
+        expect(exchange2TradingApi.getYourOpenOrders(MARKET_ID))
+                .andReturn(Collections.singletonList(unfilledSellOrder));
+        expect(exchange2TradingApi.cancelOrder(SELL_ORDER_ID, MARKET_ID)).andReturn(true);
+
+        PowerMock.replayAll();
+
+        final CrossExchangeArbitrageStrategy strategy = new CrossExchangeArbitrageStrategy();
+        strategy.init(tradingApis, market, config);
+        strategy.execute();
+
+        PowerMock.verifyAll();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testStrategyNeedsAtLeast2Exchanges() throws Exception {
+
+        final CrossExchangeArbitrageStrategy strategy = new CrossExchangeArbitrageStrategy();
+        strategy.init(Collections.singletonMap(EXCHANGE_1_ID, exchange1TradingApi), market, config);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testStrategyInitialisedWithSingleTradingApiNeedsAtLeast2Exchanges() throws Exception {
+
+        expect(exchange1TradingApi.getImplName()).andReturn(EXCHANGE_1_ID);
+
+        PowerMock.replayAll();
+
+        final CrossExchangeArbitrageStrategy strategy = new CrossExchangeArbitrageStrategy();
+        strategy.init(exchange1TradingApi, market, config);
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private static MarketOrderBook someOrderBook(BigDecimal bidPrice, BigDecimal askPrice) {
+        final BigDecimal quantity = new BigDecimal("1");
+        return new MarketOrderBook(MARKET_ID,
+                Collections.singletonList(new MarketOrder(OrderType.SELL, askPrice, quantity, askPrice)),
+                Collections.singletonList(new MarketOrder(OrderType.BUY, bidPrice, quantity, bidPrice)));
+    }
+}
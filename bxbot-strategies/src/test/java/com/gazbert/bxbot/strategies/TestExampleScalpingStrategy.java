@@ -77,6 +77,7 @@ public class TestExampleScalpingStrategy {
     public void setUpBeforeEachTest() throws Exception {
 
         final String CONFIG_ITEM_BTC_BUY_ORDER_AMOUNT = "0.5";
+        final String CONFIG_ITEM_MINIMUM_PERCENTAGE_GAIN = "1";
         final String MARKET_NAME = "BTC_LTC";
 
         tradingApi = PowerMock.createMock(TradingApi.class);
@@ -94,13 +95,14 @@ public class TestExampleScalpingStrategy {
 
         // expect config to be loaded
         expect(config.getConfigItem("btc-buy-order-amount")).andReturn(CONFIG_ITEM_BTC_BUY_ORDER_AMOUNT);
+        expect(config.getConfigItem("minimumPercentageGain")).andReturn(CONFIG_ITEM_MINIMUM_PERCENTAGE_GAIN);
 
         // expect Market name to be logged zero or more times. Loose mock behaviour here; name is cosmetic.
         expect(market.getName()).andReturn(MARKET_NAME).anyTimes();
 
         // expect market order book to be fetched
         expect(market.getId()).andReturn(MARKET_ID);
-        expect(tradingApi.getMarketOrders(MARKET_ID)).andReturn(marketOrderBook);
+        expect(tradingApi.getTopOfBook(MARKET_ID)).andReturn(marketOrderBook);
         expect(marketOrderBook.getBuyOrders()).andReturn(marketBuyOrders);
         expect(marketOrderBook.getSellOrders()).andReturn(marketSellOrders);
     }
@@ -0,0 +1,98 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.strategy.api;
+
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+
+import java.math.BigDecimal;
+
+/**
+ * <p>
+ * Optional extension of the {@link TradingStrategy} for strategies that want to react to what happens on their market
+ * between trade cycles, instead of polling for it in {@link #execute()}.
+ * </p>
+ * <p>
+ * If the Trading Engine has been configured with a market event poll interval, it watches the strategy's market and
+ * calls the methods below as soon as it sees a change. The order book, latest price and your open orders are fetched
+ * through the Trading API every interval and compared with the last ones seen. If the Exchange Adapter keeps a local
+ * order book from a streaming feed, fetching the order book costs no network I/O, so the book can be watched closely.
+ * </p>
+ * <p>
+ * Your open orders are matched by id. An order that is still open but with less quantity has been partly filled. An
+ * order that is no longer open has been cancelled if your strategy cancelled it through the Trading API, otherwise it
+ * is taken to have filled - exchanges do not say why an order has gone, so an order cancelled outside of the bot is
+ * also reported as filled.
+ * </p>
+ * <p>
+ * The callbacks and {@link #execute()} are never called at the same time - you still do not have to code for
+ * concurrency. All the methods do nothing by default; override the ones you need. A {@link StrategyException} thrown
+ * from a callback shuts the bot down, just as it does from {@link #execute()}.
+ * </p>
+ *
+ * @author gazbert
+ * @since 1.0
+ */
+public interface EventDrivenTradingStrategy extends TradingStrategy {
+
+    /**
+     * Called when the market order book has changed since it was last seen.
+     *
+     * @param orderBook the latest market order book. It is shared, so must not be modified.
+     * @throws StrategyException if something goes bad and you want the Trading Engine to shutdown the bot.
+     */
+    default void onOrderBookUpdate(MarketOrderBook orderBook) throws StrategyException {
+    }
+
+    /**
+     * Called when the latest market price, i.e. the price of the last trade on the market, has changed since it was
+     * last seen.
+     *
+     * @param latestMarketPrice the latest market price.
+     * @throws StrategyException if something goes bad and you want the Trading Engine to shutdown the bot.
+     */
+    default void onLatestMarketPriceUpdate(BigDecimal latestMarketPrice) throws StrategyException {
+    }
+
+    /**
+     * Called when 1 of your open orders has been filled, in part or in full.
+     *
+     * @param order          the order as it was last seen while open.
+     * @param quantityFilled the quantity filled since the order was last seen.
+     * @param isFullyFilled  true if the order is no longer open, false if some of it is still waiting to be filled.
+     * @throws StrategyException if something goes bad and you want the Trading Engine to shutdown the bot.
+     */
+    default void onOrderFilled(OpenOrder order, BigDecimal quantityFilled, boolean isFullyFilled)
+            throws StrategyException {
+    }
+
+    /**
+     * Called when 1 of your open orders that your strategy cancelled is no longer open on the exchange.
+     *
+     * @param order the order as it was last seen while open.
+     * @throws StrategyException if something goes bad and you want the Trading Engine to shutdown the bot.
+     */
+    default void onOrderCancelled(OpenOrder order) throws StrategyException {
+    }
+}
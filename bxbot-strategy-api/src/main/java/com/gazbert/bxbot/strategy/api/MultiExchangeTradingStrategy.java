@@ -0,0 +1,83 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.strategy.api;
+
+import com.gazbert.bxbot.trading.api.Market;
+import com.gazbert.bxbot.trading.api.TradingApi;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * <p>
+ * Optional extension of the {@link TradingStrategy} for strategies that trade the same market on more than 1 exchange,
+ * e.g. to arbitrage between them.
+ * </p>
+ * <p>
+ * The Trading Engine calls {@link #init(Map, Market, StrategyConfig)} instead of
+ * {@link #init(TradingApi, Market, StrategyConfig)}, passing in the Trading API of every exchange in the exchange.xml
+ * config, keyed by exchange id. The first entry is always the exchange the strategy's market is traded on; the rest
+ * follow in the order they are listed in exchange.xml.
+ * </p>
+ * <p>
+ * The Trading APIs are shared with the strategies running on the other exchanges, so the account on each exchange is
+ * too. Most Trading APIs handed out by the engine are also {@link com.gazbert.bxbot.trading.api.AsyncTradingApi}s,
+ * which lets the strategy call all the exchanges at the same time instead of one after the other.
+ * </p>
+ * <p>
+ * The strategy is executed when the Emergency Stop check for its market's exchange passes. The Trading APIs of the other
+ * exchanges throw an {@link com.gazbert.bxbot.trading.api.ExchangeNetworkException} while their own check has failed or
+ * could not be made.
+ * </p>
+ * <p>
+ * The Trading Engine still only sends 1 thread through the strategy at a time.
+ * </p>
+ *
+ * @author gazbert
+ * @since 1.0
+ */
+public interface MultiExchangeTradingStrategy extends TradingStrategy {
+
+    /**
+     * Called once by the Trading Engine when it starts up.
+     *
+     * @param tradingApis the Trading API of each exchange, keyed by exchange id. The market's own exchange is first.
+     * @param market      the market for this strategy. It must have the same id on all the exchanges.
+     * @param config      optional configuration for the strategy.
+     */
+    void init(Map<String, TradingApi> tradingApis, Market market, StrategyConfig config);
+
+    /**
+     * Never called by the Trading Engine for a multi-exchange strategy. Initialises the strategy with just the 1
+     * Trading API, keyed by its implementation name; a strategy that needs more than 1 exchange rejects it.
+     *
+     * @param tradingApi the Trading API.
+     * @param market     the market for this strategy.
+     * @param config     optional configuration for the strategy.
+     */
+    @Override
+    default void init(TradingApi tradingApi, Market market, StrategyConfig config) {
+        init(Collections.singletonMap(tradingApi.getImplName(), tradingApi), market, config);
+    }
+}
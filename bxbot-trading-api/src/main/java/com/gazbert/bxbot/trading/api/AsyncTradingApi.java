@@ -0,0 +1,240 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gazbert.bxbot.trading.api;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * <p>
+ * Non-blocking variant of the {@link TradingApi}.
+ * </p>
+ * <p>
+ * Each call returns a {@link CompletableFuture} straight away, so a Trading Strategy can fire off several calls, e.g.
+ * fetch the order book, its open orders and the latest price, and then wait on all of them instead of paying for
+ * each round trip to the exchange one after the other.
+ * </p>
+ * <p>
+ * If the call fails, the future completes exceptionally with the {@link ExchangeNetworkException} or
+ * {@link TradingApiException} the blocking call would have thrown; {@link CompletableFuture#get()} wraps it in an
+ * {@link java.util.concurrent.ExecutionException}.
+ * </p>
+ * <p>
+ * The default methods bridge to the blocking {@link TradingApi} calls. Public market data calls are run on the
+ * {@link #getPublicApiExecutor()} and calls that need authenticating with the exchange are run on the
+ * {@link #getAuthenticatedApiExecutor()}. Both default to running the call on the calling thread, i.e. the future
+ * is already complete when it is returned - implementations override them to get real concurrency.
+ * </p>
+ *
+ * @author gazbert
+ * @since 1.0
+ */
+public interface AsyncTradingApi extends TradingApi {
+
+    /**
+     * Fetches latest <em>market</em> orders for a given market.
+     *
+     * @param marketId the id of the market.
+     * @return a future holding the market order book.
+     * @see TradingApi#getMarketOrders(String)
+     */
+    default CompletableFuture<MarketOrderBook> getMarketOrdersAsync(String marketId) {
+        return callAsync(() -> getMarketOrders(marketId), getPublicApiExecutor());
+    }
+
+    /**
+     * Fetches latest <em>market</em> orders for a given market, limited to the best <code>depth</code> price levels.
+     *
+     * @param marketId the id of the market.
+     * @param depth    the maximum number of price levels to return for each side of the book.
+     * @return a future holding the market order book.
+     * @see TradingApi#getMarketOrders(String, int)
+     */
+    default CompletableFuture<MarketOrderBook> getMarketOrdersAsync(String marketId, int depth) {
+        return callAsync(() -> getMarketOrders(marketId, depth), getPublicApiExecutor());
+    }
+
+    /**
+     * Fetches the best BUY and SELL <em>market</em> orders for a given market.
+     *
+     * @param marketId the id of the market.
+     * @return a future holding the top of the market order book.
+     * @see TradingApi#getTopOfBook(String)
+     */
+    default CompletableFuture<MarketOrderBook> getTopOfBookAsync(String marketId) {
+        return callAsync(() -> getTopOfBook(marketId), getPublicApiExecutor());
+    }
+
+    /**
+     * Fetches <em>your</em> current open orders, i.e. the orders placed by the bot.
+     *
+     * @param marketId the id of the market.
+     * @return a future holding your current open orders.
+     * @see TradingApi#getYourOpenOrders(String)
+     */
+    default CompletableFuture<List<OpenOrder>> getYourOpenOrdersAsync(String marketId) {
+        return callAsync(() -> getYourOpenOrders(marketId), getAuthenticatedApiExecutor());
+    }
+
+    /**
+     * Places an order on the exchange.
+     *
+     * @param marketId  the id of the market.
+     * @param orderType Value must be {@link OrderType#BUY} or {@link OrderType#SELL}.
+     * @param quantity  amount of units you are buying/selling in this order.
+     * @param price     the price per unit you are buying/selling at.
+     * @return a future holding the id of the order.
+     * @see TradingApi#createOrder(String, OrderType, BigDecimal, BigDecimal)
+     */
+    default CompletableFuture<String> createOrderAsync(String marketId, OrderType orderType, BigDecimal quantity,
+                                                       BigDecimal price) {
+        return callAsync(() -> createOrder(marketId, orderType, quantity, price), getAuthenticatedApiExecutor());
+    }
+
+    /**
+     * Cancels your existing order on the exchange.
+     *
+     * @param orderId  your order Id.
+     * @param marketId the id of the market the order was placed on, e.g. btc_usd
+     * @return a future holding true if order cancelled ok, false otherwise.
+     * @see TradingApi#cancelOrder(String, String)
+     */
+    default CompletableFuture<Boolean> cancelOrderAsync(String orderId, String marketId) {
+        return callAsync(() -> cancelOrder(orderId, marketId), getAuthenticatedApiExecutor());
+    }
+
+    /**
+     * Fetches the latest price for a given market.
+     *
+     * @param marketId the id of the market.
+     * @return a future holding the latest market price.
+     * @see TradingApi#getLatestMarketPrice(String)
+     */
+    default CompletableFuture<BigDecimal> getLatestMarketPriceAsync(String marketId) {
+        return callAsync(() -> getLatestMarketPrice(marketId), getPublicApiExecutor());
+    }
+
+    /**
+     * Fetches the balance of your wallets on the exchange.
+     *
+     * @return a future holding your wallet balance info.
+     * @see TradingApi#getBalanceInfo()
+     */
+    default CompletableFuture<BalanceInfo> getBalanceInfoAsync() {
+        return callAsync(this::getBalanceInfo, getAuthenticatedApiExecutor());
+    }
+
+    /**
+     * Returns the exchange BUY order fee for a given market id.
+     * Some exchanges need an authenticated call to fetch this, so it is run on the authenticated executor.
+     *
+     * @param marketId the id of the market.
+     * @return a future holding the % of the BUY order that the exchange uses to calculate its fee as a
+     * {@link BigDecimal}.
+     * @see TradingApi#getPercentageOfBuyOrderTakenForExchangeFee(String)
+     */
+    default CompletableFuture<BigDecimal> getPercentageOfBuyOrderTakenForExchangeFeeAsync(String marketId) {
+        return callAsync(() -> getPercentageOfBuyOrderTakenForExchangeFee(marketId), getAuthenticatedApiExecutor());
+    }
+
+    /**
+     * Returns the exchange SELL order fee for a given market id.
+     * Some exchanges need an authenticated call to fetch this, so it is run on the authenticated executor.
+     *
+     * @param marketId the id of the market.
+     * @return a future holding the % of the SELL order that the exchange uses to calculate its fee as a
+     * {@link BigDecimal}.
+     * @see TradingApi#getPercentageOfSellOrderTakenForExchangeFee(String)
+     */
+    default CompletableFuture<BigDecimal> getPercentageOfSellOrderTakenForExchangeFeeAsync(String marketId) {
+        return callAsync(() -> getPercentageOfSellOrderTakenForExchangeFee(marketId), getAuthenticatedApiExecutor());
+    }
+
+    /**
+     * Returns the executor the default methods use for public market data calls.
+     * Implementations must be safe for concurrent public calls if they return an executor that runs calls in parallel.
+     *
+     * @return the executor for public calls. Defaults to running the call on the calling thread.
+     */
+    default Executor getPublicApiExecutor() {
+        return Runnable::run;
+    }
+
+    /**
+     * Returns the executor the default methods use for calls that are authenticated with the exchange.
+     * Exchanges typically insist on an increasing nonce, so implementations will usually want to run these calls one at
+     * a time, in the order they were made.
+     *
+     * @return the executor for authenticated calls. Defaults to running the call on the calling thread.
+     */
+    default Executor getAuthenticatedApiExecutor() {
+        return Runnable::run;
+    }
+
+    /**
+     * Runs a blocking Trading API call on the given executor.
+     *
+     * @param call     the blocking call.
+     * @param executor the executor to run the call on.
+     * @param <T>      the type returned by the call.
+     * @return a future that completes with the result of the call, or exceptionally with whatever it threw.
+     */
+    static <T> CompletableFuture<T> callAsync(TradingApiCall<T> call, Executor executor) {
+
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    result.complete(call.call());
+                } catch (Throwable e) {
+                    // Catch everything - we must never leave the caller waiting on a future that never completes.
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * A blocking Trading API call.
+     *
+     * @param <T> the type returned by the call.
+     */
+    @FunctionalInterface
+    interface TradingApiCall<T> {
+
+        /**
+         * Makes the call.
+         *
+         * @return the result of the call.
+         * @throws ExchangeNetworkException if a network error occurred trying to connect to the exchange.
+         * @throws TradingApiException      if the API call failed for any reason other than a network error.
+         */
+        T call() throws ExchangeNetworkException, TradingApiException;
+    }
+}
@@ -0,0 +1,338 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.trading.api;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * <p>
+ * An immutable decimal value held as a long with {@value #SCALE} implied decimal places, for arithmetic on the trading
+ * hot path without the allocation cost of {@link BigDecimal}.
+ * </p>
+ * <p>
+ * The range is roughly &plusmn;92 billion. Every operation is overflow-checked and throws an
+ * {@link ArithmeticException} rather than silently wrapping. Multiply and divide results are rounded to
+ * {@value #SCALE} decimal places using {@link RoundingMode#HALF_UP}.
+ * </p>
+ * <p>
+ * Values convert losslessly to and from {@link BigDecimal} at the API edge: {@link #valueOf(BigDecimal)} and
+ * {@link #parse(CharSequence)} reject values with non-zero digits beyond {@value #SCALE} decimal places instead of
+ * rounding them. {@link #parseUnscaled(CharSequence)} parses straight into the unscaled long, so Exchange Adapters
+ * can parse prices and quantities without creating any objects.
+ * </p>
+ *
+ * @author gazbert
+ * @since 1.0
+ */
+public final class FixedPointDecimal implements Comparable<FixedPointDecimal> {
+
+    /**
+     * Number of implied decimal places.
+     */
+    public static final int SCALE = 8;
+
+    private static final long ONE_UNSCALED = 100_000_000L;
+
+    /**
+     * The value 0.
+     */
+    public static final FixedPointDecimal ZERO = new FixedPointDecimal(0L);
+
+    /**
+     * The value 1.
+     */
+    public static final FixedPointDecimal ONE = new FixedPointDecimal(ONE_UNSCALED);
+
+    /**
+     * The value multiplied by 10^{@value #SCALE}.
+     */
+    private final long unscaledValue;
+
+
+    private FixedPointDecimal(long unscaledValue) {
+        this.unscaledValue = unscaledValue;
+    }
+
+    /**
+     * Returns a value from its unscaled long, e.g. 150000000 is 1.5.
+     *
+     * @param unscaledValue the value multiplied by 10^{@value #SCALE}.
+     * @return the value.
+     */
+    public static FixedPointDecimal ofUnscaled(long unscaledValue) {
+        return new FixedPointDecimal(unscaledValue);
+    }
+
+    /**
+     * Returns a whole number value.
+     *
+     * @param value the whole number.
+     * @return the value.
+     * @throws ArithmeticException if the value is out of range.
+     */
+    public static FixedPointDecimal valueOf(long value) {
+        return new FixedPointDecimal(Math.multiplyExact(value, ONE_UNSCALED));
+    }
+
+    /**
+     * Converts a {@link BigDecimal} without loss of precision.
+     *
+     * @param value the value to convert.
+     * @return the value.
+     * @throws ArithmeticException if the value has non-zero digits beyond {@value #SCALE} decimal places, or is out of
+     *                             range.
+     */
+    public static FixedPointDecimal valueOf(BigDecimal value) {
+        return new FixedPointDecimal(value.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact());
+    }
+
+    /**
+     * Parses a decimal string, e.g. "2901.50" or "-0.00012".
+     *
+     * @param value the string to parse.
+     * @return the value.
+     * @throws NumberFormatException if the string is not a decimal number, has non-zero digits beyond {@value #SCALE}
+     *                               decimal places, or is out of range.
+     */
+    public static FixedPointDecimal parse(CharSequence value) {
+        return new FixedPointDecimal(parseUnscaled(value));
+    }
+
+    /**
+     * Parses a decimal string straight into its unscaled long, e.g. "1.5" returns 150000000. No objects are created
+     * unless the string uses exponent notation.
+     *
+     * @param value the string to parse.
+     * @return the value multiplied by 10^{@value #SCALE}.
+     * @throws NumberFormatException if the string is not a decimal number, has non-zero digits beyond {@value #SCALE}
+     *                               decimal places, or is out of range.
+     */
+    public static long parseUnscaled(CharSequence value) {
+
+        final int length = value.length();
+        int index = 0;
+        boolean isNegative = false;
+        if (length > 0 && (value.charAt(0) == '-' || value.charAt(0) == '+')) {
+            isNegative = value.charAt(0) == '-';
+            index++;
+        }
+
+        try {
+            long result = 0;
+            int fractionDigits = -1; // -1 until the decimal point is seen
+            boolean hasDigits = false;
+
+            for (; index < length; index++) {
+                final char c = value.charAt(index);
+                if (c == '.' && fractionDigits < 0) {
+                    fractionDigits = 0;
+                    continue;
+                }
+                if (c == 'e' || c == 'E') {
+                    return valueOf(new BigDecimal(value.toString())).unscaledValue;
+                }
+                if (c < '0' || c > '9') {
+                    throw new NumberFormatException("Invalid decimal: " + value);
+                }
+                hasDigits = true;
+                final int digit = c - '0';
+                if (fractionDigits == SCALE) {
+                    if (digit != 0) {
+                        throw new NumberFormatException("More than " + SCALE + " decimal places: " + value);
+                    }
+                    continue;
+                }
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+                result = Math.addExact(Math.multiplyExact(result, 10), digit);
+            }
+
+            if (!hasDigits) {
+                throw new NumberFormatException("Invalid decimal: " + value);
+            }
+            for (int i = Math.max(fractionDigits, 0); i < SCALE; i++) {
+                result = Math.multiplyExact(result, 10);
+            }
+            return isNegative ? -result : result;
+
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Decimal out of range: " + value);
+        }
+    }
+
+    /**
+     * Returns the unscaled long.
+     *
+     * @return the value multiplied by 10^{@value #SCALE}.
+     */
+    public long getUnscaledValue() {
+        return unscaledValue;
+    }
+
+    /**
+     * Converts to a {@link BigDecimal} with a scale of {@value #SCALE}. This is lossless.
+     *
+     * @return the value as a BigDecimal.
+     */
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(unscaledValue, SCALE);
+    }
+
+    /**
+     * Returns this + other.
+     *
+     * @param other the value to add.
+     * @return the sum.
+     * @throws ArithmeticException if the result is out of range.
+     */
+    public FixedPointDecimal add(FixedPointDecimal other) {
+        return new FixedPointDecimal(Math.addExact(unscaledValue, other.unscaledValue));
+    }
+
+    /**
+     * Returns this - other.
+     *
+     * @param other the value to subtract.
+     * @return the difference.
+     * @throws ArithmeticException if the result is out of range.
+     */
+    public FixedPointDecimal subtract(FixedPointDecimal other) {
+        return new FixedPointDecimal(Math.subtractExact(unscaledValue, other.unscaledValue));
+    }
+
+    /**
+     * Returns this * other, rounded to {@value #SCALE} decimal places.
+     *
+     * @param other the value to multiply by.
+     * @return the product.
+     * @throws ArithmeticException if the result is out of range.
+     */
+    public FixedPointDecimal multiply(FixedPointDecimal other) {
+
+        // (aHi + aLo) * (bHi + bLo), split at the decimal point so no partial product overflows unless the result does
+        final long aHi = unscaledValue / ONE_UNSCALED;
+        final long aLo = unscaledValue % ONE_UNSCALED;
+        final long bHi = other.unscaledValue / ONE_UNSCALED;
+        final long bLo = other.unscaledValue % ONE_UNSCALED;
+
+        long result = Math.multiplyExact(Math.multiplyExact(aHi, bHi), ONE_UNSCALED);
+        result = Math.addExact(result, Math.multiplyExact(aHi, bLo));
+        result = Math.addExact(result, Math.multiplyExact(aLo, bHi));
+        result = Math.addExact(result, divideRoundingHalfUp(aLo * bLo, ONE_UNSCALED));
+        return new FixedPointDecimal(result);
+    }
+
+    /**
+     * Returns this / other, rounded to {@value #SCALE} decimal places.
+     *
+     * @param other the value to divide by.
+     * @return the quotient.
+     * @throws ArithmeticException if other is zero or the result is out of range.
+     */
+    public FixedPointDecimal divide(FixedPointDecimal other) {
+
+        if (other.unscaledValue == 0) {
+            throw new ArithmeticException("Division by zero");
+        }
+        if (other.unscaledValue == Long.MIN_VALUE) {
+            return valueOf(toBigDecimal().divide(other.toBigDecimal(), SCALE, RoundingMode.HALF_UP));
+        }
+
+        final long wholeQuotient = unscaledValue / other.unscaledValue;
+        final long remainder = unscaledValue % other.unscaledValue;
+        final long fraction;
+        try {
+            fraction = divideRoundingHalfUp(Math.multiplyExact(remainder, ONE_UNSCALED), other.unscaledValue);
+        } catch (ArithmeticException e) {
+            // very large divisor - rare, so not worth a long-only path
+            return valueOf(toBigDecimal().divide(other.toBigDecimal(), SCALE, RoundingMode.HALF_UP));
+        }
+        return new FixedPointDecimal(Math.addExact(Math.multiplyExact(wholeQuotient, ONE_UNSCALED), fraction));
+    }
+
+    /**
+     * Returns -this.
+     *
+     * @return the negated value.
+     * @throws ArithmeticException if the result is out of range.
+     */
+    public FixedPointDecimal negate() {
+        return new FixedPointDecimal(Math.negateExact(unscaledValue));
+    }
+
+    /**
+     * Returns the sign of this value.
+     *
+     * @return -1, 0 or 1 as this value is negative, zero or positive.
+     */
+    public int signum() {
+        return Long.signum(unscaledValue);
+    }
+
+    @Override
+    public int compareTo(FixedPointDecimal other) {
+        return Long.compare(unscaledValue, other.unscaledValue);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final FixedPointDecimal that = (FixedPointDecimal) o;
+        return unscaledValue == that.unscaledValue;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(unscaledValue);
+    }
+
+    /**
+     * Returns the value as a plain decimal string with {@value #SCALE} decimal places, e.g. 1.50000000.
+     *
+     * @return the value as a string.
+     */
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    /*
+     * Divisor must not be Long.MIN_VALUE.
+     */
+    private static long divideRoundingHalfUp(long dividend, long divisor) {
+        final long quotient = dividend / divisor;
+        final long remainder = Math.abs(dividend % divisor);
+        if (remainder != 0 && remainder >= Math.abs(divisor) - remainder) {
+            return quotient + (Long.signum(dividend) == Long.signum(divisor) ? 1 : -1);
+        }
+        return quotient;
+    }
+}
@@ -0,0 +1,359 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.trading.api;
+
+import com.google.common.base.MoreObjects;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * <p>
+ * A mutable, price-indexed Market Order Book that is kept up to date by applying level updates, e.g. from an exchange
+ * streaming feed, rather than being rebuilt from scratch on every poll.
+ * </p>
+ * <p>
+ * Prices and quantities are held as fixed-point longs with the scales given at construction, so an update allocates no
+ * objects. Each side is held in a sorted primitive array with the best price at the end:
+ * </p>
+ * <ul>
+ * <li>finding a price level is a binary search - O(log n).</li>
+ * <li>changing the quantity of an existing level is O(1) once found.</li>
+ * <li>adding or removing a level only shifts the levels between it and the best price, so the busy levels near the
+ * top of the book are cheap to change.</li>
+ * <li>the best bid and best ask are O(1).</li>
+ * </ul>
+ * <p>
+ * {@link #toMarketOrderBook(int)} copies the top levels into a {@link MarketOrderBook} whose order lists are
+ * read-only views - the {@link MarketOrder}s are only created as the Trading Strategy reads them.
+ * </p>
+ * <p>
+ * This class is not thread safe; callers must synchronize access if the book is updated and read on different
+ * threads.
+ * </p>
+ *
+ * @author gazbert
+ * @since 1.0
+ */
+public final class IncrementalOrderBook {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final String marketId;
+    private final int priceScale;
+    private final int quantityScale;
+
+    /**
+     * Bids - held price ascending, so the highest bid is last.
+     */
+    private final BookSide bids = new BookSide(true);
+
+    /**
+     * Asks - held price descending, so the lowest ask is last.
+     */
+    private final BookSide asks = new BookSide(false);
+
+
+    /**
+     * Creates an empty order book.
+     *
+     * @param marketId      the market id for this order book.
+     * @param priceScale    number of decimal places held for prices, e.g. 8.
+     * @param quantityScale number of decimal places held for quantities, e.g. 8.
+     * @throws IllegalArgumentException if a scale is negative or greater than 18.
+     */
+    public IncrementalOrderBook(String marketId, int priceScale, int quantityScale) {
+        if (priceScale < 0 || priceScale > 18 || quantityScale < 0 || quantityScale > 18) {
+            throw new IllegalArgumentException("Scales must be between 0 and 18 - priceScale: " + priceScale
+                    + " quantityScale: " + quantityScale);
+        }
+        this.marketId = marketId;
+        this.priceScale = priceScale;
+        this.quantityScale = quantityScale;
+    }
+
+    /**
+     * Returns the market id for this order book.
+     *
+     * @return the market id.
+     */
+    public String getMarketId() {
+        return marketId;
+    }
+
+    /**
+     * Returns the number of decimal places held for prices.
+     *
+     * @return the price scale.
+     */
+    public int getPriceScale() {
+        return priceScale;
+    }
+
+    /**
+     * Returns the number of decimal places held for quantities.
+     *
+     * @return the quantity scale.
+     */
+    public int getQuantityScale() {
+        return quantityScale;
+    }
+
+    /**
+     * Sets the quantity at a price level. A zero quantity removes the level.
+     *
+     * @param orderType {@link OrderType#BUY} for a bid, {@link OrderType#SELL} for an ask.
+     * @param price     the price of the level.
+     * @param quantity  the total quantity at the level.
+     * @throws IllegalArgumentException if the price or quantity has more decimal places than the book holds, is too
+     *                                  large to hold, or is negative.
+     */
+    public void updateLevel(OrderType orderType, BigDecimal price, BigDecimal quantity) {
+        updateLevel(orderType, toFixedPoint(price, priceScale), toFixedPoint(quantity, quantityScale));
+    }
+
+    /**
+     * Sets the quantity at a price level using fixed-point values at the book's scales. A zero quantity removes the
+     * level.
+     *
+     * @param orderType {@link OrderType#BUY} for a bid, {@link OrderType#SELL} for an ask.
+     * @param price     the price of the level, scaled by {@link #getPriceScale()} decimal places.
+     * @param quantity  the total quantity at the level, scaled by {@link #getQuantityScale()} decimal places.
+     * @throws IllegalArgumentException if the price or quantity is negative.
+     */
+    public void updateLevel(OrderType orderType, long price, long quantity) {
+        if (price < 0 || quantity < 0) {
+            throw new IllegalArgumentException("Price and quantity must not be negative - price: " + price
+                    + " quantity: " + quantity);
+        }
+        final BookSide side = sideFor(orderType);
+        if (quantity == 0) {
+            side.remove(price);
+        } else {
+            side.put(price, quantity);
+        }
+    }
+
+    /**
+     * Removes every level from both sides of the book, e.g. before loading a new snapshot.
+     */
+    public void clear() {
+        bids.size = 0;
+        asks.size = 0;
+    }
+
+    /**
+     * Returns the number of price levels on one side of the book.
+     *
+     * @param orderType {@link OrderType#BUY} for bids, {@link OrderType#SELL} for asks.
+     * @return the number of levels.
+     */
+    public int getLevelCount(OrderType orderType) {
+        return sideFor(orderType).size;
+    }
+
+    /**
+     * Returns the highest bid price.
+     *
+     * @return the best bid price, or null if there are no bids.
+     */
+    public BigDecimal getBestBidPrice() {
+        return bids.size == 0 ? null : BigDecimal.valueOf(bids.bestPrice(), priceScale);
+    }
+
+    /**
+     * Returns the lowest ask price.
+     *
+     * @return the best ask price, or null if there are no asks.
+     */
+    public BigDecimal getBestAskPrice() {
+        return asks.size == 0 ? null : BigDecimal.valueOf(asks.bestPrice(), priceScale);
+    }
+
+    /**
+     * Returns true if the best bid is at or above the best ask. A crossed book means updates have been missed and the
+     * book needs reloading.
+     *
+     * @return true if the book is crossed.
+     */
+    public boolean isCrossed() {
+        return bids.size > 0 && asks.size > 0 && bids.bestPrice() >= asks.bestPrice();
+    }
+
+    /**
+     * Returns the top of the book as a {@link MarketOrderBook}. Only the requested number of levels is copied; the
+     * returned order lists are read-only and are not affected by later updates to this book.
+     *
+     * @param depth the maximum number of levels to return for each side of the book.
+     * @return the order book.
+     */
+    public MarketOrderBook toMarketOrderBook(int depth) {
+        return new MarketOrderBook(marketId, asks.topLevels(OrderType.SELL, depth),
+                bids.topLevels(OrderType.BUY, depth));
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("marketId", marketId)
+                .add("priceScale", priceScale)
+                .add("quantityScale", quantityScale)
+                .add("bidLevels", bids.size)
+                .add("askLevels", asks.size)
+                .add("bestBidPrice", getBestBidPrice())
+                .add("bestAskPrice", getBestAskPrice())
+                .toString();
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private BookSide sideFor(OrderType orderType) {
+        return orderType == OrderType.BUY ? bids : asks;
+    }
+
+    private static long toFixedPoint(BigDecimal value, int scale) {
+        try {
+            return value.setScale(scale, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Cannot hold " + value + " at " + scale + " decimal places", e);
+        }
+    }
+
+    /**
+     * One side of the book: parallel price and quantity arrays sorted so the best price is last.
+     */
+    private final class BookSide {
+
+        private final boolean isAscending;
+        private long[] prices = new long[INITIAL_CAPACITY];
+        private long[] quantities = new long[INITIAL_CAPACITY];
+        private int size;
+
+        BookSide(boolean isAscending) {
+            this.isAscending = isAscending;
+        }
+
+        long bestPrice() {
+            return prices[size - 1];
+        }
+
+        void put(long price, long quantity) {
+            final int index = indexOf(price);
+            if (index >= 0) {
+                quantities[index] = quantity;
+                return;
+            }
+            final int insertionPoint = -(index + 1);
+            if (size == prices.length) {
+                prices = Arrays.copyOf(prices, size * 2);
+                quantities = Arrays.copyOf(quantities, size * 2);
+            }
+            System.arraycopy(prices, insertionPoint, prices, insertionPoint + 1, size - insertionPoint);
+            System.arraycopy(quantities, insertionPoint, quantities, insertionPoint + 1, size - insertionPoint);
+            prices[insertionPoint] = price;
+            quantities[insertionPoint] = quantity;
+            size++;
+        }
+
+        void remove(long price) {
+            final int index = indexOf(price);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(prices, index + 1, prices, index, size - index - 1);
+            System.arraycopy(quantities, index + 1, quantities, index, size - index - 1);
+            size--;
+        }
+
+        /*
+         * Same contract as Arrays.binarySearch: the index if found, else (-(insertion point) - 1).
+         */
+        private int indexOf(long price) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+                final long midPrice = prices[mid];
+                if (midPrice == price) {
+                    return mid;
+                }
+                if ((midPrice < price) == isAscending) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return -(low + 1);
+        }
+
+        List<MarketOrder> topLevels(OrderType orderType, int depth) {
+            final int levelCount = Math.max(0, Math.min(depth, size));
+            final long[] topPrices = new long[levelCount];
+            final long[] topQuantities = new long[levelCount];
+            for (int i = 0; i < levelCount; i++) {
+                topPrices[i] = prices[size - 1 - i];
+                topQuantities[i] = quantities[size - 1 - i];
+            }
+            return new MarketOrderView(orderType, topPrices, topQuantities, priceScale, quantityScale);
+        }
+    }
+
+    /**
+     * Read-only list over copied levels, best price first. Orders are created as they are read.
+     */
+    private static final class MarketOrderView extends AbstractList<MarketOrder> implements RandomAccess {
+
+        private final OrderType orderType;
+        private final long[] prices;
+        private final long[] quantities;
+        private final int priceScale;
+        private final int quantityScale;
+
+        MarketOrderView(OrderType orderType, long[] prices, long[] quantities, int priceScale, int quantityScale) {
+            this.orderType = orderType;
+            this.prices = prices;
+            this.quantities = quantities;
+            this.priceScale = priceScale;
+            this.quantityScale = quantityScale;
+        }
+
+        @Override
+        public MarketOrder get(int index) {
+            final BigDecimal price = BigDecimal.valueOf(prices[index], priceScale);
+            final BigDecimal quantity = BigDecimal.valueOf(quantities[index], quantityScale);
+            return new MarketOrder(orderType, price, quantity, price.multiply(quantity));
+        }
+
+        @Override
+        public int size() {
+            return prices.length;
+        }
+    }
+}
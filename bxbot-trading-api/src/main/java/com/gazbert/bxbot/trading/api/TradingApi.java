@@ -79,6 +79,61 @@ public interface TradingApi {
      */
     MarketOrderBook getMarketOrders(String marketId) throws ExchangeNetworkException, TradingApiException;
 
+    /**
+     * Fetches latest <em>market</em> orders for a given market, limited to the best <code>depth</code> price levels
+     * on each side of the book.
+     * <p>
+     * Most strategies only look at the first few orders, so this is a lot cheaper than fetching the whole book.
+     * Exchange Adapters override this to ask the exchange for fewer levels where its API supports it, or else stop
+     * parsing the response once they have enough. The default implementation fetches the full book and truncates it.
+     *
+     * @param marketId the id of the market.
+     * @param depth    the maximum number of price levels to return for each side of the book. Must be greater than 0.
+     * @return the market order book.
+     * @throws IllegalArgumentException if depth is less than 1.
+     * @throws ExchangeNetworkException if a network error occurred trying to connect to the exchange. This is
+     *                                  implementation specific for each Exchange Adapter - see the documentation for the
+     *                                  adapter you are using. You could retry the API call, or exit from your Trading Strategy
+     *                                  and let the Trading Engine execute your Trading Strategy at the next trade cycle.
+     * @throws TradingApiException      if the API call failed for any reason other than a network error. This means something
+     *                                  bad as happened; you would probably want to wrap this exception in a
+     *                                  StrategyException and let the Trading Engine shutdown the bot immediately
+     *                                  to prevent unexpected losses.
+     */
+    default MarketOrderBook getMarketOrders(String marketId, int depth)
+            throws ExchangeNetworkException, TradingApiException {
+
+        if (depth < 1) {
+            throw new IllegalArgumentException("Order book depth must be greater than 0 but was: " + depth);
+        }
+
+        final MarketOrderBook orderBook = getMarketOrders(marketId);
+        final List<MarketOrder> sellOrders = orderBook.getSellOrders();
+        final List<MarketOrder> buyOrders = orderBook.getBuyOrders();
+        return new MarketOrderBook(orderBook.getMarketId(),
+                sellOrders.subList(0, Math.min(depth, sellOrders.size())),
+                buyOrders.subList(0, Math.min(depth, buyOrders.size())));
+    }
+
+    /**
+     * Fetches the best BUY and SELL <em>market</em> orders for a given market, i.e. an order book with at most one
+     * order on each side.
+     *
+     * @param marketId the id of the market.
+     * @return the top of the market order book.
+     * @throws ExchangeNetworkException if a network error occurred trying to connect to the exchange. This is
+     *                                  implementation specific for each Exchange Adapter - see the documentation for the
+     *                                  adapter you are using. You could retry the API call, or exit from your Trading Strategy
+     *                                  and let the Trading Engine execute your Trading Strategy at the next trade cycle.
+     * @throws TradingApiException      if the API call failed for any reason other than a network error. This means something
+     *                                  bad as happened; you would probably want to wrap this exception in a
+     *                                  StrategyException and let the Trading Engine shutdown the bot immediately
+     *                                  to prevent unexpected losses.
+     */
+    default MarketOrderBook getTopOfBook(String marketId) throws ExchangeNetworkException, TradingApiException {
+        return getMarketOrders(marketId, 1);
+    }
+
     /**
      * Fetches <em>your</em> current open orders, i.e. the orders placed by the bot.
      *
@@ -0,0 +1,242 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gazbert.bxbot.trading.api;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the default blocking bridge of the Async Trading API behaves as expected.
+ *
+ * @author gazbert
+ */
+public class TestAsyncTradingApi {
+
+    private static final String MARKET_ID = "BTC_USD";
+    private static final String ORDER_ID = "12345";
+    private static final BigDecimal LATEST_PRICE = new BigDecimal("584.37");
+    private static final BigDecimal BUY_FEE = new BigDecimal("0.0025");
+    private static final BigDecimal SELL_FEE = new BigDecimal("0.0026");
+    private static final BigDecimal QUANTITY = new BigDecimal("0.5");
+    private static final int ORDER_BOOK_DEPTH = 3;
+
+    private StubTradingApi tradingApi;
+
+
+    @Before
+    public void setupForEachTest() {
+        tradingApi = new StubTradingApi();
+    }
+
+    @Test
+    public void testDefaultBridgeRunsCallsOnCallingThread() throws Exception {
+
+        final CompletableFuture<MarketOrderBook> orderBook = tradingApi.getMarketOrdersAsync(MARKET_ID);
+        assertTrue(orderBook.isDone());
+        assertEquals(MARKET_ID, orderBook.get().getMarketId());
+
+        assertTrue(tradingApi.getYourOpenOrdersAsync(MARKET_ID).get().isEmpty());
+        assertEquals(ORDER_ID, tradingApi.createOrderAsync(MARKET_ID, OrderType.BUY, QUANTITY, LATEST_PRICE).get());
+        assertTrue(tradingApi.cancelOrderAsync(ORDER_ID, MARKET_ID).get());
+        assertEquals(LATEST_PRICE, tradingApi.getLatestMarketPriceAsync(MARKET_ID).get());
+        assertNotNull(tradingApi.getBalanceInfoAsync().get());
+        assertEquals(BUY_FEE, tradingApi.getPercentageOfBuyOrderTakenForExchangeFeeAsync(MARKET_ID).get());
+        assertEquals(SELL_FEE, tradingApi.getPercentageOfSellOrderTakenForExchangeFeeAsync(MARKET_ID).get());
+
+        assertEquals(1, tradingApi.callingThreads.size());
+        assertTrue(tradingApi.callingThreads.contains(Thread.currentThread()));
+    }
+
+    @Test
+    public void testExceptionThrownByBlockingCallCompletesFutureExceptionally() throws Exception {
+
+        tradingApi.exceptionToThrow = new ExchangeNetworkException("Connection reset");
+
+        final CompletableFuture<BigDecimal> latestPrice = tradingApi.getLatestMarketPriceAsync(MARKET_ID);
+        assertTrue(latestPrice.isCompletedExceptionally());
+        try {
+            latestPrice.get();
+            fail("Expected ExecutionException");
+        } catch (ExecutionException e) {
+            assertSame(tradingApi.exceptionToThrow, e.getCause());
+        }
+    }
+
+    @Test
+    public void testCallsAreRunOnSuppliedExecutors() throws Exception {
+
+        final ExecutorService publicApiExecutor = Executors.newSingleThreadExecutor();
+        final ExecutorService authenticatedApiExecutor = Executors.newSingleThreadExecutor();
+        try {
+            tradingApi.publicApiExecutor = publicApiExecutor;
+            tradingApi.authenticatedApiExecutor = authenticatedApiExecutor;
+
+            final Thread publicApiThread = publicApiExecutor.submit(Thread::currentThread).get();
+            final Thread authenticatedApiThread = authenticatedApiExecutor.submit(Thread::currentThread).get();
+
+            tradingApi.getMarketOrdersAsync(MARKET_ID).get(5, TimeUnit.SECONDS);
+            assertSame(publicApiThread, tradingApi.lastCallingThread);
+
+            tradingApi.getBalanceInfoAsync().get(5, TimeUnit.SECONDS);
+            assertSame(authenticatedApiThread, tradingApi.lastCallingThread);
+
+        } finally {
+            publicApiExecutor.shutdownNow();
+            authenticatedApiExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testDefaultDepthLimitedOrderBookKeepsBestPriceLevels() throws Exception {
+
+        final MarketOrderBook orderBook = tradingApi.getMarketOrders(MARKET_ID, 2);
+        assertEquals(MARKET_ID, orderBook.getMarketId());
+        assertEquals(2, orderBook.getSellOrders().size());
+        assertEquals(2, orderBook.getBuyOrders().size());
+        assertEquals(new BigDecimal("585"), orderBook.getSellOrders().get(0).getPrice());
+        assertEquals(new BigDecimal("584"), orderBook.getBuyOrders().get(0).getPrice());
+
+        final MarketOrderBook topOfBook = tradingApi.getTopOfBookAsync(MARKET_ID).get();
+        assertEquals(1, topOfBook.getSellOrders().size());
+        assertEquals(1, topOfBook.getBuyOrders().size());
+        assertEquals(new BigDecimal("585"), topOfBook.getSellOrders().get(0).getPrice());
+
+        assertEquals(ORDER_BOOK_DEPTH, tradingApi.getMarketOrders(MARKET_ID, 100).getSellOrders().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDefaultDepthLimitedOrderBookRejectsDepthLessThanOne() throws Exception {
+        tradingApi.getMarketOrders(MARKET_ID, 0);
+    }
+
+    @Test
+    public void testRejectedCallCompletesFutureExceptionally() throws Exception {
+
+        final ExecutorService shutdownExecutor = Executors.newSingleThreadExecutor();
+        shutdownExecutor.shutdown();
+
+        final CompletableFuture<String> result = AsyncTradingApi.callAsync(() -> ORDER_ID, shutdownExecutor);
+        assertTrue(result.isCompletedExceptionally());
+    }
+
+    /*
+     * Minimal blocking Trading API that records the threads it was called on.
+     */
+    private static class StubTradingApi implements AsyncTradingApi {
+
+        private final List<Thread> callingThreads = new CopyOnWriteArrayList<>();
+        private volatile Thread lastCallingThread;
+        private volatile ExchangeNetworkException exceptionToThrow;
+        private volatile Executor publicApiExecutor = Runnable::run;
+        private volatile Executor authenticatedApiExecutor = Runnable::run;
+
+        @Override
+        public String getImplName() {
+            return "Stub Trading API";
+        }
+
+        @Override
+        public MarketOrderBook getMarketOrders(String marketId) throws ExchangeNetworkException {
+            recordCall();
+            final List<MarketOrder> sellOrders = new ArrayList<>();
+            final List<MarketOrder> buyOrders = new ArrayList<>();
+            for (int i = 0; i < ORDER_BOOK_DEPTH; i++) {
+                final BigDecimal askPrice = new BigDecimal(585 + i);
+                final BigDecimal bidPrice = new BigDecimal(584 - i);
+                sellOrders.add(new MarketOrder(OrderType.SELL, askPrice, QUANTITY, askPrice.multiply(QUANTITY)));
+                buyOrders.add(new MarketOrder(OrderType.BUY, bidPrice, QUANTITY, bidPrice.multiply(QUANTITY)));
+            }
+            return new MarketOrderBook(marketId, sellOrders, buyOrders);
+        }
+
+        @Override
+        public List<OpenOrder> getYourOpenOrders(String marketId) throws ExchangeNetworkException {
+            recordCall();
+            return new ArrayList<>();
+        }
+
+        @Override
+        public String createOrder(String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price)
+                throws ExchangeNetworkException {
+            recordCall();
+            return ORDER_ID;
+        }
+
+        @Override
+        public boolean cancelOrder(String orderId, String marketId) throws ExchangeNetworkException {
+            recordCall();
+            return true;
+        }
+
+        @Override
+        public BigDecimal getLatestMarketPrice(String marketId) throws ExchangeNetworkException {
+            recordCall();
+            return LATEST_PRICE;
+        }
+
+        @Override
+        public BalanceInfo getBalanceInfo() throws ExchangeNetworkException {
+            recordCall();
+            return new BalanceInfo(null, null);
+        }
+
+        @Override
+        public BigDecimal getPercentageOfBuyOrderTakenForExchangeFee(String marketId) throws ExchangeNetworkException {
+            recordCall();
+            return BUY_FEE;
+        }
+
+        @Override
+        public BigDecimal getPercentageOfSellOrderTakenForExchangeFee(String marketId) throws ExchangeNetworkException {
+            recordCall();
+            return SELL_FEE;
+        }
+
+        @Override
+        public Executor getPublicApiExecutor() {
+            return publicApiExecutor;
+        }
+
+        @Override
+        public Executor getAuthenticatedApiExecutor() {
+            return authenticatedApiExecutor;
+        }
+
+        private void recordCall() throws ExchangeNetworkException {
+            lastCallingThread = Thread.currentThread();
+            if (!callingThreads.contains(lastCallingThread)) {
+                callingThreads.add(lastCallingThread);
+            }
+            if (exceptionToThrow != null) {
+                throw exceptionToThrow;
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.trading.api;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the Fixed Point Decimal behaves as expected.
+ *
+ * @author gazbert
+ */
+public class TestFixedPointDecimal {
+
+    private static final BigDecimal PRICE = new BigDecimal("2901.50");
+    private static final BigDecimal QUANTITY = new BigDecimal("0.01614453");
+
+
+    @Test
+    public void testValuesAreCreatedAsExpected() {
+
+        assertEquals(150000000L, FixedPointDecimal.parse("1.5").getUnscaledValue());
+        assertEquals(150000000L, FixedPointDecimal.ofUnscaled(150000000L).getUnscaledValue());
+        assertEquals(500000000L, FixedPointDecimal.valueOf(5).getUnscaledValue());
+        assertEquals(290150000000L, FixedPointDecimal.valueOf(PRICE).getUnscaledValue());
+        assertEquals(FixedPointDecimal.ONE, FixedPointDecimal.valueOf(1));
+        assertEquals(0, FixedPointDecimal.ZERO.signum());
+    }
+
+    @Test
+    public void testBigDecimalConversionIsLossless() {
+
+        final FixedPointDecimal quantity = FixedPointDecimal.valueOf(QUANTITY);
+        assertEquals(0, QUANTITY.compareTo(quantity.toBigDecimal()));
+        assertEquals(FixedPointDecimal.SCALE, quantity.toBigDecimal().scale());
+        assertEquals("0.01614453", quantity.toString());
+
+        // trailing zeros beyond the scale are not a loss of precision
+        assertEquals(quantity, FixedPointDecimal.valueOf(new BigDecimal("0.0161445300000")));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testBigDecimalWithTooManyDecimalPlacesIsRejected() {
+        FixedPointDecimal.valueOf(new BigDecimal("0.000000001"));
+    }
+
+    @Test
+    public void testStringsAreParsedAsExpected() {
+
+        assertEquals(290150000000L, FixedPointDecimal.parseUnscaled("2901.50"));
+        assertEquals(290150000000L, FixedPointDecimal.parseUnscaled("+2901.5"));
+        assertEquals(-12000L, FixedPointDecimal.parseUnscaled("-0.00012"));
+        assertEquals(100000000L, FixedPointDecimal.parseUnscaled("1"));
+        assertEquals(100000000L, FixedPointDecimal.parseUnscaled("1."));
+        assertEquals(50000000L, FixedPointDecimal.parseUnscaled(".5"));
+        assertEquals(161445300L, FixedPointDecimal.parseUnscaled("1.61445300000"));
+        assertEquals(1200L, FixedPointDecimal.parseUnscaled("1.2E-5"));
+        assertEquals(0L, FixedPointDecimal.parseUnscaled("0.00000000"));
+    }
+
+    @Test
+    public void testInvalidStringsAreRejected() {
+
+        for (final String invalid : new String[]{"", "-", ".", "1.2.3", "1,5", "abc", "0.000000001",
+                "92233720368.54775808", "1e30"}) {
+            try {
+                FixedPointDecimal.parseUnscaled(invalid);
+                fail("Expected NumberFormatException for: " + invalid);
+            } catch (NumberFormatException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testAddAndSubtract() {
+
+        final FixedPointDecimal price = FixedPointDecimal.valueOf(PRICE);
+        final FixedPointDecimal quantity = FixedPointDecimal.valueOf(QUANTITY);
+
+        assertEquals(0, PRICE.add(QUANTITY).compareTo(price.add(quantity).toBigDecimal()));
+        assertEquals(0, QUANTITY.subtract(PRICE).compareTo(quantity.subtract(price).toBigDecimal()));
+        assertEquals(FixedPointDecimal.ZERO, price.add(price.negate()));
+    }
+
+    @Test
+    public void testMultiplyMatchesBigDecimalHalfUp() {
+
+        final String[][] operands = {
+                {"2901.50", "0.01614453"}, {"0.00000001", "0.5"}, {"0.00000001", "0.49999999"},
+                {"-0.00000001", "0.5"}, {"-2901.50", "-1.23456789"}, {"30000", "150.5"},
+                {"-0.12345678", "9.87654321"}, {"123456.78901234", "0.00012345"}};
+
+        for (final String[] pair : operands) {
+            final BigDecimal expected = new BigDecimal(pair[0]).multiply(new BigDecimal(pair[1]))
+                    .setScale(FixedPointDecimal.SCALE, RoundingMode.HALF_UP);
+            final FixedPointDecimal actual = FixedPointDecimal.parse(pair[0]).multiply(FixedPointDecimal.parse(pair[1]));
+            assertEquals(pair[0] + " * " + pair[1], 0, expected.compareTo(actual.toBigDecimal()));
+        }
+    }
+
+    @Test
+    public void testDivideMatchesBigDecimalHalfUp() {
+
+        final String[][] operands = {
+                {"0.01", "2901.50"}, {"1", "3"}, {"2", "3"}, {"-2", "3"}, {"2901.50", "-0.00000007"},
+                {"0.00000001", "2"}, {"50000000000", "60000000000"}, {"1", "0.00000001"}};
+
+        for (final String[] pair : operands) {
+            final BigDecimal expected = new BigDecimal(pair[0])
+                    .divide(new BigDecimal(pair[1]), FixedPointDecimal.SCALE, RoundingMode.HALF_UP);
+            final FixedPointDecimal actual = FixedPointDecimal.parse(pair[0]).divide(FixedPointDecimal.parse(pair[1]));
+            assertEquals(pair[0] + " / " + pair[1], 0, expected.compareTo(actual.toBigDecimal()));
+        }
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testDivideByZeroIsRejected() {
+        FixedPointDecimal.ONE.divide(FixedPointDecimal.ZERO);
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testAddOverflowIsDetected() {
+        FixedPointDecimal.ofUnscaled(Long.MAX_VALUE).add(FixedPointDecimal.ofUnscaled(1));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testMultiplyOverflowIsDetected() {
+        FixedPointDecimal.valueOf(1000000).multiply(FixedPointDecimal.valueOf(1000000));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testDivideOverflowIsDetected() {
+        FixedPointDecimal.valueOf(1000000).divide(FixedPointDecimal.parse("0.00000001"));
+    }
+
+    @Test
+    public void testCompareEqualsAndHashCode() {
+
+        final FixedPointDecimal a = FixedPointDecimal.parse("2901.5");
+        final FixedPointDecimal b = FixedPointDecimal.parse("2901.50000000");
+        final FixedPointDecimal c = FixedPointDecimal.parse("2901.49999999");
+
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertNotEquals(a, c);
+        assertTrue(a.compareTo(c) > 0);
+        assertTrue(c.compareTo(a) < 0);
+        assertEquals(0, a.compareTo(b));
+        assertEquals(-1, c.negate().signum());
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.trading.api;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the Incremental Order Book behaves as expected.
+ *
+ * @author gazbert
+ */
+public class TestIncrementalOrderBook {
+
+    private static final String MARKET_ID = "BTC_USD";
+    private static final int PRICE_SCALE = 2;
+    private static final int QUANTITY_SCALE = 8;
+
+    private IncrementalOrderBook orderBook;
+
+
+    @Before
+    public void setupOrderBookBeforeEachTest() {
+
+        orderBook = new IncrementalOrderBook(MARKET_ID, PRICE_SCALE, QUANTITY_SCALE);
+
+        orderBook.updateLevel(OrderType.BUY, new BigDecimal("100.00"), new BigDecimal("1.5"));
+        orderBook.updateLevel(OrderType.BUY, new BigDecimal("99.50"), new BigDecimal("2"));
+        orderBook.updateLevel(OrderType.BUY, new BigDecimal("100.25"), new BigDecimal("0.25"));
+
+        orderBook.updateLevel(OrderType.SELL, new BigDecimal("101.00"), new BigDecimal("3"));
+        orderBook.updateLevel(OrderType.SELL, new BigDecimal("100.75"), new BigDecimal("0.5"));
+        orderBook.updateLevel(OrderType.SELL, new BigDecimal("102"), new BigDecimal("1"));
+    }
+
+    @Test
+    public void testOrderBookIsInitialisedAsExpected() {
+
+        final IncrementalOrderBook emptyBook = new IncrementalOrderBook(MARKET_ID, PRICE_SCALE, QUANTITY_SCALE);
+        assertEquals(MARKET_ID, emptyBook.getMarketId());
+        assertEquals(PRICE_SCALE, emptyBook.getPriceScale());
+        assertEquals(QUANTITY_SCALE, emptyBook.getQuantityScale());
+        assertEquals(0, emptyBook.getLevelCount(OrderType.BUY));
+        assertEquals(0, emptyBook.getLevelCount(OrderType.SELL));
+        assertNull(emptyBook.getBestBidPrice());
+        assertNull(emptyBook.getBestAskPrice());
+        assertFalse(emptyBook.isCrossed());
+        assertTrue(emptyBook.toMarketOrderBook(10).getBuyOrders().isEmpty());
+        assertTrue(emptyBook.toMarketOrderBook(10).getSellOrders().isEmpty());
+    }
+
+    @Test
+    public void testLevelsAreOrderedBestPriceFirst() {
+
+        assertEquals(0, new BigDecimal("100.25").compareTo(orderBook.getBestBidPrice()));
+        assertEquals(0, new BigDecimal("100.75").compareTo(orderBook.getBestAskPrice()));
+
+        final MarketOrderBook marketOrderBook = orderBook.toMarketOrderBook(10);
+        assertEquals(MARKET_ID, marketOrderBook.getMarketId());
+
+        final List<MarketOrder> buyOrders = marketOrderBook.getBuyOrders();
+        assertEquals(3, buyOrders.size());
+        assertOrder(OrderType.BUY, "100.25", "0.25", buyOrders.get(0));
+        assertOrder(OrderType.BUY, "100.00", "1.5", buyOrders.get(1));
+        assertOrder(OrderType.BUY, "99.50", "2", buyOrders.get(2));
+
+        final List<MarketOrder> sellOrders = marketOrderBook.getSellOrders();
+        assertEquals(3, sellOrders.size());
+        assertOrder(OrderType.SELL, "100.75", "0.5", sellOrders.get(0));
+        assertOrder(OrderType.SELL, "101.00", "3", sellOrders.get(1));
+        assertOrder(OrderType.SELL, "102.00", "1", sellOrders.get(2));
+    }
+
+    @Test
+    public void testLevelQuantityIsReplacedAndZeroQuantityRemovesLevel() {
+
+        orderBook.updateLevel(OrderType.BUY, new BigDecimal("100.00"), new BigDecimal("4.2"));
+        orderBook.updateLevel(OrderType.SELL, new BigDecimal("100.75"), BigDecimal.ZERO);
+        orderBook.updateLevel(OrderType.SELL, new BigDecimal("150.00"), BigDecimal.ZERO); // not in book
+
+        assertEquals(3, orderBook.getLevelCount(OrderType.BUY));
+        assertEquals(2, orderBook.getLevelCount(OrderType.SELL));
+        assertEquals(0, new BigDecimal("101.00").compareTo(orderBook.getBestAskPrice()));
+
+        final MarketOrderBook marketOrderBook = orderBook.toMarketOrderBook(10);
+        assertOrder(OrderType.BUY, "100.00", "4.2", marketOrderBook.getBuyOrders().get(1));
+        assertOrder(OrderType.SELL, "101.00", "3", marketOrderBook.getSellOrders().get(0));
+    }
+
+    @Test
+    public void testFixedPointUpdatesUseBookScales() {
+
+        orderBook.updateLevel(OrderType.BUY, 10050L, 12345678L); // 100.50 @ 0.12345678
+        assertEquals(0, new BigDecimal("100.50").compareTo(orderBook.getBestBidPrice()));
+        assertOrder(OrderType.BUY, "100.50", "0.12345678", orderBook.toMarketOrderBook(1).getBuyOrders().get(0));
+
+        orderBook.updateLevel(OrderType.BUY, 10050L, 0L);
+        assertEquals(0, new BigDecimal("100.25").compareTo(orderBook.getBestBidPrice()));
+    }
+
+    @Test
+    public void testSnapshotIsDepthLimitedAndNotAffectedByLaterUpdates() {
+
+        final MarketOrderBook marketOrderBook = orderBook.toMarketOrderBook(2);
+        assertEquals(2, marketOrderBook.getBuyOrders().size());
+        assertEquals(2, marketOrderBook.getSellOrders().size());
+
+        orderBook.clear();
+        assertEquals(0, orderBook.getLevelCount(OrderType.BUY));
+        assertEquals(0, orderBook.getLevelCount(OrderType.SELL));
+
+        assertOrder(OrderType.BUY, "100.25", "0.25", marketOrderBook.getBuyOrders().get(0));
+        assertOrder(OrderType.SELL, "101.00", "3", marketOrderBook.getSellOrders().get(1));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSnapshotOrdersAreReadOnly() {
+        orderBook.toMarketOrderBook(10).getBuyOrders().remove(0);
+    }
+
+    @Test
+    public void testCrossedBookIsDetected() {
+
+        assertFalse(orderBook.isCrossed());
+        orderBook.updateLevel(OrderType.BUY, new BigDecimal("100.75"), new BigDecimal("1"));
+        assertTrue(orderBook.isCrossed());
+    }
+
+    @Test
+    public void testBookGrowsBeyondInitialCapacity() {
+
+        for (int i = 1; i <= 500; i++) {
+            orderBook.updateLevel(OrderType.SELL, 20000L + i, 100000000L);
+            orderBook.updateLevel(OrderType.BUY, 9000L - i, 100000000L);
+        }
+        assertEquals(503, orderBook.getLevelCount(OrderType.SELL));
+        assertEquals(503, orderBook.getLevelCount(OrderType.BUY));
+        assertEquals(0, new BigDecimal("100.75").compareTo(orderBook.getBestAskPrice()));
+        assertEquals(0, new BigDecimal("100.25").compareTo(orderBook.getBestBidPrice()));
+
+        final List<MarketOrder> sellOrders = orderBook.toMarketOrderBook(1000).getSellOrders();
+        assertEquals(503, sellOrders.size());
+        assertEquals(0, new BigDecimal("205.00").compareTo(sellOrders.get(502).getPrice()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPriceWithTooManyDecimalPlacesIsRejected() {
+        orderBook.updateLevel(OrderType.BUY, new BigDecimal("100.001"), new BigDecimal("1"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeQuantityIsRejected() {
+        orderBook.updateLevel(OrderType.SELL, new BigDecimal("100.00"), new BigDecimal("-1"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidScaleIsRejected() {
+        new IncrementalOrderBook(MARKET_ID, 19, QUANTITY_SCALE);
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Private utils
+    // ------------------------------------------------------------------------------------------------
+
+    private static void assertOrder(OrderType expectedType, String expectedPrice, String expectedQuantity,
+                                    MarketOrder order) {
+        assertEquals(expectedType, order.getType());
+        assertEquals(0, new BigDecimal(expectedPrice).compareTo(order.getPrice()));
+        assertEquals(0, new BigDecimal(expectedQuantity).compareTo(order.getQuantity()));
+        assertEquals(0, new BigDecimal(expectedPrice).multiply(new BigDecimal(expectedQuantity))
+                .compareTo(order.getTotal()));
+    }
+}
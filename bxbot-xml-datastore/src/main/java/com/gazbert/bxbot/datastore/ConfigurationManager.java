@@ -35,10 +35,32 @@ import javax.xml.validation.SchemaFactory;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * The generic configuration manager loads config from a given XML config file.
+ * <p>
+ * Building a JAXBContext and compiling an XML Schema are expensive, so both are created once and cached: contexts per
+ * config package and schemas per XSD file. The config loaded from each file is cached too, and handed out again until
+ * the file changes on disk or is saved through this class.
+ * <p>
+ * Config returned by {@link #loadConfig(Class, String, String)} is shared by all callers and must not be changed.
+ * Use {@link #loadConfigForUpdate(Class, String, String)} to get a private copy to change and save.
+ * <p>
+ * Calling {@link #enableInMemoryConfigStore()} switches to serving config from an {@link InMemoryConfigStore}:
+ * reads no longer check the file, saves replace the file atomically, and files edited by hand are picked up by a
+ * file watcher instead. Listeners added with {@link #addConfigReloadListener(ConfigReloadListener)} are told when the
+ * watcher has reloaded a file.
  *
  * @author gazbert
  */
@@ -47,75 +69,257 @@ public final class ConfigurationManager {
     private static final Logger LOG = LogManager.getLogger();
     private final static Object MUTEX = new Object();
 
+    private static final Map<String, JAXBContext> JAXB_CONTEXTS = new ConcurrentHashMap<>();
+    private static final Map<String, Schema> SCHEMAS = new ConcurrentHashMap<>();
+    private static final Map<Path, LoadedConfig> LOADED_CONFIGS = new ConcurrentHashMap<>();
+    private static final List<ConfigReloadListener> CONFIG_RELOAD_LISTENERS = new CopyOnWriteArrayList<>();
+
+    private static volatile InMemoryConfigStore inMemoryConfigStore;
+
     private ConfigurationManager() {
     }
 
+    /*
+     * Serves config from memory from now on. Call it before any config is loaded.
+     */
+    public static void enableInMemoryConfigStore() {
+        synchronized (MUTEX) {
+            if (inMemoryConfigStore == null) {
+                LOG.info(() -> "Serving config from the in-memory config store");
+                inMemoryConfigStore = new InMemoryConfigStore(ConfigurationManager::fireConfigReloaded);
+            }
+        }
+    }
+
+    /*
+     * Goes back to loading config from the files, and stops watching them.
+     */
+    public static void disableInMemoryConfigStore() {
+        synchronized (MUTEX) {
+            if (inMemoryConfigStore != null) {
+                try {
+                    inMemoryConfigStore.close();
+                } catch (IOException e) {
+                    LOG.warn("Failed to stop watching config files", e);
+                }
+                inMemoryConfigStore = null;
+            }
+        }
+    }
+
+    /*
+     * Tells the listener whenever the in-memory config store reloads a file edited on disk.
+     */
+    public static void addConfigReloadListener(ConfigReloadListener listener) {
+        CONFIG_RELOAD_LISTENERS.add(listener);
+    }
+
+    public static void removeConfigReloadListener(ConfigReloadListener listener) {
+        CONFIG_RELOAD_LISTENERS.remove(listener);
+    }
+
     /*
      * Loads and returns the requested configuration.
+     * The config is cached until the file changes - callers must not change it.
      */
     public static <T> T loadConfig(Class<T> configClass, String xmlConfigFile, String xmlSchemaFile) {
 
+        final InMemoryConfigStore configStore = inMemoryConfigStore;
+        if (configStore != null) {
+            return configStore.get(configClass, xmlConfigFile, xmlSchemaFile);
+        }
+
+        final Path configPath = cacheKey(xmlConfigFile);
+        final BasicFileAttributes fileAttributes = readFileAttributes(configPath);
+        final LoadedConfig loadedConfig = LOADED_CONFIGS.get(configPath);
+        if (loadedConfig != null && loadedConfig.isCurrent(configClass, xmlSchemaFile, fileAttributes)) {
+            return configClass.cast(loadedConfig.config);
+        }
+
+        final T requestedConfig = unmarshal(configClass, xmlConfigFile, xmlSchemaFile);
+        if (fileAttributes != null) {
+            LOADED_CONFIGS.put(configPath, new LoadedConfig(configClass, xmlSchemaFile, fileAttributes,
+                    requestedConfig));
+        }
+        return requestedConfig;
+    }
+
+    /*
+     * Loads and returns a private copy of the requested configuration, for the caller to change and then save.
+     */
+    public static <T> T loadConfigForUpdate(Class<T> configClass, String xmlConfigFile, String xmlSchemaFile) {
+
+        final InMemoryConfigStore configStore = inMemoryConfigStore;
+        if (configStore != null) {
+            return configStore.getCopy(configClass, xmlConfigFile, xmlSchemaFile);
+        }
+        return unmarshal(configClass, xmlConfigFile, xmlSchemaFile);
+    }
+
+    /*
+     * Saves given config to filesystem.
+     */
+    public static <T> void saveConfig(Class<T> configClass, T config, String xmlConfigFile) {
+
+        LOG.info(() -> "Saving configuration for [" + configClass + "] to: " + xmlConfigFile + " ...");
+
+        final InMemoryConfigStore configStore = inMemoryConfigStore;
+        if (configStore != null) {
+            configStore.save(configClass, config, xmlConfigFile);
+            return;
+        }
+
+        try {
+
+            final Marshaller marshaller = getJaxbContext(config.getClass()).createMarshaller();
+            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
+
+            synchronized (MUTEX) {
+                // Dropped before and after writing, so no reader can cache the old config from a half-written file
+                LOADED_CONFIGS.remove(cacheKey(xmlConfigFile));
+                try (FileOutputStream configFile = new FileOutputStream(xmlConfigFile)) {
+                    marshaller.marshal(config, configFile);
+                } finally {
+                    LOADED_CONFIGS.remove(cacheKey(xmlConfigFile));
+                }
+            }
+
+        } catch (JAXBException e) {
+            final String errorMsg = "Failed to save config to [" + xmlConfigFile + "] file.";
+            LOG.error(errorMsg, e);
+            throw new IllegalArgumentException(errorMsg, e);
+        } catch (IOException e) {
+            final String errorMsg = "Failed to find or read [" + xmlConfigFile + "] config";
+            LOG.error(errorMsg, e);
+            throw new IllegalStateException(errorMsg, e);
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    static <T> T unmarshal(Class<T> configClass, String xmlConfigFile, String xmlSchemaFile) {
+
         LOG.info(() -> "Loading configuration for [" + configClass + "] from: " + xmlConfigFile + " ...");
 
         try {
 
-            final JAXBContext jaxbContext = JAXBContext.newInstance(configClass.getPackage().getName());
-            final Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
+            final Unmarshaller unmarshaller = getJaxbContext(configClass).createUnmarshaller();
 
             // optional schema validation
             if (xmlSchemaFile != null) {
-                final InputStream xsdStream = ConfigurationManager.class.getClassLoader().getResourceAsStream(xmlSchemaFile);
-                final StreamSource xsdSource = new StreamSource(xsdStream);
-                final SchemaFactory sf = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-                final Schema schema = sf.newSchema(xsdSource);
-                unmarshaller.setSchema(schema);
+                unmarshaller.setSchema(getSchema(xmlSchemaFile));
             }
 
             synchronized (MUTEX) {
-                final JAXBElement<?> requestedConfigRootXmlElement = (JAXBElement<?>) unmarshaller.unmarshal(
-                        new FileInputStream(xmlConfigFile));
+                try (InputStream configFile = new FileInputStream(xmlConfigFile)) {
+                    final JAXBElement<?> requestedConfigRootXmlElement = (JAXBElement<?>) unmarshaller.unmarshal(
+                            configFile);
 
-                final T requestedConfig = (T) requestedConfigRootXmlElement.getValue();
-                LOG.info(() -> "Loaded and set configuration for [" + configClass + "] successfully!");
-                return requestedConfig;
+                    final T requestedConfig = (T) requestedConfigRootXmlElement.getValue();
+                    LOG.info(() -> "Loaded and set configuration for [" + configClass + "] successfully!");
+                    return requestedConfig;
+                }
             }
 
         } catch (JAXBException | SAXException e) {
             final String errorMsg = "Failed to load [" + xmlConfigFile + "] file and validate it using XML Schema [" + xmlSchemaFile + "]";
             LOG.error(errorMsg, e);
             throw new IllegalArgumentException(errorMsg, e);
-        } catch (FileNotFoundException e) {
+        } catch (IOException e) {
             final String errorMsg = "Failed to find or read [" + xmlConfigFile + "] config";
             LOG.error(errorMsg, e);
             throw new IllegalStateException(errorMsg, e);
         }
     }
 
+    static JAXBContext getJaxbContext(Class<?> configClass) throws JAXBException {
+
+        final String contextPath = configClass.getPackage().getName();
+        JAXBContext jaxbContext = JAXB_CONTEXTS.get(contextPath);
+        if (jaxbContext == null) {
+            // Contexts are thread safe - if 2 threads race to create one, either can be kept
+            jaxbContext = JAXBContext.newInstance(contextPath);
+            final JAXBContext existingContext = JAXB_CONTEXTS.putIfAbsent(contextPath, jaxbContext);
+            if (existingContext != null) {
+                jaxbContext = existingContext;
+            }
+        }
+        return jaxbContext;
+    }
+
+    private static Schema getSchema(String xmlSchemaFile) throws SAXException {
+
+        Schema schema = SCHEMAS.get(xmlSchemaFile);
+        if (schema == null) {
+            final InputStream xsdStream = ConfigurationManager.class.getClassLoader().getResourceAsStream(xmlSchemaFile);
+            final StreamSource xsdSource = new StreamSource(xsdStream);
+            final SchemaFactory sf = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+            schema = sf.newSchema(xsdSource);
+            final Schema existingSchema = SCHEMAS.putIfAbsent(xmlSchemaFile, schema);
+            if (existingSchema != null) {
+                schema = existingSchema;
+            }
+        }
+        return schema;
+    }
+
     /*
-     * Saves given config to filesystem.
+     * A failing listener must not stop the others being told, or kill the file watcher.
      */
-    public static <T> void saveConfig(Class<T> configClass, T config, String xmlConfigFile) {
+    private static void fireConfigReloaded(String xmlConfigFile) {
+        for (final ConfigReloadListener listener : CONFIG_RELOAD_LISTENERS) {
+            try {
+                listener.configReloaded(xmlConfigFile);
+            } catch (RuntimeException e) {
+                LOG.error("Config reload listener failed for " + xmlConfigFile, e);
+            }
+        }
+    }
 
-        LOG.info(() -> "Saving configuration for [" + configClass + "] to: " + xmlConfigFile + " ...");
+    static Path cacheKey(String xmlConfigFile) {
+        return Paths.get(xmlConfigFile).toAbsolutePath().normalize();
+    }
 
+    /*
+     * Returns null if the file cannot be read - loading it will then report why.
+     */
+    private static BasicFileAttributes readFileAttributes(Path configPath) {
         try {
+            return Files.readAttributes(configPath, BasicFileAttributes.class);
+        } catch (IOException e) {
+            LOADED_CONFIGS.remove(configPath);
+            return null;
+        }
+    }
 
-            final JAXBContext context = JAXBContext.newInstance(config.getClass());
-            final Marshaller marshaller = context.createMarshaller();
-            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
+    /*
+     * Config loaded from a file, with the file's last modified time and size when it was loaded.
+     */
+    private static final class LoadedConfig {
 
-            synchronized (MUTEX) {
-                marshaller.marshal(config, new FileOutputStream(xmlConfigFile));
-            }
+        private final Class<?> configClass;
+        private final String xmlSchemaFile;
+        private final FileTime lastModifiedTime;
+        private final long size;
+        private final Object config;
 
-        } catch (JAXBException e) {
-            final String errorMsg = "Failed to save config to [" + xmlConfigFile + "] file.";
-            LOG.error(errorMsg, e);
-            throw new IllegalArgumentException(errorMsg, e);
-        } catch (FileNotFoundException e) {
-            final String errorMsg = "Failed to find or read [" + xmlConfigFile + "] config";
-            LOG.error(errorMsg, e);
-            throw new IllegalStateException(errorMsg, e);
+        LoadedConfig(Class<?> configClass, String xmlSchemaFile, BasicFileAttributes fileAttributes, Object config) {
+            this.configClass = configClass;
+            this.xmlSchemaFile = xmlSchemaFile;
+            this.lastModifiedTime = fileAttributes.lastModifiedTime();
+            this.size = fileAttributes.size();
+            this.config = config;
+        }
+
+        boolean isCurrent(Class<?> requestedConfigClass, String requestedSchemaFile,
+                          BasicFileAttributes fileAttributes) {
+            return fileAttributes != null
+                    && configClass.equals(requestedConfigClass)
+                    && (xmlSchemaFile == null ? requestedSchemaFile == null : xmlSchemaFile.equals(requestedSchemaFile))
+                    && lastModifiedTime.equals(fileAttributes.lastModifiedTime())
+                    && size == fileAttributes.size();
         }
     }
 }
@@ -0,0 +1,327 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.datastore;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.transform.stream.StreamSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>
+ * Holds each config file's config in memory, so reads never touch the disk or take a lock.
+ * </p>
+ * <p>
+ * Each file is loaded and validated once, the first time it is read. The config is held as a snapshot in an
+ * {@link AtomicReference} and every reader is handed the same snapshot, which must never be changed. Writes are
+ * copy-on-write: the writer changes a private deep copy of the snapshot, which is written to a temp file in the same
+ * directory and atomically renamed over the config file, then published as the new snapshot. A reader sees either
+ * the old config or the new one - never a half-written file or half-changed object.
+ * </p>
+ * <p>
+ * The directories of the loaded files are watched with a {@link WatchService}, so a config file edited by hand is
+ * reloaded and validated, and the {@link ConfigReloadListener} is told. If the edited file is not valid, e.g. it is
+ * still being written, the old snapshot is kept and a warning is logged.
+ * </p>
+ *
+ * @author gazbert
+ */
+final class InMemoryConfigStore implements Closeable {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private final Map<Path, StoredConfig> storedConfigs = new ConcurrentHashMap<>();
+    private final Set<Path> watchedDirectories = ConcurrentHashMap.newKeySet();
+    private final WatchService watchService;
+    private final ConfigReloadListener reloadListener;
+
+
+    InMemoryConfigStore(ConfigReloadListener reloadListener) {
+        this.reloadListener = reloadListener;
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+        } catch (IOException e) {
+            final String errorMsg = "Failed to create config file watch service";
+            LOG.error(errorMsg, e);
+            throw new IllegalStateException(errorMsg, e);
+        }
+
+        final Thread configFileWatcher = new Thread(this::watchConfigFiles, "config-file-watcher");
+        configFileWatcher.setDaemon(true);
+        configFileWatcher.start();
+    }
+
+    <T> T get(Class<T> configClass, String xmlConfigFile, String xmlSchemaFile) {
+        return configClass.cast(getStoredConfig(configClass, xmlConfigFile, xmlSchemaFile).snapshot.get());
+    }
+
+    <T> T getCopy(Class<T> configClass, String xmlConfigFile, String xmlSchemaFile) {
+        return deepCopy(configClass, get(configClass, xmlConfigFile, xmlSchemaFile));
+    }
+
+    <T> void save(Class<T> configClass, T config, String xmlConfigFile) {
+
+        final Path configPath = ConfigurationManager.cacheKey(xmlConfigFile);
+        final StoredConfig storedConfig = storedConfigs.get(configPath);
+        if (storedConfig == null) {
+            // Never read through the store - it is loaded and validated from the new file when it is
+            writeAtomically(configClass, config, configPath);
+            return;
+        }
+
+        // The caller keeps its own object - changing it after saving must not change what the readers see
+        final T snapshot = deepCopy(configClass, config);
+        synchronized (storedConfig) {
+            storedConfig.lastWritten = writeAtomically(configClass, snapshot, configPath);
+            storedConfig.snapshot.set(snapshot);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private StoredConfig getStoredConfig(Class<?> configClass, String xmlConfigFile, String xmlSchemaFile) {
+
+        final Path configPath = ConfigurationManager.cacheKey(xmlConfigFile);
+        final StoredConfig storedConfig = storedConfigs.get(configPath);
+        if (storedConfig != null) {
+            return storedConfig;
+        }
+
+        // First read - loaded under the map's lock for this file, so it is only loaded once
+        return storedConfigs.computeIfAbsent(configPath, path -> {
+            final StoredConfig newStoredConfig = new StoredConfig(configClass, xmlConfigFile, xmlSchemaFile,
+                    ConfigurationManager.unmarshal(configClass, xmlConfigFile, xmlSchemaFile));
+            watchDirectory(path.getParent());
+            return newStoredConfig;
+        });
+    }
+
+    private void watchDirectory(Path directory) {
+        if (watchedDirectories.add(directory)) {
+            try {
+                directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY);
+            } catch (IOException e) {
+                LOG.warn("Failed to watch config directory " + directory + " - config edited by hand will not be "
+                        + "reloaded until restart", e);
+            }
+        }
+    }
+
+    /*
+     * Runs on the watcher thread for the life of the store.
+     */
+    private void watchConfigFiles() {
+        while (true) {
+            final WatchKey watchKey;
+            try {
+                watchKey = watchService.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ClosedWatchServiceException e) {
+                return;
+            }
+
+            final Path directory = (Path) watchKey.watchable();
+            for (final WatchEvent<?> event : watchKey.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    // Events were lost - check every file in the directory
+                    storedConfigs.forEach((configPath, storedConfig) -> {
+                        if (configPath.getParent().equals(directory)) {
+                            reloadIfChanged(configPath, storedConfig);
+                        }
+                    });
+                } else {
+                    final Path configPath = directory.resolve((Path) event.context());
+                    final StoredConfig storedConfig = storedConfigs.get(configPath);
+                    if (storedConfig != null) {
+                        reloadIfChanged(configPath, storedConfig);
+                    }
+                }
+            }
+            watchKey.reset();
+        }
+    }
+
+    private void reloadIfChanged(Path configPath, StoredConfig storedConfig) {
+
+        synchronized (storedConfig) {
+            final FileVersion fileVersion = FileVersion.of(configPath);
+            if (fileVersion == null || fileVersion.equals(storedConfig.lastWritten)) {
+                return; // gone, or our own write
+            }
+
+            try {
+                storedConfig.snapshot.set(ConfigurationManager.unmarshal(storedConfig.configClass,
+                        storedConfig.xmlConfigFile, storedConfig.xmlSchemaFile));
+                storedConfig.lastWritten = fileVersion;
+                LOG.info(() -> "Reloaded config changed on disk: " + configPath);
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                LOG.warn("Config changed on disk is not valid - keeping the current config until it is fixed: "
+                        + configPath);
+                return;
+            }
+        }
+
+        // Outside the lock - listeners read the config back
+        reloadListener.configReloaded(storedConfig.xmlConfigFile);
+    }
+
+    private static <T> FileVersion writeAtomically(Class<T> configClass, T config, Path configPath) {
+
+        Path tempFile = null;
+        try {
+            final Marshaller marshaller = ConfigurationManager.getJaxbContext(configClass).createMarshaller();
+            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
+
+            tempFile = Files.createTempFile(configPath.getParent(), configPath.getFileName().toString(), ".tmp");
+            try (OutputStream tempFileStream = Files.newOutputStream(tempFile)) {
+                marshaller.marshal(config, tempFileStream);
+            }
+            Files.move(tempFile, configPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return FileVersion.of(configPath);
+
+        } catch (JAXBException e) {
+            final String errorMsg = "Failed to save config to [" + configPath + "] file.";
+            LOG.error(errorMsg, e);
+            throw new IllegalArgumentException(errorMsg, e);
+        } catch (IOException e) {
+            final String errorMsg = "Failed to write [" + configPath + "] config";
+            LOG.error(errorMsg, e);
+            throw new IllegalStateException(errorMsg, e);
+        } finally {
+            deleteQuietly(tempFile);
+        }
+    }
+
+    private static <T> T deepCopy(Class<T> configClass, T config) {
+        try {
+            final ByteArrayOutputStream marshalledConfig = new ByteArrayOutputStream();
+            ConfigurationManager.getJaxbContext(configClass).createMarshaller().marshal(config, marshalledConfig);
+            return ConfigurationManager.getJaxbContext(configClass).createUnmarshaller()
+                    .unmarshal(new StreamSource(new ByteArrayInputStream(marshalledConfig.toByteArray())), configClass)
+                    .getValue();
+        } catch (JAXBException e) {
+            final String errorMsg = "Failed to copy config for [" + configClass + "]";
+            LOG.error(errorMsg, e);
+            throw new IllegalStateException(errorMsg, e);
+        }
+    }
+
+    private static void deleteQuietly(Path tempFile) {
+        if (tempFile != null) {
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException e) {
+                LOG.warn("Failed to delete temp config file " + tempFile, e);
+            }
+        }
+    }
+
+    /*
+     * The snapshot for one config file. Writes and reloads of the file hold the lock on this object.
+     */
+    private static final class StoredConfig {
+
+        private final Class<?> configClass;
+        private final String xmlConfigFile;
+        private final String xmlSchemaFile;
+        private final AtomicReference<Object> snapshot;
+        private FileVersion lastWritten;
+
+        StoredConfig(Class<?> configClass, String xmlConfigFile, String xmlSchemaFile, Object config) {
+            this.configClass = configClass;
+            this.xmlConfigFile = xmlConfigFile;
+            this.xmlSchemaFile = xmlSchemaFile;
+            this.snapshot = new AtomicReference<>(config);
+            this.lastWritten = FileVersion.of(ConfigurationManager.cacheKey(xmlConfigFile));
+        }
+    }
+
+    /*
+     * A file's last modified time and size - enough to tell our own writes apart from edits made by hand.
+     */
+    private static final class FileVersion {
+
+        private final FileTime lastModifiedTime;
+        private final long size;
+
+        private FileVersion(FileTime lastModifiedTime, long size) {
+            this.lastModifiedTime = lastModifiedTime;
+            this.size = size;
+        }
+
+        static FileVersion of(Path file) {
+            try {
+                final BasicFileAttributes fileAttributes = Files.readAttributes(file, BasicFileAttributes.class);
+                return new FileVersion(fileAttributes.lastModifiedTime(), fileAttributes.size());
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final FileVersion that = (FileVersion) o;
+            return size == that.size && lastModifiedTime.equals(that.lastModifiedTime);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * lastModifiedTime.hashCode() + Long.hashCode(size);
+        }
+    }
+}
@@ -42,6 +42,90 @@ import java.math.BigDecimal;
  *             &lt;/restriction&gt;
  *           &lt;/simpleType&gt;
  *         &lt;/element&gt;
+ *         &lt;element name="strategy-execution-threads" minOccurs="0"&gt;
+ *           &lt;simpleType&gt;
+ *             &lt;restriction base="{http://www.w3.org/2001/XMLSchema}int"&gt;
+ *               &lt;minInclusive value="1"/&gt;
+ *             &lt;/restriction&gt;
+ *           &lt;/simpleType&gt;
+ *         &lt;/element&gt;
+ *         &lt;element name="strategy-execution-timeout" minOccurs="0"&gt;
+ *           &lt;simpleType&gt;
+ *             &lt;restriction base="{http://www.w3.org/2001/XMLSchema}int"&gt;
+ *               &lt;minInclusive value="1"/&gt;
+ *             &lt;/restriction&gt;
+ *           &lt;/simpleType&gt;
+ *         &lt;/element&gt;
+ *         &lt;element name="request-coalescing-window" minOccurs="0"&gt;
+ *           &lt;simpleType&gt;
+ *             &lt;restriction base="{http://www.w3.org/2001/XMLSchema}int"&gt;
+ *               &lt;minInclusive value="0"/&gt;
+ *             &lt;/restriction&gt;
+ *           &lt;/simpleType&gt;
+ *         &lt;/element&gt;
+ *         &lt;element name="exchange-fee-cache-ttl" minOccurs="0"&gt;
+ *           &lt;simpleType&gt;
+ *             &lt;restriction base="{http://www.w3.org/2001/XMLSchema}int"&gt;
+ *               &lt;minInclusive value="0"/&gt;
+ *             &lt;/restriction&gt;
+ *           &lt;/simpleType&gt;
+ *         &lt;/element&gt;
+ *         &lt;element name="market-orders-cache-ttl" minOccurs="0"&gt;
+ *           &lt;simpleType&gt;
+ *             &lt;restriction base="{http://www.w3.org/2001/XMLSchema}int"&gt;
+ *               &lt;minInclusive value="0"/&gt;
+ *             &lt;/restriction&gt;
+ *           &lt;/simpleType&gt;
+ *         &lt;/element&gt;
+ *         &lt;element name="top-of-book-cache-ttl" minOccurs="0"&gt;
+ *           &lt;simpleType&gt;
+ *             &lt;restriction base="{http://www.w3.org/2001/XMLSchema}int"&gt;
+ *               &lt;minInclusive value="0"/&gt;
+ *             &lt;/restriction&gt;
+ *           &lt;/simpleType&gt;
+ *         &lt;/element&gt;
+ *         &lt;element name="latest-price-cache-ttl" minOccurs="0"&gt;
+ *           &lt;simpleType&gt;
+ *             &lt;restriction base="{http://www.w3.org/2001/XMLSchema}int"&gt;
+ *               &lt;minInclusive value="0"/&gt;
+ *             &lt;/restriction&gt;
+ *           &lt;/simpleType&gt;
+ *         &lt;/element&gt;
+ *         &lt;element name="balance-info-cache-ttl" minOccurs="0"&gt;
+ *           &lt;simpleType&gt;
+ *             &lt;restriction base="{http://www.w3.org/2001/XMLSchema}int"&gt;
+ *               &lt;minInclusive value="0"/&gt;
+ *             &lt;/restriction&gt;
+ *           &lt;/simpleType&gt;
+ *         &lt;/element&gt;
+ *         &lt;element name="buy-fee-cache-ttl" minOccurs="0"&gt;
+ *           &lt;simpleType&gt;
+ *             &lt;restriction base="{http://www.w3.org/2001/XMLSchema}int"&gt;
+ *               &lt;minInclusive value="0"/&gt;
+ *             &lt;/restriction&gt;
+ *           &lt;/simpleType&gt;
+ *         &lt;/element&gt;
+ *         &lt;element name="sell-fee-cache-ttl" minOccurs="0"&gt;
+ *           &lt;simpleType&gt;
+ *             &lt;restriction base="{http://www.w3.org/2001/XMLSchema}int"&gt;
+ *               &lt;minInclusive value="0"/&gt;
+ *             &lt;/restriction&gt;
+ *           &lt;/simpleType&gt;
+ *         &lt;/element&gt;
+ *         &lt;element name="market-event-poll-interval" minOccurs="0"&gt;
+ *           &lt;simpleType&gt;
+ *             &lt;restriction base="{http://www.w3.org/2001/XMLSchema}int"&gt;
+ *               &lt;minInclusive value="1"/&gt;
+ *             &lt;/restriction&gt;
+ *           &lt;/simpleType&gt;
+ *         &lt;/element&gt;
+ *         &lt;element name="balance-reconciliation-interval" minOccurs="0"&gt;
+ *           &lt;simpleType&gt;
+ *             &lt;restriction base="{http://www.w3.org/2001/XMLSchema}int"&gt;
+ *               &lt;minInclusive value="1"/&gt;
+ *             &lt;/restriction&gt;
+ *           &lt;/simpleType&gt;
+ *         &lt;/element&gt;
  *       &lt;/sequence&gt;
  *     &lt;/restriction&gt;
  *   &lt;/complexContent&gt;
@@ -54,7 +138,19 @@ import java.math.BigDecimal;
 @XmlType(name = "engineType", propOrder = {
     "emergencyStopCurrency",
     "emergencyStopBalance",
-    "tradeCycleInterval"
+    "tradeCycleInterval",
+    "strategyExecutionThreads",
+    "strategyExecutionTimeout",
+    "requestCoalescingWindow",
+    "exchangeFeeCacheTtl",
+    "marketOrdersCacheTtl",
+    "topOfBookCacheTtl",
+    "latestPriceCacheTtl",
+    "balanceInfoCacheTtl",
+    "buyFeeCacheTtl",
+    "sellFeeCacheTtl",
+    "marketEventPollInterval",
+    "balanceReconciliationInterval"
 })
 @XmlRootElement(name="engine")
 public class EngineType {
@@ -65,6 +161,30 @@ public class EngineType {
     protected BigDecimal emergencyStopBalance;
     @XmlElement(name = "trade-cycle-interval")
     protected int tradeCycleInterval;
+    @XmlElement(name = "strategy-execution-threads")
+    protected Integer strategyExecutionThreads;
+    @XmlElement(name = "strategy-execution-timeout")
+    protected Integer strategyExecutionTimeout;
+    @XmlElement(name = "request-coalescing-window")
+    protected Integer requestCoalescingWindow;
+    @XmlElement(name = "exchange-fee-cache-ttl")
+    protected Integer exchangeFeeCacheTtl;
+    @XmlElement(name = "market-orders-cache-ttl")
+    protected Integer marketOrdersCacheTtl;
+    @XmlElement(name = "top-of-book-cache-ttl")
+    protected Integer topOfBookCacheTtl;
+    @XmlElement(name = "latest-price-cache-ttl")
+    protected Integer latestPriceCacheTtl;
+    @XmlElement(name = "balance-info-cache-ttl")
+    protected Integer balanceInfoCacheTtl;
+    @XmlElement(name = "buy-fee-cache-ttl")
+    protected Integer buyFeeCacheTtl;
+    @XmlElement(name = "sell-fee-cache-ttl")
+    protected Integer sellFeeCacheTtl;
+    @XmlElement(name = "market-event-poll-interval")
+    protected Integer marketEventPollInterval;
+    @XmlElement(name = "balance-reconciliation-interval")
+    protected Integer balanceReconciliationInterval;
 
     /**
      * Gets the value of the emergencyStopCurrency property.
@@ -130,4 +250,292 @@ public class EngineType {
         this.tradeCycleInterval = value;
     }
 
+    /**
+     * Gets the value of the strategyExecutionThreads property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getStrategyExecutionThreads() {
+        return strategyExecutionThreads;
+    }
+
+    /**
+     * Sets the value of the strategyExecutionThreads property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setStrategyExecutionThreads(Integer value) {
+        this.strategyExecutionThreads = value;
+    }
+
+    /**
+     * Gets the value of the strategyExecutionTimeout property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getStrategyExecutionTimeout() {
+        return strategyExecutionTimeout;
+    }
+
+    /**
+     * Sets the value of the strategyExecutionTimeout property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setStrategyExecutionTimeout(Integer value) {
+        this.strategyExecutionTimeout = value;
+    }
+
+    /**
+     * Gets the value of the requestCoalescingWindow property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getRequestCoalescingWindow() {
+        return requestCoalescingWindow;
+    }
+
+    /**
+     * Sets the value of the requestCoalescingWindow property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setRequestCoalescingWindow(Integer value) {
+        this.requestCoalescingWindow = value;
+    }
+
+    /**
+     * Gets the value of the exchangeFeeCacheTtl property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getExchangeFeeCacheTtl() {
+        return exchangeFeeCacheTtl;
+    }
+
+    /**
+     * Sets the value of the exchangeFeeCacheTtl property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setExchangeFeeCacheTtl(Integer value) {
+        this.exchangeFeeCacheTtl = value;
+    }
+
+    /**
+     * Gets the value of the marketOrdersCacheTtl property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getMarketOrdersCacheTtl() {
+        return marketOrdersCacheTtl;
+    }
+
+    /**
+     * Sets the value of the marketOrdersCacheTtl property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setMarketOrdersCacheTtl(Integer value) {
+        this.marketOrdersCacheTtl = value;
+    }
+
+    /**
+     * Gets the value of the topOfBookCacheTtl property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getTopOfBookCacheTtl() {
+        return topOfBookCacheTtl;
+    }
+
+    /**
+     * Sets the value of the topOfBookCacheTtl property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setTopOfBookCacheTtl(Integer value) {
+        this.topOfBookCacheTtl = value;
+    }
+
+    /**
+     * Gets the value of the latestPriceCacheTtl property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getLatestPriceCacheTtl() {
+        return latestPriceCacheTtl;
+    }
+
+    /**
+     * Sets the value of the latestPriceCacheTtl property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setLatestPriceCacheTtl(Integer value) {
+        this.latestPriceCacheTtl = value;
+    }
+
+    /**
+     * Gets the value of the balanceInfoCacheTtl property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getBalanceInfoCacheTtl() {
+        return balanceInfoCacheTtl;
+    }
+
+    /**
+     * Sets the value of the balanceInfoCacheTtl property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setBalanceInfoCacheTtl(Integer value) {
+        this.balanceInfoCacheTtl = value;
+    }
+
+    /**
+     * Gets the value of the buyFeeCacheTtl property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getBuyFeeCacheTtl() {
+        return buyFeeCacheTtl;
+    }
+
+    /**
+     * Sets the value of the buyFeeCacheTtl property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setBuyFeeCacheTtl(Integer value) {
+        this.buyFeeCacheTtl = value;
+    }
+
+    /**
+     * Gets the value of the sellFeeCacheTtl property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getSellFeeCacheTtl() {
+        return sellFeeCacheTtl;
+    }
+
+    /**
+     * Sets the value of the sellFeeCacheTtl property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setSellFeeCacheTtl(Integer value) {
+        this.sellFeeCacheTtl = value;
+    }
+
+    /**
+     * Gets the value of the marketEventPollInterval property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getMarketEventPollInterval() {
+        return marketEventPollInterval;
+    }
+
+    /**
+     * Sets the value of the marketEventPollInterval property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setMarketEventPollInterval(Integer value) {
+        this.marketEventPollInterval = value;
+    }
+
+    /**
+     * Gets the value of the balanceReconciliationInterval property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getBalanceReconciliationInterval() {
+        return balanceReconciliationInterval;
+    }
+
+    /**
+     * Sets the value of the balanceReconciliationInterval property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setBalanceReconciliationInterval(Integer value) {
+        this.balanceReconciliationInterval = value;
+    }
+
 }
@@ -9,6 +9,7 @@
 package com.gazbert.bxbot.datastore.exchange.generated;
 
 import javax.xml.bind.annotation.*;
+import java.math.BigDecimal;
 
 
 /**
@@ -21,6 +22,13 @@ import javax.xml.bind.annotation.*;
  *   &lt;complexContent>
  *     &lt;restriction base="{http://www.w3.org/2001/XMLSchema}anyType">
  *       &lt;sequence>
+ *         &lt;element name="id">
+ *           &lt;simpleType>
+ *             &lt;restriction base="{http://www.w3.org/2001/XMLSchema}string">
+ *               &lt;minLength value="1"/>
+ *             &lt;/restriction>
+ *           &lt;/simpleType>
+ *         &lt;/element>
  *         &lt;element name="name">
  *           &lt;simpleType>
  *             &lt;restriction base="{http://www.w3.org/2001/XMLSchema}string">
@@ -38,6 +46,19 @@ import javax.xml.bind.annotation.*;
  *         &lt;element name="authentication-config" type="{}authentication-configType" minOccurs="0"/>
  *         &lt;element name="network-config" type="{}network-configType" minOccurs="0"/>
  *         &lt;element name="other-config" type="{}other-configType" minOccurs="0"/>
+ *         &lt;element name="emergency-stop-currency" minOccurs="0">
+ *           &lt;simpleType>
+ *             &lt;restriction base="{http://www.w3.org/2001/XMLSchema}string">
+ *               &lt;minLength value="1"/>
+ *             &lt;/restriction>
+ *           &lt;/simpleType>
+ *         &lt;/element>
+ *         &lt;element name="emergency-stop-balance" minOccurs="0">
+ *           &lt;simpleType>
+ *             &lt;restriction base="{http://www.w3.org/2001/XMLSchema}decimal">
+ *             &lt;/restriction>
+ *           &lt;/simpleType>
+ *         &lt;/element>
  *       &lt;/sequence>
  *     &lt;/restriction>
  *   &lt;/complexContent>
@@ -48,15 +69,19 @@ import javax.xml.bind.annotation.*;
  */
 @XmlAccessorType(XmlAccessType.FIELD)
 @XmlType(name = "exchangeType", propOrder = {
+    "id",
     "name",
     "adapter",
     "authenticationConfig",
     "networkConfig",
-    "otherConfig"
+    "otherConfig",
+    "emergencyStopCurrency",
+    "emergencyStopBalance"
 })
-@XmlRootElement(name="exchange")
 public class ExchangeType {
 
+    @XmlElement(required = true)
+    protected String id;
     @XmlElement(required = true)
     protected String name;
     @XmlElement(required = true)
@@ -67,6 +92,34 @@ public class ExchangeType {
     protected NetworkConfigType networkConfig;
     @XmlElement(name = "other-config")
     protected OtherConfigType otherConfig;
+    @XmlElement(name = "emergency-stop-currency")
+    protected String emergencyStopCurrency;
+    @XmlElement(name = "emergency-stop-balance")
+    protected BigDecimal emergencyStopBalance;
+
+    /**
+     * Gets the value of the id property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link String }
+     *     
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Sets the value of the id property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link String }
+     *     
+     */
+    public void setId(String value) {
+        this.id = value;
+    }
 
     /**
      * Gets the value of the name property.
@@ -188,4 +241,52 @@ public class ExchangeType {
         this.otherConfig = value;
     }
 
+    /**
+     * Gets the value of the emergencyStopCurrency property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link String }
+     *     
+     */
+    public String getEmergencyStopCurrency() {
+        return emergencyStopCurrency;
+    }
+
+    /**
+     * Sets the value of the emergencyStopCurrency property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link String }
+     *     
+     */
+    public void setEmergencyStopCurrency(String value) {
+        this.emergencyStopCurrency = value;
+    }
+
+    /**
+     * Gets the value of the emergencyStopBalance property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link BigDecimal }
+     *     
+     */
+    public BigDecimal getEmergencyStopBalance() {
+        return emergencyStopBalance;
+    }
+
+    /**
+     * Sets the value of the emergencyStopBalance property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link BigDecimal }
+     *     
+     */
+    public void setEmergencyStopBalance(BigDecimal value) {
+        this.emergencyStopBalance = value;
+    }
+
 }
@@ -32,6 +32,34 @@ import javax.xml.bind.annotation.XmlType;
  *         &lt;/element>
  *         &lt;element name="non-fatal-error-codes" type="{}non-fatal-error-codesType" minOccurs="0"/>
  *         &lt;element name="non-fatal-error-messages" type="{}non-fatal-error-messagesType" minOccurs="0"/>
+ *         &lt;element name="max-connections-per-host" minOccurs="0">
+ *           &lt;simpleType>
+ *             &lt;restriction base="{http://www.w3.org/2001/XMLSchema}int">
+ *               &lt;minInclusive value="1"/>
+ *             &lt;/restriction>
+ *           &lt;/simpleType>
+ *         &lt;/element>
+ *         &lt;element name="idle-connection-timeout" minOccurs="0">
+ *           &lt;simpleType>
+ *             &lt;restriction base="{http://www.w3.org/2001/XMLSchema}int">
+ *               &lt;minInclusive value="1"/>
+ *             &lt;/restriction>
+ *           &lt;/simpleType>
+ *         &lt;/element>
+ *         &lt;element name="rate-limit-interval" minOccurs="0">
+ *           &lt;simpleType>
+ *             &lt;restriction base="{http://www.w3.org/2001/XMLSchema}int">
+ *               &lt;minInclusive value="1"/>
+ *             &lt;/restriction>
+ *           &lt;/simpleType>
+ *         &lt;/element>
+ *         &lt;element name="rate-limit-burst" minOccurs="0">
+ *           &lt;simpleType>
+ *             &lt;restriction base="{http://www.w3.org/2001/XMLSchema}int">
+ *               &lt;minInclusive value="1"/>
+ *             &lt;/restriction>
+ *           &lt;/simpleType>
+ *         &lt;/element>
  *       &lt;/sequence>
  *     &lt;/restriction>
  *   &lt;/complexContent>
@@ -44,7 +72,11 @@ import javax.xml.bind.annotation.XmlType;
 @XmlType(name = "network-configType", propOrder = {
     "connectionTimeout",
     "nonFatalErrorCodes",
-    "nonFatalErrorMessages"
+    "nonFatalErrorMessages",
+    "maxConnectionsPerHost",
+    "idleConnectionTimeout",
+    "rateLimitInterval",
+    "rateLimitBurst"
 })
 public class NetworkConfigType {
 
@@ -54,6 +86,14 @@ public class NetworkConfigType {
     protected NonFatalErrorCodesType nonFatalErrorCodes;
     @XmlElement(name = "non-fatal-error-messages")
     protected NonFatalErrorMessagesType nonFatalErrorMessages;
+    @XmlElement(name = "max-connections-per-host")
+    protected Integer maxConnectionsPerHost;
+    @XmlElement(name = "idle-connection-timeout")
+    protected Integer idleConnectionTimeout;
+    @XmlElement(name = "rate-limit-interval")
+    protected Integer rateLimitInterval;
+    @XmlElement(name = "rate-limit-burst")
+    protected Integer rateLimitBurst;
 
     /**
      * Gets the value of the connectionTimeout property.
@@ -127,4 +167,100 @@ public class NetworkConfigType {
         this.nonFatalErrorMessages = value;
     }
 
+    /**
+     * Gets the value of the maxConnectionsPerHost property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    /**
+     * Sets the value of the maxConnectionsPerHost property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setMaxConnectionsPerHost(Integer value) {
+        this.maxConnectionsPerHost = value;
+    }
+
+    /**
+     * Gets the value of the idleConnectionTimeout property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getIdleConnectionTimeout() {
+        return idleConnectionTimeout;
+    }
+
+    /**
+     * Sets the value of the idleConnectionTimeout property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setIdleConnectionTimeout(Integer value) {
+        this.idleConnectionTimeout = value;
+    }
+
+    /**
+     * Gets the value of the rateLimitInterval property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getRateLimitInterval() {
+        return rateLimitInterval;
+    }
+
+    /**
+     * Sets the value of the rateLimitInterval property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setRateLimitInterval(Integer value) {
+        this.rateLimitInterval = value;
+    }
+
+    /**
+     * Gets the value of the rateLimitBurst property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getRateLimitBurst() {
+        return rateLimitBurst;
+    }
+
+    /**
+     * Sets the value of the rateLimitBurst property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setRateLimitBurst(Integer value) {
+        this.rateLimitBurst = value;
+    }
+
 }
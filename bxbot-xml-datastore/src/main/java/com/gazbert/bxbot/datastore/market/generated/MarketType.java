@@ -60,6 +60,20 @@ import javax.xml.bind.annotation.XmlType;
  *             &lt;/restriction>
  *           &lt;/simpleType>
  *         &lt;/element>
+ *         &lt;element name="trade-cycle-interval" minOccurs="0">
+ *           &lt;simpleType>
+ *             &lt;restriction base="{http://www.w3.org/2001/XMLSchema}int">
+ *               &lt;minInclusive value="1"/>
+ *             &lt;/restriction>
+ *           &lt;/simpleType>
+ *         &lt;/element>
+ *         &lt;element name="exchange" minOccurs="0">
+ *           &lt;simpleType>
+ *             &lt;restriction base="{http://www.w3.org/2001/XMLSchema}string">
+ *               &lt;minLength value="1"/>
+ *             &lt;/restriction>
+ *           &lt;/simpleType>
+ *         &lt;/element>
  *       &lt;/sequence>
  *     &lt;/restriction>
  *   &lt;/complexContent>
@@ -75,7 +89,9 @@ import javax.xml.bind.annotation.XmlType;
     "baseCurrency",
     "counterCurrency",
     "enabled",
-    "tradingStrategy"
+    "tradingStrategy",
+    "tradeCycleInterval",
+    "exchange"
 })
 public class MarketType {
 
@@ -90,6 +106,9 @@ public class MarketType {
     protected boolean enabled;
     @XmlElement(name = "trading-strategy", required = true)
     protected String tradingStrategy;
+    @XmlElement(name = "trade-cycle-interval")
+    protected Integer tradeCycleInterval;
+    protected String exchange;
 
     /**
      * Gets the value of the label property.
@@ -227,4 +246,52 @@ public class MarketType {
         this.tradingStrategy = value;
     }
 
+    /**
+     * Gets the value of the tradeCycleInterval property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getTradeCycleInterval() {
+        return tradeCycleInterval;
+    }
+
+    /**
+     * Sets the value of the tradeCycleInterval property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setTradeCycleInterval(Integer value) {
+        this.tradeCycleInterval = value;
+    }
+
+    /**
+     * Gets the value of the exchange property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link String }
+     *     
+     */
+    public String getExchange() {
+        return exchange;
+    }
+
+    /**
+     * Sets the value of the exchange property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link String }
+     *     
+     */
+    public void setExchange(String value) {
+        this.exchange = value;
+    }
+
 }
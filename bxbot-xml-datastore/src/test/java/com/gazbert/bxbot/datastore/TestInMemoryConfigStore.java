@@ -0,0 +1,176 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Gareth Jon Lynch
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.datastore;
+
+import com.gazbert.bxbot.datastore.market.generated.MarketsType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the in-memory config store serves one snapshot per file, saves copy-on-write and reloads files edited by hand.
+ *
+ * @author gazbert
+ */
+public class TestInMemoryConfigStore {
+
+    /* Production XSD */
+    private static final String XML_SCHEMA_FILENAME = "com/gazbert/bxbot/core/config/market/markets.xsd";
+
+    /* Test XML config */
+    private static final String VALID_XML_CONFIG_FILENAME = "src/test/config/markets/valid-markets.xml";
+
+    private static final long RELOAD_TIMEOUT_MILLIS = 10000;
+
+    private Path configDirectory;
+    private String configFile;
+
+
+    @Before
+    public void setupForEachTest() throws Exception {
+        configDirectory = Files.createTempDirectory("bxbot-config");
+        final Path configPath = configDirectory.resolve("markets.xml");
+        Files.copy(Paths.get(VALID_XML_CONFIG_FILENAME), configPath);
+        configFile = configPath.toString();
+
+        ConfigurationManager.enableInMemoryConfigStore();
+    }
+
+    @After
+    public void tearDownAfterEachTest() throws Exception {
+        ConfigurationManager.disableInMemoryConfigStore();
+        try (Stream<Path> files = Files.walk(configDirectory)) {
+            for (final Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    public void testReadersShareSnapshotAndWritersGetCopy() throws Exception {
+
+        final MarketsType marketsType = ConfigurationManager.loadConfig(MarketsType.class, configFile,
+                XML_SCHEMA_FILENAME);
+        assertSame(marketsType, ConfigurationManager.loadConfig(MarketsType.class, configFile, XML_SCHEMA_FILENAME));
+
+        final MarketsType marketsTypeToUpdate = ConfigurationManager.loadConfigForUpdate(MarketsType.class,
+                configFile, XML_SCHEMA_FILENAME);
+        assertNotSame(marketsType, marketsTypeToUpdate);
+        marketsTypeToUpdate.getMarkets().remove(0);
+        assertEquals(2, marketsType.getMarkets().size());
+
+        ConfigurationManager.saveConfig(MarketsType.class, marketsTypeToUpdate, configFile);
+        final MarketsType savedMarketsType = ConfigurationManager.loadConfig(MarketsType.class, configFile,
+                XML_SCHEMA_FILENAME);
+        assertNotSame(marketsTypeToUpdate, savedMarketsType);
+        assertEquals(1, savedMarketsType.getMarkets().size());
+
+        // Changing the saved object afterwards does not change what the readers see
+        marketsTypeToUpdate.getMarkets().clear();
+        assertEquals(1, ConfigurationManager.loadConfig(MarketsType.class, configFile, XML_SCHEMA_FILENAME)
+                .getMarkets().size());
+
+        // Saved atomically - no temp file left behind, and the file holds the new config
+        try (Stream<Path> files = Files.list(configDirectory)) {
+            assertEquals(1, files.count());
+        }
+        ConfigurationManager.disableInMemoryConfigStore();
+        assertEquals(1, ConfigurationManager.loadConfig(MarketsType.class, configFile, XML_SCHEMA_FILENAME)
+                .getMarkets().size());
+    }
+
+    @Test
+    public void testFileEditedByHandIsReloaded() throws Exception {
+
+        final CountDownLatch reloaded = new CountDownLatch(1);
+        final ConfigReloadListener reloadListener = xmlConfigFile -> {
+            if (configFile.equals(xmlConfigFile)) {
+                reloaded.countDown();
+            }
+        };
+        ConfigurationManager.addConfigReloadListener(reloadListener);
+        try {
+            assertFileEditedByHandIsReloaded();
+            assertTrue(reloaded.await(RELOAD_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        } finally {
+            ConfigurationManager.removeConfigReloadListener(reloadListener);
+        }
+    }
+
+    @Test
+    public void testOwnSaveDoesNotTellReloadListeners() throws Exception {
+
+        final CountDownLatch reloaded = new CountDownLatch(1);
+        final ConfigReloadListener reloadListener = xmlConfigFile -> reloaded.countDown();
+        ConfigurationManager.addConfigReloadListener(reloadListener);
+        try {
+            final MarketsType marketsType = ConfigurationManager.loadConfigForUpdate(MarketsType.class, configFile,
+                    XML_SCHEMA_FILENAME);
+            marketsType.getMarkets().remove(0);
+            ConfigurationManager.saveConfig(MarketsType.class, marketsType, configFile);
+            assertFalse(reloaded.await(500, TimeUnit.MILLISECONDS));
+        } finally {
+            ConfigurationManager.removeConfigReloadListener(reloadListener);
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    //  Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private void assertFileEditedByHandIsReloaded() throws Exception {
+
+        assertEquals("BTC/USD", ConfigurationManager.loadConfig(MarketsType.class, configFile, XML_SCHEMA_FILENAME)
+                .getMarkets().get(0).getLabel());
+
+        // A broken edit is ignored, then the fixed one is picked up
+        final String config = new String(Files.readAllBytes(Paths.get(configFile)), StandardCharsets.UTF_16);
+        Files.write(Paths.get(configFile), config.substring(0, config.length() / 2).getBytes(StandardCharsets.UTF_16));
+        Files.write(Paths.get(configFile), config.replace("BTC/USD", "XBT/USD").getBytes(StandardCharsets.UTF_16));
+
+        final long deadline = System.currentTimeMillis() + RELOAD_TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            final MarketsType marketsType = ConfigurationManager.loadConfig(MarketsType.class, configFile,
+                    XML_SCHEMA_FILENAME);
+            assertEquals(2, marketsType.getMarkets().size());
+            if ("XBT/USD".equals(marketsType.getMarkets().get(0).getLabel())) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        fail("Edited config was not reloaded within " + RELOAD_TIMEOUT_MILLIS + "ms");
+    }
+}
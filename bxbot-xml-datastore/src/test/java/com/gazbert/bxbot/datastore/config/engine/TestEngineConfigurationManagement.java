@@ -51,6 +51,18 @@ public class TestEngineConfigurationManagement {
     private static final String EMERGENCY_STOP_CURRENCY = "BTC";
     private static final BigDecimal EMERGENCY_STOP_BALANCE = new BigDecimal("0.5");
     private static final int TRADE_CYCLE_INTERVAL = 60;
+    private static final Integer STRATEGY_EXECUTION_THREADS = 4;
+    private static final Integer STRATEGY_EXECUTION_TIMEOUT = 45;
+    private static final Integer REQUEST_COALESCING_WINDOW = 500;
+    private static final Integer EXCHANGE_FEE_CACHE_TTL = 3600;
+    private static final Integer MARKET_ORDERS_CACHE_TTL = 250;
+    private static final Integer TOP_OF_BOOK_CACHE_TTL = 100;
+    private static final Integer LATEST_PRICE_CACHE_TTL = 1000;
+    private static final Integer BALANCE_INFO_CACHE_TTL = 2000;
+    private static final Integer BUY_FEE_CACHE_TTL = 60000;
+    private static final Integer SELL_FEE_CACHE_TTL = 120000;
+    private static final Integer MARKET_EVENT_POLL_INTERVAL = 250;
+    private static final Integer BALANCE_RECONCILIATION_INTERVAL = 300;
 
 
     @Test
@@ -62,6 +74,18 @@ public class TestEngineConfigurationManagement {
         assertEquals(EMERGENCY_STOP_CURRENCY, engine.getEmergencyStopCurrency());
         assertTrue(EMERGENCY_STOP_BALANCE.compareTo(engine.getEmergencyStopBalance()) == 0);
         assertTrue(TRADE_CYCLE_INTERVAL == engine.getTradeCycleInterval());
+        assertTrue(STRATEGY_EXECUTION_THREADS.equals(engine.getStrategyExecutionThreads()));
+        assertTrue(STRATEGY_EXECUTION_TIMEOUT.equals(engine.getStrategyExecutionTimeout()));
+        assertTrue(REQUEST_COALESCING_WINDOW.equals(engine.getRequestCoalescingWindow()));
+        assertTrue(EXCHANGE_FEE_CACHE_TTL.equals(engine.getExchangeFeeCacheTtl()));
+        assertTrue(MARKET_ORDERS_CACHE_TTL.equals(engine.getMarketOrdersCacheTtl()));
+        assertTrue(TOP_OF_BOOK_CACHE_TTL.equals(engine.getTopOfBookCacheTtl()));
+        assertTrue(LATEST_PRICE_CACHE_TTL.equals(engine.getLatestPriceCacheTtl()));
+        assertTrue(BALANCE_INFO_CACHE_TTL.equals(engine.getBalanceInfoCacheTtl()));
+        assertTrue(BUY_FEE_CACHE_TTL.equals(engine.getBuyFeeCacheTtl()));
+        assertTrue(SELL_FEE_CACHE_TTL.equals(engine.getSellFeeCacheTtl()));
+        assertTrue(MARKET_EVENT_POLL_INTERVAL.equals(engine.getMarketEventPollInterval()));
+        assertTrue(BALANCE_RECONCILIATION_INTERVAL.equals(engine.getBalanceReconciliationInterval()));
     }
 
     private void assertEquals(String emergencyStopCurrency, String emergencyStopCurrency1) {
@@ -79,6 +103,18 @@ public class TestEngineConfigurationManagement {
         engineConfig.setEmergencyStopCurrency(EMERGENCY_STOP_CURRENCY);
         engineConfig.setEmergencyStopBalance(EMERGENCY_STOP_BALANCE);
         engineConfig.setTradeCycleInterval(TRADE_CYCLE_INTERVAL);
+        engineConfig.setStrategyExecutionThreads(STRATEGY_EXECUTION_THREADS);
+        engineConfig.setStrategyExecutionTimeout(STRATEGY_EXECUTION_TIMEOUT);
+        engineConfig.setRequestCoalescingWindow(REQUEST_COALESCING_WINDOW);
+        engineConfig.setExchangeFeeCacheTtl(EXCHANGE_FEE_CACHE_TTL);
+        engineConfig.setMarketOrdersCacheTtl(MARKET_ORDERS_CACHE_TTL);
+        engineConfig.setTopOfBookCacheTtl(TOP_OF_BOOK_CACHE_TTL);
+        engineConfig.setLatestPriceCacheTtl(LATEST_PRICE_CACHE_TTL);
+        engineConfig.setBalanceInfoCacheTtl(BALANCE_INFO_CACHE_TTL);
+        engineConfig.setBuyFeeCacheTtl(BUY_FEE_CACHE_TTL);
+        engineConfig.setSellFeeCacheTtl(SELL_FEE_CACHE_TTL);
+        engineConfig.setMarketEventPollInterval(MARKET_EVENT_POLL_INTERVAL);
+        engineConfig.setBalanceReconciliationInterval(BALANCE_RECONCILIATION_INTERVAL);
 
         ConfigurationManager.saveConfig(EngineType.class, engineConfig, XML_CONFIG_TO_SAVE_FILENAME);
 
@@ -89,6 +125,18 @@ public class TestEngineConfigurationManagement {
         assertEquals(EMERGENCY_STOP_CURRENCY, engineReloaded.getEmergencyStopCurrency());
         assertTrue(EMERGENCY_STOP_BALANCE.compareTo(engineReloaded.getEmergencyStopBalance()) == 0);
         assertTrue(TRADE_CYCLE_INTERVAL == engineReloaded.getTradeCycleInterval());
+        assertTrue(STRATEGY_EXECUTION_THREADS.equals(engineReloaded.getStrategyExecutionThreads()));
+        assertTrue(STRATEGY_EXECUTION_TIMEOUT.equals(engineReloaded.getStrategyExecutionTimeout()));
+        assertTrue(REQUEST_COALESCING_WINDOW.equals(engineReloaded.getRequestCoalescingWindow()));
+        assertTrue(EXCHANGE_FEE_CACHE_TTL.equals(engineReloaded.getExchangeFeeCacheTtl()));
+        assertTrue(MARKET_ORDERS_CACHE_TTL.equals(engineReloaded.getMarketOrdersCacheTtl()));
+        assertTrue(TOP_OF_BOOK_CACHE_TTL.equals(engineReloaded.getTopOfBookCacheTtl()));
+        assertTrue(LATEST_PRICE_CACHE_TTL.equals(engineReloaded.getLatestPriceCacheTtl()));
+        assertTrue(BALANCE_INFO_CACHE_TTL.equals(engineReloaded.getBalanceInfoCacheTtl()));
+        assertTrue(BUY_FEE_CACHE_TTL.equals(engineReloaded.getBuyFeeCacheTtl()));
+        assertTrue(SELL_FEE_CACHE_TTL.equals(engineReloaded.getSellFeeCacheTtl()));
+        assertTrue(MARKET_EVENT_POLL_INTERVAL.equals(engineReloaded.getMarketEventPollInterval()));
+        assertTrue(BALANCE_RECONCILIATION_INTERVAL.equals(engineReloaded.getBalanceReconciliationInterval()));
 
         // cleanup
         Files.delete(FileSystems.getDefault().getPath(XML_CONFIG_TO_SAVE_FILENAME));
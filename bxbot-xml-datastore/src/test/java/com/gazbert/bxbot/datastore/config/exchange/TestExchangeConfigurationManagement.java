@@ -29,6 +29,7 @@ import org.junit.Test;
 
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
+import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.List;
 
@@ -50,6 +51,7 @@ public class TestExchangeConfigurationManagement {
     private static final String MISSING_XML_CONFIG_FILENAME = "src/test/config/exchange-/missing-exchange.xml";
     private static final String XML_CONFIG_TO_SAVE_FILENAME = "src/test/config/exchange/saved-exchange.xml";
 
+    private static final String EXCHANGE_ID = "btce";
     private static final String EXCHANGE_NAME = "BTC-e";
     private static final String EXCHANGE_ADAPTER = "com.gazbert.bxbot.exchanges.BtceExchangeAdapter";
 
@@ -65,19 +67,36 @@ public class TestExchangeConfigurationManagement {
             "Connection reset",
             "Remote host closed connection during handshake",
             "Unexpected end of file from server");
+    private static final Integer MAX_CONNECTIONS_PER_HOST = 2;
+    private static final Integer IDLE_CONNECTION_TIMEOUT = 60;
+    private static final Integer RATE_LIMIT_INTERVAL = 1000;
+    private static final Integer RATE_LIMIT_BURST = 5;
 
     private static final String BUY_FEE_CONFIG_ITEM_KEY = "buy-fee";
     private static final String BUY_FEE_CONFIG_ITEM_VALUE = "0.5";
     private static final String SELL_FEE_CONFIG_ITEM_KEY = "sell-fee";
     private static final String SELL_FEE_CONFIG_ITEM_VALUE = "0.5";
 
+    private static final String EXCHANGE_2_ID = "bitstamp";
+    private static final String EXCHANGE_2_NAME = "Bitstamp";
+    private static final String EXCHANGE_2_ADAPTER = "com.gazbert.bxbot.exchanges.BitstampExchangeAdapter";
+    private static final String EXCHANGE_2_EMERGENCY_STOP_CURRENCY = "USD";
+    private static final BigDecimal EXCHANGE_2_EMERGENCY_STOP_BALANCE = new BigDecimal("500.5");
+
 
     @Test
     public void testLoadingValidXmlConfigFileIsSuccessful() {
 
-        final ExchangeType exchangeType = ConfigurationManager.loadConfig(ExchangeType.class,
+        final ExchangesType exchangesType = ConfigurationManager.loadConfig(ExchangesType.class,
                 VALID_XML_CONFIG_FILENAME, XML_SCHEMA_FILENAME);
 
+        assertThat(exchangesType.getExchanges().size()).isEqualTo(2);
+
+        /*
+         * Exchange 1
+         */
+        final ExchangeType exchangeType = exchangesType.getExchanges().get(0);
+        assertThat(exchangeType.getId()).isEqualTo(EXCHANGE_ID);
         assertThat(exchangeType.getName()).isEqualTo(EXCHANGE_NAME);
         assertThat(exchangeType.getAdapter()).isEqualTo(EXCHANGE_ADAPTER);
 
@@ -89,16 +108,36 @@ public class TestExchangeConfigurationManagement {
         assertThat(exchangeType.getNetworkConfig().getConnectionTimeout()).isEqualTo(CONNECTION_TIMEOUT);
         assertTrue(exchangeType.getNetworkConfig().getNonFatalErrorCodes().getCodes().containsAll(NON_FATAL_ERROR_CODES));
         assertTrue(exchangeType.getNetworkConfig().getNonFatalErrorMessages().getMessages().containsAll(NON_FATAL_ERROR_MESSAGES));
+        assertThat(exchangeType.getNetworkConfig().getMaxConnectionsPerHost()).isEqualTo(MAX_CONNECTIONS_PER_HOST);
+        assertThat(exchangeType.getNetworkConfig().getIdleConnectionTimeout()).isEqualTo(IDLE_CONNECTION_TIMEOUT);
+        assertThat(exchangeType.getNetworkConfig().getRateLimitInterval()).isEqualTo(RATE_LIMIT_INTERVAL);
+        assertThat(exchangeType.getNetworkConfig().getRateLimitBurst()).isEqualTo(RATE_LIMIT_BURST);
 
         assertThat(exchangeType.getOtherConfig().getConfigItems().get(0).getName()).isEqualTo(BUY_FEE_CONFIG_ITEM_KEY);
         assertThat(exchangeType.getOtherConfig().getConfigItems().get(0).getValue()).isEqualTo(BUY_FEE_CONFIG_ITEM_VALUE);
         assertThat(exchangeType.getOtherConfig().getConfigItems().get(1).getName()).isEqualTo(SELL_FEE_CONFIG_ITEM_KEY);
         assertThat(exchangeType.getOtherConfig().getConfigItems().get(1).getValue()).isEqualTo(SELL_FEE_CONFIG_ITEM_VALUE);
+
+        assertThat(exchangeType.getEmergencyStopCurrency()).isNull();
+        assertThat(exchangeType.getEmergencyStopBalance()).isNull();
+
+        /*
+         * Exchange 2
+         */
+        final ExchangeType exchangeType2 = exchangesType.getExchanges().get(1);
+        assertThat(exchangeType2.getId()).isEqualTo(EXCHANGE_2_ID);
+        assertThat(exchangeType2.getName()).isEqualTo(EXCHANGE_2_NAME);
+        assertThat(exchangeType2.getAdapter()).isEqualTo(EXCHANGE_2_ADAPTER);
+        assertThat(exchangeType2.getAuthenticationConfig()).isNull();
+        assertThat(exchangeType2.getNetworkConfig()).isNull();
+        assertThat(exchangeType2.getOtherConfig()).isNull();
+        assertThat(exchangeType2.getEmergencyStopCurrency()).isEqualTo(EXCHANGE_2_EMERGENCY_STOP_CURRENCY);
+        assertThat(exchangeType2.getEmergencyStopBalance()).isEqualTo(EXCHANGE_2_EMERGENCY_STOP_BALANCE);
     }
 
     @Test(expected = IllegalStateException.class)
     public void testLoadingMissingXmlConfigFileThrowsException() {
-        ConfigurationManager.loadConfig(ExchangeType.class, MISSING_XML_CONFIG_FILENAME, XML_SCHEMA_FILENAME);
+        ConfigurationManager.loadConfig(ExchangesType.class, MISSING_XML_CONFIG_FILENAME, XML_SCHEMA_FILENAME);
     }
 
     /*
@@ -125,6 +164,10 @@ public class TestExchangeConfigurationManagement {
         networkConfig.setConnectionTimeout(CONNECTION_TIMEOUT);
         networkConfig.setNonFatalErrorCodes(nonFatalErrorCodes);
         networkConfig.setNonFatalErrorMessages(nonFatalErrorMessages);
+        networkConfig.setMaxConnectionsPerHost(MAX_CONNECTIONS_PER_HOST);
+        networkConfig.setIdleConnectionTimeout(IDLE_CONNECTION_TIMEOUT);
+        networkConfig.setRateLimitInterval(RATE_LIMIT_INTERVAL);
+        networkConfig.setRateLimitBurst(RATE_LIMIT_BURST);
 
         final ConfigItemType buyFee = new ConfigItemType();
         buyFee.setName(BUY_FEE_CONFIG_ITEM_KEY);
@@ -137,19 +180,35 @@ public class TestExchangeConfigurationManagement {
         otherConfig.getConfigItems().add(sellFee);
 
         final ExchangeType exchangeConfig = new ExchangeType();
+        exchangeConfig.setId(EXCHANGE_ID);
         exchangeConfig.setName(EXCHANGE_NAME);
         exchangeConfig.setAdapter(EXCHANGE_ADAPTER);
         exchangeConfig.setAuthenticationConfig(authenticationConfig);
         exchangeConfig.setNetworkConfig(networkConfig);
         exchangeConfig.setOtherConfig(otherConfig);
 
+        final ExchangeType exchangeConfig2 = new ExchangeType();
+        exchangeConfig2.setId(EXCHANGE_2_ID);
+        exchangeConfig2.setName(EXCHANGE_2_NAME);
+        exchangeConfig2.setAdapter(EXCHANGE_2_ADAPTER);
+        exchangeConfig2.setEmergencyStopCurrency(EXCHANGE_2_EMERGENCY_STOP_CURRENCY);
+        exchangeConfig2.setEmergencyStopBalance(EXCHANGE_2_EMERGENCY_STOP_BALANCE);
+
+        final ExchangesType exchangesConfig = new ExchangesType();
+        exchangesConfig.getExchanges().add(exchangeConfig);
+        exchangesConfig.getExchanges().add(exchangeConfig2);
+
         // Save it!
-        ConfigurationManager.saveConfig(ExchangeType.class, exchangeConfig, XML_CONFIG_TO_SAVE_FILENAME);
+        ConfigurationManager.saveConfig(ExchangesType.class, exchangesConfig, XML_CONFIG_TO_SAVE_FILENAME);
 
         // Read it back in
-        final ExchangeType exchangeReloaded = ConfigurationManager.loadConfig(ExchangeType.class,
+        final ExchangesType exchangesReloaded = ConfigurationManager.loadConfig(ExchangesType.class,
                 XML_CONFIG_TO_SAVE_FILENAME, XML_SCHEMA_FILENAME);
 
+        assertThat(exchangesReloaded.getExchanges().size()).isEqualTo(2);
+
+        final ExchangeType exchangeReloaded = exchangesReloaded.getExchanges().get(0);
+        assertThat(exchangeReloaded.getId()).isEqualTo(EXCHANGE_ID);
         assertThat(exchangeReloaded.getName()).isEqualTo(EXCHANGE_NAME);
         assertThat(exchangeReloaded.getAdapter()).isEqualTo(EXCHANGE_ADAPTER);
 
@@ -161,12 +220,23 @@ public class TestExchangeConfigurationManagement {
         assertThat(exchangeReloaded.getNetworkConfig().getConnectionTimeout()).isEqualTo(CONNECTION_TIMEOUT);
         assertTrue(exchangeReloaded.getNetworkConfig().getNonFatalErrorCodes().getCodes().containsAll(NON_FATAL_ERROR_CODES));
         assertTrue(exchangeReloaded.getNetworkConfig().getNonFatalErrorMessages().getMessages().containsAll(NON_FATAL_ERROR_MESSAGES));
+        assertThat(exchangeReloaded.getNetworkConfig().getMaxConnectionsPerHost()).isEqualTo(MAX_CONNECTIONS_PER_HOST);
+        assertThat(exchangeReloaded.getNetworkConfig().getIdleConnectionTimeout()).isEqualTo(IDLE_CONNECTION_TIMEOUT);
+        assertThat(exchangeReloaded.getNetworkConfig().getRateLimitInterval()).isEqualTo(RATE_LIMIT_INTERVAL);
+        assertThat(exchangeReloaded.getNetworkConfig().getRateLimitBurst()).isEqualTo(RATE_LIMIT_BURST);
 
         assertThat(exchangeReloaded.getOtherConfig().getConfigItems().get(0).getName()).isEqualTo(BUY_FEE_CONFIG_ITEM_KEY);
         assertThat(exchangeReloaded.getOtherConfig().getConfigItems().get(0).getValue()).isEqualTo(BUY_FEE_CONFIG_ITEM_VALUE);
         assertThat(exchangeReloaded.getOtherConfig().getConfigItems().get(1).getName()).isEqualTo(SELL_FEE_CONFIG_ITEM_KEY);
         assertThat(exchangeReloaded.getOtherConfig().getConfigItems().get(1).getValue()).isEqualTo(SELL_FEE_CONFIG_ITEM_VALUE);
 
+        final ExchangeType exchangeReloaded2 = exchangesReloaded.getExchanges().get(1);
+        assertThat(exchangeReloaded2.getId()).isEqualTo(EXCHANGE_2_ID);
+        assertThat(exchangeReloaded2.getName()).isEqualTo(EXCHANGE_2_NAME);
+        assertThat(exchangeReloaded2.getAdapter()).isEqualTo(EXCHANGE_2_ADAPTER);
+        assertThat(exchangeReloaded2.getEmergencyStopCurrency()).isEqualTo(EXCHANGE_2_EMERGENCY_STOP_CURRENCY);
+        assertThat(exchangeReloaded2.getEmergencyStopBalance()).isEqualTo(EXCHANGE_2_EMERGENCY_STOP_BALANCE);
+
         // cleanup
         Files.delete(FileSystems.getDefault().getPath(XML_CONFIG_TO_SAVE_FILENAME));
     }
@@ -27,8 +27,18 @@ import com.gazbert.bxbot.datastore.ConfigurationManager;
 import com.gazbert.bxbot.datastore.market.generated.MarketsType;
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -60,6 +70,8 @@ public class TestMarketConfigurationManagement {
         assertEquals("USD", marketsType.getMarkets().get(0).getCounterCurrency());
         assertTrue(marketsType.getMarkets().get(0).isEnabled());
         assertEquals("scalping-strategy", marketsType.getMarkets().get(0).getTradingStrategy());
+        assertEquals(Integer.valueOf(5), marketsType.getMarkets().get(0).getTradeCycleInterval());
+        assertEquals("btce", marketsType.getMarkets().get(0).getExchange());
 
         assertEquals("LTC/BTC", marketsType.getMarkets().get(1).getLabel());
         assertEquals("ltc_usd", marketsType.getMarkets().get(1).getId());
@@ -67,6 +79,8 @@ public class TestMarketConfigurationManagement {
         assertEquals("BTC", marketsType.getMarkets().get(1).getCounterCurrency());
         assertFalse(marketsType.getMarkets().get(1).isEnabled());
         assertEquals("scalping-strategy", marketsType.getMarkets().get(1).getTradingStrategy());
+        assertNull(marketsType.getMarkets().get(1).getTradeCycleInterval());
+        assertNull(marketsType.getMarkets().get(1).getExchange());
     }
 
     @Test(expected = IllegalStateException.class)
@@ -75,4 +89,66 @@ public class TestMarketConfigurationManagement {
         ConfigurationManager.loadConfig(MarketsType.class,
                 MISSING_XML_CONFIG_FILENAME, XML_SCHEMA_FILENAME);
     }
+
+    @Test
+    public void testLoadedConfigIsCachedUntilSaved() throws Exception {
+
+        final Path configFile = copyOfValidXmlConfigFile();
+        try {
+            final MarketsType marketsType = ConfigurationManager.loadConfig(MarketsType.class,
+                    configFile.toString(), XML_SCHEMA_FILENAME);
+            assertSame(marketsType, ConfigurationManager.loadConfig(MarketsType.class,
+                    configFile.toString(), XML_SCHEMA_FILENAME));
+
+            // Updates get their own copy to change
+            final MarketsType marketsTypeToUpdate = ConfigurationManager.loadConfigForUpdate(MarketsType.class,
+                    configFile.toString(), XML_SCHEMA_FILENAME);
+            assertNotSame(marketsType, marketsTypeToUpdate);
+            marketsTypeToUpdate.getMarkets().remove(0);
+            assertEquals(2, marketsType.getMarkets().size());
+
+            ConfigurationManager.saveConfig(MarketsType.class, marketsTypeToUpdate, configFile.toString());
+
+            final MarketsType marketsTypeReloaded = ConfigurationManager.loadConfig(MarketsType.class,
+                    configFile.toString(), XML_SCHEMA_FILENAME);
+            assertEquals(1, marketsTypeReloaded.getMarkets().size());
+            assertEquals("ltc_usd", marketsTypeReloaded.getMarkets().get(0).getId());
+        } finally {
+            Files.delete(configFile);
+        }
+    }
+
+    @Test
+    public void testLoadedConfigIsReloadedWhenFileChanges() throws Exception {
+
+        final Path configFile = copyOfValidXmlConfigFile();
+        try {
+            final MarketsType marketsType = ConfigurationManager.loadConfig(MarketsType.class,
+                    configFile.toString(), XML_SCHEMA_FILENAME);
+            assertEquals("BTC/USD", marketsType.getMarkets().get(0).getLabel());
+
+            // Edited by hand - make sure the modified time moves on, whatever the filesystem's granularity
+            final FileTime lastModifiedTime = Files.getLastModifiedTime(configFile);
+            final String editedConfig = new String(Files.readAllBytes(configFile), StandardCharsets.UTF_16)
+                    .replace("BTC/USD", "XBT/USD");
+            Files.write(configFile, editedConfig.getBytes(StandardCharsets.UTF_16));
+            Files.setLastModifiedTime(configFile, FileTime.fromMillis(lastModifiedTime.toMillis() + 2000));
+
+            final MarketsType marketsTypeReloaded = ConfigurationManager.loadConfig(MarketsType.class,
+                    configFile.toString(), XML_SCHEMA_FILENAME);
+            assertEquals("XBT/USD", marketsTypeReloaded.getMarkets().get(0).getLabel());
+        } finally {
+            Files.delete(configFile);
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // Util methods
+    // ------------------------------------------------------------------------------------------------
+
+    private static Path copyOfValidXmlConfigFile() throws Exception {
+        final Path configFile = Files.createTempFile("bxbot-markets", ".xml");
+        Files.copy(Paths.get(VALID_XML_CONFIG_FILENAME), configFile, StandardCopyOption.REPLACE_EXISTING);
+        return configFile;
+    }
 }